@@ -6,6 +6,11 @@ const DispatchMode = enum {
     @"switch",
 };
 
+const ValueRepr = enum {
+    tagged,
+    nanbox,
+};
+
 const BuildConfig = struct {
     description: []const u8,
     extra_cflags: []const []const u8,
@@ -22,6 +27,7 @@ pub fn build(b: *std.Build) void {
     const build_cfg = defaultBuildConfig();
 
     const dispatch_mode = b.option(DispatchMode, "dispatch-mode", "Dispatch selection: auto, goto, switch") orelse .auto;
+    const value_repr = b.option(ValueRepr, "value-repr", "Value encoding: tagged (16-byte union) or nanbox (8-byte NaN-boxed)") orelse .tagged;
     const git_commit = tryTrim(b, &.{ "git", "rev-parse", "--short", "HEAD" }) orelse "unknown";
     const git_commit_date_raw = tryTrim(b, &.{ "git", "show", "-s", "--format=%cs", "HEAD" });
     const build_date = tryTrim(b, &.{ "date", "-u", "+%Y-%m-%d" }) orelse "unknown";
@@ -39,6 +45,7 @@ pub fn build(b: *std.Build) void {
         target,
         portable,
         dispatch_mode,
+        value_repr,
         build_cfg,
         git_commit,
         git_commit_date,
@@ -214,6 +221,7 @@ fn makeCoreCFlags(
     target: std.Build.ResolvedTarget,
     portable: bool,
     dispatch_mode: DispatchMode,
+    value_repr: ValueRepr,
     build_cfg: BuildConfig,
     git_commit: []const u8,
     git_commit_date: []const u8,
@@ -223,6 +231,7 @@ fn makeCoreCFlags(
     try addConfigFlags(&cflags, allocator, build_cfg.extra_cflags);
     try addPortableFlags(&cflags, allocator, target, portable);
     try addDispatchDefine(&cflags, allocator, dispatch_mode, target);
+    try addValueReprDefine(&cflags, allocator, value_repr);
     try addGitDefines(&cflags, allocator, git_commit, git_commit_date);
 
     const os_tag = target.result.os.tag;
@@ -306,6 +315,14 @@ fn addDispatchDefine(cflags: *StringList, allocator: std.mem.Allocator, mode: Di
     try cflags.append(allocator, define);
 }
 
+fn addValueReprDefine(cflags: *StringList, allocator: std.mem.Allocator, repr: ValueRepr) !void {
+    const define = switch (repr) {
+        .tagged => "-DORUS_VALUE_NANBOX=0",
+        .nanbox => "-DORUS_VALUE_NANBOX=1",
+    };
+    try cflags.append(allocator, define);
+}
+
 fn addGitDefines(
     cflags: *StringList,
     allocator: std.mem.Allocator,
@@ -416,6 +433,8 @@ const vmSources = &.{
     "src/vm/core/vm_tagged_union.c",
     "src/vm/runtime/vm.c",
     "src/vm/core/vm_memory.c",
+    "src/vm/core/vm_heap.c",
+    "src/vm/core/vm_gc_workers.c",
     "src/vm/utils/debug.c",
     "src/vm/runtime/builtin_print.c",
     "src/vm/runtime/builtin_input.c",
@@ -447,9 +466,13 @@ const vmSources = &.{
     "src/vm/register_cache.c",
     "src/vm/profiling/vm_profiling.c",
     "src/vm/runtime/vm_tiering.c",
+    "src/vm/runtime/vm_inline_cache.c",
     "src/vm/vm_config.c",
     "src/vm/jit/orus_jit_backend.c",
     "src/vm/jit/orus_jit_debug.c",
+    "src/vm/jit/orus_jit_compile_queue.c",
+    "src/vm/jit/orus_jit_disk_cache.c",
+    "src/vm/jit/orus_jit_regalloc.c",
     "src/vm/jit/orus_jit_ir.c",
     "src/vm/jit/orus_jit_ir_debug.c",
     "src/type/type_representation.c",
@@ -171,6 +171,7 @@ struct ASTNode {
             ASTNode* array;
             ASTNode* start;
             ASTNode* end;
+            bool isStringSlice;
         } arraySlice;
         struct {
             ASTNode** values;
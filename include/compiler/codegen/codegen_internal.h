@@ -28,6 +28,7 @@ int compile_member_assignment(CompilerContext* ctx, TypedASTNode* assign, bool a
 
 char* create_method_symbol_name(const char* struct_name, const char* method_name);
 int resolve_struct_field_index(Type* struct_type, const char* field_name);
+bool resolve_packed_array_kind(Type* array_type, ArrayElementKind* out_kind);
 int resolve_variable_or_upvalue(CompilerContext* ctx, const char* name, bool* is_upvalue, int* upvalue_index);
 bool evaluate_constant_i32(TypedASTNode* node, int32_t* out_value);
 void ensure_i32_typed_register(CompilerContext* ctx, int reg, const TypedASTNode* source);
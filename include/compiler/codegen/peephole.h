@@ -15,6 +15,7 @@ typedef struct PeepholeContext {
     int load_move_fusions;
     int redundant_moves;
     int constant_propagations;
+    int superinstructions;
 } PeepholeContext;
 
 // Main peephole optimization function
@@ -24,6 +25,7 @@ bool apply_peephole_optimizations(CompilerContext* ctx);
 int optimize_load_move_pattern(CompilerContext* ctx);
 int optimize_redundant_operations(CompilerContext* ctx);
 int optimize_constant_propagation(CompilerContext* ctx);
+int optimize_superinstructions(CompilerContext* ctx);
 
 // Pattern matching helpers
 bool is_load_move_pattern(CompilerContext* ctx, int offset);
@@ -48,6 +48,10 @@ typedef struct BytecodeBuffer {
     int* source_columns;       // Column numbers for each instruction
     const char** source_files; // Source file for each instruction (optional)
 
+    // Set on the opcode byte of instructions emitted by helpers that know the
+    // full encoding; the superinstruction pass only fuses marked pairs.
+    bool* instruction_starts;
+
     // Current emission location (threaded from AST nodes)
     SrcLocation current_location;
     bool has_current_location;
@@ -128,6 +132,7 @@ typedef struct CompilerContext {
     int current_function_index;        // Currently compiling function index (-1 if global)
     BytecodeBuffer** function_chunks;  // Separate bytecode for each function
     int* function_arities;             // Arities for each function
+    FrameWindowLayout* function_windows; // Register window each function needs at runtime
     char** function_names;             // Debug names preserved for specialization feedback
     BytecodeBuffer** function_specialized_chunks; // Specialized variants generated from profiling data
     BytecodeBuffer** function_deopt_stubs;        // Bytecode stubs used for deoptimization bookkeeping
@@ -161,6 +166,8 @@ void emit_byte_to_buffer(BytecodeBuffer* buffer, uint8_t byte);
 void bytecode_set_location(BytecodeBuffer* buffer, SrcLocation location);
 void bytecode_set_synthetic_location(BytecodeBuffer* buffer);
 
+void bytecode_mark_instruction_start(BytecodeBuffer* buffer, int offset);
+
 void emit_word_to_buffer(BytecodeBuffer* buffer, uint16_t word);
 void emit_instruction_to_buffer(BytecodeBuffer* buffer, uint8_t opcode, uint8_t reg1, uint8_t reg2, uint8_t reg3);
 
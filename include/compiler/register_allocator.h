@@ -64,6 +64,13 @@ typedef struct TypedSpanReservation {
     bool             requires_reconciliation; // Whether boxed mirrors must be refreshed
 } TypedSpanReservation;
 
+// Outer frame allocation state saved while a nested function body compiles.
+typedef struct CompilerFrameState {
+    bool frame_regs[FRAME_REGISTERS];
+    int frame_high_water;
+    int temp_high_water;
+} CompilerFrameState;
+
 typedef struct AllocatorDiagnostics {
     int max_scope_depth_seen;
     int scope_depth_overflow_count;
@@ -100,6 +107,14 @@ bool compiler_has_typed_residency_hint(const DualRegisterAllocator* allocator, i
 // Utilities
 void compiler_reserve_global(DualRegisterAllocator* allocator, int reg);
 void compiler_reset_frame_registers(DualRegisterAllocator* allocator);
+
+// Function frames: begin reserves the parameter registers in a fresh frame
+// window, end reports how many frame and temp registers the body touched and
+// restores the enclosing function's frame allocation.
+void compiler_begin_function_frame(DualRegisterAllocator* allocator, int arity,
+                                   CompilerFrameState* saved);
+FrameWindowLayout compiler_end_function_frame(DualRegisterAllocator* allocator,
+                                              const CompilerFrameState* saved);
 bool compiler_is_register_free(DualRegisterAllocator* allocator, int reg);
 const char* compiler_register_type_name(int reg);
 
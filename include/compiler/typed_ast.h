@@ -195,6 +195,7 @@ struct TypedASTNode {
             TypedASTNode* array;
             TypedASTNode* start;
             TypedASTNode* end;
+            bool isStringSlice;
         } arraySlice;
         struct {
             const char* name;
@@ -25,12 +25,15 @@ typedef struct {
     uint32_t register_count;       // Number of VM registers (default: 256)
     uint32_t stack_size;           // Stack size in bytes (default: 1MB)
     uint32_t heap_size;            // Heap size in bytes (default: 8MB)
+    bool register_cache;           // Cache module/spill register lookups (default: false)
     
     // GC Configuration
     bool gc_enabled;               // Enable garbage collection (default: true)
     uint32_t gc_threshold;         // GC trigger threshold in bytes (default: 1MB)
     uint32_t gc_frequency;         // GC frequency multiplier (default: 1)
     const char* gc_strategy;       // GC strategy: "mark-sweep", "generational" (default: "mark-sweep")
+    uint32_t gc_pause_us;          // Incremental GC pause target in microseconds (default: 0 = stop-the-world)
+    uint32_t gc_threads;           // GC marker threads (default: 0 = one per core)
     
     // Parser Configuration
     uint32_t parser_max_depth;     // Maximum parser recursion depth (default: 1000)
@@ -52,7 +55,9 @@ typedef struct {
     bool benchmark_mode;           // Enable benchmarking (--benchmark)
     bool jit_benchmark_mode;       // Run the JIT benchmark harness (--jit-benchmark)
     bool enable_jit;               // Enable baseline JIT execution (--enable-jit)
+    bool jit_background;           // Compile tier-ups on a background thread (default: true, --jit-sync disables)
     int jit_rollout_stage;         // Baseline JIT rollout stage (-1=default)
+    const char* cache_path;        // Directory for translated JIT programs kept across runs (--cache-path, default: none)
 
     // Debug System Configuration
     const char* debug_categories;  // Debug categories to enable (--debug-categories)
@@ -84,6 +89,7 @@ typedef struct {
     bool profile_registers;        // Profile register usage (--profile-registers)
     bool profile_memory_access;    // Profile memory access patterns (--profile-memory)
     bool profile_branches;         // Profile branch prediction (--profile-branches)
+    bool profile_opcode_pairs;     // Count fall-through opcode pairs (--profile-opcode-pairs)
     bool profile_functions;        // Profile function invocation counts (--profile-functions)
     const char* profile_output;    // Profiling output file (--profile-output)
     
@@ -127,13 +133,18 @@ void config_save_to_file(const OrusConfig* config, const char* filename);
 #define ORUS_REGISTER_COUNT "ORUS_REGISTER_COUNT"
 #define ORUS_STACK_SIZE "ORUS_STACK_SIZE"
 #define ORUS_HEAP_SIZE "ORUS_HEAP_SIZE"
+#define ORUS_REGISTER_CACHE "ORUS_REGISTER_CACHE"
 #define ORUS_GC_ENABLED "ORUS_GC_ENABLED"
 #define ORUS_GC_THRESHOLD "ORUS_GC_THRESHOLD"
 #define ORUS_GC_STRATEGY "ORUS_GC_STRATEGY"
+#define ORUS_GC_PAUSE_US "ORUS_GC_PAUSE_US"
+#define ORUS_GC_THREADS "ORUS_GC_THREADS"
 #define ORUS_ERROR_FORMAT "ORUS_ERROR_FORMAT"
 #define ORUS_ERROR_COLORS "ORUS_ERROR_COLORS"
 #define ORUS_ENABLE_JIT "ORUS_ENABLE_JIT"
 #define ORUS_JIT_ROLLOUT_STAGE "ORUS_JIT_ROLLOUT_STAGE"
+#define ORUS_JIT_BACKGROUND "ORUS_JIT_BACKGROUND"
+#define ORUS_CACHE_PATH "ORUS_CACHE_PATH"
 #define ORUS_OPTIMIZATION_LEVEL "ORUS_OPTIMIZATION_LEVEL"
 #define ORUS_LOG_FILE "ORUS_LOG_FILE"
 
@@ -145,6 +156,8 @@ void config_save_to_file(const OrusConfig* config, const char* filename);
 #define DEFAULT_GC_THRESHOLD (1024 * 1024)    // 1MB
 #define DEFAULT_GC_FREQUENCY 1
 #define DEFAULT_GC_STRATEGY "mark-sweep"
+#define DEFAULT_GC_PAUSE_US 0                 // Stop-the-world collections
+#define DEFAULT_GC_THREADS 0                  // One marker thread per core
 #define DEFAULT_PARSER_MAX_DEPTH 1000
 #define DEFAULT_PARSER_BUFFER_SIZE (64 * 1024) // 64KB
 #define DEFAULT_ERROR_FORMAT "friendly"
@@ -20,16 +20,66 @@ void* reallocate(void* pointer, size_t oldSize, size_t newSize);
 
 void initMemory(void);
 void collectGarbage(void);
+void collectGarbageYoung(void);
 void freeObjects(void);
 void pauseGC(void);
 void resumeGC(void);
+void printMemoryProfile(void);
 
 extern size_t gcThreshold;
+extern bool gcGenerational;
+extern uint64_t gcGlobalsWritten[UINT8_COUNT / 64];  // Globals stored since the last GC
+extern uint32_t gcPauseBudgetUs;     // Incremental slice target; 0 collects stop-the-world
+extern bool gcIncrementalMarking;    // An incremental mark phase is in progress
+extern uint64_t gcLongestPauseUs;    // Longest collector pause observed so far
+extern uint32_t gcWorkerThreads;     // Marker threads; 0 uses one per core, 1 marks serially
+
+void gcRememberObject(Obj* object);
+void gcPretenureValue(Value value);
+void gcShadeObject(Obj* object);
+
+static inline Obj* gcValueObject(Value value) {
+    ValueType type = VALUE_TYPE(value);
+#if ORUS_VALUE_NANBOX
+    if ((type == VAL_I64 || type == VAL_U64) && orus_nanbox_is_wide(value)) {
+        return AS_OBJ(value);
+    }
+#endif
+    return type >= VAL_STRING ? AS_OBJ(value) : NULL;
+}
+
+// Write barriers. While an incremental mark is running, stored objects are
+// shaded gray so a black container never hides a white one. In generational
+// mode, storing a young object into an old one records the container so
+// minor collections can treat it as a root.
+static inline void gcWriteBarrierObject(Obj* container, Obj* stored) {
+    if (!stored) {
+        return;
+    }
+    if (gcIncrementalMarking) {
+        gcShadeObject(stored);
+    }
+    if (gcGenerational && container && container->isOld &&
+        !container->isRemembered && !stored->isOld) {
+        gcRememberObject(container);
+    }
+}
+
+static inline void gcWriteBarrier(Obj* container, Value value) {
+    if (gcIncrementalMarking || (gcGenerational && container && container->isOld)) {
+        gcWriteBarrierObject(container, gcValueObject(value));
+    }
+}
+
+static inline void gcGlobalWriteBarrier(int index) {
+    gcGlobalsWritten[index >> 6] |= UINT64_C(1) << (index & 63);
+}
 
 ObjString* allocateString(const char* chars, int length);
 ObjString* allocateStringFromBuffer(char* buffer, size_t capacity, int length);
 ObjString* allocateStringFromRope(StringRope* rope);
 ObjArray* allocateArray(int capacity);
+ObjArray* allocateTypedArray(int capacity, ArrayElementKind kind);
 ObjArrayIterator* allocateArrayIterator(ObjArray* array);
 ObjByteBuffer* allocateByteBuffer(size_t length);
 ObjByteBuffer* allocateByteBufferFilled(size_t length, uint8_t fill);
@@ -40,6 +90,40 @@ bool arrayPush(ObjArray* array, Value value);
 bool arrayPop(ObjArray* array, Value* outValue);
 bool arrayGet(const ObjArray* array, int index, Value* outValue);
 bool arraySet(ObjArray* array, int index, Value value);
+void arrayDespecialize(ObjArray* array);
+
+static inline size_t arrayElementSize(ArrayElementKind kind) {
+    switch (kind) {
+        case ARRAY_ELEMENT_I32:
+            return sizeof(int32_t);
+        case ARRAY_ELEMENT_I64:
+            return sizeof(int64_t);
+        case ARRAY_ELEMENT_F64:
+            return sizeof(double);
+        case ARRAY_ELEMENT_BOOL:
+            return sizeof(bool);
+        case ARRAY_ELEMENT_VALUE:
+        default:
+            return sizeof(Value);
+    }
+}
+
+// Unchecked element read; packed storage is boxed on the way out.
+static inline Value arrayElementAt(const ObjArray* array, int index) {
+    switch (array->kind) {
+        case ARRAY_ELEMENT_I32:
+            return I32_VAL(array->i32_elements[index]);
+        case ARRAY_ELEMENT_I64:
+            return I64_VAL(array->i64_elements[index]);
+        case ARRAY_ELEMENT_F64:
+            return F64_VAL(array->f64_elements[index]);
+        case ARRAY_ELEMENT_BOOL:
+            return BOOL_VAL(array->bool_elements[index]);
+        case ARRAY_ELEMENT_VALUE:
+        default:
+            return array->elements[index];
+    }
+}
 ObjError* allocateError(ErrorType type, const char* message, SrcLocation location);
 ObjRangeIterator* allocateRangeIterator(int64_t start, int64_t end, int64_t step);
 ObjFunction* allocateFunction(void);
@@ -20,6 +20,12 @@ typedef struct JITDeoptTrigger {
 
 typedef void (*JITEntryPoint)(struct VM* vm);
 
+// Whole-function entry. The callee's frame is already pushed and vm->ip
+// sits on its first instruction. Returns true once the callee has returned
+// into its caller, false when the interpreter has to carry on from
+// vm->chunk/vm->ip (a guard failed or a callee has no native code).
+typedef bool (*JITMethodEntryPoint)(struct VM* vm);
+
 typedef enum {
     ORUS_JIT_BACKEND_TARGET_X86_64 = 0,
     ORUS_JIT_BACKEND_TARGET_AARCH64,
@@ -37,6 +43,7 @@ typedef enum {
 
 typedef struct JITEntry {
     JITEntryPoint entry_point;
+    JITMethodEntryPoint method_entry_point;  // Set for whole-function programs only
     void* code_ptr;
     size_t code_size;
     size_t code_capacity;
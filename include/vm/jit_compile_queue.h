@@ -0,0 +1,51 @@
+// Orus Language Project
+
+// jit_compile_queue.h - Background compilation of tier-up requests
+// The interpreter translates a hot loop to IR and hands the program to a
+// single compile thread, then keeps interpreting. The thread runs the backend
+// and parks the finished JITEntry; the interpreter picks it up at its next
+// loop safepoint and installs it into the JITEntryCache. Every decision about
+// the result (install, blocklist, release) stays on the interpreter thread.
+
+#ifndef ORUS_VM_JIT_COMPILE_QUEUE_H
+#define ORUS_VM_JIT_COMPILE_QUEUE_H
+
+#include <stdbool.h>
+#include <stdint.h>
+
+#include "vm/jit_backend.h"
+#include "vm/jit_translation.h"
+
+#define ORUS_JIT_COMPILE_QUEUE_CAPACITY 16
+
+typedef struct OrusJitCompileJob {
+    uint16_t function_index;
+    uint16_t loop_index;
+    uint64_t epoch;                        // vm.jit_compile_epoch at submission
+    OrusJitTranslationResult translation;
+    OrusJitIRProgram program;              // Owned by the queue once submitted
+    JITBackendStatus status;               // Set by the compile thread
+    JITEntry entry;                        // Owned by the caller once taken
+} OrusJitCompileJob;
+
+// Thread lifecycle. start() returns false when no thread could be created
+// (or the platform has none); callers then compile synchronously. stop()
+// joins the thread, frees queued programs and releases finished entries that
+// were never taken, so it must run before the backend is destroyed.
+bool orus_jit_compile_queue_start(struct OrusJitBackend* backend);
+void orus_jit_compile_queue_stop(void);
+bool orus_jit_compile_queue_running(void);
+
+// Takes ownership of job->program. Returns false, leaving the job untouched,
+// when the queue is not running or every slot is busy.
+bool orus_jit_compile_queue_submit(OrusJitCompileJob* job);
+
+// True while a job for this loop is queued, compiling or waiting to be taken.
+bool orus_jit_compile_queue_contains(uint16_t function_index, uint16_t loop_index);
+
+bool orus_jit_compile_queue_has_finished(void);
+
+// Moves the oldest finished job into `out` and frees its slot.
+bool orus_jit_compile_queue_take_finished(OrusJitCompileJob* out);
+
+#endif // ORUS_VM_JIT_COMPILE_QUEUE_H
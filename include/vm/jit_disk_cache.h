@@ -0,0 +1,64 @@
+// Orus Language Project
+
+// jit_disk_cache.h - Translated IR programs persisted across process runs
+// Each hot loop (or whole function) that translates successfully is written to
+// <vm.cachePath>/jit as one file. A later run that reaches the same loop loads
+// the program instead of translating it, and a loop known to have a cached
+// program tiers up after a few iterations rather than HOT_THRESHOLD.
+//
+// Only IR is stored: native code embeds helper and VM addresses that change
+// from run to run, so it is recompiled from the loaded program. Files are
+// named by the chunk's shape, the loop, the rollout stage, the IR layout and
+// the build; inside, the seeded register kinds and a hash of the bytecode the
+// program covers must still match or the file is ignored and rewritten.
+
+#ifndef ORUS_VM_JIT_DISK_CACHE_H
+#define ORUS_VM_JIT_DISK_CACHE_H
+
+#include <stdbool.h>
+#include <stddef.h>
+#include <stdint.h>
+
+#include "vm/jit_ir.h"
+#include "vm/vm.h"
+
+#define ORUS_JIT_DISK_CACHE_FORMAT_VERSION 1u
+#define ORUS_JIT_DISK_CACHE_SUBDIR "jit"
+#define ORUS_JIT_DISK_CACHE_MAX_INSTRUCTIONS 65536u
+// Loop iterations a loop with a cached program still runs interpreted, so the
+// typed window holds the kinds the program was seeded with.
+#define ORUS_JIT_DISK_CACHE_WARM_HITS 2u
+
+typedef struct OrusJitDiskCacheKey {
+    uint64_t name_hash;  // Chunk shape, loop, rollout stage, IR layout, build
+    uint64_t seed_hash;  // Register kinds the translator starts from
+} OrusJitDiskCacheKey;
+
+// seed_kinds may be NULL for programs that do not read the typed window
+// (whole-function programs).
+void orus_jit_disk_cache_make_key(const VMState* vm_state,
+                                  const Chunk* chunk,
+                                  uint16_t function_index,
+                                  uint16_t loop_index,
+                                  const uint8_t* seed_kinds,
+                                  size_t seed_count,
+                                  OrusJitDiskCacheKey* out_key);
+
+// True when a file exists for the key's name, whatever its seeds.
+bool orus_jit_disk_cache_contains(const char* cache_path,
+                                  const OrusJitDiskCacheKey* key);
+
+// Fills an initialised, empty program from the cache. Returns false, leaving
+// the program empty, on a miss or when the file no longer matches the chunk.
+bool orus_jit_disk_cache_load(const char* cache_path,
+                              const OrusJitDiskCacheKey* key,
+                              const Chunk* chunk,
+                              OrusJitIRProgram* program);
+
+// Writes the program atomically (temporary file, then rename).
+bool orus_jit_disk_cache_store(const char* cache_path,
+                               const OrusJitDiskCacheKey* key,
+                               const Chunk* chunk,
+                               const OrusJitIRProgram* program);
+
+#endif // ORUS_VM_JIT_DISK_CACHE_H
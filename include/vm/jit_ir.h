@@ -159,6 +159,10 @@ typedef enum OrusJitIROpcode {
     ORUS_JIT_IR_OP_JUMP_IF_NOT_SHORT,
     ORUS_JIT_IR_OP_INC_CMP_JUMP,
     ORUS_JIT_IR_OP_DEC_CMP_JUMP,
+
+    // Whole-function programs only (see OrusJitIRProgram.whole_function).
+    ORUS_JIT_IR_OP_CALL_FUNCTION,
+    ORUS_JIT_IR_OP_RETURN_VALUE,
 } OrusJitIROpcode;
 
 typedef enum OrusJitIRLoopStepKind {
@@ -277,6 +281,7 @@ typedef struct OrusJitIRInstruction {
         } jump_short;
         struct {
             uint16_t back_offset;
+            uint16_t bytecode_length;
         } jump_back_short;
         struct {
             uint16_t predicate_reg;
@@ -286,6 +291,16 @@ typedef struct OrusJitIRInstruction {
         struct {
             uint16_t back_offset;
         } loop_back;
+        struct {
+            uint16_t dst_reg;
+            uint16_t callee_reg;
+            uint16_t first_arg_reg;
+            uint16_t arg_count;
+            uint16_t bytecode_length;
+        } call_function;
+        struct {
+            uint16_t value_reg;  // ORUS_JIT_IR_NO_RETURN_VALUE for OP_RETURN_VOID
+        } return_value;
         OrusJitIRFusedLoopOperands fused_loop;
     } operands;
 } OrusJitIRInstruction;
@@ -295,6 +310,34 @@ typedef struct OrusJitIRInstruction {
 #define ORUS_JIT_IR_FLAG_INLINE_CACHE   (1u << 2)
 #define ORUS_JIT_IR_FLAG_LOOP_INVARIANT (1u << 3)
 
+#define ORUS_JIT_IR_NO_RETURN_VALUE UINT16_MAX
+
+// On-stack replacement map for loop programs. Native loop code keeps its
+// operands in the typed register window without touching reg_types or the
+// dirty bits, so entering mid-loop needs every register the body reads before
+// writing (live-in) to already hold its expected kind, and leaving needs every
+// register it wrote (live-out) flagged so the boxed view gets reconciled.
+#define ORUS_JIT_OSR_MAX_SLOTS 64u
+#define ORUS_JIT_OSR_MASK_WORDS 4u  // Mirrors TypedRegisterWindow.live_mask
+
+#define ORUS_JIT_OSR_LIVE_IN  (1u << 0)
+#define ORUS_JIT_OSR_LIVE_OUT (1u << 1)
+
+typedef struct OrusJitOsrSlot {
+    uint16_t reg;
+    uint8_t kind;   // OrusJitValueKind held in the typed slot
+    uint8_t flags;  // ORUS_JIT_OSR_LIVE_IN / ORUS_JIT_OSR_LIVE_OUT
+} OrusJitOsrSlot;
+
+typedef struct OrusJitOsrMap {
+    // False when the program touches registers the map cannot describe; such
+    // programs keep the guard-only entry and the deopting exits.
+    bool valid;
+    uint16_t slot_count;
+    uint64_t live_in[ORUS_JIT_OSR_MASK_WORDS];
+    OrusJitOsrSlot slots[ORUS_JIT_OSR_MAX_SLOTS];
+} OrusJitOsrMap;
+
 typedef struct OrusJitIRProgram {
     OrusJitIRInstruction* instructions;
     size_t count;
@@ -304,12 +347,17 @@ typedef struct OrusJitIRProgram {
     uint16_t loop_index;
     uint32_t loop_start_offset;
     uint32_t loop_end_offset;
+    // Lowered from a whole Function.chunk rather than one loop; entered on
+    // every call of function_index and left through its returns.
+    bool whole_function;
+    OrusJitOsrMap osr;
 } OrusJitIRProgram;
 
 void orus_jit_ir_program_init(OrusJitIRProgram* program);
 void orus_jit_ir_program_reset(OrusJitIRProgram* program);
 bool orus_jit_ir_program_reserve(OrusJitIRProgram* program, size_t additional);
 OrusJitIRInstruction* orus_jit_ir_program_append(OrusJitIRProgram* program);
+bool orus_jit_ir_program_build_osr_map(OrusJitIRProgram* program);
 
 #ifdef __cplusplus
 } // extern "C"
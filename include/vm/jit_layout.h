@@ -27,6 +27,7 @@
 #define ORUS_JIT_OFFSET_RF_ACTIVE_TEMPS   (offsetof(RegisterFile, temps))
 #define ORUS_JIT_OFFSET_RF_CURRENT_FRAME  (offsetof(RegisterFile, current_frame))
 #define ORUS_JIT_OFFSET_RF_FRAME_STACK    (offsetof(RegisterFile, frame_stack))
+#define ORUS_JIT_OFFSET_RF_STACK          (offsetof(RegisterFile, stack))
 
 // --- Call frame layout -----------------------------------------------------
 #define ORUS_JIT_OFFSET_FRAME_REGISTERS       (offsetof(CallFrame, registers))
@@ -40,6 +41,19 @@
 #define ORUS_JIT_OFFSET_FRAME_RESULT_REG      (offsetof(CallFrame, resultRegister))
 #define ORUS_JIT_OFFSET_FRAME_PARAM_BASE      (offsetof(CallFrame, parameterBaseRegister))
 
+// --- Boxed value layout ----------------------------------------------------
+// Native code only touches boxed registers through C helpers, but the
+// encoding is exported so helpers and stubs can assert what they assume.
+#if ORUS_VALUE_NANBOX
+#define ORUS_JIT_VALUE_NANBOXED       1
+#define ORUS_JIT_VALUE_TAG_SHIFT      ORUS_NANBOX_TAG_SHIFT
+#define ORUS_JIT_VALUE_PAYLOAD_MASK   ORUS_NANBOX_PAYLOAD_MASK
+#else
+#define ORUS_JIT_VALUE_NANBOXED       0
+#define ORUS_JIT_OFFSET_VALUE_TYPE    (offsetof(Value, type))
+#define ORUS_JIT_OFFSET_VALUE_PAYLOAD (offsetof(Value, as))
+#endif
+
 #define ORUS_JIT_SIZEOF_VALUE        (sizeof(Value))
 #define ORUS_JIT_SIZEOF_CALLFRAME    (sizeof(CallFrame))
 #define ORUS_JIT_SIZEOF_REGISTERFILE (sizeof(RegisterFile))
@@ -49,16 +63,18 @@ _Static_assert(ORUS_JIT_OFFSET_VM_REGISTER_FILE == 0,
                "VM.register_file must stay the first field for JIT access");
 _Static_assert(ORUS_JIT_OFFSET_RF_GLOBALS == 0,
                "RegisterFile.globals must be at offset 0");
+#if ORUS_VALUE_NANBOX
+_Static_assert(ORUS_JIT_SIZEOF_VALUE == 8, "NaN-boxed Value must be 8 bytes");
+#else
+_Static_assert(ORUS_JIT_SIZEOF_VALUE == 16, "Tagged Value must be 16 bytes");
+#endif
 _Static_assert(ORUS_JIT_OFFSET_FRAME_REGISTERS == 0,
                "CallFrame.registers must be at offset 0");
-_Static_assert(ORUS_JIT_OFFSET_FRAME_TEMPS ==
-                   (FRAME_REGISTERS * sizeof(Value)),
-               "Frame temps must follow the register window contiguously");
-_Static_assert(sizeof(((CallFrame*)0)->registers) / sizeof(Value) ==
-                   FRAME_REGISTERS,
-               "CallFrame.registers size mismatch with FRAME_REGISTERS");
-_Static_assert(sizeof(((CallFrame*)0)->temps) / sizeof(Value) ==
-                   TEMP_REGISTERS,
-               "CallFrame.temps size mismatch with TEMP_REGISTERS");
+_Static_assert(ORUS_JIT_OFFSET_FRAME_TEMPS == sizeof(Value*),
+               "CallFrame.temps must follow the register window pointer");
+_Static_assert(sizeof(((CallFrame*)0)->registers) == sizeof(Value*),
+               "CallFrame.registers must point into the register stack");
+_Static_assert(sizeof(((CallFrame*)0)->temps) == sizeof(Value*),
+               "CallFrame.temps must point into the register stack");
 
 #endif // ORUS_VM_JIT_LAYOUT_H
@@ -0,0 +1,96 @@
+// Orus Language Project
+
+// jit_regalloc.h - Linear-scan register allocation for native loop programs
+// The x86-64 loop emitter reads every operand from the typed register window
+// and writes every result back to it. For loops built only from typed
+// i32/i64/f64/bool constants, moves, arithmetic, comparisons and branches, this
+// pass splits registers into webs (the definitions that reach a common use),
+// gives each web one live interval over the program's instruction positions
+// and assigns machine registers with linear scan (Poletto & Sarkar). A web
+// that loses the scan keeps its typed window slot as its spill home.
+//
+// Values held in machine registers are only written back where control leaves
+// native code: a branch out of the loop, an overflow, or a safepoint that asks
+// to stop. Each such exit lists the webs holding values the interpreter has
+// not seen, and those are the only stores it performs.
+
+#ifndef ORUS_VM_JIT_REGALLOC_H
+#define ORUS_VM_JIT_REGALLOC_H
+
+#include <stdbool.h>
+#include <stddef.h>
+#include <stdint.h>
+
+#include "vm/jit_ir.h"
+
+#define ORUS_JIT_REGALLOC_MAX_INSTRUCTIONS 512u
+#define ORUS_JIT_REGALLOC_NO_WEB UINT16_MAX
+#define ORUS_JIT_REGALLOC_NO_EXIT UINT16_MAX
+#define ORUS_JIT_REGALLOC_NO_TARGET UINT32_MAX
+#define ORUS_JIT_REGALLOC_SPILLED UINT8_MAX
+
+typedef enum OrusJitRegClass {
+    ORUS_JIT_REG_CLASS_GPR = 0,  // i32, i64 and bool webs
+    ORUS_JIT_REG_CLASS_FPR,      // f64 webs
+    ORUS_JIT_REG_CLASS_COUNT
+} OrusJitRegClass;
+
+typedef struct OrusJitRegAllocWeb {
+    uint16_t reg;      // VM register; its typed window slot is the spill home
+    uint8_t kind;      // OrusJitValueKind
+    uint8_t location;  // Index into the class pool, or ORUS_JIT_REGALLOC_SPILLED
+    uint32_t start;    // First instruction position the web is live at
+    uint32_t end;      // Last one (inclusive)
+    bool live_in;      // Starts out holding the interpreter's value
+} OrusJitRegAllocWeb;
+
+// Per program instruction.
+typedef struct OrusJitRegAllocSite {
+    uint16_t uses[2];      // Webs read, in operand order
+    uint16_t def;          // Web written
+    uint16_t exit_before;  // Leaves before the instruction completes
+    uint16_t exit_taken;   // Taken branch leaves the loop
+    uint16_t exit_next;    // Fallthrough leaves the loop
+    uint32_t taken_index;  // Instruction the taken branch reaches
+    uint32_t next_index;   // Instruction the fallthrough reaches
+} OrusJitRegAllocSite;
+
+typedef struct OrusJitRegAllocExit {
+    uint32_t resume_offset;  // Bytecode offset the interpreter continues at
+    uint32_t first_flush;    // Index into OrusJitRegAlloc.flush
+    uint16_t flush_count;
+} OrusJitRegAllocExit;
+
+typedef struct OrusJitRegAlloc {
+    OrusJitRegAllocWeb* webs;
+    uint16_t web_count;
+    uint16_t spill_count;
+    OrusJitRegAllocSite* sites;
+    size_t site_count;
+    OrusJitRegAllocExit* exits;
+    uint16_t exit_count;
+    uint16_t* flush;  // Webs the interpreter must see at each exit
+    uint32_t flush_count;
+    // Registers read before they are written, loaded from the interpreter's
+    // state before the first iteration (every slot is ORUS_JIT_OSR_LIVE_IN).
+    OrusJitOsrMap entry;
+} OrusJitRegAlloc;
+
+static inline OrusJitRegClass
+orus_jit_regalloc_class(uint8_t kind) {
+    return kind == (uint8_t)ORUS_JIT_VALUE_F64 ? ORUS_JIT_REG_CLASS_FPR
+                                               : ORUS_JIT_REG_CLASS_GPR;
+}
+
+void orus_jit_regalloc_init(OrusJitRegAlloc* alloc);
+void orus_jit_regalloc_release(OrusJitRegAlloc* alloc);
+
+// pool_sizes gives the machine registers available per class. Fails, leaving
+// alloc empty, for whole-function programs, instructions outside the subset
+// above, a web that would need two kinds, or an instruction that can fail
+// after an earlier part of the same bytecode instruction wrote a register.
+bool orus_jit_regalloc_build(const OrusJitIRProgram* program,
+                             const uint8_t pool_sizes[ORUS_JIT_REG_CLASS_COUNT],
+                             OrusJitRegAlloc* alloc);
+
+#endif // ORUS_VM_JIT_REGALLOC_H
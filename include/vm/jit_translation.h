@@ -28,6 +28,14 @@ OrusJitTranslationResult orus_jit_translate_linear_block(
     const HotPathSample* sample,
     OrusJitIRProgram* program);
 
+// Lowers the whole of function->chunk (from function->start) into a method
+// program; see OrusJitIRProgram.whole_function.
+OrusJitTranslationResult orus_jit_translate_function(
+    VMState* vm_state,
+    Function* function,
+    FunctionId func,
+    OrusJitIRProgram* program);
+
 const char* orus_jit_translation_status_name(OrusJitTranslationStatus status);
 
 bool orus_jit_translation_status_is_unsupported(
@@ -1,5 +1,10 @@
 // Orus Language Project
 
+// register_cache.h - Opt-in lookup cache for indirectly addressed registers
+// Global, frame and temporary registers are plain array slots and never go
+// through the cache. Module and spilled registers are resolved through the
+// module list and the spill table; the cache remembers where those slots live
+// so repeated accesses skip the lookup.
 
 #ifndef REGISTER_CACHE_H
 #define REGISTER_CACHE_H
@@ -7,73 +12,41 @@
 #include "vm/vm.h"
 #include <stdint.h>
 #include <stdbool.h>
+#include <stdio.h>
 
-#define L1_CACHE_SIZE 64           // L1 cache for hot registers
-#define L2_CACHE_SIZE 256          // L2 cache for warm registers
-#define PREFETCH_LOOKAHEAD 8       // Number of registers to prefetch ahead
-#define CACHE_LINE_SIZE 64         // CPU cache line size
+#define REGISTER_CACHE_SLOTS 64    // Direct-mapped, indexed by register id
 
-// Phase 4: Cache entry structure
-typedef struct CacheEntry {
-    uint16_t register_id;          // Register ID being cached
-    Value value;                   // Cached value
-    uint64_t access_count;         // Number of times accessed
-    uint64_t last_access_time;     // Last access timestamp
-    bool is_dirty;                 // Whether value needs writeback
-    bool is_valid;                 // Whether entry is valid
-} CacheEntry;
+typedef struct RegisterCacheEntry {
+    uint16_t register_id;          // Register resolved by this entry (0 = empty)
+    Value* slot;                   // Backing storage in the module or spill table
+} RegisterCacheEntry;
+
+typedef struct RegisterCacheStats {
+    uint64_t hits;                 // Lookups answered from the cache
+    uint64_t misses;               // Lookups that resolved the slot the slow way
+    uint64_t invalidations;        // Flushes caused by spill table changes
+} RegisterCacheStats;
 
 typedef struct RegisterCache {
-    // L1 cache (direct-mapped, very fast)
-    CacheEntry l1_cache[L1_CACHE_SIZE];
-    uint64_t l1_hits;
-    uint64_t l1_misses;
-    
-    // L2 cache (associative, larger)
-    CacheEntry l2_cache[L2_CACHE_SIZE];
-    uint64_t l2_hits;
-    uint64_t l2_misses;
-    
-    // Prefetch buffer
-    struct {
-        uint16_t register_ids[PREFETCH_LOOKAHEAD];
-        Value values[PREFETCH_LOOKAHEAD];
-        bool valid[PREFETCH_LOOKAHEAD];
-        uint8_t head;              // Next position to fill
-        uint8_t tail;              // Next position to consume
-    } prefetch_buffer;
-    
-    // Cache statistics
-    uint64_t total_accesses;
-    uint64_t cache_hits;
-    uint64_t cache_misses;
-    uint64_t writebacks;
-    uint64_t prefetch_hits;
-    
-    // Cache management
-    uint64_t current_time;         // Virtual time counter
-    bool caching_enabled;          // Whether caching is active
+    RegisterCacheEntry entries[REGISTER_CACHE_SLOTS];
+    uint32_t spill_generation;     // Spill table generation the entries belong to
+    uint16_t spill_base;           // Frame spill window the entries were resolved in
+    RegisterCacheStats stats;
+    bool caching_enabled;
 } RegisterCache;
 
 RegisterCache* create_register_cache(void);
 void free_register_cache(RegisterCache* cache);
 void reset_register_cache(RegisterCache* cache);
 
+// Only module and spilled register ids reach these; callers route directly
+// indexed windows straight to the register file.
 Value* cached_get_register(RegisterCache* cache, RegisterFile* rf, uint16_t id);
 void cached_set_register(RegisterCache* cache, RegisterFile* rf, uint16_t id, Value value);
 
-void flush_register_cache(RegisterCache* cache, RegisterFile* rf);
 void invalidate_cache_entry(RegisterCache* cache, uint16_t register_id);
-void prefetch_registers(RegisterCache* cache, RegisterFile* rf, uint16_t* register_ids, uint8_t count);
-
-
-void update_access_pattern(RegisterCache* cache, uint16_t register_id);
-void predict_next_access(RegisterCache* cache, RegisterFile* rf, uint16_t current_id);
-
-void get_cache_stats(RegisterCache* cache, uint64_t* hit_rate, uint64_t* miss_rate, uint64_t* prefetch_effectiveness);
-void print_cache_stats(RegisterCache* cache);
 
-void tune_cache_parameters(RegisterCache* cache, uint64_t instruction_count);
-bool should_cache_register(RegisterCache* cache, uint16_t register_id);
+void get_cache_stats(const RegisterCache* cache, RegisterCacheStats* out);
+void print_cache_stats(const RegisterCache* cache, FILE* out);
 
-#endif // REGISTER_CACHE_H
\ No newline at end of file
+#endif // REGISTER_CACHE_H
@@ -20,9 +20,18 @@ uint16_t allocate_temp_register(RegisterFile* rf);
 Value* get_register(RegisterFile* rf, uint16_t id);
 void set_register(RegisterFile* rf, uint16_t id, Value value);
 
-// Frame management functions
+// Frame management functions. Windows are carved from the register stack:
+// allocate_frame reserves the full FRAME_REGISTERS + TEMP_REGISTERS window,
+// allocate_frame_window only what the layout asks for (NULL = full window).
 CallFrame* allocate_frame(RegisterFile* rf);
+CallFrame* allocate_frame_window(RegisterFile* rf, const FrameWindowLayout* layout);
 void deallocate_frame(RegisterFile* rf);
+// Call protocol: arguments move from the caller's registers directly into the
+// callee's parameter slots, typed state included, with no boxed staging copy.
+CallFrame* register_file_push_call_frame(RegisterFile* rf, uint16_t first_arg, uint16_t arg_count,
+                                         uint16_t param_base, const FrameWindowLayout* layout);
+bool register_file_rebind_tail_call(RegisterFile* rf, uint16_t first_arg, uint16_t arg_count,
+                                    uint16_t param_base, const FrameWindowLayout* layout);
 void register_file_clear_active_typed_frame(void);
 void register_file_reset_active_frame_storage(void);
 void register_file_reconcile_active_window(void);
@@ -47,5 +56,7 @@ void enable_register_caching(RegisterFile* rf);
 void disable_register_caching(RegisterFile* rf);
 void flush_register_file_cache(RegisterFile* rf);
 void print_register_cache_stats(RegisterFile* rf);
+bool register_file_cache_stats(const RegisterFile* rf, RegisterCacheStats* out);
+uint16_t register_file_spill_base(const RegisterFile* rf);
 
 #endif // REGISTER_FILE_H
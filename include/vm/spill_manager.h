@@ -24,6 +24,16 @@ void reserve_spill_slot(SpillManager* manager, uint16_t register_id);
 bool unspill_register_value(SpillManager* manager, uint16_t register_id, Value* value);
 void remove_spilled_register(SpillManager* manager, uint16_t register_id);
 
+// Slot access for callers that cache spill locations; a slot stays valid
+// until spill_manager_generation() changes (table resize or removal).
+Value* spill_register_slot(SpillManager* manager, uint16_t register_id);
+uint32_t spill_manager_generation(const SpillManager* manager);
+
+// Frame spill windows: a new frame starts at spill_manager_top() and popping
+// it releases every slot from its base upward.
+uint16_t spill_manager_top(const SpillManager* manager);
+void spill_manager_release_from(SpillManager* manager, uint16_t first_id);
+
 // Spill entry iteration (used by GC root scanning)
 void spill_manager_iterate(SpillManager* manager, SpillEntryVisitor visitor, void* user_data);
 void spill_manager_visit_entries(SpillManager* manager, SpillEntryVisitor visitor, void* user_data);
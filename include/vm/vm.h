@@ -66,6 +66,21 @@ typedef struct ObjUpvalue ObjUpvalue;
 typedef struct Obj Obj;
 
 // Value representation
+//
+// The default build uses a 16-byte tagged union. Building with
+// ORUS_VALUE_NANBOX=1 (zig build -Dvalue-repr=nanbox) switches to an 8-byte
+// NaN-boxed encoding where every non-f64 value lives in the payload of a
+// negative quiet NaN. Runtime code must go through the VALUE_TYPE/IS_*/AS_*
+// accessors below instead of touching the fields directly.
+#ifndef ORUS_VALUE_NANBOX
+#define ORUS_VALUE_NANBOX 0
+#endif
+
+#if ORUS_VALUE_NANBOX
+typedef struct {
+    uint64_t bits;
+} Value;
+#else
 typedef struct {
     ValueType type;
     union {
@@ -81,6 +96,7 @@ typedef struct {
         ObjFile* file;
     } as;
 } Value;
+#endif
 
 // Object types
 typedef enum {
@@ -94,33 +110,67 @@ typedef enum {
     OBJ_FILE,
     OBJ_FUNCTION,
     OBJ_CLOSURE,
-    OBJ_UPVALUE
+    OBJ_UPVALUE,
+#if ORUS_VALUE_NANBOX
+    OBJ_BOXED_WORD,
+#endif
 } ObjType;
 
+#if ORUS_VALUE_NANBOX
+#define OBJ_TYPE_COUNT 12
+#else
 #define OBJ_TYPE_COUNT 11
+#endif
 
 // Object header
 struct Obj {
     ObjType type;
-    struct Obj* next;
     bool isMarked;
+    bool isOld;         // Survived a collection (generational mode)
+    bool isRemembered;  // Old object queued in the remembered set
+    struct Obj* next;
 };
 
+// Strings shorter than this live inside the object itself, which keeps
+// ObjString at 64 bytes.
+#define ORUS_STRING_INLINE_CAPACITY 23
+
 // String object
 struct ObjString {
     Obj obj;
     int length;
-    char* chars;
-    StringRope* rope;
-    uint32_t hash;
+    uint32_t hash;       // Cached FNV-1a hash; 0 until computed
+    char* chars;         // Flat contents: inline_chars, a heap buffer, or NULL for ropes
+    StringRope* rope;    // Built on demand by concatenation
+    bool is_ascii;       // Every byte is below 0x80 (false when unknown)
+    char inline_chars[ORUS_STRING_INLINE_CAPACITY];
 };
 
 // Array object
+// Element layout of an array. Arrays the compiler proves to hold a single
+// primitive type store raw machine values; storing anything else converts
+// them back to boxed Values, so the layout never changes what a program sees.
+typedef enum {
+    ARRAY_ELEMENT_VALUE,
+    ARRAY_ELEMENT_I32,
+    ARRAY_ELEMENT_I64,
+    ARRAY_ELEMENT_F64,
+    ARRAY_ELEMENT_BOOL,
+} ArrayElementKind;
+
 struct ObjArray {
     Obj obj;
     int length;
     int capacity;
-    Value* elements;
+    uint8_t kind;  // ArrayElementKind
+    union {
+        Value* elements;  // ARRAY_ELEMENT_VALUE
+        int32_t* i32_elements;
+        int64_t* i64_elements;
+        double* f64_elements;
+        bool* bool_elements;
+        void* data;
+    };
 };
 
 struct ObjByteBuffer {
@@ -227,6 +277,14 @@ struct ObjUpvalue {
     struct ObjUpvalue* next; // Linked list for GC
 };
 
+#if ORUS_VALUE_NANBOX
+// Heap cell for 64-bit integers that do not fit the inline NaN-box payload.
+typedef struct ObjBoxedWord {
+    Obj obj;
+    uint64_t word;
+} ObjBoxedWord;
+#endif
+
 // Closure object (for capturing upvalues)
 struct ObjClosure {
     Obj obj;
@@ -235,6 +293,207 @@ struct ObjClosure {
     int upvalueCount;       // Number of upvalues
 };
 
+// Value macros
+#if ORUS_VALUE_NANBOX
+
+// NaN-box layout: f64 values are stored as-is (NaNs are canonicalised to a
+// positive quiet NaN). Everything else sets the sign and exponent bits,
+// stores a 4-bit tag in bits 48..51 and a 48-bit payload below it. Tag 0 is
+// reserved so that -inf keeps decoding as an f64.
+#define ORUS_NANBOX_BOXED_MASK    UINT64_C(0xFFF0000000000000)
+#define ORUS_NANBOX_TAG_SHIFT     48
+#define ORUS_NANBOX_TAG_MASK      UINT64_C(0x000F000000000000)
+#define ORUS_NANBOX_PAYLOAD_MASK  UINT64_C(0x0000FFFFFFFFFFFF)
+#define ORUS_NANBOX_CANONICAL_NAN UINT64_C(0x7FF8000000000000)
+// i64/u64 payloads with bit 47 set hold an ObjBoxedWord* instead of the
+// integer; smaller magnitudes are stored inline as 47-bit two's complement.
+#define ORUS_NANBOX_WIDE_FLAG     UINT64_C(0x0000800000000000)
+#define ORUS_NANBOX_INLINE_MASK   UINT64_C(0x00007FFFFFFFFFFF)
+#define ORUS_NANBOX_INLINE_MIN    (-(INT64_C(1) << 46))
+#define ORUS_NANBOX_INLINE_MAX    ((INT64_C(1) << 46) - 1)
+
+_Static_assert(sizeof(void*) == 8, "NaN-boxed values require 64-bit pointers");
+
+// Slow path for 64-bit integers outside the inline range (vm_memory.c).
+Value orus_nanbox_box_wide(ValueType type, uint64_t word);
+
+static inline uint64_t orus_nanbox_tag(ValueType type) {
+    // VAL_F64 and VAL_NUMBER are never tagged, which lets the remaining 15
+    // value types fit the 4-bit tag field.
+    return (uint64_t)(type <= VAL_U64 ? type + 1 : type - 1);
+}
+
+static inline Value orus_nanbox_make(ValueType type, uint64_t payload) {
+    Value value;
+    value.bits = ORUS_NANBOX_BOXED_MASK |
+                 (orus_nanbox_tag(type) << ORUS_NANBOX_TAG_SHIFT) |
+                 (payload & ORUS_NANBOX_PAYLOAD_MASK);
+    return value;
+}
+
+static inline uint64_t orus_nanbox_payload(Value value) {
+    return value.bits & ORUS_NANBOX_PAYLOAD_MASK;
+}
+
+static inline ValueType orus_nanbox_type(Value value) {
+    if ((value.bits & ORUS_NANBOX_BOXED_MASK) != ORUS_NANBOX_BOXED_MASK) {
+        return VAL_F64;
+    }
+    uint32_t tag = (uint32_t)((value.bits & ORUS_NANBOX_TAG_MASK) >> ORUS_NANBOX_TAG_SHIFT);
+    if (tag == 0) {
+        return VAL_F64;
+    }
+    return (ValueType)(tag <= VAL_U64 + 1 ? tag - 1 : tag + 1);
+}
+
+static inline bool orus_nanbox_is_wide(Value value) {
+    ValueType type = orus_nanbox_type(value);
+    return (type == VAL_I64 || type == VAL_U64) &&
+           (value.bits & ORUS_NANBOX_WIDE_FLAG) != 0;
+}
+
+static inline Obj* orus_nanbox_obj(Value value) {
+    uint64_t payload = orus_nanbox_payload(value);
+    if (orus_nanbox_is_wide(value)) {
+        payload &= ORUS_NANBOX_INLINE_MASK;
+    }
+    return (Obj*)(uintptr_t)payload;
+}
+
+static inline Value orus_nanbox_from_f64(double number) {
+    Value value;
+    if (number != number) {
+        value.bits = ORUS_NANBOX_CANONICAL_NAN;
+    } else {
+        memcpy(&value.bits, &number, sizeof(double));
+    }
+    return value;
+}
+
+static inline double orus_nanbox_to_f64(Value value) {
+    double number;
+    memcpy(&number, &value.bits, sizeof(double));
+    return number;
+}
+
+static inline Value orus_nanbox_from_i64(int64_t number) {
+    if (number >= ORUS_NANBOX_INLINE_MIN && number <= ORUS_NANBOX_INLINE_MAX) {
+        return orus_nanbox_make(VAL_I64, (uint64_t)number & ORUS_NANBOX_INLINE_MASK);
+    }
+    return orus_nanbox_box_wide(VAL_I64, (uint64_t)number);
+}
+
+static inline Value orus_nanbox_from_u64(uint64_t number) {
+    if (number <= (uint64_t)ORUS_NANBOX_INLINE_MAX) {
+        return orus_nanbox_make(VAL_U64, number);
+    }
+    return orus_nanbox_box_wide(VAL_U64, number);
+}
+
+static inline uint64_t orus_nanbox_wide_word(Value value) {
+    uint64_t payload = orus_nanbox_payload(value);
+    if (payload & ORUS_NANBOX_WIDE_FLAG) {
+        return ((ObjBoxedWord*)(uintptr_t)(payload & ORUS_NANBOX_INLINE_MASK))->word;
+    }
+    // Sign-extend the 47-bit inline payload.
+    return (uint64_t)(((int64_t)(payload << 17)) >> 17);
+}
+
+#define VALUE_TYPE(value) (orus_nanbox_type(value))
+
+#define BOOL_VAL(value) (orus_nanbox_make(VAL_BOOL, (value) ? 1u : 0u))
+#define I32_VAL(value) (orus_nanbox_make(VAL_I32, (uint32_t)(int32_t)(value)))
+#define I64_VAL(value) (orus_nanbox_from_i64((int64_t)(value)))
+#define U32_VAL(value) (orus_nanbox_make(VAL_U32, (uint32_t)(value)))
+#define U64_VAL(value) (orus_nanbox_from_u64((uint64_t)(value)))
+#define F64_VAL(value) (orus_nanbox_from_f64((double)(value)))
+#define STRING_VAL(value) (orus_nanbox_make(VAL_STRING, (uint64_t)(uintptr_t)(value)))
+#define BYTES_VAL(bufferObj) (orus_nanbox_make(VAL_BYTES, (uint64_t)(uintptr_t)(bufferObj)))
+#define ARRAY_VAL(arrayObj) (orus_nanbox_make(VAL_ARRAY, (uint64_t)(uintptr_t)(arrayObj)))
+#define RANGE_ITERATOR_VAL(iteratorObj) (orus_nanbox_make(VAL_RANGE_ITERATOR, (uint64_t)(uintptr_t)(iteratorObj)))
+#define ENUM_VAL(enumObj) (orus_nanbox_make(VAL_ENUM, (uint64_t)(uintptr_t)(enumObj)))
+#define ARRAY_ITERATOR_VAL(iteratorObj) (orus_nanbox_make(VAL_ARRAY_ITERATOR, (uint64_t)(uintptr_t)(iteratorObj)))
+#define FILE_VAL(fileObj) (orus_nanbox_make(VAL_FILE, (uint64_t)(uintptr_t)(fileObj)))
+#define ERROR_VAL(object) (orus_nanbox_make(VAL_ERROR, (uint64_t)(uintptr_t)(object)))
+#define FUNCTION_VAL(value) (orus_nanbox_make(VAL_FUNCTION, (uint64_t)(uintptr_t)(value)))
+#define CLOSURE_VAL(value) (orus_nanbox_make(VAL_CLOSURE, (uint64_t)(uintptr_t)(value)))
+
+#define AS_BOOL(value) (orus_nanbox_payload(value) != 0)
+#define AS_I32(value) ((int32_t)(uint32_t)orus_nanbox_payload(value))
+#define AS_I64(value) ((int64_t)orus_nanbox_wide_word(value))
+#define AS_U32(value) ((uint32_t)orus_nanbox_payload(value))
+#define AS_U64(value) (orus_nanbox_wide_word(value))
+#define AS_F64(value) (orus_nanbox_to_f64(value))
+#define AS_OBJ(value) (orus_nanbox_obj(value))
+#define AS_STRING(value) ((ObjString*)orus_nanbox_obj(value))
+#define AS_BYTES(value) ((ObjByteBuffer*)orus_nanbox_obj(value))
+#define AS_ARRAY(value) ((ObjArray*)orus_nanbox_obj(value))
+#define AS_ENUM(value) ((ObjEnumInstance*)orus_nanbox_obj(value))
+#define AS_ERROR(value) ((ObjError*)orus_nanbox_obj(value))
+#define AS_RANGE_ITERATOR(value) ((ObjRangeIterator*)orus_nanbox_obj(value))
+#define AS_ARRAY_ITERATOR(value) ((ObjArrayIterator*)orus_nanbox_obj(value))
+#define AS_FILE(value) ((ObjFile*)orus_nanbox_obj(value))
+#define AS_FUNCTION(value) ((ObjFunction*)orus_nanbox_obj(value))
+#define AS_CLOSURE(value) ((ObjClosure*)orus_nanbox_obj(value))
+
+#else
+
+#define VALUE_TYPE(value) ((value).type)
+
+#define BOOL_VAL(value) ((Value){VAL_BOOL, {.boolean = value}})
+#define I32_VAL(value) ((Value){VAL_I32, {.i32 = value}})
+#define I64_VAL(value) ((Value){VAL_I64, {.i64 = value}})
+#define U32_VAL(value) ((Value){VAL_U32, {.u32 = value}})
+#define U64_VAL(value) ((Value){VAL_U64, {.u64 = value}})
+#define F64_VAL(value) ((Value){VAL_F64, {.f64 = value}})
+#define STRING_VAL(value) ((Value){VAL_STRING, {.obj = (Obj*)value}})
+#define BYTES_VAL(bufferObj) ((Value){VAL_BYTES, {.bytes = (bufferObj)}})
+#define ARRAY_VAL(arrayObj) ((Value){VAL_ARRAY, {.obj = (Obj*)arrayObj}})
+#define RANGE_ITERATOR_VAL(iteratorObj) ((Value){VAL_RANGE_ITERATOR, {.obj = (Obj*)iteratorObj}})
+#define ENUM_VAL(enumObj) ((Value){VAL_ENUM, {.obj = (Obj*)enumObj}})
+#define ARRAY_ITERATOR_VAL(iteratorObj) ((Value){VAL_ARRAY_ITERATOR, {.obj = (Obj*)iteratorObj}})
+#define FILE_VAL(fileObj) ((Value){VAL_FILE, {.obj = (Obj*)fileObj}})
+#define ERROR_VAL(object) ((Value){VAL_ERROR, {.obj = (Obj*)object}})
+#define FUNCTION_VAL(value) ((Value){VAL_FUNCTION, {.obj = (Obj*)value}})
+#define CLOSURE_VAL(value) ((Value){VAL_CLOSURE, {.obj = (Obj*)value}})
+
+#define AS_BOOL(value) ((value).as.boolean)
+#define AS_I32(value) ((value).as.i32)
+#define AS_I64(value) ((value).as.i64)
+#define AS_U32(value) ((value).as.u32)
+#define AS_U64(value) ((value).as.u64)
+#define AS_F64(value) ((value).as.f64)
+#define AS_OBJ(value) ((value).as.obj)
+#define AS_STRING(value) ((ObjString*)(value).as.obj)
+#define AS_BYTES(value) ((value).as.bytes)
+#define AS_ARRAY(value) ((ObjArray*)(value).as.obj)
+#define AS_ENUM(value) ((ObjEnumInstance*)(value).as.obj)
+#define AS_ERROR(value) ((ObjError*)(value).as.obj)
+#define AS_RANGE_ITERATOR(value) ((ObjRangeIterator*)(value).as.obj)
+#define AS_ARRAY_ITERATOR(value) ((ObjArrayIterator*)(value).as.obj)
+#define AS_FILE(value) ((ObjFile*)(value).as.obj)
+#define AS_FUNCTION(value) ((ObjFunction*)(value).as.obj)
+#define AS_CLOSURE(value) ((ObjClosure*)(value).as.obj)
+
+#endif
+
+#define IS_BOOL(value) (VALUE_TYPE(value) == VAL_BOOL)
+#define IS_I32(value) (VALUE_TYPE(value) == VAL_I32)
+#define IS_I64(value) (VALUE_TYPE(value) == VAL_I64)
+#define IS_U32(value) (VALUE_TYPE(value) == VAL_U32)
+#define IS_U64(value) (VALUE_TYPE(value) == VAL_U64)
+#define IS_F64(value) (VALUE_TYPE(value) == VAL_F64)
+#define IS_STRING(value) (VALUE_TYPE(value) == VAL_STRING)
+#define IS_BYTES(value) (VALUE_TYPE(value) == VAL_BYTES)
+#define IS_ARRAY(value) (VALUE_TYPE(value) == VAL_ARRAY)
+#define IS_ENUM(value) (VALUE_TYPE(value) == VAL_ENUM)
+#define IS_ERROR(value) (VALUE_TYPE(value) == VAL_ERROR)
+#define IS_RANGE_ITERATOR(value) (VALUE_TYPE(value) == VAL_RANGE_ITERATOR)
+#define IS_ARRAY_ITERATOR(value) (VALUE_TYPE(value) == VAL_ARRAY_ITERATOR)
+#define IS_FILE(value) (VALUE_TYPE(value) == VAL_FILE)
+#define IS_FUNCTION(value) (VALUE_TYPE(value) == VAL_FUNCTION)
+#define IS_CLOSURE(value) (VALUE_TYPE(value) == VAL_CLOSURE)
+
 // Source location
 typedef struct {
     const char* file;
@@ -336,7 +595,8 @@ typedef struct {
     uint32_t suppressed_triggers;
     uint8_t warmup_level;
     uint8_t cooldown_exponent;
-    uint16_t reserved;
+    bool disk_cache_probed;  // vm.cachePath already checked for this loop
+    uint8_t reserved;
 } HotPathSample;
 
 typedef struct {
@@ -350,6 +610,49 @@ typedef struct {
     bool metadata_requested;
 } VMFusionPatch;
 
+#define VM_QUICKENING_SITES 256
+#define VM_QUICKENING_WARMUP 8
+#define VM_QUICKENING_MAX_DEOPTS 4
+
+typedef struct {
+    const uint8_t* ip;
+    uint8_t opcode;   // Quickened form the current hits vote for
+    uint8_t hits;
+    uint8_t deopts;
+} VMQuickeningSite;
+
+#define VM_CALL_CACHE_SITES 256
+#define VM_CALL_CACHE_WAYS 4
+#define VM_ENUM_CACHE_SITES 64
+
+typedef enum {
+    VM_CALL_TARGET_FUNCTION,  // Index into vm.functions
+    VM_CALL_TARGET_OBJECT,    // ObjFunction value
+    VM_CALL_TARGET_CLOSURE,   // ObjClosure value; the closure is stored in R0
+} VMCallTargetKind;
+
+typedef struct {
+    uintptr_t callee;        // Function index or Obj* the entry was filled for
+    ObjFunction* object;     // Body for object and closure callees
+    uint16_t function_index; // UINT16_MAX for object and closure callees
+    uint8_t arity;
+    uint8_t kind;            // VMCallTargetKind
+} VMCallCacheEntry;
+
+typedef struct {
+    const uint8_t* ip;
+    uint8_t count;  // Entries in use; VM_CALL_CACHE_WAYS + 1 once megamorphic
+    VMCallCacheEntry entries[VM_CALL_CACHE_WAYS];
+} VMCallSiteCache;
+
+typedef struct {
+    const uint8_t* ip;
+    ObjString* type_constant;
+    ObjString* variant_constant;
+    ObjString* type_name;     // Interned names the instances are built with
+    ObjString* variant_name;
+} VMEnumSiteCache;
+
 typedef struct {
     JITEntry entry;
     uint16_t function_index;
@@ -454,9 +757,17 @@ typedef enum {
 
 typedef void (*FunctionDeoptHandler)(Function* function);
 
+// Register window a function needs at runtime, as reported by the compiler's
+// register allocator. Zero sizes fall back to the full frame window.
+typedef struct {
+    uint16_t frame_registers;             // Parameters plus locals
+    uint16_t temp_registers;              // Highest temporary used + 1
+} FrameWindowLayout;
+
 struct Function {
     int start;
     int arity;
+    FrameWindowLayout window;
     Chunk* chunk;
     Chunk* specialized_chunk;
     Chunk* deopt_stub_chunk;
@@ -480,8 +791,8 @@ typedef struct TypedRegisterWindow TypedRegisterWindow;
 
 // Phase 1: Enhanced CallFrame structure for hierarchical register windows
 typedef struct CallFrame {
-    Value registers[FRAME_REGISTERS];     // Function-local registers
-    Value temps[TEMP_REGISTERS];          // Temporary registers scoped to this frame
+    Value* registers;                     // Function-local registers on the register stack
+    Value* temps;                         // Temporaries, directly after the frame registers
 
     // Typed register window metadata for constant-time swaps
     TypedRegisterWindow* typed_window;        // Active typed register cache for this frame
@@ -498,6 +809,9 @@ typedef struct CallFrame {
     uint16_t spill_base;                  // Spill window base (if spilling active)
     uint16_t spill_count;                 // Number of spill slots in use
     uint16_t register_count;              // Registers in use within the frame window
+    uint16_t register_capacity;           // Frame registers reserved on the register stack
+    uint16_t temp_capacity;               // Temporaries reserved on the register stack
+    uint32_t stack_base;                  // Offset of the window in the register stack
     uint8_t module_id;                    // Module this frame belongs to
     uint8_t flags;                        // Frame properties
 
@@ -511,14 +825,11 @@ typedef struct CallFrame {
 
 // Shared function for parameter register allocation (used by both compiler and VM)
 static inline uint16_t calculateParameterBaseRegister(int argCount) {
-    // Place parameters at the top of the frame window so locals can grow
-    // downward without clobbering the call arguments. Clamp to the frame base
-    // when the function has fewer parameters than the window size.
-    int base = FRAME_REG_START + FRAME_REGISTERS - argCount;
-    if (base < FRAME_REG_START) {
-        base = FRAME_REG_START;
-    }
-    return (uint16_t)base;
+    // Parameters occupy the bottom of the frame window and the compiler
+    // allocates locals above them, so a frame only needs to reserve
+    // arity + locals registers on the register stack.
+    (void)argCount;
+    return (uint16_t)FRAME_REG_START;
 }
 
 // Phase 1: Register File Architecture
@@ -533,6 +844,11 @@ typedef struct RegisterFile {
     CallFrame* frame_stack;               // Call stack of frames
     CallFrame* free_frames;               // Pool of reusable frames backed by vm.frames
 
+    // Contiguous register stack holding every frame's registers and temps
+    Value* stack;
+    uint32_t stack_top;                   // First slot past the topmost window
+    uint32_t stack_capacity;
+
     // Phase 2: Spill area for unlimited scaling
     struct SpillManager* spilled_registers;  // When registers exhausted
     struct RegisterMetadata* metadata;      // Tracking register state
@@ -744,6 +1060,7 @@ typedef enum {
     OP_TO_STRING_R,
     OP_STRING_INDEX_R,
     OP_STRING_GET_R,
+    OP_STRING_SLICE_R, // dst, string_reg, start_reg, end_reg
 
     // Array operations
     OP_MAKE_ARRAY_R,  // dst, start_reg, count
@@ -758,6 +1075,11 @@ typedef enum {
     OP_ARRAY_SORTED_R,  // dst, array_reg
     OP_ARRAY_REPEAT_R,  // dst, array_reg, count_reg
     OP_ARRAY_SLICE_R, // dst, array_reg, start_reg, end_reg
+    OP_MAKE_TYPED_ARRAY_R,    // dst, start_reg, count, element_kind
+    OP_ARRAY_GET_I32_TYPED,   // dst, array_reg, index_reg
+    OP_ARRAY_SET_I32_TYPED,   // array_reg, index_reg, value_reg
+    OP_ARRAY_GET_F64_TYPED,   // dst, array_reg, index_reg
+    OP_ARRAY_SET_F64_TYPED,   // array_reg, index_reg, value_reg
 
     // Control flow
     OP_TRY_BEGIN,
@@ -926,7 +1248,26 @@ typedef enum {
     OP_MOVE_EXT,        // dst_reg16, src_reg16 - Move between extended registers
     OP_STORE_EXT,       // reg16, addr16 - Store extended register to memory
     OP_LOAD_EXT,        // reg16, addr16 - Load from memory to extended register
-    
+
+    // Quickened forms, written over OP_EQ_R/OP_NE_R/OP_ADD_I32_R at runtime
+    // once a site has only seen i32 operands. They share the generic
+    // encoding and restore the generic opcode on a mismatch (vm_tiering.h).
+    OP_EQ_I32_QUICK,
+    OP_NE_I32_QUICK,
+    OP_ADD_I32_QUICK,
+
+    // Superinstruction slots: each executes a profiled opcode pair. The
+    // bytecode keeps the second opcode byte in place, so only the first
+    // opcode is rewritten (see include/vm/vm_superinstructions.h).
+    OP_SUPERINSTRUCTION_0,
+    OP_SUPERINSTRUCTION_1,
+    OP_SUPERINSTRUCTION_2,
+    OP_SUPERINSTRUCTION_3,
+    OP_SUPERINSTRUCTION_4,
+    OP_SUPERINSTRUCTION_5,
+    OP_SUPERINSTRUCTION_6,
+    OP_SUPERINSTRUCTION_7,
+
     OP_HALT
 } OpCode;
 
@@ -1274,10 +1615,7 @@ static inline void typed_window_clear_dirty(TypedRegisterWindow* window, uint16_
 }
 
 static inline Value typed_window_default_boxed_value(void) {
-    Value value;
-    value.type = VAL_BOOL;
-    value.as.boolean = false;
-    return value;
+    return BOOL_VAL(false);
 }
 
 static inline Value* typed_window_ensure_heap_storage(TypedRegisterWindow* window) {
@@ -1354,6 +1692,7 @@ typedef struct VM {
     // Bytecode execution
     Chunk* chunk;
     uint8_t* ip;
+    const uint8_t* instruction_start;  // Opcode byte last dispatched; see vm_sync_source_location
 
     // Globals
     Value globals[UINT8_COUNT];
@@ -1387,6 +1726,7 @@ typedef struct VM {
     Obj* objects;
     size_t bytesAllocated;
     size_t gcCount;
+    size_t gcMinorCount;
     bool gcPaused;
 
     // Upvalue management
@@ -1450,11 +1790,43 @@ typedef struct VM {
     uint64_t jit_enter_cycle_samples;
     uint64_t jit_enter_cycle_warmup_total;
     uint64_t jit_enter_cycle_warmup_samples;
+    bool jit_background_compile;      // Run backend compilation off the interpreter thread
+    uint64_t jit_compile_epoch;       // Bumped on invalidation; stale background results are dropped
+    uint32_t jit_compiles_in_flight;
+    uint64_t jit_background_installs;
+    uint64_t jit_background_discards;
+    // Whole-function tier, indexed like functions[]
+    JITMethodEntryPoint jit_function_entries[UINT8_COUNT];
+    uint32_t jit_function_hits[UINT8_COUNT];
+    bool jit_function_blocklist[UINT8_COUNT];
+    uint32_t jit_method_depth;        // Native method frames currently on the C stack
+    // On-stack replacement into loop entries
+    uint64_t jit_osr_entries;         // Entries whose typed frame transfer succeeded
+    uint64_t jit_osr_entry_rejects;   // Entries declined because live-ins could not be typed
+    uint64_t jit_osr_exits;           // Loop exits resumed at their bytecode target
+    // Translated programs persisted under cachePath (see jit_disk_cache.h)
+    uint64_t jit_disk_cache_hits;
+    uint64_t jit_disk_cache_misses;
+    uint64_t jit_disk_cache_stores;
 
     // Tiered dispatch fusion state
     VMFusionPatch fusion_patches[VM_MAX_FUSION_PATCHES];
     size_t fusion_patch_count;
     uint64_t fusion_generation;
+
+    // In-place quickening state
+    VMQuickeningSite quickening_sites[VM_QUICKENING_SITES];
+    uint64_t quickened_sites;
+    uint64_t dequickened_sites;
+
+    // Call-site and enum-constructor inline caches
+    VMCallSiteCache call_sites[VM_CALL_CACHE_SITES];
+    VMEnumSiteCache enum_sites[VM_ENUM_CACHE_SITES];
+    uint64_t call_cache_hits;
+    uint64_t call_cache_misses;
+    uint64_t call_cache_megamorphic;
+    uint64_t enum_cache_hits;
+    uint64_t enum_cache_misses;
 } VM;
 
 // Transitional alias while the runtime gradually migrates to the new VMState
@@ -1476,59 +1848,6 @@ typedef enum {
     INTERPRET_RUNTIME_ERROR
 } InterpretResult;
 
-// Value macros
-#define BOOL_VAL(value) ((Value){VAL_BOOL, {.boolean = value}})
-#define I32_VAL(value) ((Value){VAL_I32, {.i32 = value}})
-#define I64_VAL(value) ((Value){VAL_I64, {.i64 = value}})
-#define U32_VAL(value) ((Value){VAL_U32, {.u32 = value}})
-#define U64_VAL(value) ((Value){VAL_U64, {.u64 = value}})
-#define F64_VAL(value) ((Value){VAL_F64, {.f64 = value}})
-#define STRING_VAL(value) ((Value){VAL_STRING, {.obj = (Obj*)value}})
-#define BYTES_VAL(bufferObj) ((Value){VAL_BYTES, {.bytes = (bufferObj)}})
-#define ARRAY_VAL(arrayObj) ((Value){VAL_ARRAY, {.obj = (Obj*)arrayObj}})
-#define RANGE_ITERATOR_VAL(iteratorObj) ((Value){VAL_RANGE_ITERATOR, {.obj = (Obj*)iteratorObj}})
-#define ENUM_VAL(enumObj) ((Value){VAL_ENUM, {.obj = (Obj*)enumObj}})
-#define ARRAY_ITERATOR_VAL(iteratorObj) ((Value){VAL_ARRAY_ITERATOR, {.obj = (Obj*)iteratorObj}})
-#define FILE_VAL(fileObj) ((Value){VAL_FILE, {.obj = (Obj*)fileObj}})
-#define ERROR_VAL(object) ((Value){VAL_ERROR, {.obj = (Obj*)object}})
-#define FUNCTION_VAL(value) ((Value){VAL_FUNCTION, {.obj = (Obj*)value}})
-#define CLOSURE_VAL(value) ((Value){VAL_CLOSURE, {.obj = (Obj*)value}})
-
-#define AS_BOOL(value) ((value).as.boolean)
-#define AS_I32(value) ((value).as.i32)
-#define AS_I64(value) ((value).as.i64)
-#define AS_U32(value) ((value).as.u32)
-#define AS_U64(value) ((value).as.u64)
-#define AS_F64(value) ((value).as.f64)
-#define AS_OBJ(value) ((value).as.obj)
-#define AS_STRING(value) ((ObjString*)(value).as.obj)
-#define AS_BYTES(value) ((value).as.bytes)
-#define AS_ARRAY(value) ((ObjArray*)(value).as.obj)
-#define AS_ENUM(value) ((ObjEnumInstance*)(value).as.obj)
-#define AS_ERROR(value) ((ObjError*)(value).as.obj)
-#define AS_RANGE_ITERATOR(value) ((ObjRangeIterator*)(value).as.obj)
-#define AS_ARRAY_ITERATOR(value) ((ObjArrayIterator*)(value).as.obj)
-#define AS_FILE(value) ((ObjFile*)(value).as.obj)
-#define AS_FUNCTION(value) ((ObjFunction*)(value).as.obj)
-#define AS_CLOSURE(value) ((ObjClosure*)(value).as.obj)
-
-#define IS_BOOL(value) ((value).type == VAL_BOOL)
-#define IS_I32(value) ((value).type == VAL_I32)
-#define IS_I64(value) ((value).type == VAL_I64)
-#define IS_U32(value) ((value).type == VAL_U32)
-#define IS_U64(value) ((value).type == VAL_U64)
-#define IS_F64(value) ((value).type == VAL_F64)
-#define IS_STRING(value) ((value).type == VAL_STRING)
-#define IS_BYTES(value) ((value).type == VAL_BYTES)
-#define IS_ARRAY(value) ((value).type == VAL_ARRAY)
-#define IS_ENUM(value) ((value).type == VAL_ENUM)
-#define IS_ERROR(value) ((value).type == VAL_ERROR)
-#define IS_RANGE_ITERATOR(value) ((value).type == VAL_RANGE_ITERATOR)
-#define IS_ARRAY_ITERATOR(value) ((value).type == VAL_ARRAY_ITERATOR)
-#define IS_FILE(value) ((value).type == VAL_FILE)
-#define IS_FUNCTION(value) ((value).type == VAL_FUNCTION)
-#define IS_CLOSURE(value) ((value).type == VAL_CLOSURE)
-
 // Function declarations
 /** Initialize the global VM state and subsystems. */
 void initVM(void);
@@ -1539,7 +1858,7 @@ void freeVM(void);
 /** Perform startup warmup routines for optimal JIT selection. */
 void warmupVM(void);
 #if USE_COMPUTED_GOTO
-extern void* vm_dispatch_table[OP_HALT + 1];
+extern void* vm_dispatch_table[VM_DISPATCH_TABLE_SIZE];
 void initDispatchTable(void);
 #endif
 /** Execute Orus source code provided as a null-terminated string. */
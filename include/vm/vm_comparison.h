@@ -25,7 +25,7 @@ static inline bool vm_typed_slot_live(uint16_t id) {
 }
 
 static inline RegisterType vm_register_type_from_value(Value value) {
-    switch (value.type) {
+    switch (VALUE_TYPE(value)) {
         case VAL_I32:
             return REG_TYPE_I32;
         case VAL_I64:
@@ -5,7 +5,7 @@
 #define VM_CONSTANTS_H
 
 // Call stack limits
-#define VM_MAX_CALL_FRAMES 256
+#define VM_MAX_CALL_FRAMES 1024
 #define VM_MAX_REGISTERS 256
 #define VM_MAX_UPVALUES 256
 
@@ -25,12 +25,16 @@
 #define MODULE_REG_START 240      // Module registers
 #define SPILL_REG_START 256       // Registers beyond the primary window spill
 
+// Register stack backing call frame windows; grows by doubling
+#define VM_REGISTER_STACK_INITIAL_SLOTS 4096
+
 // String operation thresholds
 #define VM_SMALL_STRING_BUFFER 1024
 #define VM_LARGE_STRING_THRESHOLD 4096
 
 // Performance tuning
-#define VM_DISPATCH_TABLE_SIZE (OP_HALT + 1)
+// One slot per possible opcode byte, so dispatch never range-checks.
+#define VM_DISPATCH_TABLE_SIZE (UINT8_MAX + 1)
 #define VM_TYPED_REGISTER_COUNT 256
 
 // Error handling
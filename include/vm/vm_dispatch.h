@@ -34,7 +34,7 @@ void vm_report_unhandled_error(void);
 
 // Dispatch table for computed goto (when enabled)
 #if USE_COMPUTED_GOTO
-extern void* vm_dispatch_table[OP_HALT + 1];
+extern void* vm_dispatch_table[VM_DISPATCH_TABLE_SIZE];
 #endif
 
 static inline void vm_update_source_location(size_t offset) {
@@ -53,6 +53,28 @@ static inline void vm_update_source_location(size_t offset) {
     }
 }
 
+// The dispatch loop only records where each instruction starts. Line, column
+// and file are looked up from the chunk's per-byte tables when an error or a
+// builtin asks for them, which keeps three table reads and stores off every
+// dispatch. An anchor outside the current chunk (the handler already switched
+// chunks) falls back to the byte before vm.ip; if neither is usable the last
+// synced location stays.
+static inline void vm_sync_source_location(void) {
+    if (!vm.chunk || !vm.chunk->code) {
+        return;
+    }
+    const uint8_t* code = vm.chunk->code;
+    const uint8_t* end = code + vm.chunk->count;
+    const uint8_t* anchor = vm.instruction_start;
+    if (!anchor || anchor < code || anchor >= end) {
+        anchor = vm.ip ? vm.ip - 1 : NULL;
+        if (!anchor || anchor < code || anchor >= end) {
+            return;
+        }
+    }
+    vm_update_source_location((size_t)(anchor - code));
+}
+
 static inline bool vm_handle_pending_error(void) {
     if (!IS_ERROR(vm.lastError)) {
         return true;
@@ -92,6 +114,7 @@ static inline int32_t vm_read_i32_unaligned(uint8_t** ip_ptr) {
 
 // Error handling function - implemented in vm.c
 void runtimeError(ErrorType type, SrcLocation location, const char* format, ...);
+SrcLocation vm_current_location(void);
 
 #ifdef VM_ENABLE_PROFILING
 #  define PROFILE_INC(op) (vm.profile.instruction_counts[(op)]++)
@@ -127,7 +150,7 @@ void runtimeError(ErrorType type, SrcLocation location, const char* format, ...)
                     vm_tiering_instruction_tick(vm.instruction_count); \
                     instruction = READ_BYTE(); \
                     const uint8_t* inst_addr__ = vm.ip - 1; \
-                    vm_update_source_location((size_t)((vm.ip - vm.chunk->code) - 1)); \
+                    vm.instruction_start = inst_addr__; \
                     PROFILE_INC(instruction); \
                     if (g_profiling.isActive && instruction_start_time > 0) { \
                         uint64_t cycles__ = getTimestamp() - instruction_start_time; \
@@ -149,30 +172,30 @@ void runtimeError(ErrorType type, SrcLocation location, const char* format, ...)
             } while (0)
         #define DISPATCH_TYPED() DISPATCH()
     #else
+        // The fast path records the instruction start for the source map and
+        // jumps. Instruction counting, profiling and fused-window lookups only
+        // run while profiling is active or fusion patches are installed.
         #define DISPATCH() do { \
             for (;;) { \
-                vm.instruction_count++; \
-                vm_tiering_instruction_tick(vm.instruction_count); \
+                const uint8_t* inst_addr = vm.ip; \
                 uint8_t inst = *vm.ip++; \
-                const uint8_t* inst_addr = vm.ip - 1; \
-                vm_update_source_location((size_t)((vm.ip - vm.chunk->code) - 1)); \
+                vm.instruction_start = inst_addr; \
                 PROFILE_INC(inst); \
-                if (g_profiling.isActive && instruction_start_time > 0) { \
-                    uint64_t cycles = getTimestamp() - instruction_start_time; \
-                    profileInstruction(inst, cycles); \
-                } \
-                if (g_profiling.isActive) { \
-                    instruction_start_time = getTimestamp(); \
-                    g_profiling.totalInstructions++; \
-                    profileOpcodeWindow(inst_addr, inst); \
-                } \
-                if (vm_tiering_try_execute_fused(inst_addr, inst)) { \
-                    continue; \
-                } \
-                if (inst > OP_HALT || vm_dispatch_table[inst] == NULL) { \
-                    printf("[DISPATCH_ERROR] Invalid opcode %d (0x%02X) or NULL dispatch entry!\n", inst, inst); \
-                    fflush(stdout); \
-                    goto LABEL_UNKNOWN; \
+                if (unlikely(g_profiling.isActive || vm.fusion_patch_count != 0)) { \
+                    vm.instruction_count++; \
+                    vm_tiering_instruction_tick(vm.instruction_count); \
+                    if (g_profiling.isActive) { \
+                        if (instruction_start_time > 0) { \
+                            uint64_t cycles = getTimestamp() - instruction_start_time; \
+                            profileInstruction(inst, cycles); \
+                        } \
+                        instruction_start_time = getTimestamp(); \
+                        g_profiling.totalInstructions++; \
+                        profileOpcodeWindow(inst_addr, inst); \
+                    } \
+                    if (vm_tiering_try_execute_fused(inst_addr, inst)) { \
+                        continue; \
+                    } \
                 } \
                 goto *vm_dispatch_table[inst]; \
             } \
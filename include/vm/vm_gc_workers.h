@@ -0,0 +1,26 @@
+// Orus Language Project
+
+// vm_gc_workers.h - Helper thread pool for parallel garbage collection phases
+#ifndef ORUS_VM_GC_WORKERS_H
+#define ORUS_VM_GC_WORKERS_H
+
+#include <stdbool.h>
+
+#define ORUS_GC_MAX_WORKERS 16
+
+// A task runs once on every participant. The calling thread is worker 0.
+typedef void (*GcWorkerTask)(int worker, void* context);
+
+// Pool lifecycle. `workers` counts every participant including the caller;
+// anything below 2 (or a platform without threads) keeps the pool serial.
+bool gc_workers_start(int workers);
+void gc_workers_stop(void);
+int gc_workers_count(void);
+
+// Number of participants to use when no explicit count is configured.
+int gc_workers_default_count(void);
+
+// Run `task` on all participants and return once every one has finished.
+void gc_workers_run(GcWorkerTask task, void* context);
+
+#endif // ORUS_VM_GC_WORKERS_H
@@ -0,0 +1,50 @@
+// Orus Language Project
+
+// vm_heap.h - Segregated size-class slab heap for GC-managed objects
+#ifndef ORUS_VM_HEAP_H
+#define ORUS_VM_HEAP_H
+
+#include <stdbool.h>
+#include <stddef.h>
+#include <stdint.h>
+#include <stdio.h>
+
+// Pages are aligned to their size so a slot's page header is found by masking.
+#define ORUS_HEAP_PAGE_SIZE (64 * 1024)
+#define ORUS_HEAP_MAX_SLOT_SIZE 256
+#define ORUS_HEAP_SIZE_CLASS_COUNT 9
+#define ORUS_HEAP_EMPTY_PAGE_RESERVE 8
+#define ORUS_HEAP_RELEASE_BATCH 16
+
+typedef struct {
+    size_t slot_size;
+    size_t pages;          // Pages currently owned by this size class
+    size_t slots_in_use;   // Live slots across all pages
+    size_t slot_capacity;  // Total slots across all pages
+    uint64_t allocations;  // Lifetime slot allocations
+    uint64_t frees;        // Lifetime slot frees
+} HeapSizeClassStats;
+
+// Heap lifecycle
+void heap_init(void);
+void heap_destroy(void);
+
+// Slot management. Requests above ORUS_HEAP_MAX_SLOT_SIZE fall back to malloc,
+// so heap_free must be given the same size that was passed to heap_alloc.
+void* heap_alloc(size_t size);
+void heap_free(void* pointer, size_t size);
+
+// Page-level sweep: hand fully empty pages to the shared reserve and return
+// up to ORUS_HEAP_RELEASE_BATCH beyond it to the system, so a collection that
+// frees a large heap does not stall in libc. Called once per collection.
+void heap_release_empty_pages(void);
+// Same, but returns at most `limit` pages to the system and reports how many
+// it returned. Pages it leaves behind stay empty until a later call.
+size_t heap_release_empty_pages_limited(size_t limit);
+
+// Statistics
+bool heap_size_class_stats(int size_class, HeapSizeClassStats* out);
+size_t heap_reserved_pages(void);
+void heap_print_profile(FILE* out);
+
+#endif // ORUS_VM_HEAP_H
@@ -0,0 +1,72 @@
+// Orus Language Project
+
+// vm_inline_cache.h - Per-site caches for call targets and enum constructors
+// A call site remembers up to VM_CALL_CACHE_WAYS callees it has resolved
+// (function index, function object or closure, already checked for arity),
+// so repeated calls skip the type decode and validation of OP_CALL_R and
+// OP_TAIL_CALL_R. A site starts monomorphic, grows polymorphic as new callees
+// show up and stops caching once it has seen more than VM_CALL_CACHE_WAYS.
+// OP_ENUM_NEW_R sites keep the interned type and variant names so building an
+// enum value no longer interns both strings every time.
+//
+// Entries hold object pointers that the collector does not trace, so every
+// collection drops them before it sweeps.
+
+#ifndef ORUS_VM_INLINE_CACHE_H
+#define ORUS_VM_INLINE_CACHE_H
+
+#include "vm/vm.h"
+
+static inline VMCallSiteCache* vm_call_site_cache(const uint8_t* instruction) {
+    uintptr_t hash = (uintptr_t)instruction;
+    hash ^= hash >> 9;
+    return &vm.call_sites[hash & (VM_CALL_CACHE_SITES - 1)];
+}
+
+const VMCallCacheEntry* vm_call_cache_miss(const uint8_t* instruction, Value callee,
+                                           uint8_t arg_count);
+
+// Returns the cached target for callee at this site, resolving and caching
+// it on a miss, or NULL when callee cannot be called with arg_count
+// arguments.
+static inline const VMCallCacheEntry* vm_call_cache_resolve(const uint8_t* instruction,
+                                                            Value callee, uint8_t arg_count) {
+    uintptr_t key;
+    uint8_t kind;
+    if (IS_I32(callee)) {
+        key = (uintptr_t)(uint32_t)AS_I32(callee);
+        kind = VM_CALL_TARGET_FUNCTION;
+    } else if (IS_CLOSURE(callee)) {
+        key = (uintptr_t)AS_CLOSURE(callee);
+        kind = VM_CALL_TARGET_CLOSURE;
+    } else if (IS_FUNCTION(callee)) {
+        key = (uintptr_t)AS_FUNCTION(callee);
+        kind = VM_CALL_TARGET_OBJECT;
+    } else {
+        return NULL;
+    }
+
+    VMCallSiteCache* site = vm_call_site_cache(instruction);
+    if (site->ip == instruction) {
+        for (uint8_t i = 0; i < site->count && i < VM_CALL_CACHE_WAYS; i++) {
+            const VMCallCacheEntry* entry = &site->entries[i];
+            if (entry->callee == key && entry->kind == kind && entry->arity == arg_count) {
+                vm.call_cache_hits++;
+                return entry;
+            }
+        }
+    }
+
+    return vm_call_cache_miss(instruction, callee, arg_count);
+}
+
+// Interned names for an OP_ENUM_NEW_R site; false if interning failed.
+bool vm_enum_cache_names(const uint8_t* instruction, ObjString* type_constant,
+                         ObjString* variant_constant, ObjString** type_name,
+                         ObjString** variant_name);
+
+// Drops every cached entry; called before the collector sweeps.
+void vm_inline_cache_invalidate(void);
+void vm_inline_cache_reset(void);
+
+#endif // ORUS_VM_INLINE_CACHE_H
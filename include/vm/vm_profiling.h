@@ -27,6 +27,8 @@ typedef enum {
 #define HOT_PATH_THRESHOLD 1000        // Executions to consider hot
 #define HOT_LOOP_THRESHOLD 10000       // Loop iterations to consider hot
 #define HOT_THRESHOLD HOT_LOOP_THRESHOLD
+#define HOT_FUNCTION_THRESHOLD HOT_PATH_THRESHOLD  // Calls before a whole function tiers up
+#define ORUS_JIT_MAX_METHOD_DEPTH 256u             // Nested native calls before handing back
 
 #define ORUS_JIT_WARMUP_REQUIRED 2u
 #define ORUS_JIT_WARMUP_DECAY_TICKS (HOT_THRESHOLD * 3ULL)
@@ -43,6 +45,12 @@ typedef enum {
 #define LOOP_PROFILE_SLOTS 1024
 #define FUNCTION_PROFILE_SLOTS 512
 
+// Opcode pair sampling feeds scripts/generate_superinstructions.py. A pair is
+// two instructions executed back to back where the second starts at most
+// VM_OPCODE_PAIR_MAX_DISTANCE bytes after the first, i.e. it fell through.
+#define VM_OPCODE_PAIR_MAX_DISTANCE 8
+#define VM_OPCODE_PAIR_EXPORT_LIMIT 64
+
 // Opcode family taxonomy for aggregated profiling exports
 typedef enum {
     ORUS_OPCODE_FAMILY_LITERAL = 0,
@@ -173,6 +181,7 @@ typedef struct {
     // Opcode window sampling for tiered fusion
     OpcodeWindowSampler window_sampler;
     OpcodeWindowProfile window_profiles[256];
+    uint32_t opcodePairCounts[256 * 256];  // [first << 8 | second], saturating
 } VMProfilingContext;
 
 // Global profiling instance
@@ -321,6 +330,7 @@ static inline OrusOpcodeFamily vm_opcode_family(uint8_t opcode) {
         case OP_TO_STRING_R:
         case OP_STRING_INDEX_R:
         case OP_STRING_GET_R:
+        case OP_STRING_SLICE_R:
             return ORUS_OPCODE_FAMILY_STRING;
 
         case OP_MAKE_ARRAY_R:
@@ -335,6 +345,11 @@ static inline OrusOpcodeFamily vm_opcode_family(uint8_t opcode) {
         case OP_ARRAY_SORTED_R:
         case OP_ARRAY_REPEAT_R:
         case OP_ARRAY_SLICE_R:
+        case OP_MAKE_TYPED_ARRAY_R:
+        case OP_ARRAY_GET_I32_TYPED:
+        case OP_ARRAY_SET_I32_TYPED:
+        case OP_ARRAY_GET_F64_TYPED:
+        case OP_ARRAY_SET_F64_TYPED:
             return ORUS_OPCODE_FAMILY_COLLECTION;
 
         case OP_GET_ITER_R:
@@ -596,6 +611,26 @@ extern size_t gcThreshold;
 
 void queue_tier_up(VMState* vm, const HotPathSample* sample);
 
+// Loop safepoint for background tier-ups: installs every compile the
+// background thread has finished since the last call.
+void vm_jit_install_background_compiles(VMState* vm);
+
+// On-disk IR cache (vm.cachePath). Run the first time a loop or function is
+// counted; one with a cached program is moved to the edge of tier-up.
+void vm_jit_disk_cache_probe_loop(VMState* vm, HotPathSample* sample);
+void vm_jit_disk_cache_probe_function(VMState* vm, FunctionId func);
+
+// Whole-function tier-up: translates, compiles and installs a native entry
+// for functions[func], or blocklists the function when it cannot be lowered.
+void queue_method_tier_up(VMState* vm, FunctionId func);
+
+// Runs functions[func] natively when it has a method entry; otherwise counts
+// the call towards its tier-up. The callee's frame must already be pushed
+// with vm->ip on its first instruction. Returns true once the callee has
+// returned into its caller, false when the interpreter carries on from
+// vm->chunk/vm->ip.
+bool vm_jit_call_method(VMState* vm, FunctionId func);
+
 const char* orus_jit_tier_skip_reason_name(OrusJitTierSkipReason reason);
 
 uint64_t orus_jit_tier_skip_total(const OrusJitTierSkipStats* stats);
@@ -609,6 +644,32 @@ orus_jit_warmup_compute_cooldown(uint8_t backoff_shift) {
     return cooldown << clamped;
 }
 
+static inline void vm_profile_function_hit(VMState* vm, FunctionId func) {
+    if (func >= UINT8_COUNT || vm->jit_function_blocklist[func]) {
+        return;
+    }
+    if (vm->cachePath && vm->jit_function_hits[func] == 0) {
+        vm_jit_disk_cache_probe_function(vm, func);
+    }
+    if (++vm->jit_function_hits[func] >= HOT_FUNCTION_THRESHOLD) {
+        queue_method_tier_up(vm, func);
+    }
+}
+
+// Call-entry counterpart of vm_profile_tick, run by OP_CALL_R once it has
+// moved into the callee. Either the callee runs natively (and may already
+// have returned by the time this does) or the interpreter dispatches it.
+static inline void vm_profile_function_entry(VMState* vm, FunctionId func) {
+    if (vm->jit_compiles_in_flight != 0) {
+        vm_jit_install_background_compiles(vm);
+    }
+    if (func < UINT8_COUNT && vm->jit_function_entries[func]) {
+        vm_jit_call_method(vm, func);
+        return;
+    }
+    vm_profile_function_hit(vm, func);
+}
+
 static inline bool vm_profile_tick(VMState* vm, FunctionId func, LoopId loop) {
     if (!vm) {
         return false;
@@ -616,6 +677,10 @@ static inline bool vm_profile_tick(VMState* vm, FunctionId func, LoopId loop) {
 
     vm->ticks++;
 
+    if (vm->jit_compiles_in_flight != 0) {
+        vm_jit_install_background_compiles(vm);
+    }
+
     HotPathSample* sample = &vm->profile[loop];
     sample->func = func;
     sample->loop = loop;
@@ -628,6 +693,10 @@ static inline bool vm_profile_tick(VMState* vm, FunctionId func, LoopId loop) {
         sample->suppressed_triggers = 0;
     }
 
+    if (vm->cachePath && !sample->disk_cache_probed) {
+        vm_jit_disk_cache_probe_loop(vm, sample);
+    }
+
     if (++sample->hit_count < HOT_THRESHOLD) {
         return false;
     }
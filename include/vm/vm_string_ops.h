@@ -9,7 +9,6 @@
 
 struct ObjString;
 typedef struct ObjString ObjString;
-typedef struct HashMap HashMap;
 
 // StringBuilder facilitates efficient string concatenation.
 typedef struct {
@@ -18,6 +17,16 @@ typedef struct {
     size_t length;
 } StringBuilder;
 
+// Concatenations with at most this many bytes on the right append into a
+// shared growable buffer instead of adding a concat node.
+#define ORUS_ROPE_APPEND_LIMIT 4096
+// Trees deeper than this are always rebalanced; shallower ones only when
+// they fail the Fibonacci balance test.
+#define ORUS_ROPE_MAX_DEPTH 64
+#define ORUS_ROPE_BALANCE_MIN_DEPTH 16
+// Rebalancing merges runs of adjacent leaves up to this size into one leaf.
+#define ORUS_ROPE_LEAF_CHUNK 512
+
 // Rope node kinds for zero-copy strings
 typedef enum {
     ROPE_LEAF,
@@ -34,9 +43,11 @@ typedef struct StringRope {
         struct {
             char* data;
             size_t len;
+            size_t capacity;  // Bytes allocated through reallocate; 0 if untracked
             bool is_ascii;
             bool is_interned;
             bool owns_data;
+            bool appendable;  // Growable buffer, only ever reached through substring views
         } leaf;
         struct {
             struct StringRope* left;
@@ -52,10 +63,14 @@ typedef struct StringRope {
     bool hash_valid;
 } StringRope;
 
+// Open-addressing intern table keyed by string contents. The table holds
+// weak references: the collector clears entries for strings it is about to
+// free, leaving tombstones that later inserts reuse.
 typedef struct {
-    HashMap* interned;
-    size_t threshold;
-    size_t total_interned;
+    ObjString** entries;     // NULL marks an empty slot
+    size_t capacity;         // Power of two, or 0 before the first insert
+    size_t total_interned;   // Live entries
+    size_t tombstones;       // Cleared entries still occupying a slot
 } StringInternTable;
 
 extern StringInternTable globalStringTable;
@@ -70,6 +85,12 @@ void freeStringBuilder(StringBuilder* sb);
 StringRope* rope_from_cstr(const char* str, size_t len);
 StringRope* rope_from_buffer(char* buffer, size_t len, bool owns_data);
 StringRope* rope_concat(StringRope* left, StringRope* right);
+StringRope* rope_substring(StringRope* base, size_t start, size_t len);
+StringRope* rope_rebalance(StringRope* rope);
+// Collapses `rope` in place into a leaf that owns a NUL-terminated copy of
+// its contents and returns that buffer. Every string sharing the node sees
+// the flat copy, so each rope is flattened at most once.
+const char* rope_flatten(StringRope* rope);
 void rope_retain(StringRope* rope);
 void rope_release(StringRope* rope);
 char* rope_to_cstr(StringRope* rope);
@@ -83,11 +104,20 @@ ObjString* rope_index_to_string(StringRope* rope, size_t index);
 const char* string_get_chars(ObjString* string);
 ObjString* allocateStringFromRope(StringRope* rope);
 ObjString* rope_concat_strings(ObjString* left, ObjString* right);
+// Returns `length` bytes from `start`, or NULL when the range is out of
+// bounds. Long slices are views that share the parent's bytes until
+// string_get_chars flattens them.
+ObjString* string_slice(ObjString* string, size_t start, size_t length);
 
 
 // Interning
 void init_string_table(StringInternTable* table);
+uint32_t string_hash_bytes(const char* chars, size_t length);
+bool string_bytes_are_ascii(const char* data, size_t len);
+uint32_t string_hash(ObjString* string);
 ObjString* intern_string(const char* chars, int length);
+// Weak-table sweep: clear every entry whose string `is_live` rejects.
+void intern_sweep_table(bool (*is_live)(ObjString* string));
 
 // Cleanup routines
 void free_rope(StringRope* rope);
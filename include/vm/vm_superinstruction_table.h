@@ -0,0 +1,23 @@
+// Orus Language Project
+
+// Generated by scripts/generate_superinstructions.py - do not edit.
+// Corpus: edit_distance, ffi_ping_pong_benchmark, fib, lcs, mersenne_twister, n_queens,
+//     optimized_loop_benchmark, pcg32, phase4_sort, phase4_sort_variants, sudoku
+
+#ifndef ORUS_VM_SUPERINSTRUCTION_TABLE_H
+#define ORUS_VM_SUPERINSTRUCTION_TABLE_H
+
+// X(slot, first, second, first_length, typed)
+#define VM_SUPERINSTRUCTION_LIST(X) \
+    X(0, OP_MOVE, OP_MOVE, 3, 0) /* 5.99% */ \
+    X(1, OP_LOAD_I32_CONST, OP_ADD_I32_TYPED, 4, 1) /* 4.26% */ \
+    X(2, OP_ADD_I32_TYPED, OP_MOVE, 4, 1) /* 3.98% */ \
+    X(3, OP_ADD_I64_TYPED, OP_MOVE, 4, 1) /* 2.61% */ \
+    X(4, OP_I32_TO_I64_R, OP_ADD_I64_TYPED, 4, 1) /* 2.49% */ \
+    X(5, OP_MOVE, OP_LOAD_CONST, 3, 0) /* 2.46% */ \
+    X(6, OP_MOVE, OP_LOAD_I32_CONST, 3, 1) /* 2.44% */ \
+    X(7, OP_LOAD_I32_CONST, OP_SUB_I32_TYPED, 4, 1) /* 1.81% */
+
+#define VM_SUPERINSTRUCTION_COUNT 8
+
+#endif // ORUS_VM_SUPERINSTRUCTION_TABLE_H
@@ -0,0 +1,79 @@
+// Orus Language Project
+
+// vm_superinstructions.h - Profile-selected opcode pair fusion
+// A superinstruction overwrites the opcode byte of the first instruction in a
+// fall-through pair with OP_SUPERINSTRUCTION_<slot>. The first instruction's
+// operands, the second opcode byte and the second instruction's operands stay
+// where they were, so the bytecode keeps its length and every jump offset
+// stays valid; a jump that lands on the second instruction still executes it
+// on its own. The handler runs both bodies and dispatches once.
+//
+// The pair list lives in vm_superinstruction_table.h, which is generated by
+// scripts/generate_superinstructions.py from --profile-opcode-pairs exports.
+
+#ifndef ORUS_VM_SUPERINSTRUCTIONS_H
+#define ORUS_VM_SUPERINSTRUCTIONS_H
+
+#include "vm/vm.h"
+#include "vm/vm_superinstruction_table.h"
+
+#define VM_SUPERINSTRUCTION_SLOTS (OP_HALT - OP_SUPERINSTRUCTION_0)
+
+_Static_assert(VM_SUPERINSTRUCTION_COUNT <= VM_SUPERINSTRUCTION_SLOTS,
+               "generated superinstruction table exceeds the reserved opcode slots");
+
+typedef struct VMSuperinstruction {
+    uint8_t opcode;        // OP_SUPERINSTRUCTION_<slot>
+    uint8_t first;         // Opcode whose byte is replaced
+    uint8_t second;        // Opcode found first_length bytes later
+    uint8_t first_length;  // Encoded size of the first instruction
+    bool typed;            // Only valid when ORUS_VM_ENABLE_TYPED_OPS is set
+    const char* name;
+} VMSuperinstruction;
+
+#define VM_SUPERINSTRUCTION_INFO(slot, first_op, second_op, length, is_typed) \
+    (VMSuperinstruction){OP_SUPERINSTRUCTION_##slot, first_op, second_op, length, is_typed, \
+                         #first_op "+" #second_op}
+
+static inline bool vm_superinstruction_info(uint8_t opcode, VMSuperinstruction* out) {
+#define VM_SUPERINSTRUCTION_MATCH_OPCODE(slot, first_op, second_op, length, is_typed) \
+    if (opcode == OP_SUPERINSTRUCTION_##slot) {                                     \
+        if (out) *out = VM_SUPERINSTRUCTION_INFO(slot, first_op, second_op, length, is_typed); \
+        return true;                                                                \
+    }
+    VM_SUPERINSTRUCTION_LIST(VM_SUPERINSTRUCTION_MATCH_OPCODE)
+#undef VM_SUPERINSTRUCTION_MATCH_OPCODE
+    return false;
+}
+
+// Superinstructions decode exactly like their first opcode; tools that walk
+// bytecode instruction by instruction can treat them as such.
+static inline uint8_t vm_superinstruction_base_opcode(uint8_t opcode) {
+    VMSuperinstruction info;
+    return vm_superinstruction_info(opcode, &info) ? info.first : opcode;
+}
+
+// Encoded size of first if it starts any generated pair, 0 otherwise.
+static inline int vm_superinstruction_first_length(uint8_t first) {
+#define VM_SUPERINSTRUCTION_MATCH_FIRST(slot, first_op, second_op, length, is_typed) \
+    if (first == (first_op)) {                                                     \
+        return length;                                                             \
+    }
+    VM_SUPERINSTRUCTION_LIST(VM_SUPERINSTRUCTION_MATCH_FIRST)
+#undef VM_SUPERINSTRUCTION_MATCH_FIRST
+    return 0;
+}
+
+static inline bool vm_superinstruction_lookup(uint8_t first, uint8_t second,
+                                              VMSuperinstruction* out) {
+#define VM_SUPERINSTRUCTION_MATCH_PAIR(slot, first_op, second_op, length, is_typed) \
+    if (first == (first_op) && second == (second_op)) {                           \
+        if (out) *out = VM_SUPERINSTRUCTION_INFO(slot, first_op, second_op, length, is_typed); \
+        return true;                                                              \
+    }
+    VM_SUPERINSTRUCTION_LIST(VM_SUPERINSTRUCTION_MATCH_PAIR)
+#undef VM_SUPERINSTRUCTION_MATCH_PAIR
+    return false;
+}
+
+#endif // ORUS_VM_SUPERINSTRUCTIONS_H
@@ -9,6 +9,10 @@
 typedef struct {
     const char* type_name;
     const char* variant_name;
+    // Already-interned names; when type_string is set both are used as-is
+    // instead of interning type_name and variant_name.
+    ObjString* type_string;
+    ObjString* variant_string;
     int variant_index;
     const Value* payload;
     int payload_count;
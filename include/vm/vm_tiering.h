@@ -24,4 +24,28 @@ bool vm_tiering_try_execute_fused(const uint8_t* start_ip, uint8_t opcode);
 void vm_tiering_instruction_tick(uint64_t instruction_index);
 void vm_tiering_invalidate_all_fusions(void);
 
+// In-place quickening. A generic handler reports which quickened form its
+// operands would allow (or rejects the site); after VM_QUICKENING_WARMUP
+// executions in a row that agree, the opcode byte is overwritten with that
+// form. A quickened handler that meets other operands restores the generic
+// opcode and re-executes it, and a site that keeps de-quickening stays
+// generic.
+void vm_quicken_observe(uint8_t* instruction, uint8_t quick_opcode);
+void vm_quicken_reject(const uint8_t* instruction);
+void vm_dequicken(uint8_t* instruction, uint8_t generic_opcode);
+void vm_quickening_reset(void);
+
+static inline uint8_t vm_quickened_base_opcode(uint8_t opcode) {
+    switch (opcode) {
+        case OP_EQ_I32_QUICK:
+            return OP_EQ_R;
+        case OP_NE_I32_QUICK:
+            return OP_NE_R;
+        case OP_ADD_I32_QUICK:
+            return OP_ADD_I32_R;
+        default:
+            return opcode;
+    }
+}
+
 #endif // ORUS_VM_TIERING_H
@@ -4,6 +4,7 @@
 #define ORUS_VM_TYPED_OPS_H
 
 #include "../../src/vm/core/vm_internal.h"
+#include "runtime/memory.h"
 #include "vm/vm_comparison.h"
 #include <math.h>
 
@@ -178,4 +179,62 @@
     VM_TYPED_MOD_OP(f64_regs, 0.0, vm_store_f64_typed_hot, \
                     fmod(vm.typed_regs.f64_regs[left], vm.typed_regs.f64_regs[right]))
 
+// Packed array element access. A packed array of the matching kind moves raw
+// elements straight between its storage and the typed register window; any
+// other array goes through the boxed helpers, so these behave exactly like
+// OP_ARRAY_GET_R/OP_ARRAY_SET_R.
+#define VM_TYPED_ARRAY_RESOLVE(array_out, index_out, array_reg, index_reg) \
+    do { \
+        Value array_value__ = vm_get_register_safe(array_reg); \
+        if (!IS_ARRAY(array_value__)) { \
+            VM_ERROR_RETURN(ERROR_TYPE, CURRENT_LOCATION(), "Value is not an array"); \
+        } \
+        int32_t raw_index__; \
+        if (vm_try_read_i32_typed((index_reg), &raw_index__) && raw_index__ >= 0) { \
+            (index_out) = raw_index__; \
+        } else if (!value_to_index(vm_get_register_safe(index_reg), &(index_out))) { \
+            VM_ERROR_RETURN(ERROR_TYPE, CURRENT_LOCATION(), "Array index must be a non-negative integer"); \
+        } \
+        (array_out) = AS_ARRAY(array_value__); \
+        if ((index_out) >= (array_out)->length) { \
+            VM_ERROR_RETURN(ERROR_INDEX, CURRENT_LOCATION(), "Array index out of bounds"); \
+        } \
+    } while (0)
+
+#define VM_TYPED_ARRAY_GET(KIND, field, store_fn) \
+    do { \
+        uint8_t dst = READ_BYTE(); \
+        uint8_t array_reg = READ_BYTE(); \
+        uint8_t index_reg = READ_BYTE(); \
+        ObjArray* array; \
+        int index; \
+        VM_TYPED_ARRAY_RESOLVE(array, index, array_reg, index_reg); \
+        if (array->kind == (KIND)) { \
+            store_fn(dst, array->field##_elements[index]); \
+        } else { \
+            vm_set_register_safe(dst, arrayElementAt(array, index)); \
+        } \
+    } while (0)
+
+#define VM_TYPED_ARRAY_SET(KIND, field, ctype) \
+    do { \
+        uint8_t array_reg = READ_BYTE(); \
+        uint8_t index_reg = READ_BYTE(); \
+        uint8_t value_reg = READ_BYTE(); \
+        ObjArray* array; \
+        int index; \
+        VM_TYPED_ARRAY_RESOLVE(array, index, array_reg, index_reg); \
+        ctype value; \
+        if (array->kind == (KIND) && vm_try_read_##field##_typed(value_reg, &value)) { \
+            array->field##_elements[index] = value; \
+        } else { \
+            arraySet(array, index, vm_get_register_safe(value_reg)); \
+        } \
+    } while (0)
+
+#define VM_TYPED_ARRAY_GET_I32() VM_TYPED_ARRAY_GET(ARRAY_ELEMENT_I32, i32, vm_store_i32_typed_hot)
+#define VM_TYPED_ARRAY_SET_I32() VM_TYPED_ARRAY_SET(ARRAY_ELEMENT_I32, i32, int32_t)
+#define VM_TYPED_ARRAY_GET_F64() VM_TYPED_ARRAY_GET(ARRAY_ELEMENT_F64, f64, vm_store_f64_typed_hot)
+#define VM_TYPED_ARRAY_SET_F64() VM_TYPED_ARRAY_SET(ARRAY_ELEMENT_F64, f64, double)
+
 #endif // ORUS_VM_TYPED_OPS_H
@@ -0,0 +1,352 @@
+#!/usr/bin/env python3
+"""Generate superinstruction handlers from recorded opcode-pair profiles.
+
+Run a representative corpus with ``orus --profile-opcode-pairs
+--profile-output=<file>.json`` using the binary you are tuning, then feed the
+exports to this script. Pairs are ranked by their share of each program's
+dispatches (averaged over the corpus, so one long benchmark cannot crowd out
+the rest) and the hottest pairs that the catalog below knows how to fuse are
+written to:
+
+* ``include/vm/vm_superinstruction_table.h`` - the pair list consumed by the
+  compiler's peephole pass, the disassembler and the JIT translator;
+* ``src/vm/dispatch/vm_superinstructions_goto.inc`` and
+  ``src/vm/dispatch/vm_superinstructions_switch.inc`` - handler bodies for the
+  two dispatchers.
+
+Opcode ids in the exports must come from the same ``OpCode`` enum as the tree
+being generated. Profiles taken from a binary that already runs
+superinstructions are folded back into the pairs they stand for.
+"""
+
+from __future__ import annotations
+
+import argparse
+import json
+import re
+import sys
+import textwrap
+from dataclasses import dataclass
+from pathlib import Path
+from typing import Dict, Iterable, List, Optional, Sequence, Tuple
+
+REPO_ROOT = Path(__file__).resolve().parents[1]
+VM_HEADER = REPO_ROOT / "include" / "vm" / "vm.h"
+TABLE_HEADER = REPO_ROOT / "include" / "vm" / "vm_superinstruction_table.h"
+GOTO_HANDLERS = REPO_ROOT / "src" / "vm" / "dispatch" / "vm_superinstructions_goto.inc"
+SWITCH_HANDLERS = REPO_ROOT / "src" / "vm" / "dispatch" / "vm_superinstructions_switch.inc"
+
+SLOT_PREFIX = "OP_SUPERINSTRUCTION_"
+TABLE_ENTRY_RE = re.compile(r"X\(\s*(\d+)\s*,\s*(OP_\w+)\s*,\s*(OP_\w+)\s*,")
+
+
+@dataclass(frozen=True)
+class Fusable:
+    """An opcode whose handler body can be pasted into a superinstruction.
+
+    ``body`` must read its operands through ``vm.ip`` and be valid in both
+    dispatchers. Only opcodes that always fall through may come first in a
+    pair; anything in the catalog may come second.
+    """
+
+    length: int
+    body: Tuple[str, ...]
+    falls_through: bool = True
+    typed: bool = False
+
+
+def _typed(body: str, length: int = 4) -> Fusable:
+    return Fusable(length=length, body=(body,), typed=True)
+
+
+CATALOG: Dict[str, Fusable] = {
+    "OP_LOAD_CONST": Fusable(4, ("handle_load_const();",)),
+    "OP_MOVE": Fusable(3, ("handle_move_reg();",)),
+    "OP_LOAD_I32_CONST": _typed("handle_load_i32_const();"),
+    "OP_LOAD_I64_CONST": _typed("handle_load_i64_const();"),
+    "OP_MOVE_I32": _typed("handle_move_i32();", 3),
+    "OP_MOVE_I64": _typed("handle_move_i64();", 3),
+    "OP_ADD_I32_TYPED": _typed("VM_TYPED_ADD_I32();"),
+    "OP_SUB_I32_TYPED": _typed("VM_TYPED_SUB_I32();"),
+    "OP_MUL_I32_TYPED": _typed("VM_TYPED_MUL_I32();"),
+    "OP_ADD_I64_TYPED": _typed("VM_TYPED_ADD_I64();"),
+    "OP_SUB_I64_TYPED": _typed("VM_TYPED_SUB_I64();"),
+    "OP_MUL_I64_TYPED": _typed("VM_TYPED_MUL_I64();"),
+    "OP_ADD_F64_TYPED": _typed("VM_TYPED_ADD_F64();"),
+    "OP_SUB_F64_TYPED": _typed("VM_TYPED_SUB_F64();"),
+    "OP_MUL_F64_TYPED": _typed("VM_TYPED_MUL_F64();"),
+    "OP_LT_I32_TYPED": _typed("VM_TYPED_CMP_OP(i32_regs, <);"),
+    "OP_LE_I32_TYPED": _typed("VM_TYPED_CMP_OP(i32_regs, <=);"),
+    "OP_GT_I32_TYPED": _typed("VM_TYPED_CMP_OP(i32_regs, >);"),
+    "OP_GE_I32_TYPED": _typed("VM_TYPED_CMP_OP(i32_regs, >=);"),
+    "OP_LT_I64_TYPED": _typed("VM_TYPED_CMP_OP(i64_regs, <);"),
+    "OP_LE_I64_TYPED": _typed("VM_TYPED_CMP_OP(i64_regs, <=);"),
+    "OP_GT_I64_TYPED": _typed("VM_TYPED_CMP_OP(i64_regs, >);"),
+    "OP_GE_I64_TYPED": _typed("VM_TYPED_CMP_OP(i64_regs, >=);"),
+    "OP_I32_TO_I64_R": Fusable(
+        4,
+        (
+            "uint8_t dst = READ_BYTE();",
+            "uint8_t src = READ_BYTE();",
+            "(void)READ_BYTE(); // Skip third operand (unused)",
+            "",
+            "int32_t src_value;",
+            "if (!vm_try_read_i32_typed(src, &src_value)) {",
+            "    Value src_val = vm_get_register_safe(src);",
+            "    if (!IS_I32(src_val)) {",
+            "        VM_ERROR_RETURN(ERROR_TYPE, CURRENT_LOCATION(), \"Source must be i32\");",
+            "    }",
+            "    src_value = AS_I32(src_val);",
+            "    vm_cache_i32_typed(src, src_value);",
+            "}",
+            "",
+            "vm_store_i64_typed_hot(dst, (int64_t)src_value);",
+        ),
+    ),
+    "OP_JUMP_IF_NOT_R": Fusable(
+        4,
+        (
+            "if (!handle_jump_if_not_long()) {",
+            "    RETURN(INTERPRET_RUNTIME_ERROR);",
+            "}",
+        ),
+        falls_through=False,
+    ),
+}
+
+
+@dataclass
+class Selection:
+    slot: int
+    first: str
+    second: str
+    share: float
+
+    @property
+    def first_info(self) -> Fusable:
+        return CATALOG[self.first]
+
+    @property
+    def second_info(self) -> Fusable:
+        return CATALOG[self.second]
+
+    @property
+    def typed(self) -> bool:
+        return self.first_info.typed or self.second_info.typed
+
+
+def parse_opcodes(header: Path) -> List[str]:
+    source = header.read_text()
+    end = source.index("} OpCode;")
+    start = source.rindex("typedef enum {", 0, end) + len("typedef enum {")
+    body = source[start:end]
+    body = re.sub(r"/\*.*?\*/", "", body, flags=re.S)
+    body = re.sub(r"//[^\n]*", "", body)
+    body = re.sub(r"#[^\n]*", "", body)
+    names = [token.strip() for token in body.split(",") if token.strip()]
+    if any("=" in name for name in names):
+        raise SystemExit("OpCode enum uses explicit values; update parse_opcodes()")
+    return names
+
+
+def current_table(header: Path) -> Dict[str, Tuple[str, str]]:
+    """Map slot opcodes in the checked-in table to the pairs they fuse."""
+    if not header.exists():
+        return {}
+    table = {}
+    for slot, first, second in TABLE_ENTRY_RE.findall(header.read_text()):
+        table[f"{SLOT_PREFIX}{slot}"] = (first, second)
+    return table
+
+
+def load_profile(data: dict, opcodes: Sequence[str],
+                 fused: Dict[str, Tuple[str, str]]) -> Dict[Tuple[str, str], float]:
+    total = data["totalInstructions"]
+    pairs = data["opcodePairs"]
+
+    def name(opcode: int) -> str:
+        return opcodes[opcode] if opcode < len(opcodes) else f"<{opcode}>"
+
+    counts: Dict[Tuple[str, str], float] = {}
+
+    def add(first: str, second: str, count: float) -> None:
+        counts[(first, second)] = counts.get((first, second), 0.0) + count
+
+    for entry in pairs:
+        first, second, count = name(entry["first"]), name(entry["second"]), float(entry["count"])
+        if first in fused:
+            # Every execution of a superinstruction is followed by exactly one
+            # dispatch, so its outgoing pairs sum to the fused pair's count.
+            # (The "instructions" array is sampled and cannot be used here.)
+            add(*fused[first], count)
+            first = fused[first][1]
+        if second in fused:
+            second = fused[second][0]
+        add(first, second, count)
+
+    return {pair: count / total for pair, count in counts.items()}
+
+
+def rank_pairs(profiles: Iterable[Dict[Tuple[str, str], float]]) -> List[Tuple[Tuple[str, str], float]]:
+    profiles = list(profiles)
+    merged: Dict[Tuple[str, str], float] = {}
+    for shares in profiles:
+        for pair, share in shares.items():
+            merged[pair] = merged.get(pair, 0.0) + share / len(profiles)
+    return sorted(merged.items(), key=lambda item: (-item[1], item[0]))
+
+
+def select_pairs(ranked: Sequence[Tuple[Tuple[str, str], float]], slots: int,
+                 min_share: float, verbose: bool) -> List[Selection]:
+    selected: List[Selection] = []
+    for (first, second), share in ranked:
+        if len(selected) == slots or share < min_share:
+            break
+        reason = None
+        if first not in CATALOG:
+            reason = f"{first} has no fusable body"
+        elif not CATALOG[first].falls_through:
+            reason = f"{first} may branch"
+        elif second not in CATALOG:
+            reason = f"{second} has no fusable body"
+        if reason:
+            if verbose:
+                print(f"  skip {first} -> {second} ({share:.2%}): {reason}", file=sys.stderr)
+            continue
+        selected.append(Selection(len(selected), first, second, share))
+        if verbose:
+            print(f"  slot {selected[-1].slot}: {first} -> {second} ({share:.2%})", file=sys.stderr)
+    return selected
+
+
+HEADER_BANNER = "// Generated by scripts/generate_superinstructions.py - do not edit."
+
+
+def wrap_comment(text: str, width: int = 96) -> List[str]:
+    return ["// " + line for line in textwrap.wrap(text, width, subsequent_indent="    ")]
+
+
+def render_table(selected: Sequence[Selection], corpus: Sequence[str]) -> str:
+    lines = [
+        "// Orus Language Project",
+        "",
+        HEADER_BANNER,
+        *wrap_comment("Corpus: " + (", ".join(corpus) if corpus else "(none)")),
+        "",
+        "#ifndef ORUS_VM_SUPERINSTRUCTION_TABLE_H",
+        "#define ORUS_VM_SUPERINSTRUCTION_TABLE_H",
+        "",
+        "// X(slot, first, second, first_length, typed)",
+    ]
+    if selected:
+        lines.append("#define VM_SUPERINSTRUCTION_LIST(X) \\")
+        for index, item in enumerate(selected):
+            tail = " \\" if index + 1 < len(selected) else ""
+            lines.append(
+                f"    X({item.slot}, {item.first}, {item.second}, "
+                f"{item.first_info.length}, {int(item.typed)}) /* {item.share:.2%} */{tail}"
+            )
+    else:
+        lines.append("#define VM_SUPERINSTRUCTION_LIST(X)")
+    lines += [
+        "",
+        f"#define VM_SUPERINSTRUCTION_COUNT {len(selected)}",
+        "",
+        "#endif // ORUS_VM_SUPERINSTRUCTION_TABLE_H",
+        "",
+    ]
+    return "\n".join(lines)
+
+
+def indent(lines: Iterable[str], prefix: str) -> List[str]:
+    return [prefix + line if line else "" for line in lines]
+
+
+def render_body(body: Sequence[str], prefix: str) -> List[str]:
+    # Multi-line bodies declare locals; scope them so both halves can.
+    if len(body) == 1:
+        return indent(body, prefix)
+    return [prefix + "{"] + indent(body, prefix + "    ") + [prefix + "}"]
+
+
+def render_handlers(selected: Sequence[Selection], goto: bool) -> str:
+    outer = "    " if goto else "                "
+    inner = outer + "    "
+    lines = [HEADER_BANNER, ""]
+    for item in selected:
+        label = f"LABEL_{SLOT_PREFIX}{item.slot}:" if goto else f"case {SLOT_PREFIX}{item.slot}:"
+        lines.append(f"{outer}{label} {{")
+        lines.append(f"{inner}// {item.first} + {item.second}")
+        lines += render_body(item.first_info.body, inner)
+        lines.append(f"{inner}vm.ip++; // {item.second} opcode byte")
+        lines += render_body(item.second_info.body, inner)
+        lines.append(f"{inner}{'DISPATCH();' if goto else 'break;'}")
+        lines.append(f"{outer}}}")
+        lines.append("")
+    return "\n".join(lines)
+
+
+def main(argv: Optional[Sequence[str]] = None) -> int:
+    parser = argparse.ArgumentParser(description=__doc__.splitlines()[0])
+    parser.add_argument("profiles", nargs="+", type=Path,
+                        help="profile exports (files or directories of *.json)")
+    parser.add_argument("--slots", type=int, default=None,
+                        help="number of superinstructions to emit (default: all reserved slots)")
+    parser.add_argument("--min-share", type=float, default=0.005,
+                        help="ignore pairs below this average share of dispatches")
+    parser.add_argument("--min-instructions", type=int, default=100_000,
+                        help="skip profiles that dispatched fewer instructions than this")
+    parser.add_argument("--check", action="store_true",
+                        help="exit non-zero if the checked-in files differ instead of writing them")
+    parser.add_argument("--verbose", "-v", action="store_true")
+    args = parser.parse_args(argv)
+
+    opcodes = parse_opcodes(VM_HEADER)
+    reserved = [name for name in opcodes if name.startswith(SLOT_PREFIX)]
+    slots = len(reserved) if args.slots is None else min(args.slots, len(reserved))
+
+    paths: List[Path] = []
+    for path in args.profiles:
+        paths.extend(sorted(path.glob("*.json")) if path.is_dir() else [path])
+    if not paths:
+        raise SystemExit("no profiles found")
+
+    corpus: List[str] = []
+    profiles = []
+    fused = current_table(TABLE_HEADER)
+    for path in paths:
+        data = json.loads(path.read_text())
+        if "opcodePairs" not in data:
+            raise SystemExit(f"{path}: no opcodePairs; profile with --profile-opcode-pairs")
+        if data.get("totalInstructions", 0) < args.min_instructions:
+            if args.verbose:
+                print(f"  skip {path.name}: too short to matter", file=sys.stderr)
+            continue
+        corpus.append(path.stem)
+        profiles.append(load_profile(data, opcodes, fused))
+    if not profiles:
+        raise SystemExit("no profile ran long enough; lower --min-instructions")
+
+    selected = select_pairs(rank_pairs(profiles), slots, args.min_share, args.verbose)
+
+    outputs = {
+        TABLE_HEADER: render_table(selected, corpus),
+        GOTO_HANDLERS: render_handlers(selected, goto=True),
+        SWITCH_HANDLERS: render_handlers(selected, goto=False),
+    }
+
+    stale = [path for path, text in outputs.items()
+             if not path.exists() or path.read_text() != text]
+    if args.check:
+        for path in stale:
+            print(f"out of date: {path.relative_to(REPO_ROOT)}", file=sys.stderr)
+        return 1 if stale else 0
+
+    for path in stale:
+        path.write_text(outputs[path])
+        print(f"wrote {path.relative_to(REPO_ROOT)}")
+    return 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
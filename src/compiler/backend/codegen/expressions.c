@@ -105,7 +105,7 @@ static void format_match_literal(Value value, char* buffer, size_t size) {
         return;
     }
 
-    switch (value.type) {
+    switch (VALUE_TYPE(value)) {
         case VAL_BOOL:
             snprintf(buffer, size, "%s", AS_BOOL(value) ? "true" : "false");
             break;
@@ -141,7 +141,7 @@ static void format_match_literal(Value value, char* buffer, size_t size) {
 }
 
 static TypeKind fallback_type_kind_from_value(Value value) {
-    switch (value.type) {
+    switch (VALUE_TYPE(value)) {
         case VAL_I32:
             return TYPE_I32;
         case VAL_I64:
@@ -236,6 +236,46 @@ int resolve_struct_field_index(Type* struct_type, const char* field_name) {
     return -1;
 }
 
+bool resolve_packed_array_kind(Type* array_type, ArrayElementKind* out_kind) {
+    Type* resolved = array_type ? prune(array_type) : NULL;
+    if (!resolved || !out_kind) {
+        return false;
+    }
+
+    Type* element = NULL;
+    if (resolved->kind == TYPE_ARRAY) {
+        element = resolved->info.array.elementType;
+    } else if (resolved->kind == TYPE_INSTANCE && resolved->info.instance.base) {
+        Type* base = prune(resolved->info.instance.base);
+        if (base && base->kind == TYPE_ARRAY) {
+            element = resolved->info.instance.argCount > 0 && resolved->info.instance.args
+                          ? resolved->info.instance.args[0]
+                          : base->info.array.elementType;
+        }
+    }
+    element = element ? prune(element) : NULL;
+    if (!element) {
+        return false;
+    }
+
+    switch (element->kind) {
+        case TYPE_I32:
+            *out_kind = ARRAY_ELEMENT_I32;
+            return true;
+        case TYPE_I64:
+            *out_kind = ARRAY_ELEMENT_I64;
+            return true;
+        case TYPE_F64:
+            *out_kind = ARRAY_ELEMENT_F64;
+            return true;
+        case TYPE_BOOL:
+            *out_kind = ARRAY_ELEMENT_BOOL;
+            return true;
+        default:
+            return false;
+    }
+}
+
 static TypedASTNode* find_struct_literal_value(TypedASTNode* literal,
                                                const char* field_name) {
     if (!literal || !field_name || !literal->typed.structLiteral.values ||
@@ -862,8 +902,10 @@ void emit_typed_instruction(CompilerContext* ctx, uint8_t opcode, int dst, int s
 }
 
 void emit_load_constant(CompilerContext* ctx, int reg, Value constant) {
+    int start = ctx->bytecode->count;
+
     // Use VM's specialized constant loading for optimal performance
-    switch (constant.type) {
+    switch (VALUE_TYPE(constant)) {
         case VAL_I32: {
             // OP_LOAD_I32_CONST: Add to constant pool and reference by index
             int const_index = add_constant(ctx->constants, constant);
@@ -1020,6 +1062,10 @@ void emit_load_constant(CompilerContext* ctx, int reg, Value constant) {
             break;
         }
     }
+
+    if (ctx->bytecode->count > start) {
+        bytecode_mark_instruction_start(ctx->bytecode, start);
+    }
 }
 
 void emit_binary_op(CompilerContext* ctx, const char* op, TypeKind operand_kind, int dst, int src1, int src2) {
@@ -1068,12 +1114,32 @@ void emit_binary_op(CompilerContext* ctx, const char* op, TypeKind operand_kind,
 
 void emit_move(CompilerContext* ctx, int dst, int src) {
     // OP_MOVE format: opcode + dst_reg + src_reg (3 bytes total)
+    int start = ctx->bytecode->count;
     emit_byte_to_buffer(ctx->bytecode, OP_MOVE);
     emit_byte_to_buffer(ctx->bytecode, dst);
     emit_byte_to_buffer(ctx->bytecode, src);
+    bytecode_mark_instruction_start(ctx->bytecode, start);
     DEBUG_CODEGEN_PRINT("Emitted OP_MOVE R%d, R%d (3 bytes)\n", dst, src);
 }
 
+// Statically typed primitive arrays get packed element storage.
+static void emit_make_array(CompilerContext* ctx, int dst, int first, int count,
+                            ArrayElementKind kind) {
+    if (kind == ARRAY_ELEMENT_VALUE) {
+        emit_byte_to_buffer(ctx->bytecode, OP_MAKE_ARRAY_R);
+        emit_byte_to_buffer(ctx->bytecode, dst);
+        emit_byte_to_buffer(ctx->bytecode, first);
+        emit_byte_to_buffer(ctx->bytecode, count);
+        return;
+    }
+
+    emit_byte_to_buffer(ctx->bytecode, OP_MAKE_TYPED_ARRAY_R);
+    emit_byte_to_buffer(ctx->bytecode, dst);
+    emit_byte_to_buffer(ctx->bytecode, first);
+    emit_byte_to_buffer(ctx->bytecode, count);
+    emit_byte_to_buffer(ctx->bytecode, (uint8_t)kind);
+}
+
 void ensure_i32_typed_register(CompilerContext* ctx, int reg, const TypedASTNode* source) {
     if (!ctx || !ctx->bytecode) {
         return;
@@ -1090,9 +1156,11 @@ void ensure_i32_typed_register(CompilerContext* ctx, int reg, const TypedASTNode
         return;
     }
 
+    int start = ctx->bytecode->count;
     emit_byte_to_buffer(ctx->bytecode, OP_MOVE_I32);
     emit_byte_to_buffer(ctx->bytecode, (uint8_t)reg);
     emit_byte_to_buffer(ctx->bytecode, (uint8_t)reg);
+    bytecode_mark_instruction_start(ctx->bytecode, start);
 }
 
 static TypedASTNode* get_call_argument_node(TypedASTNode* call, int index,
@@ -2384,21 +2452,21 @@ bool evaluate_constant_i32(TypedASTNode* node, int32_t* out_value) {
     switch (original->type) {
         case NODE_LITERAL: {
             Value val = original->literal.value;
-            switch (val.type) {
+            switch (VALUE_TYPE(val)) {
                 case VAL_I32:
-                    *out_value = val.as.i32;
+                    *out_value = AS_I32(val);
                     return true;
                 case VAL_I64:
-                    *out_value = (int32_t)val.as.i64;
+                    *out_value = (int32_t)AS_I64(val);
                     return true;
                 case VAL_U32:
-                    *out_value = (int32_t)val.as.u32;
+                    *out_value = (int32_t)AS_U32(val);
                     return true;
                 case VAL_U64:
-                    *out_value = (int32_t)val.as.u64;
+                    *out_value = (int32_t)AS_U64(val);
                     return true;
                 case VAL_NUMBER:
-                    *out_value = (int32_t)val.as.number;
+                    *out_value = (int32_t)AS_F64(val);
                     return true;
                 default:
                     return false;
@@ -2489,12 +2557,12 @@ int compile_expression(CompilerContext* ctx, TypedASTNode* expr) {
                 return -1;
             }
 
+            ArrayElementKind packed_kind = ARRAY_ELEMENT_VALUE;
+            bool packed = resolve_packed_array_kind(expr->resolvedType, &packed_kind);
+
             if (element_count == 0) {
                 set_location_from_node(ctx, expr);
-                emit_byte_to_buffer(ctx->bytecode, OP_MAKE_ARRAY_R);
-                emit_byte_to_buffer(ctx->bytecode, result_reg);
-                emit_byte_to_buffer(ctx->bytecode, 0);
-                emit_byte_to_buffer(ctx->bytecode, 0);
+                emit_make_array(ctx, result_reg, 0, 0, packed ? packed_kind : ARRAY_ELEMENT_VALUE);
                 return result_reg;
             } else {
                 int base_reg = compiler_alloc_consecutive_temps(ctx->allocator, element_count);
@@ -2571,10 +2639,8 @@ int compile_expression(CompilerContext* ctx, TypedASTNode* expr) {
                 }
 
                 set_location_from_node(ctx, expr);
-                emit_byte_to_buffer(ctx->bytecode, OP_MAKE_ARRAY_R);
-                emit_byte_to_buffer(ctx->bytecode, result_reg);
-                emit_byte_to_buffer(ctx->bytecode, first_element_reg);
-                emit_byte_to_buffer(ctx->bytecode, element_count);
+                emit_make_array(ctx, result_reg, first_element_reg, element_count,
+                                packed ? packed_kind : ARRAY_ELEMENT_VALUE);
 
                 for (int i = 0; i < element_count; i++) {
                     if (element_regs[i] >= MP_TEMP_REG_START && element_regs[i] <= MP_TEMP_REG_END) {
@@ -2605,12 +2671,14 @@ int compile_expression(CompilerContext* ctx, TypedASTNode* expr) {
                 return -1;
             }
 
+            ArrayElementKind packed_kind = ARRAY_ELEMENT_VALUE;
+            if (!resolve_packed_array_kind(expr->resolvedType, &packed_kind)) {
+                packed_kind = ARRAY_ELEMENT_VALUE;
+            }
+
             if (length == 0) {
                 set_location_from_node(ctx, expr);
-                emit_byte_to_buffer(ctx->bytecode, OP_MAKE_ARRAY_R);
-                emit_byte_to_buffer(ctx->bytecode, result_reg);
-                emit_byte_to_buffer(ctx->bytecode, 0);
-                emit_byte_to_buffer(ctx->bytecode, 0);
+                emit_make_array(ctx, result_reg, 0, 0, packed_kind);
                 return result_reg;
             }
 
@@ -2674,10 +2742,7 @@ int compile_expression(CompilerContext* ctx, TypedASTNode* expr) {
             }
 
             set_location_from_node(ctx, expr);
-            emit_byte_to_buffer(ctx->bytecode, OP_MAKE_ARRAY_R);
-            emit_byte_to_buffer(ctx->bytecode, result_reg);
-            emit_byte_to_buffer(ctx->bytecode, base_reg);
-            emit_byte_to_buffer(ctx->bytecode, length);
+            emit_make_array(ctx, result_reg, base_reg, length, packed_kind);
 
             for (int i = 0; i < length; i++) {
                 int reg = base_reg + i;
@@ -2882,14 +2947,25 @@ int compile_expression(CompilerContext* ctx, TypedASTNode* expr) {
                     is_string_index = true;
                 } else if (!base_type && array_node->original &&
                            array_node->original->type == NODE_LITERAL &&
-                           array_node->original->literal.value.type == VAL_STRING) {
+                           VALUE_TYPE(array_node->original->literal.value) == VAL_STRING) {
                     is_string_index = true;
                 }
             }
 
+            uint8_t get_opcode = OP_ARRAY_GET_R;
+            ArrayElementKind packed_kind;
+            if (is_string_index) {
+                get_opcode = OP_STRING_INDEX_R;
+            } else if (resolve_packed_array_kind(resolved_container_type, &packed_kind)) {
+                if (packed_kind == ARRAY_ELEMENT_I32) {
+                    get_opcode = OP_ARRAY_GET_I32_TYPED;
+                } else if (packed_kind == ARRAY_ELEMENT_F64) {
+                    get_opcode = OP_ARRAY_GET_F64_TYPED;
+                }
+            }
+
             set_location_from_node(ctx, expr);
-            emit_byte_to_buffer(ctx->bytecode,
-                                is_string_index ? OP_STRING_INDEX_R : OP_ARRAY_GET_R);
+            emit_byte_to_buffer(ctx->bytecode, get_opcode);
             emit_byte_to_buffer(ctx->bytecode, result_reg);
             emit_byte_to_buffer(ctx->bytecode, array_reg);
             emit_byte_to_buffer(ctx->bytecode, index_reg);
@@ -2931,10 +3007,10 @@ int compile_expression(CompilerContext* ctx, TypedASTNode* expr) {
                         left_typed->resolvedType = malloc(sizeof(Type));
                         if (left_typed->resolvedType) {
                             memset(left_typed->resolvedType, 0, sizeof(Type));
-                            left_typed->resolvedType->kind = (val.type == VAL_I32) ? TYPE_I32 :
-                                                             (val.type == VAL_I64) ? TYPE_I64 :
-                                                             (val.type == VAL_F64) ? TYPE_F64 :
-                                                             (val.type == VAL_BOOL) ? TYPE_BOOL : TYPE_I32;
+                            left_typed->resolvedType->kind = (VALUE_TYPE(val) == VAL_I32) ? TYPE_I32 :
+                                                             (VALUE_TYPE(val) == VAL_I64) ? TYPE_I64 :
+                                                             (VALUE_TYPE(val) == VAL_F64) ? TYPE_F64 :
+                                                             (VALUE_TYPE(val) == VAL_BOOL) ? TYPE_BOOL : TYPE_I32;
                         }
                     } else if (expr->original->binary.left->type == NODE_IDENTIFIER) {
                         // For identifiers, look up type from symbol table
@@ -2984,10 +3060,10 @@ int compile_expression(CompilerContext* ctx, TypedASTNode* expr) {
                         right_typed->resolvedType = malloc(sizeof(Type));
                         if (right_typed->resolvedType) {
                             memset(right_typed->resolvedType, 0, sizeof(Type));
-                            right_typed->resolvedType->kind = (val.type == VAL_I32) ? TYPE_I32 :
-                                                             (val.type == VAL_I64) ? TYPE_I64 :
-                                                             (val.type == VAL_F64) ? TYPE_F64 :
-                                                             (val.type == VAL_BOOL) ? TYPE_BOOL : TYPE_I32;
+                            right_typed->resolvedType->kind = (VALUE_TYPE(val) == VAL_I32) ? TYPE_I32 :
+                                                             (VALUE_TYPE(val) == VAL_I64) ? TYPE_I64 :
+                                                             (VALUE_TYPE(val) == VAL_F64) ? TYPE_F64 :
+                                                             (VALUE_TYPE(val) == VAL_BOOL) ? TYPE_BOOL : TYPE_I32;
                         }
                     } else if (expr->original->binary.right->type == NODE_IDENTIFIER) {
                         // For identifiers, look up type from symbol table
@@ -3258,8 +3334,12 @@ int compile_expression(CompilerContext* ctx, TypedASTNode* expr) {
                 return -1;
             }
 
+            bool is_string_slice = expr->typed.arraySlice.isStringSlice ||
+                                   (expr->original && expr->original->arraySlice.isStringSlice);
+
             set_location_from_node(ctx, expr);
-            emit_byte_to_buffer(ctx->bytecode, OP_ARRAY_SLICE_R);
+            emit_byte_to_buffer(ctx->bytecode,
+                                is_string_slice ? OP_STRING_SLICE_R : OP_ARRAY_SLICE_R);
             emit_byte_to_buffer(ctx->bytecode, result_reg);
             emit_byte_to_buffer(ctx->bytecode, array_reg);
             emit_byte_to_buffer(ctx->bytecode, start_reg);
@@ -2,6 +2,7 @@
 #include "compiler/codegen/statements.h"
 #include "compiler/codegen/expressions.h"
 #include "compiler/codegen/modules.h"
+#include "compiler/codegen/peephole.h"
 #include "compiler/codegen/codegen_internal.h"
 #include "compiler/register_allocator.h"
 #include "compiler/symbol_table.h"
@@ -385,6 +386,7 @@ void finalize_functions_to_vm(CompilerContext* ctx) {
         Function* vm_function = &vm.functions[vm.functionCount];
         vm_function->start = 0; // Always start at beginning of chunk
         vm_function->arity = ctx->function_arities[i]; // Use stored arity
+        vm_function->window = ctx->function_windows[i];
         vm_function->chunk = chunk;
         vm_function->specialized_chunk = specialized_chunk;
         vm_function->deopt_stub_chunk = stub_chunk;
@@ -478,7 +480,6 @@ int compile_function_declaration(CompilerContext* ctx, TypedASTNode* func) {
             }
             free(alias_name);
         }
-        compiler_reset_frame_registers(ctx->allocator);
     } else {
         func_reg = compiler_alloc_temp(ctx->allocator);
         if (func_reg == -1) return -1;
@@ -509,9 +510,13 @@ int compile_function_declaration(CompilerContext* ctx, TypedASTNode* func) {
         }
     }
 
+    // The body gets a fresh frame window with parameters at its bottom; the
+    // enclosing function's frame registers come back once the body is done.
+    CompilerFrameState outer_frame;
+    compiler_begin_function_frame(ctx->allocator, arity, &outer_frame);
+
     // Register parameters
-    int param_base = FRAME_REG_START + FRAME_REGISTERS - arity;
-    if (param_base < FRAME_REG_START) param_base = FRAME_REG_START;
+    int param_base = calculateParameterBaseRegister(arity);
     for (int i = 0; i < arity; i++) {
         if (func->original->function.params[i].name) {
             int param_reg = param_base + i;
@@ -561,6 +566,12 @@ int compile_function_declaration(CompilerContext* ctx, TypedASTNode* func) {
         emit_byte_to_buffer(function_bytecode, OP_RETURN_VOID);
     }
 
+    // Function bodies skip the top-level peephole passes, which shift bytes
+    // without fixing jumps; superinstruction fusion keeps the layout intact.
+    optimize_superinstructions(ctx);
+
+    FrameWindowLayout frame_window = compiler_end_function_frame(ctx->allocator, &outer_frame);
+
     // Restore outer compilation state
     ctx->bytecode = saved_bytecode;
     free_symbol_table(ctx->symbols);
@@ -587,6 +598,8 @@ int compile_function_declaration(CompilerContext* ctx, TypedASTNode* func) {
         return -1;
     }
 
+    ctx->function_windows[function_index] = frame_window;
+
     if (!ctx->compiling_function && ctx->is_module && func_name &&
         !func->original->function.isMethod &&
         func->original->function.isPublic) {
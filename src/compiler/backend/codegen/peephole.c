@@ -4,6 +4,7 @@
 #include "compiler/compiler.h"
 #include "vm/vm.h"
 #include "vm/vm_constants.h"
+#include "vm/vm_superinstructions.h"
 #include <stdio.h>
 #include <stdlib.h>
 #include <string.h>
@@ -43,6 +44,7 @@ void init_peephole_context(PeepholeContext* ctx) {
     ctx->load_move_fusions = 0;
     ctx->redundant_moves = 0;
     ctx->constant_propagations = 0;
+    ctx->superinstructions = 0;
 }
 
 bool apply_peephole_optimizations(CompilerContext* ctx) {
@@ -55,10 +57,14 @@ bool apply_peephole_optimizations(CompilerContext* ctx) {
     peephole_stats.load_move_fusions = optimize_load_move_pattern(ctx);
     peephole_stats.redundant_moves = optimize_redundant_operations(ctx);
     peephole_stats.constant_propagations = optimize_constant_propagation(ctx);
+    // Runs last: it keeps every byte in place, so earlier passes that shift
+    // instructions must already be done.
+    peephole_stats.superinstructions = optimize_superinstructions(ctx);
 
     peephole_stats.patterns_optimized = peephole_stats.load_move_fusions +
                                        peephole_stats.redundant_moves +
-                                       peephole_stats.constant_propagations;
+                                       peephole_stats.constant_propagations +
+                                       peephole_stats.superinstructions;
     
     print_peephole_statistics(&peephole_stats);
     return true;
@@ -244,6 +250,50 @@ int optimize_constant_propagation(CompilerContext* ctx) {
     return optimizations;
 }
 
+// Pattern: profiled fall-through pair → superinstruction
+// Before: LOAD_I32_CONST R192, #3; ADD_I32_TYPED R64, R64, R192
+// After:  SUPERINSTRUCTION_k R192, #3; ADD_I32_TYPED R64, R64, R192
+// Only the first opcode byte changes, so lengths and jump offsets stay valid
+// and a jump into the second instruction still runs it alone. Both halves
+// must carry an emitter mark: the buffer has no decoder, so the marks are
+// the only trusted instruction boundaries.
+int optimize_superinstructions(CompilerContext* ctx) {
+    if (!ctx || !ctx->bytecode || !ctx->bytecode->instruction_starts) return 0;
+
+    BytecodeBuffer* bytecode = ctx->bytecode;
+    int fused = 0;
+
+    for (int offset = 0; offset < bytecode->count; offset++) {
+        if (!bytecode->instruction_starts[offset]) {
+            continue;
+        }
+
+        int length = vm_superinstruction_first_length(bytecode->instructions[offset]);
+        int next = offset + length;
+        if (length == 0 || next >= bytecode->count || !bytecode->instruction_starts[next]) {
+            continue;
+        }
+
+        VMSuperinstruction info;
+        if (!vm_superinstruction_lookup(bytecode->instructions[offset],
+                                        bytecode->instructions[next], &info)) {
+            continue;
+        }
+        if (info.typed && !ORUS_VM_ENABLE_TYPED_OPS) {
+            continue;
+        }
+
+        bytecode->instructions[offset] = info.opcode;
+        fused++;
+        printf("[PEEPHOLE] ✅ Fused %s at %d\n", info.name, offset);
+
+        // The second half is consumed; resume scanning after it.
+        offset = next;
+    }
+
+    return fused;
+}
+
 bool is_load_move_pattern(CompilerContext* ctx, int offset) {
     BytecodeBuffer* bytecode = ctx->bytecode;
     
@@ -276,6 +326,9 @@ void eliminate_instruction_sequence(CompilerContext* ctx, int start_offset, int
         if (bytecode->source_files) {
             bytecode->source_files[j] = bytecode->source_files[j + length];
         }
+        if (bytecode->instruction_starts) {
+            bytecode->instruction_starts[j] = bytecode->instruction_starts[j + length];
+        }
     }
     bytecode->count -= length;
 }
@@ -295,6 +348,7 @@ void print_peephole_statistics(PeepholeContext* ctx) {
     printf("[PEEPHOLE] 📊 LOAD+MOVE fusions: %d\n", ctx->load_move_fusions);
     printf("[PEEPHOLE] 📊 Redundant moves eliminated: %d\n", ctx->redundant_moves);
     printf("[PEEPHOLE] 📊 Constant propagations: %d\n", ctx->constant_propagations);
+    printf("[PEEPHOLE] 📊 Superinstructions: %d\n", ctx->superinstructions);
     printf("[PEEPHOLE] 📊 Total instructions eliminated: %d\n", ctx->instructions_eliminated);
 }
 
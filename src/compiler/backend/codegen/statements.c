@@ -1461,8 +1461,31 @@ int compile_array_assignment(CompilerContext* ctx, TypedASTNode* assign,
         return -1;
     }
 
+    TypedASTNode* array_node = target->typed.indexAccess.array;
+    Type* container_type = array_node->resolvedType;
+    if (!container_type && array_node->original) {
+        container_type = array_node->original->dataType;
+    }
+    if (!container_type && array_node->original &&
+        array_node->original->type == NODE_IDENTIFIER) {
+        Symbol* symbol = resolve_symbol(ctx->symbols, array_node->original->identifier.name);
+        if (symbol) {
+            container_type = symbol->type;
+        }
+    }
+
+    uint8_t set_opcode = OP_ARRAY_SET_R;
+    ArrayElementKind packed_kind;
+    if (resolve_packed_array_kind(container_type, &packed_kind)) {
+        if (packed_kind == ARRAY_ELEMENT_I32) {
+            set_opcode = OP_ARRAY_SET_I32_TYPED;
+        } else if (packed_kind == ARRAY_ELEMENT_F64) {
+            set_opcode = OP_ARRAY_SET_F64_TYPED;
+        }
+    }
+
     set_location_from_node(ctx, assign);
-    emit_byte_to_buffer(ctx->bytecode, OP_ARRAY_SET_R);
+    emit_byte_to_buffer(ctx->bytecode, set_opcode);
     emit_byte_to_buffer(ctx->bytecode, array_reg);
     emit_byte_to_buffer(ctx->bytecode, index_reg);
     emit_byte_to_buffer(ctx->bytecode, value_reg);
@@ -4156,6 +4179,11 @@ int register_function(CompilerContext* ctx, const char* name, int arity, Bytecod
         if (!new_arities) return -1;
         ctx->function_arities = new_arities;
 
+        FrameWindowLayout* new_windows = realloc(ctx->function_windows,
+                                                 sizeof(FrameWindowLayout) * new_capacity);
+        if (!new_windows) return -1;
+        ctx->function_windows = new_windows;
+
         char** new_names = realloc(ctx->function_names, sizeof(char*) * new_capacity);
         if (!new_names) return -1;
         ctx->function_names = new_names;
@@ -4178,6 +4206,7 @@ int register_function(CompilerContext* ctx, const char* name, int arity, Bytecod
         for (int i = ctx->function_capacity; i < new_capacity; ++i) {
             ctx->function_chunks[i] = NULL;
             ctx->function_arities[i] = 0;
+            ctx->function_windows[i] = (FrameWindowLayout){0, 0};
             ctx->function_names[i] = NULL;
             ctx->function_specialized_chunks[i] = NULL;
             ctx->function_deopt_stubs[i] = NULL;
@@ -4190,6 +4219,7 @@ int register_function(CompilerContext* ctx, const char* name, int arity, Bytecod
     int function_index = ctx->function_count++;
     ctx->function_chunks[function_index] = chunk;
     ctx->function_arities[function_index] = arity;
+    ctx->function_windows[function_index] = (FrameWindowLayout){0, 0};
 
     if (ctx->function_names) {
         free(ctx->function_names[function_index]);
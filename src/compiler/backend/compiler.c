@@ -112,6 +112,7 @@ BytecodeBuffer* init_bytecode_buffer(void) {
     buffer->source_lines = NULL;
     buffer->source_columns = NULL;
     buffer->source_files = NULL;
+    buffer->instruction_starts = NULL;
     buffer->patches = NULL;
     buffer->count = 0;
     buffer->capacity = 256;  // Initial capacity
@@ -122,9 +123,10 @@ BytecodeBuffer* init_bytecode_buffer(void) {
     buffer->source_lines = malloc(buffer->capacity * sizeof(int));
     buffer->source_columns = malloc(buffer->capacity * sizeof(int));
     buffer->source_files = malloc(buffer->capacity * sizeof(const char*));
+    buffer->instruction_starts = calloc(buffer->capacity, sizeof(bool));
 
     if (!buffer->instructions || !buffer->source_lines || !buffer->source_columns ||
-        !buffer->source_files) {
+        !buffer->source_files || !buffer->instruction_starts) {
         free_bytecode_buffer(buffer);
         return NULL;
     }
@@ -144,6 +146,7 @@ void free_bytecode_buffer(BytecodeBuffer* buffer) {
     free(buffer->source_lines);
     free(buffer->source_columns);
     free(buffer->source_files);
+    free(buffer->instruction_starts);
     free(buffer->patches);
     free(buffer);
 }
@@ -182,13 +185,13 @@ int add_constant(ConstantPool* pool, Value value) {
     // Check if constant already exists (for deduplication)
     for (int i = 0; i < pool->count; i++) {
         Value existing = pool->values[i];
-        if (existing.type == value.type) {
+        if (VALUE_TYPE(existing) == VALUE_TYPE(value)) {
             // Simple equality check for basic types
-            if (value.type == VAL_I32 && AS_I32(existing) == AS_I32(value)) {
+            if (VALUE_TYPE(value) == VAL_I32 && AS_I32(existing) == AS_I32(value)) {
                 DEBUG_CODEGEN_PRINT("Reusing existing i32 constant %d at index %d\n", AS_I32(value), i);
                 return i;
             }
-            if (value.type == VAL_STRING && AS_STRING(existing) == AS_STRING(value)) {
+            if (VALUE_TYPE(value) == VAL_STRING && AS_STRING(existing) == AS_STRING(value)) {
                 DEBUG_CODEGEN_PRINT("Reusing existing string constant at index %d\n", i);
                 return i;
             }
@@ -204,13 +207,14 @@ int add_constant(ConstantPool* pool, Value value) {
     }
     
     // Add new constant
+    gcPretenureValue(value);
     pool->values[pool->count] = value;
     int index = pool->count;
     pool->count++;
     
-    if (value.type == VAL_I32) {
+    if (VALUE_TYPE(value) == VAL_I32) {
         DEBUG_CODEGEN_PRINT("Added i32 constant %d at index %d\n", AS_I32(value), index);
-    } else if (value.type == VAL_STRING) {
+    } else if (VALUE_TYPE(value) == VAL_STRING) {
         DEBUG_CODEGEN_PRINT("Added string constant \"%s\" at index %d\n",
                            string_get_chars(AS_STRING(value)), index);
     } else {
@@ -223,7 +227,7 @@ int add_constant(ConstantPool* pool, Value value) {
 Value get_constant(ConstantPool* pool, int index) {
     if (!pool || index < 0 || index >= pool->count) {
         // Return a default value for invalid indices
-        Value nil = {.type = VAL_BOOL, .as.boolean = false};
+        Value nil = BOOL_VAL(false);
         return nil;
     }
     
@@ -240,9 +244,16 @@ void emit_byte_to_buffer(BytecodeBuffer* buffer, uint8_t byte) {
         buffer->source_lines = realloc(buffer->source_lines, buffer->capacity * sizeof(int));
         buffer->source_columns = realloc(buffer->source_columns, buffer->capacity * sizeof(int));
         buffer->source_files = realloc(buffer->source_files, buffer->capacity * sizeof(const char*));
+        if (buffer->instruction_starts) {
+            buffer->instruction_starts = realloc(buffer->instruction_starts,
+                                                 buffer->capacity * sizeof(bool));
+        }
     }
 
     buffer->instructions[buffer->count] = byte;
+    if (buffer->instruction_starts) {
+        buffer->instruction_starts[buffer->count] = false;
+    }
     if (buffer->has_current_location) {
         buffer->source_lines[buffer->count] = buffer->current_location.line;
         buffer->source_columns[buffer->count] = buffer->current_location.column;
@@ -273,6 +284,15 @@ void bytecode_set_synthetic_location(BytecodeBuffer* buffer) {
     buffer->has_current_location = true;
 }
 
+// Records that an instruction starts at offset. Only emitters that wrote the
+// whole instruction themselves may mark it.
+void bytecode_mark_instruction_start(BytecodeBuffer* buffer, int offset) {
+    if (!buffer || !buffer->instruction_starts || offset < 0 || offset >= buffer->count) {
+        return;
+    }
+    buffer->instruction_starts[offset] = true;
+}
+
 void emit_word_to_buffer(BytecodeBuffer* buffer, uint16_t word) {
     // Emit 16-bit value as high byte, low byte (matches constant pool pattern)
     emit_byte_to_buffer(buffer, (word >> 8) & 0xFF);  // High byte
@@ -280,10 +300,14 @@ void emit_word_to_buffer(BytecodeBuffer* buffer, uint16_t word) {
 }
 
 void emit_instruction_to_buffer(BytecodeBuffer* buffer, uint8_t opcode, uint8_t reg1, uint8_t reg2, uint8_t reg3) {
+    if (!buffer) return;
+
+    int start = buffer->count;
     emit_byte_to_buffer(buffer, opcode);
     emit_byte_to_buffer(buffer, reg1);
     emit_byte_to_buffer(buffer, reg2);
     emit_byte_to_buffer(buffer, reg3);
+    bytecode_mark_instruction_start(buffer, start);
 }
 
 static inline int determine_prefix_size(uint8_t opcode) {
@@ -349,6 +373,9 @@ int emit_jump_placeholder(BytecodeBuffer* buffer, uint8_t jump_opcode) {
         patch->instruction_offset = 0;
     }
     patch->target_label = -1;
+    if (buffer->instructions[patch->instruction_offset] == jump_opcode) {
+        bytecode_mark_instruction_start(buffer, patch->instruction_offset);
+    }
 
     return buffer->patch_count++;
 }
@@ -514,6 +541,7 @@ CompilerContext* init_compiler_context(TypedASTNode* typed_ast) {
     ctx->current_function_index = -1;    // Global scope initially
     ctx->function_chunks = NULL;         // No function chunks yet
     ctx->function_arities = NULL;        // No function arities yet
+    ctx->function_windows = NULL;
     ctx->function_names = NULL;
     ctx->function_specialized_chunks = NULL;
     ctx->function_deopt_stubs = NULL;
@@ -770,6 +798,10 @@ void free_compiler_context(CompilerContext* ctx) {
         free(ctx->function_arities);
     }
 
+    if (ctx->function_windows) {
+        free(ctx->function_windows);
+    }
+
     if (ctx->function_specialized_chunks) {
         for (int i = 0; i < ctx->function_count; i++) {
             if (ctx->function_specialized_chunks[i]) {
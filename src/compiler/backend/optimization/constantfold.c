@@ -20,7 +20,7 @@ static bool is_numeric_zero_literal(const ASTNode* node) {
     }
 
     Value value = node->literal.value;
-    switch (value.type) {
+    switch (VALUE_TYPE(value)) {
         case VAL_I32:
             return AS_I32(value) == 0;
         case VAL_I64:
@@ -42,7 +42,7 @@ static bool is_bool_literal_with_value(const ASTNode* node, bool expected) {
     }
 
     Value value = node->literal.value;
-    return value.type == VAL_BOOL && AS_BOOL(value) == expected;
+    return VALUE_TYPE(value) == VAL_BOOL && AS_BOOL(value) == expected;
 }
 
 static void copy_literal_value(ASTNode* target, const ASTNode* source_literal) {
@@ -247,16 +247,16 @@ bool fold_binary_expression(TypedASTNode* node, ConstantFoldContext* ctx) {
     
     DEBUG_CONSTANTFOLD_PRINT("Found foldable constants: ");
     // Print values using basic formatting
-    if (left.type == VAL_I32) DEBUG_CONSTANTFOLD_PRINT("%d", AS_I32(left));
-    else if (left.type == VAL_F64) DEBUG_CONSTANTFOLD_PRINT("%.2f", AS_F64(left));
-    else if (left.type == VAL_BOOL) DEBUG_CONSTANTFOLD_PRINT("%s", AS_BOOL(left) ? "true" : "false");
+    if (VALUE_TYPE(left) == VAL_I32) DEBUG_CONSTANTFOLD_PRINT("%d", AS_I32(left));
+    else if (VALUE_TYPE(left) == VAL_F64) DEBUG_CONSTANTFOLD_PRINT("%.2f", AS_F64(left));
+    else if (VALUE_TYPE(left) == VAL_BOOL) DEBUG_CONSTANTFOLD_PRINT("%s", AS_BOOL(left) ? "true" : "false");
     else DEBUG_CONSTANTFOLD_PRINT("(value)");
     
     DEBUG_CONSTANTFOLD_PRINT(" %s ", op);
     
-    if (right.type == VAL_I32) DEBUG_CONSTANTFOLD_PRINT("%d", AS_I32(right));
-    else if (right.type == VAL_F64) DEBUG_CONSTANTFOLD_PRINT("%.2f", AS_F64(right));
-    else if (right.type == VAL_BOOL) DEBUG_CONSTANTFOLD_PRINT("%s", AS_BOOL(right) ? "true" : "false");
+    if (VALUE_TYPE(right) == VAL_I32) DEBUG_CONSTANTFOLD_PRINT("%d", AS_I32(right));
+    else if (VALUE_TYPE(right) == VAL_F64) DEBUG_CONSTANTFOLD_PRINT("%.2f", AS_F64(right));
+    else if (VALUE_TYPE(right) == VAL_BOOL) DEBUG_CONSTANTFOLD_PRINT("%s", AS_BOOL(right) ? "true" : "false");
     else DEBUG_CONSTANTFOLD_PRINT("(value)");
     DEBUG_CONSTANTFOLD_PRINT("\n");
     
@@ -288,9 +288,9 @@ bool fold_binary_expression(TypedASTNode* node, ConstantFoldContext* ctx) {
     ctx->binary_expressions_folded++;
     
     DEBUG_CONSTANTFOLD_PRINT("✅ Successfully folded to: ");
-    if (result.type == VAL_I32) DEBUG_CONSTANTFOLD_PRINT("%d", AS_I32(result));
-    else if (result.type == VAL_F64) DEBUG_CONSTANTFOLD_PRINT("%.2f", AS_F64(result));
-    else if (result.type == VAL_BOOL) DEBUG_CONSTANTFOLD_PRINT("%s", AS_BOOL(result) ? "true" : "false");
+    if (VALUE_TYPE(result) == VAL_I32) DEBUG_CONSTANTFOLD_PRINT("%d", AS_I32(result));
+    else if (VALUE_TYPE(result) == VAL_F64) DEBUG_CONSTANTFOLD_PRINT("%.2f", AS_F64(result));
+    else if (VALUE_TYPE(result) == VAL_BOOL) DEBUG_CONSTANTFOLD_PRINT("%s", AS_BOOL(result) ? "true" : "false");
     else DEBUG_CONSTANTFOLD_PRINT("(value)");
     DEBUG_CONSTANTFOLD_PRINT(" (memory-safe transformation)\n");
     
@@ -319,12 +319,12 @@ void fold_ast_node_directly(ASTNode* node, ConstantFoldContext* ctx) {
                 const char* op = node->binary.op;
 
                 DEBUG_CONSTANTFOLD_PRINT("Direct folding: ");
-                if (left.type == VAL_BOOL) DEBUG_CONSTANTFOLD_PRINT("%s", AS_BOOL(left) ? "true" : "false");
-                else if (left.type == VAL_I32) DEBUG_CONSTANTFOLD_PRINT("%d", AS_I32(left));
+                if (VALUE_TYPE(left) == VAL_BOOL) DEBUG_CONSTANTFOLD_PRINT("%s", AS_BOOL(left) ? "true" : "false");
+                else if (VALUE_TYPE(left) == VAL_I32) DEBUG_CONSTANTFOLD_PRINT("%d", AS_I32(left));
                 else DEBUG_CONSTANTFOLD_PRINT("(value)");
                 DEBUG_CONSTANTFOLD_PRINT(" %s ", op);
-                if (right.type == VAL_BOOL) DEBUG_CONSTANTFOLD_PRINT("%s", AS_BOOL(right) ? "true" : "false");
-                else if (right.type == VAL_I32) DEBUG_CONSTANTFOLD_PRINT("%d", AS_I32(right));
+                if (VALUE_TYPE(right) == VAL_BOOL) DEBUG_CONSTANTFOLD_PRINT("%s", AS_BOOL(right) ? "true" : "false");
+                else if (VALUE_TYPE(right) == VAL_I32) DEBUG_CONSTANTFOLD_PRINT("%d", AS_I32(right));
                 else DEBUG_CONSTANTFOLD_PRINT("(value)");
                 DEBUG_CONSTANTFOLD_PRINT("\n");
                 
@@ -340,8 +340,8 @@ void fold_ast_node_directly(ASTNode* node, ConstantFoldContext* ctx) {
                     ctx->binary_expressions_folded++;
 
                     DEBUG_CONSTANTFOLD_PRINT("Direct folded to: ");
-                    if (result.type == VAL_BOOL) DEBUG_CONSTANTFOLD_PRINT("%s", AS_BOOL(result) ? "true" : "false");
-                    else if (result.type == VAL_I32) DEBUG_CONSTANTFOLD_PRINT("%d", AS_I32(result));
+                    if (VALUE_TYPE(result) == VAL_BOOL) DEBUG_CONSTANTFOLD_PRINT("%s", AS_BOOL(result) ? "true" : "false");
+                    else if (VALUE_TYPE(result) == VAL_I32) DEBUG_CONSTANTFOLD_PRINT("%d", AS_I32(result));
                     else DEBUG_CONSTANTFOLD_PRINT("(value)");
                     DEBUG_CONSTANTFOLD_PRINT("\n");
                 }
@@ -367,22 +367,20 @@ void fold_ast_node_directly(ASTNode* node, ConstantFoldContext* ctx) {
                 const char* op = node->unary.op;
                 
                 DEBUG_CONSTANTFOLD_PRINT("Direct unary folding: %s ", op);
-                if (operand.type == VAL_BOOL) DEBUG_CONSTANTFOLD_PRINT("%s", AS_BOOL(operand) ? "true" : "false");
-                else if (operand.type == VAL_I32) DEBUG_CONSTANTFOLD_PRINT("%d", AS_I32(operand));
+                if (VALUE_TYPE(operand) == VAL_BOOL) DEBUG_CONSTANTFOLD_PRINT("%s", AS_BOOL(operand) ? "true" : "false");
+                else if (VALUE_TYPE(operand) == VAL_I32) DEBUG_CONSTANTFOLD_PRINT("%d", AS_I32(operand));
                 else DEBUG_CONSTANTFOLD_PRINT("(value)");
                 DEBUG_CONSTANTFOLD_PRINT("\n");
                 
                 Value result;
                 bool can_fold = false;
                 
-                if (strcmp(op, "not") == 0 && operand.type == VAL_BOOL) {
-                    result.type = VAL_BOOL;
-                    result.as.boolean = !AS_BOOL(operand);
+                if (strcmp(op, "not") == 0 && VALUE_TYPE(operand) == VAL_BOOL) {
+                    result = BOOL_VAL(!AS_BOOL(operand));
                     can_fold = true;
                 } else if (strcmp(op, "-") == 0) {
-                    if (operand.type == VAL_I32) {
-                        result.type = VAL_I32;
-                        result.as.i32 = -AS_I32(operand);
+                    if (VALUE_TYPE(operand) == VAL_I32) {
+                        result = I32_VAL(-AS_I32(operand));
                         can_fold = true;
                     }
                 } else if (strcmp(op, "+") == 0) {
@@ -400,8 +398,8 @@ void fold_ast_node_directly(ASTNode* node, ConstantFoldContext* ctx) {
                     ctx->constants_folded++;
                     
                     DEBUG_CONSTANTFOLD_PRINT("Direct unary folded to: ");
-                    if (result.type == VAL_BOOL) DEBUG_CONSTANTFOLD_PRINT("%s", AS_BOOL(result) ? "true" : "false");
-                    else if (result.type == VAL_I32) DEBUG_CONSTANTFOLD_PRINT("%d", AS_I32(result));
+                    if (VALUE_TYPE(result) == VAL_BOOL) DEBUG_CONSTANTFOLD_PRINT("%s", AS_BOOL(result) ? "true" : "false");
+                    else if (VALUE_TYPE(result) == VAL_I32) DEBUG_CONSTANTFOLD_PRINT("%d", AS_I32(result));
                     else DEBUG_CONSTANTFOLD_PRINT("(value)");
                     DEBUG_CONSTANTFOLD_PRINT("\n");
                 }
@@ -428,9 +426,9 @@ bool fold_unary_expression(TypedASTNode* node, ConstantFoldContext* ctx) {
     const char* op = node->original->unary.op;
     
     DEBUG_CONSTANTFOLD_PRINT("Found foldable unary constant: %s ", op);
-    if (operand.type == VAL_I32) DEBUG_CONSTANTFOLD_PRINT("%d", AS_I32(operand));
-    else if (operand.type == VAL_F64) DEBUG_CONSTANTFOLD_PRINT("%.2f", AS_F64(operand));
-    else if (operand.type == VAL_BOOL) DEBUG_CONSTANTFOLD_PRINT("%s", AS_BOOL(operand) ? "true" : "false");
+    if (VALUE_TYPE(operand) == VAL_I32) DEBUG_CONSTANTFOLD_PRINT("%d", AS_I32(operand));
+    else if (VALUE_TYPE(operand) == VAL_F64) DEBUG_CONSTANTFOLD_PRINT("%.2f", AS_F64(operand));
+    else if (VALUE_TYPE(operand) == VAL_BOOL) DEBUG_CONSTANTFOLD_PRINT("%s", AS_BOOL(operand) ? "true" : "false");
     else DEBUG_CONSTANTFOLD_PRINT("(value)");
     DEBUG_CONSTANTFOLD_PRINT("\n");
     
@@ -438,20 +436,17 @@ bool fold_unary_expression(TypedASTNode* node, ConstantFoldContext* ctx) {
     
     // Handle different unary operators
     if (strcmp(op, "not") == 0) {
-        if (operand.type == VAL_BOOL) {
-            result.type = VAL_BOOL;
-            result.as.boolean = !AS_BOOL(operand);
+        if (VALUE_TYPE(operand) == VAL_BOOL) {
+            result = BOOL_VAL(!AS_BOOL(operand));
         } else {
             DEBUG_CONSTANTFOLD_PRINT("Cannot apply 'not' to non-boolean value\n");
             return false;
         }
     } else if (strcmp(op, "-") == 0) {
-        if (operand.type == VAL_I32) {
-            result.type = VAL_I32;
-            result.as.i32 = -AS_I32(operand);
-        } else if (operand.type == VAL_F64) {
-            result.type = VAL_F64;
-            result.as.f64 = -AS_F64(operand);
+        if (VALUE_TYPE(operand) == VAL_I32) {
+            result = I32_VAL(-AS_I32(operand));
+        } else if (VALUE_TYPE(operand) == VAL_F64) {
+            result = F64_VAL(-AS_F64(operand));
         } else {
             DEBUG_CONSTANTFOLD_PRINT("Cannot apply unary minus to non-numeric value\n");
             return false;
@@ -474,9 +469,9 @@ bool fold_unary_expression(TypedASTNode* node, ConstantFoldContext* ctx) {
     ctx->constants_folded++;
     
     DEBUG_CONSTANTFOLD_PRINT("✅ Successfully folded unary to: ");
-    if (result.type == VAL_I32) DEBUG_CONSTANTFOLD_PRINT("%d", AS_I32(result));
-    else if (result.type == VAL_F64) DEBUG_CONSTANTFOLD_PRINT("%.2f", AS_F64(result));
-    else if (result.type == VAL_BOOL) DEBUG_CONSTANTFOLD_PRINT("%s", AS_BOOL(result) ? "true" : "false");
+    if (VALUE_TYPE(result) == VAL_I32) DEBUG_CONSTANTFOLD_PRINT("%d", AS_I32(result));
+    else if (VALUE_TYPE(result) == VAL_F64) DEBUG_CONSTANTFOLD_PRINT("%.2f", AS_F64(result));
+    else if (VALUE_TYPE(result) == VAL_BOOL) DEBUG_CONSTANTFOLD_PRINT("%s", AS_BOOL(result) ? "true" : "false");
     else DEBUG_CONSTANTFOLD_PRINT("(value)");
     DEBUG_CONSTANTFOLD_PRINT(" (memory-safe transformation)\n");
     
@@ -518,15 +513,15 @@ bool evaluate_binary_operation(Value left, const char* op, Value right, Value* o
 
     // Arithmetic operations
     if (strcmp(op, "+") == 0) {
-        if (left.type == VAL_I32 && right.type == VAL_I32) {
+        if (VALUE_TYPE(left) == VAL_I32 && VALUE_TYPE(right) == VAL_I32) {
             *out_result = I32_VAL(AS_I32(left) + AS_I32(right));
             return true;
         }
-        if (left.type == VAL_F64 && right.type == VAL_F64) {
+        if (VALUE_TYPE(left) == VAL_F64 && VALUE_TYPE(right) == VAL_F64) {
             *out_result = F64_VAL(AS_F64(left) + AS_F64(right));
             return true;
         }
-        if (left.type == VAL_STRING && right.type == VAL_STRING) {
+        if (VALUE_TYPE(left) == VAL_STRING && VALUE_TYPE(right) == VAL_STRING) {
             ObjString* leftStr = AS_STRING(left);
             ObjString* rightStr = AS_STRING(right);
             int newLength = leftStr->length + rightStr->length;
@@ -560,27 +555,27 @@ bool evaluate_binary_operation(Value left, const char* op, Value right, Value* o
         }
     }
     else if (strcmp(op, "-") == 0) {
-        if (left.type == VAL_I32 && right.type == VAL_I32) {
+        if (VALUE_TYPE(left) == VAL_I32 && VALUE_TYPE(right) == VAL_I32) {
             *out_result = I32_VAL(AS_I32(left) - AS_I32(right));
             return true;
         }
-        if (left.type == VAL_F64 && right.type == VAL_F64) {
+        if (VALUE_TYPE(left) == VAL_F64 && VALUE_TYPE(right) == VAL_F64) {
             *out_result = F64_VAL(AS_F64(left) - AS_F64(right));
             return true;
         }
     }
     else if (strcmp(op, "*") == 0) {
-        if (left.type == VAL_I32 && right.type == VAL_I32) {
+        if (VALUE_TYPE(left) == VAL_I32 && VALUE_TYPE(right) == VAL_I32) {
             *out_result = I32_VAL(AS_I32(left) * AS_I32(right));
             return true;
         }
-        if (left.type == VAL_F64 && right.type == VAL_F64) {
+        if (VALUE_TYPE(left) == VAL_F64 && VALUE_TYPE(right) == VAL_F64) {
             *out_result = F64_VAL(AS_F64(left) * AS_F64(right));
             return true;
         }
     }
     else if (strcmp(op, "/") == 0) {
-        if (left.type == VAL_I32 && right.type == VAL_I32) {
+        if (VALUE_TYPE(left) == VAL_I32 && VALUE_TYPE(right) == VAL_I32) {
             if (AS_I32(right) == 0) {
                 DEBUG_CONSTANTFOLD_PRINT("⚠️ Division by zero detected\n");
                 return false;
@@ -588,13 +583,13 @@ bool evaluate_binary_operation(Value left, const char* op, Value right, Value* o
             *out_result = I32_VAL(AS_I32(left) / AS_I32(right));
             return true;
         }
-        if (left.type == VAL_F64 && right.type == VAL_F64) {
+        if (VALUE_TYPE(left) == VAL_F64 && VALUE_TYPE(right) == VAL_F64) {
             *out_result = F64_VAL(AS_F64(left) / AS_F64(right));
             return true;
         }
     }
     else if (strcmp(op, "%") == 0) {
-        if (left.type == VAL_I32 && right.type == VAL_I32) {
+        if (VALUE_TYPE(left) == VAL_I32 && VALUE_TYPE(right) == VAL_I32) {
             if (AS_I32(right) == 0) {
                 DEBUG_CONSTANTFOLD_PRINT("⚠️ Modulo by zero detected\n");
                 return false;
@@ -605,82 +600,82 @@ bool evaluate_binary_operation(Value left, const char* op, Value right, Value* o
     }
     // Logical operations
     else if (strcmp(op, "and") == 0) {
-        if (left.type == VAL_BOOL && right.type == VAL_BOOL) {
+        if (VALUE_TYPE(left) == VAL_BOOL && VALUE_TYPE(right) == VAL_BOOL) {
             *out_result = BOOL_VAL(AS_BOOL(left) && AS_BOOL(right));
             return true;
         }
     }
     else if (strcmp(op, "or") == 0) {
-        if (left.type == VAL_BOOL && right.type == VAL_BOOL) {
+        if (VALUE_TYPE(left) == VAL_BOOL && VALUE_TYPE(right) == VAL_BOOL) {
             *out_result = BOOL_VAL(AS_BOOL(left) || AS_BOOL(right));
             return true;
         }
     }
     // Comparison operations
     else if (strcmp(op, "==") == 0) {
-        if (left.type == VAL_BOOL && right.type == VAL_BOOL) {
+        if (VALUE_TYPE(left) == VAL_BOOL && VALUE_TYPE(right) == VAL_BOOL) {
             *out_result = BOOL_VAL(AS_BOOL(left) == AS_BOOL(right));
             return true;
         }
-        if (left.type == VAL_I32 && right.type == VAL_I32) {
+        if (VALUE_TYPE(left) == VAL_I32 && VALUE_TYPE(right) == VAL_I32) {
             *out_result = BOOL_VAL(AS_I32(left) == AS_I32(right));
             return true;
         }
-        if (left.type == VAL_F64 && right.type == VAL_F64) {
+        if (VALUE_TYPE(left) == VAL_F64 && VALUE_TYPE(right) == VAL_F64) {
             *out_result = BOOL_VAL(AS_F64(left) == AS_F64(right));
             return true;
         }
     }
     else if (strcmp(op, "!=") == 0) {
-        if (left.type == VAL_BOOL && right.type == VAL_BOOL) {
+        if (VALUE_TYPE(left) == VAL_BOOL && VALUE_TYPE(right) == VAL_BOOL) {
             *out_result = BOOL_VAL(AS_BOOL(left) != AS_BOOL(right));
             return true;
         }
-        if (left.type == VAL_I32 && right.type == VAL_I32) {
+        if (VALUE_TYPE(left) == VAL_I32 && VALUE_TYPE(right) == VAL_I32) {
             *out_result = BOOL_VAL(AS_I32(left) != AS_I32(right));
             return true;
         }
-        if (left.type == VAL_F64 && right.type == VAL_F64) {
+        if (VALUE_TYPE(left) == VAL_F64 && VALUE_TYPE(right) == VAL_F64) {
             *out_result = BOOL_VAL(AS_F64(left) != AS_F64(right));
             return true;
         }
     }
     else if (strcmp(op, "<") == 0) {
-        if (left.type == VAL_I32 && right.type == VAL_I32) {
+        if (VALUE_TYPE(left) == VAL_I32 && VALUE_TYPE(right) == VAL_I32) {
             *out_result = BOOL_VAL(AS_I32(left) < AS_I32(right));
             return true;
         }
-        if (left.type == VAL_F64 && right.type == VAL_F64) {
+        if (VALUE_TYPE(left) == VAL_F64 && VALUE_TYPE(right) == VAL_F64) {
             *out_result = BOOL_VAL(AS_F64(left) < AS_F64(right));
             return true;
         }
     }
     else if (strcmp(op, ">") == 0) {
-        if (left.type == VAL_I32 && right.type == VAL_I32) {
+        if (VALUE_TYPE(left) == VAL_I32 && VALUE_TYPE(right) == VAL_I32) {
             *out_result = BOOL_VAL(AS_I32(left) > AS_I32(right));
             return true;
         }
-        if (left.type == VAL_F64 && right.type == VAL_F64) {
+        if (VALUE_TYPE(left) == VAL_F64 && VALUE_TYPE(right) == VAL_F64) {
             *out_result = BOOL_VAL(AS_F64(left) > AS_F64(right));
             return true;
         }
     }
     else if (strcmp(op, "<=") == 0) {
-        if (left.type == VAL_I32 && right.type == VAL_I32) {
+        if (VALUE_TYPE(left) == VAL_I32 && VALUE_TYPE(right) == VAL_I32) {
             *out_result = BOOL_VAL(AS_I32(left) <= AS_I32(right));
             return true;
         }
-        if (left.type == VAL_F64 && right.type == VAL_F64) {
+        if (VALUE_TYPE(left) == VAL_F64 && VALUE_TYPE(right) == VAL_F64) {
             *out_result = BOOL_VAL(AS_F64(left) <= AS_F64(right));
             return true;
         }
     }
     else if (strcmp(op, ">=") == 0) {
-        if (left.type == VAL_I32 && right.type == VAL_I32) {
+        if (VALUE_TYPE(left) == VAL_I32 && VALUE_TYPE(right) == VAL_I32) {
             *out_result = BOOL_VAL(AS_I32(left) >= AS_I32(right));
             return true;
         }
-        if (left.type == VAL_F64 && right.type == VAL_F64) {
+        if (VALUE_TYPE(left) == VAL_F64 && VALUE_TYPE(right) == VAL_F64) {
             *out_result = BOOL_VAL(AS_F64(left) >= AS_F64(right));
             return true;
         }
@@ -691,7 +686,7 @@ bool evaluate_binary_operation(Value left, const char* op, Value right, Value* o
 }
 
 bool has_overflow(Value left, const char* op, Value right) {
-    if (left.type != VAL_I32 || right.type != VAL_I32) {
+    if (VALUE_TYPE(left) != VAL_I32 || VALUE_TYPE(right) != VAL_I32) {
         return false; // Only check overflow for i32
     }
     
@@ -45,24 +45,24 @@ static bool ast_literal_to_double(const ASTNode* node, double* out_value) {
     }
 
     const Value* value = &node->literal.value;
-    switch (value->type) {
+    switch (VALUE_TYPE(*value)) {
         case VAL_I32:
-            *out_value = (double)value->as.i32;
+            *out_value = (double)AS_I32(*value);
             return true;
         case VAL_I64:
-            *out_value = (double)value->as.i64;
+            *out_value = (double)AS_I64(*value);
             return true;
         case VAL_U32:
-            *out_value = (double)value->as.u32;
+            *out_value = (double)AS_U32(*value);
             return true;
         case VAL_U64:
-            *out_value = (double)value->as.u64;
+            *out_value = (double)AS_U64(*value);
             return true;
         case VAL_F64:
-            *out_value = value->as.f64;
+            *out_value = AS_F64(*value);
             return true;
         case VAL_NUMBER:
-            *out_value = value->as.number;
+            *out_value = AS_F64(*value);
             return true;
         default:
             break;
@@ -29,6 +29,11 @@ typedef struct MultiPassRegisterAllocator {
 
     int temp_stack[TEMP_REGISTERS];
     int temp_stack_top;
+
+    // Slots touched since the current function frame began; they size the
+    // function's window on the runtime register stack.
+    int frame_high_water;
+    int temp_high_water;
 } MultiPassRegisterAllocator;
 
 typedef struct RegisterBank {
@@ -108,6 +113,20 @@ static const RegisterBankDefinition REGISTER_BANK_DEFINITIONS[REG_BANK_COUNT] =
 
 // Forward declarations for internal helpers used before their definitions.
 static void mp_free_temp_register(MultiPassRegisterAllocator* allocator, int reg);
+
+static inline void mp_note_frame_register(MultiPassRegisterAllocator* allocator, int reg) {
+    int slots = reg - MP_FRAME_REG_START + 1;
+    if (slots > allocator->frame_high_water) {
+        allocator->frame_high_water = slots;
+    }
+}
+
+static inline void mp_note_temp_register(MultiPassRegisterAllocator* allocator, int reg) {
+    int slots = reg - MP_TEMP_REG_START + 1;
+    if (slots > allocator->temp_high_water) {
+        allocator->temp_high_water = slots;
+    }
+}
 static bool mp_has_typed_residency_hint(const MultiPassRegisterAllocator* allocator, int reg);
 static RegisterAllocation* allocate_standard_register(DualRegisterAllocator* allocator,
                                                       RegisterType type,
@@ -246,6 +265,9 @@ MultiPassRegisterAllocator* init_mp_register_allocator(void) {
     
     // Initialize temp stack for register reuse
     allocator->temp_stack_top = -1;
+
+    allocator->frame_high_water = 0;
+    allocator->temp_high_water = 0;
     
     return allocator;
 }
@@ -289,11 +311,13 @@ bool mp_reserve_global_register(MultiPassRegisterAllocator* allocator, int reg)
 int mp_allocate_frame_register(MultiPassRegisterAllocator* allocator) {
     if (!allocator) return -1;
     
-    // Find next free frame register starting from R64 (MP_FRAME_REG_START)
-    // Parameter registers occupy the upper range (R240-R255), so we start at 64 for locals
+    // Find next free frame register starting from R64 (MP_FRAME_REG_START).
+    // Parameters are reserved at the bottom of the window when a function
+    // frame begins, so locals pack directly above them.
     for (int i = 0; i < FRAME_REGISTERS; i++) {  // Frame register window
         if (!allocator->frame_regs[i]) {
             allocator->frame_regs[i] = true;
+            mp_note_frame_register(allocator, MP_FRAME_REG_START + i);
             return MP_FRAME_REG_START + i;  // R64 + i
         }
     }
@@ -327,6 +351,7 @@ int mp_allocate_temp_register(MultiPassRegisterAllocator* allocator) {
         if (!allocator->temp_regs[i]) {
             allocator->temp_regs[i] = true;
             int reg = MP_TEMP_REG_START + i;
+            mp_note_temp_register(allocator, reg);
             REGISTER_ALLOCATOR_LOG("[REGISTER_ALLOCATOR] Allocated temp register R%d (sequential allocation)\n", reg);
             return reg;
         }
@@ -335,6 +360,7 @@ int mp_allocate_temp_register(MultiPassRegisterAllocator* allocator) {
     // If no sequential register available, try to reuse from stack
     if (allocator->temp_stack_top >= 0) {
         int reused_reg = allocator->temp_stack[allocator->temp_stack_top--];
+        mp_note_temp_register(allocator, reused_reg);
         REGISTER_ALLOCATOR_LOG("[REGISTER_ALLOCATOR] Reusing temp register R%d (from stack)\n", reused_reg);
         return reused_reg;
     }
@@ -364,6 +390,7 @@ int mp_allocate_consecutive_temp_registers(MultiPassRegisterAllocator* allocator
                 allocator->temp_regs[start + offset] = true;
             }
             int reg = MP_TEMP_REG_START + start;
+            mp_note_temp_register(allocator, reg + count - 1);
             REGISTER_ALLOCATOR_LOG("[REGISTER_ALLOCATOR] Allocated consecutive temp registers R%d-R%d\n",
                    reg, reg + count - 1);
             return reg;
@@ -408,6 +435,7 @@ int mp_allocate_scoped_temp_register(MultiPassRegisterAllocator* allocator, int
         if (!allocator->scope_temp_regs[scope_level][i]) {
             allocator->scope_temp_regs[scope_level][i] = true;
             int reg = base_reg + i;
+            mp_note_temp_register(allocator, reg);
             REGISTER_ALLOCATOR_LOG("[REGISTER_ALLOCATOR] Allocated scoped temp register R%d (scope level %d, slot %d)\n", 
                    reg, scope_level, i);
             return reg;
@@ -1150,6 +1178,41 @@ void compiler_reset_frame_registers(DualRegisterAllocator* allocator) {
     mp_reset_frame_registers(allocator->legacy_allocator);
 }
 
+void compiler_begin_function_frame(DualRegisterAllocator* allocator, int arity,
+                                   CompilerFrameState* saved) {
+    if (!allocator || !saved) return;
+    MultiPassRegisterAllocator* legacy = allocator->legacy_allocator;
+
+    memcpy(saved->frame_regs, legacy->frame_regs, sizeof(saved->frame_regs));
+    saved->frame_high_water = legacy->frame_high_water;
+    saved->temp_high_water = legacy->temp_high_water;
+
+    mp_reset_frame_registers(legacy);
+    legacy->frame_high_water = 0;
+    legacy->temp_high_water = 0;
+
+    int param_base = calculateParameterBaseRegister(arity) - MP_FRAME_REG_START;
+    for (int i = 0; i < arity && param_base + i < FRAME_REGISTERS; i++) {
+        legacy->frame_regs[param_base + i] = true;
+        mp_note_frame_register(legacy, MP_FRAME_REG_START + param_base + i);
+    }
+}
+
+FrameWindowLayout compiler_end_function_frame(DualRegisterAllocator* allocator,
+                                              const CompilerFrameState* saved) {
+    FrameWindowLayout layout = {FRAME_REGISTERS, TEMP_REGISTERS};
+    if (!allocator || !saved) return layout;
+    MultiPassRegisterAllocator* legacy = allocator->legacy_allocator;
+
+    layout.frame_registers = (uint16_t)legacy->frame_high_water;
+    layout.temp_registers = (uint16_t)legacy->temp_high_water;
+
+    memcpy(legacy->frame_regs, saved->frame_regs, sizeof(legacy->frame_regs));
+    legacy->frame_high_water = saved->frame_high_water;
+    legacy->temp_high_water = saved->temp_high_water;
+    return layout;
+}
+
 bool compiler_is_register_free(DualRegisterAllocator* allocator, int reg) {
     if (!allocator) return false;
     return mp_is_register_free(allocator->legacy_allocator, reg);
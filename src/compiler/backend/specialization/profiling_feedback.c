@@ -5,6 +5,7 @@
 #include "internal/strutil.h"
 #include "vm/vm.h"
 #include "vm/vm_profiling.h"
+#include "vm/vm_superinstructions.h"
 #include <stdlib.h>
 #include <string.h>
 #include <stdio.h>
@@ -507,7 +508,7 @@ static void collect_transforms(const BytecodeBuffer* baseline,
 
     int offset = 0;
     while (offset < baseline->count) {
-        uint8_t opcode = baseline->instructions[offset];
+        uint8_t opcode = vm_superinstruction_base_opcode(baseline->instructions[offset]);
         uint8_t typed_opcode = 0;
         GuardKind guard_kind = guard_kind_for_opcode(opcode);
         bool can_specialize = map_typed_opcode(opcode, &typed_opcode);
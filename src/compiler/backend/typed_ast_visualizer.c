@@ -215,30 +215,30 @@ static void print_indent(int depth, bool is_last, const VisualizerConfig* config
 static const char* get_literal_value_string(Value* value, char* buffer, size_t buffer_size) {
     if (!value || !buffer) return "null";
     
-    switch (value->type) {
+    switch (VALUE_TYPE(*value)) {
         case VAL_BOOL:
-            snprintf(buffer, buffer_size, "%s", value->as.boolean ? "true" : "false");
+            snprintf(buffer, buffer_size, "%s", AS_BOOL(*value) ? "true" : "false");
             break;
         case VAL_I32:
-            snprintf(buffer, buffer_size, "%d", value->as.i32);
+            snprintf(buffer, buffer_size, "%d", AS_I32(*value));
             break;
         case VAL_I64:
-            snprintf(buffer, buffer_size, "%lld", (long long)value->as.i64);
+            snprintf(buffer, buffer_size, "%lld", (long long)AS_I64(*value));
             break;
         case VAL_U32:
-            snprintf(buffer, buffer_size, "%u", value->as.u32);
+            snprintf(buffer, buffer_size, "%u", AS_U32(*value));
             break;
         case VAL_U64:
-            snprintf(buffer, buffer_size, "%llu", (unsigned long long)value->as.u64);
+            snprintf(buffer, buffer_size, "%llu", (unsigned long long)AS_U64(*value));
             break;
         case VAL_F64:
-            snprintf(buffer, buffer_size, "%.6g", value->as.f64);
+            snprintf(buffer, buffer_size, "%.6g", AS_F64(*value));
             break;
         case VAL_NUMBER:
-            snprintf(buffer, buffer_size, "%.6g", value->as.number);
+            snprintf(buffer, buffer_size, "%.6g", AS_F64(*value));
             break;
         case VAL_STRING: {
-            if (value->as.obj && IS_STRING(*value)) {
+            if (AS_OBJ(*value) && IS_STRING(*value)) {
                 ObjString* str = AS_STRING(*value);
                 const char* chars = string_get_chars(str);
                 if (!chars) {
@@ -685,7 +685,7 @@ static void addMatchCase(ParserContext* ctx, MatchCaseInfo** list, int* count, i
 }
 
 static bool parser_literal_is_numeric(Value value) {
-    switch (value.type) {
+    switch (VALUE_TYPE(value)) {
         case VAL_I32:
         case VAL_I64:
         case VAL_U32:
@@ -699,7 +699,7 @@ static bool parser_literal_is_numeric(Value value) {
 }
 
 static long double parser_literal_to_long_double(Value value) {
-    switch (value.type) {
+    switch (VALUE_TYPE(value)) {
         case VAL_I32:
             return (long double)AS_I32(value);
         case VAL_I64:
@@ -711,15 +711,15 @@ static long double parser_literal_to_long_double(Value value) {
         case VAL_F64:
             return (long double)AS_F64(value);
         case VAL_NUMBER:
-            return (long double)value.as.number;
+            return (long double)AS_F64(value);
         default:
             return 0.0L;
     }
 }
 
 static bool parser_match_literals_equal(Value a, Value b) {
-    if (a.type == b.type) {
-        switch (a.type) {
+    if (VALUE_TYPE(a) == VALUE_TYPE(b)) {
+        switch (VALUE_TYPE(a)) {
             case VAL_BOOL:
                 return AS_BOOL(a) == AS_BOOL(b);
             case VAL_I32:
@@ -733,7 +733,7 @@ static bool parser_match_literals_equal(Value a, Value b) {
             case VAL_F64:
                 return AS_F64(a) == AS_F64(b);
             case VAL_NUMBER:
-                return a.as.number == b.as.number;
+                return AS_F64(a) == AS_F64(b);
             case VAL_STRING: {
                 ObjString* left = AS_STRING(a);
                 ObjString* right = AS_STRING(b);
@@ -761,7 +761,7 @@ static void parser_format_match_literal(Value value, char* buffer, size_t size)
         return;
     }
 
-    switch (value.type) {
+    switch (VALUE_TYPE(value)) {
         case VAL_BOOL:
             snprintf(buffer, size, "%s", AS_BOOL(value) ? "true" : "false");
             break;
@@ -780,7 +780,7 @@ static void parser_format_match_literal(Value value, char* buffer, size_t size)
         case VAL_F64:
         case VAL_NUMBER:
             snprintf(buffer, size, "%g",
-                     value.type == VAL_NUMBER ? value.as.number : AS_F64(value));
+                     VALUE_TYPE(value) == VAL_NUMBER ? AS_F64(value) : AS_F64(value));
             break;
         case VAL_STRING: {
             ObjString* str = AS_STRING(value);
@@ -1815,7 +1815,7 @@ static ASTNode* parseVariableDeclaration(ParserContext* ctx, bool isMutable, boo
     // Suffix redundancy checks removed - type inference handles all type conflicts
     if (typeNode && initializer->type == NODE_LITERAL) {
         const char* declaredType = typeNode->typeAnnotation.name;
-        ValueType literalType = initializer->literal.value.type;
+        ValueType literalType = VALUE_TYPE(initializer->literal.value);
         
         // Check for type mismatches (without suffix logic)
         {
@@ -1837,55 +1837,49 @@ static ASTNode* parseVariableDeclaration(ParserContext* ctx, bool isMutable, boo
             // Allow compatible type conversions when annotation overrides
             else if (strcmp(declaredType, "u32") == 0 && literalType == VAL_I32) {
                 // Allow i32 -> u32 conversion if value is non-negative
-                int32_t value = initializer->literal.value.as.i32;
+                int32_t value = AS_I32(initializer->literal.value);
                 if (value >= 0) {
                     mismatch = false;
                     // Convert the literal to u32 type
-                    initializer->literal.value.type = VAL_U32;
-                    initializer->literal.value.as.u32 = (uint32_t)value;
+                    initializer->literal.value = U32_VAL((uint32_t)value);
                 }
             }
             else if (strcmp(declaredType, "u32") == 0 && literalType == VAL_I64) {
-                int64_t value = initializer->literal.value.as.i64;
+                int64_t value = AS_I64(initializer->literal.value);
                 if (value >= 0 && value <= (int64_t)UINT32_MAX) {
                     mismatch = false;
-                    initializer->literal.value.type = VAL_U32;
-                    initializer->literal.value.as.u32 = (uint32_t)value;
+                    initializer->literal.value = U32_VAL((uint32_t)value);
                 }
             }
             else if (strcmp(declaredType, "u64") == 0 && literalType == VAL_I32) {
                 // Allow i32 -> u64 conversion if value is non-negative
-                int32_t value = initializer->literal.value.as.i32;
+                int32_t value = AS_I32(initializer->literal.value);
                 if (value >= 0) {
                     mismatch = false;
                     // Convert the literal to u64 type
-                    initializer->literal.value.type = VAL_U64;
-                    initializer->literal.value.as.u64 = (uint64_t)value;
+                    initializer->literal.value = U64_VAL((uint64_t)value);
                 }
             }
             else if (strcmp(declaredType, "u64") == 0 && literalType == VAL_I64) {
-                int64_t value = initializer->literal.value.as.i64;
+                int64_t value = AS_I64(initializer->literal.value);
                 if (value >= 0) {
                     mismatch = false;
-                    initializer->literal.value.type = VAL_U64;
-                    initializer->literal.value.as.u64 = (uint64_t)value;
+                    initializer->literal.value = U64_VAL((uint64_t)value);
                 }
             }
             else if (strcmp(declaredType, "i64") == 0 && literalType == VAL_I32) {
                 // Allow i32 -> i64 conversion always
-                int32_t value = initializer->literal.value.as.i32;
+                int32_t value = AS_I32(initializer->literal.value);
                 mismatch = false;
                 // Convert the literal to i64 type
-                initializer->literal.value.type = VAL_I64;
-                initializer->literal.value.as.i64 = (int64_t)value;
+                initializer->literal.value = I64_VAL((int64_t)value);
             }
             else if (strcmp(declaredType, "f64") == 0 && literalType == VAL_I32) {
                 // Allow i32 -> f64 conversion
-                int32_t value = initializer->literal.value.as.i32;
+                int32_t value = AS_I32(initializer->literal.value);
                 mismatch = false;
                 // Convert the literal to f64 type
-                initializer->literal.value.type = VAL_F64;
-                initializer->literal.value.as.f64 = (double)value;
+                initializer->literal.value = F64_VAL((double)value);
             }
 
 
@@ -2055,8 +2049,7 @@ static ASTNode* parseDestructuringAssignment(ParserContext* ctx, Token firstToke
 
         ASTNode* indexLiteral = new_node(ctx);
         indexLiteral->type = NODE_LITERAL;
-        indexLiteral->literal.value.type = VAL_I32;
-        indexLiteral->literal.value.as.i32 = i;
+        indexLiteral->literal.value = I32_VAL(i);
         indexLiteral->literal.hasExplicitSuffix = false;
         indexLiteral->location = nameLocations[i];
         indexLiteral->dataType = NULL;
@@ -3398,11 +3391,11 @@ static ASTNode* parseNumberLiteral(ParserContext* ctx, Token token) {
 
         if (token_text_equals(&suffix, "i32")) {
             int64_t value = 0;
-            if (converted.type == VAL_I32) {
+            if (VALUE_TYPE(converted) == VAL_I32) {
                 value = AS_I32(converted);
-            } else if (converted.type == VAL_I64) {
+            } else if (VALUE_TYPE(converted) == VAL_I64) {
                 value = AS_I64(converted);
-            } else if (converted.type == VAL_F64) {
+            } else if (VALUE_TYPE(converted) == VAL_F64) {
                 double d = AS_F64(converted);
                 if (d < (double)INT32_MIN || d > (double)INT32_MAX ||
                     (double)(int32_t)d != d) {
@@ -3423,11 +3416,11 @@ static ASTNode* parseNumberLiteral(ParserContext* ctx, Token token) {
             }
         } else if (token_text_equals(&suffix, "i64")) {
             int64_t value = 0;
-            if (converted.type == VAL_I32) {
+            if (VALUE_TYPE(converted) == VAL_I32) {
                 value = AS_I32(converted);
-            } else if (converted.type == VAL_I64) {
+            } else if (VALUE_TYPE(converted) == VAL_I64) {
                 value = AS_I64(converted);
-            } else if (converted.type == VAL_F64) {
+            } else if (VALUE_TYPE(converted) == VAL_F64) {
                 double d = AS_F64(converted);
                 double truncated = (double)(int64_t)d;
                 if (truncated != d) {
@@ -3444,21 +3437,21 @@ static ASTNode* parseNumberLiteral(ParserContext* ctx, Token token) {
             }
         } else if (token_text_equals(&suffix, "u32")) {
             uint64_t value = 0;
-            if (converted.type == VAL_I32) {
+            if (VALUE_TYPE(converted) == VAL_I32) {
                 int32_t v = AS_I32(converted);
                 if (v < 0) {
                     conversion_ok = false;
                 } else {
                     value = (uint32_t)v;
                 }
-            } else if (converted.type == VAL_I64) {
+            } else if (VALUE_TYPE(converted) == VAL_I64) {
                 int64_t v = AS_I64(converted);
                 if (v < 0 || v > (int64_t)UINT32_MAX) {
                     conversion_ok = false;
                 } else {
                     value = (uint32_t)v;
                 }
-            } else if (converted.type == VAL_F64) {
+            } else if (VALUE_TYPE(converted) == VAL_F64) {
                 double d = AS_F64(converted);
                 if (d < 0.0 || d > (double)UINT32_MAX ||
                     (double)(uint32_t)d != d) {
@@ -3475,21 +3468,21 @@ static ASTNode* parseNumberLiteral(ParserContext* ctx, Token token) {
             }
         } else if (token_text_equals(&suffix, "u64")) {
             uint64_t value = 0;
-            if (converted.type == VAL_I32) {
+            if (VALUE_TYPE(converted) == VAL_I32) {
                 int32_t v = AS_I32(converted);
                 if (v < 0) {
                     conversion_ok = false;
                 } else {
                     value = (uint64_t)v;
                 }
-            } else if (converted.type == VAL_I64) {
+            } else if (VALUE_TYPE(converted) == VAL_I64) {
                 int64_t v = AS_I64(converted);
                 if (v < 0) {
                     conversion_ok = false;
                 } else {
                     value = (uint64_t)v;
                 }
-            } else if (converted.type == VAL_F64) {
+            } else if (VALUE_TYPE(converted) == VAL_F64) {
                 double d = AS_F64(converted);
                 if (d < 0.0 || d > (double)UINT64_MAX) {
                     conversion_ok = false;
@@ -3509,11 +3502,11 @@ static ASTNode* parseNumberLiteral(ParserContext* ctx, Token token) {
                 converted = U64_VAL(value);
             }
         } else if (token_text_equals(&suffix, "f64")) {
-            if (converted.type == VAL_F64) {
+            if (VALUE_TYPE(converted) == VAL_F64) {
                 // Already floating point
-            } else if (converted.type == VAL_I32) {
+            } else if (VALUE_TYPE(converted) == VAL_I32) {
                 converted = F64_VAL((double)AS_I32(converted));
-            } else if (converted.type == VAL_I64) {
+            } else if (VALUE_TYPE(converted) == VAL_I64) {
                 converted = F64_VAL((double)AS_I64(converted));
             } else {
                 conversion_ok = false;
@@ -3707,7 +3700,7 @@ static bool is_valid_fill_length_node(const ASTNode* node) {
 
     if (node->type == NODE_LITERAL) {
         Value value = node->literal.value;
-        switch (value.type) {
+        switch (VALUE_TYPE(value)) {
             case VAL_I32:
             case VAL_I64:
             case VAL_U32:
@@ -4605,6 +4598,7 @@ static ASTNode* parseIndexExpression(ParserContext* ctx, ASTNode* arrayExpr, Tok
         indexNode->arraySlice.array = arrayExpr;
         indexNode->arraySlice.start = firstExpr;
         indexNode->arraySlice.end = endExpr;
+        indexNode->arraySlice.isStringSlice = false;
     } else {
         if (!firstExpr) {
             return NULL;
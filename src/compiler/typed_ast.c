@@ -253,6 +253,7 @@ TypedASTNode* create_typed_ast_node(ASTNode* original) {
             typed->typed.arraySlice.array = NULL;
             typed->typed.arraySlice.start = NULL;
             typed->typed.arraySlice.end = NULL;
+            typed->typed.arraySlice.isStringSlice = original->arraySlice.isStringSlice;
             break;
         case NODE_STRUCT_DECL:
             typed->typed.structDecl.name = original->structDecl.name;
@@ -70,12 +70,15 @@ void config_reset_to_defaults(OrusConfig* config) {
     config->register_count = DEFAULT_REGISTER_COUNT;
     config->stack_size = DEFAULT_STACK_SIZE;
     config->heap_size = DEFAULT_HEAP_SIZE;
+    config->register_cache = false;
     
     // GC Configuration
     config->gc_enabled = true;
     config->gc_threshold = DEFAULT_GC_THRESHOLD;
     config->gc_frequency = DEFAULT_GC_FREQUENCY;
     config->gc_strategy = DEFAULT_GC_STRATEGY;
+    config->gc_pause_us = DEFAULT_GC_PAUSE_US;
+    config->gc_threads = DEFAULT_GC_THREADS;
     
     // Parser Configuration
     config->parser_max_depth = DEFAULT_PARSER_MAX_DEPTH;
@@ -97,7 +100,9 @@ void config_reset_to_defaults(OrusConfig* config) {
     config->benchmark_mode = false;
     config->jit_benchmark_mode = false;
     config->enable_jit = false;
+    config->jit_background = true;
     config->jit_rollout_stage = -1;
+    config->cache_path = NULL;
     
     // Debug System Configuration
     config->debug_categories = NULL;      // No debug categories by default
@@ -129,6 +134,7 @@ void config_reset_to_defaults(OrusConfig* config) {
     config->profile_registers = false;
     config->profile_memory_access = false;
     config->profile_branches = false;
+    config->profile_opcode_pairs = false;
     config->profile_functions = false;
     config->profile_output = NULL;
 }
@@ -160,6 +166,11 @@ bool config_load_from_env(OrusConfig* config) {
                         strcasecmp(env_val, "true") == 0);
     }
 
+    if ((env_val = getenv(ORUS_REGISTER_CACHE))) {
+        config->register_cache = (strcmp(env_val, "1") == 0 ||
+                                  strcasecmp(env_val, "true") == 0);
+    }
+
     if ((env_val = getenv(ORUS_ENABLE_JIT))) {
         if (strcasecmp(env_val, "true") == 0 || strcmp(env_val, "1") == 0) {
             config->enable_jit = true;
@@ -168,6 +179,18 @@ bool config_load_from_env(OrusConfig* config) {
         }
     }
 
+    if ((env_val = getenv(ORUS_JIT_BACKGROUND))) {
+        if (strcasecmp(env_val, "true") == 0 || strcmp(env_val, "1") == 0) {
+            config->jit_background = true;
+        } else if (strcasecmp(env_val, "false") == 0 || strcmp(env_val, "0") == 0) {
+            config->jit_background = false;
+        }
+    }
+
+    if ((env_val = getenv(ORUS_CACHE_PATH)) && env_val[0] != '\0') {
+        config->cache_path = env_val;
+    }
+
     if ((env_val = getenv(ORUS_JIT_ROLLOUT_STAGE))) {
         OrusJitRolloutStage stage;
         if (orus_jit_rollout_stage_parse(env_val, &stage)) {
@@ -211,6 +234,16 @@ bool config_load_from_env(OrusConfig* config) {
             config->gc_strategy = env_val;
         }
     }
+
+    if ((env_val = getenv(ORUS_GC_PAUSE_US))) {
+        int val = atoi(env_val);
+        if (val >= 0) config->gc_pause_us = (uint32_t)val;
+    }
+
+    if ((env_val = getenv(ORUS_GC_THREADS))) {
+        int val = atoi(env_val);
+        if (val >= 0) config->gc_threads = (uint32_t)val;
+    }
     
     if ((env_val = getenv(ORUS_ERROR_FORMAT))) {
         if (strcmp(env_val, "friendly") == 0 || strcmp(env_val, "json") == 0 || 
@@ -305,6 +338,10 @@ bool config_parse_args(OrusConfig* config, int argc, const char* argv[]) {
             config->enable_jit = true;
         } else if (strcmp(arg, "--disable-jit") == 0) {
             config->enable_jit = false;
+        } else if (strcmp(arg, "--jit-sync") == 0) {
+            config->jit_background = false;
+        } else if (strncmp(arg, "--cache-path=", 13) == 0) {
+            config->cache_path = arg[13] != '\0' ? arg + 13 : NULL;
         } else if (strncmp(arg, "--jit-rollout-stage=", 20) == 0) {
             const char* stage_text = arg + 20;
             OrusJitRolloutStage stage;
@@ -341,6 +378,9 @@ bool config_parse_args(OrusConfig* config, int argc, const char* argv[]) {
         } else if (strcmp(arg, "--profile-branches") == 0) {
             config->vm_profiling_enabled = true;
             config->profile_branches = true;
+        } else if (strcmp(arg, "--profile-opcode-pairs") == 0) {
+            config->vm_profiling_enabled = true;
+            config->profile_opcode_pairs = true;
         } else if (strncmp(arg, "--profile-output=", 17) == 0) {
             config->profile_output = arg + 17;
         }
@@ -356,6 +396,8 @@ bool config_parse_args(OrusConfig* config, int argc, const char* argv[]) {
             config->stack_size = parse_size_string(arg + 13);
         } else if (strncmp(arg, "--heap-size=", 12) == 0) {
             config->heap_size = parse_size_string(arg + 12);
+        } else if (strcmp(arg, "--register-cache") == 0) {
+            config->register_cache = true;
         }
         
         // GC configuration
@@ -368,6 +410,16 @@ bool config_parse_args(OrusConfig* config, int argc, const char* argv[]) {
             if (strcmp(strategy, "mark-sweep") == 0 || strcmp(strategy, "generational") == 0) {
                 config->gc_strategy = strategy;
             }
+        } else if (strncmp(arg, "--gc-pause-us=", 14) == 0) {
+            int pause = atoi(arg + 14);
+            if (pause >= 0) {
+                config->gc_pause_us = (uint32_t)pause;
+            }
+        } else if (strncmp(arg, "--gc-threads=", 13) == 0) {
+            int threads = atoi(arg + 13);
+            if (threads >= 0) {
+                config->gc_threads = (uint32_t)threads;
+            }
         }
         
         // Error reporting
@@ -553,16 +605,21 @@ void config_print_help(const char* program_name) {
     printf("  --jit-benchmark         Run the Phase 4 JIT benchmark harness\n");
     printf("  --enable-jit            Enable the experimental baseline JIT\n");
     printf("  --disable-jit           Disable the baseline JIT (default)\n");
+    printf("  --jit-sync              Compile hot loops on the interpreter thread\n");
+    printf("  --cache-path=DIR        Keep translated JIT programs in DIR across runs\n");
     printf("  --jit-rollout-stage=LVL Set baseline JIT rollout stage (i32, wide-int, floats, strings)\n");
     printf("\nVM Configuration:\n");
     printf("  --max-recursion=N       Set maximum recursion depth (default: %d)\n", DEFAULT_MAX_RECURSION_DEPTH);
     printf("  --registers=N           Set number of VM registers (default: %d)\n", DEFAULT_REGISTER_COUNT);
     printf("  --stack-size=SIZE       Set stack size (default: 1MB)\n");
     printf("  --heap-size=SIZE        Set heap size (default: 8MB)\n");
+    printf("  --register-cache        Cache module and spilled register lookups\n");
     printf("\nGarbage Collection:\n");
     printf("  --gc-disable            Disable garbage collection\n");
     printf("  --gc-threshold=SIZE     Set GC trigger threshold (default: 1MB)\n");
     printf("  --gc-strategy=STRATEGY  Set GC strategy: mark-sweep, generational\n");
+    printf("  --gc-pause-us=N         Collect incrementally in slices of about N microseconds (0: stop-the-world)\n");
+    printf("  --gc-threads=N          Mark large heaps with N threads (default: 0, one per core)\n");
     printf("\nError Reporting:\n");
     printf("  --error-format=FORMAT   Set error format: friendly, json, minimal\n");
     printf("  --no-colors             Disable colored error output\n");
@@ -575,6 +632,7 @@ void config_print_help(const char* program_name) {
     printf("  --profile-registers     Profile register allocation patterns\n");
     printf("  --profile-memory        Profile memory access patterns\n");
     printf("  --profile-branches      Profile branch prediction accuracy\n");
+    printf("  --profile-opcode-pairs  Count fall-through opcode pairs (superinstruction input)\n");
     printf("  --profile-output=FILE   Export profiling data to file\n");
     printf("\nOptimization:\n");
     printf("  -O0, -O1, -O2           Set optimization level (default: 1)\n");
@@ -601,8 +659,9 @@ void config_print_help(const char* program_name) {
     printf("\nIf no file is provided, starts interactive REPL mode.\n");
     printf("\nEnvironment Variables:\n");
     printf("  ORUS_TRACE, ORUS_DEBUG, ORUS_VERBOSE, ORUS_QUIET\n");
-    printf("  ORUS_MAX_RECURSION, ORUS_REGISTER_COUNT, ORUS_STACK_SIZE\n");
-    printf("  ORUS_GC_ENABLED, ORUS_GC_THRESHOLD, ORUS_GC_STRATEGY\n");
+    printf("  ORUS_MAX_RECURSION, ORUS_REGISTER_COUNT, ORUS_STACK_SIZE, ORUS_REGISTER_CACHE\n");
+    printf("  ORUS_GC_ENABLED, ORUS_GC_THRESHOLD, ORUS_GC_STRATEGY, ORUS_GC_PAUSE_US,\n");
+    printf("  ORUS_GC_THREADS\n");
     printf("  ORUS_ERROR_FORMAT, ORUS_ERROR_COLORS, ORUS_OPTIMIZATION_LEVEL\n");
     printf("  ORUS_DEBUG, ORUS_DEBUG_COLORS, ORUS_DEBUG_TIMESTAMPS\n");
 }
@@ -714,17 +773,23 @@ void config_print_current(const OrusConfig* config) {
     printf("  Quiet: %s\n", config->quiet ? "enabled" : "disabled");
     printf("  REPL Mode: %s\n", config->repl_mode ? "enabled" : "disabled");
     printf("  Baseline JIT: %s\n", config->enable_jit ? "enabled" : "disabled");
+    printf("  JIT Compilation: %s\n", config->jit_background ? "background thread" : "synchronous");
+    printf("  JIT Cache Path: %s\n", config->cache_path ? config->cache_path : "none");
     
     printf("\nVM Configuration:\n");
     printf("  Max Recursion Depth: %u\n", config->max_recursion_depth);
     printf("  Register Count: %u\n", config->register_count);
     printf("  Stack Size: %u bytes (%.1f MB)\n", config->stack_size, config->stack_size / (1024.0 * 1024.0));
     printf("  Heap Size: %u bytes (%.1f MB)\n", config->heap_size, config->heap_size / (1024.0 * 1024.0));
+    printf("  Register Cache: %s\n", config->register_cache ? "enabled" : "disabled");
     
     printf("\nGarbage Collection:\n");
     printf("  GC Enabled: %s\n", config->gc_enabled ? "yes" : "no");
     printf("  GC Threshold: %u bytes (%.1f MB)\n", config->gc_threshold, config->gc_threshold / (1024.0 * 1024.0));
     printf("  GC Strategy: %s\n", config->gc_strategy);
+    printf("  GC Pause Target: %u us%s\n", config->gc_pause_us,
+           config->gc_pause_us == 0 ? " (stop-the-world)" : "");
+    printf("  GC Threads: %u%s\n", config->gc_threads, config->gc_threads == 0 ? " (one per core)" : "");
     
     printf("\nError Reporting:\n");
     printf("  Error Format: %s\n", config->error_format);
@@ -765,17 +830,21 @@ void config_save_to_file(const OrusConfig* config, const char* filename) {
     fprintf(file, "verbose = %s\n", config->verbose ? "true" : "false");
     fprintf(file, "quiet = %s\n", config->quiet ? "true" : "false");
     fprintf(file, "enable_jit = %s\n", config->enable_jit ? "true" : "false");
+    fprintf(file, "jit_background = %s\n", config->jit_background ? "true" : "false");
     
     fprintf(file, "\n[vm]\n");
     fprintf(file, "max_recursion_depth = %u\n", config->max_recursion_depth);
     fprintf(file, "register_count = %u\n", config->register_count);
     fprintf(file, "stack_size = %u\n", config->stack_size);
     fprintf(file, "heap_size = %u\n", config->heap_size);
+    fprintf(file, "register_cache = %s\n", config->register_cache ? "true" : "false");
     
     fprintf(file, "\n[gc]\n");
     fprintf(file, "gc_enabled = %s\n", config->gc_enabled ? "true" : "false");
     fprintf(file, "gc_threshold = %u\n", config->gc_threshold);
     fprintf(file, "gc_strategy = %s\n", config->gc_strategy);
+    fprintf(file, "gc_pause_us = %u\n", config->gc_pause_us);
+    fprintf(file, "gc_threads = %u\n", config->gc_threads);
     
     fprintf(file, "\n[errors]\n");
     fprintf(file, "error_format = %s\n", config->error_format);
@@ -853,6 +922,8 @@ bool config_load_from_file(OrusConfig* config, const char* filename) {
                 config->quiet = (strcmp(value, "true") == 0);
             } else if (strcmp(key, "enable_jit") == 0) {
                 config->enable_jit = (strcmp(value, "true") == 0);
+            } else if (strcmp(key, "jit_background") == 0) {
+                config->jit_background = (strcmp(value, "true") == 0);
             }
         } else if (strcmp(section, "vm") == 0) {
             if (strcmp(key, "max_recursion_depth") == 0) {
@@ -863,12 +934,18 @@ bool config_load_from_file(OrusConfig* config, const char* filename) {
                 config->stack_size = atoi(value);
             } else if (strcmp(key, "heap_size") == 0) {
                 config->heap_size = atoi(value);
+            } else if (strcmp(key, "register_cache") == 0) {
+                config->register_cache = (strcmp(value, "true") == 0);
             }
         } else if (strcmp(section, "gc") == 0) {
             if (strcmp(key, "gc_enabled") == 0) {
                 config->gc_enabled = (strcmp(value, "true") == 0);
             } else if (strcmp(key, "gc_threshold") == 0) {
                 config->gc_threshold = atoi(value);
+            } else if (strcmp(key, "gc_pause_us") == 0) {
+                config->gc_pause_us = (uint32_t)atoi(value);
+            } else if (strcmp(key, "gc_threads") == 0) {
+                config->gc_threads = (uint32_t)atoi(value);
             }
             // Note: gc_strategy would need special handling for string storage
         } else if (strcmp(section, "optimization") == 0) {
@@ -10,6 +10,7 @@
 #include <string.h>
 
 #include "vm/vm.h"
+#include "runtime/memory.h"
 #include "vm/jit_backend.h"
 #include "vm/jit_translation.h"
 #include "vm/jit_debug.h"
@@ -24,6 +25,7 @@
 #include "public/version.h"
 #include "config/config.h"
 #include "vm/vm_profiling.h"
+#include "vm/register_file.h"
 #include "debug/debug_config.h"
 
 // Bytecode debugging function
@@ -551,6 +553,13 @@ int main(int argc, const char* argv[]) {
     // Apply configuration to VM
     vm.trace = config->trace_execution;
     vm.devMode = config->debug_mode;
+    gcGenerational = config->gc_strategy &&
+                     strcmp(config->gc_strategy, "generational") == 0;
+    gcPauseBudgetUs = config->gc_pause_us;
+    gcWorkerThreads = config->gc_threads;
+    if (config->register_cache) {
+        enable_register_caching(&vm.register_file);
+    }
     if (config->jit_rollout_stage >= 0 &&
         config->jit_rollout_stage < ORUS_JIT_ROLLOUT_STAGE_COUNT) {
         orus_jit_rollout_set_stage(&vm,
@@ -566,6 +575,8 @@ int main(int argc, const char* argv[]) {
         orus_jit_backend_clear_linear_emitter_override();
     }
     vm.jit_enabled = jit_requested && vm.jit_backend != NULL;
+    vm.jit_background_compile = vm.jit_enabled && config->jit_background;
+    vm.cachePath = vm.jit_enabled ? config->cache_path : NULL;
     if (!jit_requested) {
         vm.jit_backend_message = "Baseline JIT disabled by configuration.";
     } else if (jit_requested && vm.jit_backend == NULL &&
@@ -583,6 +594,7 @@ int main(int argc, const char* argv[]) {
         if (config->profile_registers) flags |= PROFILE_REGISTER_USAGE;
         if (config->profile_memory_access) flags |= PROFILE_MEMORY_ACCESS;
         if (config->profile_branches) flags |= PROFILE_BRANCH_PREDICTION;
+        if (config->profile_opcode_pairs) flags |= PROFILE_OPCODE_WINDOWS;
         
         enableProfiling(flags);
         
@@ -628,6 +640,10 @@ int main(int argc, const char* argv[]) {
         printf("Optimization statistics: Feature not yet implemented\n");
     }
     
+    if (config->memory_profiling) {
+        printMemoryProfile();
+    }
+
     // Cleanup and profiling export
     if (config->vm_profiling_enabled) {
         if (config->profile_output) {
@@ -54,6 +54,7 @@ static ObjString* create_compiler_string(const char* text) {
     }
     string->rope = rope_from_buffer(string->chars, length, false);
     string->hash = 0;
+    string->is_ascii = string_bytes_are_ascii(string->chars, length);
     return string;
 }
 
@@ -100,7 +101,7 @@ static bool literal_to_int32(const ASTNode* node, int* outValue) {
     }
 
     Value value = node->literal.value;
-    switch (value.type) {
+    switch (VALUE_TYPE(value)) {
         case VAL_I32:
             if (outValue) {
                 *outValue = AS_I32(value);
@@ -234,11 +235,11 @@ static void cleanup_new_methods(Method* methods, int start, int end) {
 }
 
 static bool literal_values_equal(Value a, Value b) {
-    if (a.type != b.type) {
+    if (VALUE_TYPE(a) != VALUE_TYPE(b)) {
         return false;
     }
 
-    switch (a.type) {
+    switch (VALUE_TYPE(a)) {
         case VAL_BOOL:
             return AS_BOOL(a) == AS_BOOL(b);
         case VAL_I32:
@@ -271,7 +272,7 @@ static void format_literal_value(Value value, char* buffer, size_t size) {
         return;
     }
 
-    switch (value.type) {
+    switch (VALUE_TYPE(value)) {
         case VAL_BOOL:
             snprintf(buffer, size, "%s", AS_BOOL(value) ? "true" : "false");
             break;
@@ -1296,7 +1297,7 @@ static Type* instantiate_type_scheme(TypeScheme* scheme) {
 
 // ---- Literal type inference ----
 static Type* infer_literal(Value literal) {
-    switch (literal.type) {
+    switch (VALUE_TYPE(literal)) {
         case VAL_BOOL:
             return getPrimitiveType(TYPE_BOOL);
         case VAL_I32:
@@ -1311,7 +1312,7 @@ static Type* infer_literal(Value literal) {
             return getPrimitiveType(TYPE_F64);
         case VAL_NUMBER:
             // Generic number - infer based on value
-            if (literal.as.number == (int)literal.as.number) {
+            if (AS_F64(literal) == (int)AS_F64(literal)) {
                 return getPrimitiveType(TYPE_I32);
             } else {
                 return getPrimitiveType(TYPE_F64);
@@ -1400,29 +1401,29 @@ static bool adapt_literal_argument_to_type(ASTNode* arg_node,
     bool literal_is_generic_number = false;
     bool literal_is_float_literal = false;
 
-    switch (literal_value->type) {
+    switch (VALUE_TYPE(*literal_value)) {
         case VAL_I32:
-            as_double = (double)literal_value->as.i32;
+            as_double = (double)AS_I32(*literal_value);
             literal_is_integer_literal = true;
             break;
         case VAL_I64:
-            as_double = (double)literal_value->as.i64;
+            as_double = (double)AS_I64(*literal_value);
             literal_is_integer_literal = true;
             break;
         case VAL_U32:
-            as_double = (double)literal_value->as.u32;
+            as_double = (double)AS_U32(*literal_value);
             literal_is_integer_literal = true;
             break;
         case VAL_U64:
-            as_double = (double)literal_value->as.u64;
+            as_double = (double)AS_U64(*literal_value);
             literal_is_integer_literal = true;
             break;
         case VAL_F64:
-            as_double = literal_value->as.f64;
+            as_double = AS_F64(*literal_value);
             literal_is_float_literal = true;
             break;
         case VAL_NUMBER:
-            as_double = literal_value->as.number;
+            as_double = AS_F64(*literal_value);
             literal_is_generic_number = true;
             break;
         default:
@@ -1675,7 +1676,7 @@ Type* algorithm_w(TypeEnv* env, ASTNode* node) {
     switch (node->type) {
         case NODE_LITERAL:
             DEBUG_TYPE_INFERENCE_PRINT("Processing literal with value type %d", (int)node->literal.value.type);
-            switch (node->literal.value.type) {
+            switch (VALUE_TYPE(node->literal.value)) {
                 case VAL_I32:
                     DEBUG_TYPE_INFERENCE_PRINT("VAL_I32 -> TYPE_I32");
                     return getPrimitiveType(TYPE_I32);
@@ -2223,7 +2224,12 @@ Type* algorithm_w(TypeEnv* env, ASTNode* node) {
 
             array_type = prune(array_type);
 
-            if (array_type->kind != TYPE_ARRAY) {
+            bool is_string_slice =
+                array_type->kind == TYPE_STRING ||
+                (array_type->kind == TYPE_INSTANCE && array_type->info.instance.base &&
+                 array_type->info.instance.base->kind == TYPE_STRING);
+
+            if (!is_string_slice && array_type->kind != TYPE_ARRAY) {
                 report_type_mismatch(node->arraySlice.array->location, "array",
                                      getTypeName(array_type->kind));
                 set_type_error();
@@ -2256,6 +2262,13 @@ Type* algorithm_w(TypeEnv* env, ASTNode* node) {
                 }
             }
 
+            if (is_string_slice) {
+                node->arraySlice.isStringSlice = true;
+                Type* string_type = getPrimitiveType(TYPE_STRING);
+                node->dataType = string_type;
+                return string_type;
+            }
+
             Type* element_type = array_type->info.array.elementType;
             if (!element_type) {
                 element_type = getPrimitiveType(TYPE_ANY);
@@ -2441,7 +2454,7 @@ Type* algorithm_w(TypeEnv* env, ASTNode* node) {
                         Value literal = node->varDecl.initializer->literal.value;
                         int const_value = 0;
                         bool record_const = false;
-                        switch (literal.type) {
+                        switch (VALUE_TYPE(literal)) {
                             case VAL_I32:
                                 const_value = AS_I32(literal);
                                 record_const = true;
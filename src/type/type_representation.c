@@ -1052,7 +1052,7 @@ Type* get_comparable_type(void) {
 Type* infer_literal_type_extended_ctx(TypeContext* ctx, Value* value) {
     if (!ctx || !value) return getPrimitive_ctx(ctx, TYPE_UNKNOWN);
     
-    switch (value->type) {
+    switch (VALUE_TYPE(*value)) {
     case VAL_BOOL:
         return getPrimitive_ctx(ctx, TYPE_BOOL);
     case VAL_I32:
@@ -1090,7 +1090,7 @@ Type* infer_literal_type_extended_ctx(TypeContext* ctx, Value* value) {
 Type* infer_literal_type_extended(Value* value) {
     if (!value) return getPrimitive(TYPE_UNKNOWN);
     
-    switch (value->type) {
+    switch (VALUE_TYPE(*value)) {
     case VAL_BOOL:
         return getPrimitive(TYPE_BOOL);
     case VAL_I32:
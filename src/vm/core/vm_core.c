@@ -8,7 +8,10 @@
 #include "vm/vm_string_ops.h"
 #include "vm/register_file.h"
 #include "vm/jit_translation.h"
+#include "vm/jit_compile_queue.h"
 #include "vm/jit_debug.h"
+#include "vm/vm_inline_cache.h"
+#include "vm/vm_tiering.h"
 #include "internal/logging.h"
 #include "type/type.h"
 #include <string.h>
@@ -37,13 +40,10 @@ void initVM(void) {
 
     initMemory();
 
-    if (globalStringTable.interned == NULL) {
+    // The table may have been pre-initialized by the caller (e.g. main.c)
+    // to guarantee cleanup on early exits; keep its entries in that case.
+    if (globalStringTable.entries == NULL) {
         init_string_table(&globalStringTable);
-    } else if (globalStringTable.threshold == 0) {
-        // The table may have been pre-initialized by the caller (e.g. main.c)
-        // to guarantee cleanup on early exits. Avoid reinitializing it here to
-        // prevent leaking the previously allocated hashmap backing store.
-        globalStringTable.threshold = 32;
     }
 
     init_register_file(&vm.register_file);
@@ -123,9 +123,12 @@ void initVM(void) {
         vm.nativeFunctions[i].returnType = NULL;
     }
     vm.gcCount = 0;
+    vm.gcMinorCount = 0;
     vm.lastExecutionTime = 0.0;
 
     memset(vm.profile, 0, sizeof(vm.profile));
+    vm_quickening_reset();
+    vm_inline_cache_reset();
 
     vm.openUpvalues = NULL;
 
@@ -172,6 +175,21 @@ void initVM(void) {
     vm.jit_enter_cycle_samples = 0;
     vm.jit_enter_cycle_warmup_total = 0;
     vm.jit_enter_cycle_warmup_samples = 0;
+    vm.jit_background_compile = false;
+    vm.jit_compile_epoch = 0;
+    vm.jit_compiles_in_flight = 0;
+    vm.jit_background_installs = 0;
+    vm.jit_background_discards = 0;
+    memset(vm.jit_function_entries, 0, sizeof(vm.jit_function_entries));
+    memset(vm.jit_function_hits, 0, sizeof(vm.jit_function_hits));
+    memset(vm.jit_function_blocklist, 0, sizeof(vm.jit_function_blocklist));
+    vm.jit_method_depth = 0;
+    vm.jit_osr_entries = 0;
+    vm.jit_osr_entry_rejects = 0;
+    vm.jit_osr_exits = 0;
+    vm.jit_disk_cache_hits = 0;
+    vm.jit_disk_cache_misses = 0;
+    vm.jit_disk_cache_stores = 0;
     orus_jit_debug_reset();
     // Default to the full baseline rollout so production workloads gain
     // immediate access to floating-point and string helpers without requiring
@@ -255,6 +273,8 @@ void freeVM(void) {
         function->specialization_hits = 0;
     }
 
+    orus_jit_compile_queue_stop();
+    vm.jit_compiles_in_flight = 0;
     vm_jit_flush_entries();
     if (vm.jit_cache.slots) {
         for (size_t i = 0; i < vm.jit_cache.capacity; ++i) {
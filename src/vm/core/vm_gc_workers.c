@@ -0,0 +1,145 @@
+// Orus Language Project
+
+// vm_gc_workers.c - Helper thread pool for parallel garbage collection phases
+// The mutator thread stays worker 0 and does its share of every task, so a
+// pool of N participants only parks N - 1 helper threads between collections.
+
+#include "vm/vm_gc_workers.h"
+
+#include <stdint.h>
+#include <stdlib.h>
+
+#ifndef _WIN32
+#include <pthread.h>
+#include <unistd.h>
+#endif
+
+#ifdef _WIN32
+
+bool gc_workers_start(int workers) {
+    (void)workers;
+    return false;
+}
+
+void gc_workers_stop(void) {}
+
+int gc_workers_count(void) { return 1; }
+
+int gc_workers_default_count(void) { return 1; }
+
+void gc_workers_run(GcWorkerTask task, void* context) { task(0, context); }
+
+#else
+
+static pthread_t gc_worker_threads[ORUS_GC_MAX_WORKERS];
+static int gc_worker_total = 1;
+static pthread_mutex_t gc_worker_lock = PTHREAD_MUTEX_INITIALIZER;
+static pthread_cond_t gc_worker_wake = PTHREAD_COND_INITIALIZER;
+static pthread_cond_t gc_worker_done = PTHREAD_COND_INITIALIZER;
+static uint64_t gc_worker_generation = 0;
+static uint64_t gc_worker_start_generation = 0;  // Generation current when helpers spawned
+static int gc_worker_pending = 0;
+static bool gc_worker_stopping = false;
+static GcWorkerTask gc_worker_task = NULL;
+static void* gc_worker_context = NULL;
+
+static void* gc_worker_main(void* arg) {
+    int worker = (int)(intptr_t)arg;
+    pthread_mutex_lock(&gc_worker_lock);
+    uint64_t seen = gc_worker_start_generation;
+    for (;;) {
+        while (!gc_worker_stopping && gc_worker_generation == seen) {
+            pthread_cond_wait(&gc_worker_wake, &gc_worker_lock);
+        }
+        if (gc_worker_stopping) {
+            break;
+        }
+        seen = gc_worker_generation;
+        GcWorkerTask task = gc_worker_task;
+        void* context = gc_worker_context;
+
+        pthread_mutex_unlock(&gc_worker_lock);
+        task(worker, context);
+        pthread_mutex_lock(&gc_worker_lock);
+
+        if (--gc_worker_pending == 0) {
+            pthread_cond_signal(&gc_worker_done);
+        }
+    }
+    pthread_mutex_unlock(&gc_worker_lock);
+    return NULL;
+}
+
+bool gc_workers_start(int workers) {
+    if (workers > ORUS_GC_MAX_WORKERS) {
+        workers = ORUS_GC_MAX_WORKERS;
+    }
+    if (gc_worker_total > 1 || workers < 2) {
+        return gc_worker_total > 1;
+    }
+
+    gc_worker_stopping = false;
+    gc_worker_start_generation = gc_worker_generation;
+    int started = 1;
+    for (int worker = 1; worker < workers; worker++) {
+        if (pthread_create(&gc_worker_threads[worker], NULL, gc_worker_main,
+                           (void*)(intptr_t)worker) != 0) {
+            break;
+        }
+        started++;
+    }
+    gc_worker_total = started;
+    return started > 1;
+}
+
+void gc_workers_stop(void) {
+    if (gc_worker_total <= 1) {
+        return;
+    }
+
+    pthread_mutex_lock(&gc_worker_lock);
+    gc_worker_stopping = true;
+    pthread_cond_broadcast(&gc_worker_wake);
+    pthread_mutex_unlock(&gc_worker_lock);
+
+    for (int worker = 1; worker < gc_worker_total; worker++) {
+        pthread_join(gc_worker_threads[worker], NULL);
+    }
+    gc_worker_total = 1;
+    gc_worker_stopping = false;
+}
+
+int gc_workers_count(void) { return gc_worker_total; }
+
+int gc_workers_default_count(void) {
+    long online = sysconf(_SC_NPROCESSORS_ONLN);
+    if (online < 1) {
+        return 1;
+    }
+    return online > ORUS_GC_MAX_WORKERS ? ORUS_GC_MAX_WORKERS : (int)online;
+}
+
+void gc_workers_run(GcWorkerTask task, void* context) {
+    if (gc_worker_total <= 1) {
+        task(0, context);
+        return;
+    }
+
+    pthread_mutex_lock(&gc_worker_lock);
+    gc_worker_task = task;
+    gc_worker_context = context;
+    gc_worker_pending = gc_worker_total - 1;
+    gc_worker_generation++;
+    pthread_cond_broadcast(&gc_worker_wake);
+    pthread_mutex_unlock(&gc_worker_lock);
+
+    task(0, context);
+
+    pthread_mutex_lock(&gc_worker_lock);
+    while (gc_worker_pending > 0) {
+        pthread_cond_wait(&gc_worker_done, &gc_worker_lock);
+    }
+    pthread_mutex_unlock(&gc_worker_lock);
+}
+
+#endif
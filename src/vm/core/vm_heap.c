@@ -0,0 +1,323 @@
+// Orus Language Project
+
+// vm_heap.c - Segregated size-class slab heap
+// Objects are carved out of page-aligned slabs, one size class per page, with
+// a bitmap per page tracking live slots. Freed slots go back to their page and
+// empty pages are recycled through a small reserve instead of libc.
+
+#include "vm/vm_heap.h"
+
+#include <stdlib.h>
+#include <string.h>
+#ifdef _WIN32
+#include <malloc.h>
+#endif
+
+#define HEAP_SLOT_ALIGNMENT 16
+#define HEAP_MIN_SLOT_SIZE 16
+#define HEAP_BITMAP_WORDS (ORUS_HEAP_PAGE_SIZE / HEAP_MIN_SLOT_SIZE / 64)
+
+typedef struct HeapPage {
+    struct HeapPage* next;
+    struct HeapPage* prev;
+    uint8_t* slots;
+    uint32_t slot_count;
+    uint32_t used;
+    uint16_t size_class;
+    uint16_t hint;  // Lowest bitmap word that may contain a free slot
+    bool full;
+    uint64_t bitmap[HEAP_BITMAP_WORDS];  // Set bit = slot in use
+} HeapPage;
+
+typedef struct {
+    HeapPage* partial;  // Pages with at least one free slot
+    HeapPage* full;     // Pages with every slot in use
+    HeapSizeClassStats stats;
+} HeapSizeClass;
+
+static const size_t heap_slot_sizes[ORUS_HEAP_SIZE_CLASS_COUNT] = {
+    16, 32, 48, 64, 80, 96, 128, 192, 256,
+};
+
+static HeapSizeClass heap_classes[ORUS_HEAP_SIZE_CLASS_COUNT];
+static HeapPage* heap_reserve = NULL;
+static size_t heap_reserve_count = 0;
+static bool heap_initialized = false;
+
+// Maps (size + 15) / 16 to a size class index.
+static uint8_t heap_class_lookup[ORUS_HEAP_MAX_SLOT_SIZE / HEAP_SLOT_ALIGNMENT + 1];
+
+static inline uint16_t heap_ctz(uint64_t mask) {
+#if defined(__GNUC__) || defined(__clang__)
+    return (uint16_t)__builtin_ctzll(mask);
+#else
+    uint16_t index = 0;
+    while ((mask & 1u) == 0u) {
+        mask >>= 1;
+        ++index;
+    }
+    return index;
+#endif
+}
+
+static inline HeapPage* heap_page_of(const void* pointer) {
+    return (HeapPage*)((uintptr_t)pointer & ~(uintptr_t)(ORUS_HEAP_PAGE_SIZE - 1));
+}
+
+static void heap_list_push(HeapPage** head, HeapPage* page) {
+    page->prev = NULL;
+    page->next = *head;
+    if (*head) {
+        (*head)->prev = page;
+    }
+    *head = page;
+}
+
+static void heap_list_remove(HeapPage** head, HeapPage* page) {
+    if (page->prev) {
+        page->prev->next = page->next;
+    } else {
+        *head = page->next;
+    }
+    if (page->next) {
+        page->next->prev = page->prev;
+    }
+    page->next = NULL;
+    page->prev = NULL;
+}
+
+// MSVCRT has no aligned_alloc, and its aligned blocks must go back through
+// _aligned_free, so every page allocation and release goes through this pair.
+static HeapPage* heap_page_alloc(void) {
+#ifdef _WIN32
+    return (HeapPage*)_aligned_malloc(ORUS_HEAP_PAGE_SIZE, ORUS_HEAP_PAGE_SIZE);
+#else
+    return (HeapPage*)aligned_alloc(ORUS_HEAP_PAGE_SIZE, ORUS_HEAP_PAGE_SIZE);
+#endif
+}
+
+static void heap_page_free(HeapPage* page) {
+#ifdef _WIN32
+    _aligned_free(page);
+#else
+    free(page);
+#endif
+}
+
+static HeapPage* heap_new_page(int size_class) {
+    HeapPage* page = heap_reserve;
+    if (page) {
+        heap_reserve = page->next;
+        heap_reserve_count--;
+    } else {
+        page = heap_page_alloc();
+        if (!page) exit(1);
+    }
+
+    size_t slot_size = heap_slot_sizes[size_class];
+    size_t header = (sizeof(HeapPage) + HEAP_SLOT_ALIGNMENT - 1) & ~(size_t)(HEAP_SLOT_ALIGNMENT - 1);
+    uint32_t slot_count = (uint32_t)((ORUS_HEAP_PAGE_SIZE - header) / slot_size);
+
+    page->next = NULL;
+    page->prev = NULL;
+    page->slots = (uint8_t*)page + header;
+    page->slot_count = slot_count;
+    page->used = 0;
+    page->size_class = (uint16_t)size_class;
+    page->hint = 0;
+    page->full = false;
+    memset(page->bitmap, 0, sizeof(page->bitmap));
+    // Mark the slots past the end of the page as permanently in use.
+    for (uint32_t slot = slot_count; slot < HEAP_BITMAP_WORDS * 64; slot++) {
+        page->bitmap[slot >> 6] |= UINT64_C(1) << (slot & 63);
+    }
+
+    HeapSizeClass* cls = &heap_classes[size_class];
+    cls->stats.pages++;
+    cls->stats.slot_capacity += slot_count;
+    heap_list_push(&cls->partial, page);
+    return page;
+}
+
+// Returns false when the page had to stay attached to its size class.
+static bool heap_retire_page(HeapSizeClass* cls, HeapPage* page, size_t* released, size_t limit) {
+    if (heap_reserve_count >= ORUS_HEAP_EMPTY_PAGE_RESERVE && *released >= limit) {
+        return false;
+    }
+
+    heap_list_remove(&cls->partial, page);
+    cls->stats.pages--;
+    cls->stats.slot_capacity -= page->slot_count;
+
+    if (heap_reserve_count < ORUS_HEAP_EMPTY_PAGE_RESERVE) {
+        page->next = heap_reserve;
+        heap_reserve = page;
+        heap_reserve_count++;
+    } else {
+        heap_page_free(page);
+        (*released)++;
+    }
+    return true;
+}
+
+void heap_init(void) {
+    if (heap_initialized) {
+        return;
+    }
+
+    memset(heap_classes, 0, sizeof(heap_classes));
+    int size_class = 0;
+    for (size_t bucket = 0; bucket < sizeof(heap_class_lookup); bucket++) {
+        size_t size = bucket * HEAP_SLOT_ALIGNMENT;
+        while (heap_slot_sizes[size_class] < size) {
+            size_class++;
+        }
+        heap_class_lookup[bucket] = (uint8_t)size_class;
+    }
+    for (int i = 0; i < ORUS_HEAP_SIZE_CLASS_COUNT; i++) {
+        heap_classes[i].stats.slot_size = heap_slot_sizes[i];
+    }
+    heap_initialized = true;
+}
+
+static void heap_free_list(HeapPage* page) {
+    while (page) {
+        HeapPage* next = page->next;
+        heap_page_free(page);
+        page = next;
+    }
+}
+
+void heap_destroy(void) {
+    for (int i = 0; i < ORUS_HEAP_SIZE_CLASS_COUNT; i++) {
+        heap_free_list(heap_classes[i].partial);
+        heap_free_list(heap_classes[i].full);
+    }
+    heap_free_list(heap_reserve);
+    heap_reserve = NULL;
+    heap_reserve_count = 0;
+    memset(heap_classes, 0, sizeof(heap_classes));
+    heap_initialized = false;
+}
+
+void* heap_alloc(size_t size) {
+    if (size > ORUS_HEAP_MAX_SLOT_SIZE) {
+        void* pointer = malloc(size);
+        if (!pointer) exit(1);
+        return pointer;
+    }
+    if (!heap_initialized) {
+        heap_init();
+    }
+
+    int size_class = heap_class_lookup[(size + HEAP_SLOT_ALIGNMENT - 1) / HEAP_SLOT_ALIGNMENT];
+    HeapSizeClass* cls = &heap_classes[size_class];
+    HeapPage* page = cls->partial;
+    if (!page) {
+        page = heap_new_page(size_class);
+    }
+
+    uint16_t word = page->hint;
+    while (page->bitmap[word] == UINT64_MAX) {
+        word++;
+    }
+    uint16_t bit = heap_ctz(~page->bitmap[word]);
+    page->bitmap[word] |= UINT64_C(1) << bit;
+    page->hint = word;
+    page->used++;
+
+    if (page->used == page->slot_count) {
+        heap_list_remove(&cls->partial, page);
+        heap_list_push(&cls->full, page);
+        page->full = true;
+    }
+
+    cls->stats.slots_in_use++;
+    cls->stats.allocations++;
+    return page->slots + ((size_t)word * 64 + bit) * heap_slot_sizes[size_class];
+}
+
+void heap_free(void* pointer, size_t size) {
+    if (!pointer) {
+        return;
+    }
+    if (size > ORUS_HEAP_MAX_SLOT_SIZE) {
+        free(pointer);
+        return;
+    }
+
+    HeapPage* page = heap_page_of(pointer);
+    HeapSizeClass* cls = &heap_classes[page->size_class];
+    size_t slot = (size_t)((uint8_t*)pointer - page->slots) / heap_slot_sizes[page->size_class];
+    uint16_t word = (uint16_t)(slot >> 6);
+
+    page->bitmap[word] &= ~(UINT64_C(1) << (slot & 63));
+    if (word < page->hint) {
+        page->hint = word;
+    }
+    if (page->full) {
+        heap_list_remove(&cls->full, page);
+        heap_list_push(&cls->partial, page);
+        page->full = false;
+    }
+    page->used--;
+
+    cls->stats.slots_in_use--;
+    cls->stats.frees++;
+}
+
+void heap_release_empty_pages(void) {
+    heap_release_empty_pages_limited(ORUS_HEAP_RELEASE_BATCH);
+}
+
+size_t heap_release_empty_pages_limited(size_t limit) {
+    size_t released = 0;
+    for (int i = 0; i < ORUS_HEAP_SIZE_CLASS_COUNT; i++) {
+        HeapSizeClass* cls = &heap_classes[i];
+        // Keep the page at the head of the partial list to absorb the next
+        // burst of allocations; everything else that is empty gets recycled.
+        HeapPage* page = cls->partial ? cls->partial->next : NULL;
+        while (page) {
+            HeapPage* next = page->next;
+            if (page->used == 0 && !heap_retire_page(cls, page, &released, limit)) {
+                return released;
+            }
+            page = next;
+        }
+    }
+    return released;
+}
+
+bool heap_size_class_stats(int size_class, HeapSizeClassStats* out) {
+    if (size_class < 0 || size_class >= ORUS_HEAP_SIZE_CLASS_COUNT || !out) {
+        return false;
+    }
+    *out = heap_classes[size_class].stats;
+    out->slot_size = heap_slot_sizes[size_class];
+    return true;
+}
+
+size_t heap_reserved_pages(void) {
+    return heap_reserve_count;
+}
+
+void heap_print_profile(FILE* out) {
+    fprintf(out, "%-10s %8s %12s %12s %12s %14s %14s\n", "Size class", "Pages", "Live slots",
+            "Capacity", "Live bytes", "Allocations", "Frees");
+    size_t total_pages = 0;
+    size_t total_live = 0;
+    for (int i = 0; i < ORUS_HEAP_SIZE_CLASS_COUNT; i++) {
+        const HeapSizeClassStats* stats = &heap_classes[i].stats;
+        if (stats->allocations == 0 && stats->pages == 0) {
+            continue;
+        }
+        size_t live_bytes = stats->slots_in_use * heap_slot_sizes[i];
+        fprintf(out, "%7zu B  %8zu %12zu %12zu %12zu %14llu %14llu\n", heap_slot_sizes[i],
+                stats->pages, stats->slots_in_use, stats->slot_capacity, live_bytes,
+                (unsigned long long)stats->allocations, (unsigned long long)stats->frees);
+        total_pages += stats->pages;
+        total_live += live_bytes;
+    }
+    fprintf(out, "Slab pages: %zu in use (%zu KiB), %zu reserved; live slot bytes: %zu\n",
+            total_pages, total_pages * (ORUS_HEAP_PAGE_SIZE / 1024), heap_reserve_count, total_live);
+}
@@ -16,7 +16,9 @@ void vm_set_error_report_pending(bool pending);
 bool vm_get_error_report_pending(void);
 void vm_report_unhandled_error(void);
 
-#define CURRENT_LOCATION() ((SrcLocation){vm.filePath, vm.currentLine, vm.currentColumn})
+SrcLocation vm_current_location(void);
+
+#define CURRENT_LOCATION() vm_current_location()
 
 #define VM_ERROR_RETURN(type, loc, msg, ...) \
     do { \
@@ -7,21 +7,111 @@
 #include "vm/vm.h"
 #include "vm/vm_string_ops.h"
 #include "vm/vm_comparison.h"
+#include "vm/vm_heap.h"
+#include "vm/vm_gc_workers.h"
+#include "vm/vm_inline_cache.h"
 #include "vm/spill_manager.h"
 #include <assert.h>
 #include <stdlib.h>
 #include <string.h>
 #include <stdio.h>
 #include <stdint.h>
+#include <time.h>
+#ifndef _WIN32
+#include <sched.h>
+#endif
 
 size_t gcThreshold = 0;
+bool gcGenerational = false;
+uint64_t gcGlobalsWritten[UINT8_COUNT / 64] = {0};
+uint32_t gcPauseBudgetUs = 0;
+bool gcIncrementalMarking = false;
+uint32_t gcWorkerThreads = 0;
 static const double GC_HEAP_GROW_FACTOR = 2.0;
 static const size_t GC_MIN_THRESHOLD = 1024 * 1024;
+static const size_t GC_NURSERY_SIZE = 256 * 1024;
+static const size_t GC_STEP_BYTES = 64 * 1024;
+static const int GC_WORK_CHUNK = 256;
+static const int GC_LAZY_SWEEP_CHUNKS = 16;
+static const size_t GC_PARALLEL_MIN_HEAP = 4 * 1024 * 1024;
+static const int GC_PUBLISH_THRESHOLD = 64;
 
 static void freeObject(Obj* object);
-static Obj* freeLists[OBJ_TYPE_COUNT] = {NULL};
 static bool finalizing = false;
 
+// Slot size of each object type in the size-class heap.
+static const size_t objectSizes[OBJ_TYPE_COUNT] = {
+    [OBJ_STRING] = sizeof(ObjString),
+    [OBJ_ARRAY] = sizeof(ObjArray),
+    [OBJ_BYTEBUFFER] = sizeof(ObjByteBuffer),
+    [OBJ_ERROR] = sizeof(ObjError),
+    [OBJ_RANGE_ITERATOR] = sizeof(ObjRangeIterator),
+    [OBJ_ARRAY_ITERATOR] = sizeof(ObjArrayIterator),
+    [OBJ_ENUM_INSTANCE] = sizeof(ObjEnumInstance),
+    [OBJ_FILE] = sizeof(ObjFile),
+    [OBJ_FUNCTION] = sizeof(ObjFunction),
+    [OBJ_CLOSURE] = sizeof(ObjClosure),
+    [OBJ_UPVALUE] = sizeof(ObjUpvalue),
+#if ORUS_VALUE_NANBOX
+    [OBJ_BOXED_WORD] = sizeof(ObjBoxedWord),
+#endif
+};
+static bool collecting = false;
+
+// Tri-color marking. An object is black or gray when isMarked equals
+// markSense; gray objects are the ones still on the gray stack. Flipping
+// markSense after a sweep turns every survivor white without touching it.
+typedef enum {
+    GC_PHASE_IDLE,
+    GC_PHASE_MARKING,
+    GC_PHASE_SWEEPING,
+} GcPhase;
+
+static GcPhase gcPhase = GC_PHASE_IDLE;
+static bool markSense = true;
+static Obj** grayStack = NULL;
+static int grayCount = 0;
+static int grayCapacity = 0;
+static ObjArray* grayArray = NULL;  // Large array being scanned in slices
+static int grayArrayIndex = 0;
+static Obj** sweepCursor = NULL;
+static size_t gcStepDebt = 0;
+uint64_t gcLongestPauseUs = 0;
+
+// Generational state. The collector is non-moving: young objects are the
+// prefix of vm.objects allocated since the last collection, ending at oldHead.
+static bool minorCollection = false;
+static Obj* oldHead = NULL;
+static size_t liveAfterLastGC = 0;
+static Obj** rememberedSet = NULL;
+static int rememberedCount = 0;
+static int rememberedCapacity = 0;
+
+// Parallel marking. Every marker pushes and pops a private stack without
+// synchronisation and publishes surplus work to a shared stack, which idle
+// markers steal from. The collection ends once every marker is idle.
+typedef struct {
+    Obj* object;
+    int start;  // First array element still to scan
+} GcMarkItem;
+
+typedef struct {
+    GcMarkItem* items;
+    int count;
+    int capacity;
+    GcMarkItem* shared;
+    int sharedCount;  // Also read without the lock as a hint
+    int sharedCapacity;
+    bool sharedLock;
+    char padding[64];  // Keep markers on separate cache lines
+} GcMarker;
+
+static GcMarker gcMarkers[ORUS_GC_MAX_WORKERS];
+static int gcMarkerCount = 0;
+static int gcIdleMarkers = 0;
+static bool gcWorkersUnavailable = false;
+static _Thread_local GcMarker* gcLocalMarker = NULL;
+
 static inline size_t gc_saturating_add(size_t a, size_t b) {
     if (SIZE_MAX - a < b) {
         return SIZE_MAX;
@@ -41,21 +131,70 @@ static inline size_t gc_compute_threshold(size_t baseline) {
     return threshold;
 }
 
+static inline bool gc_is_marked(const Obj* object) {
+    return object->isMarked == markSense;
+}
+
+static inline void gc_set_marked(Obj* object) {
+    object->isMarked = markSense;
+}
+
+static inline void gc_set_white(Obj* object) {
+    object->isMarked = !markSense;
+}
+
+static inline uint64_t gc_now_us(void) {
+    struct timespec ts;
+    clock_gettime(CLOCK_MONOTONIC, &ts);
+    return (uint64_t)ts.tv_sec * 1000000u + (uint64_t)ts.tv_nsec / 1000u;
+}
+
+static inline void gc_record_pause(uint64_t started) {
+    uint64_t pause = gc_now_us() - started;
+    if (pause > gcLongestPauseUs) {
+        gcLongestPauseUs = pause;
+    }
+}
+
+static void gc_step(void);
+static void gc_start_lazy_cycle(void);
+static void gc_lazy_sweep_step(void);
+
 static inline void gc_safepoint(size_t upcomingBytes) {
-    if (vm.gcPaused) {
+    // Never re-enter the collector from allocations made while it runs.
+    if (vm.gcPaused || collecting) {
+        return;
+    }
+
+    if (gcPhase != GC_PHASE_IDLE) {
+        // Pay for the running incremental cycle in proportion to allocation.
+        gcStepDebt = gc_saturating_add(gcStepDebt, upcomingBytes);
+        if (gcStepDebt >= GC_STEP_BYTES) {
+            gcStepDebt = 0;
+            if (gcPauseBudgetUs > 0) {
+                gc_step();
+            } else {
+                gc_lazy_sweep_step();
+            }
+        }
         return;
     }
 
     size_t projected = gc_saturating_add(vm.bytesAllocated, upcomingBytes);
     if (projected <= gcThreshold) {
+        if (gcGenerational && projected > liveAfterLastGC &&
+            projected - liveAfterLastGC > GC_NURSERY_SIZE) {
+            collectGarbageYoung();
+        }
         return;
     }
 
-    collectGarbage();
+    if (gcPauseBudgetUs > 0) {
+        gc_step();
+        return;
+    }
 
-    size_t live_after_gc = vm.bytesAllocated;
-    size_t target = gc_saturating_add(live_after_gc, upcomingBytes);
-    gcThreshold = gc_compute_threshold(target > live_after_gc ? target : live_after_gc);
+    gc_start_lazy_cycle();
 }
 
 void initMemory() {
@@ -63,7 +202,19 @@ void initMemory() {
     vm.objects = NULL;
     vm.gcPaused = false;
     gcThreshold = GC_MIN_THRESHOLD;
-    for (int i = 0; i < OBJ_TYPE_COUNT; i++) freeLists[i] = NULL;
+    heap_init();
+    memset(gcGlobalsWritten, 0, sizeof(gcGlobalsWritten));
+    oldHead = NULL;
+    liveAfterLastGC = 0;
+    rememberedCount = 0;
+    gcPhase = GC_PHASE_IDLE;
+    gcIncrementalMarking = false;
+    grayCount = 0;
+    grayArray = NULL;
+    sweepCursor = NULL;
+    gcStepDebt = 0;
+    gcLongestPauseUs = 0;
+    gcWorkersUnavailable = false;
 }
 
 void freeObjects() {
@@ -75,16 +226,27 @@ void freeObjects() {
         object = next;
     }
     vm.objects = NULL;
+    oldHead = NULL;
     finalizing = false;
-    for (int i = 0; i < OBJ_TYPE_COUNT; i++) {
-        Obj* obj = freeLists[i];
-        while (obj) {
-            Obj* next = obj->next;
-            free(obj);
-            obj = next;
-        }
-        freeLists[i] = NULL;
+    free(rememberedSet);
+    rememberedSet = NULL;
+    rememberedCount = 0;
+    rememberedCapacity = 0;
+    free(grayStack);
+    grayStack = NULL;
+    grayCount = 0;
+    grayCapacity = 0;
+    grayArray = NULL;
+    gcPhase = GC_PHASE_IDLE;
+    gcIncrementalMarking = false;
+    sweepCursor = NULL;
+    gc_workers_stop();
+    for (int i = 0; i < ORUS_GC_MAX_WORKERS; i++) {
+        free(gcMarkers[i].items);
+        free(gcMarkers[i].shared);
     }
+    memset(gcMarkers, 0, sizeof(gcMarkers));
+    heap_destroy();
 }
 
 void* reallocate(void* pointer, size_t oldSize, size_t newSize) {
@@ -108,40 +270,63 @@ void* reallocate(void* pointer, size_t oldSize, size_t newSize) {
     return result;
 }
 
-static void* allocateObject(size_t size, ObjType type) {
-    gc_safepoint(size);
-
-    Obj* object = NULL;
-    if (freeLists[type]) {
-        object = freeLists[type];
-        freeLists[type] = freeLists[type]->next;
-    } else {
-        object = (Obj*)malloc(size);
-        if (!object) exit(1);
-    }
+static void* allocateObjectUnchecked(size_t size, ObjType type) {
+    Obj* object = (Obj*)heap_alloc(size);
 
     vm.bytesAllocated += size;
     object->type = type;
-    object->isMarked = false;
+    // Objects allocated while a sweep is pending must outlive it; by then
+    // marking is over and every live object is already considered old.
+    bool sweeping = gcPhase == GC_PHASE_SWEEPING;
+    object->isMarked = sweeping ? markSense : !markSense;
+    object->isOld = sweeping;
+    object->isRemembered = false;
     object->next = vm.objects;
     vm.objects = object;
     return object;
 }
 
-ObjString* allocateString(const char* chars, int length) {
+static void* allocateObject(size_t size, ObjType type) {
+    gc_safepoint(size);
+    return allocateObjectUnchecked(size, type);
+}
+
+static ObjString* allocateStringObject(int length) {
     ObjString* string = (ObjString*)allocateObject(sizeof(ObjString), OBJ_STRING);
     string->length = length;
-    string->chars = (char*)reallocate(NULL, 0, (size_t)length + 1);
+    string->hash = 0;
+    string->chars = NULL;
+    string->rope = NULL;
+    string->is_ascii = false;
+    return string;
+}
+
+// Short strings are copied inline and hashed up front, so they cost a
+// single slab slot and compare by hash first.
+ObjString* allocateString(const char* chars, int length) {
+    ObjString* string = allocateStringObject(length);
+    if (length < ORUS_STRING_INLINE_CAPACITY) {
+        string->chars = string->inline_chars;
+        string->hash = string_hash_bytes(chars, (size_t)length);
+    } else {
+        string->chars = (char*)reallocate(NULL, 0, (size_t)length + 1);
+    }
     memcpy(string->chars, chars, length);
     string->chars[length] = '\0';
-    string->rope = rope_from_buffer(string->chars, (size_t)length, false);
-    string->hash = 0;
+    string->is_ascii = string_bytes_are_ascii(string->chars, (size_t)length);
     return string;
 }
 
 ObjString* allocateStringFromBuffer(char* buffer, size_t capacity, int length) {
     if (!buffer) return NULL;
 
+    if (length < ORUS_STRING_INLINE_CAPACITY) {
+        // allocateString may collect; nothing references the buffer yet.
+        ObjString* string = allocateString(buffer, length);
+        reallocate(buffer, capacity, 0);
+        return string;
+    }
+
     size_t desired = (size_t)length + 1;
     if (capacity != desired) {
         buffer = (char*)reallocate(buffer, capacity, desired);
@@ -150,11 +335,9 @@ ObjString* allocateStringFromBuffer(char* buffer, size_t capacity, int length) {
 
     buffer[length] = '\0';
 
-    ObjString* string = (ObjString*)allocateObject(sizeof(ObjString), OBJ_STRING);
-    string->length = length;
+    ObjString* string = allocateStringObject(length);
     string->chars = buffer;
-    string->rope = rope_from_buffer(buffer, (size_t)length, false);
-    string->hash = 0;
+    string->is_ascii = string_bytes_are_ascii(buffer, (size_t)length);
     return string;
 }
 
@@ -163,19 +346,21 @@ ObjString* allocateStringFromRope(StringRope* rope) {
         return NULL;
     }
 
-    ObjString* string = (ObjString*)allocateObject(sizeof(ObjString), OBJ_STRING);
-    string->length = (int)rope_length(rope);
-    string->chars = NULL;
+    ObjString* string = allocateStringObject((int)rope_length(rope));
     string->rope = rope;
-    string->hash = 0;
     return string;
 }
 
 ObjArray* allocateArray(int capacity) {
+    return allocateTypedArray(capacity, ARRAY_ELEMENT_VALUE);
+}
+
+ObjArray* allocateTypedArray(int capacity, ArrayElementKind kind) {
     ObjArray* array = (ObjArray*)allocateObject(sizeof(ObjArray), OBJ_ARRAY);
     array->length = 0;
     array->capacity = capacity > 0 ? capacity : 8;
-    array->elements = (Value*)reallocate(NULL, 0, sizeof(Value) * array->capacity);
+    array->kind = (uint8_t)kind;
+    array->data = reallocate(NULL, 0, arrayElementSize(kind) * (size_t)array->capacity);
     return array;
 }
 
@@ -251,18 +436,60 @@ void arrayEnsureCapacity(ObjArray* array, int minCapacity) {
         }
     }
 
-    Value* newElements = (Value*)reallocate(
-        array->elements,
-        sizeof(Value) * array->capacity,
-        sizeof(Value) * newCapacity);
-    if (!newElements) {
+    size_t elementSize = arrayElementSize((ArrayElementKind)array->kind);
+    void* newData = reallocate(
+        array->data,
+        elementSize * (size_t)array->capacity,
+        elementSize * (size_t)newCapacity);
+    if (!newData) {
         return;
     }
 
-    array->elements = newElements;
+    array->data = newData;
     array->capacity = newCapacity;
 }
 
+// Writes a value into packed storage. Returns false when the value does not
+// match the array's element kind and the array has to be despecialized.
+static bool arrayStorePacked(ObjArray* array, int index, Value value) {
+    switch (array->kind) {
+        case ARRAY_ELEMENT_I32:
+            if (!IS_I32(value)) return false;
+            array->i32_elements[index] = AS_I32(value);
+            return true;
+        case ARRAY_ELEMENT_I64:
+            if (!IS_I64(value)) return false;
+            array->i64_elements[index] = AS_I64(value);
+            return true;
+        case ARRAY_ELEMENT_F64:
+            if (!IS_F64(value)) return false;
+            array->f64_elements[index] = AS_F64(value);
+            return true;
+        case ARRAY_ELEMENT_BOOL:
+            if (!IS_BOOL(value)) return false;
+            array->bool_elements[index] = AS_BOOL(value);
+            return true;
+        default:
+            return false;
+    }
+}
+
+void arrayDespecialize(ObjArray* array) {
+    if (!array || array->kind == ARRAY_ELEMENT_VALUE) {
+        return;
+    }
+
+    // Boxing never collects, so the half-built buffer cannot be observed.
+    Value* elements = (Value*)reallocate(NULL, 0, sizeof(Value) * (size_t)array->capacity);
+    for (int i = 0; i < array->length; i++) {
+        elements[i] = arrayElementAt(array, i);
+        gcWriteBarrier((Obj*)array, elements[i]);
+    }
+    reallocate(array->data, arrayElementSize((ArrayElementKind)array->kind) * (size_t)array->capacity, 0);
+    array->elements = elements;
+    array->kind = ARRAY_ELEMENT_VALUE;
+}
+
 bool arrayPush(ObjArray* array, Value value) {
     if (!array) {
         return false;
@@ -275,6 +502,15 @@ bool arrayPush(ObjArray* array, Value value) {
         }
     }
 
+    if (array->kind != ARRAY_ELEMENT_VALUE) {
+        if (arrayStorePacked(array, array->length, value)) {
+            array->length++;
+            return true;
+        }
+        arrayDespecialize(array);
+    }
+
+    gcWriteBarrier((Obj*)array, value);
     array->elements[array->length++] = value;
     return true;
 }
@@ -286,7 +522,7 @@ bool arrayPop(ObjArray* array, Value* outValue) {
 
     array->length--;
     if (outValue) {
-        *outValue = array->elements[array->length];
+        *outValue = arrayElementAt(array, array->length);
     }
     return true;
 }
@@ -297,7 +533,7 @@ bool arrayGet(const ObjArray* array, int index, Value* outValue) {
     }
 
     if (outValue) {
-        *outValue = array->elements[index];
+        *outValue = arrayElementAt(array, index);
     }
     return true;
 }
@@ -307,6 +543,14 @@ bool arraySet(ObjArray* array, int index, Value value) {
         return false;
     }
 
+    if (array->kind != ARRAY_ELEMENT_VALUE) {
+        if (arrayStorePacked(array, index, value)) {
+            return true;
+        }
+        arrayDespecialize(array);
+    }
+
+    gcWriteBarrier((Obj*)array, value);
     array->elements[index] = value;
     return true;
 }
@@ -377,17 +621,301 @@ ObjFile* allocateFileHandle(FILE* handle, ObjString* path, bool ownsHandle) {
     return file;
 }
 
+#if ORUS_VALUE_NANBOX
+Value orus_nanbox_box_wide(ValueType type, uint64_t word) {
+    // Boxing happens inside value constructors (register reads, reconciles)
+    // where callers may still hold unrooted objects, so it must never
+    // trigger a collection; the next regular allocation picks up the debt.
+    ObjBoxedWord* box = (ObjBoxedWord*)allocateObjectUnchecked(sizeof(ObjBoxedWord), OBJ_BOXED_WORD);
+    box->word = word;
+    return orus_nanbox_make(type, ORUS_NANBOX_WIDE_FLAG | (uint64_t)(uintptr_t)box);
+}
+#endif
+
 void markValue(Value value);
 
+static void traceObject(Obj* object);
+static void gc_marker_claim(GcMarker* marker, Obj* object);
+
 void markObject(Obj* object) {
-    if (!object || object->isMarked) return;
-    object->isMarked = true;
+    if (!object) return;
+    GcMarker* marker = gcLocalMarker;
+    if (marker) {
+        gc_marker_claim(marker, object);
+        return;
+    }
+    if (gc_is_marked(object)) return;
+    // Minor collections treat the old generation as implicitly live.
+    if (minorCollection && object->isOld) return;
+    gc_set_marked(object);
+
+    if (grayCount >= grayCapacity) {
+        int capacity = grayCapacity < 256 ? 256 : grayCapacity * 2;
+        Obj** grown = (Obj**)realloc(grayStack, sizeof(Obj*) * (size_t)capacity);
+        if (!grown) exit(1);
+        grayStack = grown;
+        grayCapacity = capacity;
+    }
+    grayStack[grayCount++] = object;
+}
+
+static void gc_cpu_relax(void) {
+#ifndef _WIN32
+    sched_yield();
+#endif
+}
+
+static void gc_mark_items_push(GcMarkItem** items, int* count, int* capacity, GcMarkItem item) {
+    if (*count >= *capacity) {
+        int grown_capacity = *capacity < 256 ? 256 : *capacity * 2;
+        GcMarkItem* grown = (GcMarkItem*)realloc(*items, sizeof(GcMarkItem) * (size_t)grown_capacity);
+        if (!grown) exit(1);
+        *items = grown;
+        *capacity = grown_capacity;
+    }
+    (*items)[(*count)++] = item;
+}
+
+static void gc_marker_lock(GcMarker* marker) {
+    while (__atomic_test_and_set(&marker->sharedLock, __ATOMIC_ACQUIRE)) {
+        gc_cpu_relax();
+    }
+}
+
+static void gc_marker_unlock(GcMarker* marker) {
+    __atomic_clear(&marker->sharedLock, __ATOMIC_RELEASE);
+}
+
+static void gc_marker_claim(GcMarker* marker, Obj* object) {
+    if (__atomic_load_n(&object->isMarked, __ATOMIC_RELAXED) == markSense ||
+        __atomic_exchange_n(&object->isMarked, markSense, __ATOMIC_RELAXED) == markSense) {
+        return;
+    }
+    gc_mark_items_push(&marker->items, &marker->count, &marker->capacity, (GcMarkItem){object, 0});
+}
+
+static void gc_marker_share(GcMarker* marker, GcMarkItem* items, int count) {
+    gc_marker_lock(marker);
+    int shared = marker->sharedCount;
+    if (shared + count > marker->sharedCapacity) {
+        int capacity = marker->sharedCapacity < 256 ? 256 : marker->sharedCapacity;
+        while (capacity < shared + count) {
+            capacity *= 2;
+        }
+        GcMarkItem* grown = (GcMarkItem*)realloc(marker->shared, sizeof(GcMarkItem) * (size_t)capacity);
+        if (!grown) exit(1);
+        marker->shared = grown;
+        marker->sharedCapacity = capacity;
+    }
+    memcpy(marker->shared + shared, items, sizeof(GcMarkItem) * (size_t)count);
+    __atomic_store_n(&marker->sharedCount, shared + count, __ATOMIC_RELAXED);
+    gc_marker_unlock(marker);
+}
+
+// Move shared work from `victim` onto the private stack of `thief`. Owners
+// take everything back; thieves take the newest half.
+static bool gc_marker_take(GcMarker* victim, GcMarker* thief) {
+    if (__atomic_load_n(&victim->sharedCount, __ATOMIC_RELAXED) == 0) {
+        return false;
+    }
+
+    gc_marker_lock(victim);
+    int available = victim->sharedCount;
+    int taken = victim == thief ? available : (available + 1) / 2;
+    for (int i = available - taken; i < available; i++) {
+        gc_mark_items_push(&thief->items, &thief->count, &thief->capacity, victim->shared[i]);
+    }
+    __atomic_store_n(&victim->sharedCount, available - taken, __ATOMIC_RELAXED);
+    gc_marker_unlock(victim);
+    return taken > 0;
+}
+
+static bool gc_marker_steal(int worker) {
+    GcMarker* self = &gcMarkers[worker];
+    for (int offset = 1; offset < gcMarkerCount; offset++) {
+        if (gc_marker_take(&gcMarkers[(worker + offset) % gcMarkerCount], self)) {
+            return true;
+        }
+    }
+    return false;
+}
+
+static bool gc_markers_have_shared_work(void) {
+    for (int i = 0; i < gcMarkerCount; i++) {
+        if (__atomic_load_n(&gcMarkers[i].sharedCount, __ATOMIC_RELAXED) > 0) {
+            return true;
+        }
+    }
+    return false;
+}
+
+static void gc_marker_trace(GcMarker* marker, GcMarkItem item) {
+    if (item.object->type != OBJ_ARRAY ||
+        ((ObjArray*)item.object)->kind != ARRAY_ELEMENT_VALUE) {
+        traceObject(item.object);
+        return;
+    }
+
+    // Split long arrays so the rest of the array can be stolen meanwhile.
+    ObjArray* array = (ObjArray*)item.object;
+    int end = item.start + GC_WORK_CHUNK;
+    if (end < array->length) {
+        gc_mark_items_push(&marker->items, &marker->count, &marker->capacity,
+                           (GcMarkItem){item.object, end});
+    } else {
+        end = array->length;
+    }
+    for (int i = item.start; i < end; i++) {
+        markValue(array->elements[i]);
+    }
+}
+
+static void gc_mark_worker(int worker, void* context) {
+    (void)context;
+    GcMarker* self = &gcMarkers[worker];
+    gcLocalMarker = self;
+
+    for (;;) {
+        while (self->count > 0) {
+            GcMarkItem item = self->items[--self->count];
+            gc_marker_trace(self, item);
+            if (self->count > GC_PUBLISH_THRESHOLD &&
+                __atomic_load_n(&self->sharedCount, __ATOMIC_RELAXED) == 0) {
+                // Publish the oldest half; those items tend to fan out most.
+                int published = self->count / 2;
+                gc_marker_share(self, self->items, published);
+                memmove(self->items, self->items + published,
+                        sizeof(GcMarkItem) * (size_t)(self->count - published));
+                self->count -= published;
+            }
+        }
+        if (gc_marker_take(self, self) || gc_marker_steal(worker)) {
+            continue;
+        }
 
+        // Only a marker's owner refills its shared stack, so once every
+        // marker is idle no work can appear anywhere.
+        __atomic_add_fetch(&gcIdleMarkers, 1, __ATOMIC_SEQ_CST);
+        for (;;) {
+            if (__atomic_load_n(&gcIdleMarkers, __ATOMIC_SEQ_CST) == gcMarkerCount) {
+                gcLocalMarker = NULL;
+                return;
+            }
+            if (gc_markers_have_shared_work()) {
+                __atomic_sub_fetch(&gcIdleMarkers, 1, __ATOMIC_SEQ_CST);
+                break;
+            }
+            gc_cpu_relax();
+        }
+    }
+}
+
+// Parallel marking pays off only for heaps worth splitting; the pool is
+// started the first time a collection qualifies.
+static bool gc_parallel_mark_ready(void) {
+    if (minorCollection || gcWorkerThreads == 1 || gcWorkersUnavailable ||
+        vm.bytesAllocated < GC_PARALLEL_MIN_HEAP) {
+        return false;
+    }
+    if (gc_workers_count() < 2) {
+        int workers = gcWorkerThreads ? (int)gcWorkerThreads : gc_workers_default_count();
+        if (!gc_workers_start(workers)) {
+            gcWorkersUnavailable = true;
+            return false;
+        }
+    }
+    return true;
+}
+
+static void gc_drain_gray_parallel(void) {
+    gcMarkerCount = gc_workers_count();
+    gcIdleMarkers = 0;
+    // Deal the gray objects out so every marker has work from the start.
+    for (int i = 0; i < grayCount; i++) {
+        GcMarkItem item = {grayStack[i], 0};
+        gc_marker_share(&gcMarkers[i % gcMarkerCount], &item, 1);
+    }
+    grayCount = 0;
+    if (grayArray) {
+        GcMarkItem item = {(Obj*)grayArray, grayArrayIndex};
+        gc_marker_share(&gcMarkers[0], &item, 1);
+        grayArray = NULL;
+    }
+    gc_workers_run(gc_mark_worker, NULL);
+}
+
+static void gc_drain_gray(void) {
+    if (gc_parallel_mark_ready()) {
+        gc_drain_gray_parallel();
+        return;
+    }
+    if (grayArray) {
+        for (; grayArrayIndex < grayArray->length; grayArrayIndex++) {
+            markValue(grayArray->elements[grayArrayIndex]);
+        }
+        grayArray = NULL;
+    }
+    while (grayCount > 0) {
+        traceObject(grayStack[--grayCount]);
+    }
+}
+
+// Blacken gray objects until the stack is empty or the deadline passes.
+// Arrays longer than one work chunk are scanned a chunk at a time; the
+// barrier shades anything stored into the part already visited.
+static bool gc_drain_gray_until(uint64_t deadline) {
+    while (grayCount > 0 || grayArray) {
+        int work = 0;
+        while (work < GC_WORK_CHUNK && (grayCount > 0 || grayArray)) {
+            if (grayArray) {
+                int end = grayArrayIndex + GC_WORK_CHUNK;
+                if (end > grayArray->length) {
+                    end = grayArray->length;
+                }
+                for (; grayArrayIndex < end; grayArrayIndex++) {
+                    markValue(grayArray->elements[grayArrayIndex]);
+                }
+                if (grayArrayIndex >= grayArray->length) {
+                    grayArray = NULL;
+                }
+                work += GC_WORK_CHUNK;
+                continue;
+            }
+
+            Obj* object = grayStack[--grayCount];
+            if (object->type == OBJ_ARRAY && ((ObjArray*)object)->kind == ARRAY_ELEMENT_VALUE &&
+                ((ObjArray*)object)->length > GC_WORK_CHUNK) {
+                grayArray = (ObjArray*)object;
+                grayArrayIndex = 0;
+                continue;
+            }
+            traceObject(object);
+            work++;
+        }
+        if ((grayCount > 0 || grayArray) && gc_now_us() >= deadline) {
+            return false;
+        }
+    }
+    return true;
+}
+
+void gcShadeObject(Obj* object) {
+    if (!object) return;
+    if (gcPhase == GC_PHASE_MARKING) {
+        markObject(object);
+    } else if (gcPhase == GC_PHASE_SWEEPING) {
+        // Marking has finished; keep a resurrected object out of this sweep.
+        gc_set_marked(object);
+    }
+}
+
+static void traceObject(Obj* object) {
     switch (object->type) {
         case OBJ_STRING:
             break;
         case OBJ_ARRAY: {
             ObjArray* arr = (ObjArray*)object;
+            if (arr->kind != ARRAY_ELEMENT_VALUE) break;  // Packed elements hold no references
             for (int i = 0; i < arr->length; i++) markValue(arr->elements[i]);
             break;
         }
@@ -440,11 +968,23 @@ void markObject(Obj* object) {
             markValue(upvalue->closed);
             break;
         }
+#if ORUS_VALUE_NANBOX
+        case OBJ_BOXED_WORD:
+            break;
+#endif
     }
 }
 
 void markValue(Value value) {
-    switch (value.type) {
+    switch (VALUE_TYPE(value)) {
+#if ORUS_VALUE_NANBOX
+        case VAL_I64:
+        case VAL_U64:
+            if (orus_nanbox_is_wide(value)) {
+                markObject(AS_OBJ(value));
+            }
+            break;
+#endif
         case VAL_STRING:
         case VAL_BYTES:
         case VAL_ARRAY:
@@ -455,7 +995,7 @@ void markValue(Value value) {
         case VAL_FILE:
         case VAL_FUNCTION:
         case VAL_CLOSURE:
-            markObject(value.as.obj);
+            markObject(AS_OBJ(value));
             break;
         default:
             break;
@@ -512,21 +1052,26 @@ static void markRoots() {
         markValue(vm.registers[i]);
     }
 
+    // Frameless top-level code keeps its frame registers at the stack base.
+    if (vm.register_file.stack) {
+        for (uint16_t reg = 0; reg < FRAME_REGISTERS; reg++) {
+            markValue(vm.register_file.stack[reg]);
+        }
+    }
+
     // Mark live values stored in the register file's active frame windows.
     for (CallFrame* frame = vm.register_file.frame_stack; frame != NULL; frame = frame->next) {
-        assert(frame->register_count <= FRAME_REGISTERS);
         uint16_t live_registers = frame->register_count;
-        if (live_registers > FRAME_REGISTERS) {
-            live_registers = FRAME_REGISTERS;
+        if (live_registers > frame->register_capacity) {
+            live_registers = frame->register_capacity;
         }
         for (uint16_t reg = 0; reg < live_registers; reg++) {
             markValue(frame->registers[reg]);
         }
 
-        assert(frame->temp_count <= TEMP_REGISTERS);
         uint16_t live_temps = frame->temp_count;
-        if (live_temps > TEMP_REGISTERS) {
-            live_temps = TEMP_REGISTERS;
+        if (live_temps > frame->temp_capacity) {
+            live_temps = frame->temp_capacity;
         }
         for (uint16_t i = 0; i < live_temps; i++) {
             markValue(frame->temps[i]);
@@ -545,21 +1090,19 @@ static void markRoots() {
         markValue(vm.register_file.globals[i]);
     }
 
-    if (vm.register_file.spilled_registers) {
-        spill_manager_iterate(vm.register_file.spilled_registers, mark_spill_entry, NULL);
-    }
-
     if (vm.register_file.spilled_registers) {
         spill_manager_visit_entries(vm.register_file.spilled_registers, mark_spill_entry, NULL);
     }
 
-    if (vm.chunk) {
+    // Constant pools only hold pretenured objects in generational mode, so
+    // minor collections can skip them entirely.
+    if (vm.chunk && !minorCollection) {
         for (int i = 0; i < vm.chunk->constants.count; i++) {
             markValue(vm.chunk->constants.values[i]);
         }
     }
 
-    for (int i = 0; i < vm.functionCount; i++) {
+    for (int i = 0; i < vm.functionCount && !minorCollection; i++) {
         Chunk* chunk = vm.functions[i].chunk;
         if (chunk) {
             for (int c = 0; c < chunk->constants.count; c++) {
@@ -582,8 +1125,22 @@ static void markRoots() {
         }
     }
 
-    for (int i = 0; i < vm.variableCount; i++) {
-        markValue(vm.globals[i]);
+    if (minorCollection) {
+        // Only globals stored since the last collection can hold young objects.
+        for (int word = 0; word < UINT8_COUNT / 64; word++) {
+            uint64_t written = gcGlobalsWritten[word];
+            while (written) {
+                int index = word * 64 + typed_window_ctz(written);
+                if (index < vm.variableCount) {
+                    markValue(vm.globals[index]);
+                }
+                written &= written - 1;
+            }
+        }
+    } else {
+        for (int i = 0; i < vm.variableCount; i++) {
+            markValue(vm.globals[i]);
+        }
     }
     markValue(vm.lastError);
 
@@ -610,27 +1167,240 @@ static void markRoots() {
     }
 }
 
-static void sweep() {
+// Sweep only the young prefix of vm.objects, promoting survivors in place.
+static void sweepYoung() {
     Obj** object = &vm.objects;
-    while (*object) {
-        if (!(*object)->isMarked) {
-            Obj* unreached = *object;
-            *object = unreached->next;
-            freeObject(unreached);
+    while (*object && *object != oldHead) {
+        Obj* current = *object;
+        if (!gc_is_marked(current) && !current->isOld) {
+            *object = current->next;
+            freeObject(current);
+        } else {
+            gc_set_white(current);
+            current->isOld = true;
+            object = &current->next;
+        }
+    }
+}
+
+static void gc_clear_remembered_set(void) {
+    for (int i = 0; i < rememberedCount; i++) {
+        rememberedSet[i]->isRemembered = false;
+    }
+    rememberedCount = 0;
+}
+
+static void gc_reset_generations(void) {
+    gc_clear_remembered_set();
+    memset(gcGlobalsWritten, 0, sizeof(gcGlobalsWritten));
+    oldHead = vm.objects;
+    liveAfterLastGC = vm.bytesAllocated;
+}
+
+void gcRememberObject(Obj* object) {
+    if (rememberedCount >= rememberedCapacity) {
+        int capacity = rememberedCapacity < 64 ? 64 : rememberedCapacity * 2;
+        Obj** grown = (Obj**)realloc(rememberedSet, sizeof(Obj*) * (size_t)capacity);
+        if (!grown) exit(1);
+        rememberedSet = grown;
+        rememberedCapacity = capacity;
+    }
+    object->isRemembered = true;
+    rememberedSet[rememberedCount++] = object;
+}
+
+void gcPretenureValue(Value value) {
+    if (!gcGenerational) return;
+    Obj* object = gcValueObject(value);
+    if (!object || object->isOld) return;
+    // Constant pools are not scanned by minor collections; promote the object
+    // now and trace its children once so nothing young hides behind it.
+    object->isOld = true;
+    gcRememberObject(object);
+}
+
+// Close a full cycle: survivors turn white, empty pages are recycled and
+// every live object joins the old generation.
+// Handing a page back to libc can cost a munmap, so a budgeted slice returns
+// one page and then more only while it has time left. Pages it leaves behind
+// are reused by allocation or returned after the next cycle.
+static void gc_release_pages_until(uint64_t deadline) {
+    if (deadline == UINT64_MAX) {
+        heap_release_empty_pages();
+        return;
+    }
+    size_t released = 0;
+    while (released < ORUS_HEAP_RELEASE_BATCH && heap_release_empty_pages_limited(1) > 0) {
+        released++;
+        if (gc_now_us() >= deadline) {
+            break;
+        }
+    }
+}
+
+static void gc_finish_full_cycle(uint64_t deadline) {
+    markSense = !markSense;
+    gc_release_pages_until(deadline);
+    gc_reset_generations();
+    gcPhase = GC_PHASE_IDLE;
+    vm.gcCount++;
+}
+
+static void gc_mark_roots_and_drain(void) {
+    register_file_reconcile_active_window();
+    markRoots();
+    gc_drain_gray();
+}
+
+static bool gc_string_survives_full(ObjString* string) {
+    return gc_is_marked(&string->obj);
+}
+
+static bool gc_string_survives_minor(ObjString* string) {
+    return string->obj.isOld || gc_is_marked(&string->obj);
+}
+
+static void gc_start_sweep(void) {
+    gcIncrementalMarking = false;
+    // Remembered objects, interned strings and inline cache entries may die
+    // in the sweep; forget them first.
+    gc_clear_remembered_set();
+    vm_inline_cache_invalidate();
+    intern_sweep_table(gc_string_survives_full);
+    sweepCursor = &vm.objects;
+    gcPhase = GC_PHASE_SWEEPING;
+}
+
+// Sweep one chunk of the object list; returns true once the list is done.
+static bool gc_sweep_chunk(void) {
+    for (int i = 0; i < GC_WORK_CHUNK && *sweepCursor; i++) {
+        Obj* current = *sweepCursor;
+        if (!gc_is_marked(current)) {
+            *sweepCursor = current->next;
+            freeObject(current);
         } else {
-            (*object)->isMarked = false;
-            object = &(*object)->next;
+            current->isOld = true;
+            sweepCursor = &current->next;
+        }
+    }
+    if (*sweepCursor) {
+        return false;
+    }
+    sweepCursor = NULL;
+    return true;
+}
+
+static bool gc_sweep_until(uint64_t deadline) {
+    while (!gc_sweep_chunk()) {
+        if (gc_now_us() >= deadline) {
+            return false;
         }
     }
+    return true;
+}
+
+// One bounded slice of incremental collection, starting a cycle if needed.
+static void gc_step(void) {
+    uint64_t started = gc_now_us();
+    uint64_t deadline = started + gcPauseBudgetUs;
+    collecting = true;
+
+    if (gcPhase == GC_PHASE_IDLE) {
+        register_file_reconcile_active_window();
+        markRoots();
+        gcPhase = GC_PHASE_MARKING;
+        gcIncrementalMarking = true;
+    }
+
+    // When the mutator outruns the cycle, finish marking in this slice so the
+    // sweep can start reclaiming. The sweep itself stays within the budget:
+    // objects allocated while it is pending are born marked and survive it.
+    bool overdue = vm.bytesAllocated > gc_saturating_add(gcThreshold, gcThreshold);
+    if (gcPhase == GC_PHASE_MARKING &&
+        gc_drain_gray_until(overdue ? UINT64_MAX : deadline)) {
+        // Roots carry no barrier, so rescan them atomically before sweeping.
+        gc_mark_roots_and_drain();
+        gc_start_sweep();
+    }
+    if (gcPhase == GC_PHASE_SWEEPING && gc_now_us() < deadline && gc_sweep_until(deadline)) {
+        gc_finish_full_cycle(deadline);
+        gcThreshold = gc_compute_threshold(vm.bytesAllocated);
+    }
+
+    collecting = false;
+    gc_record_pause(started);
+}
+
+// Without a pause target the collector marks in one pause and leaves the
+// sweep to the mutator, which frees a few chunks per allocation step.
+static void gc_start_lazy_cycle(void) {
+    uint64_t started = gc_now_us();
+    collecting = true;
+    gc_mark_roots_and_drain();
+    gc_start_sweep();
+    collecting = false;
+    gc_record_pause(started);
+}
+
+static void gc_lazy_sweep_step(void) {
+    uint64_t started = gc_now_us();
+    collecting = true;
+    // Finish outright when the mutator outruns the sweep.
+    bool overdue = vm.bytesAllocated > gc_saturating_add(gcThreshold, gcThreshold);
+    bool done = false;
+    for (int i = 0; !done && (overdue || i < GC_LAZY_SWEEP_CHUNKS); i++) {
+        done = gc_sweep_chunk();
+    }
+    if (done) {
+        gc_finish_full_cycle(UINT64_MAX);
+        gcThreshold = gc_compute_threshold(vm.bytesAllocated);
+    }
+    collecting = false;
+    gc_record_pause(started);
 }
 
 void collectGarbage() {
-    if (vm.gcPaused) return;
+    if (vm.gcPaused || collecting) return;
+
+    uint64_t started = gc_now_us();
+    collecting = true;
+    if (gcPhase == GC_PHASE_SWEEPING) {
+        // Objects that died after the pending sweep was marked need a fresh
+        // cycle, so finish that sweep first.
+        gc_sweep_until(UINT64_MAX);
+        gc_finish_full_cycle(UINT64_MAX);
+    }
+    // Complete whatever part of an incremental mark is still outstanding.
+    gc_mark_roots_and_drain();
+    gc_start_sweep();
+    gc_sweep_until(UINT64_MAX);
+    gc_finish_full_cycle(UINT64_MAX);
+    collecting = false;
+    gc_record_pause(started);
+}
+
+void collectGarbageYoung() {
+    if (vm.gcPaused || collecting || gcPhase != GC_PHASE_IDLE) return;
 
+    uint64_t started = gc_now_us();
+    collecting = true;
+    minorCollection = true;
     register_file_reconcile_active_window();
     markRoots();
-    sweep();
+    for (int i = 0; i < rememberedCount; i++) {
+        traceObject(rememberedSet[i]);
+    }
+    gc_drain_gray();
+    vm_inline_cache_invalidate();
+    intern_sweep_table(gc_string_survives_minor);
+    sweepYoung();
+    heap_release_empty_pages();
+    minorCollection = false;
+    gc_reset_generations();
+    collecting = false;
     vm.gcCount++;
+    vm.gcMinorCount++;
+    gc_record_pause(started);
 }
 
 static void freeObject(Obj* object) {
@@ -638,21 +1408,33 @@ static void freeObject(Obj* object) {
         case OBJ_STRING: {
             ObjString* s = (ObjString*)object;
             vm.bytesAllocated -= sizeof(ObjString);
-            if (s->chars) {
-                reallocate(s->chars, (size_t)s->length + 1, 0);
+            if (s->chars && s->chars != s->inline_chars) {
+                StringRope* rope = s->rope;
+                if (rope && rope->kind == ROPE_LEAF && rope->as.leaf.data == s->chars &&
+                    rope->as.leaf.owns_data) {
+                    // Borrowed from a flattened rope; released with it below.
+                } else if (rope && rope->kind == ROPE_LEAF && rope->refcount > 1 &&
+                    rope->as.leaf.data == s->chars && !rope->as.leaf.owns_data) {
+                    // Concatenations still share this leaf; hand the buffer over.
+                    rope->as.leaf.owns_data = true;
+                    vm.bytesAllocated -= (size_t)s->length + 1;
+                } else {
+                    reallocate(s->chars, (size_t)s->length + 1, 0);
+                }
             }
             if (s->rope) rope_release(s->rope);
             break;
         }
         case OBJ_ARRAY: {
             ObjArray* a = (ObjArray*)object;
-            vm.bytesAllocated -= sizeof(ObjArray) + sizeof(Value) * a->capacity;
-            FREE_ARRAY(Value, a->elements, a->capacity);
+            // FREE_ARRAY accounts for the element storage itself.
+            vm.bytesAllocated -= sizeof(ObjArray);
+            reallocate(a->data, arrayElementSize((ArrayElementKind)a->kind) * (size_t)a->capacity, 0);
             break;
         }
         case OBJ_BYTEBUFFER: {
             ObjByteBuffer* buffer = (ObjByteBuffer*)object;
-            vm.bytesAllocated -= sizeof(ObjByteBuffer) + buffer->capacity;
+            vm.bytesAllocated -= sizeof(ObjByteBuffer);
             if (buffer->data) {
                 reallocate(buffer->data, buffer->capacity, 0);
             }
@@ -701,15 +1483,27 @@ static void freeObject(Obj* object) {
             vm.bytesAllocated -= sizeof(ObjUpvalue);
             break;
         }
+#if ORUS_VALUE_NANBOX
+        case OBJ_BOXED_WORD:
+            vm.bytesAllocated -= sizeof(ObjBoxedWord);
+            break;
+#endif
     }
-    if (finalizing) {
-        free(object);
-    } else {
-        object->next = freeLists[object->type];
-        freeLists[object->type] = object;
+    // Slab pages are released wholesale by heap_destroy() during finalization.
+    if (!finalizing) {
+        heap_free(object, objectSizes[object->type]);
     }
 }
 
+void printMemoryProfile(void) {
+    printf("\n=== Memory Profile ===\n");
+    printf("Heap bytes: %zu (next collection at %zu)\n", vm.bytesAllocated, gcThreshold);
+    printf("GC cycles: %zu (%zu minor), longest pause: %llu us, %d marker thread%s\n", vm.gcCount,
+           vm.gcMinorCount, (unsigned long long)gcLongestPauseUs, gc_workers_count(),
+           gc_workers_count() == 1 ? "" : "s");
+    heap_print_profile(stdout);
+}
+
 void pauseGC() { vm.gcPaused = true; }
 void resumeGC() { vm.gcPaused = false; }
 
@@ -758,7 +1552,7 @@ void closeUpvalues(Value* last) {
             bool flushed = false;
             while (frame_iter && !flushed) {
                 Value* frame_start = frame_iter->registers;
-                Value* frame_end = frame_start + FRAME_REGISTERS;
+                Value* frame_end = frame_start + frame_iter->register_capacity;
                 if (upvalue->location >= frame_start && upvalue->location < frame_end) {
                     uint16_t reg_id = (uint16_t)(frame_iter->frame_base + (upvalue->location - frame_start));
                     vm_get_register_safe(reg_id);
@@ -767,14 +1561,19 @@ void closeUpvalues(Value* last) {
                 }
                 frame_iter = frame_iter->next;
             }
+            CallFrame* current = vm.register_file.current_frame;
+            size_t temp_slots = current && vm.register_file.temps == current->temps
+                                    ? current->temp_capacity
+                                    : TEMP_REGISTERS;
             if (!flushed &&
                 upvalue->location >= vm.register_file.temps &&
-                upvalue->location < vm.register_file.temps + TEMP_REGISTERS) {
+                upvalue->location < vm.register_file.temps + temp_slots) {
                 uint16_t reg_id = (uint16_t)(TEMP_REG_START + (upvalue->location - vm.register_file.temps));
                 vm_get_register_safe(reg_id);
             }
         }
         upvalue->closed = *upvalue->location;
+        gcWriteBarrier((Obj*)upvalue, upvalue->closed);
         upvalue->location = &upvalue->closed;
         vm.openUpvalues = upvalue->next;
     }
@@ -834,6 +1633,7 @@ int addConstant(Chunk* chunk, Value value) {
                        chunk->constants.capacity);
     }
 
+    gcPretenureValue(value);
     chunk->constants.values[chunk->constants.count] = value;
     return chunk->constants.count++;
 }
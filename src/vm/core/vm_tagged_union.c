@@ -37,7 +37,7 @@ static bool copy_payload_to_array(const TaggedUnionSpec* spec, ObjArray** out_ar
 }
 
 bool vm_make_tagged_union(const TaggedUnionSpec* spec, Value* out_value) {
-    if (!spec || !out_value || !spec->type_name) {
+    if (!spec || !out_value || (!spec->type_name && !spec->type_string)) {
         return false;
     }
 
@@ -49,13 +49,16 @@ bool vm_make_tagged_union(const TaggedUnionSpec* spec, Value* out_value) {
 
     bool success = false;
 
-    ObjString* type_name = intern_string(spec->type_name, (int)strlen(spec->type_name));
+    ObjString* type_name = spec->type_string;
+    ObjString* variant_name = spec->variant_string;
     if (!type_name) {
-        goto cleanup;
+        type_name = intern_string(spec->type_name, (int)strlen(spec->type_name));
+        if (!type_name) {
+            goto cleanup;
+        }
     }
 
-    ObjString* variant_name = NULL;
-    if (spec->variant_name && spec->variant_name[0] != '\0') {
+    if (!spec->type_string && spec->variant_name && spec->variant_name[0] != '\0') {
         variant_name = intern_string(spec->variant_name, (int)strlen(spec->variant_name));
         if (!variant_name) {
             goto cleanup;
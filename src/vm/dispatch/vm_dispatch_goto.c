@@ -16,7 +16,9 @@
 #include "vm/vm_opcode_handlers.h"
 #include "vm/register_file.h"
 #include "vm/vm_profiling.h"
+#include "vm/vm_inline_cache.h"
 #include "vm/vm_tiering.h"
+#include "vm/vm_superinstructions.h"
 #include "debug/debug_config.h"
 
 #include <math.h>
@@ -231,7 +233,7 @@ static inline bool value_to_index(Value value, int* out_index) {
                 fprintf(stderr, "[%s_ERROR_TRACE] %s triggered: dst=%d, a=%d, b=%d\n", TRACE_PREFIX,  \
                         TRACE_MACRO, dst, src1, src2);                                                \
                 fprintf(stderr, "[%s_ERROR_TRACE] Register[%d] type: %d, Register[%d] type: %d\n",      \
-                        TRACE_PREFIX, src1, left_val.type, src2, right_val.type);                     \
+                        TRACE_PREFIX, src1, VALUE_TYPE(left_val), src2, VALUE_TYPE(right_val));                     \
                 fflush(stderr);                                                                       \
                 DISPATCH_TYPE_ERROR("Operands must be f64");                                         \
             }                                                                                         \
@@ -245,6 +247,7 @@ static inline bool value_to_index(Value value, int* out_index) {
     }
 
 static inline bool dispatch_handle_add_i32_r(void) {
+    uint8_t* instruction = vm.ip - 1;
     uint8_t dst = READ_BYTE();
     uint8_t src1 = READ_BYTE();
     uint8_t src2 = READ_BYTE();
@@ -257,6 +260,7 @@ static inline bool dispatch_handle_add_i32_r(void) {
         left_typed.type == right_typed.type) {
         switch (left_typed.type) {
             case REG_TYPE_I32:
+                vm_quicken_observe(instruction, OP_ADD_I32_QUICK);
                 vm_store_i32_typed_hot(dst, left_typed.value.i32 + right_typed.value.i32);
                 return true;
             case REG_TYPE_I64:
@@ -279,6 +283,10 @@ static inline bool dispatch_handle_add_i32_r(void) {
     Value val1 = vm_get_register_safe(src1);
     Value val2 = vm_get_register_safe(src2);
 
+    if (!(IS_I32(val1) && IS_I32(val2))) {
+        vm_quicken_reject(instruction);
+    }
+
     if (IS_STRING(val1) || IS_STRING(val2)) {
         Value left = val1;
         Value right = val2;
@@ -331,7 +339,7 @@ static inline bool dispatch_handle_add_i32_r(void) {
         return true;
     }
 
-    if (val1.type != val2.type) {
+    if (VALUE_TYPE(val1) != VALUE_TYPE(val2)) {
         DISPATCH_TYPE_ERROR(
             "Operands must be the same type. Use 'as' for explicit type conversion.");
     }
@@ -345,6 +353,7 @@ static inline bool dispatch_handle_add_i32_r(void) {
         int32_t b = AS_I32(val2);
         vm_cache_i32_typed(src1, a);
         vm_cache_i32_typed(src2, b);
+        vm_quicken_observe(instruction, OP_ADD_I32_QUICK);
         vm_store_i32_typed_hot(dst, a + b);
     } else if (IS_I64(val1)) {
         int64_t a = AS_I64(val1);
@@ -409,7 +418,7 @@ static inline bool dispatch_handle_sub_i32_r(void) {
     Value val1 = vm_get_register_safe(src1);
     Value val2 = vm_get_register_safe(src2);
 
-    if (val1.type != val2.type) {
+    if (VALUE_TYPE(val1) != VALUE_TYPE(val2)) {
         DISPATCH_TYPE_ERROR(
             "Operands must be the same type. Use 'as' for explicit type conversion.");
     }
@@ -487,7 +496,7 @@ static inline bool dispatch_handle_mul_i32_r(void) {
     Value val1 = vm_get_register_safe(src1);
     Value val2 = vm_get_register_safe(src2);
 
-    if (val1.type != val2.type) {
+    if (VALUE_TYPE(val1) != VALUE_TYPE(val2)) {
         DISPATCH_TYPE_ERROR(
             "Operands must be the same type. Use 'as' for explicit type conversion.");
     }
@@ -595,7 +604,7 @@ static inline bool dispatch_handle_div_i32_r(void) {
     Value val1 = vm_get_register_safe(src1);
     Value val2 = vm_get_register_safe(src2);
 
-    if (val1.type != val2.type) {
+    if (VALUE_TYPE(val1) != VALUE_TYPE(val2)) {
         DISPATCH_TYPE_ERROR(
             "Operands must be the same type. Use 'as' for explicit type conversion.");
     }
@@ -726,7 +735,7 @@ static inline bool dispatch_handle_mod_i32_r(void) {
     Value val1 = vm_get_register_safe(src1);
     Value val2 = vm_get_register_safe(src2);
 
-    if (val1.type != val2.type) {
+    if (VALUE_TYPE(val1) != VALUE_TYPE(val2)) {
         DISPATCH_TYPE_ERROR(
             "Operands must be the same type. Use 'as' for explicit type conversion.");
     }
@@ -832,18 +841,71 @@ DEFINE_NUMERIC_COMPARE_HELPER(dispatch_handle_gt_u64_r, uint64_t, vm_try_read_u6
 DEFINE_NUMERIC_COMPARE_HELPER(dispatch_handle_ge_u64_r, uint64_t, vm_try_read_u64_typed, IS_U64, AS_U64,
                               vm_cache_u64_typed, >=, "Operands must be u64")
 
+static inline bool dispatch_values_equal(uint8_t quick_opcode) {
+    uint8_t* instruction = vm.ip - 1;
+    uint8_t src1 = vm.ip[1];
+    uint8_t src2 = vm.ip[2];
+    Value left = vm_get_register_safe(src1);
+    Value right = vm_get_register_safe(src2);
+    if (IS_I32(left) && IS_I32(right)) {
+        vm_quicken_observe(instruction, quick_opcode);
+    } else {
+        vm_quicken_reject(instruction);
+    }
+    return valuesEqual(left, right);
+}
+
 static inline void dispatch_handle_eq_r(void) {
+    bool equal = dispatch_values_equal(OP_EQ_I32_QUICK);
     uint8_t dst = READ_BYTE();
-    uint8_t src1 = READ_BYTE();
-    uint8_t src2 = READ_BYTE();
-    vm_set_register_safe(dst, BOOL_VAL(valuesEqual(vm_get_register_safe(src1), vm_get_register_safe(src2))));
+    vm.ip += 2;
+    vm_set_register_safe(dst, BOOL_VAL(equal));
 }
 
 static inline void dispatch_handle_ne_r(void) {
+    bool equal = dispatch_values_equal(OP_NE_I32_QUICK);
     uint8_t dst = READ_BYTE();
-    uint8_t src1 = READ_BYTE();
-    uint8_t src2 = READ_BYTE();
-    vm_set_register_safe(dst, BOOL_VAL(!valuesEqual(vm_get_register_safe(src1), vm_get_register_safe(src2))));
+    vm.ip += 2;
+    vm_set_register_safe(dst, BOOL_VAL(!equal));
+}
+
+// Packed i32/f64 arrays have typed element opcodes with the same encoding
+// that fall back to the boxed path for any other array, so a site that only
+// sees one packed kind can be quickened without a de-quickening guard.
+static inline void dispatch_observe_array_kind(uint8_t* instruction, const ObjArray* array,
+                                               uint8_t i32_opcode, uint8_t f64_opcode) {
+    if (array->kind == ARRAY_ELEMENT_I32) {
+        vm_quicken_observe(instruction, i32_opcode);
+    } else if (array->kind == ARRAY_ELEMENT_F64) {
+        vm_quicken_observe(instruction, f64_opcode);
+    }
+}
+
+// Quickened handlers leave vm.ip on the operands and return false when an
+// operand is not an i32; the caller then restores the generic opcode and
+// runs the generic handler instead.
+static inline bool dispatch_handle_cmp_i32_quick(bool negate) {
+    int32_t left;
+    int32_t right;
+    if (!vm_read_i32_hot(vm.ip[1], &left) || !vm_read_i32_hot(vm.ip[2], &right)) {
+        return false;
+    }
+    uint8_t dst = READ_BYTE();
+    vm.ip += 2;
+    vm_store_bool_register(dst, (left == right) != negate);
+    return true;
+}
+
+static inline bool dispatch_handle_add_i32_quick(void) {
+    int32_t left;
+    int32_t right;
+    if (!vm_read_i32_hot(vm.ip[1], &left) || !vm_read_i32_hot(vm.ip[2], &right)) {
+        return false;
+    }
+    uint8_t dst = READ_BYTE();
+    vm.ip += 2;
+    vm_store_i32_typed_hot(dst, left + right);
+    return true;
 }
 
 static inline bool dispatch_handle_jump_short(void) {
@@ -1120,6 +1182,7 @@ InterpretResult vm_run_dispatch(void) {
         vm_dispatch_table[OP_LOAD_GLOBAL] = &&LABEL_OP_LOAD_GLOBAL;
         vm_dispatch_table[OP_STORE_GLOBAL] = &&LABEL_OP_STORE_GLOBAL;
         vm_dispatch_table[OP_ADD_I32_R] = &&LABEL_OP_ADD_I32_R;
+        vm_dispatch_table[OP_ADD_I32_QUICK] = &&LABEL_OP_ADD_I32_QUICK;
         vm_dispatch_table[OP_SUB_I32_R] = &&LABEL_OP_SUB_I32_R;
         vm_dispatch_table[OP_MUL_I32_R] = &&LABEL_OP_MUL_I32_R;
         vm_dispatch_table[OP_DIV_I32_R] = &&LABEL_OP_DIV_I32_R;
@@ -1212,6 +1275,8 @@ InterpretResult vm_run_dispatch(void) {
         vm_dispatch_table[OP_GE_U64_R] = &&LABEL_OP_GE_U64_R;
         vm_dispatch_table[OP_EQ_R] = &&LABEL_OP_EQ_R;
         vm_dispatch_table[OP_NE_R] = &&LABEL_OP_NE_R;
+        vm_dispatch_table[OP_EQ_I32_QUICK] = &&LABEL_OP_EQ_I32_QUICK;
+        vm_dispatch_table[OP_NE_I32_QUICK] = &&LABEL_OP_NE_I32_QUICK;
         vm_dispatch_table[OP_AND_BOOL_R] = &&LABEL_OP_AND_BOOL_R;
         vm_dispatch_table[OP_OR_BOOL_R] = &&LABEL_OP_OR_BOOL_R;
         vm_dispatch_table[OP_NOT_BOOL_R] = &&LABEL_OP_NOT_BOOL_R;
@@ -1222,6 +1287,7 @@ InterpretResult vm_run_dispatch(void) {
         vm_dispatch_table[OP_ENUM_TAG_EQ_R] = &&LABEL_OP_ENUM_TAG_EQ_R;
         vm_dispatch_table[OP_ENUM_PAYLOAD_R] = &&LABEL_OP_ENUM_PAYLOAD_R;
         vm_dispatch_table[OP_STRING_GET_R] = &&LABEL_OP_STRING_GET_R;
+        vm_dispatch_table[OP_STRING_SLICE_R] = &&LABEL_OP_STRING_SLICE_R;
         vm_dispatch_table[OP_ARRAY_GET_R] = &&LABEL_OP_ARRAY_GET_R;
         vm_dispatch_table[OP_ARRAY_SET_R] = &&LABEL_OP_ARRAY_SET_R;
         vm_dispatch_table[OP_ARRAY_LEN_R] = &&LABEL_OP_ARRAY_LEN_R;
@@ -1230,6 +1296,11 @@ InterpretResult vm_run_dispatch(void) {
         vm_dispatch_table[OP_ARRAY_SORTED_R] = &&LABEL_OP_ARRAY_SORTED_R;
         vm_dispatch_table[OP_ARRAY_REPEAT_R] = &&LABEL_OP_ARRAY_REPEAT_R;
         vm_dispatch_table[OP_ARRAY_SLICE_R] = &&LABEL_OP_ARRAY_SLICE_R;
+        vm_dispatch_table[OP_MAKE_TYPED_ARRAY_R] = &&LABEL_OP_MAKE_TYPED_ARRAY_R;
+        vm_dispatch_table[OP_ARRAY_GET_I32_TYPED] = &&LABEL_OP_ARRAY_GET_I32_TYPED;
+        vm_dispatch_table[OP_ARRAY_SET_I32_TYPED] = &&LABEL_OP_ARRAY_SET_I32_TYPED;
+        vm_dispatch_table[OP_ARRAY_GET_F64_TYPED] = &&LABEL_OP_ARRAY_GET_F64_TYPED;
+        vm_dispatch_table[OP_ARRAY_SET_F64_TYPED] = &&LABEL_OP_ARRAY_SET_F64_TYPED;
         vm_dispatch_table[OP_TO_STRING_R] = &&LABEL_OP_TO_STRING_R;
         vm_dispatch_table[OP_TRY_BEGIN] = &&LABEL_OP_TRY_BEGIN;
         vm_dispatch_table[OP_TRY_END] = &&LABEL_OP_TRY_END;
@@ -1287,9 +1358,15 @@ InterpretResult vm_run_dispatch(void) {
         
         // Built-in functions
         vm_dispatch_table[OP_TIME_STAMP] = &&LABEL_OP_TIME_STAMP;
+
+        // Generated superinstructions; unused slots fall through to LABEL_UNKNOWN
+#define VM_REGISTER_SUPERINSTRUCTION(slot, first, second, length, typed) \
+        vm_dispatch_table[OP_SUPERINSTRUCTION_##slot] = &&LABEL_OP_SUPERINSTRUCTION_##slot;
+        VM_SUPERINSTRUCTION_LIST(VM_REGISTER_SUPERINSTRUCTION)
+#undef VM_REGISTER_SUPERINSTRUCTION
         
         vm_dispatch_table[OP_HALT] = &&LABEL_OP_HALT;
-        
+
         // Mark dispatch table as initialized to prevent re-initialization
         global_dispatch_initialized = true;
         
@@ -1306,6 +1383,13 @@ InterpretResult vm_run_dispatch(void) {
                 }
             }
         }
+
+        // Bytes without a handler land on the unknown-opcode error.
+        for (int i = 0; i < VM_DISPATCH_TABLE_SIZE; i++) {
+            if (vm_dispatch_table[i] == NULL) {
+                vm_dispatch_table[i] = &&LABEL_UNKNOWN;
+            }
+        }
         fflush(stdout);
     }
 
@@ -1448,9 +1532,11 @@ InterpretResult vm_run_dispatch(void) {
                 
                 // Store the coerced value
                 vm.globals[globalIndex] = coercedValue;
+                gcGlobalWriteBarrier(globalIndex);
             } else {
                 // No declared type, store as-is
                 vm.globals[globalIndex] = valueToStore;
+                gcGlobalWriteBarrier(globalIndex);
             }
             
             DISPATCH();
@@ -1463,6 +1549,14 @@ InterpretResult vm_run_dispatch(void) {
             DISPATCH();
         }
 
+    LABEL_OP_ADD_I32_QUICK: {
+            if (!dispatch_handle_add_i32_quick()) {
+                vm_dequicken(vm.ip - 1, OP_ADD_I32_R);
+                goto LABEL_OP_ADD_I32_R;
+            }
+            DISPATCH();
+        }
+
     LABEL_OP_SUB_I32_R: {
             if (!dispatch_handle_sub_i32_r()) {
                 goto HANDLE_RUNTIME_ERROR;
@@ -2692,6 +2786,22 @@ InterpretResult vm_run_dispatch(void) {
         DISPATCH();
     }
 
+    LABEL_OP_EQ_I32_QUICK: {
+        if (!dispatch_handle_cmp_i32_quick(false)) {
+            vm_dequicken(vm.ip - 1, OP_EQ_R);
+            goto LABEL_OP_EQ_R;
+        }
+        DISPATCH();
+    }
+
+    LABEL_OP_NE_I32_QUICK: {
+        if (!dispatch_handle_cmp_i32_quick(true)) {
+            vm_dequicken(vm.ip - 1, OP_NE_R);
+            goto LABEL_OP_NE_R;
+        }
+        DISPATCH();
+    }
+
     LABEL_OP_LE_I32_R: {
         if (!dispatch_handle_le_i32_r()) {
             goto HANDLE_RUNTIME_ERROR;
@@ -2864,12 +2974,13 @@ InterpretResult vm_run_dispatch(void) {
             array->elements[i] = vm_get_register_safe(first + i);
         }
         array->length = count;
-        Value new_array = {.type = VAL_ARRAY, .as.obj = (Obj*)array};
+        Value new_array = ARRAY_VAL(array);
         vm_set_register_safe(dst, new_array);
         DISPATCH();
     }
 
     LABEL_OP_ENUM_NEW_R: {
+        const uint8_t* instruction = vm.ip - 1;
         uint8_t dst = READ_BYTE();
         uint8_t variantIndex = READ_BYTE();
         uint8_t payloadCount = READ_BYTE();
@@ -2903,12 +3014,15 @@ InterpretResult vm_run_dispatch(void) {
             payload_ptr = payload_values;
         }
 
-        const char* type_name_chars = typeName ? string_get_chars(typeName) : NULL;
-        const char* variant_name_chars = variantName ? string_get_chars(variantName) : NULL;
+        ObjString* internedType = NULL;
+        ObjString* internedVariant = NULL;
+        if (!vm_enum_cache_names(instruction, typeName, variantName, &internedType, &internedVariant)) {
+            VM_ERROR_RETURN(ERROR_RUNTIME, CURRENT_LOCATION(), "Failed to allocate enum instance");
+        }
 
         TaggedUnionSpec spec = {
-            .type_name = type_name_chars,
-            .variant_name = variant_name_chars,
+            .type_string = internedType,
+            .variant_string = internedVariant,
             .variant_index = variantIndex,
             .payload = payload_ptr,
             .payload_count = payloadCount,
@@ -2993,23 +3107,7 @@ InterpretResult vm_run_dispatch(void) {
             VM_ERROR_RETURN(ERROR_INDEX, CURRENT_LOCATION(), "String index out of bounds");
         }
 
-        ObjString* result = NULL;
-        if (source->rope) {
-            result = rope_index_to_string(source->rope, (size_t)index);
-        }
-
-        if (!result) {
-            const char* chars = string_get_chars(source);
-            if (!chars) {
-                VM_ERROR_RETURN(ERROR_RUNTIME, CURRENT_LOCATION(),
-                                "Failed to access string data");
-            }
-            char buffer[2];
-            buffer[0] = chars[index];
-            buffer[1] = '\0';
-            result = allocateString(buffer, 1);
-        }
-
+        ObjString* result = string_char_at(source, (size_t)index);
         if (!result) {
             VM_ERROR_RETURN(ERROR_RUNTIME, CURRENT_LOCATION(),
                             "Failed to extract string character");
@@ -3051,7 +3149,61 @@ InterpretResult vm_run_dispatch(void) {
         DISPATCH();
     }
 
+    LABEL_OP_STRING_SLICE_R: {
+        uint8_t dst = READ_BYTE();
+        uint8_t string_reg = READ_BYTE();
+        uint8_t start_reg = READ_BYTE();
+        uint8_t end_reg = READ_BYTE();
+
+        Value string_value = vm_get_register_safe(string_reg);
+        if (!IS_STRING(string_value)) {
+            VM_ERROR_RETURN(ERROR_TYPE, CURRENT_LOCATION(), "Value is not a string");
+        }
+
+        int start_index;
+        if (!value_to_index(vm_get_register_safe(start_reg), &start_index)) {
+            VM_ERROR_RETURN(ERROR_TYPE, CURRENT_LOCATION(), "String slice start must be a non-negative integer");
+        }
+
+        int end_index;
+        if (!value_to_index(vm_get_register_safe(end_reg), &end_index)) {
+            VM_ERROR_RETURN(ERROR_TYPE, CURRENT_LOCATION(), "String slice end must be a non-negative integer");
+        }
+
+        // Same bounds rules as OP_ARRAY_SLICE_R.
+        ObjString* source = AS_STRING(string_value);
+        int string_length = source->length;
+        if (start_index < 0 || start_index > string_length) {
+            VM_ERROR_RETURN(ERROR_INDEX, CURRENT_LOCATION(), "String slice start out of bounds");
+        }
+        if (end_index < 0 || end_index > string_length) {
+            VM_ERROR_RETURN(ERROR_INDEX, CURRENT_LOCATION(), "String slice end out of bounds");
+        }
+
+        int slice_length = 0;
+        if (start_index == string_length) {
+            if (end_index != string_length) {
+                VM_ERROR_RETURN(ERROR_INDEX, CURRENT_LOCATION(), "String slice end before start");
+            }
+        } else {
+            int normalized_end = end_index == string_length ? string_length - 1 : end_index;
+            if (normalized_end < start_index) {
+                VM_ERROR_RETURN(ERROR_INDEX, CURRENT_LOCATION(), "String slice end before start");
+            }
+            slice_length = normalized_end - start_index + 1;
+        }
+
+        ObjString* result = string_slice(source, (size_t)start_index, (size_t)slice_length);
+        if (!result) {
+            VM_ERROR_RETURN(ERROR_RUNTIME, CURRENT_LOCATION(), "Failed to slice string");
+        }
+
+        vm_set_register_safe(dst, STRING_VAL(result));
+        DISPATCH();
+    }
+
     LABEL_OP_ARRAY_GET_R: {
+        uint8_t* instruction = vm.ip - 1;
         uint8_t dst = READ_BYTE();
         uint8_t array_reg = READ_BYTE();
         uint8_t index_reg = READ_BYTE();
@@ -3067,6 +3219,9 @@ InterpretResult vm_run_dispatch(void) {
             VM_ERROR_RETURN(ERROR_TYPE, CURRENT_LOCATION(), "Array index must be a non-negative integer");
         }
 
+        dispatch_observe_array_kind(instruction, AS_ARRAY(array_value),
+                                    OP_ARRAY_GET_I32_TYPED, OP_ARRAY_GET_F64_TYPED);
+
         Value element;
         if (!arrayGet(AS_ARRAY(array_value), index, &element)) {
             VM_ERROR_RETURN(ERROR_INDEX, CURRENT_LOCATION(), "Array index out of bounds");
@@ -3077,6 +3232,7 @@ InterpretResult vm_run_dispatch(void) {
     }
 
     LABEL_OP_ARRAY_SET_R: {
+        uint8_t* instruction = vm.ip - 1;
         uint8_t array_reg = READ_BYTE();
         uint8_t index_reg = READ_BYTE();
         uint8_t value_reg = READ_BYTE();
@@ -3092,6 +3248,9 @@ InterpretResult vm_run_dispatch(void) {
             VM_ERROR_RETURN(ERROR_TYPE, CURRENT_LOCATION(), "Array index must be a non-negative integer");
         }
 
+        dispatch_observe_array_kind(instruction, AS_ARRAY(array_value),
+                                    OP_ARRAY_SET_I32_TYPED, OP_ARRAY_SET_F64_TYPED);
+
         Value value = vm_get_register_safe(value_reg);
         if (!arraySet(AS_ARRAY(array_value), index, value)) {
             VM_ERROR_RETURN(ERROR_INDEX, CURRENT_LOCATION(), "Array index out of bounds");
@@ -3105,6 +3264,11 @@ InterpretResult vm_run_dispatch(void) {
         uint8_t array_reg = READ_BYTE();
 
         Value array_value = vm_get_register_safe(array_reg);
+        if (IS_STRING(array_value)) {
+            // Open-ended string slices use this for their implicit end.
+            vm_set_register_safe(dst, I32_VAL(AS_STRING(array_value)->length));
+            DISPATCH();
+        }
         if (!IS_ARRAY(array_value)) {
             VM_ERROR_RETURN(ERROR_TYPE, CURRENT_LOCATION(), "Value is not an array");
         }
@@ -3235,24 +3399,65 @@ InterpretResult vm_run_dispatch(void) {
             slice_length = normalized_end - start_index + 1;
         }
 
-        ObjArray* result = allocateArray(slice_length);
+        ObjArray* result = allocateTypedArray(slice_length, (ArrayElementKind)array->kind);
         if (!result) {
             VM_ERROR_RETURN(ERROR_RUNTIME, CURRENT_LOCATION(), "Failed to allocate array slice");
         }
 
         if (slice_length > 0) {
             arrayEnsureCapacity(result, slice_length);
-            for (int i = 0; i < slice_length; i++) {
-                result->elements[i] = array->elements[start_index + i];
-            }
+            size_t element_size = arrayElementSize((ArrayElementKind)array->kind);
+            memcpy(result->data, (const char*)array->data + element_size * (size_t)start_index,
+                   element_size * (size_t)slice_length);
         }
         result->length = slice_length;
 
-        Value slice_value = {.type = VAL_ARRAY, .as.obj = (Obj*)result};
+        Value slice_value = ARRAY_VAL(result);
         vm_set_register_safe(dst, slice_value);
         DISPATCH();
     }
 
+    LABEL_OP_MAKE_TYPED_ARRAY_R: {
+        uint8_t dst = READ_BYTE();
+        uint8_t first = READ_BYTE();
+        uint8_t count = READ_BYTE();
+        uint8_t kind = READ_BYTE();
+
+        if (kind > ARRAY_ELEMENT_BOOL) {
+            VM_ERROR_RETURN(ERROR_RUNTIME, CURRENT_LOCATION(), "Invalid array element kind");
+        }
+        ObjArray* array = allocateTypedArray(count, (ArrayElementKind)kind);
+        if (!array) {
+            VM_ERROR_RETURN(ERROR_RUNTIME, CURRENT_LOCATION(), "Failed to allocate array");
+        }
+
+        for (uint8_t i = 0; i < count; i++) {
+            arrayPush(array, vm_get_register_safe(first + i));
+        }
+        vm_set_register_safe(dst, ARRAY_VAL(array));
+        DISPATCH();
+    }
+
+    LABEL_OP_ARRAY_GET_I32_TYPED: {
+        VM_TYPED_ARRAY_GET_I32();
+        DISPATCH();
+    }
+
+    LABEL_OP_ARRAY_SET_I32_TYPED: {
+        VM_TYPED_ARRAY_SET_I32();
+        DISPATCH();
+    }
+
+    LABEL_OP_ARRAY_GET_F64_TYPED: {
+        VM_TYPED_ARRAY_GET_F64();
+        DISPATCH();
+    }
+
+    LABEL_OP_ARRAY_SET_F64_TYPED: {
+        VM_TYPED_ARRAY_SET_F64();
+        DISPATCH();
+    }
+
     LABEL_OP_TO_STRING_R: {
         uint8_t dst = READ_BYTE();
         uint8_t src = READ_BYTE();
@@ -3373,7 +3578,7 @@ InterpretResult vm_run_dispatch(void) {
                 VM_ERROR_RETURN(ERROR_RUNTIME, CURRENT_LOCATION(), "Failed to allocate range iterator");
             }
 
-            Value iterator_value = {.type = VAL_RANGE_ITERATOR, .as.obj = (Obj*)iterator};
+            Value iterator_value = RANGE_ITERATOR_VAL(iterator);
             vm_set_register_safe(dst, iterator_value);
             DISPATCH();
         }
@@ -3384,7 +3589,7 @@ InterpretResult vm_run_dispatch(void) {
             if (!iterator) {
                 VM_ERROR_RETURN(ERROR_RUNTIME, CURRENT_LOCATION(), "Failed to allocate array iterator");
             }
-            Value iterator_value = {.type = VAL_ARRAY_ITERATOR, .as.obj = (Obj*)iterator};
+            Value iterator_value = ARRAY_ITERATOR_VAL(iterator);
             vm_set_register_safe(dst, iterator_value);
             DISPATCH();
         }
@@ -3424,11 +3629,11 @@ InterpretResult vm_run_dispatch(void) {
             bool has_value = (array != NULL) && (it->index < array->length);
 
             if (has_value) {
-                Value element = array->elements[it->index++];
+                Value element = arrayElementAt(array, it->index++);
                 bool stored_typed = false;
 
                 if (vm_typed_reg_in_range(dst)) {
-                    switch (element.type) {
+                    switch (VALUE_TYPE(element)) {
                         case VAL_I32:
                             vm_store_i32_typed_hot(dst, AS_I32(element));
                             stored_typed = true;
@@ -3727,298 +3932,114 @@ InterpretResult vm_run_dispatch(void) {
     }
 
     LABEL_OP_CALL_R: {
+            const uint8_t* instruction = vm.ip - 1;
             uint8_t funcReg = READ_BYTE();
             uint8_t firstArgReg = READ_BYTE();
             uint8_t argCount = READ_BYTE();
             uint8_t resultReg = READ_BYTE();
 
             Value funcValue = vm_get_register_safe(funcReg);
-
-            if (IS_CLOSURE(funcValue)) {
-                // Calling a closure
-                ObjClosure* closure = AS_CLOSURE(funcValue);
-                ObjFunction* function = closure->function;
-
-                // Check arity
-                if (argCount != function->arity) {
-                    vm_set_register_safe(resultReg, BOOL_VAL(false));
-                    DISPATCH();
-                }
-
-                Value tempArgs[FRAME_REGISTERS];
-                for (int i = 0; i < argCount; i++) {
-                    tempArgs[i] = vm_get_register_safe((uint16_t)(firstArgReg + i));
-                }
-
-                CallFrame* frame = allocate_frame(&vm.register_file);
-                if (!frame) {
-                    vm_set_register_safe(resultReg, BOOL_VAL(false));
-                    DISPATCH();
-                }
-
-                profileFunctionHit((void*)function, false);
-
-                uint16_t paramBase = calculateParameterBaseRegister(function->arity);
-
-                frame->returnAddress = vm.ip;
-                frame->previousChunk = vm.chunk;
-                frame->resultRegister = resultReg;
-                frame->parameterBaseRegister = paramBase;
-                frame->functionIndex = UINT16_MAX;
-                frame->register_count = argCount;
-
-                vm_set_register_safe(0, funcValue);  // Store closure in register 0 for upvalue access
-
-                for (int i = 0; i < argCount; i++) {
-                    Value arg = tempArgs[i];
-                    vm_set_register_safe((uint16_t)(paramBase + i), arg);
-                }
-
-                vm.chunk = function->chunk;
-                vm.ip = function->chunk->code;
-
+            const VMCallCacheEntry* cached = vm_call_cache_resolve(instruction, funcValue, argCount);
+            if (!cached) {
+                vm_set_register_safe(resultReg, BOOL_VAL(false));
                 DISPATCH();
-            } else if (IS_FUNCTION(funcValue)) {
-                // Calling a function object directly
-                ObjFunction* objFunction = AS_FUNCTION(funcValue);
-
-                // Check arity
-                if (argCount != objFunction->arity) {
-                    vm_set_register_safe(resultReg, BOOL_VAL(false));
-                    DISPATCH();
-                }
-
-                Value tempArgs[FRAME_REGISTERS];
-                for (int i = 0; i < argCount; i++) {
-                    tempArgs[i] = vm_get_register_safe((uint16_t)(firstArgReg + i));
-                }
-
-                CallFrame* frame = allocate_frame(&vm.register_file);
-                if (!frame) {
-                    vm_set_register_safe(resultReg, BOOL_VAL(false));
-                    DISPATCH();
-                }
-
-                profileFunctionHit((void*)objFunction, false);
-
-                uint16_t paramBase = calculateParameterBaseRegister(objFunction->arity);
-
-                frame->returnAddress = vm.ip;
-                frame->previousChunk = vm.chunk;
-                frame->resultRegister = resultReg;
-                frame->parameterBaseRegister = paramBase;
-                frame->functionIndex = UINT16_MAX;
-                frame->register_count = argCount;
-
-                for (int i = 0; i < argCount; i++) {
-                    Value arg = tempArgs[i];
-                    vm_set_register_safe((uint16_t)(paramBase + i), arg);
-                }
-
-                vm.chunk = objFunction->chunk;
-                vm.ip = objFunction->chunk->code;
+            }
+            // Copied out: the frame push below may collect, which clears the cache.
+            VMCallCacheEntry target = *cached;
 
+            Function* function =
+                target.kind == VM_CALL_TARGET_FUNCTION ? &vm.functions[target.function_index] : NULL;
+            uint16_t paramBase = calculateParameterBaseRegister(argCount);
+            CallFrame* frame = register_file_push_call_frame(&vm.register_file, firstArgReg, argCount, paramBase,
+                                                             function ? &function->window : NULL);
+            if (!frame) {
+                vm_set_register_safe(resultReg, BOOL_VAL(false));
                 DISPATCH();
-            } else if (IS_I32(funcValue)) {
-                int functionIndex = AS_I32(funcValue);
-                DEBUG_VM_PRINT("CALL: func_index=%d, args=%d\n", functionIndex, argCount);
-
-                if (functionIndex < 0 || functionIndex >= vm.functionCount) {
-                    vm_set_register_safe(resultReg, BOOL_VAL(false));
-                    DISPATCH();
-                }
-
-                Function* function = &vm.functions[functionIndex];
-
-                // Check arity
-                if (argCount != function->arity) {
-                    vm_set_register_safe(resultReg, BOOL_VAL(false));
-                    DISPATCH();
-                }
-
-                Value tempArgs[FRAME_REGISTERS];
-                for (int i = 0; i < argCount; i++) {
-                    tempArgs[i] = vm_get_register_safe((uint16_t)(firstArgReg + i));
-                }
-
-                CallFrame* frame = allocate_frame(&vm.register_file);
-                if (!frame) {
-                    vm_set_register_safe(resultReg, BOOL_VAL(false));
-                    DISPATCH();
-                }
-
-                profileFunctionHit((void*)function, false);
-
-                uint16_t paramBase = calculateParameterBaseRegister(function->arity);
+            }
 
-                frame->returnAddress = vm.ip;
-                frame->previousChunk = vm.chunk;
-                frame->resultRegister = resultReg;
-                frame->parameterBaseRegister = paramBase;
-                frame->functionIndex = (uint16_t)functionIndex;
-                frame->register_count = argCount;
+            profileFunctionHit(function ? (void*)function : (void*)target.object, false);
 
-                for (int i = 0; i < argCount; i++) {
-                    Value arg = tempArgs[i];
-                    vm_set_register_safe((uint16_t)(paramBase + i), arg);
-                }
+            frame->returnAddress = vm.ip;
+            frame->previousChunk = vm.chunk;
+            frame->resultRegister = resultReg;
+            frame->parameterBaseRegister = paramBase;
+            frame->functionIndex = target.function_index;
 
-                Chunk* target_chunk = vm_select_function_chunk(function);
-                if (!target_chunk) {
-                    vm_set_register_safe(resultReg, BOOL_VAL(false));
-                    DISPATCH();
-                }
+            if (target.kind == VM_CALL_TARGET_CLOSURE) {
+                vm_set_register_safe(0, funcValue);  // Store closure in register 0 for upvalue access
+            }
 
-                vm.chunk = target_chunk;
-                vm.ip = target_chunk->code + function->start;
+            if (!function) {
+                vm.chunk = target.object->chunk;
+                vm.ip = target.object->chunk->code;
+                DISPATCH();
+            }
 
-            } else {
+            Chunk* target_chunk = vm_select_function_chunk(function);
+            if (!target_chunk) {
                 vm_set_register_safe(resultReg, BOOL_VAL(false));
+                DISPATCH();
             }
 
+            vm.chunk = target_chunk;
+            vm.ip = target_chunk->code + function->start;
+            if (vm.jit_enabled) {
+                vm_profile_function_entry(&vm, target.function_index);
+            }
             DISPATCH();
         }
 
     LABEL_OP_TAIL_CALL_R: {
+            const uint8_t* instruction = vm.ip - 1;
             uint8_t funcReg = READ_BYTE();
             uint8_t firstArgReg = READ_BYTE();
             uint8_t argCount = READ_BYTE();
             uint8_t resultReg = READ_BYTE();
 
             Value funcValue = vm_get_register_safe(funcReg);
+            const VMCallCacheEntry* cached = vm_call_cache_resolve(instruction, funcValue, argCount);
+            if (!cached) {
+                vm_set_register_safe(resultReg, BOOL_VAL(false));
+                DISPATCH();
+            }
+            // Copied out: the frame push below may collect, which clears the cache.
+            VMCallCacheEntry target = *cached;
 
-            if (IS_CLOSURE(funcValue)) {
-                ObjClosure* closure = AS_CLOSURE(funcValue);
-                ObjFunction* function = closure->function;
-
-                if (argCount != function->arity) {
-                    vm_set_register_safe(resultReg, BOOL_VAL(false));
-                    DISPATCH();
-                }
-
-                Value tempArgs[FRAME_REGISTERS];
-                for (int i = 0; i < argCount; i++) {
-                    tempArgs[i] = vm_get_register_safe((uint16_t)(firstArgReg + i));
-                }
-
-                uint16_t paramBase = calculateParameterBaseRegister(function->arity);
-
-                CallFrame* frame = vm.register_file.current_frame;
-                if (!frame) {
-                    vm_set_register_safe(resultReg, BOOL_VAL(false));
-                    DISPATCH();
-                }
-
-                profileFunctionHit((void*)function, false);
+            Function* function =
+                target.kind == VM_CALL_TARGET_FUNCTION ? &vm.functions[target.function_index] : NULL;
+            uint16_t paramBase = calculateParameterBaseRegister(argCount);
+            CallFrame* frame = vm.register_file.current_frame;
+            if (!frame ||
+                !register_file_rebind_tail_call(&vm.register_file, firstArgReg, argCount, paramBase,
+                                                function ? &function->window : NULL)) {
+                vm_set_register_safe(resultReg, BOOL_VAL(false));
+                DISPATCH();
+            }
 
-                frame->parameterBaseRegister = paramBase;
-                frame->resultRegister = resultReg;
-                frame->functionIndex = UINT16_MAX;
-                frame->register_count = argCount;
+            profileFunctionHit(function ? (void*)function : (void*)target.object, false);
 
-                register_file_clear_active_typed_frame();
-                register_file_reset_active_frame_storage();
+            frame->parameterBaseRegister = paramBase;
+            frame->resultRegister = resultReg;
+            frame->functionIndex = target.function_index;
 
+            if (target.kind == VM_CALL_TARGET_CLOSURE) {
                 vm_set_register_safe(0, funcValue);
+            }
 
-                for (int i = 0; i < argCount; i++) {
-                    vm_set_register_safe((uint16_t)(paramBase + i), tempArgs[i]);
-                }
-
-                vm.chunk = function->chunk;
-                vm.ip = function->chunk->code;
-
-            } else if (IS_FUNCTION(funcValue)) {
-                ObjFunction* objFunction = AS_FUNCTION(funcValue);
-
-                if (argCount != objFunction->arity) {
-                    vm_set_register_safe(resultReg, BOOL_VAL(false));
-                    DISPATCH();
-                }
-
-                Value tempArgs[FRAME_REGISTERS];
-                for (int i = 0; i < argCount; i++) {
-                    tempArgs[i] = vm_get_register_safe((uint16_t)(firstArgReg + i));
-                }
-
-                uint16_t paramBase = calculateParameterBaseRegister(objFunction->arity);
-
-                CallFrame* frame = vm.register_file.current_frame;
-                if (!frame) {
-                    vm_set_register_safe(resultReg, BOOL_VAL(false));
-                    DISPATCH();
-                }
-
-                profileFunctionHit((void*)objFunction, false);
-
-                frame->parameterBaseRegister = paramBase;
-                frame->resultRegister = resultReg;
-                frame->functionIndex = UINT16_MAX;
-                frame->register_count = argCount;
-
-                register_file_clear_active_typed_frame();
-                register_file_reset_active_frame_storage();
-
-                for (int i = 0; i < argCount; i++) {
-                    vm_set_register_safe((uint16_t)(paramBase + i), tempArgs[i]);
-                }
-
-                vm.chunk = objFunction->chunk;
-                vm.ip = objFunction->chunk->code;
-
-            } else if (IS_I32(funcValue)) {
-                int functionIndex = AS_I32(funcValue);
-
-                if (functionIndex < 0 || functionIndex >= vm.functionCount) {
-                    vm_set_register_safe(resultReg, BOOL_VAL(false));
-                    DISPATCH();
-                }
-
-                Function* function = &vm.functions[functionIndex];
-
-                // Check arity
-                if (argCount != function->arity) {
-                    vm_set_register_safe(resultReg, BOOL_VAL(false));
-                    DISPATCH();
-                }
-
-                Value tempArgs[FRAME_REGISTERS];
-                for (int i = 0; i < argCount; i++) {
-                    tempArgs[i] = vm_get_register_safe((uint16_t)(firstArgReg + i));
-                }
-
-                uint16_t paramBase = calculateParameterBaseRegister(function->arity);
-
-                CallFrame* frame = vm.register_file.current_frame;
-                if (frame) {
-                    profileFunctionHit((void*)function, false);
-
-                    frame->parameterBaseRegister = paramBase;
-                    frame->resultRegister = resultReg;
-                    frame->functionIndex = (uint16_t)functionIndex;
-                    frame->register_count = argCount;
-                } else {
-                    vm_set_register_safe(resultReg, BOOL_VAL(false));
-                    DISPATCH();
-                }
-
-                for (int i = 0; i < argCount; i++) {
-                    vm_set_register_safe((uint16_t)(paramBase + i), tempArgs[i]);
-                }
-
-                Chunk* target_chunk = vm_select_function_chunk(function);
-                if (!target_chunk) {
-                    vm_set_register_safe(resultReg, BOOL_VAL(false));
-                    DISPATCH();
-                }
-
-                vm.chunk = target_chunk;
-                vm.ip = target_chunk->code + function->start;
+            if (!function) {
+                vm.chunk = target.object->chunk;
+                vm.ip = target.object->chunk->code;
+                DISPATCH();
+            }
 
-            } else {
+            Chunk* target_chunk = vm_select_function_chunk(function);
+            if (!target_chunk) {
                 vm_set_register_safe(resultReg, BOOL_VAL(false));
+                DISPATCH();
             }
 
+            vm.chunk = target_chunk;
+            vm.ip = target_chunk->code + function->start;
             DISPATCH();
         }
 
@@ -4921,10 +4942,12 @@ InterpretResult vm_run_dispatch(void) {
                     slot = &vm.registers[index];
                 }
                 closure->upvalues[i] = captureUpvalue(slot);
+                gcWriteBarrierObject((Obj*)closure, (Obj*)closure->upvalues[i]);
             } else {
                 Value enclosing_value = vm_get_register_safe(0);
                 ObjClosure* enclosing = AS_CLOSURE(enclosing_value); // Current closure
                 closure->upvalues[i] = enclosing->upvalues[index];
+                gcWriteBarrierObject((Obj*)closure, (Obj*)closure->upvalues[i]);
             }
         }
         
@@ -4970,7 +4993,9 @@ InterpretResult vm_run_dispatch(void) {
             VM_ERROR_RETURN(ERROR_RUNTIME, CURRENT_LOCATION(), "Invalid upvalue access");
         }
 
-        *closure->upvalues[upvalueIndex]->location = vm_get_register_safe(valueReg);
+        Value stored = vm_get_register_safe(valueReg);
+        gcWriteBarrier((Obj*)closure->upvalues[upvalueIndex], stored);
+        *closure->upvalues[upvalueIndex]->location = stored;
         DISPATCH();
     }
 
@@ -4985,6 +5010,8 @@ InterpretResult vm_run_dispatch(void) {
         DISPATCH();
     }
 
+#include "vm_superinstructions_goto.inc"
+
     LABEL_OP_HALT:
         // printf("[DISPATCH_TRACE] OP_HALT reached - program should terminate");
         fflush(stdout);
@@ -5001,7 +5028,8 @@ InterpretResult vm_run_dispatch(void) {
         DISPATCH();
 
     LABEL_UNKNOWN: __attribute__((unused))
-        VM_ERROR_RETURN(ERROR_RUNTIME, CURRENT_LOCATION(), "Unknown opcode: %d", instruction);
+        VM_ERROR_RETURN(ERROR_RUNTIME, CURRENT_LOCATION(), "Unknown opcode: %d",
+                        vm.instruction_start ? *vm.instruction_start : instruction);
 
 #undef DEFINE_F64_COMPARE_HELPER
 #undef DEFINE_NUMERIC_COMPARE_HELPER
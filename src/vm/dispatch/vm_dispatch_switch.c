@@ -15,7 +15,9 @@
 #include "vm/vm_opcode_handlers.h"
 #include "vm/register_file.h"
 #include "vm/vm_profiling.h"
+#include "vm/vm_inline_cache.h"
 #include "vm/vm_tiering.h"
+#include "vm/vm_superinstructions.h"
 #include "debug/debug_config.h"
 #include <math.h>
 #include <limits.h>
@@ -245,6 +247,7 @@ static inline bool value_to_index(Value value, int* out_index) {
     }
 
 static inline bool dispatch_handle_add_i32_r(void) {
+    uint8_t* instruction = vm.ip - 1;
     uint8_t dst = READ_BYTE();
     uint8_t src1 = READ_BYTE();
     uint8_t src2 = READ_BYTE();
@@ -257,6 +260,7 @@ static inline bool dispatch_handle_add_i32_r(void) {
         left_typed.type == right_typed.type) {
         switch (left_typed.type) {
             case REG_TYPE_I32:
+                vm_quicken_observe(instruction, OP_ADD_I32_QUICK);
                 vm_store_i32_typed_hot(dst, left_typed.value.i32 + right_typed.value.i32);
                 return true;
             case REG_TYPE_I64:
@@ -279,6 +283,10 @@ static inline bool dispatch_handle_add_i32_r(void) {
     Value val1 = vm_get_register_safe(src1);
     Value val2 = vm_get_register_safe(src2);
 
+    if (!(IS_I32(val1) && IS_I32(val2))) {
+        vm_quicken_reject(instruction);
+    }
+
     if (IS_STRING(val1) || IS_STRING(val2)) {
         Value left = val1;
         Value right = val2;
@@ -345,6 +353,7 @@ static inline bool dispatch_handle_add_i32_r(void) {
         int32_t b = AS_I32(val2);
         vm_cache_i32_typed(src1, a);
         vm_cache_i32_typed(src2, b);
+        vm_quicken_observe(instruction, OP_ADD_I32_QUICK);
         vm_store_i32_typed_hot(dst, a + b);
     } else if (IS_I64(val1)) {
         int64_t a = AS_I64(val1);
@@ -832,18 +841,71 @@ DEFINE_NUMERIC_COMPARE_HELPER(dispatch_handle_gt_u64_r, uint64_t, vm_try_read_u6
 DEFINE_NUMERIC_COMPARE_HELPER(dispatch_handle_ge_u64_r, uint64_t, vm_try_read_u64_typed, IS_U64, AS_U64,
                               vm_cache_u64_typed, >=, "Operands must be u64")
 
+static inline bool dispatch_values_equal(uint8_t quick_opcode) {
+    uint8_t* instruction = vm.ip - 1;
+    uint8_t src1 = vm.ip[1];
+    uint8_t src2 = vm.ip[2];
+    Value left = vm_get_register_safe(src1);
+    Value right = vm_get_register_safe(src2);
+    if (IS_I32(left) && IS_I32(right)) {
+        vm_quicken_observe(instruction, quick_opcode);
+    } else {
+        vm_quicken_reject(instruction);
+    }
+    return valuesEqual(left, right);
+}
+
 static inline void dispatch_handle_eq_r(void) {
+    bool equal = dispatch_values_equal(OP_EQ_I32_QUICK);
     uint8_t dst = READ_BYTE();
-    uint8_t src1 = READ_BYTE();
-    uint8_t src2 = READ_BYTE();
-    vm_set_register_safe(dst, BOOL_VAL(valuesEqual(vm_get_register_safe(src1), vm_get_register_safe(src2))));
+    vm.ip += 2;
+    vm_set_register_safe(dst, BOOL_VAL(equal));
 }
 
 static inline void dispatch_handle_ne_r(void) {
+    bool equal = dispatch_values_equal(OP_NE_I32_QUICK);
     uint8_t dst = READ_BYTE();
-    uint8_t src1 = READ_BYTE();
-    uint8_t src2 = READ_BYTE();
-    vm_set_register_safe(dst, BOOL_VAL(!valuesEqual(vm_get_register_safe(src1), vm_get_register_safe(src2))));
+    vm.ip += 2;
+    vm_set_register_safe(dst, BOOL_VAL(!equal));
+}
+
+// Packed i32/f64 arrays have typed element opcodes with the same encoding
+// that fall back to the boxed path for any other array, so a site that only
+// sees one packed kind can be quickened without a de-quickening guard.
+static inline void dispatch_observe_array_kind(uint8_t* instruction, const ObjArray* array,
+                                               uint8_t i32_opcode, uint8_t f64_opcode) {
+    if (array->kind == ARRAY_ELEMENT_I32) {
+        vm_quicken_observe(instruction, i32_opcode);
+    } else if (array->kind == ARRAY_ELEMENT_F64) {
+        vm_quicken_observe(instruction, f64_opcode);
+    }
+}
+
+// Quickened handlers leave vm.ip on the operands and return false when an
+// operand is not an i32; the caller then restores the generic opcode and
+// runs the generic handler instead.
+static inline bool dispatch_handle_cmp_i32_quick(bool negate) {
+    int32_t left;
+    int32_t right;
+    if (!vm_read_i32_hot(vm.ip[1], &left) || !vm_read_i32_hot(vm.ip[2], &right)) {
+        return false;
+    }
+    uint8_t dst = READ_BYTE();
+    vm.ip += 2;
+    vm_store_bool_register(dst, (left == right) != negate);
+    return true;
+}
+
+static inline bool dispatch_handle_add_i32_quick(void) {
+    int32_t left;
+    int32_t right;
+    if (!vm_read_i32_hot(vm.ip[1], &left) || !vm_read_i32_hot(vm.ip[2], &right)) {
+        return false;
+    }
+    uint8_t dst = READ_BYTE();
+    vm.ip += 2;
+    vm_store_i32_typed_hot(dst, left + right);
+    return true;
 }
 
 static inline bool dispatch_handle_jump_short(void) {
@@ -903,21 +965,23 @@ InterpretResult vm_run_dispatch(void) {
                 disassembleInstruction(vm.chunk, (int)(vm.ip - vm.chunk->code));
             }
 
-            vm.instruction_count++;
-            vm_tiering_instruction_tick(vm.instruction_count);
-
+            const uint8_t* inst_addr = vm.ip;
             uint8_t instruction = READ_BYTE();
-            const uint8_t* inst_addr = vm.ip - 1;
-            vm_update_source_location((size_t)((vm.ip - vm.chunk->code) - 1));
+            vm.instruction_start = inst_addr;
             PROFILE_INC(instruction);
 
-            if (g_profiling.isActive) {
-                g_profiling.totalInstructions++;
-                profileOpcodeWindow(inst_addr, instruction);
-            }
+            if (unlikely(g_profiling.isActive || vm.fusion_patch_count != 0)) {
+                vm.instruction_count++;
+                vm_tiering_instruction_tick(vm.instruction_count);
+
+                if (g_profiling.isActive) {
+                    g_profiling.totalInstructions++;
+                    profileOpcodeWindow(inst_addr, instruction);
+                }
 
-            if (vm_tiering_try_execute_fused(inst_addr, instruction)) {
-                continue;
+                if (vm_tiering_try_execute_fused(inst_addr, instruction)) {
+                    continue;
+                }
             }
 
             switch (instruction) {
@@ -960,6 +1024,16 @@ InterpretResult vm_run_dispatch(void) {
                     break;
                 }
 
+                case OP_ADD_I32_QUICK: {
+                    if (!dispatch_handle_add_i32_quick()) {
+                        vm_dequicken(vm.ip - 1, OP_ADD_I32_R);
+                        if (!dispatch_handle_add_i32_r()) {
+                            goto HANDLE_RUNTIME_ERROR;
+                        }
+                    }
+                    break;
+                }
+
                 case OP_SUB_I32_R: {
                     if (!dispatch_handle_sub_i32_r()) {
                         goto HANDLE_RUNTIME_ERROR;
@@ -2297,6 +2371,22 @@ InterpretResult vm_run_dispatch(void) {
                     break;
                 }
 
+                case OP_EQ_I32_QUICK: {
+                    if (!dispatch_handle_cmp_i32_quick(false)) {
+                        vm_dequicken(vm.ip - 1, OP_EQ_R);
+                        dispatch_handle_eq_r();
+                    }
+                    break;
+                }
+
+                case OP_NE_I32_QUICK: {
+                    if (!dispatch_handle_cmp_i32_quick(true)) {
+                        vm_dequicken(vm.ip - 1, OP_NE_R);
+                        dispatch_handle_ne_r();
+                    }
+                    break;
+                }
+
                 case OP_AND_BOOL_R: {
                     uint8_t dst = READ_BYTE();
                     uint8_t src1 = READ_BYTE();
@@ -2372,21 +2462,10 @@ InterpretResult vm_run_dispatch(void) {
                         VM_ERROR_RETURN(ERROR_INDEX, CURRENT_LOCATION(), "String index out of bounds");
                     }
 
-                    ObjString* result = NULL;
-                    if (source->rope) {
-                        result = rope_index_to_string(source->rope, (size_t)index);
-                    }
-
+                    ObjString* result = string_char_at(source, (size_t)index);
                     if (!result) {
-                        const char* chars = string_get_chars(source);
-                        if (!chars) {
-                            VM_ERROR_RETURN(ERROR_RUNTIME, CURRENT_LOCATION(),
-                                            "Failed to access string data");
-                        }
-                        char buffer[2];
-                        buffer[0] = chars[index];
-                        buffer[1] = '\0';
-                        result = allocateString(buffer, 1);
+                        VM_ERROR_RETURN(ERROR_RUNTIME, CURRENT_LOCATION(),
+                                        "Failed to access string data");
                     }
 
                     vm_set_register_safe(dst, STRING_VAL(result));
@@ -2414,6 +2493,7 @@ InterpretResult vm_run_dispatch(void) {
                 }
 
                 case OP_ENUM_NEW_R: {
+                    const uint8_t* instruction = vm.ip - 1;
                     uint8_t dst = READ_BYTE();
                     uint8_t variantIndex = READ_BYTE();
                     uint8_t payloadCount = READ_BYTE();
@@ -2447,9 +2527,16 @@ InterpretResult vm_run_dispatch(void) {
                         payload_ptr = payload_values;
                     }
 
+                    ObjString* internedType = NULL;
+                    ObjString* internedVariant = NULL;
+                    if (!vm_enum_cache_names(instruction, typeName, variantName, &internedType,
+                                             &internedVariant)) {
+                        VM_ERROR_RETURN(ERROR_RUNTIME, CURRENT_LOCATION(), "Failed to allocate enum instance");
+                    }
+
                     TaggedUnionSpec spec = {
-                        .type_name = typeName ? string_get_chars(typeName) : NULL,
-                        .variant_name = variantName ? string_get_chars(variantName) : NULL,
+                        .type_string = internedType,
+                        .variant_string = internedVariant,
                         .variant_index = variantIndex,
                         .payload = payload_ptr,
                         .payload_count = payloadCount,
@@ -2545,7 +2632,61 @@ InterpretResult vm_run_dispatch(void) {
                     break;
                 }
 
+                case OP_STRING_SLICE_R: {
+                    uint8_t dst = READ_BYTE();
+                    uint8_t string_reg = READ_BYTE();
+                    uint8_t start_reg = READ_BYTE();
+                    uint8_t end_reg = READ_BYTE();
+
+                    Value string_value = vm_get_register_safe(string_reg);
+                    if (!IS_STRING(string_value)) {
+                        VM_ERROR_RETURN(ERROR_TYPE, CURRENT_LOCATION(), "Value is not a string");
+                    }
+
+                    int start_index;
+                    if (!value_to_index(vm_get_register_safe(start_reg), &start_index)) {
+                        VM_ERROR_RETURN(ERROR_TYPE, CURRENT_LOCATION(), "String slice start must be a non-negative integer");
+                    }
+
+                    int end_index;
+                    if (!value_to_index(vm_get_register_safe(end_reg), &end_index)) {
+                        VM_ERROR_RETURN(ERROR_TYPE, CURRENT_LOCATION(), "String slice end must be a non-negative integer");
+                    }
+
+                    // Same bounds rules as OP_ARRAY_SLICE_R.
+                    ObjString* source = AS_STRING(string_value);
+                    int string_length = source->length;
+                    if (start_index < 0 || start_index > string_length) {
+                        VM_ERROR_RETURN(ERROR_INDEX, CURRENT_LOCATION(), "String slice start out of bounds");
+                    }
+                    if (end_index < 0 || end_index > string_length) {
+                        VM_ERROR_RETURN(ERROR_INDEX, CURRENT_LOCATION(), "String slice end out of bounds");
+                    }
+
+                    int slice_length = 0;
+                    if (start_index == string_length) {
+                        if (end_index != string_length) {
+                            VM_ERROR_RETURN(ERROR_INDEX, CURRENT_LOCATION(), "String slice end before start");
+                        }
+                    } else {
+                        int normalized_end = end_index == string_length ? string_length - 1 : end_index;
+                        if (normalized_end < start_index) {
+                            VM_ERROR_RETURN(ERROR_INDEX, CURRENT_LOCATION(), "String slice end before start");
+                        }
+                        slice_length = normalized_end - start_index + 1;
+                    }
+
+                    ObjString* result = string_slice(source, (size_t)start_index, (size_t)slice_length);
+                    if (!result) {
+                        VM_ERROR_RETURN(ERROR_RUNTIME, CURRENT_LOCATION(), "Failed to slice string");
+                    }
+
+                    vm_set_register_safe(dst, STRING_VAL(result));
+                    break;
+                }
+
                 case OP_ARRAY_GET_R: {
+                    uint8_t* instruction = vm.ip - 1;
                     uint8_t dst = READ_BYTE();
                     uint8_t array_reg = READ_BYTE();
                     uint8_t index_reg = READ_BYTE();
@@ -2560,6 +2701,9 @@ InterpretResult vm_run_dispatch(void) {
                         VM_ERROR_RETURN(ERROR_TYPE, CURRENT_LOCATION(), "Array index must be a non-negative integer");
                     }
 
+                    dispatch_observe_array_kind(instruction, AS_ARRAY(array_value),
+                                                OP_ARRAY_GET_I32_TYPED, OP_ARRAY_GET_F64_TYPED);
+
                     Value element;
                     if (!arrayGet(AS_ARRAY(array_value), index, &element)) {
                         VM_ERROR_RETURN(ERROR_INDEX, CURRENT_LOCATION(), "Array index out of bounds");
@@ -2570,6 +2714,7 @@ InterpretResult vm_run_dispatch(void) {
                 }
 
                 case OP_ARRAY_SET_R: {
+                    uint8_t* instruction = vm.ip - 1;
                     uint8_t array_reg = READ_BYTE();
                     uint8_t index_reg = READ_BYTE();
                     uint8_t value_reg = READ_BYTE();
@@ -2584,6 +2729,9 @@ InterpretResult vm_run_dispatch(void) {
                         VM_ERROR_RETURN(ERROR_TYPE, CURRENT_LOCATION(), "Array index must be a non-negative integer");
                     }
 
+                    dispatch_observe_array_kind(instruction, AS_ARRAY(array_value),
+                                                OP_ARRAY_SET_I32_TYPED, OP_ARRAY_SET_F64_TYPED);
+
                     Value value = vm_get_register_safe(value_reg);
                     if (!arraySet(AS_ARRAY(array_value), index, value)) {
                         VM_ERROR_RETURN(ERROR_INDEX, CURRENT_LOCATION(), "Array index out of bounds");
@@ -2596,6 +2744,11 @@ InterpretResult vm_run_dispatch(void) {
                     uint8_t array_reg = READ_BYTE();
 
                     Value array_value = vm_get_register_safe(array_reg);
+                    if (IS_STRING(array_value)) {
+                        // Open-ended string slices use this for their implicit end.
+                        vm_set_register_safe(dst, I32_VAL(AS_STRING(array_value)->length));
+                        break;
+                    }
                     if (!IS_ARRAY(array_value)) {
                         VM_ERROR_RETURN(ERROR_TYPE, CURRENT_LOCATION(), "Value is not an array");
                     }
@@ -2692,16 +2845,16 @@ InterpretResult vm_run_dispatch(void) {
                         slice_length = normalized_end - start_index + 1;
                     }
 
-                    ObjArray* result = allocateArray(slice_length);
+                    ObjArray* result = allocateTypedArray(slice_length, (ArrayElementKind)array->kind);
                     if (!result) {
                         VM_ERROR_RETURN(ERROR_RUNTIME, CURRENT_LOCATION(), "Failed to allocate array slice");
                     }
 
                     if (slice_length > 0) {
                         arrayEnsureCapacity(result, slice_length);
-                        for (int i = 0; i < slice_length; i++) {
-                            result->elements[i] = array->elements[start_index + i];
-                        }
+                        size_t element_size = arrayElementSize((ArrayElementKind)array->kind);
+                        memcpy(result->data, (const char*)array->data + element_size * (size_t)start_index,
+                               element_size * (size_t)slice_length);
                     }
                     result->length = slice_length;
 
@@ -2710,6 +2863,47 @@ InterpretResult vm_run_dispatch(void) {
                     break;
                 }
 
+                case OP_MAKE_TYPED_ARRAY_R: {
+                    uint8_t dst = READ_BYTE();
+                    uint8_t first = READ_BYTE();
+                    uint8_t count = READ_BYTE();
+                    uint8_t kind = READ_BYTE();
+
+                    if (kind > ARRAY_ELEMENT_BOOL) {
+                        VM_ERROR_RETURN(ERROR_RUNTIME, CURRENT_LOCATION(), "Invalid array element kind");
+                    }
+                    ObjArray* array = allocateTypedArray(count, (ArrayElementKind)kind);
+                    if (!array) {
+                        VM_ERROR_RETURN(ERROR_RUNTIME, CURRENT_LOCATION(), "Failed to allocate array");
+                    }
+
+                    for (uint8_t i = 0; i < count; i++) {
+                        arrayPush(array, vm_get_register_safe(first + i));
+                    }
+                    vm_set_register_safe(dst, ARRAY_VAL(array));
+                    break;
+                }
+
+                case OP_ARRAY_GET_I32_TYPED: {
+                    VM_TYPED_ARRAY_GET_I32();
+                    break;
+                }
+
+                case OP_ARRAY_SET_I32_TYPED: {
+                    VM_TYPED_ARRAY_SET_I32();
+                    break;
+                }
+
+                case OP_ARRAY_GET_F64_TYPED: {
+                    VM_TYPED_ARRAY_GET_F64();
+                    break;
+                }
+
+                case OP_ARRAY_SET_F64_TYPED: {
+                    VM_TYPED_ARRAY_SET_F64();
+                    break;
+                }
+
                 case OP_GET_ITER_R: {
                     uint8_t dst = READ_BYTE();
                     uint8_t src = READ_BYTE();
@@ -2798,7 +2992,7 @@ InterpretResult vm_run_dispatch(void) {
                         bool has_value = (array != NULL) && (it->index < array->length);
 
                         if (has_value) {
-                            Value element = array->elements[it->index++];
+                            Value element = arrayElementAt(array, it->index++);
                             bool stored_typed = false;
 
                             if (vm_typed_reg_in_range(dst)) {
@@ -3033,6 +3227,7 @@ InterpretResult vm_run_dispatch(void) {
                 }
 
                 case OP_CALL_R: {
+                    const uint8_t* instruction = vm.ip - 1;
                     DEBUG_VM_PRINT("OP_CALL_R executed");
                     uint8_t funcReg = READ_BYTE();
                     uint8_t firstArgReg = READ_BYTE();
@@ -3040,282 +3235,110 @@ InterpretResult vm_run_dispatch(void) {
                     uint8_t resultReg = READ_BYTE();
 
                     Value funcValue = vm_get_register_safe(funcReg);
+                    const VMCallCacheEntry* cached = vm_call_cache_resolve(instruction, funcValue, argCount);
+                    if (!cached) {
+                        vm_set_register_safe(resultReg, BOOL_VAL(false));
+                        break;
+                    }
+                    // Copied out: the frame push below may collect, which clears the cache.
+                    VMCallCacheEntry target = *cached;
 
-                    if (IS_CLOSURE(funcValue)) {
-                        ObjClosure* closure = AS_CLOSURE(funcValue);
-                        ObjFunction* function = closure->function;
-
-                        if (argCount != function->arity) {
-                            vm_set_register_safe(resultReg, BOOL_VAL(false));
-                            break;
-                        }
-
-                        Value tempArgs[FRAME_REGISTERS];
-                        for (int i = 0; i < argCount; i++) {
-                            tempArgs[i] = vm_get_register_safe((uint16_t)(firstArgReg + i));
-                        }
-
-                        CallFrame* frame = allocate_frame(&vm.register_file);
-                        if (!frame) {
-                            vm_set_register_safe(resultReg, BOOL_VAL(false));
-                            break;
-                        }
-
-                        profileFunctionHit((void*)function, false);
-
-                        uint16_t paramBase = calculateParameterBaseRegister(function->arity);
-
-                        frame->returnAddress = vm.ip;
-                        frame->previousChunk = vm.chunk;
-                        frame->resultRegister = resultReg;
-                        frame->parameterBaseRegister = paramBase;
-                        frame->functionIndex = UINT16_MAX;
-                        frame->register_count = argCount;
-
-                        vm_set_register_safe(0, funcValue);
-
-                        for (int i = 0; i < argCount; i++) {
-                            Value arg = tempArgs[i];
-                            vm_set_register_safe((uint16_t)(paramBase + i), arg);
-                        }
-
-                        vm.chunk = function->chunk;
-                        vm.ip = function->chunk->code;
-
-                    } else if (IS_FUNCTION(funcValue)) {
-                        ObjFunction* objFunction = AS_FUNCTION(funcValue);
-
-                        if (argCount != objFunction->arity) {
-                            vm_set_register_safe(resultReg, BOOL_VAL(false));
-                            break;
-                        }
-
-                        Value tempArgs[FRAME_REGISTERS];
-                        for (int i = 0; i < argCount; i++) {
-                            tempArgs[i] = vm_get_register_safe((uint16_t)(firstArgReg + i));
-                        }
-
-                        CallFrame* frame = allocate_frame(&vm.register_file);
-                        if (!frame) {
-                            vm_set_register_safe(resultReg, BOOL_VAL(false));
-                            break;
-                        }
-
-                        profileFunctionHit((void*)objFunction, false);
-
-                        uint16_t paramBase = calculateParameterBaseRegister(objFunction->arity);
-
-                        frame->returnAddress = vm.ip;
-                        frame->previousChunk = vm.chunk;
-                        frame->resultRegister = resultReg;
-                        frame->parameterBaseRegister = paramBase;
-                        frame->functionIndex = UINT16_MAX;
-                        frame->register_count = argCount;
-
-                        for (int i = 0; i < argCount; i++) {
-                            Value arg = tempArgs[i];
-                            vm_set_register_safe((uint16_t)(paramBase + i), arg);
-                        }
-
-                        vm.chunk = objFunction->chunk;
-                        vm.ip = objFunction->chunk->code;
-
-                    } else if (IS_I32(funcValue)) {
-                        int functionIndex = AS_I32(funcValue);
-
-                        if (functionIndex < 0 || functionIndex >= vm.functionCount) {
-                            vm_set_register_safe(resultReg, BOOL_VAL(false));
-                            break;
-                        }
-
-                        Function* function = &vm.functions[functionIndex];
-
-                        if (argCount != function->arity) {
-                            vm_set_register_safe(resultReg, BOOL_VAL(false));
-                            break;
-                        }
-
-                        Value tempArgs[FRAME_REGISTERS];
-                        for (int i = 0; i < argCount; i++) {
-                            tempArgs[i] = vm_get_register_safe((uint16_t)(firstArgReg + i));
-                        }
-
-                        CallFrame* frame = allocate_frame(&vm.register_file);
-                        if (!frame) {
-                            vm_set_register_safe(resultReg, BOOL_VAL(false));
-                            break;
-                        }
-
-                        profileFunctionHit((void*)function, false);
-
-                        uint16_t paramBase = calculateParameterBaseRegister(function->arity);
+                    Function* function =
+                        target.kind == VM_CALL_TARGET_FUNCTION ? &vm.functions[target.function_index] : NULL;
+                    uint16_t paramBase = calculateParameterBaseRegister(argCount);
+                    CallFrame* frame = register_file_push_call_frame(&vm.register_file, firstArgReg, argCount, paramBase,
+                                                                     function ? &function->window : NULL);
+                    if (!frame) {
+                        vm_set_register_safe(resultReg, BOOL_VAL(false));
+                        break;
+                    }
 
-                        frame->returnAddress = vm.ip;
-                        frame->previousChunk = vm.chunk;
-                        frame->resultRegister = resultReg;
-                        frame->parameterBaseRegister = paramBase;
-                        frame->functionIndex = (uint16_t)functionIndex;
-                        frame->register_count = argCount;
+                    profileFunctionHit(function ? (void*)function : (void*)target.object, false);
 
-                        for (int i = 0; i < argCount; i++) {
-                            Value arg = tempArgs[i];
-                            vm_set_register_safe((uint16_t)(paramBase + i), arg);
-                        }
+                    frame->returnAddress = vm.ip;
+                    frame->previousChunk = vm.chunk;
+                    frame->resultRegister = resultReg;
+                    frame->parameterBaseRegister = paramBase;
+                    frame->functionIndex = target.function_index;
 
-                        Chunk* target_chunk = vm_select_function_chunk(function);
-                        if (!target_chunk) {
-                            vm_set_register_safe(resultReg, BOOL_VAL(false));
-                            break;
-                        }
+                    if (target.kind == VM_CALL_TARGET_CLOSURE) {
+                        vm_set_register_safe(0, funcValue);  // Store closure in register 0 for upvalue access
+                    }
 
-                        vm.chunk = target_chunk;
-                        vm.ip = target_chunk->code + function->start;
+                    if (!function) {
+                        vm.chunk = target.object->chunk;
+                        vm.ip = target.object->chunk->code;
+                        break;
+                    }
 
-                    } else {
+                    Chunk* target_chunk = vm_select_function_chunk(function);
+                    if (!target_chunk) {
                         vm_set_register_safe(resultReg, BOOL_VAL(false));
+                        break;
+                    }
+
+                    vm.chunk = target_chunk;
+                    vm.ip = target_chunk->code + function->start;
+                    if (vm.jit_enabled) {
+                        vm_profile_function_entry(&vm, target.function_index);
                     }
                     break;
                 }
+
                 case OP_TAIL_CALL_R: {
+                    const uint8_t* instruction = vm.ip - 1;
                     uint8_t funcReg = READ_BYTE();
                     uint8_t firstArgReg = READ_BYTE();
                     uint8_t argCount = READ_BYTE();
                     uint8_t resultReg = READ_BYTE();
 
                     Value funcValue = vm_get_register_safe(funcReg);
+                    const VMCallCacheEntry* cached = vm_call_cache_resolve(instruction, funcValue, argCount);
+                    if (!cached) {
+                        vm_set_register_safe(resultReg, BOOL_VAL(false));
+                        break;
+                    }
+                    // Copied out: the frame push below may collect, which clears the cache.
+                    VMCallCacheEntry target = *cached;
 
-                    if (IS_CLOSURE(funcValue)) {
-                        ObjClosure* closure = AS_CLOSURE(funcValue);
-                        ObjFunction* objFunction = closure->function;
-
-                        if (argCount != objFunction->arity) {
-                            vm_set_register_safe(resultReg, BOOL_VAL(false));
-                            break;
-                        }
-
-                        Value tempArgs[FRAME_REGISTERS];
-                        for (int i = 0; i < argCount; i++) {
-                            tempArgs[i] = vm_get_register_safe((uint16_t)(firstArgReg + i));
-                        }
-
-                        uint16_t paramBase = calculateParameterBaseRegister(objFunction->arity);
-
-                        CallFrame* frame = vm.register_file.current_frame;
-                        if (!frame) {
-                            vm_set_register_safe(resultReg, BOOL_VAL(false));
-                            break;
-                        }
-
-                        profileFunctionHit((void*)objFunction, false);
+                    Function* function =
+                        target.kind == VM_CALL_TARGET_FUNCTION ? &vm.functions[target.function_index] : NULL;
+                    uint16_t paramBase = calculateParameterBaseRegister(argCount);
+                    CallFrame* frame = vm.register_file.current_frame;
+                    if (!frame ||
+                        !register_file_rebind_tail_call(&vm.register_file, firstArgReg, argCount, paramBase,
+                                                        function ? &function->window : NULL)) {
+                        vm_set_register_safe(resultReg, BOOL_VAL(false));
+                        break;
+                    }
 
-                        frame->parameterBaseRegister = paramBase;
-                        frame->resultRegister = resultReg;
-                        frame->functionIndex = UINT16_MAX;
-                        frame->register_count = argCount;
+                    profileFunctionHit(function ? (void*)function : (void*)target.object, false);
 
-                        register_file_clear_active_typed_frame();
-                        register_file_reset_active_frame_storage();
+                    frame->parameterBaseRegister = paramBase;
+                    frame->resultRegister = resultReg;
+                    frame->functionIndex = target.function_index;
 
+                    if (target.kind == VM_CALL_TARGET_CLOSURE) {
                         vm_set_register_safe(0, funcValue);
+                    }
 
-                        for (int i = 0; i < argCount; i++) {
-                            vm_set_register_safe((uint16_t)(paramBase + i), tempArgs[i]);
-                        }
-
-                        vm.chunk = objFunction->chunk;
-                        vm.ip = objFunction->chunk->code;
-
-                    } else if (IS_FUNCTION(funcValue)) {
-                        ObjFunction* objFunction = AS_FUNCTION(funcValue);
-
-                        if (argCount != objFunction->arity) {
-                            vm_set_register_safe(resultReg, BOOL_VAL(false));
-                            break;
-                        }
-
-                        Value tempArgs[FRAME_REGISTERS];
-                        for (int i = 0; i < argCount; i++) {
-                            tempArgs[i] = vm_get_register_safe((uint16_t)(firstArgReg + i));
-                        }
-
-                        uint16_t paramBase = calculateParameterBaseRegister(objFunction->arity);
-
-                        CallFrame* frame = vm.register_file.current_frame;
-                        if (!frame) {
-                            vm_set_register_safe(resultReg, BOOL_VAL(false));
-                            break;
-                        }
-
-                        profileFunctionHit((void*)objFunction, false);
-
-                        frame->parameterBaseRegister = paramBase;
-                        frame->resultRegister = resultReg;
-                        frame->functionIndex = UINT16_MAX;
-                        frame->register_count = argCount;
-
-                        register_file_clear_active_typed_frame();
-                        register_file_reset_active_frame_storage();
-
-                        for (int i = 0; i < argCount; i++) {
-                            vm_set_register_safe((uint16_t)(paramBase + i), tempArgs[i]);
-                        }
-
-                        vm.chunk = objFunction->chunk;
-                        vm.ip = objFunction->chunk->code;
-
-                    } else if (IS_I32(funcValue)) {
-                        int functionIndex = AS_I32(funcValue);
-
-                        if (functionIndex < 0 || functionIndex >= vm.functionCount) {
-                            vm_set_register_safe(resultReg, BOOL_VAL(false));
-                            break;
-                        }
-
-                        Function* function = &vm.functions[functionIndex];
-
-                        if (argCount != function->arity) {
-                            vm_set_register_safe(resultReg, BOOL_VAL(false));
-                            break;
-                        }
-
-                        Value tempArgs[FRAME_REGISTERS];
-                        for (int i = 0; i < argCount; i++) {
-                            tempArgs[i] = vm_get_register_safe((uint16_t)(firstArgReg + i));
-                        }
-
-                        uint16_t paramBase = calculateParameterBaseRegister(function->arity);
-
-                        CallFrame* frame = vm.register_file.current_frame;
-                        if (frame) {
-                            profileFunctionHit((void*)function, false);
-
-                            frame->parameterBaseRegister = paramBase;
-                            frame->resultRegister = resultReg;
-                            frame->functionIndex = (uint16_t)functionIndex;
-                            frame->register_count = argCount;
-                        } else {
-                            vm_set_register_safe(resultReg, BOOL_VAL(false));
-                            break;
-                        }
-
-                        for (int i = 0; i < argCount; i++) {
-                            vm_set_register_safe((uint16_t)(paramBase + i), tempArgs[i]);
-                        }
-
-                        Chunk* target_chunk = vm_select_function_chunk(function);
-                        if (!target_chunk) {
-                            vm_set_register_safe(resultReg, BOOL_VAL(false));
-                            break;
-                        }
-
-                        vm.chunk = target_chunk;
-                        vm.ip = target_chunk->code + function->start;
+                    if (!function) {
+                        vm.chunk = target.object->chunk;
+                        vm.ip = target.object->chunk->code;
+                        break;
+                    }
 
-                    } else {
+                    Chunk* target_chunk = vm_select_function_chunk(function);
+                    if (!target_chunk) {
                         vm_set_register_safe(resultReg, BOOL_VAL(false));
+                        break;
                     }
+
+                    vm.chunk = target_chunk;
+                    vm.ip = target_chunk->code + function->start;
                     break;
                 }
+
                 case OP_RETURN_R: {
                     uint8_t reg = READ_BYTE();
                     Value returnValue = vm_get_register_safe(reg);
@@ -3468,10 +3491,12 @@ InterpretResult vm_run_dispatch(void) {
                                 slot = &vm.registers[index];
                             }
                             closure->upvalues[i] = captureUpvalue(slot);
+                            gcWriteBarrierObject((Obj*)closure, (Obj*)closure->upvalues[i]);
                         } else {
                             Value enclosing_value = vm_get_register_safe(0);
                             ObjClosure* enclosing = AS_CLOSURE(enclosing_value); // Current closure
                             closure->upvalues[i] = enclosing->upvalues[index];
+                            gcWriteBarrierObject((Obj*)closure, (Obj*)closure->upvalues[i]);
                         }
                     }
                     
@@ -3495,7 +3520,9 @@ InterpretResult vm_run_dispatch(void) {
                     
                     Value closure_value = vm_get_register_safe(0);
                     ObjClosure* closure = AS_CLOSURE(closure_value); // Current closure
-                    *closure->upvalues[upvalueIndex]->location = vm_get_register_safe(valueReg);
+                    Value stored = vm_get_register_safe(valueReg);
+                    gcWriteBarrier((Obj*)closure->upvalues[upvalueIndex], stored);
+                    *closure->upvalues[upvalueIndex]->location = stored;
                     break;
                 }
 
@@ -4320,6 +4347,8 @@ InterpretResult vm_run_dispatch(void) {
                     break;
                 }
 
+#include "vm_superinstructions_switch.inc"
+
                 case OP_HALT:
                     vm.lastExecutionTime = get_time_vm() - start_time;
                     vm.isShuttingDown = true;  // Set shutdown flag before returning
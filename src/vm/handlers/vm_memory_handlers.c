@@ -4,6 +4,7 @@
 #include "vm/vm_dispatch.h"
 #include "vm/vm_comparison.h"
 #include "runtime/builtins.h"
+#include "runtime/memory.h"
 
 // Frame-aware register access functions for proper local variable isolation
 
@@ -111,7 +112,7 @@ void handle_move_reg(void) {
 
     // Use frame-aware register access for proper local variable isolation
     Value value = vm_get_register_safe(src);
-    switch (value.type) {
+    switch (VALUE_TYPE(value)) {
         case VAL_I32:
             vm_cache_i32_typed(src, AS_I32(value));
             store_i32_register(dst, AS_I32(value));
@@ -251,9 +252,11 @@ void handle_store_global(void) {
         
         // Store the coerced value
         vm.globals[globalIndex] = coercedValue;
+        gcGlobalWriteBarrier(globalIndex);
     } else {
         // No declared type, store as-is
         vm.globals[globalIndex] = valueToStore;
+        gcGlobalWriteBarrier(globalIndex);
     }
 }
 
@@ -390,7 +393,7 @@ void handle_input(void) {
     uint8_t prompt_reg = READ_BYTE();
 
     if (arg_count > 1) {
-        SrcLocation loc = {vm.filePath, vm.currentLine, vm.currentColumn};
+        SrcLocation loc = vm_current_location();
         runtimeError(ERROR_ARGUMENT, loc, "input() accepts at most one argument");
         return;
     }
@@ -404,7 +407,7 @@ void handle_input(void) {
 
     Value result;
     if (!builtin_input(args_ptr, (int)arg_count, &result)) {
-        SrcLocation loc = {vm.filePath, vm.currentLine, vm.currentColumn};
+        SrcLocation loc = vm_current_location();
         runtimeError(ERROR_EOF, loc, "input() reached end of file");
         return;
     }
@@ -420,7 +423,7 @@ void handle_range(void) {
     uint8_t third_reg = READ_BYTE();
 
     if (arg_count < 1 || arg_count > 3) {
-        SrcLocation loc = {vm.filePath, vm.currentLine, vm.currentColumn};
+        SrcLocation loc = vm_current_location();
         runtimeError(ERROR_ARGUMENT, loc, "range() expects between 1 and 3 arguments");
         return;
     }
@@ -440,7 +443,7 @@ void handle_range(void) {
 
     Value result;
     if (!builtin_range(args_ptr, arg_count, &result)) {
-        SrcLocation loc = {vm.filePath, vm.currentLine, vm.currentColumn};
+        SrcLocation loc = vm_current_location();
         runtimeError(ERROR_ARGUMENT, loc, "Invalid arguments provided to range()");
         return;
     }
@@ -455,7 +458,7 @@ void handle_sorted(void) {
     Value array_value = vm_get_register_safe(array_reg);
     Value result;
     if (!builtin_sorted(array_value, &result)) {
-        SrcLocation loc = {vm.filePath, vm.currentLine, vm.currentColumn};
+        SrcLocation loc = vm_current_location();
         if (!IS_ARRAY(array_value)) {
             runtimeError(ERROR_TYPE, loc, "Value is not an array");
         } else {
@@ -476,7 +479,7 @@ void handle_array_repeat(void) {
     Value array_value = vm_get_register_safe(array_reg);
     Value count_value = vm_get_register_safe(count_reg);
     Value result;
-    SrcLocation loc = {vm.filePath, vm.currentLine, vm.currentColumn};
+    SrcLocation loc = vm_current_location();
 
     if (!IS_ARRAY(array_value)) {
         runtimeError(ERROR_TYPE, loc, "Value is not an array");
@@ -533,7 +536,7 @@ void handle_parse_int(void) {
                                     ? "int() overflow"
                                     : "int() conversion failed";
         const char* text = message[0] ? message : fallback;
-        SrcLocation loc = {vm.filePath, vm.currentLine, vm.currentColumn};
+        SrcLocation loc = vm_current_location();
         runtimeError(ERROR_CONVERSION, loc, "%s", text);
         return;
     }
@@ -555,7 +558,7 @@ void handle_parse_float(void) {
                                     ? "float() overflow"
                                     : "float() conversion failed";
         const char* text = message[0] ? message : fallback;
-        SrcLocation loc = {vm.filePath, vm.currentLine, vm.currentColumn};
+        SrcLocation loc = vm_current_location();
         runtimeError(ERROR_CONVERSION, loc, "%s", text);
         return;
     }
@@ -570,7 +573,7 @@ void handle_typeof(void) {
     Value value = vm_get_register_safe(value_reg);
     Value result;
     if (!builtin_typeof(value, &result)) {
-        SrcLocation loc = {vm.filePath, vm.currentLine, vm.currentColumn};
+        SrcLocation loc = vm_current_location();
         runtimeError(ERROR_RUNTIME, loc, "typeof() internal error");
         return;
     }
@@ -587,7 +590,7 @@ void handle_istype(void) {
     Value type_identifier = vm_get_register_safe(type_reg);
     Value result;
     if (!builtin_istype(value, type_identifier, &result)) {
-        SrcLocation loc = {vm.filePath, vm.currentLine, vm.currentColumn};
+        SrcLocation loc = vm_current_location();
         runtimeError(ERROR_RUNTIME, loc, "istype() internal error");
         return;
     }
@@ -8,9 +8,11 @@
 #include "vm/jit_ir.h"
 #include "vm/jit_debug.h"
 #include "vm/jit_layout.h"
+#include "vm/jit_regalloc.h"
 #include "vm/vm_comparison.h"
 #include "vm/vm_profiling.h"
 #include "vm/vm_tiering.h"
+#include "vm/vm_inline_cache.h"
 #include "vm/vm_string_ops.h"
 #include "vm/register_file.h"
 #include "vm/vm_tagged_union.h"
@@ -172,11 +174,14 @@ struct OrusJitBackend {
 
 typedef struct OrusJitNativeBlock {
     OrusJitIRProgram program;
+    OrusJitRegAlloc regalloc;  // Empty unless the loop runs in register form
     void* code_ptr;
     size_t code_capacity;
     struct OrusJitNativeBlock* next;
 } OrusJitNativeBlock;
 
+// Blocks are registered from the background compile thread as well as the
+// interpreter, so the list is guarded by the region lock.
 static OrusJitNativeBlock* g_native_blocks = NULL;
 
 typedef struct {
@@ -196,8 +201,12 @@ static OrusJitLinearEmitterStats g_orus_jit_linear_stats = {
     .last_status = JIT_BACKEND_OK,
 };
 
+static void orus_jit_region_lock(void);
+static void orus_jit_region_unlock(void);
+
 static void
 orus_jit_linear_stats_record_attempt(const OrusJitNativeBlock* block) {
+    orus_jit_region_lock();
     OrusJitLinearEmitterStats* stats = &g_orus_jit_linear_stats;
     stats->attempts++;
     if (block) {
@@ -209,10 +218,12 @@ orus_jit_linear_stats_record_attempt(const OrusJitNativeBlock* block) {
         stats->last_loop_index = UINT16_MAX;
         stats->last_instruction_count = 0u;
     }
+    orus_jit_region_unlock();
 }
 
 static void
 orus_jit_linear_stats_record_result(JITBackendStatus status, size_t code_size) {
+    orus_jit_region_lock();
     OrusJitLinearEmitterStats* stats = &g_orus_jit_linear_stats;
     stats->last_status = status;
     stats->last_code_size = code_size;
@@ -221,6 +232,7 @@ orus_jit_linear_stats_record_result(JITBackendStatus status, size_t code_size) {
     } else {
         stats->failures++;
     }
+    orus_jit_region_unlock();
 }
 
 static bool
@@ -507,6 +519,8 @@ typedef struct OrusJitNativeFrame {
     TypedRegisterWindow* active_window;
     uint32_t window_version;
     bool slow_path_requested;
+    bool osr_exit_taken;
+    uint32_t osr_resume_offset;  // Bytecode offset of the loop exit taken
     uint64_t canary;
 } OrusJitNativeFrame;
 
@@ -1200,6 +1214,7 @@ orus_jit_native_block_destroy(OrusJitNativeBlock* block) {
         return;
     }
     orus_jit_ir_program_reset(&block->program);
+    orus_jit_regalloc_release(&block->regalloc);
     free(block);
 }
 
@@ -1208,12 +1223,15 @@ orus_jit_native_block_register(OrusJitNativeBlock* block) {
     if (!block) {
         return;
     }
+    orus_jit_region_lock();
     block->next = g_native_blocks;
     g_native_blocks = block;
+    orus_jit_region_unlock();
 }
 
+// Callers hold the region lock.
 static OrusJitNativeBlock*
-orus_jit_native_block_find(void* code_ptr, OrusJitNativeBlock** out_prev) {
+orus_jit_native_block_find_locked(void* code_ptr, OrusJitNativeBlock** out_prev) {
     OrusJitNativeBlock* prev = NULL;
     OrusJitNativeBlock* current = g_native_blocks;
     while (current) {
@@ -1232,6 +1250,16 @@ orus_jit_native_block_find(void* code_ptr, OrusJitNativeBlock** out_prev) {
     return NULL;
 }
 
+// Blocks are only destroyed on the interpreter thread, so the result stays
+// valid after the lock is dropped.
+static OrusJitNativeBlock*
+orus_jit_native_block_find(void* code_ptr) {
+    orus_jit_region_lock();
+    OrusJitNativeBlock* block = orus_jit_native_block_find_locked(code_ptr, NULL);
+    orus_jit_region_unlock();
+    return block;
+}
+
 static void
 jit_bailout_and_deopt(struct VM* vm_instance,
                       const OrusJitNativeBlock* block) {
@@ -1548,6 +1576,19 @@ orus_jit_native_type_bailout(struct VM* vm_instance,
     jit_bailout_and_deopt(vm_instance, block);
 }
 
+// Loop exits of programs with an OSR map land here instead of the deopting
+// bailout: the native state stays valid, the interpreter just continues at the
+// branch target once orus_jit_enter_stub() has written the frame back.
+static void
+orus_jit_native_osr_exit(struct VM* vm_instance, uint32_t resume_offset) {
+    OrusJitNativeFrame* frame = vm_instance ? vm_instance->jit_native_frame_top : NULL;
+    if (!frame) {
+        return;
+    }
+    frame->osr_exit_taken = true;
+    frame->osr_resume_offset = resume_offset;
+}
+
 static bool
 jit_read_i32(struct VM* vm_instance, uint16_t reg, int32_t* out) {
     if (!vm_instance || !out) {
@@ -1675,7 +1716,7 @@ jit_read_bool(struct VM* vm_instance, uint16_t reg, bool* out) {
     }
 
     Value value = vm_get_register_safe(reg);
-    switch (value.type) {
+    switch (VALUE_TYPE(value)) {
         case VAL_BOOL:
             *out = AS_BOOL(value);
             break;
@@ -2410,11 +2451,11 @@ orus_jit_native_iter_next(struct VM* vm_instance,
         ObjArrayIterator* it = AS_ARRAY_ITERATOR(iterator_value);
         ObjArray* array = it ? it->array : NULL;
         if (array && it->index < array->length) {
-            Value element = array->elements[it->index++];
+            Value element = arrayElementAt(array, it->index++);
             has_value = true;
             bool stored_typed = false;
             if (vm_typed_reg_in_range(value_reg)) {
-                switch (element.type) {
+                switch (VALUE_TYPE(element)) {
                     case VAL_I32:
                         vm_store_i32_typed_hot(value_reg, AS_I32(element));
                         stored_typed = true;
@@ -6085,18 +6126,18 @@ orus_jit_backend_emit_linear_x86(struct OrusJitBackend* backend,
                                                      sizeof(MOV_RSI_RBX_BYTES)) ||
                     !orus_jit_code_buffer_emit_u8(&code, 0xBA) ||
                     !orus_jit_code_buffer_emit_u32(
-                        &code, (uint32_t)inst->operands.arithmetic.dst_reg) ||
+                        &code, (uint32_t)inst->opcode) ||
                     !orus_jit_code_buffer_emit_u8(&code, 0xB9) ||
                     !orus_jit_code_buffer_emit_u32(
-                        &code, (uint32_t)inst->operands.arithmetic.lhs_reg) ||
+                        &code, (uint32_t)inst->operands.arithmetic.dst_reg) ||
                     !orus_jit_code_buffer_emit_u8(&code, 0x41) ||
                     !orus_jit_code_buffer_emit_u8(&code, 0xB8) ||
                     !orus_jit_code_buffer_emit_u32(
-                        &code, (uint32_t)inst->operands.arithmetic.rhs_reg) ||
+                        &code, (uint32_t)inst->operands.arithmetic.lhs_reg) ||
                     !orus_jit_code_buffer_emit_u8(&code, 0x41) ||
                     !orus_jit_code_buffer_emit_u8(&code, 0xB9) ||
                     !orus_jit_code_buffer_emit_u32(
-                        &code, (uint32_t)inst->opcode) ||
+                        &code, (uint32_t)inst->operands.arithmetic.rhs_reg) ||
                     !orus_jit_code_buffer_emit_u8(&code, 0x48) ||
                     !orus_jit_code_buffer_emit_u8(&code, 0xB8) ||
                     !orus_jit_code_buffer_emit_u64(
@@ -7045,6 +7086,24 @@ orus_jit_backend_emit_linear_x86(struct OrusJitBackend* backend,
     }
 
 finalize_block:;
+    // With an OSR map, branches that leave the loop record their target and
+    // return normally; without one they keep going through the bailout.
+    bool osr_exits = block->program.osr.valid;
+    size_t osr_exit_label = 0u;
+    if (osr_exits) {
+        osr_exit_label = code.size;
+        if (!orus_jit_code_buffer_emit_bytes(&code, MOV_RDI_R12,
+                                             sizeof(MOV_RDI_R12)) ||
+            !orus_jit_code_buffer_emit_u8(&code, 0x48) ||
+            !orus_jit_code_buffer_emit_u8(&code, 0xB8) ||
+            !orus_jit_code_buffer_emit_u64(
+                &code, orus_jit_function_ptr_bits(&orus_jit_native_osr_exit)) ||
+            !orus_jit_code_buffer_emit_bytes(&code, CALL_RAX, sizeof(CALL_RAX)) ||
+            !orus_jit_emit_return_placeholder(&code, &return_patches)) {
+            RETURN_WITH(JIT_BACKEND_OUT_OF_MEMORY);
+        }
+    }
+
     for (size_t i = 0; i < branch_patches.count; ++i) {
         OrusJitBranchPatch* patch = &branch_patches.data[i];
         if (!inst_offsets) {
@@ -7052,6 +7111,23 @@ finalize_block:;
         }
         size_t target_index = orus_jit_program_find_index(
             &block->program, patch->target_bytecode);
+        if (target_index == SIZE_MAX && osr_exits) {
+            size_t stub_offset = code.size;
+            if (!orus_jit_code_buffer_emit_u8(&code, 0xBE) ||
+                !orus_jit_code_buffer_emit_u32(&code, patch->target_bytecode) ||
+                !orus_jit_code_buffer_emit_u8(&code, 0xE9)) {
+                RETURN_WITH(JIT_BACKEND_OUT_OF_MEMORY);
+            }
+            int32_t back = (int32_t)((int64_t)osr_exit_label -
+                                     ((int64_t)code.size + 4));
+            if (!orus_jit_code_buffer_emit_u32(&code, (uint32_t)back)) {
+                RETURN_WITH(JIT_BACKEND_OUT_OF_MEMORY);
+            }
+            int32_t disp = (int32_t)((int64_t)stub_offset -
+                                     ((int64_t)patch->code_offset + 4));
+            memcpy(code.data + patch->code_offset, &disp, sizeof(int32_t));
+            continue;
+        }
         if (target_index == SIZE_MAX) {
             if (!orus_jit_offset_list_append(&bail_patches,
                                              patch->code_offset)) {
@@ -7157,257 +7233,1846 @@ finalize_block:;
 #undef RETURN_WITH
     return JIT_BACKEND_OK;
 }
-#endif // defined(__x86_64__) || defined(_M_X64)
-
-#if ORUS_JIT_HAS_DYNASM_X86
-struct DynAsmActionBuffer {
-    unsigned char* data;
-    size_t size;
-    size_t capacity;
-};
 
-typedef struct DynAsmPatch {
-    size_t action_offset;
-    size_t code_offset;
-} DynAsmPatch;
+// ---------------------------------------------------------------------------
+// Whole-function (method) programs. The native body works directly on the
+// active typed register window: r12 holds the VM, r13 the window, reloaded
+// after every helper call because calls and returns swap windows. Anything
+// that needs frames or boxed values goes through the helpers below, which
+// mirror the interpreter's OP_CALL_R/OP_RETURN_R/OP_MOVE handlers.
+// ---------------------------------------------------------------------------
 
-typedef struct DynAsmPatchList {
-    DynAsmPatch* data;
-    size_t count;
-    size_t capacity;
-} DynAsmPatchList;
+#define ORUS_JIT_METHOD_PACK_CALL(dst, callee, first, count)                  \
+    ((uint32_t)(callee) | ((uint32_t)(first) << 8) |                          \
+     ((uint32_t)(count) << 16) | ((uint32_t)(dst) << 24))
 
-static void
-dynasm_action_buffer_init(struct DynAsmActionBuffer* buffer) {
-    if (!buffer) {
-        return;
+static bool
+orus_jit_native_method_exit(struct VM* vm_instance, uint32_t bytecode_offset,
+                            uint32_t function_index) {
+    vm_instance->ip = vm_instance->chunk->code + bytecode_offset;
+    vm_instance->jit_native_type_deopts++;
+    if (function_index < UINT8_COUNT) {
+        vm_instance->jit_function_entries[function_index] = NULL;
+        vm_instance->jit_function_blocklist[function_index] = true;
     }
-    buffer->data = NULL;
-    buffer->size = 0;
-    buffer->capacity = 0;
+    return false;
 }
 
 static void
-dynasm_action_buffer_release(struct DynAsmActionBuffer* buffer) {
-    if (!buffer) {
-        return;
-    }
-    free(buffer->data);
-    buffer->data = NULL;
-    buffer->size = 0;
-    buffer->capacity = 0;
+orus_jit_native_method_move(struct VM* vm_instance, uint16_t dst, uint16_t src) {
+    (void)vm_instance;
+    vm_set_register_safe(dst, vm_get_register_safe(src));
 }
 
 static bool
-dynasm_action_buffer_reserve(struct DynAsmActionBuffer* buffer, size_t additional) {
-    if (!buffer) {
-        return false;
+orus_jit_native_method_call(struct VM* vm_instance, uint32_t packed,
+                            uint32_t call_offset) {
+    uint8_t funcReg = (uint8_t)(packed & 0xFFu);
+    uint8_t firstArgReg = (uint8_t)((packed >> 8) & 0xFFu);
+    uint8_t argCount = (uint8_t)((packed >> 16) & 0xFFu);
+    uint8_t resultReg = (uint8_t)((packed >> 24) & 0xFFu);
+    uint8_t* instruction = vm_instance->chunk->code + call_offset;
+    uint8_t* returnAddress = instruction + 5;
+
+    Value funcValue = vm_get_register_safe(funcReg);
+    const VMCallCacheEntry* cached =
+        vm_call_cache_resolve(instruction, funcValue, argCount);
+    if (!cached) {
+        vm_set_register_safe(resultReg, BOOL_VAL(false));
+        return true;
     }
-    if (additional > SIZE_MAX - buffer->size) {
+    VMCallCacheEntry target = *cached;
+    if (target.kind != VM_CALL_TARGET_FUNCTION) {
+        // Closures and function objects stay with the interpreter.
+        vm_instance->ip = instruction;
         return false;
     }
-    size_t required = buffer->size + additional;
-    if (required <= buffer->capacity) {
+
+    Function* function = &vm_instance->functions[target.function_index];
+    uint16_t paramBase = calculateParameterBaseRegister(argCount);
+    CallFrame* frame = register_file_push_call_frame(
+        &vm_instance->register_file, firstArgReg, argCount, paramBase,
+        &function->window);
+    if (!frame) {
+        vm_set_register_safe(resultReg, BOOL_VAL(false));
         return true;
     }
-    size_t new_capacity = buffer->capacity ? buffer->capacity : 16u;
-    while (new_capacity < required) {
-        if (new_capacity > SIZE_MAX / 2u) {
-            new_capacity = required;
-            break;
-        }
-        new_capacity *= 2u;
-    }
-    unsigned char* data =
-        (unsigned char*)realloc(buffer->data, new_capacity * sizeof(unsigned char));
-    if (!data) {
-        return false;
-    }
-    buffer->data = data;
-    buffer->capacity = new_capacity;
-    return true;
-}
 
-static bool
-dynasm_action_buffer_push(struct DynAsmActionBuffer* buffer, unsigned char value) {
-    if (!dynasm_action_buffer_reserve(buffer, 1u)) {
+    profileFunctionHit(function, false);
+
+    frame->returnAddress = returnAddress;
+    frame->previousChunk = vm_instance->chunk;
+    frame->resultRegister = resultReg;
+    frame->parameterBaseRegister = paramBase;
+    frame->functionIndex = target.function_index;
+
+    Chunk* target_chunk = vm_select_function_chunk(function);
+    if (!target_chunk) {
+        vm_set_register_safe(resultReg, BOOL_VAL(false));
+        vm_instance->ip = returnAddress;
         return false;
     }
-    buffer->data[buffer->size++] = value;
-    return true;
+
+    vm_instance->chunk = target_chunk;
+    vm_instance->ip = target_chunk->code + function->start;
+    return vm_jit_call_method(vm_instance, target.function_index);
 }
 
 static bool
-dynasm_emit_bytes(struct DynAsmActionBuffer* buffer,
-                  const uint8_t* bytes,
-                  size_t count) {
-    if (!buffer || (!bytes && count)) {
+orus_jit_native_method_return(struct VM* vm_instance, uint32_t value_reg,
+                              uint32_t bytecode_offset) {
+    CallFrame* frame = vm_instance->register_file.current_frame;
+    if (!frame) {
+        vm_instance->ip = vm_instance->chunk->code + bytecode_offset;
         return false;
     }
-    for (size_t i = 0; i < count; ++i) {
-        if (!dynasm_action_buffer_push(buffer, DASM_ESC) ||
-            !dynasm_action_buffer_push(buffer, bytes[i])) {
-            return false;
-        }
-    }
-    return true;
-}
 
-static void
-dynasm_patch_list_init(DynAsmPatchList* list) {
-    if (!list) {
-        return;
+    bool has_value = value_reg != ORUS_JIT_IR_NO_RETURN_VALUE;
+    Value returnValue = has_value ? vm_get_register_safe((uint16_t)value_reg)
+                                  : BOOL_VAL(false);
+    vm_get_register_safe(frame->parameterBaseRegister);
+    Value* param_base_ptr =
+        get_register(&vm_instance->register_file, frame->parameterBaseRegister);
+    if (!param_base_ptr) {
+        param_base_ptr = &vm_instance->registers[frame->parameterBaseRegister];
     }
-    list->data = NULL;
-    list->count = 0u;
-    list->capacity = 0u;
-}
+    closeUpvalues(param_base_ptr);
 
-static void
-dynasm_patch_list_release(DynAsmPatchList* list) {
-    if (!list) {
-        return;
-    }
-    free(list->data);
-    list->data = NULL;
-    list->count = 0u;
-    list->capacity = 0u;
-}
+    Chunk* previousChunk = frame->previousChunk;
+    uint8_t* returnAddress = frame->returnAddress;
+    uint16_t resultRegister = frame->resultRegister;
 
-static bool
-dynasm_patch_list_append(DynAsmPatchList* list,
-                         size_t action_offset,
-                         size_t code_offset) {
-    if (!list) {
-        return false;
-    }
-    if (list->count == list->capacity) {
-        size_t new_capacity = list->capacity ? list->capacity * 2u : 4u;
-        DynAsmPatch* data =
-            (DynAsmPatch*)realloc(list->data, new_capacity * sizeof(DynAsmPatch));
-        if (!data) {
-            return false;
-        }
-        list->data = data;
-        list->capacity = new_capacity;
-    }
-    list->data[list->count].action_offset = action_offset;
-    list->data[list->count].code_offset = code_offset;
-    list->count++;
-    return true;
-}
+    deallocate_frame(&vm_instance->register_file);
 
-static bool
-dynasm_emit_bytes_track(struct DynAsmActionBuffer* buffer,
-                        size_t* code_offset,
-                        const uint8_t* bytes,
-                        size_t count) {
-    if (!dynasm_emit_bytes(buffer, bytes, count)) {
-        return false;
-    }
-    if (code_offset) {
-        *code_offset += count;
+    vm_instance->chunk = previousChunk;
+    vm_instance->ip = returnAddress;
+    if (has_value) {
+        vm_set_register_safe(resultRegister, returnValue);
     }
     return true;
 }
 
+// Emits `<rex> <opcode...> modrm(reg, [r13 + disp32])`.
 static bool
-dynasm_emit_u32_le(struct DynAsmActionBuffer* buffer,
-                   size_t* code_offset,
-                   uint32_t value) {
-    uint8_t bytes[4];
-    bytes[0] = (uint8_t)(value & 0xFFu);
-    bytes[1] = (uint8_t)((value >> 8) & 0xFFu);
-    bytes[2] = (uint8_t)((value >> 16) & 0xFFu);
-    bytes[3] = (uint8_t)((value >> 24) & 0xFFu);
-    return dynasm_emit_bytes_track(buffer, code_offset, bytes, sizeof(bytes));
+orus_jit_method_emit_window_op(OrusJitCodeBuffer* code, uint8_t rex,
+                               const uint8_t* opcode, size_t opcode_length,
+                               uint8_t reg_field, size_t disp) {
+    return orus_jit_code_buffer_emit_u8(code, rex) &&
+           orus_jit_code_buffer_emit_bytes(code, opcode, opcode_length) &&
+           orus_jit_code_buffer_emit_u8(
+               code, (uint8_t)(0x85u | ((reg_field & 7u) << 3))) &&
+           orus_jit_code_buffer_emit_u32(code, (uint32_t)disp);
 }
 
 static bool
-dynasm_emit_u64_le(struct DynAsmActionBuffer* buffer,
-                   size_t* code_offset,
-                   uint64_t value) {
-    uint8_t bytes[8];
-    for (size_t i = 0; i < 8; ++i) {
-        bytes[i] = (uint8_t)((value >> (8u * i)) & 0xFFu);
+orus_jit_method_emit_rel32(OrusJitCodeBuffer* code, const uint8_t* opcode,
+                           size_t opcode_length, size_t* out_disp_offset) {
+    if (!orus_jit_code_buffer_emit_bytes(code, opcode, opcode_length)) {
+        return false;
     }
-    return dynasm_emit_bytes_track(buffer, code_offset, bytes, sizeof(bytes));
+    *out_disp_offset = code->size;
+    return orus_jit_code_buffer_emit_u32(code, 0u);
 }
 
-static bool
-dynasm_emit_mov_reg_imm32(struct DynAsmActionBuffer* buffer,
-                          uint8_t opcode,
-                          size_t* code_offset,
-                          uint32_t immediate) {
-    uint8_t bytes[5];
-    bytes[0] = opcode;
-    bytes[1] = (uint8_t)(immediate & 0xFFu);
-    bytes[2] = (uint8_t)((immediate >> 8) & 0xFFu);
-    bytes[3] = (uint8_t)((immediate >> 16) & 0xFFu);
-    bytes[4] = (uint8_t)((immediate >> 24) & 0xFFu);
-    return dynasm_emit_bytes_track(buffer, code_offset, bytes, sizeof(bytes));
+static void
+orus_jit_method_patch_rel32(OrusJitCodeBuffer* code, size_t disp_offset,
+                            size_t target) {
+    int32_t disp = (int32_t)((int64_t)target - ((int64_t)disp_offset + 4));
+    memcpy(code->data + disp_offset, &disp, sizeof(int32_t));
 }
 
+// Marks reg live, dirty and of reg_type, as vm_mark_typed_register_dirty does.
 static bool
-dynasm_emit_load_vm_block(struct DynAsmActionBuffer* buffer, size_t* code_offset) {
-    return dynasm_emit_bytes_track(buffer, code_offset,
-                                   (const uint8_t[]){0x48, 0x8B, 0x7D, 0xF8}, 4u) &&
-           dynasm_emit_bytes_track(buffer, code_offset,
-                                   (const uint8_t[]){0x48, 0x8B, 0x75, 0xF0}, 4u);
-}
-
+orus_jit_method_emit_mark_typed(OrusJitCodeBuffer* code, uint16_t reg,
+                                RegisterType reg_type) {
+    static const uint8_t MOV_M8_IMM8[] = {0xC6};
+    static const uint8_t BTS_M64_IMM8[] = {0x0F, 0xBA};
+    size_t mask_word = (size_t)(reg / 64u) * sizeof(uint64_t);
+    uint8_t mask_bit = (uint8_t)(reg % 64u);
+    return orus_jit_method_emit_window_op(
+               code, 0x41, MOV_M8_IMM8, 1u, 0u,
+               offsetof(TypedRegisterWindow, reg_types) + reg) &&
+           orus_jit_code_buffer_emit_u8(code, (uint8_t)reg_type) &&
+           orus_jit_method_emit_window_op(
+               code, 0x49, BTS_M64_IMM8, 2u, 5u,
+               offsetof(TypedRegisterWindow, live_mask) + mask_word) &&
+           orus_jit_code_buffer_emit_u8(code, mask_bit) &&
+           orus_jit_method_emit_window_op(
+               code, 0x49, BTS_M64_IMM8, 2u, 5u,
+               offsetof(TypedRegisterWindow, dirty_mask) + mask_word) &&
+           orus_jit_code_buffer_emit_u8(code, mask_bit) &&
+           orus_jit_method_emit_window_op(
+               code, 0x41, MOV_M8_IMM8, 1u, 0u,
+               offsetof(TypedRegisterWindow, dirty) + reg) &&
+           orus_jit_code_buffer_emit_u8(code, 1u);
+}
+
+// Branches to `exits` (patched to an exit stub for bytecode_offset) unless
+// reg is live and holds reg_type.
 static bool
-dynasm_emit_helper_call(struct DynAsmActionBuffer* buffer,
-                        size_t* code_offset,
-                        const void* helper,
-                        OrusJitHelperStubKind stub_kind) {
-    if (!orus_jit_helper_registry_record(helper, stub_kind, NULL)) {
-        return false;
-    }
-    const void* stub = orus_jit_helper_stub_address(stub_kind);
-    if (!stub) {
-        return false;
-    }
-    return dynasm_emit_bytes_track(buffer, code_offset, (const uint8_t[]){0x48, 0xB8},
-                                   2u) &&
-           dynasm_emit_u64_le(buffer, code_offset,
-                              orus_jit_function_ptr_bits(helper)) &&
-           dynasm_emit_bytes_track(buffer, code_offset, (const uint8_t[]){0x49, 0xBB},
-                                   2u) &&
-           dynasm_emit_u64_le(buffer, code_offset,
-                              orus_jit_function_ptr_bits(stub)) &&
-           dynasm_emit_bytes_track(buffer, code_offset,
-                                   (const uint8_t[]){0x41, 0xFF, 0xD3}, 3u);
-}
-
+orus_jit_method_emit_guard(OrusJitCodeBuffer* code, uint16_t reg,
+                           RegisterType reg_type, uint32_t bytecode_offset,
+                           OrusJitBranchPatchList* exits) {
+    static const uint8_t BT_M64_IMM8[] = {0x0F, 0xBA};
+    static const uint8_t CMP_M8_IMM8[] = {0x80};
+    static const uint8_t JNC[] = {0x0F, 0x83};
+    static const uint8_t JNE[] = {0x0F, 0x85};
+    size_t disp_offset = 0u;
+    return orus_jit_method_emit_window_op(
+               code, 0x49, BT_M64_IMM8, 2u, 4u,
+               offsetof(TypedRegisterWindow, live_mask) +
+                   (size_t)(reg / 64u) * sizeof(uint64_t)) &&
+           orus_jit_code_buffer_emit_u8(code, (uint8_t)(reg % 64u)) &&
+           orus_jit_method_emit_rel32(code, JNC, sizeof(JNC), &disp_offset) &&
+           orus_jit_branch_patch_list_append(exits, disp_offset,
+                                             bytecode_offset) &&
+           orus_jit_method_emit_window_op(
+               code, 0x41, CMP_M8_IMM8, 1u, 7u,
+               offsetof(TypedRegisterWindow, reg_types) + reg) &&
+           orus_jit_code_buffer_emit_u8(code, (uint8_t)reg_type) &&
+           orus_jit_method_emit_rel32(code, JNE, sizeof(JNE), &disp_offset) &&
+           orus_jit_branch_patch_list_append(exits, disp_offset,
+                                             bytecode_offset);
+}
+
+// Helper calls may push or pop frames, so r13 is reloaded from the VM's
+// active window afterwards (the root window when none is active).
 static bool
-dynasm_emit_stack_push_u32(struct DynAsmActionBuffer* buffer,
-                           size_t* code_offset,
-                           uint32_t value) {
-    return dynasm_emit_bytes_track(buffer, code_offset,
-                                   (const uint8_t[]){0x48, 0x83, 0xEC, 0x08}, 4u) &&
-           dynasm_emit_bytes_track(buffer, code_offset,
-                                   (const uint8_t[]){0x48, 0xC7, 0x04, 0x24}, 4u) &&
-           dynasm_emit_u32_le(buffer, code_offset, value);
-}
-
+orus_jit_method_emit_reload_window(OrusJitCodeBuffer* code) {
+    static const uint8_t MOV_R13_ACTIVE[] = {0x4D, 0x8B, 0xAC, 0x24};
+    static const uint8_t TEST_R13_JNZ[] = {0x4D, 0x85, 0xED, 0x75, 0x08};
+    static const uint8_t LEA_R13_ROOT[] = {0x4D, 0x8D, 0xAC, 0x24};
+    return orus_jit_code_buffer_emit_bytes(code, MOV_R13_ACTIVE,
+                                           sizeof(MOV_R13_ACTIVE)) &&
+           orus_jit_code_buffer_emit_u32(
+               code, (uint32_t)offsetof(VM, typed_regs.active_window)) &&
+           orus_jit_code_buffer_emit_bytes(code, TEST_R13_JNZ,
+                                           sizeof(TEST_R13_JNZ)) &&
+           orus_jit_code_buffer_emit_bytes(code, LEA_R13_ROOT,
+                                           sizeof(LEA_R13_ROOT)) &&
+           orus_jit_code_buffer_emit_u32(
+               code, (uint32_t)offsetof(VM, typed_regs.root_window));
+}
+
+// Emits helper(vm, esi, edx) without reloading the window.
 static bool
-dynasm_emit_stack_pop(struct DynAsmActionBuffer* buffer, size_t* code_offset) {
-    return dynasm_emit_bytes_track(buffer, code_offset,
-                                   (const uint8_t[]){0x48, 0x83, 0xC4, 0x08}, 4u);
-}
-
-static void
-dynasm_patch_u32(struct DynAsmActionBuffer* buffer,
-                 size_t action_offset,
-                 uint32_t value) {
-    if (!buffer || !buffer->data || action_offset + 7u >= buffer->size) {
-        return;
-    }
-    buffer->data[action_offset + 1u] = (uint8_t)(value & 0xFFu);
-    buffer->data[action_offset + 3u] = (uint8_t)((value >> 8) & 0xFFu);
-    buffer->data[action_offset + 5u] = (uint8_t)((value >> 16) & 0xFFu);
-    buffer->data[action_offset + 7u] = (uint8_t)((value >> 24) & 0xFFu);
+orus_jit_method_emit_helper_call(OrusJitCodeBuffer* code, const void* helper,
+                                 uint32_t esi, uint32_t edx) {
+    static const uint8_t MOV_RDI_R12[] = {0x4C, 0x89, 0xE7};
+    static const uint8_t CALL_RAX[] = {0xFF, 0xD0};
+    return orus_jit_code_buffer_emit_bytes(code, MOV_RDI_R12,
+                                           sizeof(MOV_RDI_R12)) &&
+           orus_jit_code_buffer_emit_u8(code, 0xBE) &&
+           orus_jit_code_buffer_emit_u32(code, esi) &&
+           orus_jit_code_buffer_emit_u8(code, 0xBA) &&
+           orus_jit_code_buffer_emit_u32(code, edx) &&
+           orus_jit_code_buffer_emit_u8(code, 0x48) &&
+           orus_jit_code_buffer_emit_u8(code, 0xB8) &&
+           orus_jit_code_buffer_emit_u64(code, orus_jit_function_ptr_bits(helper)) &&
+           orus_jit_code_buffer_emit_bytes(code, CALL_RAX, sizeof(CALL_RAX));
+}
+
+static JITBackendStatus
+orus_jit_backend_emit_method_x86(struct OrusJitBackend* backend,
+                                 OrusJitNativeBlock* block,
+                                 JITEntry* entry) {
+    static const uint8_t PROLOGUE[] = {
+        0x53,             // push rbx (keeps calls 16-byte aligned)
+        0x41, 0x54,       // push r12
+        0x41, 0x55,       // push r13
+        0x49, 0x89, 0xFC, // mov r12, rdi
+    };
+    static const uint8_t EPILOGUE[] = {
+        0x41, 0x5D, // pop r13
+        0x41, 0x5C, // pop r12
+        0x5B,       // pop rbx
+        0xC3,       // ret
+    };
+    static const uint8_t MOV_RDI_R12[] = {0x4C, 0x89, 0xE7};
+    static const uint8_t CALL_RAX[] = {0xFF, 0xD0};
+    static const uint8_t XOR_EAX_EAX[] = {0x31, 0xC0};
+    static const uint8_t TEST_AL_AL[] = {0x84, 0xC0};
+    static const uint8_t JMP[] = {0xE9};
+    static const uint8_t JE[] = {0x0F, 0x84};
+    static const uint8_t JNE[] = {0x0F, 0x85};
+    static const uint8_t JO[] = {0x0F, 0x80};
+    static const uint8_t JNC[] = {0x0F, 0x83};
+    static const uint8_t OP_LOAD[] = {0x8B};
+    static const uint8_t OP_STORE[] = {0x89};
+    static const uint8_t OP_STORE8[] = {0x88};
+    static const uint8_t OP_MOVZX8[] = {0x0F, 0xB6};
+    static const uint8_t OP_MOV_IMM32[] = {0xC7};
+    static const uint8_t OP_MOV_IMM8[] = {0xC6};
+    static const uint8_t OP_CMP_IMM8[] = {0x80};
+    static const uint8_t OP_BT_IMM8[] = {0x0F, 0xBA};
+    static const uint8_t OP_ADD[] = {0x03};
+    static const uint8_t OP_SUB[] = {0x2B};
+    static const uint8_t OP_IMUL[] = {0x0F, 0xAF};
+    static const uint8_t OP_CMP[] = {0x3B};
+
+    const OrusJitIRProgram* program = &block->program;
+    if (!program->whole_function || !program->instructions ||
+        program->count == 0u) {
+        return JIT_BACKEND_ASSEMBLY_ERROR;
+    }
+
+    OrusJitCodeBuffer code;
+    orus_jit_code_buffer_init(&code);
+    OrusJitOffsetList return_patches;
+    orus_jit_offset_list_init(&return_patches);
+    OrusJitOffsetList false_patches;
+    orus_jit_offset_list_init(&false_patches);
+    OrusJitBranchPatchList branch_patches;
+    orus_jit_branch_patch_list_init(&branch_patches);
+    OrusJitBranchPatchList exit_patches;
+    orus_jit_branch_patch_list_init(&exit_patches);
+    size_t* inst_offsets = (size_t*)calloc(program->count, sizeof(size_t));
+
+#define RETURN_WITH(status)                                                     \
+    do {                                                                        \
+        orus_jit_code_buffer_release(&code);                                    \
+        orus_jit_offset_list_release(&return_patches);                          \
+        orus_jit_offset_list_release(&false_patches);                           \
+        orus_jit_branch_patch_list_release(&branch_patches);                    \
+        orus_jit_branch_patch_list_release(&exit_patches);                      \
+        free(inst_offsets);                                                     \
+        return (status);                                                        \
+    } while (0)
+#define EMIT_OR_FAIL(expr)                                                      \
+    do {                                                                        \
+        if (!(expr)) {                                                          \
+            RETURN_WITH(JIT_BACKEND_OUT_OF_MEMORY);                             \
+        }                                                                       \
+    } while (0)
+
+    if (!inst_offsets) {
+        RETURN_WITH(JIT_BACKEND_OUT_OF_MEMORY);
+    }
+
+    EMIT_OR_FAIL(orus_jit_code_buffer_emit_bytes(&code, PROLOGUE,
+                                                 sizeof(PROLOGUE)));
+    EMIT_OR_FAIL(orus_jit_method_emit_reload_window(&code));
+
+    for (size_t i = 0; i < program->count; ++i) {
+        const OrusJitIRInstruction* inst = &program->instructions[i];
+        uint32_t here = inst->bytecode_offset;
+        size_t disp_offset = 0u;
+        inst_offsets[i] = code.size;
+
+        switch (inst->opcode) {
+            case ORUS_JIT_IR_OP_LOAD_I32_CONST: {
+                uint16_t dst = inst->operands.load_const.dst_reg;
+                EMIT_OR_FAIL(orus_jit_method_emit_window_op(
+                    &code, 0x41, OP_MOV_IMM32, 1u, 0u,
+                    offsetof(TypedRegisterWindow, i32_regs) +
+                        (size_t)dst * sizeof(int32_t)));
+                EMIT_OR_FAIL(orus_jit_code_buffer_emit_u32(
+                    &code, (uint32_t)inst->operands.load_const.immediate_bits));
+                EMIT_OR_FAIL(orus_jit_method_emit_mark_typed(&code, dst,
+                                                             REG_TYPE_I32));
+                break;
+            }
+            case ORUS_JIT_IR_OP_LOAD_I64_CONST: {
+                uint16_t dst = inst->operands.load_const.dst_reg;
+                EMIT_OR_FAIL(orus_jit_code_buffer_emit_u8(&code, 0x48));
+                EMIT_OR_FAIL(orus_jit_code_buffer_emit_u8(&code, 0xB8));
+                EMIT_OR_FAIL(orus_jit_code_buffer_emit_u64(
+                    &code, inst->operands.load_const.immediate_bits));
+                EMIT_OR_FAIL(orus_jit_method_emit_window_op(
+                    &code, 0x49, OP_STORE, 1u, 0u,
+                    offsetof(TypedRegisterWindow, i64_regs) +
+                        (size_t)dst * sizeof(int64_t)));
+                EMIT_OR_FAIL(orus_jit_method_emit_mark_typed(&code, dst,
+                                                             REG_TYPE_I64));
+                break;
+            }
+            case ORUS_JIT_IR_OP_LOAD_BOOL_CONST: {
+                uint16_t dst = inst->operands.load_const.dst_reg;
+                EMIT_OR_FAIL(orus_jit_method_emit_window_op(
+                    &code, 0x41, OP_MOV_IMM8, 1u, 0u,
+                    offsetof(TypedRegisterWindow, bool_regs) + dst));
+                EMIT_OR_FAIL(orus_jit_code_buffer_emit_u8(
+                    &code, inst->operands.load_const.immediate_bits ? 1u : 0u));
+                EMIT_OR_FAIL(orus_jit_method_emit_mark_typed(&code, dst,
+                                                             REG_TYPE_BOOL));
+                break;
+            }
+            case ORUS_JIT_IR_OP_MOVE_I32:
+            case ORUS_JIT_IR_OP_MOVE_I64: {
+                bool is_i64 = inst->opcode == ORUS_JIT_IR_OP_MOVE_I64;
+                RegisterType type = is_i64 ? REG_TYPE_I64 : REG_TYPE_I32;
+                size_t base = is_i64 ? offsetof(TypedRegisterWindow, i64_regs)
+                                     : offsetof(TypedRegisterWindow, i32_regs);
+                size_t width = is_i64 ? sizeof(int64_t) : sizeof(int32_t);
+                uint8_t rex = is_i64 ? 0x49 : 0x41;
+                uint16_t dst = inst->operands.move.dst_reg;
+                uint16_t src = inst->operands.move.src_reg;
+                EMIT_OR_FAIL(orus_jit_method_emit_guard(&code, src, type, here,
+                                                        &exit_patches));
+                EMIT_OR_FAIL(orus_jit_method_emit_window_op(
+                    &code, rex, OP_LOAD, 1u, 0u, base + (size_t)src * width));
+                EMIT_OR_FAIL(orus_jit_method_emit_window_op(
+                    &code, rex, OP_STORE, 1u, 0u, base + (size_t)dst * width));
+                EMIT_OR_FAIL(orus_jit_method_emit_mark_typed(&code, dst, type));
+                break;
+            }
+            case ORUS_JIT_IR_OP_MOVE_VALUE: {
+                uint16_t dst = inst->operands.move.dst_reg;
+                uint16_t src = inst->operands.move.src_reg;
+                size_t slow_from_live = 0u;
+                size_t slow_from_type = 0u;
+                size_t not_i32 = 0u;
+                size_t done_from_i32 = 0u;
+                size_t done_from_bool = 0u;
+                // Live i32 and bool sources copy inline; everything else goes
+                // through the boxed register file.
+                EMIT_OR_FAIL(orus_jit_method_emit_window_op(
+                    &code, 0x49, OP_BT_IMM8, 2u, 4u,
+                    offsetof(TypedRegisterWindow, live_mask) +
+                        (size_t)(src / 64u) * sizeof(uint64_t)));
+                EMIT_OR_FAIL(orus_jit_code_buffer_emit_u8(&code,
+                                                          (uint8_t)(src % 64u)));
+                EMIT_OR_FAIL(orus_jit_method_emit_rel32(&code, JNC, sizeof(JNC),
+                                                        &slow_from_live));
+                EMIT_OR_FAIL(orus_jit_method_emit_window_op(
+                    &code, 0x41, OP_MOVZX8, 2u, 0u,
+                    offsetof(TypedRegisterWindow, reg_types) + src));
+                EMIT_OR_FAIL(orus_jit_code_buffer_emit_u8(&code, 0x3C)); // cmp al, imm8
+                EMIT_OR_FAIL(orus_jit_code_buffer_emit_u8(&code, REG_TYPE_I32));
+                EMIT_OR_FAIL(orus_jit_method_emit_rel32(&code, JNE, sizeof(JNE),
+                                                        &not_i32));
+                EMIT_OR_FAIL(orus_jit_method_emit_window_op(
+                    &code, 0x41, OP_LOAD, 1u, 0u,
+                    offsetof(TypedRegisterWindow, i32_regs) +
+                        (size_t)src * sizeof(int32_t)));
+                EMIT_OR_FAIL(orus_jit_method_emit_window_op(
+                    &code, 0x41, OP_STORE, 1u, 0u,
+                    offsetof(TypedRegisterWindow, i32_regs) +
+                        (size_t)dst * sizeof(int32_t)));
+                EMIT_OR_FAIL(orus_jit_method_emit_mark_typed(&code, dst,
+                                                             REG_TYPE_I32));
+                EMIT_OR_FAIL(orus_jit_method_emit_rel32(&code, JMP, sizeof(JMP),
+                                                        &done_from_i32));
+                orus_jit_method_patch_rel32(&code, not_i32, code.size);
+                EMIT_OR_FAIL(orus_jit_code_buffer_emit_u8(&code, 0x3C));
+                EMIT_OR_FAIL(orus_jit_code_buffer_emit_u8(&code, REG_TYPE_BOOL));
+                EMIT_OR_FAIL(orus_jit_method_emit_rel32(&code, JNE, sizeof(JNE),
+                                                        &slow_from_type));
+                EMIT_OR_FAIL(orus_jit_method_emit_window_op(
+                    &code, 0x41, OP_MOVZX8, 2u, 0u,
+                    offsetof(TypedRegisterWindow, bool_regs) + src));
+                EMIT_OR_FAIL(orus_jit_method_emit_window_op(
+                    &code, 0x41, OP_STORE8, 1u, 0u,
+                    offsetof(TypedRegisterWindow, bool_regs) + dst));
+                EMIT_OR_FAIL(orus_jit_method_emit_mark_typed(&code, dst,
+                                                             REG_TYPE_BOOL));
+                EMIT_OR_FAIL(orus_jit_method_emit_rel32(&code, JMP, sizeof(JMP),
+                                                        &done_from_bool));
+                orus_jit_method_patch_rel32(&code, slow_from_live, code.size);
+                orus_jit_method_patch_rel32(&code, slow_from_type, code.size);
+                EMIT_OR_FAIL(orus_jit_method_emit_helper_call(
+                    &code, (const void*)&orus_jit_native_method_move, dst, src));
+                EMIT_OR_FAIL(orus_jit_method_emit_reload_window(&code));
+                orus_jit_method_patch_rel32(&code, done_from_i32, code.size);
+                orus_jit_method_patch_rel32(&code, done_from_bool, code.size);
+                break;
+            }
+            case ORUS_JIT_IR_OP_ADD_I32:
+            case ORUS_JIT_IR_OP_SUB_I32:
+            case ORUS_JIT_IR_OP_MUL_I32:
+            case ORUS_JIT_IR_OP_ADD_I64:
+            case ORUS_JIT_IR_OP_SUB_I64:
+            case ORUS_JIT_IR_OP_MUL_I64: {
+                bool is_i64 = inst->opcode == ORUS_JIT_IR_OP_ADD_I64 ||
+                              inst->opcode == ORUS_JIT_IR_OP_SUB_I64 ||
+                              inst->opcode == ORUS_JIT_IR_OP_MUL_I64;
+                size_t base = is_i64 ? offsetof(TypedRegisterWindow, i64_regs)
+                                     : offsetof(TypedRegisterWindow, i32_regs);
+                size_t width = is_i64 ? sizeof(int64_t) : sizeof(int32_t);
+                uint8_t rex = is_i64 ? 0x49 : 0x41;
+                const uint8_t* op = OP_ADD;
+                size_t op_length = sizeof(OP_ADD);
+                if (inst->opcode == ORUS_JIT_IR_OP_SUB_I32 ||
+                    inst->opcode == ORUS_JIT_IR_OP_SUB_I64) {
+                    op = OP_SUB;
+                    op_length = sizeof(OP_SUB);
+                } else if (inst->opcode == ORUS_JIT_IR_OP_MUL_I32 ||
+                           inst->opcode == ORUS_JIT_IR_OP_MUL_I64) {
+                    op = OP_IMUL;
+                    op_length = sizeof(OP_IMUL);
+                }
+                uint16_t dst = inst->operands.arithmetic.dst_reg;
+                EMIT_OR_FAIL(orus_jit_method_emit_window_op(
+                    &code, rex, OP_LOAD, 1u, 0u,
+                    base + (size_t)inst->operands.arithmetic.lhs_reg * width));
+                EMIT_OR_FAIL(orus_jit_method_emit_window_op(
+                    &code, rex, op, op_length, 0u,
+                    base + (size_t)inst->operands.arithmetic.rhs_reg * width));
+                // Overflow re-runs the instruction in the interpreter, which
+                // reports it.
+                EMIT_OR_FAIL(orus_jit_method_emit_rel32(&code, JO, sizeof(JO),
+                                                        &disp_offset));
+                EMIT_OR_FAIL(orus_jit_branch_patch_list_append(
+                    &exit_patches, disp_offset, here));
+                EMIT_OR_FAIL(orus_jit_method_emit_window_op(
+                    &code, rex, OP_STORE, 1u, 0u, base + (size_t)dst * width));
+                EMIT_OR_FAIL(orus_jit_method_emit_mark_typed(
+                    &code, dst, is_i64 ? REG_TYPE_I64 : REG_TYPE_I32));
+                break;
+            }
+            case ORUS_JIT_IR_OP_LT_I32:
+            case ORUS_JIT_IR_OP_LE_I32:
+            case ORUS_JIT_IR_OP_GT_I32:
+            case ORUS_JIT_IR_OP_GE_I32:
+            case ORUS_JIT_IR_OP_LT_I64:
+            case ORUS_JIT_IR_OP_LE_I64:
+            case ORUS_JIT_IR_OP_GT_I64:
+            case ORUS_JIT_IR_OP_GE_I64: {
+                bool is_i64 = inst->opcode >= ORUS_JIT_IR_OP_LT_I64 &&
+                              inst->opcode <= ORUS_JIT_IR_OP_GE_I64;
+                size_t base = is_i64 ? offsetof(TypedRegisterWindow, i64_regs)
+                                     : offsetof(TypedRegisterWindow, i32_regs);
+                size_t width = is_i64 ? sizeof(int64_t) : sizeof(int32_t);
+                uint8_t rex = is_i64 ? 0x49 : 0x41;
+                uint8_t setcc = 0x9C; // setl
+                switch (inst->opcode) {
+                    case ORUS_JIT_IR_OP_LE_I32:
+                    case ORUS_JIT_IR_OP_LE_I64:
+                        setcc = 0x9E;
+                        break;
+                    case ORUS_JIT_IR_OP_GT_I32:
+                    case ORUS_JIT_IR_OP_GT_I64:
+                        setcc = 0x9F;
+                        break;
+                    case ORUS_JIT_IR_OP_GE_I32:
+                    case ORUS_JIT_IR_OP_GE_I64:
+                        setcc = 0x9D;
+                        break;
+                    default:
+                        break;
+                }
+                uint16_t dst = inst->operands.arithmetic.dst_reg;
+                EMIT_OR_FAIL(orus_jit_method_emit_window_op(
+                    &code, rex, OP_LOAD, 1u, 0u,
+                    base + (size_t)inst->operands.arithmetic.lhs_reg * width));
+                EMIT_OR_FAIL(orus_jit_method_emit_window_op(
+                    &code, rex, OP_CMP, 1u, 0u,
+                    base + (size_t)inst->operands.arithmetic.rhs_reg * width));
+                EMIT_OR_FAIL(orus_jit_code_buffer_emit_u8(&code, 0x0F));
+                EMIT_OR_FAIL(orus_jit_code_buffer_emit_u8(&code, setcc));
+                EMIT_OR_FAIL(orus_jit_code_buffer_emit_u8(&code, 0xC0));
+                EMIT_OR_FAIL(orus_jit_method_emit_window_op(
+                    &code, 0x41, OP_STORE8, 1u, 0u,
+                    offsetof(TypedRegisterWindow, bool_regs) + dst));
+                EMIT_OR_FAIL(orus_jit_method_emit_mark_typed(&code, dst,
+                                                             REG_TYPE_BOOL));
+                break;
+            }
+            case ORUS_JIT_IR_OP_JUMP_SHORT: {
+                EMIT_OR_FAIL(orus_jit_method_emit_rel32(&code, JMP, sizeof(JMP),
+                                                        &disp_offset));
+                EMIT_OR_FAIL(orus_jit_branch_patch_list_append(
+                    &branch_patches, disp_offset,
+                    here + inst->operands.jump_short.bytecode_length +
+                        inst->operands.jump_short.offset));
+                break;
+            }
+            case ORUS_JIT_IR_OP_JUMP_IF_NOT_SHORT: {
+                uint16_t predicate = inst->operands.jump_if_not_short.predicate_reg;
+                EMIT_OR_FAIL(orus_jit_method_emit_guard(
+                    &code, predicate, REG_TYPE_BOOL, here, &exit_patches));
+                EMIT_OR_FAIL(orus_jit_method_emit_window_op(
+                    &code, 0x41, OP_CMP_IMM8, 1u, 7u,
+                    offsetof(TypedRegisterWindow, bool_regs) + predicate));
+                EMIT_OR_FAIL(orus_jit_code_buffer_emit_u8(&code, 0u));
+                EMIT_OR_FAIL(orus_jit_method_emit_rel32(&code, JE, sizeof(JE),
+                                                        &disp_offset));
+                EMIT_OR_FAIL(orus_jit_branch_patch_list_append(
+                    &branch_patches, disp_offset,
+                    here + inst->operands.jump_if_not_short.bytecode_length +
+                        inst->operands.jump_if_not_short.offset));
+                break;
+            }
+            case ORUS_JIT_IR_OP_CALL_FUNCTION: {
+                EMIT_OR_FAIL(orus_jit_method_emit_helper_call(
+                    &code, (const void*)&orus_jit_native_method_call,
+                    ORUS_JIT_METHOD_PACK_CALL(
+                        inst->operands.call_function.dst_reg,
+                        inst->operands.call_function.callee_reg,
+                        inst->operands.call_function.first_arg_reg,
+                        inst->operands.call_function.arg_count),
+                    here));
+                // False: the interpreter now owns the rest of this activation.
+                EMIT_OR_FAIL(orus_jit_code_buffer_emit_bytes(&code, TEST_AL_AL,
+                                                             sizeof(TEST_AL_AL)));
+                EMIT_OR_FAIL(orus_jit_method_emit_rel32(&code, JE, sizeof(JE),
+                                                        &disp_offset));
+                EMIT_OR_FAIL(orus_jit_offset_list_append(&false_patches,
+                                                         disp_offset));
+                EMIT_OR_FAIL(orus_jit_method_emit_reload_window(&code));
+                break;
+            }
+            case ORUS_JIT_IR_OP_RETURN_VALUE: {
+                EMIT_OR_FAIL(orus_jit_method_emit_helper_call(
+                    &code, (const void*)&orus_jit_native_method_return,
+                    inst->operands.return_value.value_reg, here));
+                EMIT_OR_FAIL(orus_jit_method_emit_rel32(&code, JMP, sizeof(JMP),
+                                                        &disp_offset));
+                EMIT_OR_FAIL(orus_jit_offset_list_append(&return_patches,
+                                                         disp_offset));
+                break;
+            }
+            default:
+                RETURN_WITH(JIT_BACKEND_ASSEMBLY_ERROR);
+        }
+    }
+
+    // Running off the end of the body hands the end of the chunk back to the
+    // interpreter, which handles it as it would have without the JIT.
+    size_t tail_disp = 0u;
+    EMIT_OR_FAIL(orus_jit_method_emit_rel32(&code, JMP, sizeof(JMP),
+                                            &tail_disp));
+    EMIT_OR_FAIL(orus_jit_branch_patch_list_append(&exit_patches, tail_disp,
+                                                   program->loop_end_offset));
+
+    for (size_t i = 0; i < branch_patches.count; ++i) {
+        const OrusJitBranchPatch* patch = &branch_patches.data[i];
+        size_t target_index =
+            orus_jit_program_find_index(program, patch->target_bytecode);
+        if (target_index == SIZE_MAX) {
+            RETURN_WITH(JIT_BACKEND_ASSEMBLY_ERROR);
+        }
+        orus_jit_method_patch_rel32(&code, patch->code_offset,
+                                    inst_offsets[target_index]);
+    }
+
+    // Exit stubs: esi carries the bytecode offset the interpreter resumes at.
+    size_t common_exit_disp = 0u;
+    OrusJitOffsetList common_exit_patches;
+    orus_jit_offset_list_init(&common_exit_patches);
+    for (size_t i = 0; i < exit_patches.count; ++i) {
+        const OrusJitBranchPatch* patch = &exit_patches.data[i];
+        orus_jit_method_patch_rel32(&code, patch->code_offset, code.size);
+        if (!orus_jit_code_buffer_emit_u8(&code, 0xBE) ||
+            !orus_jit_code_buffer_emit_u32(&code, patch->target_bytecode) ||
+            !orus_jit_method_emit_rel32(&code, JMP, sizeof(JMP),
+                                        &common_exit_disp) ||
+            !orus_jit_offset_list_append(&common_exit_patches,
+                                         common_exit_disp)) {
+            orus_jit_offset_list_release(&common_exit_patches);
+            RETURN_WITH(JIT_BACKEND_OUT_OF_MEMORY);
+        }
+    }
+    for (size_t i = 0; i < common_exit_patches.count; ++i) {
+        orus_jit_method_patch_rel32(&code, common_exit_patches.data[i],
+                                    code.size);
+    }
+    orus_jit_offset_list_release(&common_exit_patches);
+    // Common exit: esi already holds the resume offset.
+    EMIT_OR_FAIL(orus_jit_code_buffer_emit_bytes(&code, MOV_RDI_R12,
+                                                 sizeof(MOV_RDI_R12)));
+    EMIT_OR_FAIL(orus_jit_code_buffer_emit_u8(&code, 0xBA));
+    EMIT_OR_FAIL(orus_jit_code_buffer_emit_u32(&code,
+                                               program->function_index));
+    EMIT_OR_FAIL(orus_jit_code_buffer_emit_u8(&code, 0x48));
+    EMIT_OR_FAIL(orus_jit_code_buffer_emit_u8(&code, 0xB8));
+    EMIT_OR_FAIL(orus_jit_code_buffer_emit_u64(
+        &code, orus_jit_function_ptr_bits(&orus_jit_native_method_exit)));
+    EMIT_OR_FAIL(orus_jit_code_buffer_emit_bytes(&code, CALL_RAX,
+                                                 sizeof(CALL_RAX)));
+
+    size_t false_offset = code.size;
+    EMIT_OR_FAIL(orus_jit_code_buffer_emit_bytes(&code, XOR_EAX_EAX,
+                                                 sizeof(XOR_EAX_EAX)));
+    size_t epilogue_offset = code.size;
+    EMIT_OR_FAIL(orus_jit_code_buffer_emit_bytes(&code, EPILOGUE,
+                                                 sizeof(EPILOGUE)));
+    for (size_t i = 0; i < false_patches.count; ++i) {
+        orus_jit_method_patch_rel32(&code, false_patches.data[i], false_offset);
+    }
+    for (size_t i = 0; i < return_patches.count; ++i) {
+        orus_jit_method_patch_rel32(&code, return_patches.data[i],
+                                    epilogue_offset);
+    }
+
+    size_t capacity = 0u;
+    void* buffer = orus_jit_alloc_executable(code.size, backend->page_size,
+                                             &capacity);
+    if (!buffer) {
+        RETURN_WITH(JIT_BACKEND_OUT_OF_MEMORY);
+    }
+    if (!orus_jit_set_write_protection(false)) {
+        orus_jit_release_executable(buffer, capacity);
+        RETURN_WITH(JIT_BACKEND_ASSEMBLY_ERROR);
+    }
+    memcpy(buffer, code.data, code.size);
+    if (!orus_jit_set_write_protection(true)) {
+        orus_jit_release_executable(buffer, capacity);
+        RETURN_WITH(JIT_BACKEND_ASSEMBLY_ERROR);
+    }
+#if !defined(_WIN32)
+    if (!orus_jit_make_executable(buffer, capacity)) {
+        orus_jit_release_executable(buffer, capacity);
+        RETURN_WITH(JIT_BACKEND_ASSEMBLY_ERROR);
+    }
+#endif
+    orus_jit_flush_icache(buffer, code.size);
+
+    entry->entry_point = orus_jit_make_entry_point(buffer);
+    entry->method_entry_point = (JITMethodEntryPoint)buffer;
+    entry->code_ptr = buffer;
+    entry->code_size = code.size;
+    entry->code_capacity = capacity;
+    entry->debug_name = "orus_jit_method_x86";
+
+    block->code_ptr = buffer;
+    block->code_capacity = capacity;
+    orus_jit_debug_publish_disassembly(&block->program,
+                                       ORUS_JIT_BACKEND_TARGET_X86_64,
+                                       buffer,
+                                       code.size);
+
+    orus_jit_code_buffer_release(&code);
+    orus_jit_offset_list_release(&return_patches);
+    orus_jit_offset_list_release(&false_patches);
+    orus_jit_branch_patch_list_release(&branch_patches);
+    orus_jit_branch_patch_list_release(&exit_patches);
+    free(inst_offsets);
+#undef EMIT_OR_FAIL
+#undef RETURN_WITH
+    return JIT_BACKEND_OK;
+}
+
+// ---------------------------------------------------------------------------
+// Register-form loops. When orus_jit_regalloc_build() accepts a loop program,
+// its webs live in the machine registers below instead of the typed window.
+// r12 holds the VM and r13 the window, which stays the spill home of every
+// web. rax/rcx/rdx and xmm0/xmm1 are scratch. Exit stubs store the webs the
+// interpreter has not seen and call orus_jit_native_regalloc_exit(), which
+// publishes them and records where the interpreter resumes.
+// ---------------------------------------------------------------------------
+
+// Callee-saved registers first so short loops never save around safepoints.
+static const uint8_t ORUS_JIT_REGALLOC_GPRS[] = {
+    3u, 5u, 14u, 15u, // rbx, rbp, r14, r15
+    6u, 7u, 8u, 9u, 10u, 11u, // rsi, rdi, r8-r11
+};
+static const uint8_t ORUS_JIT_REGALLOC_FPRS[] = {
+    2u, 3u, 4u, 5u, 6u, 7u, 8u, 9u, 10u, 11u, 12u, 13u, 14u, 15u,
+};
+#define ORUS_JIT_REGALLOC_FIRST_CALLER_SAVED 4u
+#define ORUS_JIT_REGALLOC_RAX 0u
+#define ORUS_JIT_REGALLOC_RCX 1u
+// Six pushes plus this keep calls 16-byte aligned. The area holds the
+// caller-saved pool registers across safepoint calls: six GPRs, then xmm2+.
+#define ORUS_JIT_REGALLOC_FRAME_SIZE 168u
+
+static RegisterType orus_jit_osr_register_type(uint8_t kind);
+
+static bool
+orus_jit_regalloc_enabled(void) {
+    static int cached = -1;
+    if (cached < 0) {
+        const char* value = getenv("ORUS_JIT_DISABLE_REGALLOC");
+        cached = (value && value[0] != '\0' && value[0] != '0') ? 0 : 1;
+    }
+    return cached == 1;
+}
+
+static void
+orus_jit_native_regalloc_exit(struct VM* vm_instance,
+                              const OrusJitNativeBlock* block,
+                              uint32_t exit_index) {
+    const OrusJitRegAlloc* alloc = block ? &block->regalloc : NULL;
+    if (!alloc || exit_index >= alloc->exit_count) {
+        return;
+    }
+    const OrusJitRegAllocExit* exit = &alloc->exits[exit_index];
+    for (uint16_t i = 0; i < exit->flush_count; ++i) {
+        const OrusJitRegAllocWeb* web =
+            &alloc->webs[alloc->flush[exit->first_flush + i]];
+        if (!vm_mark_typed_register_dirty(web->reg,
+                                          orus_jit_osr_register_type(web->kind))) {
+            vm_reconcile_typed_register(web->reg);
+        }
+    }
+    orus_jit_native_osr_exit(vm_instance, exit->resume_offset);
+}
+
+// A web's current home: a machine register, or its typed window slot.
+typedef struct OrusJitRegAllocOperand {
+    bool in_window;
+    uint8_t reg;
+    uint32_t disp;
+} OrusJitRegAllocOperand;
+
+static OrusJitRegAllocOperand
+orus_jit_regalloc_machine(uint8_t reg) {
+    OrusJitRegAllocOperand operand = {false, reg, 0u};
+    return operand;
+}
+
+static OrusJitRegAllocOperand
+orus_jit_regalloc_home(const OrusJitRegAllocWeb* web) {
+    size_t disp;
+    switch ((OrusJitValueKind)web->kind) {
+        case ORUS_JIT_VALUE_I64:
+            disp = offsetof(TypedRegisterWindow, i64_regs) +
+                   (size_t)web->reg * sizeof(int64_t);
+            break;
+        case ORUS_JIT_VALUE_F64:
+            disp = offsetof(TypedRegisterWindow, f64_regs) +
+                   (size_t)web->reg * sizeof(double);
+            break;
+        case ORUS_JIT_VALUE_BOOL:
+            disp = offsetof(TypedRegisterWindow, bool_regs) +
+                   (size_t)web->reg * sizeof(bool);
+            break;
+        default:
+            disp = offsetof(TypedRegisterWindow, i32_regs) +
+                   (size_t)web->reg * sizeof(int32_t);
+            break;
+    }
+    OrusJitRegAllocOperand operand = {true, 0u, (uint32_t)disp};
+    return operand;
+}
+
+static OrusJitRegAllocOperand
+orus_jit_regalloc_operand(const OrusJitRegAlloc* alloc, uint16_t web_index) {
+    const OrusJitRegAllocWeb* web = &alloc->webs[web_index];
+    if (web->location == ORUS_JIT_REGALLOC_SPILLED) {
+        return orus_jit_regalloc_home(web);
+    }
+    return orus_jit_regalloc_machine(
+        orus_jit_regalloc_class(web->kind) == ORUS_JIT_REG_CLASS_FPR
+            ? ORUS_JIT_REGALLOC_FPRS[web->location]
+            : ORUS_JIT_REGALLOC_GPRS[web->location]);
+}
+
+// Emits `[prefix] [rex] <opcode...> modrm` with reg in the reg field and rm
+// either a register or [r13 + disp32].
+static bool
+orus_jit_regalloc_emit_op(OrusJitCodeBuffer* code, uint8_t prefix, bool wide,
+                          const uint8_t* opcode, size_t opcode_length,
+                          uint8_t reg, const OrusJitRegAllocOperand* rm) {
+    uint8_t rex = (uint8_t)(0x40u | (wide ? 0x08u : 0u) |
+                            ((reg & 8u) ? 0x04u : 0u) |
+                            ((rm->in_window || (rm->reg & 8u)) ? 0x01u : 0u));
+    if ((prefix && !orus_jit_code_buffer_emit_u8(code, prefix)) ||
+        (rex != 0x40u && !orus_jit_code_buffer_emit_u8(code, rex)) ||
+        !orus_jit_code_buffer_emit_bytes(code, opcode, opcode_length)) {
+        return false;
+    }
+    if (rm->in_window) {
+        return orus_jit_code_buffer_emit_u8(
+                   code, (uint8_t)(0x85u | ((reg & 7u) << 3))) &&
+               orus_jit_code_buffer_emit_u32(code, rm->disp);
+    }
+    return orus_jit_code_buffer_emit_u8(
+        code, (uint8_t)(0xC0u | ((reg & 7u) << 3) | (rm->reg & 7u)));
+}
+
+// Same, with rm = [rsp + disp32] in the safepoint save area.
+static bool
+orus_jit_regalloc_emit_frame_op(OrusJitCodeBuffer* code, uint8_t prefix,
+                                bool wide, const uint8_t* opcode,
+                                size_t opcode_length, uint8_t reg,
+                                uint32_t disp) {
+    uint8_t rex = (uint8_t)(0x40u | (wide ? 0x08u : 0u) |
+                            ((reg & 8u) ? 0x04u : 0u));
+    return (!prefix || orus_jit_code_buffer_emit_u8(code, prefix)) &&
+           (rex == 0x40u || orus_jit_code_buffer_emit_u8(code, rex)) &&
+           orus_jit_code_buffer_emit_bytes(code, opcode, opcode_length) &&
+           orus_jit_code_buffer_emit_u8(code, (uint8_t)(0x84u | ((reg & 7u) << 3))) &&
+           orus_jit_code_buffer_emit_u8(code, 0x24u) &&
+           orus_jit_code_buffer_emit_u32(code, disp);
+}
+
+// reg = src, both holding a value of kind.
+static bool
+orus_jit_regalloc_emit_load(OrusJitCodeBuffer* code, uint8_t kind, uint8_t reg,
+                            const OrusJitRegAllocOperand* src) {
+    static const uint8_t MOVSD_LOAD[] = {0x0F, 0x10};
+    static const uint8_t MOVAPD[] = {0x0F, 0x28};
+    static const uint8_t MOVZX8[] = {0x0F, 0xB6};
+    static const uint8_t MOV_LOAD[] = {0x8B};
+    if (!src->in_window && src->reg == reg) {
+        return true;
+    }
+    switch ((OrusJitValueKind)kind) {
+        case ORUS_JIT_VALUE_F64:
+            return src->in_window
+                       ? orus_jit_regalloc_emit_op(code, 0xF2, false, MOVSD_LOAD,
+                                                   sizeof(MOVSD_LOAD), reg, src)
+                       : orus_jit_regalloc_emit_op(code, 0x66, false, MOVAPD,
+                                                   sizeof(MOVAPD), reg, src);
+        case ORUS_JIT_VALUE_BOOL:
+            return src->in_window
+                       ? orus_jit_regalloc_emit_op(code, 0, false, MOVZX8,
+                                                   sizeof(MOVZX8), reg, src)
+                       : orus_jit_regalloc_emit_op(code, 0, false, MOV_LOAD,
+                                                   sizeof(MOV_LOAD), reg, src);
+        default:
+            return orus_jit_regalloc_emit_op(code, 0, kind == ORUS_JIT_VALUE_I64,
+                                             MOV_LOAD, sizeof(MOV_LOAD), reg, src);
+    }
+}
+
+// dst = reg, both holding a value of kind.
+static bool
+orus_jit_regalloc_emit_store(OrusJitCodeBuffer* code, uint8_t kind,
+                             const OrusJitRegAllocOperand* dst, uint8_t reg) {
+    static const uint8_t MOVSD_STORE[] = {0x0F, 0x11};
+    static const uint8_t MOV_STORE8[] = {0x88};
+    static const uint8_t MOV_STORE[] = {0x89};
+    if (!dst->in_window) {
+        OrusJitRegAllocOperand src = orus_jit_regalloc_machine(reg);
+        return orus_jit_regalloc_emit_load(code, kind, dst->reg, &src);
+    }
+    switch ((OrusJitValueKind)kind) {
+        case ORUS_JIT_VALUE_F64:
+            return orus_jit_regalloc_emit_op(code, 0xF2, false, MOVSD_STORE,
+                                             sizeof(MOVSD_STORE), reg, dst);
+        case ORUS_JIT_VALUE_BOOL:
+            // Always carries REX.B for r13, so sil/dil/bpl encode correctly.
+            return orus_jit_regalloc_emit_op(code, 0, false, MOV_STORE8,
+                                             sizeof(MOV_STORE8), reg, dst);
+        default:
+            return orus_jit_regalloc_emit_op(code, 0, kind == ORUS_JIT_VALUE_I64,
+                                             MOV_STORE, sizeof(MOV_STORE), reg, dst);
+    }
+}
+
+static bool
+orus_jit_regalloc_emit_copy(OrusJitCodeBuffer* code, uint8_t kind,
+                            const OrusJitRegAllocOperand* dst,
+                            const OrusJitRegAllocOperand* src) {
+    if (!dst->in_window) {
+        return orus_jit_regalloc_emit_load(code, kind, dst->reg, src);
+    }
+    if (!src->in_window) {
+        return orus_jit_regalloc_emit_store(code, kind, dst, src->reg);
+    }
+    if (dst->disp == src->disp) {
+        return true;
+    }
+    return orus_jit_regalloc_emit_load(code, kind, ORUS_JIT_REGALLOC_RAX, src) &&
+           orus_jit_regalloc_emit_store(code, kind, dst, ORUS_JIT_REGALLOC_RAX);
+}
+
+static bool
+orus_jit_regalloc_emit_constant(OrusJitCodeBuffer* code, uint8_t kind,
+                                const OrusJitRegAllocOperand* dst,
+                                uint64_t bits) {
+    static const uint8_t MOV_IMM32[] = {0xC7};
+    static const uint8_t MOV_IMM8[] = {0xC6};
+    static const uint8_t MOVQ_XMM_R64[] = {0x0F, 0x6E};
+    switch ((OrusJitValueKind)kind) {
+        case ORUS_JIT_VALUE_F64: {
+            OrusJitRegAllocOperand rax = orus_jit_regalloc_machine(ORUS_JIT_REGALLOC_RAX);
+            if (!orus_jit_code_buffer_emit_u8(code, 0x48) ||
+                !orus_jit_code_buffer_emit_u8(code, 0xB8) ||
+                !orus_jit_code_buffer_emit_u64(code, bits)) {
+                return false;
+            }
+            if (dst->in_window) {
+                return orus_jit_regalloc_emit_store(code, ORUS_JIT_VALUE_I64, dst,
+                                                    ORUS_JIT_REGALLOC_RAX);
+            }
+            return orus_jit_regalloc_emit_op(code, 0x66, true, MOVQ_XMM_R64,
+                                             sizeof(MOVQ_XMM_R64), dst->reg, &rax);
+        }
+        case ORUS_JIT_VALUE_I64: {
+            int64_t value = (int64_t)bits;
+            if (value >= INT32_MIN && value <= INT32_MAX) {
+                return orus_jit_regalloc_emit_op(code, 0, true, MOV_IMM32,
+                                                 sizeof(MOV_IMM32), 0u, dst) &&
+                       orus_jit_code_buffer_emit_u32(code, (uint32_t)value);
+            }
+            return orus_jit_code_buffer_emit_u8(code, 0x48) &&
+                   orus_jit_code_buffer_emit_u8(code, 0xB8) &&
+                   orus_jit_code_buffer_emit_u64(code, bits) &&
+                   orus_jit_regalloc_emit_store(code, kind, dst,
+                                                ORUS_JIT_REGALLOC_RAX);
+        }
+        case ORUS_JIT_VALUE_BOOL:
+            if (dst->in_window) {
+                return orus_jit_regalloc_emit_op(code, 0, false, MOV_IMM8,
+                                                 sizeof(MOV_IMM8), 0u, dst) &&
+                       orus_jit_code_buffer_emit_u8(code, (uint8_t)(bits & 0x1u));
+            }
+            return orus_jit_regalloc_emit_op(code, 0, false, MOV_IMM32,
+                                             sizeof(MOV_IMM32), 0u, dst) &&
+                   orus_jit_code_buffer_emit_u32(code, (uint32_t)(bits & 0x1u));
+        default:
+            return orus_jit_regalloc_emit_op(code, 0, false, MOV_IMM32,
+                                             sizeof(MOV_IMM32), 0u, dst) &&
+                   orus_jit_code_buffer_emit_u32(code, (uint32_t)bits);
+    }
+}
+
+// Condition code of an integer comparison, or of the ucomisd form for f64
+// (operands swapped for LT/LE). 0xFF when the result needs two flags.
+static uint8_t
+orus_jit_regalloc_compare_cc(OrusJitIROpcode opcode) {
+    switch (opcode) {
+        case ORUS_JIT_IR_OP_LT_I32:
+        case ORUS_JIT_IR_OP_LT_I64:
+            return 0x0Cu;
+        case ORUS_JIT_IR_OP_LE_I32:
+        case ORUS_JIT_IR_OP_LE_I64:
+            return 0x0Eu;
+        case ORUS_JIT_IR_OP_GT_I32:
+        case ORUS_JIT_IR_OP_GT_I64:
+            return 0x0Fu;
+        case ORUS_JIT_IR_OP_GE_I32:
+        case ORUS_JIT_IR_OP_GE_I64:
+            return 0x0Du;
+        case ORUS_JIT_IR_OP_EQ_I32:
+        case ORUS_JIT_IR_OP_EQ_I64:
+            return 0x04u;
+        case ORUS_JIT_IR_OP_NE_I32:
+        case ORUS_JIT_IR_OP_NE_I64:
+            return 0x05u;
+        case ORUS_JIT_IR_OP_LT_F64:
+        case ORUS_JIT_IR_OP_GT_F64:
+            return 0x07u;
+        case ORUS_JIT_IR_OP_LE_F64:
+        case ORUS_JIT_IR_OP_GE_F64:
+            return 0x03u;
+        default:
+            return 0xFFu;
+    }
+}
+
+typedef struct OrusJitRegAllocSlowPath {
+    size_t patches[2];
+    size_t resume;
+    uint16_t exit;
+} OrusJitRegAllocSlowPath;
+
+static JITBackendStatus
+orus_jit_backend_emit_regalloc_x86(struct OrusJitBackend* backend,
+                                   OrusJitNativeBlock* block,
+                                   JITEntry* entry) {
+    static const uint8_t PROLOGUE[] = {
+        0x53,             // push rbx
+        0x55,             // push rbp
+        0x41, 0x54,       // push r12
+        0x41, 0x55,       // push r13
+        0x41, 0x56,       // push r14
+        0x41, 0x57,       // push r15
+        0x48, 0x81, 0xEC, // sub rsp, imm32
+    };
+    static const uint8_t EPILOGUE[] = {
+        0x41, 0x5F, // pop r15
+        0x41, 0x5E, // pop r14
+        0x41, 0x5D, // pop r13
+        0x41, 0x5C, // pop r12
+        0x5D,       // pop rbp
+        0x5B,       // pop rbx
+        0xC3,       // ret
+    };
+    static const uint8_t ADD_RSP[] = {0x48, 0x81, 0xC4};
+    static const uint8_t MOV_R12_RDI[] = {0x49, 0x89, 0xFC};
+    static const uint8_t MOV_RDI_R12[] = {0x4C, 0x89, 0xE7};
+    static const uint8_t CALL_RAX[] = {0xFF, 0xD0};
+    static const uint8_t TEST_AL_AL[] = {0x84, 0xC0};
+    static const uint8_t MOVZX_EAX_AL[] = {0x0F, 0xB6, 0xC0};
+    static const uint8_t PXOR_XMM0[] = {0x66, 0x0F, 0xEF, 0xC0};
+    static const uint8_t AND_AL_CL[] = {0x20, 0xC8};
+    static const uint8_t OR_AL_CL[] = {0x08, 0xC8};
+    static const uint8_t CMP_PENDING[] = {0x41, 0x80, 0xBC, 0x24};
+    static const uint8_t MOV_RAX_ALLOCATED[] = {0x49, 0x8B, 0x84, 0x24};
+    static const uint8_t CMP_RAX_RCX_MEM[] = {0x48, 0x3B, 0x01};
+    static const uint8_t JMP[] = {0xE9};
+    static const uint8_t JE[] = {0x0F, 0x84};
+    static const uint8_t JNE[] = {0x0F, 0x85};
+    static const uint8_t JA[] = {0x0F, 0x87};
+    static const uint8_t JO[] = {0x0F, 0x80};
+    static const uint8_t JL[] = {0x0F, 0x8C};
+    static const uint8_t JG[] = {0x0F, 0x8F};
+    static const uint8_t OP_ADD[] = {0x03};
+    static const uint8_t OP_SUB[] = {0x2B};
+    static const uint8_t OP_IMUL[] = {0x0F, 0xAF};
+    static const uint8_t OP_CMP[] = {0x3B};
+    static const uint8_t OP_TEST[] = {0x85};
+    static const uint8_t OP_CMP_IMM8[] = {0x80};
+    static const uint8_t OP_GROUP1_IMM8[] = {0x83};
+    static const uint8_t OP_MOVSXD[] = {0x63};
+    static const uint8_t OP_CVTSI2SD[] = {0x0F, 0x2A};
+    static const uint8_t OP_ADDSD[] = {0x0F, 0x58};
+    static const uint8_t OP_SUBSD[] = {0x0F, 0x5C};
+    static const uint8_t OP_MULSD[] = {0x0F, 0x59};
+    static const uint8_t OP_UCOMISD[] = {0x0F, 0x2E};
+    static const uint8_t OP_MOVSD_LOAD[] = {0x0F, 0x10};
+    static const uint8_t OP_MOVSD_STORE[] = {0x0F, 0x11};
+    static const uint8_t OP_MOV_LOAD[] = {0x8B};
+    static const uint8_t OP_MOV_STORE[] = {0x89};
+
+    const uint8_t pools[ORUS_JIT_REG_CLASS_COUNT] = {
+        (uint8_t)sizeof(ORUS_JIT_REGALLOC_GPRS),
+        (uint8_t)sizeof(ORUS_JIT_REGALLOC_FPRS),
+    };
+    OrusJitRegAlloc* alloc = &block->regalloc;
+    if (!orus_jit_regalloc_enabled() ||
+        !orus_jit_regalloc_build(&block->program, pools, alloc)) {
+        return JIT_BACKEND_UNSUPPORTED;
+    }
+    const OrusJitIRProgram* program = &block->program;
+
+    OrusJitCodeBuffer code;
+    orus_jit_code_buffer_init(&code);
+    // target_bytecode holds an instruction index for branch patches and an
+    // exit index for exit patches.
+    OrusJitBranchPatchList branch_patches;
+    orus_jit_branch_patch_list_init(&branch_patches);
+    OrusJitBranchPatchList exit_patches;
+    orus_jit_branch_patch_list_init(&exit_patches);
+    OrusJitOffsetList epilogue_patches;
+    orus_jit_offset_list_init(&epilogue_patches);
+    size_t* inst_offsets = (size_t*)calloc(program->count, sizeof(size_t));
+    bool* targeted = (bool*)calloc(program->count, sizeof(bool));
+    OrusJitRegAllocSlowPath* slow_paths = (OrusJitRegAllocSlowPath*)calloc(
+        program->count, sizeof(OrusJitRegAllocSlowPath));
+    size_t slow_path_count = 0u;
+
+#define RETURN_WITH(status)                                                     \
+    do {                                                                        \
+        orus_jit_code_buffer_release(&code);                                    \
+        orus_jit_branch_patch_list_release(&branch_patches);                    \
+        orus_jit_branch_patch_list_release(&exit_patches);                      \
+        orus_jit_offset_list_release(&epilogue_patches);                        \
+        free(inst_offsets);                                                     \
+        free(targeted);                                                         \
+        free(slow_paths);                                                       \
+        if ((status) != JIT_BACKEND_OK) {                                       \
+            orus_jit_regalloc_release(alloc);                                   \
+        }                                                                       \
+        return (status);                                                        \
+    } while (0)
+#define EMIT_OR_FAIL(expr)                                                      \
+    do {                                                                        \
+        if (!(expr)) {                                                          \
+            RETURN_WITH(JIT_BACKEND_OUT_OF_MEMORY);                             \
+        }                                                                       \
+    } while (0)
+// Jumps to an exit stub when exit is set, else to instruction `index`.
+#define EMIT_BRANCH(opcode, exit, index)                                        \
+    do {                                                                        \
+        size_t branch_disp = 0u;                                                \
+        EMIT_OR_FAIL(orus_jit_method_emit_rel32(&code, (opcode),                \
+                                                sizeof(opcode), &branch_disp)); \
+        if ((exit) != ORUS_JIT_REGALLOC_NO_EXIT) {                              \
+            EMIT_OR_FAIL(orus_jit_branch_patch_list_append(                     \
+                &exit_patches, branch_disp, (uint32_t)(exit)));                 \
+        } else {                                                                \
+            EMIT_OR_FAIL(orus_jit_branch_patch_list_append(                     \
+                &branch_patches, branch_disp, (uint32_t)(index)));              \
+        }                                                                       \
+    } while (0)
+
+    if (!inst_offsets || !targeted || !slow_paths) {
+        RETURN_WITH(JIT_BACKEND_OUT_OF_MEMORY);
+    }
+    for (size_t i = 0; i < alloc->site_count; ++i) {
+        const OrusJitRegAllocSite* site = &alloc->sites[i];
+        if (site->taken_index != ORUS_JIT_REGALLOC_NO_TARGET) {
+            targeted[site->taken_index] = true;
+        }
+        if (site->next_index != ORUS_JIT_REGALLOC_NO_TARGET &&
+            site->next_index != i + 1u) {
+            targeted[site->next_index] = true;
+        }
+    }
+
+    EMIT_OR_FAIL(orus_jit_code_buffer_emit_bytes(&code, PROLOGUE, sizeof(PROLOGUE)));
+    EMIT_OR_FAIL(orus_jit_code_buffer_emit_u32(&code, ORUS_JIT_REGALLOC_FRAME_SIZE));
+    EMIT_OR_FAIL(orus_jit_code_buffer_emit_bytes(&code, MOV_R12_RDI,
+                                                 sizeof(MOV_R12_RDI)));
+    EMIT_OR_FAIL(orus_jit_method_emit_reload_window(&code));
+    for (uint16_t w = 0; w < alloc->web_count; ++w) {
+        const OrusJitRegAllocWeb* web = &alloc->webs[w];
+        if (!web->live_in || web->location == ORUS_JIT_REGALLOC_SPILLED) {
+            continue;
+        }
+        OrusJitRegAllocOperand home = orus_jit_regalloc_home(web);
+        OrusJitRegAllocOperand reg = orus_jit_regalloc_operand(alloc, w);
+        EMIT_OR_FAIL(orus_jit_regalloc_emit_load(&code, web->kind, reg.reg, &home));
+    }
+
+    uint8_t pending_cc = 0xFFu;
+    for (size_t i = 0; i < program->count; ++i) {
+        const OrusJitIRInstruction* inst = &program->instructions[i];
+        const OrusJitRegAllocSite* site = &alloc->sites[i];
+        uint8_t kind = (uint8_t)inst->value_kind;
+        bool wide = kind == ORUS_JIT_VALUE_I64;
+        // Flags of a comparison that directly precedes its branch.
+        uint8_t fused_cc = targeted[i] ? 0xFFu : pending_cc;
+        pending_cc = 0xFFu;
+        inst_offsets[i] = code.size;
+
+        OrusJitRegAllocOperand def = {true, 0u, 0u};
+        OrusJitRegAllocOperand lhs = {true, 0u, 0u};
+        OrusJitRegAllocOperand rhs = {true, 0u, 0u};
+        if (site->def != ORUS_JIT_REGALLOC_NO_WEB) {
+            def = orus_jit_regalloc_operand(alloc, site->def);
+        }
+        if (site->uses[0] != ORUS_JIT_REGALLOC_NO_WEB) {
+            lhs = orus_jit_regalloc_operand(alloc, site->uses[0]);
+        }
+        if (site->uses[1] != ORUS_JIT_REGALLOC_NO_WEB) {
+            rhs = orus_jit_regalloc_operand(alloc, site->uses[1]);
+        }
+
+        switch (inst->opcode) {
+            case ORUS_JIT_IR_OP_LOAD_I32_CONST:
+            case ORUS_JIT_IR_OP_LOAD_I64_CONST:
+            case ORUS_JIT_IR_OP_LOAD_F64_CONST:
+            case ORUS_JIT_IR_OP_LOAD_BOOL_CONST:
+                EMIT_OR_FAIL(orus_jit_regalloc_emit_constant(
+                    &code, kind, &def, inst->operands.load_const.immediate_bits));
+                break;
+            case ORUS_JIT_IR_OP_MOVE_I32:
+            case ORUS_JIT_IR_OP_MOVE_I64:
+            case ORUS_JIT_IR_OP_MOVE_F64:
+            case ORUS_JIT_IR_OP_MOVE_BOOL:
+                EMIT_OR_FAIL(orus_jit_regalloc_emit_copy(&code, kind, &def, &lhs));
+                break;
+            case ORUS_JIT_IR_OP_ADD_I32:
+            case ORUS_JIT_IR_OP_ADD_I64:
+            case ORUS_JIT_IR_OP_SUB_I32:
+            case ORUS_JIT_IR_OP_SUB_I64:
+            case ORUS_JIT_IR_OP_MUL_I32:
+            case ORUS_JIT_IR_OP_MUL_I64: {
+                const uint8_t* op = OP_ADD;
+                size_t op_length = sizeof(OP_ADD);
+                if (inst->opcode == ORUS_JIT_IR_OP_SUB_I32 ||
+                    inst->opcode == ORUS_JIT_IR_OP_SUB_I64) {
+                    op = OP_SUB;
+                    op_length = sizeof(OP_SUB);
+                } else if (inst->opcode == ORUS_JIT_IR_OP_MUL_I32 ||
+                           inst->opcode == ORUS_JIT_IR_OP_MUL_I64) {
+                    op = OP_IMUL;
+                    op_length = sizeof(OP_IMUL);
+                }
+                EMIT_OR_FAIL(orus_jit_regalloc_emit_load(&code, kind,
+                                                         ORUS_JIT_REGALLOC_RAX, &lhs));
+                EMIT_OR_FAIL(orus_jit_regalloc_emit_op(&code, 0, wide, op, op_length,
+                                                       ORUS_JIT_REGALLOC_RAX, &rhs));
+                EMIT_BRANCH(JO, site->exit_before, ORUS_JIT_REGALLOC_NO_TARGET);
+                EMIT_OR_FAIL(orus_jit_regalloc_emit_store(&code, kind, &def,
+                                                          ORUS_JIT_REGALLOC_RAX));
+                break;
+            }
+            case ORUS_JIT_IR_OP_ADD_F64:
+            case ORUS_JIT_IR_OP_SUB_F64:
+            case ORUS_JIT_IR_OP_MUL_F64: {
+                const uint8_t* op = inst->opcode == ORUS_JIT_IR_OP_ADD_F64
+                                        ? OP_ADDSD
+                                        : (inst->opcode == ORUS_JIT_IR_OP_SUB_F64
+                                               ? OP_SUBSD
+                                               : OP_MULSD);
+                EMIT_OR_FAIL(orus_jit_regalloc_emit_load(&code, kind, 0u, &lhs));
+                EMIT_OR_FAIL(orus_jit_regalloc_emit_op(&code, 0xF2, false, op, 2u,
+                                                       0u, &rhs));
+                EMIT_OR_FAIL(orus_jit_regalloc_emit_store(&code, kind, &def, 0u));
+                break;
+            }
+            case ORUS_JIT_IR_OP_LT_I32:
+            case ORUS_JIT_IR_OP_LE_I32:
+            case ORUS_JIT_IR_OP_GT_I32:
+            case ORUS_JIT_IR_OP_GE_I32:
+            case ORUS_JIT_IR_OP_EQ_I32:
+            case ORUS_JIT_IR_OP_NE_I32:
+            case ORUS_JIT_IR_OP_LT_I64:
+            case ORUS_JIT_IR_OP_LE_I64:
+            case ORUS_JIT_IR_OP_GT_I64:
+            case ORUS_JIT_IR_OP_GE_I64:
+            case ORUS_JIT_IR_OP_EQ_I64:
+            case ORUS_JIT_IR_OP_NE_I64:
+            case ORUS_JIT_IR_OP_LT_F64:
+            case ORUS_JIT_IR_OP_LE_F64:
+            case ORUS_JIT_IR_OP_GT_F64:
+            case ORUS_JIT_IR_OP_GE_F64:
+            case ORUS_JIT_IR_OP_EQ_F64:
+            case ORUS_JIT_IR_OP_NE_F64: {
+                // The IR tags comparisons with their operand kind.
+                uint8_t operand_kind = alloc->webs[site->uses[0]].kind;
+                uint8_t cc = orus_jit_regalloc_compare_cc(inst->opcode);
+                if (operand_kind == ORUS_JIT_VALUE_F64) {
+                    bool swap = inst->opcode == ORUS_JIT_IR_OP_LT_F64 ||
+                                inst->opcode == ORUS_JIT_IR_OP_LE_F64;
+                    EMIT_OR_FAIL(orus_jit_regalloc_emit_load(
+                        &code, operand_kind, 0u, swap ? &rhs : &lhs));
+                    EMIT_OR_FAIL(orus_jit_regalloc_emit_op(
+                        &code, 0x66, false, OP_UCOMISD, sizeof(OP_UCOMISD), 0u,
+                        swap ? &lhs : &rhs));
+                } else {
+                    EMIT_OR_FAIL(orus_jit_regalloc_emit_load(
+                        &code, operand_kind, ORUS_JIT_REGALLOC_RAX, &lhs));
+                    EMIT_OR_FAIL(orus_jit_regalloc_emit_op(
+                        &code, 0, operand_kind == ORUS_JIT_VALUE_I64, OP_CMP,
+                        sizeof(OP_CMP), ORUS_JIT_REGALLOC_RAX, &rhs));
+                }
+                if (cc != 0xFFu) {
+                    // setcc al
+                    EMIT_OR_FAIL(orus_jit_code_buffer_emit_u8(&code, 0x0F));
+                    EMIT_OR_FAIL(orus_jit_code_buffer_emit_u8(&code, (uint8_t)(0x90u | cc)));
+                    EMIT_OR_FAIL(orus_jit_code_buffer_emit_u8(&code, 0xC0));
+                } else {
+                    // Unordered operands compare unequal.
+                    bool equal = inst->opcode == ORUS_JIT_IR_OP_EQ_F64;
+                    uint8_t set_al[] = {0x0F, equal ? 0x94 : 0x95, 0xC0};
+                    uint8_t set_cl[] = {0x0F, equal ? 0x9B : 0x9A, 0xC1};
+                    EMIT_OR_FAIL(orus_jit_code_buffer_emit_bytes(&code, set_al,
+                                                                 sizeof(set_al)));
+                    EMIT_OR_FAIL(orus_jit_code_buffer_emit_bytes(&code, set_cl,
+                                                                 sizeof(set_cl)));
+                    EMIT_OR_FAIL(orus_jit_code_buffer_emit_bytes(
+                        &code, equal ? AND_AL_CL : OR_AL_CL, 2u));
+                }
+                EMIT_OR_FAIL(orus_jit_code_buffer_emit_bytes(&code, MOVZX_EAX_AL,
+                                                             sizeof(MOVZX_EAX_AL)));
+                EMIT_OR_FAIL(orus_jit_regalloc_emit_store(&code, ORUS_JIT_VALUE_BOOL,
+                                                          &def, ORUS_JIT_REGALLOC_RAX));
+                pending_cc = cc;
+                break;
+            }
+            case ORUS_JIT_IR_OP_I32_TO_I64:
+                EMIT_OR_FAIL(orus_jit_regalloc_emit_op(&code, 0, true, OP_MOVSXD,
+                                                       sizeof(OP_MOVSXD),
+                                                       ORUS_JIT_REGALLOC_RAX, &lhs));
+                EMIT_OR_FAIL(orus_jit_regalloc_emit_store(&code, ORUS_JIT_VALUE_I64,
+                                                          &def, ORUS_JIT_REGALLOC_RAX));
+                break;
+            case ORUS_JIT_IR_OP_I32_TO_F64:
+            case ORUS_JIT_IR_OP_I64_TO_F64:
+                EMIT_OR_FAIL(orus_jit_code_buffer_emit_bytes(&code, PXOR_XMM0,
+                                                             sizeof(PXOR_XMM0)));
+                EMIT_OR_FAIL(orus_jit_regalloc_emit_op(
+                    &code, 0xF2, inst->opcode == ORUS_JIT_IR_OP_I64_TO_F64,
+                    OP_CVTSI2SD, sizeof(OP_CVTSI2SD), 0u, &lhs));
+                EMIT_OR_FAIL(orus_jit_regalloc_emit_store(&code, ORUS_JIT_VALUE_F64,
+                                                          &def, 0u));
+                break;
+            case ORUS_JIT_IR_OP_INC_CMP_JUMP:
+            case ORUS_JIT_IR_OP_DEC_CMP_JUMP: {
+                bool increment = inst->opcode == ORUS_JIT_IR_OP_INC_CMP_JUMP;
+                OrusJitRegAllocOperand rax =
+                    orus_jit_regalloc_machine(ORUS_JIT_REGALLOC_RAX);
+                EMIT_OR_FAIL(orus_jit_regalloc_emit_load(&code, kind,
+                                                         ORUS_JIT_REGALLOC_RAX, &lhs));
+                // add/sub rax, 1
+                EMIT_OR_FAIL(orus_jit_regalloc_emit_op(&code, 0, wide, OP_GROUP1_IMM8,
+                                                       sizeof(OP_GROUP1_IMM8),
+                                                       increment ? 0u : 5u, &rax));
+                EMIT_OR_FAIL(orus_jit_code_buffer_emit_u8(&code, 1u));
+                EMIT_BRANCH(JO, site->exit_before, ORUS_JIT_REGALLOC_NO_TARGET);
+                EMIT_OR_FAIL(orus_jit_regalloc_emit_op(&code, 0, wide, OP_CMP,
+                                                       sizeof(OP_CMP),
+                                                       ORUS_JIT_REGALLOC_RAX, &rhs));
+                EMIT_OR_FAIL(orus_jit_regalloc_emit_store(&code, kind, &def,
+                                                          ORUS_JIT_REGALLOC_RAX));
+                if (increment) {
+                    EMIT_BRANCH(JL, site->exit_taken, site->taken_index);
+                } else {
+                    EMIT_BRANCH(JG, site->exit_taken, site->taken_index);
+                }
+                if (site->exit_next != ORUS_JIT_REGALLOC_NO_EXIT ||
+                    site->next_index != i + 1u) {
+                    EMIT_BRANCH(JMP, site->exit_next, site->next_index);
+                }
+                break;
+            }
+            case ORUS_JIT_IR_OP_JUMP_IF_NOT_SHORT: {
+                if (fused_cc != 0xFFu && i > 0u &&
+                    alloc->sites[i - 1u].def == site->uses[0]) {
+                    uint8_t jfalse[] = {0x0F, (uint8_t)(0x80u | (fused_cc ^ 1u))};
+                    EMIT_BRANCH(jfalse, site->exit_taken, site->taken_index);
+                } else {
+                    if (lhs.in_window) {
+                        EMIT_OR_FAIL(orus_jit_regalloc_emit_op(&code, 0, false,
+                                                               OP_CMP_IMM8,
+                                                               sizeof(OP_CMP_IMM8),
+                                                               7u, &lhs));
+                        EMIT_OR_FAIL(orus_jit_code_buffer_emit_u8(&code, 0u));
+                    } else {
+                        EMIT_OR_FAIL(orus_jit_regalloc_emit_op(&code, 0, false, OP_TEST,
+                                                               sizeof(OP_TEST),
+                                                               lhs.reg, &lhs));
+                    }
+                    EMIT_BRANCH(JE, site->exit_taken, site->taken_index);
+                }
+                if (site->exit_next != ORUS_JIT_REGALLOC_NO_EXIT ||
+                    site->next_index != i + 1u) {
+                    EMIT_BRANCH(JMP, site->exit_next, site->next_index);
+                }
+                break;
+            }
+            case ORUS_JIT_IR_OP_JUMP_SHORT:
+            case ORUS_JIT_IR_OP_JUMP_BACK_SHORT:
+            case ORUS_JIT_IR_OP_LOOP_BACK:
+                if (site->exit_taken != ORUS_JIT_REGALLOC_NO_EXIT ||
+                    site->taken_index != i + 1u) {
+                    EMIT_BRANCH(JMP, site->exit_taken, site->taken_index);
+                }
+                break;
+            case ORUS_JIT_IR_OP_SAFEPOINT: {
+                // Inline poll; the helper runs only when a collection is due
+                // or the interpreter asked native code to stop.
+                OrusJitRegAllocSlowPath* slow = &slow_paths[slow_path_count++];
+                slow->exit = site->exit_before;
+                EMIT_OR_FAIL(orus_jit_code_buffer_emit_bytes(&code, CMP_PENDING,
+                                                             sizeof(CMP_PENDING)));
+                EMIT_OR_FAIL(orus_jit_code_buffer_emit_u32(
+                    &code, (uint32_t)offsetof(VM, jit_native_slow_path_pending)));
+                EMIT_OR_FAIL(orus_jit_code_buffer_emit_u8(&code, 0u));
+                EMIT_OR_FAIL(orus_jit_method_emit_rel32(&code, JNE, sizeof(JNE),
+                                                        &slow->patches[0]));
+                EMIT_OR_FAIL(orus_jit_code_buffer_emit_bytes(
+                    &code, MOV_RAX_ALLOCATED, sizeof(MOV_RAX_ALLOCATED)));
+                EMIT_OR_FAIL(orus_jit_code_buffer_emit_u32(
+                    &code, (uint32_t)offsetof(VM, bytesAllocated)));
+                // mov rcx, &gcThreshold
+                EMIT_OR_FAIL(orus_jit_code_buffer_emit_u8(&code, 0x48));
+                EMIT_OR_FAIL(orus_jit_code_buffer_emit_u8(&code, 0xB9));
+                EMIT_OR_FAIL(orus_jit_code_buffer_emit_u64(
+                    &code, (uint64_t)(uintptr_t)&gcThreshold));
+                EMIT_OR_FAIL(orus_jit_code_buffer_emit_bytes(&code, CMP_RAX_RCX_MEM,
+                                                             sizeof(CMP_RAX_RCX_MEM)));
+                EMIT_OR_FAIL(orus_jit_method_emit_rel32(&code, JA, sizeof(JA),
+                                                        &slow->patches[1]));
+                slow->resume = code.size;
+                break;
+            }
+            default:
+                RETURN_WITH(JIT_BACKEND_ASSEMBLY_ERROR);
+        }
+    }
+
+    for (size_t i = 0; i < branch_patches.count; ++i) {
+        const OrusJitBranchPatch* patch = &branch_patches.data[i];
+        if (patch->target_bytecode >= program->count) {
+            RETURN_WITH(JIT_BACKEND_ASSEMBLY_ERROR);
+        }
+        orus_jit_method_patch_rel32(&code, patch->code_offset,
+                                    inst_offsets[patch->target_bytecode]);
+    }
+
+    // Safepoint slow paths save the caller-saved pool registers in use.
+    bool gpr_used[sizeof(ORUS_JIT_REGALLOC_GPRS)] = {false};
+    bool fpr_used[sizeof(ORUS_JIT_REGALLOC_FPRS)] = {false};
+    for (uint16_t w = 0; w < alloc->web_count; ++w) {
+        const OrusJitRegAllocWeb* web = &alloc->webs[w];
+        if (web->location == ORUS_JIT_REGALLOC_SPILLED) {
+            continue;
+        }
+        if (orus_jit_regalloc_class(web->kind) == ORUS_JIT_REG_CLASS_FPR) {
+            fpr_used[web->location] = true;
+        } else {
+            gpr_used[web->location] = true;
+        }
+    }
+    const size_t fpr_save_base =
+        sizeof(ORUS_JIT_REGALLOC_GPRS) - ORUS_JIT_REGALLOC_FIRST_CALLER_SAVED;
+    for (size_t s = 0; s < slow_path_count; ++s) {
+        const OrusJitRegAllocSlowPath* slow = &slow_paths[s];
+        orus_jit_method_patch_rel32(&code, slow->patches[0], code.size);
+        orus_jit_method_patch_rel32(&code, slow->patches[1], code.size);
+        for (int pass = 0; pass < 2; ++pass) {
+            bool save = pass == 0;
+            if (!save) {
+                EMIT_OR_FAIL(orus_jit_code_buffer_emit_bytes(&code, MOV_RDI_R12,
+                                                             sizeof(MOV_RDI_R12)));
+                EMIT_OR_FAIL(orus_jit_code_buffer_emit_u8(&code, 0x48));
+                EMIT_OR_FAIL(orus_jit_code_buffer_emit_u8(&code, 0xB8));
+                EMIT_OR_FAIL(orus_jit_code_buffer_emit_u64(
+                    &code,
+                    orus_jit_function_ptr_bits(&orus_jit_native_linear_safepoint)));
+                EMIT_OR_FAIL(orus_jit_code_buffer_emit_bytes(&code, CALL_RAX,
+                                                             sizeof(CALL_RAX)));
+            }
+            for (size_t p = ORUS_JIT_REGALLOC_FIRST_CALLER_SAVED;
+                 p < sizeof(ORUS_JIT_REGALLOC_GPRS); ++p) {
+                if (!gpr_used[p]) {
+                    continue;
+                }
+                uint32_t disp = (uint32_t)((p - ORUS_JIT_REGALLOC_FIRST_CALLER_SAVED) *
+                                           sizeof(uint64_t));
+                EMIT_OR_FAIL(orus_jit_regalloc_emit_frame_op(
+                    &code, 0, true, save ? OP_MOV_STORE : OP_MOV_LOAD, 1u,
+                    ORUS_JIT_REGALLOC_GPRS[p], disp));
+            }
+            for (size_t p = 0; p < sizeof(ORUS_JIT_REGALLOC_FPRS); ++p) {
+                if (!fpr_used[p]) {
+                    continue;
+                }
+                uint32_t disp = (uint32_t)((fpr_save_base + p) * sizeof(uint64_t));
+                EMIT_OR_FAIL(orus_jit_regalloc_emit_frame_op(
+                    &code, 0xF2, false, save ? OP_MOVSD_STORE : OP_MOVSD_LOAD, 2u,
+                    ORUS_JIT_REGALLOC_FPRS[p], disp));
+            }
+        }
+        EMIT_OR_FAIL(orus_jit_code_buffer_emit_bytes(&code, TEST_AL_AL,
+                                                     sizeof(TEST_AL_AL)));
+        EMIT_BRANCH(JE, slow->exit, ORUS_JIT_REGALLOC_NO_TARGET);
+        size_t resume_disp = 0u;
+        EMIT_OR_FAIL(orus_jit_method_emit_rel32(&code, JMP, sizeof(JMP), &resume_disp));
+        orus_jit_method_patch_rel32(&code, resume_disp, slow->resume);
+    }
+
+    // Exit stubs: write back the webs the interpreter has not seen, then let
+    // the helper publish them and record the resume offset.
+    size_t* exit_offsets = (size_t*)calloc(alloc->exit_count ? alloc->exit_count : 1u,
+                                           sizeof(size_t));
+    if (!exit_offsets) {
+        RETURN_WITH(JIT_BACKEND_OUT_OF_MEMORY);
+    }
+    for (uint16_t k = 0; k < alloc->exit_count; ++k) {
+        const OrusJitRegAllocExit* exit = &alloc->exits[k];
+        exit_offsets[k] = code.size;
+        bool ok = true;
+        for (uint16_t f = 0; ok && f < exit->flush_count; ++f) {
+            uint16_t w = alloc->flush[exit->first_flush + f];
+            const OrusJitRegAllocWeb* web = &alloc->webs[w];
+            if (web->location == ORUS_JIT_REGALLOC_SPILLED) {
+                continue;
+            }
+            OrusJitRegAllocOperand home = orus_jit_regalloc_home(web);
+            OrusJitRegAllocOperand reg = orus_jit_regalloc_operand(alloc, w);
+            ok = orus_jit_regalloc_emit_store(&code, web->kind, &home, reg.reg);
+        }
+        size_t epilogue_disp = 0u;
+        ok = ok &&
+             orus_jit_code_buffer_emit_bytes(&code, MOV_RDI_R12, sizeof(MOV_RDI_R12)) &&
+             orus_jit_code_buffer_emit_u8(&code, 0x48) &&
+             orus_jit_code_buffer_emit_u8(&code, 0xBE) &&
+             orus_jit_code_buffer_emit_u64(&code, (uint64_t)(uintptr_t)block) &&
+             orus_jit_code_buffer_emit_u8(&code, 0xBA) &&
+             orus_jit_code_buffer_emit_u32(&code, k) &&
+             orus_jit_code_buffer_emit_u8(&code, 0x48) &&
+             orus_jit_code_buffer_emit_u8(&code, 0xB8) &&
+             orus_jit_code_buffer_emit_u64(
+                 &code, orus_jit_function_ptr_bits(&orus_jit_native_regalloc_exit)) &&
+             orus_jit_code_buffer_emit_bytes(&code, CALL_RAX, sizeof(CALL_RAX)) &&
+             orus_jit_method_emit_rel32(&code, JMP, sizeof(JMP), &epilogue_disp) &&
+             orus_jit_offset_list_append(&epilogue_patches, epilogue_disp);
+        if (!ok) {
+            free(exit_offsets);
+            RETURN_WITH(JIT_BACKEND_OUT_OF_MEMORY);
+        }
+    }
+    for (size_t i = 0; i < exit_patches.count; ++i) {
+        const OrusJitBranchPatch* patch = &exit_patches.data[i];
+        if (patch->target_bytecode >= alloc->exit_count) {
+            free(exit_offsets);
+            RETURN_WITH(JIT_BACKEND_ASSEMBLY_ERROR);
+        }
+        orus_jit_method_patch_rel32(&code, patch->code_offset,
+                                    exit_offsets[patch->target_bytecode]);
+    }
+    free(exit_offsets);
+
+    size_t epilogue_offset = code.size;
+    EMIT_OR_FAIL(orus_jit_code_buffer_emit_bytes(&code, ADD_RSP, sizeof(ADD_RSP)));
+    EMIT_OR_FAIL(orus_jit_code_buffer_emit_u32(&code, ORUS_JIT_REGALLOC_FRAME_SIZE));
+    EMIT_OR_FAIL(orus_jit_code_buffer_emit_bytes(&code, EPILOGUE, sizeof(EPILOGUE)));
+    for (size_t i = 0; i < epilogue_patches.count; ++i) {
+        orus_jit_method_patch_rel32(&code, epilogue_patches.data[i], epilogue_offset);
+    }
+
+    size_t capacity = 0u;
+    void* buffer = orus_jit_alloc_executable(code.size, backend->page_size,
+                                             &capacity);
+    if (!buffer) {
+        RETURN_WITH(JIT_BACKEND_OUT_OF_MEMORY);
+    }
+    if (!orus_jit_set_write_protection(false)) {
+        orus_jit_release_executable(buffer, capacity);
+        RETURN_WITH(JIT_BACKEND_ASSEMBLY_ERROR);
+    }
+    memcpy(buffer, code.data, code.size);
+    if (!orus_jit_set_write_protection(true)) {
+        orus_jit_release_executable(buffer, capacity);
+        RETURN_WITH(JIT_BACKEND_ASSEMBLY_ERROR);
+    }
+#if !defined(_WIN32)
+    if (!orus_jit_make_executable(buffer, capacity)) {
+        orus_jit_release_executable(buffer, capacity);
+        RETURN_WITH(JIT_BACKEND_ASSEMBLY_ERROR);
+    }
+#endif
+    orus_jit_flush_icache(buffer, code.size);
+
+    entry->entry_point = orus_jit_make_entry_point(buffer);
+    entry->code_ptr = buffer;
+    entry->code_size = code.size;
+    entry->code_capacity = capacity;
+    entry->debug_name = "orus_jit_regalloc_x86";
+
+    block->code_ptr = buffer;
+    block->code_capacity = capacity;
+    orus_jit_debug_publish_disassembly(&block->program,
+                                       ORUS_JIT_BACKEND_TARGET_X86_64,
+                                       buffer,
+                                       code.size);
+#undef EMIT_BRANCH
+    RETURN_WITH(JIT_BACKEND_OK);
+#undef EMIT_OR_FAIL
+#undef RETURN_WITH
+}
+#endif // defined(__x86_64__) || defined(_M_X64)
+
+#if ORUS_JIT_HAS_DYNASM_X86
+struct DynAsmActionBuffer {
+    unsigned char* data;
+    size_t size;
+    size_t capacity;
+};
+
+typedef struct DynAsmPatch {
+    size_t action_offset;
+    size_t code_offset;
+} DynAsmPatch;
+
+typedef struct DynAsmPatchList {
+    DynAsmPatch* data;
+    size_t count;
+    size_t capacity;
+} DynAsmPatchList;
+
+static void
+dynasm_action_buffer_init(struct DynAsmActionBuffer* buffer) {
+    if (!buffer) {
+        return;
+    }
+    buffer->data = NULL;
+    buffer->size = 0;
+    buffer->capacity = 0;
+}
+
+static void
+dynasm_action_buffer_release(struct DynAsmActionBuffer* buffer) {
+    if (!buffer) {
+        return;
+    }
+    free(buffer->data);
+    buffer->data = NULL;
+    buffer->size = 0;
+    buffer->capacity = 0;
+}
+
+static bool
+dynasm_action_buffer_reserve(struct DynAsmActionBuffer* buffer, size_t additional) {
+    if (!buffer) {
+        return false;
+    }
+    if (additional > SIZE_MAX - buffer->size) {
+        return false;
+    }
+    size_t required = buffer->size + additional;
+    if (required <= buffer->capacity) {
+        return true;
+    }
+    size_t new_capacity = buffer->capacity ? buffer->capacity : 16u;
+    while (new_capacity < required) {
+        if (new_capacity > SIZE_MAX / 2u) {
+            new_capacity = required;
+            break;
+        }
+        new_capacity *= 2u;
+    }
+    unsigned char* data =
+        (unsigned char*)realloc(buffer->data, new_capacity * sizeof(unsigned char));
+    if (!data) {
+        return false;
+    }
+    buffer->data = data;
+    buffer->capacity = new_capacity;
+    return true;
+}
+
+static bool
+dynasm_action_buffer_push(struct DynAsmActionBuffer* buffer, unsigned char value) {
+    if (!dynasm_action_buffer_reserve(buffer, 1u)) {
+        return false;
+    }
+    buffer->data[buffer->size++] = value;
+    return true;
+}
+
+static bool
+dynasm_emit_bytes(struct DynAsmActionBuffer* buffer,
+                  const uint8_t* bytes,
+                  size_t count) {
+    if (!buffer || (!bytes && count)) {
+        return false;
+    }
+    for (size_t i = 0; i < count; ++i) {
+        if (!dynasm_action_buffer_push(buffer, DASM_ESC) ||
+            !dynasm_action_buffer_push(buffer, bytes[i])) {
+            return false;
+        }
+    }
+    return true;
+}
+
+static void
+dynasm_patch_list_init(DynAsmPatchList* list) {
+    if (!list) {
+        return;
+    }
+    list->data = NULL;
+    list->count = 0u;
+    list->capacity = 0u;
+}
+
+static void
+dynasm_patch_list_release(DynAsmPatchList* list) {
+    if (!list) {
+        return;
+    }
+    free(list->data);
+    list->data = NULL;
+    list->count = 0u;
+    list->capacity = 0u;
+}
+
+static bool
+dynasm_patch_list_append(DynAsmPatchList* list,
+                         size_t action_offset,
+                         size_t code_offset) {
+    if (!list) {
+        return false;
+    }
+    if (list->count == list->capacity) {
+        size_t new_capacity = list->capacity ? list->capacity * 2u : 4u;
+        DynAsmPatch* data =
+            (DynAsmPatch*)realloc(list->data, new_capacity * sizeof(DynAsmPatch));
+        if (!data) {
+            return false;
+        }
+        list->data = data;
+        list->capacity = new_capacity;
+    }
+    list->data[list->count].action_offset = action_offset;
+    list->data[list->count].code_offset = code_offset;
+    list->count++;
+    return true;
+}
+
+static bool
+dynasm_emit_bytes_track(struct DynAsmActionBuffer* buffer,
+                        size_t* code_offset,
+                        const uint8_t* bytes,
+                        size_t count) {
+    if (!dynasm_emit_bytes(buffer, bytes, count)) {
+        return false;
+    }
+    if (code_offset) {
+        *code_offset += count;
+    }
+    return true;
+}
+
+static bool
+dynasm_emit_u32_le(struct DynAsmActionBuffer* buffer,
+                   size_t* code_offset,
+                   uint32_t value) {
+    uint8_t bytes[4];
+    bytes[0] = (uint8_t)(value & 0xFFu);
+    bytes[1] = (uint8_t)((value >> 8) & 0xFFu);
+    bytes[2] = (uint8_t)((value >> 16) & 0xFFu);
+    bytes[3] = (uint8_t)((value >> 24) & 0xFFu);
+    return dynasm_emit_bytes_track(buffer, code_offset, bytes, sizeof(bytes));
+}
+
+static bool
+dynasm_emit_u64_le(struct DynAsmActionBuffer* buffer,
+                   size_t* code_offset,
+                   uint64_t value) {
+    uint8_t bytes[8];
+    for (size_t i = 0; i < 8; ++i) {
+        bytes[i] = (uint8_t)((value >> (8u * i)) & 0xFFu);
+    }
+    return dynasm_emit_bytes_track(buffer, code_offset, bytes, sizeof(bytes));
+}
+
+static bool
+dynasm_emit_mov_reg_imm32(struct DynAsmActionBuffer* buffer,
+                          uint8_t opcode,
+                          size_t* code_offset,
+                          uint32_t immediate) {
+    uint8_t bytes[5];
+    bytes[0] = opcode;
+    bytes[1] = (uint8_t)(immediate & 0xFFu);
+    bytes[2] = (uint8_t)((immediate >> 8) & 0xFFu);
+    bytes[3] = (uint8_t)((immediate >> 16) & 0xFFu);
+    bytes[4] = (uint8_t)((immediate >> 24) & 0xFFu);
+    return dynasm_emit_bytes_track(buffer, code_offset, bytes, sizeof(bytes));
+}
+
+static bool
+dynasm_emit_load_vm_block(struct DynAsmActionBuffer* buffer, size_t* code_offset) {
+    return dynasm_emit_bytes_track(buffer, code_offset,
+                                   (const uint8_t[]){0x48, 0x8B, 0x7D, 0xF8}, 4u) &&
+           dynasm_emit_bytes_track(buffer, code_offset,
+                                   (const uint8_t[]){0x48, 0x8B, 0x75, 0xF0}, 4u);
+}
+
+static bool
+dynasm_emit_helper_call(struct DynAsmActionBuffer* buffer,
+                        size_t* code_offset,
+                        const void* helper,
+                        OrusJitHelperStubKind stub_kind) {
+    if (!orus_jit_helper_registry_record(helper, stub_kind, NULL)) {
+        return false;
+    }
+    const void* stub = orus_jit_helper_stub_address(stub_kind);
+    if (!stub) {
+        return false;
+    }
+    return dynasm_emit_bytes_track(buffer, code_offset, (const uint8_t[]){0x48, 0xB8},
+                                   2u) &&
+           dynasm_emit_u64_le(buffer, code_offset,
+                              orus_jit_function_ptr_bits(helper)) &&
+           dynasm_emit_bytes_track(buffer, code_offset, (const uint8_t[]){0x49, 0xBB},
+                                   2u) &&
+           dynasm_emit_u64_le(buffer, code_offset,
+                              orus_jit_function_ptr_bits(stub)) &&
+           dynasm_emit_bytes_track(buffer, code_offset,
+                                   (const uint8_t[]){0x41, 0xFF, 0xD3}, 3u);
+}
+
+static bool
+dynasm_emit_stack_push_u32(struct DynAsmActionBuffer* buffer,
+                           size_t* code_offset,
+                           uint32_t value) {
+    return dynasm_emit_bytes_track(buffer, code_offset,
+                                   (const uint8_t[]){0x48, 0x83, 0xEC, 0x08}, 4u) &&
+           dynasm_emit_bytes_track(buffer, code_offset,
+                                   (const uint8_t[]){0x48, 0xC7, 0x04, 0x24}, 4u) &&
+           dynasm_emit_u32_le(buffer, code_offset, value);
+}
+
+static bool
+dynasm_emit_stack_pop(struct DynAsmActionBuffer* buffer, size_t* code_offset) {
+    return dynasm_emit_bytes_track(buffer, code_offset,
+                                   (const uint8_t[]){0x48, 0x83, 0xC4, 0x08}, 4u);
+}
+
+static void
+dynasm_patch_u32(struct DynAsmActionBuffer* buffer,
+                 size_t action_offset,
+                 uint32_t value) {
+    if (!buffer || !buffer->data || action_offset + 7u >= buffer->size) {
+        return;
+    }
+    buffer->data[action_offset + 1u] = (uint8_t)(value & 0xFFu);
+    buffer->data[action_offset + 3u] = (uint8_t)((value >> 8) & 0xFFu);
+    buffer->data[action_offset + 5u] = (uint8_t)((value >> 16) & 0xFFu);
+    buffer->data[action_offset + 7u] = (uint8_t)((value >> 24) & 0xFFu);
 }
 
 typedef struct {
@@ -11126,6 +12791,24 @@ orus_jit_backend_compile_ir(struct OrusJitBackend* backend,
         return JIT_BACKEND_OUT_OF_MEMORY;
     }
 
+    if (program->whole_function) {
+#if defined(__x86_64__) || defined(_M_X64)
+        JITBackendStatus method_status =
+            orus_jit_backend_emit_method_x86(backend, block, out_entry);
+        if (method_status == JIT_BACKEND_OK) {
+            orus_jit_native_block_register(block);
+            return JIT_BACKEND_OK;
+        }
+        orus_jit_native_block_destroy(block);
+        return method_status;
+#else
+        // Method programs are only lowered by the x86-64 emitter.
+        orus_jit_native_block_destroy(block);
+        memset(out_entry, 0, sizeof(*out_entry));
+        return JIT_BACKEND_UNSUPPORTED;
+#endif
+    }
+
 #if ORUS_JIT_HAS_DYNASM_X86
 #if defined(__x86_64__) || defined(_M_X64)
     if (orus_jit_should_force_dynasm()) {
@@ -11140,6 +12823,15 @@ orus_jit_backend_compile_ir(struct OrusJitBackend* backend,
 
 #if defined(__x86_64__) || defined(_M_X64)
     if (orus_jit_linear_emitter_enabled() && !orus_jit_should_force_helper_stub()) {
+        status = orus_jit_backend_emit_regalloc_x86(backend, block, out_entry);
+        if (status == JIT_BACKEND_OK) {
+            orus_jit_native_block_register(block);
+            return JIT_BACKEND_OK;
+        }
+        if (status == JIT_BACKEND_OUT_OF_MEMORY) {
+            orus_jit_native_block_destroy(block);
+            return status;
+        }
         status = orus_jit_backend_emit_linear_x86(backend, block, out_entry);
         if (status == JIT_BACKEND_OK) {
             LOG_VM_DEBUG("JIT",
@@ -11248,20 +12940,23 @@ orus_jit_backend_release_entry(struct OrusJitBackend* backend, JITEntry* entry)
     if (!entry || !entry->code_ptr) {
         return;
     }
+    orus_jit_region_lock();
     OrusJitNativeBlock* prev = NULL;
     OrusJitNativeBlock* block =
-        orus_jit_native_block_find(entry->code_ptr, &prev);
+        orus_jit_native_block_find_locked(entry->code_ptr, &prev);
     if (block) {
         if (prev) {
             prev->next = block->next;
         } else {
             g_native_blocks = block->next;
         }
-        orus_jit_native_block_destroy(block);
     }
+    orus_jit_region_unlock();
+    orus_jit_native_block_destroy(block);
     orus_jit_release_executable(entry->code_ptr, entry->code_capacity);
     entry->code_ptr = NULL;
     entry->entry_point = NULL;
+    entry->method_entry_point = NULL;
     entry->code_capacity = 0;
     entry->code_size = 0;
     entry->debug_name = NULL;
@@ -11449,12 +13144,174 @@ orus_jit_backend_collect_parity(const OrusJitIRProgram* program,
     return JIT_BACKEND_OK;
 }
 
+// ---------------------------------------------------------------------------
+// On-stack replacement. Loops are entered from whatever back-edge happens to
+// cross the hot threshold, so the typed window holds arbitrary interpreter
+// state at that point. The transfer below makes the window match what the
+// program's OSR map expects before the first native instruction runs, and
+// flags everything the loop wrote once it returns.
+// ---------------------------------------------------------------------------
+
+static RegisterType
+orus_jit_osr_register_type(uint8_t kind) {
+    switch ((OrusJitValueKind)kind) {
+        case ORUS_JIT_VALUE_I32:
+            return REG_TYPE_I32;
+        case ORUS_JIT_VALUE_I64:
+            return REG_TYPE_I64;
+        case ORUS_JIT_VALUE_U32:
+            return REG_TYPE_U32;
+        case ORUS_JIT_VALUE_U64:
+            return REG_TYPE_U64;
+        case ORUS_JIT_VALUE_F64:
+            return REG_TYPE_F64;
+        case ORUS_JIT_VALUE_BOOL:
+            return REG_TYPE_BOOL;
+        default:
+            return REG_TYPE_NONE;
+    }
+}
+
+// Pulls the interpreter's boxed value into the typed slot, failing when the
+// register currently holds a different kind.
+static bool
+orus_jit_osr_import_slot(const OrusJitOsrSlot* slot) {
+    Value value = vm_get_register_safe(slot->reg);
+    switch ((OrusJitValueKind)slot->kind) {
+        case ORUS_JIT_VALUE_I32:
+            if (!IS_I32(value)) {
+                return false;
+            }
+            vm_cache_i32_typed(slot->reg, AS_I32(value));
+            return true;
+        case ORUS_JIT_VALUE_I64:
+            if (!IS_I64(value)) {
+                return false;
+            }
+            vm_cache_i64_typed(slot->reg, AS_I64(value));
+            return true;
+        case ORUS_JIT_VALUE_U32:
+            if (!IS_U32(value)) {
+                return false;
+            }
+            vm_cache_u32_typed(slot->reg, AS_U32(value));
+            return true;
+        case ORUS_JIT_VALUE_U64:
+            if (!IS_U64(value)) {
+                return false;
+            }
+            vm_cache_u64_typed(slot->reg, AS_U64(value));
+            return true;
+        case ORUS_JIT_VALUE_F64:
+            if (!IS_F64(value)) {
+                return false;
+            }
+            vm_cache_f64_typed(slot->reg, AS_F64(value));
+            return true;
+        case ORUS_JIT_VALUE_BOOL:
+            if (!IS_BOOL(value)) {
+                return false;
+            }
+            vm_cache_bool_typed(slot->reg, AS_BOOL(value));
+            return true;
+        default:
+            return false;
+    }
+}
+
+static bool
+orus_jit_osr_transfer_in(struct VM* vm_instance, const OrusJitOsrMap* map) {
+    TypedRegisterWindow* window = orus_jit_native_active_window(vm_instance);
+    if (!window) {
+        return false;
+    }
+
+    // Live-ins the interpreter already holds dirty in the window are
+    // authoritative there; everything else is read from the boxed registers.
+    uint64_t pending[ORUS_JIT_OSR_MASK_WORDS];
+    for (size_t w = 0; w < ORUS_JIT_OSR_MASK_WORDS; ++w) {
+        pending[w] = map->live_in[w] &
+                     ~(window->live_mask[w] & window->dirty_mask[w]);
+    }
+
+    for (uint16_t i = 0; i < map->slot_count; ++i) {
+        const OrusJitOsrSlot* slot = &map->slots[i];
+        uint16_t reg = slot->reg;
+        RegisterType expected = orus_jit_osr_register_type(slot->kind);
+        if (reg >= TYPED_REGISTER_WINDOW_SIZE || expected == REG_TYPE_NONE) {
+            return false;
+        }
+
+        if (slot->flags & ORUS_JIT_OSR_LIVE_IN) {
+            bool transferred =
+                (pending[typed_window_word(reg)] & typed_window_bit(reg)) == 0;
+            if (transferred && window->reg_types[reg] == (uint8_t)expected) {
+                continue;
+            }
+            if (!orus_jit_osr_import_slot(slot)) {
+                return false;
+            }
+            continue;
+        }
+
+        // Written before read: only the slot's type has to line up so the
+        // guards on later reads pass.
+        if (typed_window_slot_live(window, reg) &&
+            window->reg_types[reg] == (uint8_t)expected) {
+            continue;
+        }
+        if (orus_jit_osr_import_slot(slot)) {
+            continue;
+        }
+        if (reg < TEMP_REG_START) {
+            return false;
+        }
+        // Scratch temporaries can be retyped outright; a clean slot defers to
+        // the boxed value until the loop writes it.
+        window->reg_types[reg] = (uint8_t)expected;
+        typed_window_clear_dirty(window, reg);
+        typed_window_mark_live(window, reg);
+    }
+    return true;
+}
+
+static void
+orus_jit_osr_transfer_out(const OrusJitOsrMap* map) {
+    for (uint16_t i = 0; i < map->slot_count; ++i) {
+        const OrusJitOsrSlot* slot = &map->slots[i];
+        if (!(slot->flags & ORUS_JIT_OSR_LIVE_OUT)) {
+            continue;
+        }
+        RegisterType type = orus_jit_osr_register_type(slot->kind);
+        if (!vm_mark_typed_register_dirty(slot->reg, type)) {
+            vm_reconcile_typed_register(slot->reg);
+        }
+    }
+}
+
 static void
 orus_jit_enter_stub(struct VM* vm, const JITEntry* entry) {
     if (!vm || !entry || !entry->entry_point) {
         return;
     }
-    OrusJitNativeBlock* block = orus_jit_native_block_find(entry->code_ptr, NULL);
+    OrusJitNativeBlock* block = orus_jit_native_block_find(entry->code_ptr);
+    // Register-form loops load their own live-ins and publish results from
+    // their exit stubs, so only the entry half of the map applies.
+    bool register_form = block && block->regalloc.site_count != 0u;
+    const OrusJitOsrMap* osr = NULL;
+    if (register_form) {
+        osr = &block->regalloc.entry;
+    } else if (block && block->program.osr.valid) {
+        osr = &block->program.osr;
+    }
+    if (osr) {
+        if (!orus_jit_osr_transfer_in(vm, osr)) {
+            // Stay in the interpreter; the next hot back-edge retries.
+            vm->jit_osr_entry_rejects++;
+            return;
+        }
+        vm->jit_osr_entries++;
+    }
     TypedRegisterWindow* active_window = orus_jit_native_active_window(vm);
     OrusJitNativeFrame frame = {
         .block = block,
@@ -11462,6 +13319,8 @@ orus_jit_enter_stub(struct VM* vm, const JITEntry* entry) {
         .active_window = active_window,
         .window_version = vm->typed_regs.window_version,
         .slow_path_requested = false,
+        .osr_exit_taken = false,
+        .osr_resume_offset = 0u,
         .canary = ORUS_JIT_NATIVE_FRAME_CANARY,
     };
     OrusJitNativeFrame* previous_frame = vm->jit_native_frame_top;
@@ -11487,6 +13346,20 @@ orus_jit_enter_stub(struct VM* vm, const JITEntry* entry) {
         vm->typed_regs.active_window = frame.active_window;
         vm->typed_regs.window_version = frame.window_version;
     }
+    if (osr) {
+        if (!register_form) {
+            orus_jit_osr_transfer_out(osr);
+        }
+        if (frame.osr_exit_taken && vm->chunk &&
+            (const struct Chunk*)vm->chunk == block->program.source_chunk) {
+            // Every loop-hit site applies its relative back-edge jump to the
+            // header (loop_index) after this returns, so displace ip by the
+            // distance from the header to the exit target.
+            vm->ip += (ptrdiff_t)frame.osr_resume_offset -
+                      (ptrdiff_t)block->program.loop_index;
+            vm->jit_osr_exits++;
+        }
+    }
     vm->jit_native_frame_top = previous_frame;
     vm->jit_native_slow_path_pending = previous_pending || frame.slow_path_requested;
 }
@@ -11515,8 +13388,10 @@ orus_jit_backend_vtable(void) {
 
 void
 orus_jit_backend_linear_stats_reset(void) {
+    orus_jit_region_lock();
     memset(&g_orus_jit_linear_stats, 0, sizeof(g_orus_jit_linear_stats));
     g_orus_jit_linear_stats.last_status = JIT_BACKEND_OK;
+    orus_jit_region_unlock();
 }
 
 bool
@@ -11524,8 +13399,10 @@ orus_jit_backend_linear_stats(OrusJitLinearEmitterStats* out) {
     if (!out) {
         return false;
     }
+    orus_jit_region_lock();
     *out = g_orus_jit_linear_stats;
-    return g_orus_jit_linear_stats.attempts > 0u;
+    orus_jit_region_unlock();
+    return out->attempts > 0u;
 }
 
 void
@@ -0,0 +1,221 @@
+// Orus Language Project
+// ---------------------------------------------------------------------------
+// File: src/vm/jit/orus_jit_compile_queue.c
+// Description: Single background thread that runs backend compilation for
+//              tier-up requests while the interpreter keeps executing.
+
+#include "vm/jit_compile_queue.h"
+
+#include <string.h>
+
+#ifdef _WIN32
+
+bool orus_jit_compile_queue_start(struct OrusJitBackend* backend) {
+    (void)backend;
+    return false;
+}
+
+void orus_jit_compile_queue_stop(void) {}
+
+bool orus_jit_compile_queue_running(void) { return false; }
+
+bool orus_jit_compile_queue_submit(OrusJitCompileJob* job) {
+    (void)job;
+    return false;
+}
+
+bool orus_jit_compile_queue_contains(uint16_t function_index, uint16_t loop_index) {
+    (void)function_index;
+    (void)loop_index;
+    return false;
+}
+
+bool orus_jit_compile_queue_has_finished(void) { return false; }
+
+bool orus_jit_compile_queue_take_finished(OrusJitCompileJob* out) {
+    (void)out;
+    return false;
+}
+
+#else
+
+#include <pthread.h>
+
+typedef enum {
+    ORUS_JIT_COMPILE_SLOT_FREE = 0,
+    ORUS_JIT_COMPILE_SLOT_QUEUED,
+    ORUS_JIT_COMPILE_SLOT_COMPILING,
+    ORUS_JIT_COMPILE_SLOT_FINISHED,
+} OrusJitCompileSlotState;
+
+typedef struct {
+    OrusJitCompileSlotState state;
+    uint64_t sequence;  // Submission order; jobs are compiled and taken FIFO
+    OrusJitCompileJob job;
+} OrusJitCompileSlot;
+
+static OrusJitCompileSlot compile_slots[ORUS_JIT_COMPILE_QUEUE_CAPACITY];
+static pthread_t compile_thread;
+static pthread_mutex_t compile_lock = PTHREAD_MUTEX_INITIALIZER;
+static pthread_cond_t compile_wake = PTHREAD_COND_INITIALIZER;
+static struct OrusJitBackend* compile_backend = NULL;
+static uint64_t compile_sequence = 0;
+static bool compile_running = false;
+static bool compile_stopping = false;
+// Read without the lock from the interpreter's safepoint check.
+static uint32_t compile_finished = 0;
+
+static OrusJitCompileSlot* oldest_slot_in(OrusJitCompileSlotState state) {
+    OrusJitCompileSlot* oldest = NULL;
+    for (int i = 0; i < ORUS_JIT_COMPILE_QUEUE_CAPACITY; i++) {
+        OrusJitCompileSlot* slot = &compile_slots[i];
+        if (slot->state == state && (!oldest || slot->sequence < oldest->sequence)) {
+            oldest = slot;
+        }
+    }
+    return oldest;
+}
+
+static void* compile_thread_main(void* arg) {
+    (void)arg;
+    pthread_mutex_lock(&compile_lock);
+    for (;;) {
+        OrusJitCompileSlot* slot = NULL;
+        while (!compile_stopping &&
+               (slot = oldest_slot_in(ORUS_JIT_COMPILE_SLOT_QUEUED)) == NULL) {
+            pthread_cond_wait(&compile_wake, &compile_lock);
+        }
+        if (compile_stopping) {
+            break;
+        }
+        slot->state = ORUS_JIT_COMPILE_SLOT_COMPILING;
+        OrusJitCompileJob* job = &slot->job;
+
+        pthread_mutex_unlock(&compile_lock);
+        memset(&job->entry, 0, sizeof(job->entry));
+        job->status = orus_jit_backend_compile_ir(compile_backend, &job->program, &job->entry);
+        orus_jit_ir_program_reset(&job->program);
+        pthread_mutex_lock(&compile_lock);
+
+        slot->state = ORUS_JIT_COMPILE_SLOT_FINISHED;
+        __atomic_add_fetch(&compile_finished, 1, __ATOMIC_RELEASE);
+    }
+    pthread_mutex_unlock(&compile_lock);
+    return NULL;
+}
+
+bool orus_jit_compile_queue_start(struct OrusJitBackend* backend) {
+    if (compile_running) {
+        return compile_backend == backend;
+    }
+    if (!backend) {
+        return false;
+    }
+
+    memset(compile_slots, 0, sizeof(compile_slots));
+    compile_backend = backend;
+    compile_stopping = false;
+    compile_finished = 0;
+    if (pthread_create(&compile_thread, NULL, compile_thread_main, NULL) != 0) {
+        compile_backend = NULL;
+        return false;
+    }
+    compile_running = true;
+    return true;
+}
+
+void orus_jit_compile_queue_stop(void) {
+    if (!compile_running) {
+        return;
+    }
+
+    pthread_mutex_lock(&compile_lock);
+    compile_stopping = true;
+    pthread_cond_broadcast(&compile_wake);
+    pthread_mutex_unlock(&compile_lock);
+    pthread_join(compile_thread, NULL);
+
+    for (int i = 0; i < ORUS_JIT_COMPILE_QUEUE_CAPACITY; i++) {
+        OrusJitCompileSlot* slot = &compile_slots[i];
+        if (slot->state == ORUS_JIT_COMPILE_SLOT_QUEUED) {
+            orus_jit_ir_program_reset(&slot->job.program);
+        } else if (slot->state == ORUS_JIT_COMPILE_SLOT_FINISHED && slot->job.entry.code_ptr) {
+            orus_jit_backend_release_entry(compile_backend, &slot->job.entry);
+        }
+        slot->state = ORUS_JIT_COMPILE_SLOT_FREE;
+    }
+
+    compile_finished = 0;
+    compile_backend = NULL;
+    compile_running = false;
+    compile_stopping = false;
+}
+
+bool orus_jit_compile_queue_running(void) { return compile_running; }
+
+bool orus_jit_compile_queue_submit(OrusJitCompileJob* job) {
+    if (!compile_running || !job) {
+        return false;
+    }
+
+    pthread_mutex_lock(&compile_lock);
+    OrusJitCompileSlot* free_slot = NULL;
+    for (int i = 0; i < ORUS_JIT_COMPILE_QUEUE_CAPACITY && !free_slot; i++) {
+        if (compile_slots[i].state == ORUS_JIT_COMPILE_SLOT_FREE) {
+            free_slot = &compile_slots[i];
+        }
+    }
+    if (!free_slot) {
+        pthread_mutex_unlock(&compile_lock);
+        return false;
+    }
+
+    free_slot->job = *job;
+    free_slot->sequence = ++compile_sequence;
+    free_slot->state = ORUS_JIT_COMPILE_SLOT_QUEUED;
+    pthread_cond_signal(&compile_wake);
+    pthread_mutex_unlock(&compile_lock);
+
+    orus_jit_ir_program_init(&job->program);
+    return true;
+}
+
+bool orus_jit_compile_queue_contains(uint16_t function_index, uint16_t loop_index) {
+    if (!compile_running) {
+        return false;
+    }
+
+    bool found = false;
+    pthread_mutex_lock(&compile_lock);
+    for (int i = 0; i < ORUS_JIT_COMPILE_QUEUE_CAPACITY && !found; i++) {
+        const OrusJitCompileSlot* slot = &compile_slots[i];
+        found = slot->state != ORUS_JIT_COMPILE_SLOT_FREE &&
+                slot->job.function_index == function_index &&
+                slot->job.loop_index == loop_index;
+    }
+    pthread_mutex_unlock(&compile_lock);
+    return found;
+}
+
+bool orus_jit_compile_queue_has_finished(void) {
+    return __atomic_load_n(&compile_finished, __ATOMIC_ACQUIRE) != 0;
+}
+
+bool orus_jit_compile_queue_take_finished(OrusJitCompileJob* out) {
+    if (!out || !orus_jit_compile_queue_has_finished()) {
+        return false;
+    }
+
+    pthread_mutex_lock(&compile_lock);
+    OrusJitCompileSlot* slot = oldest_slot_in(ORUS_JIT_COMPILE_SLOT_FINISHED);
+    if (slot) {
+        *out = slot->job;
+        memset(&slot->job, 0, sizeof(slot->job));
+        slot->state = ORUS_JIT_COMPILE_SLOT_FREE;
+        __atomic_sub_fetch(&compile_finished, 1, __ATOMIC_RELEASE);
+    }
+    pthread_mutex_unlock(&compile_lock);
+    return slot != NULL;
+}
+
+#endif
@@ -0,0 +1,376 @@
+// Orus Language Project
+// ---------------------------------------------------------------------------
+// File: src/vm/jit/orus_jit_disk_cache.c
+// Description: Reads and writes translated IR programs under vm.cachePath so
+//              later runs can skip profiling and translation of known loops.
+
+#include "vm/jit_disk_cache.h"
+
+#include <errno.h>
+#include <stdio.h>
+#include <stdlib.h>
+#include <string.h>
+#include <sys/stat.h>
+
+#ifdef _WIN32
+#include <direct.h>
+#include <process.h>
+#define orus_jit_disk_cache_mkdir(path) _mkdir(path)
+#define orus_jit_disk_cache_pid() ((unsigned long)_getpid())
+#else
+#include <unistd.h>
+#define orus_jit_disk_cache_mkdir(path) mkdir((path), 0755)
+#define orus_jit_disk_cache_pid() ((unsigned long)getpid())
+#endif
+
+#include "public/version.h"
+#include "vm/vm_constants.h"
+#include "vm/vm_string_ops.h"
+
+#define ORUS_JIT_DISK_CACHE_MAGIC "OJIT"
+#define ORUS_JIT_DISK_CACHE_PATH_MAX 1024
+
+#if defined(__x86_64__) || defined(_M_X64)
+#define ORUS_JIT_DISK_CACHE_TARGET "x86_64"
+#elif defined(__aarch64__)
+#define ORUS_JIT_DISK_CACHE_TARGET "aarch64"
+#else
+#define ORUS_JIT_DISK_CACHE_TARGET "generic"
+#endif
+
+typedef struct {
+    char magic[4];
+    uint32_t format_version;
+    char orus_version[16];
+    char target[16];
+    uint64_t name_hash;
+    uint64_t seed_hash;
+    uint64_t body_hash;     // Bytecode the program was translated from
+    uint64_t payload_hash;  // Instruction array as written
+    uint32_t instruction_size;
+    uint32_t count;
+    uint32_t loop_start_offset;
+    uint32_t loop_end_offset;
+    uint16_t function_index;
+    uint16_t loop_index;
+    uint8_t whole_function;
+    uint8_t reserved[3];
+} OrusJitDiskCacheHeader;
+
+static uint64_t
+orus_jit_disk_cache_hash_bytes(uint64_t hash, const void* data, size_t length) {
+    const uint8_t* bytes = (const uint8_t*)data;
+    for (size_t i = 0; i < length; ++i) {
+        hash ^= bytes[i];
+        hash *= FNV_PRIME;
+    }
+    return hash;
+}
+
+static uint64_t
+orus_jit_disk_cache_hash_u64(uint64_t hash, uint64_t value) {
+    return orus_jit_disk_cache_hash_bytes(hash, &value, sizeof(value));
+}
+
+// Constants feed immediates into the IR, so they are part of the file name.
+// Object constants other than strings only contribute their type.
+static uint64_t
+orus_jit_disk_cache_hash_value(uint64_t hash, Value value) {
+    hash = orus_jit_disk_cache_hash_u64(hash, (uint64_t)VALUE_TYPE(value));
+    switch (VALUE_TYPE(value)) {
+        case VAL_BOOL:
+            return orus_jit_disk_cache_hash_u64(hash, AS_BOOL(value) ? 1u : 0u);
+        case VAL_I32:
+            return orus_jit_disk_cache_hash_u64(hash, (uint64_t)(uint32_t)AS_I32(value));
+        case VAL_I64:
+            return orus_jit_disk_cache_hash_u64(hash, (uint64_t)AS_I64(value));
+        case VAL_U32:
+            return orus_jit_disk_cache_hash_u64(hash, (uint64_t)AS_U32(value));
+        case VAL_U64:
+            return orus_jit_disk_cache_hash_u64(hash, AS_U64(value));
+        case VAL_F64: {
+            double number = AS_F64(value);
+            uint64_t bits = 0u;
+            memcpy(&bits, &number, sizeof(bits));
+            return orus_jit_disk_cache_hash_u64(hash, bits);
+        }
+        case VAL_STRING: {
+            ObjString* string = AS_STRING(value);
+            const char* chars = string ? string_get_chars(string) : NULL;
+            if (!chars) {
+                return hash;
+            }
+            return orus_jit_disk_cache_hash_bytes(hash, chars, (size_t)string->length);
+        }
+        default:
+            return hash;
+    }
+}
+
+void orus_jit_disk_cache_make_key(const VMState* vm_state,
+                                  const Chunk* chunk,
+                                  uint16_t function_index,
+                                  uint16_t loop_index,
+                                  const uint8_t* seed_kinds,
+                                  size_t seed_count,
+                                  OrusJitDiskCacheKey* out_key) {
+    if (!out_key) {
+        return;
+    }
+
+    uint64_t hash = FNV_OFFSET_BASIS;
+    hash = orus_jit_disk_cache_hash_u64(hash, ORUS_JIT_DISK_CACHE_FORMAT_VERSION);
+    hash = orus_jit_disk_cache_hash_bytes(hash, ORUS_VERSION_STRING,
+                                          sizeof(ORUS_VERSION_STRING));
+    hash = orus_jit_disk_cache_hash_bytes(hash, ORUS_JIT_DISK_CACHE_TARGET,
+                                          sizeof(ORUS_JIT_DISK_CACHE_TARGET));
+    hash = orus_jit_disk_cache_hash_u64(hash, sizeof(OrusJitIRInstruction));
+    hash = orus_jit_disk_cache_hash_u64(hash, (uint64_t)ORUS_JIT_IR_OP_RETURN_VALUE);
+    if (vm_state) {
+        hash = orus_jit_disk_cache_hash_u64(hash, (uint64_t)vm_state->jit_rollout.stage);
+        hash = orus_jit_disk_cache_hash_u64(hash,
+                                            vm_state->jit_rollout.enabled_kind_mask);
+    }
+    hash = orus_jit_disk_cache_hash_u64(hash, function_index);
+    hash = orus_jit_disk_cache_hash_u64(hash, loop_index);
+    if (chunk) {
+        hash = orus_jit_disk_cache_hash_u64(hash, (uint64_t)chunk->count);
+        hash = orus_jit_disk_cache_hash_u64(hash, (uint64_t)chunk->constants.count);
+        for (int i = 0; i < chunk->constants.count; ++i) {
+            hash = orus_jit_disk_cache_hash_value(hash, chunk->constants.values[i]);
+        }
+    }
+    out_key->name_hash = hash;
+
+    uint64_t seeds = FNV_OFFSET_BASIS;
+    if (seed_kinds && seed_count > 0u) {
+        seeds = orus_jit_disk_cache_hash_bytes(seeds, seed_kinds, seed_count);
+    }
+    out_key->seed_hash = seeds;
+}
+
+// Hashes the bytecode span the program was translated from. Quickening
+// rewrites opcodes in place, so this is what proves a cached program still
+// describes the code that is about to run.
+static bool
+orus_jit_disk_cache_body_hash(const Chunk* chunk,
+                              const OrusJitIRProgram* program,
+                              uint64_t* out_hash) {
+    if (!chunk || !chunk->code || chunk->count <= 0 || !program ||
+        program->count == 0u || !program->instructions) {
+        return false;
+    }
+
+    uint32_t low = program->whole_function ? UINT32_MAX : program->loop_start_offset;
+    uint32_t high = program->whole_function ? 0u : program->loop_end_offset;
+    for (size_t i = 0; i < program->count; ++i) {
+        uint32_t offset = program->instructions[i].bytecode_offset;
+        if (offset < low) {
+            low = offset;
+        }
+        if (offset + 1u > high) {
+            high = offset + 1u;
+        }
+    }
+    if (high > (uint32_t)chunk->count) {
+        high = (uint32_t)chunk->count;
+    }
+    if (low >= high) {
+        return false;
+    }
+
+    *out_hash = orus_jit_disk_cache_hash_bytes(FNV_OFFSET_BASIS, chunk->code + low,
+                                               (size_t)(high - low));
+    return true;
+}
+
+static bool
+orus_jit_disk_cache_dir(const char* cache_path, char* buffer, size_t size) {
+    if (!cache_path || !cache_path[0]) {
+        return false;
+    }
+    int written = snprintf(buffer, size, "%s/%s", cache_path, ORUS_JIT_DISK_CACHE_SUBDIR);
+    return written > 0 && (size_t)written < size;
+}
+
+static bool
+orus_jit_disk_cache_file(const char* cache_path,
+                         const OrusJitDiskCacheKey* key,
+                         char* buffer,
+                         size_t size) {
+    if (!key) {
+        return false;
+    }
+    char dir[ORUS_JIT_DISK_CACHE_PATH_MAX];
+    if (!orus_jit_disk_cache_dir(cache_path, dir, sizeof(dir))) {
+        return false;
+    }
+    int written = snprintf(buffer, size, "%s/%016llx.ojit", dir,
+                           (unsigned long long)key->name_hash);
+    return written > 0 && (size_t)written < size;
+}
+
+bool orus_jit_disk_cache_contains(const char* cache_path,
+                                  const OrusJitDiskCacheKey* key) {
+    char path[ORUS_JIT_DISK_CACHE_PATH_MAX];
+    if (!orus_jit_disk_cache_file(cache_path, key, path, sizeof(path))) {
+        return false;
+    }
+    struct stat info;
+    return stat(path, &info) == 0;
+}
+
+// String constants are loaded by pointer; point them at this run's objects.
+static bool
+orus_jit_disk_cache_relink(const Chunk* chunk, OrusJitIRProgram* program) {
+    for (size_t i = 0; i < program->count; ++i) {
+        OrusJitIRInstruction* inst = &program->instructions[i];
+        if (inst->opcode > ORUS_JIT_IR_OP_RETURN_VALUE) {
+            return false;
+        }
+        if (inst->opcode != ORUS_JIT_IR_OP_LOAD_STRING_CONST) {
+            continue;
+        }
+        uint16_t index = inst->operands.load_const.constant_index;
+        if (index >= (uint16_t)chunk->constants.count ||
+            !IS_STRING(chunk->constants.values[index])) {
+            return false;
+        }
+        inst->operands.load_const.immediate_bits =
+            (uint64_t)(uintptr_t)AS_STRING(chunk->constants.values[index]);
+    }
+    return true;
+}
+
+bool orus_jit_disk_cache_load(const char* cache_path,
+                              const OrusJitDiskCacheKey* key,
+                              const Chunk* chunk,
+                              OrusJitIRProgram* program) {
+    if (!chunk || !program) {
+        return false;
+    }
+    char path[ORUS_JIT_DISK_CACHE_PATH_MAX];
+    if (!orus_jit_disk_cache_file(cache_path, key, path, sizeof(path))) {
+        return false;
+    }
+    FILE* file = fopen(path, "rb");
+    if (!file) {
+        return false;
+    }
+
+    OrusJitDiskCacheHeader header;
+    bool ok = fread(&header, sizeof(header), 1, file) == 1 &&
+              memcmp(header.magic, ORUS_JIT_DISK_CACHE_MAGIC, sizeof(header.magic)) == 0 &&
+              header.format_version == ORUS_JIT_DISK_CACHE_FORMAT_VERSION &&
+              strncmp(header.orus_version, ORUS_VERSION_STRING,
+                      sizeof(header.orus_version)) == 0 &&
+              strncmp(header.target, ORUS_JIT_DISK_CACHE_TARGET,
+                      sizeof(header.target)) == 0 &&
+              header.name_hash == key->name_hash &&
+              header.seed_hash == key->seed_hash &&
+              header.instruction_size == sizeof(OrusJitIRInstruction) &&
+              header.count > 0u &&
+              header.count <= ORUS_JIT_DISK_CACHE_MAX_INSTRUCTIONS &&
+              orus_jit_ir_program_reserve(program, header.count);
+    if (ok) {
+        ok = fread(program->instructions, sizeof(OrusJitIRInstruction), header.count,
+                   file) == header.count;
+    }
+    fclose(file);
+
+    if (ok) {
+        program->count = header.count;
+        program->source_chunk = (const struct Chunk*)chunk;
+        program->function_index = header.function_index;
+        program->loop_index = header.loop_index;
+        program->loop_start_offset = header.loop_start_offset;
+        program->loop_end_offset = header.loop_end_offset;
+        program->whole_function = header.whole_function != 0u;
+
+        uint64_t payload = orus_jit_disk_cache_hash_bytes(
+            FNV_OFFSET_BASIS, program->instructions,
+            sizeof(OrusJitIRInstruction) * program->count);
+        uint64_t body = 0u;
+        ok = payload == header.payload_hash &&
+             orus_jit_disk_cache_body_hash(chunk, program, &body) &&
+             body == header.body_hash && orus_jit_disk_cache_relink(chunk, program);
+    }
+
+    if (!ok) {
+        orus_jit_ir_program_reset(program);
+        return false;
+    }
+    if (!program->whole_function) {
+        orus_jit_ir_program_build_osr_map(program);
+    }
+    return true;
+}
+
+bool orus_jit_disk_cache_store(const char* cache_path,
+                               const OrusJitDiskCacheKey* key,
+                               const Chunk* chunk,
+                               const OrusJitIRProgram* program) {
+    if (!program || program->count == 0u ||
+        program->count > ORUS_JIT_DISK_CACHE_MAX_INSTRUCTIONS) {
+        return false;
+    }
+
+    OrusJitDiskCacheHeader header;
+    memset(&header, 0, sizeof(header));
+    if (!orus_jit_disk_cache_body_hash(chunk, program, &header.body_hash)) {
+        return false;
+    }
+
+    char dir[ORUS_JIT_DISK_CACHE_PATH_MAX];
+    char path[ORUS_JIT_DISK_CACHE_PATH_MAX];
+    char temp[ORUS_JIT_DISK_CACHE_PATH_MAX];
+    if (!orus_jit_disk_cache_dir(cache_path, dir, sizeof(dir)) ||
+        !orus_jit_disk_cache_file(cache_path, key, path, sizeof(path))) {
+        return false;
+    }
+    int written = snprintf(temp, sizeof(temp), "%s.%lu.tmp", path,
+                           orus_jit_disk_cache_pid());
+    if (written <= 0 || (size_t)written >= sizeof(temp)) {
+        return false;
+    }
+    // The cache root is the user's; only the jit subdirectory is created.
+    if (orus_jit_disk_cache_mkdir(dir) != 0 && errno != EEXIST) {
+        return false;
+    }
+
+    memcpy(header.magic, ORUS_JIT_DISK_CACHE_MAGIC, sizeof(header.magic));
+    header.format_version = ORUS_JIT_DISK_CACHE_FORMAT_VERSION;
+    strncpy(header.orus_version, ORUS_VERSION_STRING, sizeof(header.orus_version) - 1u);
+    strncpy(header.target, ORUS_JIT_DISK_CACHE_TARGET, sizeof(header.target) - 1u);
+    header.name_hash = key->name_hash;
+    header.seed_hash = key->seed_hash;
+    header.payload_hash = orus_jit_disk_cache_hash_bytes(
+        FNV_OFFSET_BASIS, program->instructions,
+        sizeof(OrusJitIRInstruction) * program->count);
+    header.instruction_size = (uint32_t)sizeof(OrusJitIRInstruction);
+    header.count = (uint32_t)program->count;
+    header.loop_start_offset = program->loop_start_offset;
+    header.loop_end_offset = program->loop_end_offset;
+    header.function_index = program->function_index;
+    header.loop_index = program->loop_index;
+    header.whole_function = program->whole_function ? 1u : 0u;
+
+    FILE* file = fopen(temp, "wb");
+    if (!file) {
+        return false;
+    }
+    bool ok = fwrite(&header, sizeof(header), 1, file) == 1 &&
+              fwrite(program->instructions, sizeof(OrusJitIRInstruction),
+                     program->count, file) == program->count;
+    ok = (fclose(file) == 0) && ok;
+#ifdef _WIN32
+    if (ok) {
+        remove(path);
+    }
+#endif
+    if (!ok || rename(temp, path) != 0) {
+        remove(temp);
+        return false;
+    }
+    return true;
+}
@@ -31,6 +31,8 @@ orus_jit_ir_program_reset(OrusJitIRProgram* program) {
     program->loop_index = 0;
     program->loop_start_offset = 0;
     program->loop_end_offset = 0;
+    program->whole_function = false;
+    memset(&program->osr, 0, sizeof(program->osr));
 }
 
 bool
@@ -80,3 +82,310 @@ orus_jit_ir_program_append(OrusJitIRProgram* program) {
     return inst;
 }
 
+
+// ---------------------------------------------------------------------------
+// OSR map construction
+// ---------------------------------------------------------------------------
+
+#define ORUS_JIT_OSR_NO_KIND ((uint8_t)ORUS_JIT_VALUE_KIND_COUNT)
+#define ORUS_JIT_OSR_REGISTER_LIMIT (ORUS_JIT_OSR_MASK_WORDS * 64u)
+
+typedef struct {
+    uint16_t uses[2];
+    uint8_t use_count;
+    uint8_t use_kind;
+    uint16_t def;
+    bool has_def;
+    uint8_t def_kind;
+    bool jumps;
+    uint32_t jump_target;
+} OrusJitOsrShape;
+
+static bool
+orus_jit_osr_kind_is_typed(OrusJitValueKind kind) {
+    return kind == ORUS_JIT_VALUE_I32 || kind == ORUS_JIT_VALUE_I64 ||
+           kind == ORUS_JIT_VALUE_U32 || kind == ORUS_JIT_VALUE_U64 ||
+           kind == ORUS_JIT_VALUE_F64 || kind == ORUS_JIT_VALUE_BOOL;
+}
+
+static void
+orus_jit_osr_binary(OrusJitOsrShape* shape, const OrusJitIRInstruction* inst,
+                    OrusJitValueKind operand_kind, OrusJitValueKind result_kind) {
+    shape->uses[0] = inst->operands.arithmetic.lhs_reg;
+    shape->uses[1] = inst->operands.arithmetic.rhs_reg;
+    shape->use_count = 2u;
+    shape->use_kind = (uint8_t)operand_kind;
+    shape->def = inst->operands.arithmetic.dst_reg;
+    shape->has_def = true;
+    shape->def_kind = (uint8_t)result_kind;
+}
+
+static void
+orus_jit_osr_unary(OrusJitOsrShape* shape, uint16_t dst, uint16_t src,
+                   OrusJitValueKind src_kind, OrusJitValueKind dst_kind) {
+    shape->uses[0] = src;
+    shape->use_count = 1u;
+    shape->use_kind = (uint8_t)src_kind;
+    shape->def = dst;
+    shape->has_def = true;
+    shape->def_kind = (uint8_t)dst_kind;
+}
+
+static void
+orus_jit_osr_load(OrusJitOsrShape* shape, const OrusJitIRInstruction* inst,
+                  OrusJitValueKind kind) {
+    shape->def = inst->operands.load_const.dst_reg;
+    shape->has_def = true;
+    shape->def_kind = (uint8_t)kind;
+}
+
+// Describes the registers one instruction reads and writes in the typed
+// window. Only the instructions the native loop emitters keep entirely in
+// typed slots are described; anything that works on boxed values returns false.
+static bool
+orus_jit_osr_describe(const OrusJitIRInstruction* inst, OrusJitOsrShape* shape) {
+    memset(shape, 0, sizeof(*shape));
+    shape->use_kind = ORUS_JIT_OSR_NO_KIND;
+    shape->def_kind = ORUS_JIT_OSR_NO_KIND;
+
+#define OSR_TYPED_FAMILY(SUFFIX, KIND)                                          \
+    case ORUS_JIT_IR_OP_LOAD_##SUFFIX##_CONST:                                 \
+        orus_jit_osr_load(shape, inst, KIND);                                  \
+        return true;                                                           \
+    case ORUS_JIT_IR_OP_MOVE_##SUFFIX:                                         \
+        orus_jit_osr_unary(shape, inst->operands.move.dst_reg,                 \
+                           inst->operands.move.src_reg, KIND, KIND);           \
+        return true;
+
+#define OSR_ARITH_FAMILY(SUFFIX, KIND)                                          \
+    case ORUS_JIT_IR_OP_ADD_##SUFFIX:                                          \
+    case ORUS_JIT_IR_OP_SUB_##SUFFIX:                                          \
+    case ORUS_JIT_IR_OP_MUL_##SUFFIX:                                          \
+    case ORUS_JIT_IR_OP_DIV_##SUFFIX:                                          \
+    case ORUS_JIT_IR_OP_MOD_##SUFFIX:                                          \
+        orus_jit_osr_binary(shape, inst, KIND, KIND);                          \
+        return true;                                                           \
+    case ORUS_JIT_IR_OP_LT_##SUFFIX:                                           \
+    case ORUS_JIT_IR_OP_LE_##SUFFIX:                                           \
+    case ORUS_JIT_IR_OP_GT_##SUFFIX:                                           \
+    case ORUS_JIT_IR_OP_GE_##SUFFIX:                                           \
+    case ORUS_JIT_IR_OP_EQ_##SUFFIX:                                           \
+    case ORUS_JIT_IR_OP_NE_##SUFFIX:                                           \
+        orus_jit_osr_binary(shape, inst, KIND, ORUS_JIT_VALUE_BOOL);           \
+        return true;
+
+#define OSR_CONVERSION(FROM, TO, FROM_KIND, TO_KIND)                            \
+    case ORUS_JIT_IR_OP_##FROM##_TO_##TO:                                      \
+        orus_jit_osr_unary(shape, inst->operands.unary.dst_reg,                \
+                           inst->operands.unary.src_reg, FROM_KIND, TO_KIND);  \
+        return true;
+
+    switch (inst->opcode) {
+        OSR_TYPED_FAMILY(I32, ORUS_JIT_VALUE_I32)
+        OSR_TYPED_FAMILY(I64, ORUS_JIT_VALUE_I64)
+        OSR_TYPED_FAMILY(U32, ORUS_JIT_VALUE_U32)
+        OSR_TYPED_FAMILY(U64, ORUS_JIT_VALUE_U64)
+        OSR_TYPED_FAMILY(F64, ORUS_JIT_VALUE_F64)
+        OSR_TYPED_FAMILY(BOOL, ORUS_JIT_VALUE_BOOL)
+
+        OSR_ARITH_FAMILY(I32, ORUS_JIT_VALUE_I32)
+        OSR_ARITH_FAMILY(I64, ORUS_JIT_VALUE_I64)
+        OSR_ARITH_FAMILY(U32, ORUS_JIT_VALUE_U32)
+        OSR_ARITH_FAMILY(U64, ORUS_JIT_VALUE_U64)
+        OSR_ARITH_FAMILY(F64, ORUS_JIT_VALUE_F64)
+
+        case ORUS_JIT_IR_OP_EQ_BOOL:
+        case ORUS_JIT_IR_OP_NE_BOOL:
+            orus_jit_osr_binary(shape, inst, ORUS_JIT_VALUE_BOOL,
+                                ORUS_JIT_VALUE_BOOL);
+            return true;
+
+        OSR_CONVERSION(I32, I64, ORUS_JIT_VALUE_I32, ORUS_JIT_VALUE_I64)
+        OSR_CONVERSION(U32, U64, ORUS_JIT_VALUE_U32, ORUS_JIT_VALUE_U64)
+        OSR_CONVERSION(U32, I32, ORUS_JIT_VALUE_U32, ORUS_JIT_VALUE_I32)
+        OSR_CONVERSION(I32, F64, ORUS_JIT_VALUE_I32, ORUS_JIT_VALUE_F64)
+        OSR_CONVERSION(I64, F64, ORUS_JIT_VALUE_I64, ORUS_JIT_VALUE_F64)
+        OSR_CONVERSION(F64, I32, ORUS_JIT_VALUE_F64, ORUS_JIT_VALUE_I32)
+        OSR_CONVERSION(F64, I64, ORUS_JIT_VALUE_F64, ORUS_JIT_VALUE_I64)
+        OSR_CONVERSION(F64, U32, ORUS_JIT_VALUE_F64, ORUS_JIT_VALUE_U32)
+        OSR_CONVERSION(U32, F64, ORUS_JIT_VALUE_U32, ORUS_JIT_VALUE_F64)
+        OSR_CONVERSION(I32, U32, ORUS_JIT_VALUE_I32, ORUS_JIT_VALUE_U32)
+        OSR_CONVERSION(I64, U32, ORUS_JIT_VALUE_I64, ORUS_JIT_VALUE_U32)
+        OSR_CONVERSION(I32, U64, ORUS_JIT_VALUE_I32, ORUS_JIT_VALUE_U64)
+        OSR_CONVERSION(I64, U64, ORUS_JIT_VALUE_I64, ORUS_JIT_VALUE_U64)
+        OSR_CONVERSION(U64, I32, ORUS_JIT_VALUE_U64, ORUS_JIT_VALUE_I32)
+        OSR_CONVERSION(U64, I64, ORUS_JIT_VALUE_U64, ORUS_JIT_VALUE_I64)
+        OSR_CONVERSION(U64, U32, ORUS_JIT_VALUE_U64, ORUS_JIT_VALUE_U32)
+        OSR_CONVERSION(F64, U64, ORUS_JIT_VALUE_F64, ORUS_JIT_VALUE_U64)
+        OSR_CONVERSION(U64, F64, ORUS_JIT_VALUE_U64, ORUS_JIT_VALUE_F64)
+
+        case ORUS_JIT_IR_OP_INC_CMP_JUMP:
+        case ORUS_JIT_IR_OP_DEC_CMP_JUMP: {
+            OrusJitValueKind kind = inst->value_kind;
+            if (kind != ORUS_JIT_VALUE_I32 && kind != ORUS_JIT_VALUE_I64 &&
+                kind != ORUS_JIT_VALUE_U32 && kind != ORUS_JIT_VALUE_U64) {
+                return false;
+            }
+            int64_t target = (int64_t)inst->bytecode_offset + 5 +
+                             (int64_t)inst->operands.fused_loop.jump_offset;
+            if (target < 0 || target > (int64_t)UINT32_MAX) {
+                return false;
+            }
+            shape->uses[0] = inst->operands.fused_loop.counter_reg;
+            shape->uses[1] = inst->operands.fused_loop.limit_reg;
+            shape->use_count = 2u;
+            shape->use_kind = (uint8_t)kind;
+            shape->def = inst->operands.fused_loop.counter_reg;
+            shape->has_def = true;
+            shape->def_kind = (uint8_t)kind;
+            shape->jumps = true;
+            shape->jump_target = (uint32_t)target;
+            return true;
+        }
+        case ORUS_JIT_IR_OP_JUMP_SHORT:
+            shape->jumps = true;
+            shape->jump_target = inst->bytecode_offset +
+                                 inst->operands.jump_short.bytecode_length +
+                                 inst->operands.jump_short.offset;
+            return true;
+        case ORUS_JIT_IR_OP_JUMP_IF_NOT_SHORT:
+            shape->uses[0] = inst->operands.jump_if_not_short.predicate_reg;
+            shape->use_count = 1u;
+            shape->use_kind = (uint8_t)ORUS_JIT_VALUE_BOOL;
+            shape->jumps = true;
+            shape->jump_target = inst->bytecode_offset +
+                                 inst->operands.jump_if_not_short.bytecode_length +
+                                 inst->operands.jump_if_not_short.offset;
+            return true;
+        case ORUS_JIT_IR_OP_JUMP_BACK_SHORT: {
+            uint32_t fallthrough = inst->bytecode_offset + 2u;
+            uint16_t back = inst->operands.jump_back_short.back_offset;
+            if (fallthrough < back) {
+                return false;
+            }
+            shape->jumps = true;
+            shape->jump_target = fallthrough - back;
+            return true;
+        }
+        case ORUS_JIT_IR_OP_SAFEPOINT:
+        case ORUS_JIT_IR_OP_LOOP_BACK:
+        case ORUS_JIT_IR_OP_RETURN:
+            return true;
+        default:
+            return false;
+    }
+
+#undef OSR_CONVERSION
+#undef OSR_ARITH_FAMILY
+#undef OSR_TYPED_FAMILY
+}
+
+static size_t
+orus_jit_osr_find_index(const OrusJitIRProgram* program, uint32_t bytecode_offset) {
+    for (size_t i = 0; i < program->count; ++i) {
+        if (program->instructions[i].bytecode_offset == bytecode_offset) {
+            return i;
+        }
+    }
+    return SIZE_MAX;
+}
+
+static OrusJitOsrSlot*
+orus_jit_osr_slot_for(OrusJitOsrMap* map, uint16_t reg, uint8_t kind) {
+    for (uint16_t i = 0; i < map->slot_count; ++i) {
+        OrusJitOsrSlot* slot = &map->slots[i];
+        if (slot->reg == reg) {
+            // A register the body uses with two kinds cannot be described by
+            // a single reg_types entry.
+            return slot->kind == kind ? slot : NULL;
+        }
+    }
+    if (map->slot_count >= ORUS_JIT_OSR_MAX_SLOTS) {
+        return NULL;
+    }
+    OrusJitOsrSlot* slot = &map->slots[map->slot_count++];
+    slot->reg = reg;
+    slot->kind = kind;
+    slot->flags = 0u;
+    return slot;
+}
+
+// Walks the loop body in program order from its header. A read of a register
+// that no unconditional earlier instruction has written is live-in; every
+// written register is live-out. Writes that sit inside a forward branch, or
+// after a backward one, are treated as conditional so they never hide a read.
+bool
+orus_jit_ir_program_build_osr_map(OrusJitIRProgram* program) {
+    if (!program) {
+        return false;
+    }
+    OrusJitOsrMap* map = &program->osr;
+    memset(map, 0, sizeof(*map));
+    if (program->whole_function || !program->instructions || program->count == 0) {
+        return false;
+    }
+
+    uint64_t defined[ORUS_JIT_OSR_MASK_WORDS] = {0};
+    size_t join_index = 0u;
+
+    for (size_t i = 0; i < program->count; ++i) {
+        OrusJitOsrShape shape;
+        if (!orus_jit_osr_describe(&program->instructions[i], &shape)) {
+            memset(map, 0, sizeof(*map));
+            return false;
+        }
+
+        for (uint8_t u = 0; u < shape.use_count; ++u) {
+            uint16_t reg = shape.uses[u];
+            if (reg >= ORUS_JIT_OSR_REGISTER_LIMIT ||
+                !orus_jit_osr_kind_is_typed((OrusJitValueKind)shape.use_kind)) {
+                memset(map, 0, sizeof(*map));
+                return false;
+            }
+            OrusJitOsrSlot* slot = orus_jit_osr_slot_for(map, reg, shape.use_kind);
+            if (!slot) {
+                memset(map, 0, sizeof(*map));
+                return false;
+            }
+            uint64_t bit = (uint64_t)1 << (reg & 63u);
+            if ((defined[reg >> 6] & bit) == 0) {
+                slot->flags |= ORUS_JIT_OSR_LIVE_IN;
+                map->live_in[reg >> 6] |= bit;
+            }
+        }
+
+        if (shape.has_def) {
+            uint16_t reg = shape.def;
+            if (reg >= ORUS_JIT_OSR_REGISTER_LIMIT ||
+                !orus_jit_osr_kind_is_typed((OrusJitValueKind)shape.def_kind)) {
+                memset(map, 0, sizeof(*map));
+                return false;
+            }
+            OrusJitOsrSlot* slot = orus_jit_osr_slot_for(map, reg, shape.def_kind);
+            if (!slot) {
+                memset(map, 0, sizeof(*map));
+                return false;
+            }
+            slot->flags |= ORUS_JIT_OSR_LIVE_OUT;
+            if (i >= join_index) {
+                defined[reg >> 6] |= (uint64_t)1 << (reg & 63u);
+            }
+        }
+
+        if (shape.jumps) {
+            size_t target = orus_jit_osr_find_index(program, shape.jump_target);
+            if (target == SIZE_MAX) {
+                // Leaves the loop; the fallthrough path stays unconditional.
+                continue;
+            }
+            if (target <= i) {
+                join_index = program->count;
+            } else if (target > join_index) {
+                join_index = target;
+            }
+        }
+    }
+
+    map->valid = true;
+    return true;
+}
@@ -112,6 +112,8 @@ orus_jit_ir_opcode_name(OrusJitIROpcode opcode) {
         case ORUS_JIT_IR_OP_JUMP_IF_NOT_SHORT: return "ORUS_JIT_IR_OP_JUMP_IF_NOT_SHORT";
         case ORUS_JIT_IR_OP_INC_CMP_JUMP: return "ORUS_JIT_IR_OP_INC_CMP_JUMP";
         case ORUS_JIT_IR_OP_DEC_CMP_JUMP: return "ORUS_JIT_IR_OP_DEC_CMP_JUMP";
+        case ORUS_JIT_IR_OP_CALL_FUNCTION: return "ORUS_JIT_IR_OP_CALL_FUNCTION";
+        case ORUS_JIT_IR_OP_RETURN_VALUE: return "ORUS_JIT_IR_OP_RETURN_VALUE";
         default: break;
     }
     return "ORUS_JIT_IR_OP_UNKNOWN";
@@ -304,9 +306,10 @@ orus_jit_ir_format_instruction(const OrusJitIRInstruction* inst,
                                     inst->operands.jump_short.bytecode_length);
         case ORUS_JIT_IR_OP_JUMP_BACK_SHORT:
             return (size_t)snprintf(buffer, buffer_size,
-                                    "%s back=%u",
+                                    "%s back=%u length=%u",
                                     opcode_name,
-                                    inst->operands.jump_back_short.back_offset);
+                                    inst->operands.jump_back_short.back_offset,
+                                    inst->operands.jump_back_short.bytecode_length);
         case ORUS_JIT_IR_OP_JUMP_IF_NOT_SHORT:
             return (size_t)snprintf(buffer, buffer_size,
                                     "%s predicate=r%u offset=%u length=%u",
@@ -346,6 +349,21 @@ orus_jit_ir_format_instruction(const OrusJitIRInstruction* inst,
                                     inst->operands.array_pop.array_reg);
         case ORUS_JIT_IR_OP_SAFEPOINT:
             return (size_t)snprintf(buffer, buffer_size, "%s", opcode_name);
+        case ORUS_JIT_IR_OP_CALL_FUNCTION:
+            return (size_t)snprintf(buffer, buffer_size,
+                                    "%s dst=r%u callee=r%u first=r%u count=%u",
+                                    opcode_name,
+                                    inst->operands.call_function.dst_reg,
+                                    inst->operands.call_function.callee_reg,
+                                    inst->operands.call_function.first_arg_reg,
+                                    inst->operands.call_function.arg_count);
+        case ORUS_JIT_IR_OP_RETURN_VALUE:
+            if (inst->operands.return_value.value_reg == ORUS_JIT_IR_NO_RETURN_VALUE) {
+                return (size_t)snprintf(buffer, buffer_size, "%s void", opcode_name);
+            }
+            return (size_t)snprintf(buffer, buffer_size, "%s value=r%u",
+                                    opcode_name,
+                                    inst->operands.return_value.value_reg);
         default:
             break;
     }
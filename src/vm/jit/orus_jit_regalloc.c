@@ -0,0 +1,812 @@
+// Orus Language Project
+// ---------------------------------------------------------------------------
+// File: src/vm/jit/orus_jit_regalloc.c
+// Description: Webs, live intervals and linear-scan register assignment for
+//              typed loop programs lowered by the register-form x86-64 emitter.
+
+#include "vm/jit_regalloc.h"
+
+#include <stdlib.h>
+#include <string.h>
+
+#define ORUS_JIT_REGALLOC_REGISTER_LIMIT (ORUS_JIT_OSR_MASK_WORDS * 64u)
+#define ORUS_JIT_REGALLOC_NO_KIND ((uint8_t)ORUS_JIT_VALUE_KIND_COUNT)
+#define ORUS_JIT_REGALLOC_NO_DEF UINT32_MAX
+
+typedef struct {
+    uint16_t use_regs[2];
+    uint8_t use_kinds[2];
+    uint8_t use_count;
+    bool has_def;
+    uint16_t def_reg;
+    uint8_t def_kind;
+    bool can_fail;       // May leave before completing: overflow or safepoint
+    bool falls_through;
+    bool branches;
+    bool to_header;      // LOOP_BACK always returns to instruction 0
+    uint32_t target;     // Bytecode offset of the taken branch
+    uint32_t next;       // Bytecode offset of the fallthrough, NO_TARGET for i + 1
+} OrusJitRegAllocShape;
+
+// Definitions are numbered 0..count-1 for the instructions that write a
+// register and count + reg for the value a register holds on entry.
+typedef struct {
+    const OrusJitIRProgram* program;
+    size_t count;
+    OrusJitRegAllocShape* shapes;
+    size_t def_count;
+    size_t def_words;
+    uint64_t* reach_in;   // count * def_words
+    uint64_t* reach_out;  // count * def_words
+    uint64_t* reg_defs;   // REGISTER_LIMIT * def_words
+    bool defined[ORUS_JIT_REGALLOC_REGISTER_LIMIT];
+    uint32_t* parent;     // Union-find over definitions
+    uint8_t* root_kind;
+    bool* root_used;
+    uint16_t* root_web;
+    size_t web_words;
+    uint64_t* live_in;    // count * web_words
+    uint64_t* live_out;   // count * web_words
+} OrusJitRegAllocContext;
+
+static inline bool
+orus_jit_regalloc_bit(const uint64_t* set, size_t index) {
+    return ((set[index >> 6] >> (index & 63u)) & 1u) != 0u;
+}
+
+static inline void
+orus_jit_regalloc_set_bit(uint64_t* set, size_t index) {
+    set[index >> 6] |= (uint64_t)1 << (index & 63u);
+}
+
+static void
+orus_jit_regalloc_use(OrusJitRegAllocShape* shape, uint16_t reg,
+                      OrusJitValueKind kind) {
+    shape->use_regs[shape->use_count] = reg;
+    shape->use_kinds[shape->use_count] = (uint8_t)kind;
+    shape->use_count++;
+}
+
+static void
+orus_jit_regalloc_def(OrusJitRegAllocShape* shape, uint16_t reg,
+                      OrusJitValueKind kind) {
+    shape->has_def = true;
+    shape->def_reg = reg;
+    shape->def_kind = (uint8_t)kind;
+}
+
+static void
+orus_jit_regalloc_binary(OrusJitRegAllocShape* shape,
+                         const OrusJitIRInstruction* inst,
+                         OrusJitValueKind operand_kind,
+                         OrusJitValueKind result_kind) {
+    orus_jit_regalloc_use(shape, inst->operands.arithmetic.lhs_reg, operand_kind);
+    orus_jit_regalloc_use(shape, inst->operands.arithmetic.rhs_reg, operand_kind);
+    orus_jit_regalloc_def(shape, inst->operands.arithmetic.dst_reg, result_kind);
+}
+
+// Describes the instructions the register-form emitter lowers. Anything that
+// needs a helper call or a boxed value returns false.
+static bool
+orus_jit_regalloc_describe(const OrusJitIRInstruction* inst,
+                           OrusJitRegAllocShape* shape) {
+    memset(shape, 0, sizeof(*shape));
+    shape->falls_through = true;
+    shape->next = ORUS_JIT_REGALLOC_NO_TARGET;
+
+#define REGALLOC_VALUE_FAMILY(SUFFIX, KIND)                                     \
+    case ORUS_JIT_IR_OP_LOAD_##SUFFIX##_CONST:                                 \
+        orus_jit_regalloc_def(shape, inst->operands.load_const.dst_reg, KIND); \
+        return true;                                                           \
+    case ORUS_JIT_IR_OP_MOVE_##SUFFIX:                                         \
+        orus_jit_regalloc_use(shape, inst->operands.move.src_reg, KIND);       \
+        orus_jit_regalloc_def(shape, inst->operands.move.dst_reg, KIND);       \
+        return true;
+
+#define REGALLOC_ARITH_FAMILY(SUFFIX, KIND, FAILS)                              \
+    case ORUS_JIT_IR_OP_ADD_##SUFFIX:                                          \
+    case ORUS_JIT_IR_OP_SUB_##SUFFIX:                                          \
+    case ORUS_JIT_IR_OP_MUL_##SUFFIX:                                          \
+        orus_jit_regalloc_binary(shape, inst, KIND, KIND);                     \
+        shape->can_fail = (FAILS);                                             \
+        return true;                                                           \
+    case ORUS_JIT_IR_OP_LT_##SUFFIX:                                           \
+    case ORUS_JIT_IR_OP_LE_##SUFFIX:                                           \
+    case ORUS_JIT_IR_OP_GT_##SUFFIX:                                           \
+    case ORUS_JIT_IR_OP_GE_##SUFFIX:                                           \
+    case ORUS_JIT_IR_OP_EQ_##SUFFIX:                                           \
+    case ORUS_JIT_IR_OP_NE_##SUFFIX:                                           \
+        orus_jit_regalloc_binary(shape, inst, KIND, ORUS_JIT_VALUE_BOOL);      \
+        return true;
+
+#define REGALLOC_CONVERSION(FROM, TO, FROM_KIND, TO_KIND)                       \
+    case ORUS_JIT_IR_OP_##FROM##_TO_##TO:                                      \
+        orus_jit_regalloc_use(shape, inst->operands.unary.src_reg, FROM_KIND); \
+        orus_jit_regalloc_def(shape, inst->operands.unary.dst_reg, TO_KIND);   \
+        return true;
+
+    switch (inst->opcode) {
+        REGALLOC_VALUE_FAMILY(I32, ORUS_JIT_VALUE_I32)
+        REGALLOC_VALUE_FAMILY(I64, ORUS_JIT_VALUE_I64)
+        REGALLOC_VALUE_FAMILY(F64, ORUS_JIT_VALUE_F64)
+        REGALLOC_VALUE_FAMILY(BOOL, ORUS_JIT_VALUE_BOOL)
+
+        // Integer overflow is an error the interpreter reports, so those
+        // instructions can leave; f64 arithmetic cannot fail.
+        REGALLOC_ARITH_FAMILY(I32, ORUS_JIT_VALUE_I32, true)
+        REGALLOC_ARITH_FAMILY(I64, ORUS_JIT_VALUE_I64, true)
+        REGALLOC_ARITH_FAMILY(F64, ORUS_JIT_VALUE_F64, false)
+
+        REGALLOC_CONVERSION(I32, I64, ORUS_JIT_VALUE_I32, ORUS_JIT_VALUE_I64)
+        REGALLOC_CONVERSION(I32, F64, ORUS_JIT_VALUE_I32, ORUS_JIT_VALUE_F64)
+        REGALLOC_CONVERSION(I64, F64, ORUS_JIT_VALUE_I64, ORUS_JIT_VALUE_F64)
+
+        case ORUS_JIT_IR_OP_INC_CMP_JUMP:
+        case ORUS_JIT_IR_OP_DEC_CMP_JUMP: {
+            OrusJitValueKind kind = inst->value_kind;
+            if (kind != ORUS_JIT_VALUE_I32 && kind != ORUS_JIT_VALUE_I64) {
+                return false;
+            }
+            int64_t target = (int64_t)inst->bytecode_offset + 5 +
+                             (int64_t)inst->operands.fused_loop.jump_offset;
+            if (target < 0 || target > (int64_t)UINT32_MAX) {
+                return false;
+            }
+            orus_jit_regalloc_use(shape, inst->operands.fused_loop.counter_reg, kind);
+            orus_jit_regalloc_use(shape, inst->operands.fused_loop.limit_reg, kind);
+            orus_jit_regalloc_def(shape, inst->operands.fused_loop.counter_reg, kind);
+            shape->can_fail = true;
+            shape->branches = true;
+            shape->target = (uint32_t)target;
+            shape->next = inst->bytecode_offset + 5u;
+            return true;
+        }
+        case ORUS_JIT_IR_OP_JUMP_SHORT:
+            shape->falls_through = false;
+            shape->branches = true;
+            shape->target = inst->bytecode_offset +
+                            inst->operands.jump_short.bytecode_length +
+                            inst->operands.jump_short.offset;
+            return true;
+        case ORUS_JIT_IR_OP_JUMP_IF_NOT_SHORT:
+            orus_jit_regalloc_use(shape, inst->operands.jump_if_not_short.predicate_reg,
+                                  ORUS_JIT_VALUE_BOOL);
+            shape->branches = true;
+            shape->target = inst->bytecode_offset +
+                            inst->operands.jump_if_not_short.bytecode_length +
+                            inst->operands.jump_if_not_short.offset;
+            return true;
+        case ORUS_JIT_IR_OP_JUMP_BACK_SHORT: {
+            uint32_t fallthrough = inst->bytecode_offset + 2u;
+            uint16_t back = inst->operands.jump_back_short.back_offset;
+            if (fallthrough < back) {
+                return false;
+            }
+            shape->falls_through = false;
+            shape->branches = true;
+            shape->target = fallthrough - back;
+            return true;
+        }
+        case ORUS_JIT_IR_OP_LOOP_BACK:
+            shape->falls_through = false;
+            shape->branches = true;
+            shape->to_header = true;
+            return true;
+        case ORUS_JIT_IR_OP_SAFEPOINT:
+            shape->can_fail = true;
+            return true;
+        default:
+            return false;
+    }
+
+#undef REGALLOC_CONVERSION
+#undef REGALLOC_ARITH_FAMILY
+#undef REGALLOC_VALUE_FAMILY
+}
+
+static uint32_t
+orus_jit_regalloc_find(const OrusJitIRProgram* program, uint32_t bytecode_offset) {
+    for (size_t i = 0; i < program->count; ++i) {
+        if (program->instructions[i].bytecode_offset == bytecode_offset) {
+            return (uint32_t)i;
+        }
+    }
+    return ORUS_JIT_REGALLOC_NO_TARGET;
+}
+
+static uint32_t
+orus_jit_regalloc_root(OrusJitRegAllocContext* ctx, uint32_t def) {
+    while (ctx->parent[def] != def) {
+        ctx->parent[def] = ctx->parent[ctx->parent[def]];
+        def = ctx->parent[def];
+    }
+    return def;
+}
+
+static void
+orus_jit_regalloc_union(OrusJitRegAllocContext* ctx, uint32_t a, uint32_t b) {
+    a = orus_jit_regalloc_root(ctx, a);
+    b = orus_jit_regalloc_root(ctx, b);
+    if (a != b) {
+        // Keep the lowest definition as the root so web numbering follows
+        // program order.
+        if (a < b) {
+            ctx->parent[b] = a;
+        } else {
+            ctx->parent[a] = b;
+        }
+    }
+}
+
+static inline const uint64_t*
+orus_jit_regalloc_defs_of(const OrusJitRegAllocContext* ctx, uint16_t reg) {
+    return &ctx->reg_defs[(size_t)reg * ctx->def_words];
+}
+
+// First definition of reg in set, native ones only when native_only is set.
+static uint32_t
+orus_jit_regalloc_first_def(const OrusJitRegAllocContext* ctx, const uint64_t* set,
+                            uint16_t reg, bool native_only) {
+    const uint64_t* defs = orus_jit_regalloc_defs_of(ctx, reg);
+    for (size_t w = 0; w < ctx->def_words; ++w) {
+        uint64_t bits = set[w] & defs[w];
+        while (bits) {
+            uint32_t def = (uint32_t)(w * 64u + (size_t)__builtin_ctzll(bits));
+            if (!native_only || def < ctx->count) {
+                return def;
+            }
+            bits &= bits - 1u;
+        }
+    }
+    return ORUS_JIT_REGALLOC_NO_DEF;
+}
+
+// Joins every definition of reg in set into one web.
+static void
+orus_jit_regalloc_join(OrusJitRegAllocContext* ctx, const uint64_t* set,
+                       uint16_t reg, uint32_t first) {
+    const uint64_t* defs = orus_jit_regalloc_defs_of(ctx, reg);
+    for (size_t w = 0; w < ctx->def_words; ++w) {
+        uint64_t bits = set[w] & defs[w];
+        while (bits) {
+            uint32_t def = (uint32_t)(w * 64u + (size_t)__builtin_ctzll(bits));
+            orus_jit_regalloc_union(ctx, first, def);
+            bits &= bits - 1u;
+        }
+    }
+}
+
+static bool
+orus_jit_regalloc_merge_kind(OrusJitRegAllocContext* ctx, uint32_t def,
+                             uint8_t kind) {
+    uint32_t root = orus_jit_regalloc_root(ctx, def);
+    if (ctx->root_kind[root] == ORUS_JIT_REGALLOC_NO_KIND) {
+        ctx->root_kind[root] = kind;
+        return true;
+    }
+    return ctx->root_kind[root] == kind;
+}
+
+// Reaching definitions. Sets only grow from the entry definitions at the
+// header, so pushing each OUT set into its successors' IN sets until nothing
+// changes reaches the fixed point.
+static bool
+orus_jit_regalloc_solve_reaching(OrusJitRegAllocContext* ctx,
+                                 const OrusJitRegAlloc* alloc) {
+    const size_t words = ctx->def_words;
+    uint64_t* next_out = (uint64_t*)malloc(words * sizeof(uint64_t));
+    if (!next_out) {
+        return false;
+    }
+    for (size_t reg = 0; reg < ORUS_JIT_REGALLOC_REGISTER_LIMIT; ++reg) {
+        orus_jit_regalloc_set_bit(ctx->reach_in, ctx->count + reg);
+    }
+
+    bool changed = true;
+    while (changed) {
+        changed = false;
+        for (size_t i = 0; i < ctx->count; ++i) {
+            const OrusJitRegAllocShape* shape = &ctx->shapes[i];
+            memcpy(next_out, &ctx->reach_in[i * words], words * sizeof(uint64_t));
+            if (shape->has_def) {
+                const uint64_t* kill = orus_jit_regalloc_defs_of(ctx, shape->def_reg);
+                for (size_t w = 0; w < words; ++w) {
+                    next_out[w] &= ~kill[w];
+                }
+                orus_jit_regalloc_set_bit(next_out, i);
+            }
+            uint64_t* out = &ctx->reach_out[i * words];
+            if (memcmp(out, next_out, words * sizeof(uint64_t)) != 0) {
+                memcpy(out, next_out, words * sizeof(uint64_t));
+                changed = true;
+            }
+
+            const OrusJitRegAllocSite* site = &alloc->sites[i];
+            uint32_t successors[2] = {site->taken_index, site->next_index};
+            for (size_t s = 0; s < 2u; ++s) {
+                if (successors[s] == ORUS_JIT_REGALLOC_NO_TARGET) {
+                    continue;
+                }
+                uint64_t* in = &ctx->reach_in[(size_t)successors[s] * words];
+                for (size_t w = 0; w < words; ++w) {
+                    uint64_t merged = in[w] | out[w];
+                    if (merged != in[w]) {
+                        in[w] = merged;
+                        changed = true;
+                    }
+                }
+            }
+        }
+    }
+    free(next_out);
+    return true;
+}
+
+// Adds an exit that hands the registers natively written along `set` back
+// to the interpreter, joining each register's reaching definitions.
+static uint16_t
+orus_jit_regalloc_add_exit(OrusJitRegAllocContext* ctx, OrusJitRegAlloc* alloc,
+                           const uint64_t* set, uint32_t resume_offset) {
+    uint16_t index = alloc->exit_count++;
+    OrusJitRegAllocExit* exit = &alloc->exits[index];
+    exit->resume_offset = resume_offset;
+    exit->first_flush = alloc->flush_count;
+    exit->flush_count = 0u;
+    for (uint16_t reg = 0; reg < ORUS_JIT_REGALLOC_REGISTER_LIMIT; ++reg) {
+        if (!ctx->defined[reg]) {
+            continue;
+        }
+        uint32_t first = orus_jit_regalloc_first_def(ctx, set, reg, true);
+        if (first == ORUS_JIT_REGALLOC_NO_DEF) {
+            continue;
+        }
+        orus_jit_regalloc_join(ctx, set, reg, first);
+        // Holds the definition until webs are numbered.
+        alloc->flush[alloc->flush_count++] = (uint16_t)first;
+        exit->flush_count++;
+    }
+    return index;
+}
+
+static void
+orus_jit_regalloc_solve_liveness(OrusJitRegAllocContext* ctx,
+                                 const OrusJitRegAlloc* alloc) {
+    const size_t words = ctx->web_words;
+    bool changed = true;
+    while (changed) {
+        changed = false;
+        for (size_t k = ctx->count; k-- > 0;) {
+            const OrusJitRegAllocSite* site = &alloc->sites[k];
+            uint64_t* out = &ctx->live_out[k * words];
+            uint64_t* in = &ctx->live_in[k * words];
+
+            uint16_t exits[2] = {site->exit_taken, site->exit_next};
+            for (size_t e = 0; e < 2u; ++e) {
+                if (exits[e] == ORUS_JIT_REGALLOC_NO_EXIT) {
+                    continue;
+                }
+                const OrusJitRegAllocExit* exit = &alloc->exits[exits[e]];
+                for (uint16_t f = 0; f < exit->flush_count; ++f) {
+                    uint16_t web = alloc->flush[exit->first_flush + f];
+                    if (!orus_jit_regalloc_bit(out, web)) {
+                        orus_jit_regalloc_set_bit(out, web);
+                        changed = true;
+                    }
+                }
+            }
+            uint32_t successors[2] = {site->taken_index, site->next_index};
+            for (size_t s = 0; s < 2u; ++s) {
+                if (successors[s] == ORUS_JIT_REGALLOC_NO_TARGET) {
+                    continue;
+                }
+                const uint64_t* succ_in = &ctx->live_in[(size_t)successors[s] * words];
+                for (size_t w = 0; w < words; ++w) {
+                    uint64_t merged = out[w] | succ_in[w];
+                    if (merged != out[w]) {
+                        out[w] = merged;
+                        changed = true;
+                    }
+                }
+            }
+
+            for (size_t w = 0; w < words; ++w) {
+                uint64_t kept = out[w];
+                if (site->def != ORUS_JIT_REGALLOC_NO_WEB && (site->def >> 6) == w) {
+                    kept &= ~((uint64_t)1 << (site->def & 63u));
+                }
+                uint64_t merged = in[w] | kept;
+                if (merged != in[w]) {
+                    in[w] = merged;
+                    changed = true;
+                }
+            }
+            for (size_t u = 0; u < 2u; ++u) {
+                if (site->uses[u] != ORUS_JIT_REGALLOC_NO_WEB &&
+                    !orus_jit_regalloc_bit(in, site->uses[u])) {
+                    orus_jit_regalloc_set_bit(in, site->uses[u]);
+                    changed = true;
+                }
+            }
+            if (site->exit_before != ORUS_JIT_REGALLOC_NO_EXIT) {
+                const OrusJitRegAllocExit* exit = &alloc->exits[site->exit_before];
+                for (uint16_t f = 0; f < exit->flush_count; ++f) {
+                    uint16_t web = alloc->flush[exit->first_flush + f];
+                    if (!orus_jit_regalloc_bit(in, web)) {
+                        orus_jit_regalloc_set_bit(in, web);
+                        changed = true;
+                    }
+                }
+            }
+        }
+    }
+}
+
+// Poletto & Sarkar: walk intervals by start, free the registers of intervals
+// that have ended, and when the pool is empty spill whichever interval ends
+// last, the new one or an active one.
+static void
+orus_jit_regalloc_scan(OrusJitRegAlloc* alloc, OrusJitRegClass reg_class,
+                       uint8_t pool_size, uint16_t* order, uint16_t* active) {
+    OrusJitRegAllocWeb* webs = alloc->webs;
+    size_t order_count = 0u;
+    for (uint16_t w = 0; w < alloc->web_count; ++w) {
+        if (orus_jit_regalloc_class(webs[w].kind) != reg_class) {
+            continue;
+        }
+        size_t at = order_count++;
+        while (at > 0u && webs[order[at - 1u]].start > webs[w].start) {
+            order[at] = order[at - 1u];
+            at--;
+        }
+        order[at] = w;
+    }
+
+    bool in_use[UINT8_MAX] = {false};
+    size_t active_count = 0u;
+    for (size_t o = 0; o < order_count; ++o) {
+        OrusJitRegAllocWeb* current = &webs[order[o]];
+
+        size_t kept = 0u;
+        for (size_t a = 0; a < active_count; ++a) {
+            OrusJitRegAllocWeb* candidate = &webs[active[a]];
+            if (candidate->end < current->start) {
+                in_use[candidate->location] = false;
+            } else {
+                active[kept++] = active[a];
+            }
+        }
+        active_count = kept;
+
+        uint8_t location = ORUS_JIT_REGALLOC_SPILLED;
+        for (uint8_t r = 0; r < pool_size; ++r) {
+            if (!in_use[r]) {
+                location = r;
+                break;
+            }
+        }
+        if (location == ORUS_JIT_REGALLOC_SPILLED) {
+            OrusJitRegAllocWeb* furthest =
+                active_count > 0u ? &webs[active[active_count - 1u]] : NULL;
+            alloc->spill_count++;
+            if (!furthest || furthest->end <= current->end) {
+                current->location = ORUS_JIT_REGALLOC_SPILLED;
+                continue;
+            }
+            location = furthest->location;
+            furthest->location = ORUS_JIT_REGALLOC_SPILLED;
+            active_count--;
+        }
+
+        current->location = location;
+        in_use[location] = true;
+        size_t at = active_count++;
+        while (at > 0u && webs[active[at - 1u]].end > current->end) {
+            active[at] = active[at - 1u];
+            at--;
+        }
+        active[at] = order[o];
+    }
+}
+
+void
+orus_jit_regalloc_init(OrusJitRegAlloc* alloc) {
+    if (!alloc) {
+        return;
+    }
+    memset(alloc, 0, sizeof(*alloc));
+}
+
+void
+orus_jit_regalloc_release(OrusJitRegAlloc* alloc) {
+    if (!alloc) {
+        return;
+    }
+    free(alloc->webs);
+    free(alloc->sites);
+    free(alloc->exits);
+    free(alloc->flush);
+    memset(alloc, 0, sizeof(*alloc));
+}
+
+bool
+orus_jit_regalloc_build(const OrusJitIRProgram* program,
+                        const uint8_t pool_sizes[ORUS_JIT_REG_CLASS_COUNT],
+                        OrusJitRegAlloc* alloc) {
+    if (!alloc) {
+        return false;
+    }
+    orus_jit_regalloc_init(alloc);
+    if (!program || !pool_sizes || program->whole_function || !program->instructions ||
+        program->count == 0u || program->count > ORUS_JIT_REGALLOC_MAX_INSTRUCTIONS ||
+        program->instructions[0].bytecode_offset != program->loop_index) {
+        return false;
+    }
+
+    const size_t count = program->count;
+    OrusJitRegAllocContext ctx;
+    memset(&ctx, 0, sizeof(ctx));
+    ctx.program = program;
+    ctx.count = count;
+    ctx.def_count = count + ORUS_JIT_REGALLOC_REGISTER_LIMIT;
+    ctx.def_words = (ctx.def_count + 63u) / 64u;
+    bool ok = false;
+    uint16_t* order = NULL;
+    uint16_t* active = NULL;
+
+    ctx.shapes = (OrusJitRegAllocShape*)calloc(count, sizeof(OrusJitRegAllocShape));
+    ctx.reach_in = (uint64_t*)calloc(count * ctx.def_words, sizeof(uint64_t));
+    ctx.reach_out = (uint64_t*)calloc(count * ctx.def_words, sizeof(uint64_t));
+    ctx.reg_defs = (uint64_t*)calloc(ORUS_JIT_REGALLOC_REGISTER_LIMIT * ctx.def_words,
+                                     sizeof(uint64_t));
+    ctx.parent = (uint32_t*)malloc(ctx.def_count * sizeof(uint32_t));
+    ctx.root_kind = (uint8_t*)malloc(ctx.def_count * sizeof(uint8_t));
+    ctx.root_used = (bool*)calloc(ctx.def_count, sizeof(bool));
+    ctx.root_web = (uint16_t*)malloc(ctx.def_count * sizeof(uint16_t));
+    alloc->sites = (OrusJitRegAllocSite*)calloc(count, sizeof(OrusJitRegAllocSite));
+    alloc->exits = (OrusJitRegAllocExit*)calloc(count * 3u, sizeof(OrusJitRegAllocExit));
+    if (!ctx.shapes || !ctx.reach_in || !ctx.reach_out || !ctx.reg_defs ||
+        !ctx.parent || !ctx.root_kind || !ctx.root_used || !ctx.root_web ||
+        !alloc->sites || !alloc->exits) {
+        goto cleanup;
+    }
+    alloc->site_count = count;
+
+    // Shapes, control flow and the definitions of each register.
+    for (size_t i = 0; i < count; ++i) {
+        OrusJitRegAllocShape* shape = &ctx.shapes[i];
+        if (!orus_jit_regalloc_describe(&program->instructions[i], shape)) {
+            goto cleanup;
+        }
+        for (uint8_t u = 0; u < shape->use_count; ++u) {
+            if (shape->use_regs[u] >= ORUS_JIT_REGALLOC_REGISTER_LIMIT) {
+                goto cleanup;
+            }
+        }
+        if (shape->has_def) {
+            if (shape->def_reg >= ORUS_JIT_REGALLOC_REGISTER_LIMIT) {
+                goto cleanup;
+            }
+            ctx.defined[shape->def_reg] = true;
+            orus_jit_regalloc_set_bit(
+                &ctx.reg_defs[(size_t)shape->def_reg * ctx.def_words], i);
+        }
+        if (shape->can_fail) {
+            // The interpreter re-runs the whole bytecode instruction, so no
+            // earlier part of it may have written a register already.
+            uint32_t offset = program->instructions[i].bytecode_offset;
+            for (size_t j = i; j-- > 0 &&
+                               program->instructions[j].bytecode_offset == offset;) {
+                if (ctx.shapes[j].has_def) {
+                    goto cleanup;
+                }
+            }
+        }
+
+        OrusJitRegAllocSite* site = &alloc->sites[i];
+        site->uses[0] = ORUS_JIT_REGALLOC_NO_WEB;
+        site->uses[1] = ORUS_JIT_REGALLOC_NO_WEB;
+        site->def = ORUS_JIT_REGALLOC_NO_WEB;
+        site->exit_before = ORUS_JIT_REGALLOC_NO_EXIT;
+        site->exit_taken = ORUS_JIT_REGALLOC_NO_EXIT;
+        site->exit_next = ORUS_JIT_REGALLOC_NO_EXIT;
+        site->taken_index = ORUS_JIT_REGALLOC_NO_TARGET;
+        site->next_index = ORUS_JIT_REGALLOC_NO_TARGET;
+        if (shape->falls_through) {
+            if (shape->next == ORUS_JIT_REGALLOC_NO_TARGET) {
+                if (i + 1u >= count) {
+                    // Running off the end has no known resume offset.
+                    goto cleanup;
+                }
+                site->next_index = (uint32_t)(i + 1u);
+            } else {
+                site->next_index = orus_jit_regalloc_find(program, shape->next);
+            }
+        }
+        if (shape->branches) {
+            site->taken_index = shape->to_header
+                                    ? 0u
+                                    : orus_jit_regalloc_find(program, shape->target);
+        }
+    }
+    size_t defined_count = 0u;
+    for (uint16_t reg = 0; reg < ORUS_JIT_REGALLOC_REGISTER_LIMIT; ++reg) {
+        orus_jit_regalloc_set_bit(&ctx.reg_defs[(size_t)reg * ctx.def_words],
+                                  count + reg);
+        defined_count += ctx.defined[reg] ? 1u : 0u;
+    }
+    // Each instruction has at most three exits, each flushing at most one
+    // web per register the loop writes.
+    alloc->flush = (uint16_t*)malloc((count * 3u * defined_count + 1u) * sizeof(uint16_t));
+    if (!alloc->flush) {
+        goto cleanup;
+    }
+
+    if (!orus_jit_regalloc_solve_reaching(&ctx, alloc)) {
+        goto cleanup;
+    }
+    for (size_t d = 0; d < ctx.def_count; ++d) {
+        ctx.parent[d] = (uint32_t)d;
+        ctx.root_kind[d] = ORUS_JIT_REGALLOC_NO_KIND;
+        ctx.root_web[d] = ORUS_JIT_REGALLOC_NO_WEB;
+    }
+
+    // Webs: every use joins the definitions that reach it, and so does every
+    // exit for each register the loop may have written on the way there.
+    for (size_t i = 0; i < count; ++i) {
+        const OrusJitRegAllocShape* shape = &ctx.shapes[i];
+        const uint64_t* in = &ctx.reach_in[i * ctx.def_words];
+        for (uint8_t u = 0; u < shape->use_count; ++u) {
+            uint32_t first = orus_jit_regalloc_first_def(&ctx, in, shape->use_regs[u], false);
+            if (first == ORUS_JIT_REGALLOC_NO_DEF) {
+                goto cleanup;
+            }
+            orus_jit_regalloc_join(&ctx, in, shape->use_regs[u], first);
+        }
+
+        OrusJitRegAllocSite* site = &alloc->sites[i];
+        const uint64_t* out = &ctx.reach_out[i * ctx.def_words];
+        const OrusJitIRInstruction* inst = &program->instructions[i];
+        if (shape->can_fail) {
+            site->exit_before =
+                orus_jit_regalloc_add_exit(&ctx, alloc, in, inst->bytecode_offset);
+        }
+        if (shape->branches && site->taken_index == ORUS_JIT_REGALLOC_NO_TARGET) {
+            site->exit_taken = orus_jit_regalloc_add_exit(&ctx, alloc, out, shape->target);
+        }
+        if (shape->falls_through && site->next_index == ORUS_JIT_REGALLOC_NO_TARGET) {
+            site->exit_next = orus_jit_regalloc_add_exit(&ctx, alloc, out, shape->next);
+        }
+    }
+
+    // One kind per web.
+    for (size_t i = 0; i < count; ++i) {
+        const OrusJitRegAllocShape* shape = &ctx.shapes[i];
+        const uint64_t* in = &ctx.reach_in[i * ctx.def_words];
+        if (shape->has_def &&
+            !orus_jit_regalloc_merge_kind(&ctx, (uint32_t)i, shape->def_kind)) {
+            goto cleanup;
+        }
+        for (uint8_t u = 0; u < shape->use_count; ++u) {
+            uint32_t first = orus_jit_regalloc_first_def(&ctx, in, shape->use_regs[u], false);
+            if (!orus_jit_regalloc_merge_kind(&ctx, first, shape->use_kinds[u])) {
+                goto cleanup;
+            }
+            ctx.root_used[orus_jit_regalloc_root(&ctx, first)] = true;
+        }
+    }
+
+    // Number the webs in order of their lowest definition.
+    alloc->webs = (OrusJitRegAllocWeb*)calloc(ctx.def_count, sizeof(OrusJitRegAllocWeb));
+    if (!alloc->webs) {
+        goto cleanup;
+    }
+    for (size_t d = 0; d < ctx.def_count; ++d) {
+        uint32_t root = orus_jit_regalloc_root(&ctx, (uint32_t)d);
+        bool native = d < count;
+        if (!native && !ctx.root_used[root] && ctx.root_web[root] == ORUS_JIT_REGALLOC_NO_WEB) {
+            continue;
+        }
+        if (ctx.root_web[root] == ORUS_JIT_REGALLOC_NO_WEB) {
+            OrusJitRegAllocWeb* web = &alloc->webs[alloc->web_count];
+            web->reg = native ? ctx.shapes[d].def_reg : (uint16_t)(d - count);
+            web->kind = ctx.root_kind[root];
+            web->location = ORUS_JIT_REGALLOC_SPILLED;
+            web->start = UINT32_MAX;
+            web->end = 0u;
+            ctx.root_web[root] = alloc->web_count++;
+        }
+        if (!native) {
+            alloc->webs[ctx.root_web[root]].live_in = true;
+        }
+    }
+
+    for (size_t i = 0; i < count; ++i) {
+        const OrusJitRegAllocShape* shape = &ctx.shapes[i];
+        const uint64_t* in = &ctx.reach_in[i * ctx.def_words];
+        OrusJitRegAllocSite* site = &alloc->sites[i];
+        for (uint8_t u = 0; u < shape->use_count; ++u) {
+            uint32_t first = orus_jit_regalloc_first_def(&ctx, in, shape->use_regs[u], false);
+            site->uses[u] = ctx.root_web[orus_jit_regalloc_root(&ctx, first)];
+        }
+        if (shape->has_def) {
+            site->def = ctx.root_web[orus_jit_regalloc_root(&ctx, (uint32_t)i)];
+        }
+    }
+    for (uint32_t f = 0; f < alloc->flush_count; ++f) {
+        alloc->flush[f] = ctx.root_web[orus_jit_regalloc_root(&ctx, alloc->flush[f])];
+    }
+
+    // Live intervals.
+    ctx.web_words = ((size_t)alloc->web_count + 63u) / 64u;
+    if (ctx.web_words == 0u) {
+        ctx.web_words = 1u;
+    }
+    ctx.live_in = (uint64_t*)calloc(count * ctx.web_words, sizeof(uint64_t));
+    ctx.live_out = (uint64_t*)calloc(count * ctx.web_words, sizeof(uint64_t));
+    if (!ctx.live_in || !ctx.live_out) {
+        goto cleanup;
+    }
+    orus_jit_regalloc_solve_liveness(&ctx, alloc);
+    for (size_t i = 0; i < count; ++i) {
+        const uint64_t* in = &ctx.live_in[i * ctx.web_words];
+        const uint64_t* out = &ctx.live_out[i * ctx.web_words];
+        for (uint16_t w = 0; w < alloc->web_count; ++w) {
+            if (alloc->sites[i].def == w || orus_jit_regalloc_bit(in, w) ||
+                orus_jit_regalloc_bit(out, w)) {
+                OrusJitRegAllocWeb* web = &alloc->webs[w];
+                if ((uint32_t)i < web->start) {
+                    web->start = (uint32_t)i;
+                }
+                if ((uint32_t)i > web->end) {
+                    web->end = (uint32_t)i;
+                }
+            }
+        }
+    }
+
+    // Entry: everything live at the header comes from the interpreter.
+    OrusJitOsrMap* entry = &alloc->entry;
+    for (uint16_t w = 0; w < alloc->web_count; ++w) {
+        const OrusJitRegAllocWeb* web = &alloc->webs[w];
+        if (!orus_jit_regalloc_bit(ctx.live_in, w)) {
+            continue;
+        }
+        if (!web->live_in || entry->slot_count >= ORUS_JIT_OSR_MAX_SLOTS) {
+            goto cleanup;
+        }
+        OrusJitOsrSlot* slot = &entry->slots[entry->slot_count++];
+        slot->reg = web->reg;
+        slot->kind = web->kind;
+        slot->flags = ORUS_JIT_OSR_LIVE_IN;
+        entry->live_in[web->reg >> 6] |= (uint64_t)1 << (web->reg & 63u);
+    }
+    entry->valid = true;
+
+    order = (uint16_t*)malloc(((size_t)alloc->web_count + 1u) * sizeof(uint16_t));
+    active = (uint16_t*)malloc(((size_t)alloc->web_count + 1u) * sizeof(uint16_t));
+    if (!order || !active) {
+        goto cleanup;
+    }
+    for (int c = 0; c < (int)ORUS_JIT_REG_CLASS_COUNT; ++c) {
+        orus_jit_regalloc_scan(alloc, (OrusJitRegClass)c, pool_sizes[c], order, active);
+    }
+    ok = true;
+
+cleanup:
+    free(order);
+    free(active);
+    free(ctx.live_in);
+    free(ctx.live_out);
+    free(ctx.root_web);
+    free(ctx.root_used);
+    free(ctx.root_kind);
+    free(ctx.parent);
+    free(ctx.reg_defs);
+    free(ctx.reach_out);
+    free(ctx.reach_in);
+    free(ctx.shapes);
+    if (!ok) {
+        orus_jit_regalloc_release(alloc);
+    }
+    return ok;
+}
@@ -1,21 +1,5 @@
 // Orus Language Project
 
-#include <stddef.h>
-// Forward declarations for HashMap and HashMapEntry
-typedef struct HashMap HashMap;
-typedef struct HashMapEntry HashMapEntry;
-// HashMapEntry definition (copied from type_representation.c)
-struct HashMapEntry {
-    int key;
-    void* value;
-    struct HashMapEntry* next;
-};
-// HashMap definition (copied from type_representation.c)
-struct HashMap {
-    HashMapEntry** buckets;
-    size_t capacity;
-    size_t count;
-};
 // vm_string_ops.c - String operations and optimizations
 
 
@@ -27,11 +11,7 @@ struct HashMap {
 #include <stdlib.h>
 #include <string.h>
 
-// Forward declarations for HashMap and HashMapEntry
-typedef struct HashMap HashMap;
-typedef struct HashMapEntry HashMapEntry;
-
-static bool buffer_is_ascii(const char* data, size_t len) {
+bool string_bytes_are_ascii(const char* data, size_t len) {
     if (!data) return true;
     for (size_t i = 0; i < len; i++) {
         if ((unsigned char)data[i] >= 0x80) {
@@ -48,6 +28,14 @@ static void rope_init_leaf(StringRope* rope, size_t len) {
     rope->refcount = 1;
     rope->hash_cache = 0;
     rope->hash_valid = false;
+    rope->as.leaf.capacity = 0;
+    rope->as.leaf.appendable = false;
+}
+
+// Append buffers grow in place, so they are never shared directly; strings
+// reach them through fixed-length substring views.
+static inline bool rope_is_append_buffer(const StringRope* rope) {
+    return rope && rope->kind == ROPE_LEAF && rope->as.leaf.appendable;
 }
 
 static void rope_init_common(StringRope* rope, RopeKind kind, size_t total_len, uint32_t depth) {
@@ -105,10 +93,11 @@ StringRope* rope_from_cstr(const char* str, size_t len) {
     StringRope* r = (StringRope*)reallocate(NULL, 0, sizeof(StringRope));
     rope_init_leaf(r, len);
     r->as.leaf.data = (char*)reallocate(NULL, 0, len + 1);
+    r->as.leaf.capacity = len + 1;
     memcpy(r->as.leaf.data, str, len);
     r->as.leaf.data[len] = '\0';
     r->as.leaf.len = len;
-    r->as.leaf.is_ascii = buffer_is_ascii(r->as.leaf.data, len);
+    r->as.leaf.is_ascii = string_bytes_are_ascii(r->as.leaf.data, len);
     r->as.leaf.is_interned = false;
     r->as.leaf.owns_data = true;
     return r;
@@ -120,7 +109,7 @@ StringRope* rope_from_buffer(char* buffer, size_t len, bool owns_data) {
     rope_init_leaf(r, len);
     r->as.leaf.data = buffer;
     r->as.leaf.len = len;
-    r->as.leaf.is_ascii = buffer_is_ascii(buffer, len);
+    r->as.leaf.is_ascii = string_bytes_are_ascii(buffer, len);
     r->as.leaf.is_interned = false;
     r->as.leaf.owns_data = owns_data;
     return r;
@@ -158,7 +147,11 @@ void rope_release(StringRope* rope) {
         switch (node->kind) {
             case ROPE_LEAF:
                 if (node->as.leaf.owns_data && node->as.leaf.data) {
-                    free(node->as.leaf.data);
+                    if (node->as.leaf.capacity > 0) {
+                        reallocate(node->as.leaf.data, node->as.leaf.capacity, 0);
+                    } else {
+                        free(node->as.leaf.data);
+                    }
                 }
                 break;
             case ROPE_CONCAT: {
@@ -207,6 +200,51 @@ static size_t rope_child_length(const StringRope* rope) {
     return rope ? rope->total_len : 0;
 }
 
+static StringRope* rope_concat_node(StringRope* left, StringRope* right) {
+    StringRope* node = (StringRope*)reallocate(NULL, 0, sizeof(StringRope));
+    size_t total_len = rope_child_length(left) + rope_child_length(right);
+    uint32_t depth = 1 + (rope_child_depth(left) > rope_child_depth(right)
+                              ? rope_child_depth(left)
+                              : rope_child_depth(right));
+    rope_init_common(node, ROPE_CONCAT, total_len, depth);
+    node->as.concat.left = left;
+    node->as.concat.right = right;
+    rope_retain(left);
+    rope_retain(right);
+    return node;
+}
+
+// Boehm et al.: a rope of depth n is balanced when its length is at least
+// fib(n + 2).
+static bool rope_is_balanced(const StringRope* rope) {
+    if (rope->depth > ORUS_ROPE_MAX_DEPTH) {
+        return false;
+    }
+    if (rope->depth <= ORUS_ROPE_BALANCE_MIN_DEPTH) {
+        return true;
+    }
+    size_t previous = 0;
+    size_t current = 1;
+    for (uint32_t i = 0; i < rope->depth + 2; i++) {
+        size_t next = previous + current;
+        previous = current;
+        current = next;
+    }
+    return rope->total_len >= previous;
+}
+
+static char* rope_copy_all(const StringRope* rope, char* dest);
+
+static StringRope* rope_flat_pair(const StringRope* left, const StringRope* right) {
+    size_t len = left->total_len + right->total_len;
+    char* buffer = (char*)reallocate(NULL, 0, len + 1);
+    char* end = rope_copy_all(right, rope_copy_all(left, buffer));
+    *end = '\0';
+    StringRope* leaf = rope_from_buffer(buffer, len, true);
+    leaf->as.leaf.capacity = len + 1;
+    return leaf;
+}
+
 StringRope* rope_concat(StringRope* left, StringRope* right) {
     if (!left && !right) {
         return NULL;
@@ -220,23 +258,79 @@ StringRope* rope_concat(StringRope* left, StringRope* right) {
         return left;
     }
 
-    StringRope* node = (StringRope*)reallocate(NULL, 0, sizeof(StringRope));
-    size_t total_len = rope_child_length(left) + rope_child_length(right);
-    uint32_t depth = 1 + (rope_child_depth(left) > rope_child_depth(right)
-                              ? rope_child_depth(left)
-                              : rope_child_depth(right));
-    rope_init_common(node, ROPE_CONCAT, total_len, depth);
-    node->as.concat.left = left;
-    node->as.concat.right = right;
-    rope_retain(left);
-    rope_retain(right);
-    return node;
+    // Boehm-style short-leaf merging: small pieces on the growing edge are
+    // joined into one flat leaf, so prepend and append loops deepen the tree
+    // once per ORUS_ROPE_LEAF_CHUNK bytes instead of once per operation.
+    StringRope* node;
+    if (left->total_len + right->total_len <= ORUS_ROPE_LEAF_CHUNK) {
+        return rope_flat_pair(left, right);
+    } else if (left->kind == ROPE_CONCAT &&
+               left->as.concat.right->total_len + right->total_len <= ORUS_ROPE_LEAF_CHUNK) {
+        StringRope* merged = rope_flat_pair(left->as.concat.right, right);
+        node = rope_concat_node(left->as.concat.left, merged);
+        rope_release(merged);
+    } else if (right->kind == ROPE_CONCAT &&
+               left->total_len + right->as.concat.left->total_len <= ORUS_ROPE_LEAF_CHUNK) {
+        StringRope* merged = rope_flat_pair(left, right->as.concat.left);
+        node = rope_concat_node(merged, right->as.concat.right);
+        rope_release(merged);
+    } else {
+        node = rope_concat_node(left, right);
+    }
+
+    if (rope_is_balanced(node)) {
+        return node;
+    }
+    StringRope* balanced = rope_rebalance(node);
+    rope_release(node);
+    return balanced;
 }
 
 static size_t rope_length_internal(const StringRope* rope) {
     return rope ? rope->total_len : 0;
 }
 
+StringRope* rope_substring(StringRope* base, size_t start, size_t len) {
+    if (!base || start > base->total_len || len > base->total_len - start) {
+        return NULL;
+    }
+
+    // Descend to the smallest node covering the range so views of views and
+    // slices of one side of a concatenation do not stack up.
+    for (;;) {
+        if (start == 0 && len == base->total_len && !rope_is_append_buffer(base)) {
+            rope_retain(base);
+            return base;
+        }
+        if (base->kind == ROPE_SUBSTRING) {
+            start += base->as.substring.start;
+            base = base->as.substring.base;
+            continue;
+        }
+        if (base->kind == ROPE_CONCAT) {
+            size_t left_len = rope_length_internal(base->as.concat.left);
+            if (start + len <= left_len) {
+                base = base->as.concat.left;
+                continue;
+            }
+            if (start >= left_len) {
+                start -= left_len;
+                base = base->as.concat.right;
+                continue;
+            }
+        }
+        break;
+    }
+
+    StringRope* node = (StringRope*)reallocate(NULL, 0, sizeof(StringRope));
+    rope_init_common(node, ROPE_SUBSTRING, len, base->depth + 1);
+    node->as.substring.base = base;
+    node->as.substring.start = start;
+    node->as.substring.len = len;
+    rope_retain(base);
+    return node;
+}
+
 size_t rope_length(const StringRope* rope) { return rope_length_internal(rope); }
 
 static bool rope_char_at_internal(const StringRope* rope, size_t index, char* out) {
@@ -273,17 +367,20 @@ bool rope_char_at(const StringRope* rope, size_t index, char* out) {
 }
 
 ObjString* string_char_at(ObjString* string, size_t index) {
-    if (!string || !string->rope) {
+    if (!string || index >= (size_t)string->length) {
         return NULL;
     }
     char ch;
-    if (!rope_char_at_internal(string->rope, index, &ch)) {
+    if (string->chars) {
+        ch = string->chars[index];
+    } else if (!rope_char_at_internal(string->rope, index, &ch)) {
         return NULL;
     }
-    char buffer[2];
-    buffer[0] = ch;
-    buffer[1] = '\0';
-    return allocateString(buffer, 1);
+    // Single ASCII characters are shared through the intern table.
+    if ((unsigned char)ch < 0x80) {
+        return intern_string(&ch, 1);
+    }
+    return allocateString(&ch, 1);
 }
 
 static char* rope_copy_range(const StringRope* rope, size_t start, size_t len, char* dest);
@@ -356,6 +453,140 @@ char* rope_to_cstr(StringRope* rope) {
     return buffer;
 }
 
+static void rope_push_node(StringRope*** items, size_t* count, size_t* capacity, StringRope* node) {
+    if (*count == *capacity) {
+        size_t old_capacity = *capacity;
+        *capacity = old_capacity < 16 ? 16 : old_capacity * 2;
+        *items = (StringRope**)reallocate(*items, old_capacity * sizeof(StringRope*),
+                                          *capacity * sizeof(StringRope*));
+    }
+    (*items)[(*count)++] = node;
+}
+
+static StringRope* rope_build_balanced(StringRope** items, size_t count) {
+    if (count == 1) {
+        rope_retain(items[0]);
+        return items[0];
+    }
+    size_t mid = count / 2;
+    StringRope* left = rope_build_balanced(items, mid);
+    StringRope* right = rope_build_balanced(items + mid, count - mid);
+    StringRope* node = rope_concat_node(left, right);
+    rope_release(left);
+    rope_release(right);
+    return node;
+}
+
+StringRope* rope_rebalance(StringRope* rope) {
+    if (!rope || rope->kind != ROPE_CONCAT) {
+        rope_retain(rope);
+        return rope;
+    }
+
+    // Collect leaves and substring views in order.
+    size_t leaf_count = 0;
+    size_t leaf_capacity = 0;
+    StringRope** leaves = NULL;
+    size_t stack_count = 0;
+    size_t stack_capacity = 0;
+    StringRope** stack = NULL;
+    rope_push_node(&stack, &stack_count, &stack_capacity, rope);
+    while (stack_count > 0) {
+        StringRope* node = stack[--stack_count];
+        if (node->kind == ROPE_CONCAT) {
+            rope_push_node(&stack, &stack_count, &stack_capacity, node->as.concat.right);
+            rope_push_node(&stack, &stack_count, &stack_capacity, node->as.concat.left);
+        } else {
+            rope_push_node(&leaves, &leaf_count, &leaf_capacity, node);
+        }
+    }
+    reallocate(stack, stack_capacity * sizeof(StringRope*), 0);
+
+    // Runs of short pieces become one flat leaf so repeated small appends do
+    // not leave thousands of tiny nodes behind.
+    size_t piece_count = 0;
+    StringRope** pieces = leaves;
+    for (size_t i = 0; i < leaf_count;) {
+        size_t end = i;
+        size_t run_length = 0;
+        while (end < leaf_count && run_length + leaves[end]->total_len <= ORUS_ROPE_LEAF_CHUNK) {
+            run_length += leaves[end]->total_len;
+            end++;
+        }
+        if (end - i >= 2) {
+            char* buffer = (char*)reallocate(NULL, 0, run_length + 1);
+            char* cursor = buffer;
+            for (size_t j = i; j < end; j++) {
+                cursor = rope_copy_all(leaves[j], cursor);
+            }
+            *cursor = '\0';
+            StringRope* merged = rope_from_buffer(buffer, run_length, true);
+            merged->as.leaf.capacity = run_length + 1;
+            pieces[piece_count++] = merged;
+            i = end;
+        } else {
+            rope_retain(leaves[i]);
+            pieces[piece_count++] = leaves[i];
+            i++;
+        }
+    }
+
+    StringRope* balanced = rope_build_balanced(pieces, piece_count);
+    for (size_t i = 0; i < piece_count; i++) {
+        rope_release(pieces[i]);
+    }
+    reallocate(leaves, leaf_capacity * sizeof(StringRope*), 0);
+    return balanced;
+}
+
+const char* rope_flatten(StringRope* rope) {
+    if (!rope) {
+        return NULL;
+    }
+    if (rope->kind == ROPE_LEAF && rope->as.leaf.owns_data && !rope->as.leaf.appendable) {
+        return rope->as.leaf.data;
+    }
+
+    size_t len = rope->total_len;
+    char* buffer = (char*)reallocate(NULL, 0, len + 1);
+    char* end = rope_copy_all(rope, buffer);
+    *end = '\0';
+
+    // Drop whatever the node pointed at before turning it into a leaf.
+    switch (rope->kind) {
+        case ROPE_LEAF:
+            if (rope->as.leaf.owns_data) {
+                if (rope->as.leaf.capacity > 0) {
+                    reallocate(rope->as.leaf.data, rope->as.leaf.capacity, 0);
+                } else {
+                    free(rope->as.leaf.data);
+                }
+            }
+            break;
+        case ROPE_CONCAT: {
+            StringRope* left = rope->as.concat.left;
+            StringRope* right = rope->as.concat.right;
+            rope_release(left);
+            rope_release(right);
+            break;
+        }
+        case ROPE_SUBSTRING:
+            rope_release(rope->as.substring.base);
+            break;
+    }
+
+    rope->kind = ROPE_LEAF;
+    rope->depth = 1;
+    rope->as.leaf.data = buffer;
+    rope->as.leaf.len = len;
+    rope->as.leaf.capacity = len + 1;
+    rope->as.leaf.is_ascii = string_bytes_are_ascii(buffer, len);
+    rope->as.leaf.is_interned = false;
+    rope->as.leaf.owns_data = true;
+    rope->as.leaf.appendable = false;
+    return buffer;
+}
+
 ObjString* rope_index_to_string(StringRope* rope, size_t index) {
     char ch = '\0';
     if (!rope_char_at(rope, index, &ch)) {
@@ -382,79 +613,301 @@ const char* string_get_chars(ObjString* string) {
     }
 
     size_t len = rope_length(string->rope);
-    char* buffer = (char*)reallocate(NULL, 0, len + 1);
-    char* end = rope_copy_all(string->rope, buffer);
-    *end = '\0';
+    if (len >= ORUS_STRING_INLINE_CAPACITY) {
+        // Long strings borrow the flattened leaf; the rope keeps ownership.
+        string->chars = (char*)rope_flatten(string->rope);
+        string->length = (int)len;
+        return string->chars;
+    }
 
+    // Short contents move inline and the rope is dropped.
+    char* end = rope_copy_all(string->rope, string->inline_chars);
+    *end = '\0';
     StringRope* old_rope = string->rope;
-    string->chars = buffer;
+    string->chars = string->inline_chars;
     string->length = (int)len;
-    string->rope = rope_from_buffer(buffer, len, false);
+    string->rope = NULL;
     rope_release(old_rope);
 
     return string->chars;
 }
 
+uint32_t string_hash(ObjString* string) {
+    if (string->hash == 0) {
+        const char* chars = string_get_chars(string);
+        string->hash = string_hash_bytes(chars, (size_t)string->length);
+    }
+    return string->hash;
+}
+
+// Concatenation needs a rope for each operand. Inline contents die with the
+// object, so they get a leaf that owns a copy.
+static StringRope* string_ensure_rope(ObjString* string) {
+    if (!string->rope && string->chars) {
+        string->rope = string->chars == string->inline_chars
+                           ? rope_from_cstr(string->chars, (size_t)string->length)
+                           : rope_from_buffer(string->chars, (size_t)string->length, false);
+    }
+    return string->rope;
+}
+
+static void string_copy_bytes(ObjString* string, char* dest) {
+    if (string->chars) {
+        memcpy(dest, string->chars, (size_t)string->length);
+    } else {
+        rope_copy_all(string->rope, dest);
+    }
+}
+
+static StringRope* rope_append_view(StringRope* buffer) {
+    StringRope* view = (StringRope*)reallocate(NULL, 0, sizeof(StringRope));
+    rope_init_common(view, ROPE_SUBSTRING, buffer->as.leaf.len, 2);
+    view->as.substring.base = buffer;
+    view->as.substring.start = 0;
+    view->as.substring.len = buffer->as.leaf.len;
+    rope_retain(buffer);
+    return view;
+}
+
+// Amortized append for `s = s + x` loops. When the left rope is the newest
+// view of an append buffer with room to spare, the right operand is copied
+// into the buffer's tail: older views keep their own length, so they never
+// see the new bytes. Otherwise, when the left side already looks like the
+// product of appends, its contents move into a fresh buffer with 50%
+// headroom. Returns NULL when a plain concat node is the better choice.
+static StringRope* rope_try_append(StringRope* left_rope, ObjString* right, size_t total) {
+    if (!left_rope) {
+        return NULL;
+    }
+
+    bool is_view = left_rope->kind == ROPE_SUBSTRING && left_rope->as.substring.start == 0 &&
+                   rope_is_append_buffer(left_rope->as.substring.base);
+    if (is_view) {
+        StringRope* buffer = left_rope->as.substring.base;
+        if (left_rope->as.substring.len == buffer->as.leaf.len && total < buffer->as.leaf.capacity) {
+            string_copy_bytes(right, buffer->as.leaf.data + buffer->as.leaf.len);
+            buffer->as.leaf.len = total;
+            buffer->total_len = total;
+            buffer->as.leaf.data[total] = '\0';
+            return rope_append_view(buffer);
+        }
+    } else if (left_rope->kind != ROPE_CONCAT) {
+        return NULL;
+    }
+
+    size_t capacity = total + total / 2 + 1;
+    char* data = (char*)reallocate(NULL, 0, capacity);
+    char* end = rope_copy_all(left_rope, data);
+    string_copy_bytes(right, end);
+    data[total] = '\0';
+
+    StringRope* buffer = (StringRope*)reallocate(NULL, 0, sizeof(StringRope));
+    rope_init_leaf(buffer, total);
+    buffer->as.leaf.data = data;
+    buffer->as.leaf.len = total;
+    buffer->as.leaf.capacity = capacity;
+    buffer->as.leaf.is_ascii = false;
+    buffer->as.leaf.is_interned = false;
+    buffer->as.leaf.owns_data = true;
+    buffer->as.leaf.appendable = true;
+
+    StringRope* view = rope_append_view(buffer);
+    rope_release(buffer);
+    return view;
+}
+
+ObjString* string_slice(ObjString* string, size_t start, size_t length) {
+    if (!string || start > (size_t)string->length || length > (size_t)string->length - start) {
+        return NULL;
+    }
+    if (start == 0 && length == (size_t)string->length) {
+        return string;
+    }
+
+    // Short slices are cheaper to copy than to keep the parent alive for.
+    if (length < ORUS_STRING_INLINE_CAPACITY) {
+        char buffer[ORUS_STRING_INLINE_CAPACITY];
+        if (string->chars) {
+            memcpy(buffer, string->chars + start, length);
+        } else {
+            rope_copy_range(string->rope, start, length, buffer);
+        }
+        return allocateString(buffer, (int)length);
+    }
+
+    // Longer slices share the parent's bytes through a substring node. The
+    // node holds a reference on the parent's rope, which keeps the buffer
+    // alive after the parent object is collected.
+    StringRope* view = rope_substring(string_ensure_rope(string), start, length);
+    ObjString* result = allocateStringFromRope(view);
+    result->is_ascii = string->is_ascii;
+    return result;
+}
+
 ObjString* rope_concat_strings(ObjString* left, ObjString* right) {
     if (!left && !right) {
         return allocateString("", 0);
     }
 
-    StringRope* left_rope = left ? left->rope : NULL;
-    if (left && !left_rope && left->chars) {
-        left_rope = rope_from_buffer(left->chars, (size_t)left->length, false);
-        left->rope = left_rope;
+    // Results short enough to live inline are copied flat.
+    size_t total = (left ? (size_t)left->length : 0) + (right ? (size_t)right->length : 0);
+    if (total < ORUS_STRING_INLINE_CAPACITY) {
+        char buffer[ORUS_STRING_INLINE_CAPACITY];
+        size_t left_length = 0;
+        if (left && left->length > 0) {
+            left_length = (size_t)left->length;
+            memcpy(buffer, string_get_chars(left), left_length);
+        }
+        if (right && right->length > 0) {
+            memcpy(buffer + left_length, string_get_chars(right), (size_t)right->length);
+        }
+        return allocateString(buffer, (int)total);
     }
 
-    StringRope* right_rope = right ? right->rope : NULL;
-    if (right && !right_rope && right->chars) {
-        right_rope = rope_from_buffer(right->chars, (size_t)right->length, false);
-        right->rope = right_rope;
+    if (left && right && right->length > 0 && right->length <= ORUS_ROPE_APPEND_LIMIT) {
+        StringRope* appended = rope_try_append(left->rope, right, total);
+        if (appended) {
+            ObjString* result = allocateStringFromRope(appended);
+            result->is_ascii = left->is_ascii && right->is_ascii;
+            return result;
+        }
     }
 
+    StringRope* left_rope = left ? string_ensure_rope(left) : NULL;
+    StringRope* right_rope = right ? string_ensure_rope(right) : NULL;
+
     StringRope* combined = rope_concat(left_rope, right_rope);
     if (!combined) {
         return allocateString("", 0);
     }
 
-    return allocateStringFromRope(combined);
+    ObjString* result = allocateStringFromRope(combined);
+    result->is_ascii = (!left || left->is_ascii) && (!right || right->is_ascii);
+    return result;
 }
 
 StringInternTable globalStringTable;
 
+#define INTERN_TOMBSTONE ((ObjString*)(uintptr_t)1)
+#define INTERN_MIN_CAPACITY 64
+
 void init_string_table(StringInternTable* table) {
-    table->interned = hashmap_new();
-    table->threshold = 32;
+    table->entries = NULL;
+    table->capacity = 0;
     table->total_interned = 0;
+    table->tombstones = 0;
 }
 
-ObjString* intern_string(const char* chars, int length) {
-    size_t hash = 5381;
-    for (int i = 0; i < length; i++) {
-        hash = ((hash << 5) + hash) + (unsigned char)chars[i];
+// FNV-1a over the raw bytes.
+uint32_t string_hash_bytes(const char* chars, size_t length) {
+    uint32_t hash = 2166136261u;
+    for (size_t i = 0; i < length; i++) {
+        hash ^= (unsigned char)chars[i];
+        hash *= 16777619u;
+    }
+    return hash;
+}
+
+static ObjString** intern_find_slot(ObjString** entries, size_t capacity, const char* chars,
+                                    int length, uint32_t hash) {
+    size_t mask = capacity - 1;
+    ObjString** tombstone = NULL;
+    for (size_t index = hash & mask;; index = (index + 1) & mask) {
+        ObjString* entry = entries[index];
+        if (entry == NULL) {
+            return tombstone ? tombstone : &entries[index];
+        }
+        if (entry == INTERN_TOMBSTONE) {
+            if (!tombstone) {
+                tombstone = &entries[index];
+            }
+        } else if (entry->hash == hash && entry->length == length &&
+                   memcmp(entry->chars, chars, (size_t)length) == 0) {
+            return &entries[index];
+        }
     }
-    char keybuf[32];
-    snprintf(keybuf, sizeof(keybuf), "%zu", hash);
-    ObjString* existing = (ObjString*)hashmap_get(globalStringTable.interned, keybuf);
-    if (existing && existing->length == length && memcmp(existing->chars, chars, length) == 0) {
-        return existing;
+}
+
+// Rebuild the table at `capacity`, dropping tombstones. Table storage lives
+// outside the GC heap so resizing can never trigger a collection mid-insert.
+static void intern_resize(StringInternTable* table, size_t capacity) {
+    ObjString** entries = (ObjString**)calloc(capacity, sizeof(ObjString*));
+    if (!entries) exit(1);
+    for (size_t i = 0; i < table->capacity; i++) {
+        ObjString* entry = table->entries[i];
+        if (entry == NULL || entry == INTERN_TOMBSTONE) {
+            continue;
+        }
+        *intern_find_slot(entries, capacity, entry->chars, entry->length, entry->hash) = entry;
     }
+    free(table->entries);
+    table->entries = entries;
+    table->capacity = capacity;
+    table->tombstones = 0;
+}
+
+ObjString* intern_string(const char* chars, int length) {
+    StringInternTable* table = &globalStringTable;
+    uint32_t hash = string_hash_bytes(chars, (size_t)length);
+    if (table->capacity > 0) {
+        ObjString* existing = *intern_find_slot(table->entries, table->capacity, chars, length, hash);
+        if (existing && existing != INTERN_TOMBSTONE) {
+            // The table is weak; a hit may revive a string the collector has not reached.
+            gcShadeObject((Obj*)existing);
+            return existing;
+        }
+    }
+
+    // Allocation may collect and clear entries, so find the slot afterwards.
     ObjString* s = allocateString(chars, length);
-    s->rope->as.leaf.is_interned = true;
-    hashmap_set(globalStringTable.interned, keybuf, s);
-    globalStringTable.total_interned++;
+    s->hash = hash;
+
+    // Keep the load (live entries plus tombstones) at or below 3/4.
+    if ((table->total_interned + table->tombstones + 1) * 4 > table->capacity * 3) {
+        size_t capacity = table->capacity < INTERN_MIN_CAPACITY ? INTERN_MIN_CAPACITY : table->capacity;
+        while ((table->total_interned + 1) * 2 > capacity) {
+            capacity *= 2;
+        }
+        intern_resize(table, capacity);
+    }
+    ObjString** slot = intern_find_slot(table->entries, table->capacity, chars, length, hash);
+    if (*slot == INTERN_TOMBSTONE) {
+        table->tombstones--;
+    }
+    *slot = s;
+    table->total_interned++;
     return s;
 }
 
+void intern_sweep_table(bool (*is_live)(ObjString* string)) {
+    StringInternTable* table = &globalStringTable;
+    for (size_t i = 0; i < table->capacity; i++) {
+        ObjString* entry = table->entries[i];
+        if (entry == NULL || entry == INTERN_TOMBSTONE || is_live(entry)) {
+            continue;
+        }
+        table->entries[i] = INTERN_TOMBSTONE;
+        table->total_interned--;
+        table->tombstones++;
+    }
+
+    // Give memory back once most of the table has died.
+    if (table->capacity > INTERN_MIN_CAPACITY && table->total_interned * 8 < table->capacity) {
+        size_t capacity = table->capacity;
+        while (capacity > INTERN_MIN_CAPACITY && table->total_interned * 4 < capacity / 2) {
+            capacity /= 2;
+        }
+        intern_resize(table, capacity);
+    }
+}
 
 void free_rope(StringRope* rope) {
     rope_release(rope);
 }
 
 void free_string_table(StringInternTable* table) {
-    if (!table || !table->interned) return;
+    if (!table) return;
 
-    hashmap_free(table->interned);
-    table->interned = NULL;
-    table->total_interned = 0;
+    free(table->entries);
+    init_string_table(table);
 }
@@ -8,9 +8,14 @@
 #include "vm/vm_profiling.h"
 #include "vm/vm.h"
 #include "vm/vm_tiering.h"
+#include "vm/register_file.h"
+#include "vm/vm_superinstructions.h"
 #include "vm/jit_ir.h"
 #include "vm/jit_ir_debug.h"
 #include "vm/jit_translation.h"
+#include "vm/jit_compile_queue.h"
+#include "vm/jit_disk_cache.h"
+#include "vm/jit_debug.h"
 #include "internal/logging.h"
 #include <assert.h>
 #include <inttypes.h>
@@ -241,10 +246,31 @@ opcode_window_consider(uintptr_t start_address,
     }
 }
 
+static inline void
+opcode_pair_record(const OpcodeWindowSampler* sampler, uintptr_t start_address, uint8_t opcode) {
+    if (sampler->recent_count == 0) {
+        return;
+    }
+
+    uint8_t last = (uint8_t)(sampler->recent_count - 1);
+    uintptr_t previous_address = sampler->recent_addresses[last];
+    if (start_address <= previous_address ||
+        start_address - previous_address > VM_OPCODE_PAIR_MAX_DISTANCE) {
+        return;
+    }
+
+    uint32_t* count = &g_profiling.opcodePairCounts[((uint32_t)sampler->recent_opcodes[last] << 8) | opcode];
+    if (*count < UINT32_MAX) {
+        (*count)++;
+    }
+}
+
 void
 vm_profiling_record_opcode_window(const uint8_t* start_addr, uint8_t opcode) {
     OpcodeWindowSampler* sampler = &g_profiling.window_sampler;
 
+    opcode_pair_record(sampler, (uintptr_t)start_addr, opcode);
+
     if (sampler->recent_count < VM_MAX_FUSION_WINDOW) {
         sampler->recent_addresses[sampler->recent_count] = (uintptr_t)start_addr;
         sampler->recent_opcodes[sampler->recent_count] = opcode;
@@ -350,7 +376,11 @@ void orus_jit_translation_failure_log_record(
     if ((size_t)record->value_kind < ORUS_JIT_VALUE_KIND_COUNT) {
         log->value_kind_counts[record->value_kind]++;
 #ifndef NDEBUG
-        if (jit_failure_status_counts_toward_supported_alert(record->status)) {
+        // The method tier rejects every function outside its typed subset by
+        // design (loop_index == UINT16_MAX), so those rejections are expected
+        // and do not count as bailouts of a supported kind.
+        if (record->loop_index != UINT16_MAX &&
+            jit_failure_status_counts_toward_supported_alert(record->status)) {
             uint64_t supported_failures =
                 ++log->supported_kind_failures[record->value_kind];
             assert(supported_failures <
@@ -771,6 +801,10 @@ void dumpProfilingStats(void) {
     
     if (g_profiling.enabledFlags & PROFILE_REGISTER_USAGE) {
         printRegisterProfile();
+        if (vm.register_file.cache) {
+            printf("\n");
+            print_cache_stats(vm.register_file.cache, stdout);
+        }
     }
     
     if (g_profiling.enabledFlags & PROFILE_MEMORY_ACCESS) {
@@ -906,6 +940,38 @@ void printFunctionProfile(void) {
     }
 }
 
+// Writes the most frequent fall-through opcode pairs, hottest first.
+static void export_opcode_pairs(FILE* file) {
+    uint32_t top_keys[VM_OPCODE_PAIR_EXPORT_LIMIT];
+    uint32_t top_counts[VM_OPCODE_PAIR_EXPORT_LIMIT];
+    int top_count = 0;
+
+    for (uint32_t key = 0; key < 256u * 256u; ++key) {
+        uint32_t count = g_profiling.opcodePairCounts[key];
+        if (count == 0 ||
+            (top_count == VM_OPCODE_PAIR_EXPORT_LIMIT && count <= top_counts[top_count - 1])) {
+            continue;
+        }
+
+        int position = top_count < VM_OPCODE_PAIR_EXPORT_LIMIT ? top_count++ : top_count - 1;
+        while (position > 0 && top_counts[position - 1] < count) {
+            top_keys[position] = top_keys[position - 1];
+            top_counts[position] = top_counts[position - 1];
+            position--;
+        }
+        top_keys[position] = key;
+        top_counts[position] = count;
+    }
+
+    fprintf(file, "  \"opcodePairs\": [\n");
+    for (int i = 0; i < top_count; ++i) {
+        fprintf(file, "    {\"first\": %u, \"second\": %u, \"count\": %u}%s\n",
+                top_keys[i] >> 8, top_keys[i] & 0xFFu, top_counts[i],
+                i + 1 < top_count ? "," : "");
+    }
+    fprintf(file, "  ],\n");
+}
+
 void exportProfilingData(const char* filename) {
     if (!g_profiling.isActive) {
         printf("Profiling is not active - cannot export data\n");
@@ -940,6 +1006,8 @@ void exportProfilingData(const char* filename) {
     }
     fprintf(file, "\n  ],\n");
 
+    export_opcode_pairs(file);
+
     fprintf(file, "  \"opcodeFamilies\": [\n");
     bool firstFamily = true;
     for (size_t i = 0; i < ORUS_OPCODE_FAMILY_COUNT; ++i) {
@@ -1097,6 +1165,29 @@ void exportProfilingData(const char* filename) {
     fprintf(file, "    ]\n");
     fprintf(file, "  },\n");
 
+    RegisterCacheStats cacheStats = {0};
+    bool cacheEnabled = register_file_cache_stats(&vm.register_file, &cacheStats) &&
+                        vm.register_file.cache->caching_enabled;
+    fprintf(file,
+            "  \"registerCache\": {\"enabled\": %s, \"hits\": %llu, \"misses\": %llu, \"invalidations\": %llu},\n",
+            cacheEnabled ? "true" : "false",
+            (unsigned long long)cacheStats.hits,
+            (unsigned long long)cacheStats.misses,
+            (unsigned long long)cacheStats.invalidations);
+
+    fprintf(file, "  \"quickening\": {\"quickened\": %llu, \"dequickened\": %llu},\n",
+            (unsigned long long)vm.quickened_sites,
+            (unsigned long long)vm.dequickened_sites);
+
+    fprintf(file,
+            "  \"inlineCaches\": {\"callHits\": %llu, \"callMisses\": %llu, "
+            "\"megamorphicCallSites\": %llu, \"enumHits\": %llu, \"enumMisses\": %llu},\n",
+            (unsigned long long)vm.call_cache_hits,
+            (unsigned long long)vm.call_cache_misses,
+            (unsigned long long)vm.call_cache_megamorphic,
+            (unsigned long long)vm.enum_cache_hits,
+            (unsigned long long)vm.enum_cache_misses);
+
     fprintf(file, "  \"specializations\": [\n");
     bool firstSpecialization = true;
     if (vm.functionCount > 0) {
@@ -2572,7 +2663,11 @@ OrusJitTranslationResult orus_jit_translate_linear_block(
 
     while (offset < (size_t)chunk->count) {
         GC_SAFEPOINT(vm_state);
-        uint8_t opcode = chunk->code[offset];
+        // Superinstructions translate as their first instruction; the
+        // second keeps its own opcode byte and is picked up next. Quickened
+        // opcodes translate as the generic instruction they replaced.
+        uint8_t opcode = vm_quickened_base_opcode(
+            vm_superinstruction_base_opcode(chunk->code[offset]));
         switch (opcode) {
             case OP_RETURN_VOID: {
                 OrusJitIRInstruction* inst = orus_jit_ir_program_append(program);
@@ -2706,6 +2801,7 @@ OrusJitTranslationResult orus_jit_translate_linear_block(
                 inst->opcode = ORUS_JIT_IR_OP_JUMP_BACK_SHORT;
                 inst->bytecode_offset = (uint32_t)offset;
                 inst->operands.jump_back_short.back_offset = back;
+                inst->operands.jump_back_short.bytecode_length = 2u;
                 offset += 2u;
                 if (++instructions_since_safepoint >= safepoint_interval) {
                     INSERT_SAFEPOINT((uint32_t)offset);
@@ -5304,11 +5400,586 @@ translation_done:
 #undef ORUS_JIT_SET_KIND_SELECTOR
 #undef ORUS_JIT_ENSURE_ROLLOUT
 
+    // Loops whose registers all stay typed get OSR entry and exit metadata;
+    // the rest keep relying on the emitted guards.
+    orus_jit_ir_program_build_osr_map(program);
+
     return make_translation_result(ORUS_JIT_TRANSLATE_STATUS_OK,
                                    ORUS_JIT_IR_OP_RETURN, ORUS_JIT_VALUE_I32,
                                    (uint32_t)offset);
 }
 
+static bool
+orus_jit_method_register_ok(uint16_t reg) {
+    return reg >= FRAME_REG_START && reg < TYPED_REGISTER_WINDOW_SIZE;
+}
+
+static bool
+orus_jit_method_forward_target_ok(const Chunk* chunk, size_t end, size_t jump) {
+    return end + jump < (size_t)chunk->count;
+}
+
+// Lowers a whole function body into a method program. Only the typed,
+// forward-branching subset is accepted: backward branches stay with the
+// loop tier, and anything touching globals, upvalues or the heap is left
+// to the interpreter. Calls and returns go through runtime helpers so the
+// frame layout stays exactly what OP_CALL_R/OP_RETURN_R build.
+OrusJitTranslationResult orus_jit_translate_function(
+    VMState* vm_state,
+    Function* function,
+    FunctionId func,
+    OrusJitIRProgram* program) {
+    (void)vm_state;
+    OrusJitTranslationResult result = make_translation_result(
+        ORUS_JIT_TRANSLATE_STATUS_INVALID_INPUT, ORUS_JIT_IR_OP_RETURN,
+        ORUS_JIT_VALUE_I32, 0u);
+
+    if (!function || !program || !function->chunk) {
+        return result;
+    }
+
+    const Chunk* chunk = function->chunk;
+    if (!chunk->code || chunk->count <= 0 ||
+        function->start < 0 || function->start >= chunk->count) {
+        return result;
+    }
+
+    program->source_chunk = (const struct Chunk*)chunk;
+    program->function_index = func;
+    program->loop_index = UINT16_MAX;
+    program->loop_start_offset = (uint32_t)function->start;
+    program->loop_end_offset = (uint32_t)chunk->count;
+    program->whole_function = true;
+
+#define ORUS_JIT_METHOD_FAIL(status, ir_opcode, kind)                              \
+    return make_translation_result((status), (ir_opcode), (kind),                \
+                                   (uint32_t)offset)
+#define ORUS_JIT_METHOD_APPEND(inst, ir_opcode, kind)                              \
+    OrusJitIRInstruction* inst = orus_jit_ir_program_append(program);              \
+    if (!inst) {                                                                   \
+        ORUS_JIT_METHOD_FAIL(ORUS_JIT_TRANSLATE_STATUS_OUT_OF_MEMORY, (ir_opcode), \
+                             (kind));                                              \
+    }                                                                              \
+    inst->opcode = (ir_opcode);                                                    \
+    inst->value_kind = (kind);                                                     \
+    inst->bytecode_offset = (uint32_t)offset
+#define ORUS_JIT_METHOD_REQUIRE(cond, ir_opcode, kind)                             \
+    do {                                                                           \
+        if (!(cond)) {                                                             \
+            ORUS_JIT_METHOD_FAIL(ORUS_JIT_TRANSLATE_STATUS_UNHANDLED_OPCODE,       \
+                                 (ir_opcode), (kind));                             \
+        }                                                                          \
+    } while (0)
+
+    size_t offset = (size_t)function->start;
+    bool saw_return = false;
+    while (offset < (size_t)chunk->count) {
+        const uint8_t* code = chunk->code + offset;
+        size_t remaining = (size_t)chunk->count - offset;
+        uint8_t opcode = vm_quickened_base_opcode(
+            vm_superinstruction_base_opcode(code[0]));
+
+        switch (opcode) {
+            case OP_LOAD_I32_CONST:
+            case OP_LOAD_I64_CONST: {
+                bool is_i64 = opcode == OP_LOAD_I64_CONST;
+                OrusJitIROpcode ir_opcode = is_i64 ? ORUS_JIT_IR_OP_LOAD_I64_CONST
+                                                   : ORUS_JIT_IR_OP_LOAD_I32_CONST;
+                OrusJitValueKind kind =
+                    is_i64 ? ORUS_JIT_VALUE_I64 : ORUS_JIT_VALUE_I32;
+                ORUS_JIT_METHOD_REQUIRE(remaining >= 4u, ir_opcode, kind);
+                uint16_t dst = code[1];
+                uint16_t constant_index = read_be_u16(&code[2]);
+                ORUS_JIT_METHOD_REQUIRE(orus_jit_method_register_ok(dst) &&
+                                            constant_index < chunk->constants.count,
+                                        ir_opcode, kind);
+                Value constant = chunk->constants.values[constant_index];
+                ORUS_JIT_METHOD_REQUIRE(is_i64 ? IS_I64(constant) : IS_I32(constant),
+                                        ir_opcode, kind);
+                ORUS_JIT_METHOD_APPEND(inst, ir_opcode, kind);
+                inst->operands.load_const.dst_reg = dst;
+                inst->operands.load_const.constant_index = constant_index;
+                inst->operands.load_const.immediate_bits =
+                    is_i64 ? (uint64_t)AS_I64(constant)
+                           : (uint64_t)(uint32_t)AS_I32(constant);
+                offset += 4u;
+                break;
+            }
+            case OP_LOAD_TRUE:
+            case OP_LOAD_FALSE: {
+                ORUS_JIT_METHOD_REQUIRE(remaining >= 2u &&
+                                            orus_jit_method_register_ok(code[1]),
+                                        ORUS_JIT_IR_OP_LOAD_BOOL_CONST,
+                                        ORUS_JIT_VALUE_BOOL);
+                ORUS_JIT_METHOD_APPEND(inst, ORUS_JIT_IR_OP_LOAD_BOOL_CONST,
+                                       ORUS_JIT_VALUE_BOOL);
+                inst->operands.load_const.dst_reg = code[1];
+                inst->operands.load_const.constant_index = UINT16_MAX;
+                inst->operands.load_const.immediate_bits =
+                    opcode == OP_LOAD_TRUE ? 1u : 0u;
+                offset += 2u;
+                break;
+            }
+            case OP_MOVE:
+            case OP_MOVE_I32:
+            case OP_MOVE_I64: {
+                OrusJitIROpcode ir_opcode = ORUS_JIT_IR_OP_MOVE_VALUE;
+                OrusJitValueKind kind = ORUS_JIT_VALUE_BOXED;
+                if (opcode == OP_MOVE_I32) {
+                    ir_opcode = ORUS_JIT_IR_OP_MOVE_I32;
+                    kind = ORUS_JIT_VALUE_I32;
+                } else if (opcode == OP_MOVE_I64) {
+                    ir_opcode = ORUS_JIT_IR_OP_MOVE_I64;
+                    kind = ORUS_JIT_VALUE_I64;
+                }
+                ORUS_JIT_METHOD_REQUIRE(remaining >= 3u &&
+                                            orus_jit_method_register_ok(code[1]) &&
+                                            orus_jit_method_register_ok(code[2]),
+                                        ir_opcode, kind);
+                ORUS_JIT_METHOD_APPEND(inst, ir_opcode, kind);
+                inst->operands.move.dst_reg = code[1];
+                inst->operands.move.src_reg = code[2];
+                offset += 3u;
+                break;
+            }
+            case OP_ADD_I32_TYPED:
+            case OP_SUB_I32_TYPED:
+            case OP_MUL_I32_TYPED:
+            case OP_ADD_I64_TYPED:
+            case OP_SUB_I64_TYPED:
+            case OP_MUL_I64_TYPED:
+            case OP_LT_I32_TYPED:
+            case OP_LE_I32_TYPED:
+            case OP_GT_I32_TYPED:
+            case OP_GE_I32_TYPED:
+            case OP_LT_I64_TYPED:
+            case OP_LE_I64_TYPED:
+            case OP_GT_I64_TYPED:
+            case OP_GE_I64_TYPED: {
+                OrusJitIROpcode ir_opcode;
+                OrusJitValueKind kind;
+                switch (opcode) {
+                    case OP_ADD_I32_TYPED: ir_opcode = ORUS_JIT_IR_OP_ADD_I32; kind = ORUS_JIT_VALUE_I32; break;
+                    case OP_SUB_I32_TYPED: ir_opcode = ORUS_JIT_IR_OP_SUB_I32; kind = ORUS_JIT_VALUE_I32; break;
+                    case OP_MUL_I32_TYPED: ir_opcode = ORUS_JIT_IR_OP_MUL_I32; kind = ORUS_JIT_VALUE_I32; break;
+                    case OP_ADD_I64_TYPED: ir_opcode = ORUS_JIT_IR_OP_ADD_I64; kind = ORUS_JIT_VALUE_I64; break;
+                    case OP_SUB_I64_TYPED: ir_opcode = ORUS_JIT_IR_OP_SUB_I64; kind = ORUS_JIT_VALUE_I64; break;
+                    case OP_MUL_I64_TYPED: ir_opcode = ORUS_JIT_IR_OP_MUL_I64; kind = ORUS_JIT_VALUE_I64; break;
+                    case OP_LT_I32_TYPED: ir_opcode = ORUS_JIT_IR_OP_LT_I32; kind = ORUS_JIT_VALUE_BOOL; break;
+                    case OP_LE_I32_TYPED: ir_opcode = ORUS_JIT_IR_OP_LE_I32; kind = ORUS_JIT_VALUE_BOOL; break;
+                    case OP_GT_I32_TYPED: ir_opcode = ORUS_JIT_IR_OP_GT_I32; kind = ORUS_JIT_VALUE_BOOL; break;
+                    case OP_GE_I32_TYPED: ir_opcode = ORUS_JIT_IR_OP_GE_I32; kind = ORUS_JIT_VALUE_BOOL; break;
+                    case OP_LT_I64_TYPED: ir_opcode = ORUS_JIT_IR_OP_LT_I64; kind = ORUS_JIT_VALUE_BOOL; break;
+                    case OP_LE_I64_TYPED: ir_opcode = ORUS_JIT_IR_OP_LE_I64; kind = ORUS_JIT_VALUE_BOOL; break;
+                    case OP_GT_I64_TYPED: ir_opcode = ORUS_JIT_IR_OP_GT_I64; kind = ORUS_JIT_VALUE_BOOL; break;
+                    default: ir_opcode = ORUS_JIT_IR_OP_GE_I64; kind = ORUS_JIT_VALUE_BOOL; break;
+                }
+                ORUS_JIT_METHOD_REQUIRE(remaining >= 4u &&
+                                            orus_jit_method_register_ok(code[1]) &&
+                                            orus_jit_method_register_ok(code[2]) &&
+                                            orus_jit_method_register_ok(code[3]),
+                                        ir_opcode, kind);
+                ORUS_JIT_METHOD_APPEND(inst, ir_opcode, kind);
+                inst->operands.arithmetic.dst_reg = code[1];
+                inst->operands.arithmetic.lhs_reg = code[2];
+                inst->operands.arithmetic.rhs_reg = code[3];
+                offset += 4u;
+                break;
+            }
+            case OP_JUMP_SHORT:
+            case OP_JUMP: {
+                bool is_short = opcode == OP_JUMP_SHORT;
+                size_t length = is_short ? 2u : 3u;
+                ORUS_JIT_METHOD_REQUIRE(remaining >= length,
+                                        ORUS_JIT_IR_OP_JUMP_SHORT,
+                                        ORUS_JIT_VALUE_I32);
+                uint16_t jump = is_short ? code[1] : read_be_u16(&code[1]);
+                ORUS_JIT_METHOD_REQUIRE(
+                    (is_short || jump < 0x8000u) &&
+                        orus_jit_method_forward_target_ok(chunk, offset + length,
+                                                          jump),
+                    ORUS_JIT_IR_OP_JUMP_SHORT, ORUS_JIT_VALUE_I32);
+                ORUS_JIT_METHOD_APPEND(inst, ORUS_JIT_IR_OP_JUMP_SHORT,
+                                       ORUS_JIT_VALUE_I32);
+                inst->operands.jump_short.offset = jump;
+                inst->operands.jump_short.bytecode_length = (uint16_t)length;
+                offset += length;
+                break;
+            }
+            case OP_JUMP_IF_NOT_SHORT:
+            case OP_JUMP_IF_NOT_R: {
+                bool is_short = opcode == OP_JUMP_IF_NOT_SHORT;
+                size_t length = is_short ? 3u : 4u;
+                ORUS_JIT_METHOD_REQUIRE(remaining >= length,
+                                        ORUS_JIT_IR_OP_JUMP_IF_NOT_SHORT,
+                                        ORUS_JIT_VALUE_BOOL);
+                uint16_t predicate = code[1];
+                uint16_t jump = is_short ? code[2] : read_be_u16(&code[2]);
+                ORUS_JIT_METHOD_REQUIRE(
+                    orus_jit_method_register_ok(predicate) &&
+                        (is_short || jump < 0x8000u) &&
+                        orus_jit_method_forward_target_ok(chunk, offset + length,
+                                                          jump),
+                    ORUS_JIT_IR_OP_JUMP_IF_NOT_SHORT, ORUS_JIT_VALUE_BOOL);
+                ORUS_JIT_METHOD_APPEND(inst, ORUS_JIT_IR_OP_JUMP_IF_NOT_SHORT,
+                                       ORUS_JIT_VALUE_BOOL);
+                inst->operands.jump_if_not_short.predicate_reg = predicate;
+                inst->operands.jump_if_not_short.offset = jump;
+                inst->operands.jump_if_not_short.bytecode_length =
+                    (uint16_t)length;
+                offset += length;
+                break;
+            }
+            case OP_CALL_R: {
+                ORUS_JIT_METHOD_REQUIRE(remaining >= 5u,
+                                        ORUS_JIT_IR_OP_CALL_FUNCTION,
+                                        ORUS_JIT_VALUE_BOXED);
+                uint16_t arg_count = code[3];
+                ORUS_JIT_METHOD_REQUIRE(
+                    orus_jit_method_register_ok(code[4]) &&
+                        (arg_count == 0u ||
+                         (orus_jit_method_register_ok(code[2]) &&
+                          (size_t)code[2] + arg_count <=
+                              TYPED_REGISTER_WINDOW_SIZE)),
+                    ORUS_JIT_IR_OP_CALL_FUNCTION, ORUS_JIT_VALUE_BOXED);
+                ORUS_JIT_METHOD_APPEND(inst, ORUS_JIT_IR_OP_CALL_FUNCTION,
+                                       ORUS_JIT_VALUE_BOXED);
+                inst->operands.call_function.dst_reg = code[4];
+                inst->operands.call_function.callee_reg = code[1];
+                inst->operands.call_function.first_arg_reg = code[2];
+                inst->operands.call_function.arg_count = arg_count;
+                inst->operands.call_function.bytecode_length = 5u;
+                offset += 5u;
+                break;
+            }
+            case OP_RETURN_R:
+            case OP_RETURN_VOID: {
+                bool has_value = opcode == OP_RETURN_R;
+                size_t length = has_value ? 2u : 1u;
+                ORUS_JIT_METHOD_REQUIRE(
+                    remaining >= length &&
+                        (!has_value || orus_jit_method_register_ok(code[1])),
+                    ORUS_JIT_IR_OP_RETURN_VALUE, ORUS_JIT_VALUE_BOXED);
+                ORUS_JIT_METHOD_APPEND(inst, ORUS_JIT_IR_OP_RETURN_VALUE,
+                                       ORUS_JIT_VALUE_BOXED);
+                inst->operands.return_value.value_reg =
+                    has_value ? code[1] : ORUS_JIT_IR_NO_RETURN_VALUE;
+                saw_return = true;
+                offset += length;
+                break;
+            }
+            default:
+                ORUS_JIT_METHOD_FAIL(ORUS_JIT_TRANSLATE_STATUS_UNHANDLED_OPCODE,
+                                     ORUS_JIT_IR_OP_RETURN, ORUS_JIT_VALUE_BOXED);
+        }
+    }
+
+#undef ORUS_JIT_METHOD_REQUIRE
+#undef ORUS_JIT_METHOD_APPEND
+#undef ORUS_JIT_METHOD_FAIL
+
+    if (!saw_return) {
+        return make_translation_result(ORUS_JIT_TRANSLATE_STATUS_INVALID_INPUT,
+                                       ORUS_JIT_IR_OP_RETURN_VALUE,
+                                       ORUS_JIT_VALUE_BOXED, (uint32_t)offset);
+    }
+
+    return make_translation_result(ORUS_JIT_TRANSLATE_STATUS_OK,
+                                   ORUS_JIT_IR_OP_RETURN_VALUE,
+                                   ORUS_JIT_VALUE_BOXED, (uint32_t)offset);
+}
+
+// Synchronous tier-ups run the result straight away. Background ones are
+// installed at a loop safepoint instead, so there is nothing to enter yet.
+static void
+vm_jit_tier_up_resume(VMState* vm_state, const JITEntry* entry, bool enter) {
+    if (enter) {
+        vm_jit_enter_entry(vm_state, entry);
+    }
+}
+
+// Arms the loop so its next back-edge tick takes the cached entry instead of
+// waiting out the post-install cooldown.
+static void
+vm_jit_prime_loop_entry(VMState* vm_state, const HotPathSample* sample) {
+    HotPathSample* record = &vm_state->profile[sample->loop];
+    record->func = sample->func;
+    record->loop = sample->loop;
+    record->cooldown_until_tick = 0;
+    record->hit_count = HOT_THRESHOLD - 1;
+    record->warmup_level =
+        ORUS_JIT_WARMUP_REQUIRED > 0 ? ORUS_JIT_WARMUP_REQUIRED - 1 : 0;
+}
+
+static void
+vm_jit_finish_tier_up(VMState* vm_state, const HotPathSample* sample,
+                      const OrusJitTranslationResult* translation,
+                      JITBackendStatus status, JITEntry* entry, bool enter) {
+    if (status == JIT_BACKEND_OK && entry->debug_name &&
+        strcmp(entry->debug_name, "orus_jit_helper_stub") == 0) {
+        vm_state->jit_loop_blocklist[sample->loop] = true;
+        vm_jit_record_tier_skip(vm_state, sample,
+                                ORUS_JIT_TIER_SKIP_REASON_BACKEND_UNSUPPORTED,
+                                translation->status, JIT_BACKEND_UNSUPPORTED,
+                                translation->bytecode_offset);
+        orus_jit_backend_release_entry(vm_state->jit_backend, entry);
+        vm_jit_tier_up_resume(vm_state, &vm_state->jit_entry_stub, enter);
+        return;
+    }
+
+    if (status == JIT_BACKEND_UNSUPPORTED) {
+        LOG_VM_DEBUG("JIT",
+                     "Skipping tier-up for func=%u loop=%u: backend"
+                     " unsupported (status=%d)",
+                     (unsigned)sample->func, (unsigned)sample->loop,
+                     (int)status);
+        vm_jit_record_tier_skip(vm_state, sample,
+                                ORUS_JIT_TIER_SKIP_REASON_BACKEND_UNSUPPORTED,
+                                translation->status, status,
+                                translation->bytecode_offset);
+        vm_state->jit_loop_blocklist[sample->loop] = true;
+        JITDeoptTrigger trigger = {
+            .function_index = sample->func,
+            .loop_index = sample->loop,
+            .generation = 0,
+        };
+        vm_jit_invalidate_entry(&trigger);
+        vm_jit_tier_up_resume(vm_state, &vm_state->jit_entry_stub, enter);
+        return;
+    }
+    if (status != JIT_BACKEND_OK) {
+        LOG_VM_DEBUG("JIT",
+                     "Skipping tier-up for func=%u loop=%u: backend failure"
+                     " (status=%d)",
+                     (unsigned)sample->func, (unsigned)sample->loop,
+                     (int)status);
+        vm_jit_record_tier_skip(vm_state, sample,
+                                ORUS_JIT_TIER_SKIP_REASON_BACKEND_FAILURE,
+                                translation->status, status,
+                                translation->bytecode_offset);
+        vm_jit_tier_up_resume(vm_state, &vm_state->jit_entry_stub, enter);
+        return;
+    }
+
+    uint64_t generation =
+        vm_jit_install_entry(sample->func, sample->loop, entry);
+    if (generation == 0) {
+        LOG_VM_DEBUG("JIT",
+                     "Skipping tier-up for func=%u loop=%u: failed to install"
+                     " cache entry",
+                     (unsigned)sample->func, (unsigned)sample->loop);
+        vm_jit_record_tier_skip(vm_state, sample,
+                                ORUS_JIT_TIER_SKIP_REASON_CACHE_INSTALL_FAILED,
+                                translation->status, status, 0u);
+        vm_jit_tier_up_resume(vm_state, &vm_state->jit_entry_stub, enter);
+        return;
+    }
+
+    /*
+     * Even if we had to fall back to a minimal stub because the translator
+     * failed, reaching this point means we successfully produced an entry and
+     * installed it in the cache. From the VM's perspective a tier-up
+     * compilation happened, so we must record it to avoid repeatedly
+     * re-queueing the same loop and to make the profiler counters match the
+     * observable behaviour expected by the tests.
+     */
+    vm_state->jit_compilation_count++;
+
+    JITEntry* cached = vm_jit_lookup_entry(sample->func, sample->loop);
+    if (cached && cached->entry_point) {
+        if (enter) {
+            vm_jit_enter_entry(vm_state, cached);
+        } else {
+            vm_jit_prime_loop_entry(vm_state, sample);
+        }
+        return;
+    }
+
+    LOG_VM_DEBUG("JIT",
+                 "Tier-up entry missing for func=%u loop=%u after install;"
+                 " falling back to stub",
+                 (unsigned)sample->func, (unsigned)sample->loop);
+    vm_jit_record_tier_skip(vm_state, sample,
+                            ORUS_JIT_TIER_SKIP_REASON_CACHE_LOOKUP_FAILED,
+                            translation->status, status, 0u);
+    vm_jit_tier_up_resume(vm_state, &vm_state->jit_entry_stub, enter);
+}
+
+// Hands the translated program to the compile thread, starting it on first
+// use. Returns false when the caller should compile synchronously instead.
+static bool
+vm_jit_submit_background_compile(VMState* vm_state, const HotPathSample* sample,
+                                 const OrusJitTranslationResult* translation,
+                                 OrusJitIRProgram* program) {
+    if (!vm_state->jit_background_compile) {
+        return false;
+    }
+    // Disassembly capture publishes into debug state owned by this thread.
+    if (orus_jit_debug_get_config().capture_disassembly) {
+        return false;
+    }
+    if (!orus_jit_compile_queue_running() &&
+        !orus_jit_compile_queue_start(vm_state->jit_backend)) {
+        vm_state->jit_background_compile = false;
+        return false;
+    }
+
+    OrusJitCompileJob job;
+    memset(&job, 0, sizeof(job));
+    job.function_index = sample->func;
+    job.loop_index = sample->loop;
+    job.epoch = vm_state->jit_compile_epoch;
+    job.translation = *translation;
+    job.program = *program;
+    if (!orus_jit_compile_queue_submit(&job)) {
+        return false;
+    }
+
+    orus_jit_ir_program_init(program);
+    vm_state->jit_compiles_in_flight++;
+    return true;
+}
+
+// Method counterpart of vm_jit_finish_tier_up. Nothing is entered here: the
+// next call of func picks the native entry up through jit_function_entries.
+static void
+vm_jit_finish_method_tier_up(VMState* vm_state, FunctionId func,
+                             const OrusJitTranslationResult* translation,
+                             JITBackendStatus status, JITEntry* entry) {
+    HotPathSample sample = {0};
+    sample.func = func;
+    sample.loop = UINT16_MAX;
+
+    if (status != JIT_BACKEND_OK || !entry->method_entry_point) {
+        LOG_VM_DEBUG("JIT",
+                     "Skipping method tier-up for func=%u: backend status=%d",
+                     (unsigned)func, (int)status);
+        if (status == JIT_BACKEND_OK && entry->code_ptr) {
+            orus_jit_backend_release_entry(vm_state->jit_backend, entry);
+        }
+        vm_state->jit_function_blocklist[func] = true;
+        vm_jit_record_tier_skip(
+            vm_state, &sample,
+            status == JIT_BACKEND_OK || status == JIT_BACKEND_UNSUPPORTED
+                ? ORUS_JIT_TIER_SKIP_REASON_BACKEND_UNSUPPORTED
+                : ORUS_JIT_TIER_SKIP_REASON_BACKEND_FAILURE,
+            translation->status, status, translation->bytecode_offset);
+        return;
+    }
+
+    if (vm_jit_install_entry(func, UINT16_MAX, entry) == 0) {
+        vm_state->jit_function_blocklist[func] = true;
+        vm_jit_record_tier_skip(vm_state, &sample,
+                                ORUS_JIT_TIER_SKIP_REASON_CACHE_INSTALL_FAILED,
+                                translation->status, status, 0u);
+        return;
+    }
+
+    vm_state->jit_compilation_count++;
+    JITEntry* cached = vm_jit_lookup_entry(func, UINT16_MAX);
+    vm_state->jit_function_entries[func] =
+        cached ? cached->method_entry_point : NULL;
+}
+
+void
+vm_jit_install_background_compiles(VMState* vm_state) {
+    if (!vm_state) {
+        return;
+    }
+
+    OrusJitCompileJob job;
+    while (vm_state->jit_compiles_in_flight > 0 &&
+           orus_jit_compile_queue_take_finished(&job)) {
+        vm_state->jit_compiles_in_flight--;
+        if (job.epoch != vm_state->jit_compile_epoch) {
+            // The cache was invalidated while this job was compiling.
+            if (job.entry.code_ptr) {
+                orus_jit_backend_release_entry(vm_state->jit_backend, &job.entry);
+            }
+            vm_state->jit_background_discards++;
+            continue;
+        }
+
+        vm_state->jit_background_installs++;
+        if (job.loop_index == UINT16_MAX) {
+            vm_jit_finish_method_tier_up(vm_state, job.function_index,
+                                         &job.translation, job.status,
+                                         &job.entry);
+            continue;
+        }
+
+        HotPathSample sample = {0};
+        sample.func = job.function_index;
+        sample.loop = job.loop_index;
+        vm_jit_finish_tier_up(vm_state, &sample, &job.translation, job.status,
+                              &job.entry, false);
+    }
+}
+
+// On-disk IR cache (vm.cachePath). Lookups happen where translation would,
+// on the interpreter thread, because the key reads the live typed window.
+static const Chunk*
+vm_jit_sample_chunk(VMState* vm_state, FunctionId func) {
+    if (func == UINT16_MAX) {
+        return vm_state->chunk;
+    }
+    if (func >= (FunctionId)vm_state->functionCount) {
+        return NULL;
+    }
+    return vm_select_function_chunk(&vm_state->functions[func]);
+}
+
+// Seeds are what orus_jit_translate_linear_block starts from, plus whether it
+// will specialise constants, so equal keys translate to equal programs.
+static void
+vm_jit_disk_cache_loop_key(VMState* vm_state, const Chunk* chunk,
+                           const HotPathSample* sample, OrusJitDiskCacheKey* key) {
+    uint8_t seeds[REGISTER_COUNT + 1u];
+    for (size_t i = 0; i < REGISTER_COUNT; ++i) {
+        seeds[i] = (uint8_t)ORUS_JIT_VALUE_BOXED;
+    }
+    orus_jit_seed_register_kinds_from_typed_window(vm_state, seeds);
+    seeds[REGISTER_COUNT] =
+        sample->hit_count >= ORUS_JIT_PROFILING_SPECIALIZATION_THRESHOLD ? 1u : 0u;
+    orus_jit_disk_cache_make_key(vm_state, chunk, sample->func, sample->loop, seeds,
+                                 sizeof(seeds), key);
+}
+
+void vm_jit_disk_cache_probe_loop(VMState* vm_state, HotPathSample* sample) {
+    sample->disk_cache_probed = true;
+    if (!vm_state->jit_enabled || !vm_state->jit_backend ||
+        vm_state->jit_loop_blocklist[sample->loop]) {
+        return;
+    }
+    const Chunk* chunk = vm_jit_sample_chunk(vm_state, sample->func);
+    if (!chunk) {
+        return;
+    }
+    OrusJitDiskCacheKey key;
+    orus_jit_disk_cache_make_key(vm_state, chunk, sample->func, sample->loop, NULL, 0u,
+                                 &key);
+    if (!orus_jit_disk_cache_contains(vm_state->cachePath, &key)) {
+        return;
+    }
+    // A previous run tiered this loop up: skip the warm-up, keeping a few
+    // interpreted iterations so the typed window settles on its kinds.
+    sample->hit_count = HOT_THRESHOLD - ORUS_JIT_DISK_CACHE_WARM_HITS - 1u;
+    sample->warmup_level = (uint8_t)(ORUS_JIT_WARMUP_REQUIRED - 1u);
+}
+
+void vm_jit_disk_cache_probe_function(VMState* vm_state, FunctionId func) {
+    if (!vm_state->jit_enabled || !vm_state->jit_backend ||
+        func >= (FunctionId)vm_state->functionCount) {
+        return;
+    }
+    OrusJitDiskCacheKey key;
+    orus_jit_disk_cache_make_key(vm_state, vm_state->functions[func].chunk, func,
+                                 UINT16_MAX, NULL, 0u, &key);
+    if (orus_jit_disk_cache_contains(vm_state->cachePath, &key)) {
+        vm_state->jit_function_hits[func] = HOT_FUNCTION_THRESHOLD - 1u;
+    }
+}
+
 void queue_tier_up(VMState* vm_state, const HotPathSample* sample) {
     if (!vm_state || !sample) {
         return;
@@ -5403,6 +6074,11 @@ void queue_tier_up(VMState* vm_state, const HotPathSample* sample) {
         return;
     }
 
+    if (vm_state->jit_compiles_in_flight > 0 &&
+        orus_jit_compile_queue_contains(sample->func, sample->loop)) {
+        return;
+    }
+
     vm_state->jit_cache_miss_count++;
 
     OrusJitIRProgram program;
@@ -5417,12 +6093,31 @@ void queue_tier_up(VMState* vm_state, const HotPathSample* sample) {
         .value_kind = ORUS_JIT_VALUE_I32,
         .bytecode_offset = 0u,
     };
-    if (function) {
+    OrusJitDiskCacheKey disk_key;
+    bool disk_cached = false;
+    if (function && vm_state->cachePath) {
+        vm_jit_disk_cache_loop_key(vm_state, active_chunk, sample, &disk_key);
+        disk_cached = orus_jit_disk_cache_load(vm_state->cachePath, &disk_key,
+                                               active_chunk, &program);
+        if (disk_cached) {
+            vm_state->jit_disk_cache_hits++;
+            translation.status = ORUS_JIT_TRANSLATE_STATUS_OK;
+            translated = true;
+        } else {
+            vm_state->jit_disk_cache_misses++;
+        }
+    }
+    if (function && !disk_cached) {
         translation = orus_jit_translate_linear_block(
             vm_state, function, active_chunk, sample, &program);
         translated = (translation.status == ORUS_JIT_TRANSLATE_STATUS_OK);
         unsupported = orus_jit_translation_status_is_unsupported(translation.status);
         attempted_translation = true;
+        if (translated && vm_state->cachePath &&
+            orus_jit_disk_cache_store(vm_state->cachePath, &disk_key, active_chunk,
+                                      &program)) {
+            vm_state->jit_disk_cache_stores++;
+        }
     }
 
     if (!translated) {
@@ -5495,6 +6190,11 @@ void queue_tier_up(VMState* vm_state, const HotPathSample* sample) {
         }
     }
 
+    if (vm_jit_submit_background_compile(vm_state, sample, &translation,
+                                         &program)) {
+        return;
+    }
+
     JITEntry entry;
     memset(&entry, 0, sizeof(entry));
 
@@ -5503,88 +6203,147 @@ void queue_tier_up(VMState* vm_state, const HotPathSample* sample) {
     if (program.instructions) {
         orus_jit_ir_program_reset(&program);
     }
-    if (status == JIT_BACKEND_OK && entry.debug_name &&
-        strcmp(entry.debug_name, "orus_jit_helper_stub") == 0) {
-        vm_state->jit_loop_blocklist[sample->loop] = true;
-        vm_jit_record_tier_skip(vm_state, sample,
-                                ORUS_JIT_TIER_SKIP_REASON_BACKEND_UNSUPPORTED,
-                                translation.status, JIT_BACKEND_UNSUPPORTED,
-                                translation.bytecode_offset);
-        orus_jit_backend_release_entry(vm_state->jit_backend, &entry);
-        vm_jit_enter_entry(vm_state, &vm_state->jit_entry_stub);
+    vm_jit_finish_tier_up(vm_state, sample, &translation, status, &entry, true);
+}
+
+void queue_method_tier_up(VMState* vm_state, FunctionId func) {
+    if (!vm_state || func >= UINT8_COUNT) {
         return;
     }
 
-    if (status == JIT_BACKEND_UNSUPPORTED) {
-        LOG_VM_DEBUG("JIT",
-                     "Skipping tier-up for func=%u loop=%u: backend"
-                     " unsupported (status=%d)",
-                     (unsigned)sample->func, (unsigned)sample->loop,
-                     (int)status);
-        vm_jit_record_tier_skip(vm_state, sample,
-                                ORUS_JIT_TIER_SKIP_REASON_BACKEND_UNSUPPORTED,
-                                translation.status, status,
-                                translation.bytecode_offset);
-        vm_state->jit_loop_blocklist[sample->loop] = true;
-        JITDeoptTrigger trigger = {
-            .function_index = sample->func,
-            .loop_index = sample->loop,
-            .generation = 0,
-        };
-        vm_jit_invalidate_entry(&trigger);
-        vm_jit_enter_entry(vm_state, &vm_state->jit_entry_stub);
+    vm_state->jit_function_hits[func] = 0;
+
+    HotPathSample sample = {0};
+    sample.func = func;
+    sample.loop = UINT16_MAX;
+
+    if (!vm_state->jit_enabled || !vm_state->jit_backend) {
+        vm_jit_record_tier_skip(vm_state, &sample,
+                                ORUS_JIT_TIER_SKIP_REASON_DISABLED,
+                                ORUS_JIT_TRANSLATE_STATUS_INVALID_INPUT,
+                                vm_state->jit_backend_status, 0u);
         return;
     }
-    if (status != JIT_BACKEND_OK) {
-        LOG_VM_DEBUG("JIT",
-                     "Skipping tier-up for func=%u loop=%u: backend failure"
-                     " (status=%d)",
-                     (unsigned)sample->func, (unsigned)sample->loop,
-                     (int)status);
-        vm_jit_record_tier_skip(vm_state, sample,
-                                ORUS_JIT_TIER_SKIP_REASON_BACKEND_FAILURE,
-                                translation.status, status,
-                                translation.bytecode_offset);
-        vm_jit_enter_entry(vm_state, &vm_state->jit_entry_stub);
+
+    if (func >= (FunctionId)vm_state->functionCount) {
+        vm_jit_record_tier_skip(vm_state, &sample,
+                                ORUS_JIT_TIER_SKIP_REASON_INVALID_FUNCTION,
+                                ORUS_JIT_TRANSLATE_STATUS_INVALID_INPUT,
+                                vm_state->jit_backend_status, 0u);
         return;
     }
 
-    uint64_t generation =
-        vm_jit_install_entry(sample->func, sample->loop, &entry);
-    if (generation == 0) {
+    JITEntry* cached = vm_jit_lookup_entry(func, UINT16_MAX);
+    if (cached && cached->method_entry_point) {
+        vm_state->jit_cache_hit_count++;
+        vm_state->jit_function_entries[func] = cached->method_entry_point;
+        return;
+    }
+
+    if (vm_state->jit_compiles_in_flight > 0 &&
+        orus_jit_compile_queue_contains(func, UINT16_MAX)) {
+        return;
+    }
+
+    vm_state->jit_cache_miss_count++;
+
+    OrusJitIRProgram program;
+    orus_jit_ir_program_init(&program);
+    OrusJitDiskCacheKey disk_key;
+    if (vm_state->cachePath) {
+        orus_jit_disk_cache_make_key(vm_state, vm_state->functions[func].chunk, func,
+                                     UINT16_MAX, NULL, 0u, &disk_key);
+    }
+    OrusJitTranslationResult translation = {
+        .status = ORUS_JIT_TRANSLATE_STATUS_OK,
+        .opcode = ORUS_JIT_IR_OP_RETURN,
+        .value_kind = ORUS_JIT_VALUE_I32,
+        .bytecode_offset = 0u,
+    };
+    if (vm_state->cachePath &&
+        orus_jit_disk_cache_load(vm_state->cachePath, &disk_key,
+                                 vm_state->functions[func].chunk, &program)) {
+        vm_state->jit_disk_cache_hits++;
+    } else {
+        if (vm_state->cachePath) {
+            vm_state->jit_disk_cache_misses++;
+        }
+        translation = orus_jit_translate_function(vm_state, &vm_state->functions[func],
+                                                  func, &program);
+        if (translation.status == ORUS_JIT_TRANSLATE_STATUS_OK && vm_state->cachePath &&
+            orus_jit_disk_cache_store(vm_state->cachePath, &disk_key,
+                                      vm_state->functions[func].chunk, &program)) {
+            vm_state->jit_disk_cache_stores++;
+        }
+    }
+    if (translation.status != ORUS_JIT_TRANSLATE_STATUS_OK) {
+        OrusJitTranslationFailureRecord failure_record = {
+            .status = translation.status,
+            .opcode = translation.opcode,
+            .value_kind = translation.value_kind,
+            .bytecode_offset = translation.bytecode_offset,
+            .function_index = func,
+            .loop_index = UINT16_MAX,
+        };
+        orus_jit_translation_failure_log_record(
+            &vm_state->jit_translation_failures, &failure_record);
+        if (program.instructions) {
+            orus_jit_ir_program_reset(&program);
+        }
         LOG_VM_DEBUG("JIT",
-                     "Skipping tier-up for func=%u loop=%u: failed to install"
-                     " cache entry",
-                     (unsigned)sample->func, (unsigned)sample->loop);
-        vm_jit_record_tier_skip(vm_state, sample,
-                                ORUS_JIT_TIER_SKIP_REASON_CACHE_INSTALL_FAILED,
-                                translation.status, status, 0u);
-        vm_jit_enter_entry(vm_state, &vm_state->jit_entry_stub);
+                     "Skipping method tier-up for func=%u: %s at bytecode %u",
+                     (unsigned)func,
+                     orus_jit_translation_status_name(translation.status),
+                     translation.bytecode_offset);
+        vm_state->jit_function_blocklist[func] = true;
+        vm_jit_record_tier_skip(vm_state, &sample,
+                                ORUS_JIT_TIER_SKIP_REASON_TRANSLATION_UNSUPPORTED,
+                                translation.status,
+                                vm_state->jit_backend_status,
+                                translation.bytecode_offset);
         return;
     }
 
-    /*
-     * Even if we had to fall back to a minimal stub because the translator
-     * failed, reaching this point means we successfully produced an entry and
-     * installed it in the cache. From the VM's perspective a tier-up
-     * compilation happened, so we must record it to avoid repeatedly
-     * re-queueing the same loop and to make the profiler counters match the
-     * observable behaviour expected by the tests.
-     */
-    vm_state->jit_compilation_count++;
+    vm_state->jit_translation_success_count++;
+    if (orus_jit_trace_ir_enabled()) {
+        orus_jit_ir_dump_program(&program, stderr);
+    }
 
-    cached = vm_jit_lookup_entry(sample->func, sample->loop);
-    if (cached && cached->entry_point) {
-        vm_jit_enter_entry(vm_state, cached);
+    if (vm_jit_submit_background_compile(vm_state, &sample, &translation,
+                                         &program)) {
         return;
     }
 
-    LOG_VM_DEBUG("JIT",
-                 "Tier-up entry missing for func=%u loop=%u after install;"
-                 " falling back to stub",
-                 (unsigned)sample->func, (unsigned)sample->loop);
-    vm_jit_record_tier_skip(vm_state, sample,
-                            ORUS_JIT_TIER_SKIP_REASON_CACHE_LOOKUP_FAILED,
-                            translation.status, status, 0u);
-    vm_jit_enter_entry(vm_state, &vm_state->jit_entry_stub);
+    JITEntry entry;
+    memset(&entry, 0, sizeof(entry));
+    JITBackendStatus status =
+        orus_jit_backend_compile_ir(vm_state->jit_backend, &program, &entry);
+    orus_jit_ir_program_reset(&program);
+    vm_jit_finish_method_tier_up(vm_state, func, &translation, status, &entry);
+}
+
+bool vm_jit_call_method(VMState* vm_state, FunctionId func) {
+    JITMethodEntryPoint entry =
+        func < UINT8_COUNT ? vm_state->jit_function_entries[func] : NULL;
+    if (!entry) {
+        // Compiling here while native callers are still on the stack could
+        // evict the cache slot one of them is running from.
+        if (vm_state->jit_method_depth == 0) {
+            vm_profile_function_hit(vm_state, func);
+        }
+        return false;
+    }
+
+    // Methods are compiled from the baseline chunk only.
+    if (vm_state->chunk != vm_state->functions[func].chunk ||
+        vm_state->jit_method_depth >= ORUS_JIT_MAX_METHOD_DEPTH) {
+        return false;
+    }
+
+    vm_state->jit_invocation_count++;
+    vm_state->jit_native_dispatch_count++;
+    vm_state->jit_method_depth++;
+    bool returned = entry(vm_state);
+    vm_state->jit_method_depth--;
+    return returned;
 }
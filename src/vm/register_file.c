@@ -18,18 +18,21 @@
 bool is_spilled_register(uint16_t id);
 bool is_module_register(uint16_t id);
 
-static void reset_frame_value_storage(CallFrame* frame) {
-    if (!frame) {
-        return;
-    }
+#define FULL_FRAME_WINDOW_SLOTS (FRAME_REGISTERS + TEMP_REGISTERS)
 
-    for (size_t i = 0; i < FRAME_REGISTERS; ++i) {
-        frame->registers[i] = BOOL_VAL(false);
+static inline void fill_default_values(Value* slots, size_t count) {
+    for (size_t i = 0; i < count; ++i) {
+        slots[i] = BOOL_VAL(false);
     }
+}
 
-    for (size_t i = 0; i < TEMP_REGISTERS; ++i) {
-        frame->temps[i] = BOOL_VAL(false);
+static void reset_frame_value_storage(CallFrame* frame) {
+    if (!frame || !frame->registers) {
+        return;
     }
+
+    fill_default_values(frame->registers, frame->register_capacity);
+    fill_default_values(frame->temps, frame->temp_capacity);
 }
 
 static void reset_frame_metadata(CallFrame* frame) {
@@ -39,6 +42,11 @@ static void reset_frame_metadata(CallFrame* frame) {
 
     frame->parent = NULL;
     frame->next = NULL;
+    frame->registers = NULL;
+    frame->temps = NULL;
+    frame->register_capacity = 0;
+    frame->temp_capacity = 0;
+    frame->stack_base = 0;
     frame->typed_window = NULL;
     frame->previous_typed_window = NULL;
     frame->typed_window_version = 0;
@@ -57,6 +65,100 @@ static void reset_frame_metadata(CallFrame* frame) {
     frame->functionIndex = UINT16_MAX;
 }
 
+// Register stack -------------------------------------------------------------
+// Every frame window is a slice of one contiguous Value array: registers first,
+// then temporaries. The topmost window always has room to widen to a full
+// window in place, so a slot the compiler did not account for never forces
+// the stack to move in the middle of an instruction.
+
+static void rebase_open_upvalues(uintptr_t old_start, uintptr_t old_end, Value* new_start) {
+    for (ObjUpvalue* upvalue = vm.openUpvalues; upvalue != NULL; upvalue = upvalue->next) {
+        uintptr_t location = (uintptr_t)upvalue->location;
+        if (location >= old_start && location < old_end) {
+            upvalue->location = new_start + (location - old_start) / sizeof(Value);
+        }
+    }
+}
+
+// closeUpvalues walks the open list by descending address; a moved stack can
+// reorder it relative to upvalues that live outside the stack.
+static void sort_open_upvalues(void) {
+    ObjUpvalue* sorted = NULL;
+    ObjUpvalue* upvalue = vm.openUpvalues;
+    while (upvalue) {
+        ObjUpvalue* next = upvalue->next;
+        ObjUpvalue** link = &sorted;
+        while (*link && (*link)->location > upvalue->location) {
+            link = &(*link)->next;
+        }
+        upvalue->next = *link;
+        *link = upvalue;
+        upvalue = next;
+    }
+    vm.openUpvalues = sorted;
+}
+
+static bool register_stack_reserve(RegisterFile* rf, uint32_t required) {
+    if (required <= rf->stack_capacity) {
+        return true;
+    }
+
+    uint32_t capacity = rf->stack_capacity ? rf->stack_capacity : VM_REGISTER_STACK_INITIAL_SLOTS;
+    while (capacity < required) {
+        capacity *= 2;
+    }
+
+    uintptr_t old_start = (uintptr_t)rf->stack;
+    uintptr_t old_end = old_start + (uintptr_t)rf->stack_capacity * sizeof(Value);
+    Value* stack = (Value*)realloc(rf->stack, (size_t)capacity * sizeof(Value));
+    if (!stack) {
+        return false;
+    }
+    fill_default_values(stack + rf->stack_capacity, capacity - rf->stack_capacity);
+    rf->stack = stack;
+    rf->stack_capacity = capacity;
+
+    if (old_start == 0 || (uintptr_t)stack == old_start) {
+        return true;
+    }
+    for (CallFrame* frame = rf->frame_stack; frame != NULL; frame = frame->next) {
+        frame->registers = stack + frame->stack_base;
+        frame->temps = frame->registers + frame->register_capacity;
+    }
+    if (rf->current_frame) {
+        rf->temps = rf->current_frame->temps;
+    }
+    rebase_open_upvalues(old_start, old_end, stack);
+    sort_open_upvalues();
+    return true;
+}
+
+// Slow path for an access past a compiler-sized window: widen the topmost
+// frame to the full window. Temporaries slide up past the new registers.
+__attribute__((noinline, cold)) static bool register_file_widen_frame(RegisterFile* rf, CallFrame* frame) {
+    if (!frame->registers ||
+        frame->stack_base + frame->register_capacity + frame->temp_capacity != rf->stack_top) {
+        return false;
+    }
+
+    Value* old_temps = frame->temps;
+    Value* temps = frame->registers + FRAME_REGISTERS;
+    memmove(temps, old_temps, (size_t)frame->temp_capacity * sizeof(Value));
+    fill_default_values(frame->registers + frame->register_capacity,
+                        (size_t)(FRAME_REGISTERS - frame->register_capacity));
+    fill_default_values(temps + frame->temp_capacity, (size_t)(TEMP_REGISTERS - frame->temp_capacity));
+    rebase_open_upvalues((uintptr_t)old_temps, (uintptr_t)(old_temps + frame->temp_capacity), temps);
+
+    if (rf->temps == old_temps) {
+        rf->temps = temps;
+    }
+    frame->temps = temps;
+    frame->register_capacity = FRAME_REGISTERS;
+    frame->temp_capacity = TEMP_REGISTERS;
+    rf->stack_top = frame->stack_base + FULL_FRAME_WINDOW_SLOTS;
+    return true;
+}
+
 static inline uint16_t typed_window_select_bit(uint64_t mask) {
     if (mask == 0) {
         // Gracefully handle empty bit masks to avoid triggering undefined
@@ -136,10 +238,12 @@ static void typed_window_copy_live_range(TypedRegisterWindow* dst, const TypedRe
         uint64_t range_mask = typed_window_mask_for_range(start, end, word);
         uint64_t live = src->live_mask[word] & range_mask;
         uint64_t dirty = (src->dirty_mask[word] & range_mask) & live;
+        // Slots that are dead on both sides carry no state worth copying, so
+        // the walk is bounded by live slots rather than by the range size.
+        uint64_t update_bits = (live | dst->live_mask[word] | dst->dirty_mask[word]) & range_mask;
         dst->live_mask[word] = (dst->live_mask[word] & ~range_mask) | live;
         dst->dirty_mask[word] = (dst->dirty_mask[word] & ~range_mask) | dirty;
 
-        uint64_t update_bits = range_mask;
         while (update_bits) {
             uint16_t bit = typed_window_select_bit(update_bits);
             uint16_t index = (uint16_t)(word * 64 + bit);
@@ -173,15 +277,33 @@ static void typed_window_initialize_storage(TypedRegisterWindow* window) {
     window->next = NULL;
 }
 
+// Only the bank matching the slot's type is meaningful while it is live.
 static void typed_window_copy_slot(TypedRegisterWindow* dst, const TypedRegisterWindow* src, uint16_t index) {
-    dst->i32_regs[index] = src->i32_regs[index];
-    dst->i64_regs[index] = src->i64_regs[index];
-    dst->u32_regs[index] = src->u32_regs[index];
-    dst->u64_regs[index] = src->u64_regs[index];
-    dst->f64_regs[index] = src->f64_regs[index];
-    dst->bool_regs[index] = src->bool_regs[index];
-    dst->reg_types[index] = src->reg_types[index];
-    if (src->reg_types[index] == REG_TYPE_HEAP && src->heap_regs) {
+    uint8_t reg_type = src->reg_types[index];
+    dst->reg_types[index] = reg_type;
+    switch (reg_type) {
+        case REG_TYPE_I32:
+            dst->i32_regs[index] = src->i32_regs[index];
+            break;
+        case REG_TYPE_I64:
+            dst->i64_regs[index] = src->i64_regs[index];
+            break;
+        case REG_TYPE_U32:
+            dst->u32_regs[index] = src->u32_regs[index];
+            break;
+        case REG_TYPE_U64:
+            dst->u64_regs[index] = src->u64_regs[index];
+            break;
+        case REG_TYPE_F64:
+            dst->f64_regs[index] = src->f64_regs[index];
+            break;
+        case REG_TYPE_BOOL:
+            dst->bool_regs[index] = src->bool_regs[index];
+            break;
+        default:
+            break;
+    }
+    if (reg_type == REG_TYPE_HEAP && src->heap_regs) {
         Value* dst_heap = typed_window_ensure_heap_storage(dst);
         if (dst_heap) {
             dst_heap[index] = src->heap_regs[index];
@@ -264,7 +386,8 @@ static void typed_registers_release_window(TypedRegisterWindow* window) {
         return;
     }
 
-    typed_window_reset_live_mask(window);
+    // Masks are reset when the window is handed out again; slot contents are
+    // never trusted without a live bit, so nothing else needs clearing here.
     window->next = vm.typed_regs.free_windows;
     vm.typed_regs.free_windows = window;
 }
@@ -296,6 +419,18 @@ void register_file_reset_active_frame_storage(void) {
     frame->temp_count = 0;
 }
 
+// Spill register ids are relative to the current frame's spill window; the
+// frameless top level owns the window that starts at SPILL_REG_START.
+uint16_t register_file_spill_base(const RegisterFile* rf) {
+    return rf->current_frame ? rf->current_frame->spill_base : SPILL_REG_START;
+}
+
+// Returns 0 when the window does not reach the requested slot.
+static inline uint16_t spill_window_register(const RegisterFile* rf, uint16_t id) {
+    uint32_t absolute = (uint32_t)register_file_spill_base(rf) + (uint32_t)(id - SPILL_REG_START);
+    return absolute <= UINT16_MAX ? (uint16_t)absolute : 0;
+}
+
 // Internal fast register access with branch prediction hints (used by cache)
 Value* get_register_internal(RegisterFile* rf, uint16_t id) {
     // Fast path: Global registers (0-63)
@@ -305,13 +440,22 @@ Value* get_register_internal(RegisterFile* rf, uint16_t id) {
 
     // Frame registers (64-191)
     if (__builtin_expect(id >= FRAME_REG_START && id < FRAME_REG_START + FRAME_REGISTERS, 1)) {
-        if (rf->current_frame) {
-            return &rf->current_frame->registers[id - FRAME_REG_START];
+        CallFrame* frame = rf->current_frame;
+        if (frame) {
+            uint16_t slot = (uint16_t)(id - FRAME_REG_START);
+            if (__builtin_expect(slot < frame->register_capacity, 1) ||
+                register_file_widen_frame(rf, frame)) {
+                return &frame->registers[slot];
+            }
+            return &vm.registers[id];
         }
 
-        // When no frame is active, fall back to the legacy register storage so we don't
-        // alias unrelated global slots. This keeps register 1:1 semantics intact during
-        // bootstrapping and host-driven execution.
+        // Frameless (top-level) code keeps its frame registers at the bottom of
+        // the register stack; the legacy array is only a mirror that callee
+        // frames write through, so it cannot hold live top-level state.
+        if (rf->stack) {
+            return &rf->stack[id - FRAME_REG_START];
+        }
         if (id < REGISTER_COUNT) {
             return &vm.registers[id];
         }
@@ -319,8 +463,14 @@ Value* get_register_internal(RegisterFile* rf, uint16_t id) {
 
     // Temp registers (192-239)
     if (id >= TEMP_REG_START && id < TEMP_REG_START + TEMP_REGISTERS) {
+        uint16_t slot = (uint16_t)(id - TEMP_REG_START);
+        CallFrame* frame = rf->current_frame;
+        if (frame && rf->temps == frame->temps && slot >= frame->temp_capacity &&
+            !register_file_widen_frame(rf, frame)) {
+            return &vm.registers[id];
+        }
         Value* temp_bank = rf->temps ? rf->temps : rf->temps_root;
-        return &temp_bank[id - TEMP_REG_START];
+        return &temp_bank[slot];
     }
 
     // Module registers (240-255)
@@ -341,9 +491,9 @@ Value* get_register_internal(RegisterFile* rf, uint16_t id) {
 
     // Spilled registers (256+)
     if (rf->spilled_registers && is_spilled_register(id)) {
-        static Value spilled_value;
-        if (unspill_register_value(rf->spilled_registers, id, &spilled_value)) {
-            return &spilled_value;
+        Value* slot = spill_register_slot(rf->spilled_registers, spill_window_register(rf, id));
+        if (slot) {
+            return slot;
         }
     }
 
@@ -351,13 +501,36 @@ Value* get_register_internal(RegisterFile* rf, uint16_t id) {
     return &vm.registers[id % REGISTER_COUNT];
 }
 
-// Cached register access function (public interface)
+// Resolve the backing slot of a module or spilled register. Module registers
+// without an owning module live in the legacy array, exactly as in
+// get_register_internal(); spilled registers that have not been stored yet
+// have no slot and return NULL.
+Value* register_file_resolve_indirect_slot(RegisterFile* rf, uint16_t id) {
+    if (id >= MODULE_REG_START && id < MODULE_REG_START + MODULE_REGISTERS) {
+        if (rf->module_manager && is_module_register(id)) {
+            uint8_t module_id = (id - MODULE_REG_START) / MODULE_REGISTERS;
+            uint16_t reg_offset = (id - MODULE_REG_START) % MODULE_REGISTERS;
+            Value* slot = get_module_register(rf->module_manager, module_id, reg_offset);
+            if (slot) {
+                return slot;
+            }
+        }
+        return &vm.registers[id];
+    }
+
+    if (rf->spilled_registers && is_spilled_register(id)) {
+        return spill_register_slot(rf->spilled_registers, spill_window_register(rf, id));
+    }
+    return NULL;
+}
+
+// Public register access. Global, frame and temp windows are directly indexed
+// and never consult the cache; it only fronts module and spilled registers.
 Value* get_register(RegisterFile* rf, uint16_t id) {
-    // Use cache if available, otherwise fall back to direct access
-    if (rf->cache) {
-        return cached_get_register(rf->cache, rf, id);
+    if (id < MODULE_REG_START || !rf->cache) {
+        return get_register_internal(rf, id);
     }
-    return get_register_internal(rf, id);
+    return cached_get_register(rf->cache, rf, id);
 }
 
 void set_register_internal(RegisterFile* rf, uint16_t id, Value value) {
@@ -372,16 +545,16 @@ void set_register_internal(RegisterFile* rf, uint16_t id, Value value) {
 
     // Frame registers (64-191)
     if (__builtin_expect(id >= FRAME_REG_START && id < FRAME_REG_START + FRAME_REGISTERS, 1)) {
-        if (rf->current_frame) {
-            uint16_t slot = (uint16_t)(id - FRAME_REG_START);
-            assert(slot < FRAME_REGISTERS);
-            rf->current_frame->registers[slot] = value;
+        CallFrame* frame = rf->current_frame;
+        uint16_t slot = (uint16_t)(id - FRAME_REG_START);
+        if (frame && (slot < frame->register_capacity || register_file_widen_frame(rf, frame))) {
+            frame->registers[slot] = value;
             uint16_t new_count = (uint16_t)(slot + 1);
-            if (new_count > rf->current_frame->register_count) {
-                rf->current_frame->register_count = new_count;
+            if (new_count > frame->register_count) {
+                frame->register_count = new_count;
             }
-        } else if (id < REGISTER_COUNT) {
-            vm.registers[id] = value;
+        } else if (!frame && rf->stack) {
+            rf->stack[id - FRAME_REG_START] = value;
         }
 
         if (id < REGISTER_COUNT) {
@@ -392,15 +565,19 @@ void set_register_internal(RegisterFile* rf, uint16_t id, Value value) {
 
     // Temp registers (192-239)
     if (id >= TEMP_REG_START && id < TEMP_REG_START + TEMP_REGISTERS) {
-        Value* temp_bank = rf->temps ? rf->temps : rf->temps_root;
         uint16_t slot = (uint16_t)(id - TEMP_REG_START);
-        assert(slot < TEMP_REGISTERS);
-        temp_bank[slot] = value;
-        if (rf->current_frame && rf->temps == rf->current_frame->temps) {
-            uint16_t new_count = (uint16_t)(slot + 1);
-            if (new_count > rf->current_frame->temp_count) {
-                rf->current_frame->temp_count = new_count;
+        CallFrame* frame = rf->current_frame;
+        if (frame && rf->temps == frame->temps) {
+            if (slot < frame->temp_capacity || register_file_widen_frame(rf, frame)) {
+                frame->temps[slot] = value;
+                uint16_t new_count = (uint16_t)(slot + 1);
+                if (new_count > frame->temp_count) {
+                    frame->temp_count = new_count;
+                }
             }
+        } else {
+            Value* temp_bank = rf->temps ? rf->temps : rf->temps_root;
+            temp_bank[slot] = value;
         }
         if (id < REGISTER_COUNT) {
             vm.registers[id] = value;
@@ -424,7 +601,13 @@ void set_register_internal(RegisterFile* rf, uint16_t id, Value value) {
     // Spilled registers (256+)
     if (rf->spilled_registers && is_spilled_register(id)) {
         SpillManager* spill_mgr = rf->spilled_registers;
-        set_spill_register_value(spill_mgr, id, value);
+        if (set_spill_register_value(spill_mgr, spill_window_register(rf, id), value) &&
+            rf->current_frame) {
+            uint16_t new_count = (uint16_t)(id - SPILL_REG_START + 1);
+            if (new_count > rf->current_frame->spill_count) {
+                rf->current_frame->spill_count = new_count;
+            }
+        }
         return;
     }
 
@@ -437,18 +620,17 @@ void set_register_internal(RegisterFile* rf, uint16_t id, Value value) {
     rf->globals[id % GLOBAL_REGISTERS] = value;
 }
 
-// Cached register set function (public interface)
+// Public register store; see get_register() for the cache split.
 void set_register(RegisterFile* rf, uint16_t id, Value value) {
-    // Use cache if available, otherwise fall back to direct access
-    if (rf->cache) {
-        cached_set_register(rf->cache, rf, id, value);
-    } else {
+    if (id < MODULE_REG_START || !rf->cache) {
         set_register_internal(rf, id, value);
+    } else {
+        cached_set_register(rf->cache, rf, id, value);
     }
 }
 
 // Call frame management
-CallFrame* allocate_frame(RegisterFile* rf) {
+CallFrame* allocate_frame_window(RegisterFile* rf, const FrameWindowLayout* layout) {
     if (!rf) {
         return NULL;
     }
@@ -457,8 +639,24 @@ CallFrame* allocate_frame(RegisterFile* rf) {
     if (!frame) {
         return NULL;
     }
+
+    uint32_t base = rf->stack_top;
+    if (!register_stack_reserve(rf, base + FULL_FRAME_WINDOW_SLOTS)) {
+        return NULL;
+    }
+
+    uint16_t register_capacity = FRAME_REGISTERS;
+    uint16_t temp_capacity = TEMP_REGISTERS;
+    if (layout && (layout->frame_registers > 0 || layout->temp_registers > 0)) {
+        register_capacity =
+            layout->frame_registers < FRAME_REGISTERS ? layout->frame_registers : FRAME_REGISTERS;
+        temp_capacity =
+            layout->temp_registers < TEMP_REGISTERS ? layout->temp_registers : TEMP_REGISTERS;
+    }
+
     rf->free_frames = frame->next;
     reset_frame_metadata(frame);
+    frame->spill_base = spill_manager_top(rf->spilled_registers);
 
     TypedRegisterWindow* parent_window =
         vm.typed_regs.active_window ? vm.typed_regs.active_window : &vm.typed_regs.root_window;
@@ -470,6 +668,12 @@ CallFrame* allocate_frame(RegisterFile* rf) {
     }
 
     frame->parent = rf->current_frame;
+    frame->stack_base = base;
+    frame->registers = rf->stack + base;
+    frame->temps = frame->registers + register_capacity;
+    frame->register_capacity = register_capacity;
+    frame->temp_capacity = temp_capacity;
+    rf->stack_top = base + register_capacity + temp_capacity;
 
     typed_window_reset_live_mask(new_window);
     typed_window_sync_shared_ranges(new_window, parent_window);
@@ -485,13 +689,196 @@ CallFrame* allocate_frame(RegisterFile* rf) {
 
     typed_registers_bind_window(new_window);
     vm.typed_regs.active_depth++;
-    clear_typed_window_frame(new_window);
 
     vm.frameCount++;
 
     return frame;
 }
 
+CallFrame* allocate_frame(RegisterFile* rf) {
+    return allocate_frame_window(rf, NULL);
+}
+
+static inline Value typed_window_box_slot(const TypedRegisterWindow* window, uint16_t index) {
+    switch (window->reg_types[index]) {
+        case REG_TYPE_I32:
+            return I32_VAL(window->i32_regs[index]);
+        case REG_TYPE_I64:
+            return I64_VAL(window->i64_regs[index]);
+        case REG_TYPE_U32:
+            return U32_VAL(window->u32_regs[index]);
+        case REG_TYPE_U64:
+            return U64_VAL(window->u64_regs[index]);
+        case REG_TYPE_F64:
+            return F64_VAL(window->f64_regs[index]);
+        case REG_TYPE_BOOL:
+            return BOOL_VAL(window->bool_regs[index]);
+        default:
+            return window->heap_regs ? window->heap_regs[index] : typed_window_default_boxed_value();
+    }
+}
+
+// Reads a register as the caller sees it without writing anything back. The
+// typed window wins over the boxed slot when it holds a newer value.
+static inline Value read_caller_register(RegisterFile* rf, CallFrame* caller,
+                                         const TypedRegisterWindow* window, uint16_t id) {
+    if (id < TYPED_REGISTER_WINDOW_SIZE && typed_window_slot_live(window, id) &&
+        typed_window_slot_dirty(window, id)) {
+        return typed_window_box_slot(window, id);
+    }
+    if (id < GLOBAL_REGISTERS) {
+        return rf->globals[id];
+    }
+    // Slots past the caller's window were never backed by the register stack
+    // and resolved to the legacy array, exactly as get_register_internal does.
+    if (id >= FRAME_REG_START && id < FRAME_REG_START + FRAME_REGISTERS) {
+        uint16_t slot = (uint16_t)(id - FRAME_REG_START);
+        if (!caller) {
+            return rf->stack[slot];
+        }
+        return slot < caller->register_capacity ? caller->registers[slot] : vm.registers[id];
+    }
+    if (id >= TEMP_REG_START && id < TEMP_REG_START + TEMP_REGISTERS) {
+        uint16_t slot = (uint16_t)(id - TEMP_REG_START);
+        if (!caller) {
+            return rf->temps_root[slot];
+        }
+        return slot < caller->temp_capacity ? caller->temps[slot] : vm.registers[id];
+    }
+    return *get_register_internal(rf, id);
+}
+
+// Binds a parameter slot of a freshly cleared frame: the boxed copy and the
+// typed window agree, so the callee starts with clean, live typed registers.
+static inline void bind_parameter_register(CallFrame* frame, TypedRegisterWindow* window,
+                                           uint16_t id, Value value) {
+    frame->registers[id - FRAME_REG_START] = value;
+    vm.registers[id] = value;
+
+    switch (VALUE_TYPE(value)) {
+        case VAL_I32:
+            window->i32_regs[id] = AS_I32(value);
+            window->reg_types[id] = REG_TYPE_I32;
+            break;
+        case VAL_I64:
+            window->i64_regs[id] = AS_I64(value);
+            window->reg_types[id] = REG_TYPE_I64;
+            break;
+        case VAL_U32:
+            window->u32_regs[id] = AS_U32(value);
+            window->reg_types[id] = REG_TYPE_U32;
+            break;
+        case VAL_U64:
+            window->u64_regs[id] = AS_U64(value);
+            window->reg_types[id] = REG_TYPE_U64;
+            break;
+        case VAL_F64:
+            window->f64_regs[id] = AS_F64(value);
+            window->reg_types[id] = REG_TYPE_F64;
+            break;
+        case VAL_BOOL:
+            window->bool_regs[id] = AS_BOOL(value);
+            window->reg_types[id] = REG_TYPE_BOOL;
+            break;
+        default:
+            // Heap values stay authoritative in the boxed slot.
+            return;
+    }
+    typed_window_mark_live(window, id);
+}
+
+// Sizes the window for a call, making sure the parameters always fit.
+static inline FrameWindowLayout call_window_layout(const FrameWindowLayout* layout,
+                                                   uint16_t param_end) {
+    FrameWindowLayout window = {FRAME_REGISTERS, TEMP_REGISTERS};
+    if (layout && (layout->frame_registers > 0 || layout->temp_registers > 0)) {
+        window = *layout;
+        if (window.frame_registers < param_end) {
+            window.frame_registers = param_end;
+        }
+    }
+    return window;
+}
+
+CallFrame* register_file_push_call_frame(RegisterFile* rf, uint16_t first_arg, uint16_t arg_count,
+                                         uint16_t param_base, const FrameWindowLayout* layout) {
+    if (!rf || (uint32_t)param_base + arg_count > FRAME_REG_START + FRAME_REGISTERS ||
+        (arg_count > 0 && param_base < FRAME_REG_START)) {
+        return NULL;
+    }
+
+    uint16_t param_end = arg_count > 0 ? (uint16_t)(param_base - FRAME_REG_START + arg_count) : 0;
+    FrameWindowLayout window_layout = call_window_layout(layout, param_end);
+    CallFrame* caller = rf->current_frame;
+    CallFrame* frame = allocate_frame_window(rf, &window_layout);
+    if (!frame) {
+        return NULL;
+    }
+
+    // Stack slots are recycled between calls; the sized window is small enough
+    // to clear up front so stale callee values never reach the GC.
+    reset_frame_value_storage(frame);
+
+    // The caller's frame and typed window stay intact while the callee is
+    // bound, so arguments move straight across without a staging copy.
+    const TypedRegisterWindow* caller_window = frame->previous_typed_window;
+    TypedRegisterWindow* window = frame->typed_window;
+    for (uint16_t i = 0; i < arg_count; i++) {
+        Value value = read_caller_register(rf, caller, caller_window, (uint16_t)(first_arg + i));
+        bind_parameter_register(frame, window, (uint16_t)(param_base + i), value);
+    }
+    frame->register_count = param_end;
+
+    return frame;
+}
+
+bool register_file_rebind_tail_call(RegisterFile* rf, uint16_t first_arg, uint16_t arg_count,
+                                    uint16_t param_base, const FrameWindowLayout* layout) {
+    CallFrame* frame = rf ? rf->current_frame : NULL;
+    if (!frame || arg_count > FRAME_REGISTERS ||
+        (uint32_t)param_base + arg_count > FRAME_REG_START + FRAME_REGISTERS ||
+        (arg_count > 0 && param_base < FRAME_REG_START)) {
+        return false;
+    }
+
+    // Arguments may live in the very slots that are about to be recycled, so
+    // they are captured before the frame is reset.
+    TypedRegisterWindow* window = frame->typed_window;
+    Value args[FRAME_REGISTERS];
+    for (uint16_t i = 0; i < arg_count; i++) {
+        args[i] = read_caller_register(rf, frame, window, (uint16_t)(first_arg + i));
+    }
+
+    clear_typed_window_frame(window);
+
+    // The frame owns the top of the register stack, so it can be resized to
+    // the new callee's window in place.
+    uint16_t param_end = arg_count > 0 ? (uint16_t)(param_base - FRAME_REG_START + arg_count) : 0;
+    if (frame->registers &&
+        frame->stack_base + frame->register_capacity + frame->temp_capacity == rf->stack_top) {
+        FrameWindowLayout window_layout = call_window_layout(layout, param_end);
+        Value* old_temps = frame->temps;
+        frame->register_capacity = window_layout.frame_registers;
+        frame->temp_capacity = window_layout.temp_registers;
+        frame->temps = frame->registers + frame->register_capacity;
+        if (rf->temps == old_temps) {
+            rf->temps = frame->temps;
+        }
+        rf->stack_top = frame->stack_base + frame->register_capacity + frame->temp_capacity;
+    }
+    reset_frame_value_storage(frame);
+    frame->temp_count = 0;
+    spill_manager_release_from(rf->spilled_registers, frame->spill_base);
+    frame->spill_count = 0;
+
+    for (uint16_t i = 0; i < arg_count; i++) {
+        bind_parameter_register(frame, window, (uint16_t)(param_base + i), args[i]);
+    }
+    frame->register_count = param_end;
+
+    return true;
+}
+
 void deallocate_frame(RegisterFile* rf) {
     if (!rf || !rf->current_frame) {
         return;
@@ -516,6 +903,10 @@ void deallocate_frame(RegisterFile* rf) {
     rf->current_frame = parent;
     rf->frame_stack = next_frame;
     rf->temps = rf->current_frame ? rf->current_frame->temps : rf->temps_root;
+    rf->stack_top = frame->stack_base;
+    // The spill window sits on top of every live slot, so releasing from its
+    // base drops it in one step (and costs nothing when the frame never spilled).
+    spill_manager_release_from(rf->spilled_registers, frame->spill_base);
 
     reset_frame_metadata(frame);
     frame->next = rf->free_frames;
@@ -543,9 +934,13 @@ void init_register_file(RegisterFile* rf) {
     rf->current_frame = NULL;
     rf->frame_stack = NULL;
     rf->free_frames = NULL;
+    rf->stack = NULL;
+    rf->stack_top = 0;
+    rf->stack_capacity = 0;
+    register_stack_reserve(rf, VM_REGISTER_STACK_INITIAL_SLOTS);
+    rf->stack_top = FRAME_REGISTERS;  // Frame registers of frameless top-level code
     for (int i = FRAMES_MAX - 1; i >= 0; --i) {
         CallFrame* frame = &vm.frames[i];
-        reset_frame_value_storage(frame);
         reset_frame_metadata(frame);
         frame->temp_count = TEMP_REGISTERS;
         frame->next = rf->free_frames;
@@ -570,7 +965,12 @@ void free_register_file(RegisterFile* rf) {
     while (rf->current_frame) {
         deallocate_frame(rf);
     }
-    
+
+    free(rf->stack);
+    rf->stack = NULL;
+    rf->stack_top = 0;
+    rf->stack_capacity = 0;
+
     // Free spill area
     if (rf->spilled_registers) {
         free_spill_manager(rf->spilled_registers);
@@ -664,14 +1064,14 @@ void spill_register(RegisterFile* rf, uint16_t id) {
     if (!rf->spilled_registers) return;
     
     Value* value = get_register(rf, id);
-    SpillManager* spill_mgr = rf->spilled_registers;
-    spill_register_value(spill_mgr, *value);
+    allocate_spilled_register(rf, *value);
 }
 
 void unspill_register(RegisterFile* rf, uint16_t id) {
     if (!rf->spilled_registers) return;
     
     SpillManager* spill_mgr = rf->spilled_registers;
+    id = spill_window_register(rf, id);
     Value value;
     if (unspill_register_value(spill_mgr, id, &value)) {
         // Register was successfully unspilled
@@ -691,8 +1091,15 @@ bool register_file_needs_spilling(RegisterFile* rf) {
 uint16_t allocate_spilled_register(RegisterFile* rf, Value value) {
     if (!rf->spilled_registers) return 0;
     
-    SpillManager* spill_mgr = rf->spilled_registers;
-    return spill_register_value(spill_mgr, value);
+    // The first slot above every live one is always inside the current window
+    uint16_t top = spill_manager_top(rf->spilled_registers);
+    uint16_t base = register_file_spill_base(rf);
+    if (top < base) {
+        top = base;
+    }
+    uint16_t id = (uint16_t)(SPILL_REG_START + (top - base));
+    set_register_internal(rf, id, value);
+    return spill_register_slot(rf->spilled_registers, top) ? id : 0;
 }
 
 // Get spilling statistics
@@ -700,7 +1107,7 @@ void get_register_file_stats(RegisterFile* rf, size_t* global_used, size_t* fram
     if (global_used) {
         *global_used = 0;
         for (int i = 0; i < GLOBAL_REGISTERS; i++) {
-            if (rf->globals[i].type != VAL_BOOL) (*global_used)++;
+            if (VALUE_TYPE(rf->globals[i]) != VAL_BOOL) (*global_used)++;
         }
     }
     
@@ -710,8 +1117,9 @@ void get_register_file_stats(RegisterFile* rf, size_t* global_used, size_t* fram
     
     if (temp_used) {
         *temp_used = 0;
-        for (int i = 0; i < TEMP_REGISTERS; i++) {
-            if (rf->temps[i].type != VAL_BOOL) (*temp_used)++;
+        int temp_slots = rf->current_frame ? rf->current_frame->temp_capacity : TEMP_REGISTERS;
+        for (int i = 0; i < temp_slots; i++) {
+            if (VALUE_TYPE(rf->temps[i]) != VAL_BOOL) (*temp_used)++;
         }
     }
     
@@ -725,9 +1133,11 @@ void get_register_file_stats(RegisterFile* rf, size_t* global_used, size_t* fram
 
 // Cache integration functions
 void enable_register_caching(RegisterFile* rf) {
-    if (!rf || rf->cache) return; // Already enabled
+    if (!rf) return;
     
-    rf->cache = create_register_cache();
+    if (!rf->cache) {
+        rf->cache = create_register_cache();
+    }
     if (rf->cache) {
         rf->cache->caching_enabled = true;
     }
@@ -742,7 +1152,8 @@ void disable_register_caching(RegisterFile* rf) {
 void flush_register_file_cache(RegisterFile* rf) {
     if (!rf || !rf->cache) return;
     
-    flush_register_cache(rf->cache, rf);
+    // Entries only point at storage owned elsewhere, so a flush just forgets them
+    reset_register_cache(rf->cache);
 }
 
 void print_register_cache_stats(RegisterFile* rf) {
@@ -751,5 +1162,12 @@ void print_register_cache_stats(RegisterFile* rf) {
         return;
     }
     
-    print_cache_stats(rf->cache);
+    print_cache_stats(rf->cache, stdout);
+}
+
+bool register_file_cache_stats(const RegisterFile* rf, RegisterCacheStats* out) {
+    if (!rf || !rf->cache || !out) return false;
+
+    get_cache_stats(rf->cache, out);
+    return true;
 }
\ No newline at end of file
@@ -5,6 +5,7 @@
 
 #include <limits.h>
 #include <stdbool.h>
+#include <string.h>
 
 static bool extract_repeat_count(Value value, int64_t* out_count) {
     if (!out_count) {
@@ -75,18 +76,19 @@ bool builtin_array_repeat(Value array_value, Value count_value, Value* out_value
         return false;
     }
 
-    ObjArray* result = allocateArray((int)total);
+    ObjArray* result = allocateTypedArray((int)total, (ArrayElementKind)source->kind);
     if (!result) {
         return false;
     }
 
     arrayEnsureCapacity(result, (int)total);
 
+    // Copy raw elements so packed arrays stay packed.
+    size_t chunk = arrayElementSize((ArrayElementKind)source->kind) * (size_t)length;
     for (int64_t i = 0; i < repeat; i++) {
-        for (int j = 0; j < length; j++) {
-            result->elements[result->length++] = source->elements[j];
-        }
+        memcpy((char*)result->data + chunk * (size_t)i, source->data, chunk);
     }
+    result->length = (int)total;
 
     *out_value = ARRAY_VAL(result);
     return true;
@@ -125,7 +125,7 @@ static bool append_array_repr(AssertStringBuilder* sb, ObjArray* array) {
                 return false;
             }
         }
-        if (!append_value_repr(sb, array->elements[i])) {
+        if (!append_value_repr(sb, arrayElementAt(array, i))) {
             return false;
         }
     }
@@ -204,7 +204,7 @@ static bool append_string_repr(AssertStringBuilder* sb, ObjString* str) {
 }
 
 static bool append_value_repr(AssertStringBuilder* sb, Value value) {
-    switch (value.type) {
+    switch (VALUE_TYPE(value)) {
         case VAL_BOOL:
             return sb_append(sb, AS_BOOL(value) ? "true" : "false");
         case VAL_I32:
@@ -261,10 +261,10 @@ static bool append_value_repr(AssertStringBuilder* sb, Value value) {
 }
 
 static bool deep_value_equal(Value a, Value b) {
-    if (a.type != b.type) {
+    if (VALUE_TYPE(a) != VALUE_TYPE(b)) {
         return false;
     }
-    switch (a.type) {
+    switch (VALUE_TYPE(a)) {
         case VAL_ARRAY: {
             ObjArray* left = AS_ARRAY(a);
             ObjArray* right = AS_ARRAY(b);
@@ -275,7 +275,7 @@ static bool deep_value_equal(Value a, Value b) {
                 return false;
             }
             for (int i = 0; i < left->length; i++) {
-                if (!deep_value_equal(left->elements[i], right->elements[i])) {
+                if (!deep_value_equal(arrayElementAt(left, i), arrayElementAt(right, i))) {
                     return false;
                 }
             }
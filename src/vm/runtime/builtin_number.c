@@ -161,7 +161,7 @@ BuiltinParseResult builtin_parse_int(Value input, Value* out_value,
         message[0] = '\0';
     }
 
-    switch (input.type) {
+    switch (VALUE_TYPE(input)) {
         case VAL_I32:
             *out_value = input;
             return BUILTIN_PARSE_OK;
@@ -262,7 +262,7 @@ BuiltinParseResult builtin_parse_int(Value input, Value* out_value,
         default:
             write_message(message, message_size,
                           "int() argument must be a string or number, got %s",
-                          value_type_name(input.type));
+                          value_type_name(VALUE_TYPE(input)));
             return BUILTIN_PARSE_INVALID;
     }
 }
@@ -278,7 +278,7 @@ BuiltinParseResult builtin_parse_float(Value input, Value* out_value,
         message[0] = '\0';
     }
 
-    switch (input.type) {
+    switch (VALUE_TYPE(input)) {
         case VAL_F64:
             *out_value = input;
             return BUILTIN_PARSE_OK;
@@ -327,7 +327,7 @@ BuiltinParseResult builtin_parse_float(Value input, Value* out_value,
         default:
             write_message(message, message_size,
                           "float() argument must be a string or number, got %s",
-                          value_type_name(input.type));
+                          value_type_name(VALUE_TYPE(input)));
             return BUILTIN_PARSE_INVALID;
     }
 }
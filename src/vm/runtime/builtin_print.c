@@ -32,7 +32,7 @@ static void print_formatted_value(Value value, const char* spec) {
         return;
     }
 
-    switch (value.type) {
+    switch (VALUE_TYPE(value)) {
         case VAL_I32: {
             long long v = AS_I32(value);
             if (strcmp(spec, "b") == 0) {
@@ -10,7 +10,7 @@ static bool value_to_i64(Value value, int64_t* out) {
         return false;
     }
 
-    switch (value.type) {
+    switch (VALUE_TYPE(value)) {
         case VAL_I32:
             *out = (int64_t)AS_I32(value);
             return true;
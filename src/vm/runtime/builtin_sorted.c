@@ -210,7 +210,12 @@ static bool validate_elements(const ObjArray* array, ValueType* out_type) {
         return true;
     }
 
-    ValueType first_type = array->elements[0].type;
+    if (array->kind != ARRAY_ELEMENT_VALUE) {
+        *out_type = VALUE_TYPE(arrayElementAt(array, 0));
+        return true;
+    }
+
+    ValueType first_type = VALUE_TYPE(array->elements[0]);
     switch (first_type) {
         case VAL_BOOL:
         case VAL_I32:
@@ -226,7 +231,7 @@ static bool validate_elements(const ObjArray* array, ValueType* out_type) {
     }
 
     for (int i = 1; i < array->length; i++) {
-        if (array->elements[i].type != first_type) {
+        if (VALUE_TYPE(array->elements[i]) != first_type) {
             return false;
         }
     }
@@ -254,11 +259,31 @@ bool builtin_sorted(Value array_value, Value* out_value) {
         return false;
     }
 
-    ObjArray* result = allocateArray(source->length);
+    ObjArray* result = allocateTypedArray(source->length, (ArrayElementKind)source->kind);
     if (!result) {
         return false;
     }
 
+    if (source->kind != ARRAY_ELEMENT_VALUE) {
+        // Sort packed arrays through boxed scratch space so ties (e.g. -0.0
+        // and 0.0) land in the same order as they would for boxed arrays.
+        int length = source->length;
+        Value* scratch = GROW_ARRAY(Value, NULL, 0, length > 0 ? length : 1);
+        for (int i = 0; i < length; i++) {
+            scratch[i] = arrayElementAt(source, i);
+        }
+        if (length > 1) {
+            g_sorted_element_type = element_type;
+            timsort(scratch, length);
+        }
+        for (int i = 0; i < length; i++) {
+            arrayPush(result, scratch[i]);
+        }
+        FREE_ARRAY(Value, scratch, length > 0 ? length : 1);
+        *out_value = ARRAY_VAL(result);
+        return true;
+    }
+
     if (source->length > 0) {
         arrayEnsureCapacity(result, source->length);
         for (int i = 0; i < source->length; i++) {
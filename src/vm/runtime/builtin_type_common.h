@@ -11,7 +11,7 @@
 #include "vm/vm_string_ops.h"
 
 static inline const char* builtin_value_type_label(Value value) {
-    switch (value.type) {
+    switch (VALUE_TYPE(value)) {
         case VAL_BOOL: return "bool";
         case VAL_I32: return "i32";
         case VAL_I64: return "i64";
@@ -63,7 +63,7 @@ double get_time_vm(void) {
 extern VM vm;
 
 #if USE_COMPUTED_GOTO
-void* vm_dispatch_table[OP_HALT + 1] = {0};
+void* vm_dispatch_table[VM_DISPATCH_TABLE_SIZE] = {0};
 #endif
 
 static bool vm_error_report_pending = false;
@@ -173,7 +173,7 @@ void print_raw_f64(double value) {
 }
 
 void printValue(Value value) {
-    switch (value.type) {
+    switch (VALUE_TYPE(value)) {
         case VAL_BOOL:
             printf(AS_BOOL(value) ? "true" : "false");
             break;
@@ -207,7 +207,7 @@ void printValue(Value value) {
             ObjArray* array = AS_ARRAY(value);
             for (int i = 0; i < array->length; i++) {
                 if (i > 0) printf(", ");
-                printValue(array->elements[i]);
+                printValue(arrayElementAt(array, i));
             }
             break;
         }
@@ -286,9 +286,9 @@ void printValue(Value value) {
 }
 
 bool valuesEqual(Value a, Value b) {
-    if (a.type != b.type) return false;
+    if (VALUE_TYPE(a) != VALUE_TYPE(b)) return false;
 
-    switch (a.type) {
+    switch (VALUE_TYPE(a)) {
         case VAL_BOOL:
             return AS_BOOL(a) == AS_BOOL(b);
         case VAL_I32:
@@ -307,6 +307,9 @@ bool valuesEqual(Value a, Value b) {
             if (left == right) return true;
             if (!left || !right) return false;
             if (left->length != right->length) return false;
+            // Hashes are cached for short and interned strings; a mismatch
+            // settles inequality without touching the contents.
+            if (left->hash != 0 && right->hash != 0 && left->hash != right->hash) return false;
             const char* left_chars = string_get_chars(left);
             const char* right_chars = string_get_chars(right);
             if (!left_chars || !right_chars) {
@@ -374,6 +377,11 @@ Type* getPrimitiveType(TypeKind kind) {
 
 // initVM and freeVM implementations are moved to vm_core.c
 
+SrcLocation vm_current_location(void) {
+    vm_sync_source_location();
+    return (SrcLocation){vm.filePath, vm.currentLine, vm.currentColumn};
+}
+
 // Runtime error handling
 void runtimeError(ErrorType type, SrcLocation location,
                          const char* format, ...) {
@@ -384,6 +392,7 @@ void runtimeError(ErrorType type, SrcLocation location,
     va_end(args);
 
 
+    vm_sync_source_location();
     if (location.file == NULL && vm.filePath) {
         location.file = vm.filePath;
         location.line = vm.currentLine;
@@ -0,0 +1,137 @@
+// Orus Language Project
+
+#include "vm/vm_inline_cache.h"
+#include "vm/vm_string_ops.h"
+#include "runtime/memory.h"
+
+#include <string.h>
+
+// Handed out for megamorphic sites; only valid until the next miss.
+static VMCallCacheEntry megamorphic_entry;
+
+static bool
+vm_call_cache_fill(Value callee, uint8_t arg_count, VMCallCacheEntry* entry) {
+    if (IS_I32(callee)) {
+        int32_t index = AS_I32(callee);
+        if (index < 0 || index >= vm.functionCount || vm.functions[index].arity != arg_count) {
+            return false;
+        }
+        entry->callee = (uintptr_t)(uint32_t)index;
+        entry->object = NULL;
+        entry->function_index = (uint16_t)index;
+        entry->kind = VM_CALL_TARGET_FUNCTION;
+    } else if (IS_CLOSURE(callee) || IS_FUNCTION(callee)) {
+        bool closure = IS_CLOSURE(callee);
+        ObjFunction* function = closure ? AS_CLOSURE(callee)->function : AS_FUNCTION(callee);
+        if (!function || function->arity != arg_count) {
+            return false;
+        }
+        entry->callee = closure ? (uintptr_t)AS_CLOSURE(callee) : (uintptr_t)function;
+        entry->object = function;
+        entry->function_index = UINT16_MAX;
+        entry->kind = closure ? VM_CALL_TARGET_CLOSURE : VM_CALL_TARGET_OBJECT;
+    } else {
+        return false;
+    }
+
+    entry->arity = arg_count;
+    return true;
+}
+
+const VMCallCacheEntry*
+vm_call_cache_miss(const uint8_t* instruction, Value callee, uint8_t arg_count) {
+    vm.call_cache_misses++;
+
+    VMCallSiteCache* site = vm_call_site_cache(instruction);
+    if (site->ip != instruction) {
+        site->ip = instruction;
+        site->count = 0;
+    }
+
+    if (site->count >= VM_CALL_CACHE_WAYS) {
+        if (site->count == VM_CALL_CACHE_WAYS) {
+            site->count++;
+            vm.call_cache_megamorphic++;
+        }
+        return vm_call_cache_fill(callee, arg_count, &megamorphic_entry) ? &megamorphic_entry : NULL;
+    }
+
+    VMCallCacheEntry* entry = &site->entries[site->count];
+    if (!vm_call_cache_fill(callee, arg_count, entry)) {
+        return NULL;
+    }
+    site->count++;
+    return entry;
+}
+
+bool
+vm_enum_cache_names(const uint8_t* instruction, ObjString* type_constant,
+                    ObjString* variant_constant, ObjString** type_name,
+                    ObjString** variant_name) {
+    uintptr_t hash = (uintptr_t)instruction;
+    hash ^= hash >> 9;
+    VMEnumSiteCache* site = &vm.enum_sites[hash & (VM_ENUM_CACHE_SITES - 1)];
+
+    if (site->ip == instruction && site->type_constant == type_constant &&
+        site->variant_constant == variant_constant) {
+        vm.enum_cache_hits++;
+        *type_name = site->type_name;
+        *variant_name = site->variant_name;
+        return true;
+    }
+
+    vm.enum_cache_misses++;
+
+    // Nothing references the first name yet, so interning the second one
+    // must not collect it.
+    bool paused_here = false;
+    if (!vm.gcPaused) {
+        pauseGC();
+        paused_here = true;
+    }
+
+    ObjString* interned_type = NULL;
+    ObjString* interned_variant = NULL;
+    const char* type_chars = type_constant ? string_get_chars(type_constant) : NULL;
+    if (type_chars) {
+        interned_type = intern_string(type_chars, (int)strlen(type_chars));
+    }
+    const char* variant_chars = variant_constant ? string_get_chars(variant_constant) : NULL;
+    bool has_variant = variant_chars && variant_chars[0] != '\0';
+    if (interned_type && has_variant) {
+        interned_variant = intern_string(variant_chars, (int)strlen(variant_chars));
+    }
+
+    if (paused_here) {
+        resumeGC();
+    }
+    if (!interned_type || (has_variant && !interned_variant)) {
+        return false;
+    }
+
+    site->ip = instruction;
+    site->type_constant = type_constant;
+    site->variant_constant = variant_constant;
+    site->type_name = interned_type;
+    site->variant_name = interned_variant;
+
+    *type_name = interned_type;
+    *variant_name = interned_variant;
+    return true;
+}
+
+void
+vm_inline_cache_invalidate(void) {
+    memset(vm.call_sites, 0, sizeof(vm.call_sites));
+    memset(vm.enum_sites, 0, sizeof(vm.enum_sites));
+}
+
+void
+vm_inline_cache_reset(void) {
+    vm_inline_cache_invalidate();
+    vm.call_cache_hits = 0;
+    vm.call_cache_misses = 0;
+    vm.call_cache_megamorphic = 0;
+    vm.enum_cache_hits = 0;
+    vm.enum_cache_misses = 0;
+}
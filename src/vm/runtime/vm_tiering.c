@@ -87,6 +87,11 @@ vm_jit_cache_reset_slot(JITEntryCacheSlot* slot) {
         return;
     }
 
+    if (slot->occupied && slot->loop_index == UINT16_MAX &&
+        slot->function_index < UINT8_COUNT) {
+        vm.jit_function_entries[slot->function_index] = NULL;
+    }
+
     if (slot->entry.code_ptr) {
         orus_jit_backend_release_entry(vm.jit_backend, &slot->entry);
         memset(&slot->entry, 0, sizeof(slot->entry));
@@ -307,6 +312,73 @@ vm_tiering_invalidate_all_fusions(void) {
     vm.fusion_generation++;
 }
 
+static VMQuickeningSite*
+vm_quickening_site(const uint8_t* instruction) {
+    uintptr_t hash = (uintptr_t)instruction;
+    hash ^= hash >> 9;
+    return &vm.quickening_sites[hash & (VM_QUICKENING_SITES - 1)];
+}
+
+void
+vm_quicken_observe(uint8_t* instruction, uint8_t quick_opcode) {
+    if (!instruction) {
+        return;
+    }
+
+    VMQuickeningSite* site = vm_quickening_site(instruction);
+    if (site->ip != instruction) {
+        site->ip = instruction;
+        site->hits = 0;
+        site->deopts = 0;
+    }
+    if (site->opcode != quick_opcode) {
+        site->opcode = quick_opcode;
+        site->hits = 0;
+    }
+
+    if (site->deopts >= VM_QUICKENING_MAX_DEOPTS) {
+        return;
+    }
+    if (++site->hits < VM_QUICKENING_WARMUP) {
+        return;
+    }
+
+    *instruction = quick_opcode;
+    site->hits = 0;
+    vm.quickened_sites++;
+}
+
+void
+vm_quicken_reject(const uint8_t* instruction) {
+    VMQuickeningSite* site = vm_quickening_site(instruction);
+    if (site->ip == instruction) {
+        site->hits = 0;
+    }
+}
+
+void
+vm_dequicken(uint8_t* instruction, uint8_t generic_opcode) {
+    *instruction = generic_opcode;
+    vm.dequickened_sites++;
+
+    VMQuickeningSite* site = vm_quickening_site(instruction);
+    if (site->ip != instruction) {
+        site->ip = instruction;
+        site->deopts = 0;
+    }
+    site->hits = 0;
+    if (site->deopts < UINT8_MAX) {
+        site->deopts++;
+    }
+}
+
+void
+vm_quickening_reset(void) {
+    memset(vm.quickening_sites, 0, sizeof(vm.quickening_sites));
+    vm.quickened_sites = 0;
+    vm.dequickened_sites = 0;
+}
+
 JITEntry*
 vm_jit_lookup_entry(FunctionId function, LoopId loop) {
     JITEntryCacheSlot* slot = vm_jit_cache_find_slot(function, loop);
@@ -343,6 +415,7 @@ vm_jit_install_entry(FunctionId function, LoopId loop, JITEntry* entry) {
 
     entry->code_ptr = NULL;
     entry->entry_point = NULL;
+    entry->method_entry_point = NULL;
     entry->code_capacity = 0;
     entry->code_size = 0;
     entry->debug_name = NULL;
@@ -362,6 +435,7 @@ vm_jit_invalidate_entry(const JITDeoptTrigger* trigger) {
     }
 
     vm.jit_deopt_count++;
+    vm.jit_compile_epoch++;
     vm_tiering_invalidate_all_fusions();
 
     if (trigger->function_index == UINT16_MAX) {
@@ -393,6 +467,7 @@ vm_jit_invalidate_entry(const JITDeoptTrigger* trigger) {
 
 void
 vm_jit_flush_entries(void) {
+    vm.jit_compile_epoch++;
     if (!vm.jit_cache.slots) {
         return;
     }
@@ -402,6 +477,7 @@ vm_jit_flush_entries(void) {
     }
     vm.jit_cache.count = 0;
     memset(vm.jit_loop_blocklist, 0, sizeof(vm.jit_loop_blocklist));
+    memset(vm.jit_function_blocklist, 0, sizeof(vm.jit_function_blocklist));
     vm_tiering_invalidate_all_fusions();
 }
 
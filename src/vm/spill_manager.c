@@ -1,7 +1,10 @@
 // Orus Language Project
 
 // spill_manager.c - Register Spilling Implementation
-// HashMap-based register spilling for unlimited variable support
+// Dense spill area for registers beyond the 256-register file. Spill register
+// ids index the area directly (id - SPILL_REG_START); a live bitmap tells
+// stored slots from holes. Frames carve their spill windows from the top of
+// the area, so popping a frame releases its slots in one step.
 
 #include "vm/spill_manager.h"
 #include "runtime/memory.h"
@@ -9,200 +12,209 @@
 #include <stdlib.h>
 #include <string.h>
 
-#define SPILL_INITIAL_CAPACITY 16
-#define SPILL_MAX_LOAD_FACTOR 0.75
+#define SPILL_INITIAL_CAPACITY 64
+#define SPILL_MAX_SLOTS ((size_t)UINT16_MAX + 1 - SPILL_REG_START)
 
-// Spill entry structure
-typedef struct {
-    uint16_t register_id;     // Register ID being spilled
-    Value value;              // Spilled value
-    bool is_tombstone;        // For deletion handling
-    uint8_t last_used;        // LRU tracking
-} SpillEntry;
-
-// Spill manager structure  
+// Spill manager structure
 struct SpillManager {
-    SpillEntry* entries;      // Hash table entries
-    size_t capacity;          // Hash table capacity
-    size_t count;             // Number of active entries
-    size_t tombstones;        // Number of tombstone entries
-    uint32_t next_spill_id;   // Next available spill ID
-    uint8_t lru_counter;      // LRU counter for eviction
+    Value* slots;             // Spilled values, indexed by id - SPILL_REG_START
+    uint64_t* live_bits;      // One bit per slot: set while the slot holds a value
+    size_t capacity;          // Allocated slots
+    size_t count;             // Number of live slots
+    size_t extent;            // One past the highest live slot
+    uint32_t generation;      // Bumped whenever slots move or disappear
 };
 
-static SpillEntry* find_spill_entry(SpillEntry* entries, size_t capacity, uint16_t register_id) {
-    size_t index = register_id & (capacity - 1);
-    SpillEntry* tombstone = NULL;
-    
-    for (;;) {
-        SpillEntry* entry = &entries[index];
-        if (entry->register_id == 0) {  // Empty slot
-            if (!entry->is_tombstone) {
-                return tombstone ? tombstone : entry;
-            } else if (!tombstone) {
-                tombstone = entry;
-            }
-        } else if (entry->register_id == register_id) {
-            return entry;
-        }
-        index = (index + 1) & (capacity - 1);
+static inline bool spill_slot_index(uint16_t register_id, size_t* index) {
+    if (register_id < SPILL_REG_START) {
+        return false;
     }
+    *index = (size_t)(register_id - SPILL_REG_START);
+    return true;
 }
 
-static void resize_spill_table(SpillManager* manager) {
-    size_t old_capacity = manager->capacity;
-    SpillEntry* old_entries = manager->entries;
-    
-    manager->capacity = old_capacity * 2;
-    manager->entries = (SpillEntry*)calloc(manager->capacity, sizeof(SpillEntry));
-    manager->count = 0;
-    manager->tombstones = 0;
-    
-    // Rehash all non-tombstone entries
-    for (size_t i = 0; i < old_capacity; i++) {
-        SpillEntry* entry = &old_entries[i];
-        if (entry->register_id != 0 && !entry->is_tombstone) {
-            SpillEntry* dest = find_spill_entry(manager->entries, manager->capacity, entry->register_id);
-            *dest = *entry;
-            manager->count++;
+static inline bool spill_slot_live(const SpillManager* manager, size_t index) {
+    return index < manager->capacity &&
+           (manager->live_bits[index >> 6] & (1ull << (index & 63))) != 0;
+}
+
+static bool ensure_spill_capacity(SpillManager* manager, size_t index) {
+    if (index < manager->capacity) {
+        return true;
+    }
+    if (index >= SPILL_MAX_SLOTS) {
+        return false;
+    }
+
+    size_t new_capacity = manager->capacity;
+    while (new_capacity <= index) {
+        new_capacity *= 2;
+    }
+    if (new_capacity > SPILL_MAX_SLOTS) {
+        new_capacity = SPILL_MAX_SLOTS;
+    }
+
+    Value* slots = (Value*)realloc(manager->slots, new_capacity * sizeof(Value));
+    if (!slots) {
+        return false;
+    }
+    manager->slots = slots;
+
+    size_t old_words = (manager->capacity + 63) / 64;
+    size_t new_words = (new_capacity + 63) / 64;
+    uint64_t* live_bits = (uint64_t*)realloc(manager->live_bits, new_words * sizeof(uint64_t));
+    if (!live_bits) {
+        return false;
+    }
+    memset(live_bits + old_words, 0, (new_words - old_words) * sizeof(uint64_t));
+    manager->live_bits = live_bits;
+
+    manager->capacity = new_capacity;
+    manager->generation++;
+    return true;
+}
+
+static Value* store_spill_slot(SpillManager* manager, size_t index, Value value) {
+    if (!ensure_spill_capacity(manager, index)) {
+        return NULL;
+    }
+
+    uint64_t bit = 1ull << (index & 63);
+    if (!(manager->live_bits[index >> 6] & bit)) {
+        manager->live_bits[index >> 6] |= bit;
+        manager->count++;
+        if (index >= manager->extent) {
+            manager->extent = index + 1;
         }
     }
-    
-    free(old_entries);
+    manager->slots[index] = value;
+    return &manager->slots[index];
+}
+
+static void shrink_spill_extent(SpillManager* manager) {
+    while (manager->extent > 0 && !spill_slot_live(manager, manager->extent - 1)) {
+        manager->extent--;
+    }
 }
 
 // Create spill manager
 SpillManager* create_spill_manager(void) {
     SpillManager* manager = (SpillManager*)malloc(sizeof(SpillManager));
     if (!manager) return NULL;
-    
+
     manager->capacity = SPILL_INITIAL_CAPACITY;
-    manager->entries = (SpillEntry*)calloc(manager->capacity, sizeof(SpillEntry));
+    manager->slots = (Value*)malloc(manager->capacity * sizeof(Value));
+    manager->live_bits = (uint64_t*)calloc((manager->capacity + 63) / 64, sizeof(uint64_t));
+    if (!manager->slots || !manager->live_bits) {
+        free(manager->slots);
+        free(manager->live_bits);
+        free(manager);
+        return NULL;
+    }
     manager->count = 0;
-    manager->tombstones = 0;
-    manager->next_spill_id = SPILL_REG_START;
-    manager->lru_counter = 0;
-    
+    manager->extent = 0;
+    manager->generation = 0;
+
     return manager;
 }
 
 // Free spill manager
 void free_spill_manager(SpillManager* manager) {
     if (manager) {
-        free(manager->entries);
+        free(manager->slots);
+        free(manager->live_bits);
         free(manager);
     }
 }
 
-// Spill a register value
+// Spill a register value into the first slot above every live one
 uint16_t spill_register_value(SpillManager* manager, Value value) {
-    // Check if we need to resize
-    if ((manager->count + manager->tombstones + 1) * 4 > manager->capacity * 3) {
-        resize_spill_table(manager);
-    }
-    
-    uint16_t spill_id = manager->next_spill_id++;
-    SpillEntry* entry = find_spill_entry(manager->entries, manager->capacity, spill_id);
-    
-    if (entry->is_tombstone) {
-        manager->tombstones--;
+    size_t index = manager->extent;
+    if (!store_spill_slot(manager, index, value)) {
+        return 0;
     }
-    
-    entry->register_id = spill_id;
-    entry->value = value;
-    entry->is_tombstone = false;
-    entry->last_used = manager->lru_counter++;
-    
-    manager->count++;
-    return spill_id;
+    return (uint16_t)(SPILL_REG_START + index);
 }
 
 // Set a spill register value with explicit register ID
 bool set_spill_register_value(SpillManager* manager, uint16_t register_id, Value value) {
-    if (!manager) {
+    size_t index;
+    if (!manager || !spill_slot_index(register_id, &index)) {
         return false;
     }
-    
-    // Resize if needed (75% load factor)
-    if (manager->count + manager->tombstones >= manager->capacity * 3 / 4) {
-        resize_spill_table(manager);
-    }
-    
-    SpillEntry* entry = find_spill_entry(manager->entries, manager->capacity, register_id);
-    
-    if (entry->is_tombstone) {
-        manager->tombstones--;
-    }
-    
-    bool is_new = (entry->register_id != register_id || entry->is_tombstone);
-    entry->register_id = register_id;
-    entry->value = value;
-    entry->is_tombstone = false;
-    entry->last_used = manager->lru_counter++;
-    
-    if (is_new) {
-        manager->count++;
-    }
-    
-    return true;
+    return store_spill_slot(manager, index, value) != NULL;
 }
 
 // Reserve a spill slot with explicit register ID (for parameters)
 void reserve_spill_slot(SpillManager* manager, uint16_t register_id) {
-    if (!manager) {
+    size_t index;
+    if (!manager || !spill_slot_index(register_id, &index)) {
         return;
     }
-    
-    // Resize if needed (75% load factor)
-    if (manager->count + manager->tombstones >= manager->capacity * 3 / 4) {
-        resize_spill_table(manager);
-    }
-    
-    SpillEntry* entry = find_spill_entry(manager->entries, manager->capacity, register_id);
-    
-    if (entry->is_tombstone) {
-        manager->tombstones--;
-    }
-    
-    bool is_new = (entry->register_id != register_id || entry->is_tombstone);
-    entry->register_id = register_id;
-    entry->value = BOOL_VAL(false); // Initialize to nil
-    entry->is_tombstone = false;
-    entry->last_used = manager->lru_counter++;
-    
-    if (is_new) {
-        manager->count++;
-    }
-    
-    // Ensure next_spill_id doesn't conflict with reserved parameter IDs
-    if (register_id >= manager->next_spill_id) {
-        manager->next_spill_id = register_id + 1;
-    }
+    store_spill_slot(manager, index, BOOL_VAL(false));
 }
 
 // Unspill a register value
 bool unspill_register_value(SpillManager* manager, uint16_t register_id, Value* value) {
-    SpillEntry* entry = find_spill_entry(manager->entries, manager->capacity, register_id);
-    
-    if (entry->register_id != register_id || entry->is_tombstone) {
+    size_t index;
+    if (!manager || !spill_slot_index(register_id, &index) || !spill_slot_live(manager, index)) {
         return false; // Not found
     }
-    
-    *value = entry->value;
-    entry->last_used = manager->lru_counter++;
+
+    *value = manager->slots[index];
     return true;
 }
 
 // Remove spilled register
 void remove_spilled_register(SpillManager* manager, uint16_t register_id) {
-    SpillEntry* entry = find_spill_entry(manager->entries, manager->capacity, register_id);
+    size_t index;
+    if (!manager || !spill_slot_index(register_id, &index) || !spill_slot_live(manager, index)) {
+        return;
+    }
+
+    manager->live_bits[index >> 6] &= ~(1ull << (index & 63));
+    manager->count--;
+    manager->generation++;
+    shrink_spill_extent(manager);
+}
+
+// Direct access to a spilled value; valid until the generation changes
+Value* spill_register_slot(SpillManager* manager, uint16_t register_id) {
+    size_t index;
+    if (!manager || !spill_slot_index(register_id, &index) || !spill_slot_live(manager, index)) {
+        return NULL;
+    }
+    return &manager->slots[index];
+}
+
+uint32_t spill_manager_generation(const SpillManager* manager) {
+    return manager ? manager->generation : 0;
+}
 
-    if (entry->register_id == register_id && !entry->is_tombstone) {
-        entry->is_tombstone = true;
-        entry->register_id = 0;
-        manager->count--;
-        manager->tombstones++;
+uint16_t spill_manager_top(const SpillManager* manager) {
+    size_t extent = manager ? manager->extent : 0;
+    if (extent >= SPILL_MAX_SLOTS) {
+        return UINT16_MAX;
     }
+    return (uint16_t)(SPILL_REG_START + extent);
+}
+
+void spill_manager_release_from(SpillManager* manager, uint16_t first_id) {
+    size_t first;
+    if (!manager || !spill_slot_index(first_id, &first) || first >= manager->extent) {
+        return;
+    }
+
+    for (size_t index = first; index < manager->extent; index++) {
+        uint64_t bit = 1ull << (index & 63);
+        if (manager->live_bits[index >> 6] & bit) {
+            manager->live_bits[index >> 6] &= ~bit;
+            manager->count--;
+        }
+    }
+    manager->extent = first;
+    shrink_spill_extent(manager);
+    manager->generation++;
 }
 
 void spill_manager_visit_entries(SpillManager* manager, SpillEntryVisitor visitor, void* user_data) {
@@ -210,10 +222,9 @@ void spill_manager_visit_entries(SpillManager* manager, SpillEntryVisitor visito
         return;
     }
 
-    for (size_t i = 0; i < manager->capacity; i++) {
-        SpillEntry* entry = &manager->entries[i];
-        if (entry->register_id != 0 && !entry->is_tombstone) {
-            visitor(entry->register_id, &entry->value, user_data);
+    for (size_t index = 0; index < manager->extent; index++) {
+        if (spill_slot_live(manager, index)) {
+            visitor((uint16_t)(SPILL_REG_START + index), &manager->slots[index], user_data);
         }
     }
 }
@@ -232,33 +243,17 @@ void get_spill_stats(SpillManager* manager, size_t* active_spills, size_t* total
     if (total_capacity) *total_capacity = manager->capacity;
 }
 
-// Find least recently used spill for eviction
+// Find the oldest live spill. Slots are handed out bottom-up, so the lowest
+// live id is the one that has been spilled the longest.
 uint16_t find_lru_spill(SpillManager* manager) {
-    uint8_t oldest_time = 255;
-    uint16_t lru_id = 0;
-
-    for (size_t i = 0; i < manager->capacity; i++) {
-        SpillEntry* entry = &manager->entries[i];
-        if (entry->register_id != 0 && !entry->is_tombstone) {
-            if (entry->last_used < oldest_time) {
-                oldest_time = entry->last_used;
-                lru_id = entry->register_id;
-            }
+    for (size_t index = 0; index < manager->extent; index++) {
+        if (spill_slot_live(manager, index)) {
+            return (uint16_t)(SPILL_REG_START + index);
         }
     }
-
-    return lru_id;
+    return 0;
 }
 
 void spill_manager_iterate(SpillManager* manager, SpillEntryVisitor visitor, void* user_data) {
-    if (!manager || !visitor) {
-        return;
-    }
-
-    for (size_t i = 0; i < manager->capacity; i++) {
-        SpillEntry* entry = &manager->entries[i];
-        if (entry->register_id != 0 && !entry->is_tombstone) {
-            visitor(entry->register_id, &entry->value, user_data);
-        }
-    }
+    spill_manager_visit_entries(manager, visitor, user_data);
 }
@@ -4,6 +4,7 @@
 #include "tools/debug.h"
 #include "public/common.h"
 #include "vm/vm_constants.h"
+#include "vm/vm_superinstructions.h"
 #include <stdio.h>
 
 void disassembleChunk(Chunk* chunk, const char* name) {
@@ -54,6 +55,19 @@ int disassembleInstruction(Chunk* chunk, int offset) {
             return offset + 4;
         }
 
+        case OP_EQ_I32_QUICK:
+        case OP_NE_I32_QUICK:
+        case OP_ADD_I32_QUICK: {
+            const char* name = instruction == OP_EQ_I32_QUICK   ? "EQ_I32_QUICK"
+                               : instruction == OP_NE_I32_QUICK ? "NE_I32_QUICK"
+                                                                : "ADD_I32_QUICK";
+            uint8_t dst = chunk->code[offset + 1];
+            uint8_t src1 = chunk->code[offset + 2];
+            uint8_t src2 = chunk->code[offset + 3];
+            printf("%-16s R%d, R%d, R%d\n", name, dst, src1, src2);
+            return offset + 4;
+        }
+
         case OP_SUB_I32_R: {
             uint8_t dst = chunk->code[offset + 1];
             uint8_t src1 = chunk->code[offset + 2];
@@ -316,6 +330,15 @@ int disassembleInstruction(Chunk* chunk, int offset) {
             return offset + 4;
         }
 
+        case OP_STRING_SLICE_R: {
+            uint8_t dst = chunk->code[offset + 1];
+            uint8_t string_reg = chunk->code[offset + 2];
+            uint8_t start_reg = chunk->code[offset + 3];
+            uint8_t end_reg = chunk->code[offset + 4];
+            printf("%-16s R%d, R%d, R%d, R%d\n", "STRING_SLICE", dst, string_reg, start_reg, end_reg);
+            return offset + 5;
+        }
+
         case OP_ARRAY_GET_R: {
             uint8_t dst = chunk->code[offset + 1];
             uint8_t array_reg = chunk->code[offset + 2];
@@ -377,6 +400,37 @@ int disassembleInstruction(Chunk* chunk, int offset) {
             return offset + 5;
         }
 
+        case OP_MAKE_TYPED_ARRAY_R: {
+            uint8_t dst = chunk->code[offset + 1];
+            uint8_t first = chunk->code[offset + 2];
+            uint8_t count = chunk->code[offset + 3];
+            uint8_t kind = chunk->code[offset + 4];
+            printf("%-16s R%d, R%d, count=%d, kind=%d\n", "MAKE_TYPED_ARRAY", dst, first, count, kind);
+            return offset + 5;
+        }
+
+        case OP_ARRAY_GET_I32_TYPED:
+        case OP_ARRAY_GET_F64_TYPED: {
+            uint8_t dst = chunk->code[offset + 1];
+            uint8_t array_reg = chunk->code[offset + 2];
+            uint8_t index_reg = chunk->code[offset + 3];
+            printf("%-16s R%d, R%d, R%d\n",
+                   instruction == OP_ARRAY_GET_I32_TYPED ? "ARRAY_GET_I32" : "ARRAY_GET_F64",
+                   dst, array_reg, index_reg);
+            return offset + 4;
+        }
+
+        case OP_ARRAY_SET_I32_TYPED:
+        case OP_ARRAY_SET_F64_TYPED: {
+            uint8_t array_reg = chunk->code[offset + 1];
+            uint8_t index_reg = chunk->code[offset + 2];
+            uint8_t value_reg = chunk->code[offset + 3];
+            printf("%-16s R%d, R%d, R%d\n",
+                   instruction == OP_ARRAY_SET_I32_TYPED ? "ARRAY_SET_I32" : "ARRAY_SET_F64",
+                   array_reg, index_reg, value_reg);
+            return offset + 4;
+        }
+
         case OP_CALL_R: {
             uint8_t func_reg = chunk->code[offset + 1];
             uint8_t first_arg = chunk->code[offset + 2];
@@ -571,9 +625,17 @@ int disassembleInstruction(Chunk* chunk, int offset) {
             return offset + 3;
         }
 
-        default:
+        default: {
+            // The second half of a superinstruction follows as a regular
+            // instruction, so only the fused first opcode is shown here.
+            VMSuperinstruction super;
+            if (vm_superinstruction_info(instruction, &super)) {
+                printf("%-16s %s\n", "SUPER", super.name);
+                return offset + super.first_length;
+            }
             printf("Unknown opcode %d\n", instruction);
             return offset + 1;
+        }
     }
 }
 
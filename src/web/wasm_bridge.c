@@ -125,7 +125,7 @@ int initWebVM(void) {
     config_set_global(g_web_config);
 
     // Ensure the string table is ready before the VM spins up.
-    if (globalStringTable.interned == NULL) {
+    if (globalStringTable.entries == NULL) {
         init_string_table(&globalStringTable);
     }
 
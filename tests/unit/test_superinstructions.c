@@ -0,0 +1,153 @@
+#include <stdbool.h>
+#include <stdint.h>
+#include <stdio.h>
+#include <string.h>
+
+#include "compiler/compiler.h"
+#include "compiler/codegen/peephole.h"
+#include "vm/vm.h"
+#include "vm/vm_comparison.h"
+#include "vm/vm_dispatch.h"
+#include "vm/vm_superinstructions.h"
+
+#define ASSERT_TRUE(cond, message)                                                        \
+    do {                                                                                  \
+        if (!(cond)) {                                                                    \
+            fprintf(stderr, "Assertion failed: %s (%s:%d)\n", message, __FILE__, __LINE__); \
+            return false;                                                                 \
+        }                                                                                 \
+    } while (0)
+
+// Emits opcode followed by length - 1 zero operand bytes.
+static int emit_padded(BytecodeBuffer* buffer, uint8_t opcode, int length, bool mark) {
+    int start = buffer->count;
+    emit_byte_to_buffer(buffer, opcode);
+    for (int i = 1; i < length; i++) {
+        emit_byte_to_buffer(buffer, 0);
+    }
+    if (mark) {
+        bytecode_mark_instruction_start(buffer, start);
+    }
+    return start;
+}
+
+static bool test_marked_pair_is_fused_in_place(void) {
+    VMSuperinstruction info;
+    ASSERT_TRUE(vm_superinstruction_info(OP_SUPERINSTRUCTION_0, &info),
+                "the generated table should fill slot 0");
+
+    CompilerContext ctx;
+    memset(&ctx, 0, sizeof(CompilerContext));
+    ctx.bytecode = init_bytecode_buffer();
+    ASSERT_TRUE(ctx.bytecode != NULL, "bytecode buffer allocation");
+
+    int first = emit_padded(ctx.bytecode, info.first, info.first_length, true);
+    int second = emit_padded(ctx.bytecode, info.second, 1, true);
+    emit_padded(ctx.bytecode, OP_HALT, 1, true);
+    int count = ctx.bytecode->count;
+
+    int fused = optimize_superinstructions(&ctx);
+    if (info.typed && !ORUS_VM_ENABLE_TYPED_OPS) {
+        ASSERT_TRUE(fused == 0, "typed pairs must not fuse without typed ops");
+    } else {
+        ASSERT_TRUE(fused == 1, "marked pair should fuse");
+        ASSERT_TRUE(ctx.bytecode->instructions[first] == OP_SUPERINSTRUCTION_0,
+                    "first opcode should be rewritten");
+    }
+    ASSERT_TRUE(ctx.bytecode->instructions[second] == info.second,
+                "second opcode must stay in place for jumps that land on it");
+    ASSERT_TRUE(ctx.bytecode->count == count, "fusion must not change the bytecode length");
+
+    free_bytecode_buffer(ctx.bytecode);
+    return true;
+}
+
+static bool test_unmarked_pair_is_left_alone(void) {
+    VMSuperinstruction info;
+    ASSERT_TRUE(vm_superinstruction_info(OP_SUPERINSTRUCTION_0, &info),
+                "the generated table should fill slot 0");
+
+    CompilerContext ctx;
+    memset(&ctx, 0, sizeof(CompilerContext));
+    ctx.bytecode = init_bytecode_buffer();
+    ASSERT_TRUE(ctx.bytecode != NULL, "bytecode buffer allocation");
+
+    // The second opcode byte is unmarked, so it could be an operand.
+    int first = emit_padded(ctx.bytecode, info.first, info.first_length, true);
+    emit_padded(ctx.bytecode, info.second, 1, false);
+    // Raw bytes from emitters that did not mark anything.
+    int raw = emit_padded(ctx.bytecode, info.first, info.first_length, false);
+    emit_padded(ctx.bytecode, info.second, 1, false);
+
+    ASSERT_TRUE(optimize_superinstructions(&ctx) == 0, "unmarked pairs must not fuse");
+    ASSERT_TRUE(ctx.bytecode->instructions[first] == info.first, "first pair should be untouched");
+    ASSERT_TRUE(ctx.bytecode->instructions[raw] == info.first, "raw pair should be untouched");
+
+    free_bytecode_buffer(ctx.bytecode);
+    return true;
+}
+
+static bool test_fused_pair_executes_both_halves(void) {
+    VMSuperinstruction info;
+    if (!vm_superinstruction_lookup(OP_MOVE, OP_MOVE, &info)) {
+        printf("  (OP_MOVE+OP_MOVE not in the generated table; nothing to run)\n");
+        return true;
+    }
+
+    initVM();
+
+    Chunk chunk;
+    initChunk(&chunk);
+    writeChunk(&chunk, info.opcode, 1, 1, "super");
+    writeChunk(&chunk, 1, 1, 1, "super");
+    writeChunk(&chunk, 0, 1, 1, "super");
+    writeChunk(&chunk, OP_MOVE, 1, 1, "super");
+    writeChunk(&chunk, 2, 1, 1, "super");
+    writeChunk(&chunk, 1, 1, 1, "super");
+    writeChunk(&chunk, OP_HALT, 1, 1, "super");
+
+    vm_set_register_safe(0, I32_VAL(41));
+    vm.chunk = &chunk;
+    vm.ip = chunk.code;
+
+    InterpretResult result = vm_run_dispatch();
+    Value reg1 = vm_get_register_safe(1);
+    Value reg2 = vm_get_register_safe(2);
+
+    freeChunk(&chunk);
+    freeVM();
+
+    ASSERT_TRUE(result == INTERPRET_OK, "fused program should run to completion");
+    ASSERT_TRUE(IS_I32(reg1) && AS_I32(reg1) == 41, "first move should run");
+    ASSERT_TRUE(IS_I32(reg2) && AS_I32(reg2) == 41, "second move should run");
+    return true;
+}
+
+int main(void) {
+    bool (*tests[])(void) = {
+        test_marked_pair_is_fused_in_place,
+        test_unmarked_pair_is_left_alone,
+        test_fused_pair_executes_both_halves,
+    };
+
+    const char* names[] = {
+        "Marked pair is fused in place",
+        "Unmarked pair is left alone",
+        "Fused pair executes both halves",
+    };
+
+    int passed = 0;
+    int total = (int)(sizeof(tests) / sizeof(tests[0]));
+    for (int i = 0; i < total; i++) {
+        if (tests[i]()) {
+            printf("[PASS] %s\n", names[i]);
+            passed++;
+        } else {
+            printf("[FAIL] %s\n", names[i]);
+            return 1;
+        }
+    }
+
+    printf("%d/%d superinstruction tests passed\n", passed, total);
+    return 0;
+}
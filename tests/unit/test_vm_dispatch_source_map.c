@@ -0,0 +1,97 @@
+#include <stdbool.h>
+#include <stdint.h>
+#include <stdio.h>
+
+#include "vm/vm.h"
+#include "vm/vm_dispatch.h"
+
+#define ASSERT_TRUE(cond, message)                                                         \
+    do {                                                                                   \
+        if (!(cond)) {                                                                     \
+            fprintf(stderr, "Assertion failed: %s (%s:%d)\n", message, __FILE__, __LINE__); \
+            return false;                                                                  \
+        }                                                                                  \
+    } while (0)
+
+static InterpretResult run_chunk(Chunk* chunk) {
+    vm.chunk = chunk;
+    vm.ip = chunk->code;
+    return vm_run_dispatch();
+}
+
+static bool test_error_reports_faulting_line(void) {
+    initVM();
+
+    Chunk chunk;
+    initChunk(&chunk);
+    writeChunk(&chunk, OP_LOAD_TRUE, 2, 1, "source_map.orus");
+    writeChunk(&chunk, 1, 2, 1, "source_map.orus");
+    writeChunk(&chunk, OP_MOVE, 3, 5, "source_map.orus");
+    writeChunk(&chunk, 2, 3, 5, "source_map.orus");
+    writeChunk(&chunk, 1, 3, 5, "source_map.orus");
+    // Undefined global: fails at line 7, column 9.
+    writeChunk(&chunk, OP_LOAD_GLOBAL, 7, 9, "source_map.orus");
+    writeChunk(&chunk, 3, 7, 9, "source_map.orus");
+    writeChunk(&chunk, 0, 7, 9, "source_map.orus");
+    writeChunk(&chunk, OP_HALT, 8, 1, "source_map.orus");
+
+    InterpretResult result = run_chunk(&chunk);
+    int line = vm.currentLine;
+    int column = vm.currentColumn;
+
+    freeChunk(&chunk);
+    freeVM();
+
+    ASSERT_TRUE(result == INTERPRET_RUNTIME_ERROR, "undefined global should fail");
+    ASSERT_TRUE(line == 7, "error should map to the faulting instruction's line");
+    ASSERT_TRUE(column == 9, "error should map to the faulting instruction's column");
+    return true;
+}
+
+static bool test_unassigned_opcode_is_rejected(void) {
+    initVM();
+
+    Chunk chunk;
+    initChunk(&chunk);
+    writeChunk(&chunk, OP_LOAD_TRUE, 1, 1, "source_map.orus");
+    writeChunk(&chunk, 1, 1, 1, "source_map.orus");
+    writeChunk(&chunk, UINT8_MAX, 4, 2, "source_map.orus");
+    writeChunk(&chunk, OP_HALT, 5, 1, "source_map.orus");
+
+    InterpretResult result = run_chunk(&chunk);
+    int line = vm.currentLine;
+
+    freeChunk(&chunk);
+    freeVM();
+
+    ASSERT_TRUE(result == INTERPRET_RUNTIME_ERROR, "unassigned opcode byte should fail cleanly");
+    ASSERT_TRUE(line == 4, "unknown opcode should report its own line");
+    return true;
+}
+
+int main(void) {
+    bool (*tests[])(void) = {
+        test_error_reports_faulting_line,
+        test_unassigned_opcode_is_rejected,
+    };
+
+    const char* names[] = {
+        "Error reports faulting line",
+        "Unassigned opcode is rejected",
+    };
+
+    int passed = 0;
+    int total = (int)(sizeof(tests) / sizeof(tests[0]));
+    for (int i = 0; i < total; i++) {
+        if (tests[i]()) {
+            printf("[PASS] %s\n", names[i]);
+            passed++;
+        } else {
+            printf("[FAIL] %s\n", names[i]);
+            return 1;
+        }
+    }
+
+    printf("%d/%d dispatch source map tests passed\n", passed, total);
+    return 0;
+}
@@ -0,0 +1,115 @@
+#include <stdbool.h>
+#include <stdint.h>
+#include <stdio.h>
+#include <string.h>
+
+#include "runtime/memory.h"
+#include "vm/vm.h"
+
+#define ASSERT_TRUE(cond, message)                                                         \
+    do {                                                                                   \
+        if (!(cond)) {                                                                     \
+            fprintf(stderr, "Assertion failed: %s (%s:%d)\n", message, __FILE__, __LINE__); \
+            return false;                                                                  \
+        }                                                                                  \
+    } while (0)
+
+static bool object_is_live(Obj* target) {
+    for (Obj* object = vm.objects; object != NULL; object = object->next) {
+        if (object == target) {
+            return true;
+        }
+    }
+    return false;
+}
+
+static bool test_minor_collection_frees_unreachable_young(void) {
+    initVM();
+    gcGenerational = true;
+
+    ObjArray* keep = allocateArray(4);
+    vm.register_file.globals[0] = ARRAY_VAL(keep);
+    collectGarbage();
+    ASSERT_TRUE(keep->obj.isOld, "survivors of a full collection should be old");
+
+    ObjString* garbage = allocateString("garbage", 7);
+    ASSERT_TRUE(!garbage->obj.isOld, "fresh objects should start young");
+
+    collectGarbageYoung();
+    ASSERT_TRUE(!object_is_live((Obj*)garbage), "unreachable young object should be freed");
+    ASSERT_TRUE(object_is_live((Obj*)keep), "old objects must survive minor collections");
+    ASSERT_TRUE(vm.gcMinorCount == 1, "minor collection should be counted");
+
+    gcGenerational = false;
+    freeVM();
+    return true;
+}
+
+static bool test_write_barrier_keeps_young_children(void) {
+    initVM();
+    gcGenerational = true;
+
+    ObjArray* keep = allocateArray(4);
+    vm.register_file.globals[0] = ARRAY_VAL(keep);
+    collectGarbage();
+
+    ObjString* child = allocateString("child", 5);
+    ASSERT_TRUE(arrayPush(keep, STRING_VAL(child)), "push should succeed");
+    ASSERT_TRUE(keep->obj.isRemembered, "old container should be remembered");
+
+    collectGarbageYoung();
+    ASSERT_TRUE(object_is_live((Obj*)child), "young child of an old array should survive");
+    ASSERT_TRUE(child->obj.isOld, "surviving child should be promoted");
+    ASSERT_TRUE(!keep->obj.isRemembered, "remembered set should be cleared after a minor GC");
+
+    gcGenerational = false;
+    freeVM();
+    return true;
+}
+
+static bool test_global_store_is_a_minor_root(void) {
+    initVM();
+    gcGenerational = true;
+    vm.variableCount = 2;
+    collectGarbage();
+
+    ObjString* value = allocateString("global", 6);
+    vm.globals[1] = STRING_VAL(value);
+    gcGlobalWriteBarrier(1);
+
+    collectGarbageYoung();
+    ASSERT_TRUE(object_is_live((Obj*)value), "young value stored in a global should survive");
+
+    gcGenerational = false;
+    freeVM();
+    return true;
+}
+
+int main(void) {
+    bool (*tests[])(void) = {
+        test_minor_collection_frees_unreachable_young,
+        test_write_barrier_keeps_young_children,
+        test_global_store_is_a_minor_root,
+    };
+
+    const char* names[] = {
+        "Minor collection frees unreachable young objects",
+        "Write barrier keeps young children alive",
+        "Global stores are minor collection roots",
+    };
+
+    int passed = 0;
+    int total = (int)(sizeof(tests) / sizeof(tests[0]));
+    for (int i = 0; i < total; i++) {
+        if (tests[i]()) {
+            printf("[PASS] %s\n", names[i]);
+            passed++;
+        } else {
+            printf("[FAIL] %s\n", names[i]);
+            return 1;
+        }
+    }
+
+    printf("%d/%d generational GC tests passed\n", passed, total);
+    return 0;
+}
@@ -0,0 +1,101 @@
+#include <stdbool.h>
+#include <stdint.h>
+#include <stdio.h>
+#include <string.h>
+
+#include "vm/vm_heap.h"
+
+#define ASSERT_TRUE(cond, message)                                                         \
+    do {                                                                                   \
+        if (!(cond)) {                                                                     \
+            fprintf(stderr, "Assertion failed: %s (%s:%d)\n", message, __FILE__, __LINE__); \
+            return false;                                                                  \
+        }                                                                                  \
+    } while (0)
+
+static bool test_slots_are_aligned_and_reused(void) {
+    heap_init();
+
+    void* first = heap_alloc(40);
+    void* second = heap_alloc(40);
+    ASSERT_TRUE(first && second && first != second, "distinct slots expected");
+    ASSERT_TRUE(((uintptr_t)first % 16) == 0, "slots should be 16-byte aligned");
+    ASSERT_TRUE((uint8_t*)second - (uint8_t*)first == 48 ||
+                    (uint8_t*)first - (uint8_t*)second == 48,
+                "40-byte requests should share the 48-byte class");
+
+    heap_free(first, 40);
+    void* reused = heap_alloc(33);
+    ASSERT_TRUE(reused == first, "freed slot should be handed out again");
+
+    HeapSizeClassStats stats;
+    ASSERT_TRUE(heap_size_class_stats(2, &stats), "stats should be available");
+    ASSERT_TRUE(stats.slot_size == 48, "class 2 should hold 48-byte slots");
+    ASSERT_TRUE(stats.slots_in_use == 2, "two slots should be live");
+    ASSERT_TRUE(stats.allocations == 3 && stats.frees == 1, "lifetime counters should track calls");
+
+    heap_destroy();
+    return true;
+}
+
+static bool test_empty_pages_are_recycled(void) {
+    heap_init();
+
+    enum { COUNT = 5000 };
+    static void* slots[COUNT];
+    for (int i = 0; i < COUNT; i++) {
+        slots[i] = heap_alloc(64);
+        memset(slots[i], 0xAB, 64);
+    }
+
+    HeapSizeClassStats stats;
+    heap_size_class_stats(3, &stats);
+    ASSERT_TRUE(stats.pages > 1, "allocations should span several pages");
+    size_t pages_before = stats.pages;
+
+    for (int i = 0; i < COUNT; i++) {
+        heap_free(slots[i], 64);
+    }
+    heap_release_empty_pages();
+
+    heap_size_class_stats(3, &stats);
+    ASSERT_TRUE(stats.slots_in_use == 0, "every slot should be free");
+    ASSERT_TRUE(stats.pages == 1, "only one empty page should stay attached");
+    ASSERT_TRUE(heap_reserved_pages() == pages_before - 1 ||
+                    heap_reserved_pages() == ORUS_HEAP_EMPTY_PAGE_RESERVE,
+                "released pages should land in the reserve first");
+
+    void* large = heap_alloc(ORUS_HEAP_MAX_SLOT_SIZE + 1);
+    ASSERT_TRUE(large != NULL, "oversized requests should fall back to malloc");
+    heap_free(large, ORUS_HEAP_MAX_SLOT_SIZE + 1);
+
+    heap_destroy();
+    return true;
+}
+
+int main(void) {
+    bool (*tests[])(void) = {
+        test_slots_are_aligned_and_reused,
+        test_empty_pages_are_recycled,
+    };
+
+    const char* names[] = {
+        "Slots are aligned and reused",
+        "Empty pages are recycled",
+    };
+
+    int passed = 0;
+    int total = (int)(sizeof(tests) / sizeof(tests[0]));
+    for (int i = 0; i < total; i++) {
+        if (tests[i]()) {
+            printf("[PASS] %s\n", names[i]);
+            passed++;
+        } else {
+            printf("[FAIL] %s\n", names[i]);
+            return 1;
+        }
+    }
+
+    printf("%d/%d heap tests passed\n", passed, total);
+    return 0;
+}
@@ -0,0 +1,165 @@
+#include <stdbool.h>
+#include <stdint.h>
+#include <stdio.h>
+#include <string.h>
+
+#include "runtime/memory.h"
+#include "vm/vm.h"
+
+#define ASSERT_TRUE(cond, message)                                                         \
+    do {                                                                                   \
+        if (!(cond)) {                                                                     \
+            fprintf(stderr, "Assertion failed: %s (%s:%d)\n", message, __FILE__, __LINE__); \
+            return false;                                                                  \
+        }                                                                                  \
+    } while (0)
+
+#define ENTRY_COUNT 2000
+#define GARBAGE_COUNT 300000
+#define PAUSE_BUDGET_US 100
+// Slices overshoot by up to one chunk of work or one page release; sweeping
+// GARBAGE_COUNT objects in one pause takes several milliseconds.
+#define PAUSE_LIMIT_US (PAUSE_BUDGET_US * 10)
+
+static bool test_overdue_cycle_finishes_marking_in_one_step(void) {
+    initVM();
+    gcPauseBudgetUs = 1;
+
+    ObjArray* keep = allocateArray(4);
+    vm.register_file.globals[0] = ARRAY_VAL(keep);
+    size_t before = vm.gcCount;
+    gcThreshold = 1;
+
+    allocateString("trigger", 7);
+    ASSERT_TRUE(!gcIncrementalMarking, "an overdue cycle should finish marking in a single slice");
+
+    // The sweep continues in budgeted slices paid for by allocation.
+    for (int i = 0; i < 100000 && vm.gcCount == before; i++) {
+        allocateString("garbage-garbage-garbage", 23);
+    }
+    ASSERT_TRUE(vm.gcCount == before + 1, "the overdue cycle should finish its sweep");
+    ASSERT_TRUE(keep->length == 0 && IS_ARRAY(vm.register_file.globals[0]),
+                "rooted objects must survive the forced cycle");
+
+    gcPauseBudgetUs = 0;
+    freeVM();
+    return true;
+}
+
+static bool test_pause_stays_near_budget_under_pressure(void) {
+    initVM();
+
+    ObjArray* keep = allocateArray(ENTRY_COUNT);
+    vm.register_file.globals[0] = ARRAY_VAL(keep);
+    char buffer[32];
+    for (int i = 0; i < ENTRY_COUNT; i++) {
+        int length = snprintf(buffer, sizeof(buffer), "entry-%d", i);
+        ASSERT_TRUE(arrayPush(keep, STRING_VAL(allocateString(buffer, length))), "push should succeed");
+    }
+    // Leave a large heap of garbage for the next cycle to sweep.
+    pauseGC();
+    for (int i = 0; i < GARBAGE_COUNT; i++) {
+        allocateString("garbage-garbage-garbage", 23);
+    }
+    resumeGC();
+
+    // The mutator is far ahead of the collector, so the cycle is overdue
+    // from its first slice.
+    gcPauseBudgetUs = PAUSE_BUDGET_US;
+    gcThreshold = 1;
+    gcLongestPauseUs = 0;
+    size_t cycles = vm.gcCount;
+    for (int i = 0; i < GARBAGE_COUNT && vm.gcCount == cycles; i++) {
+        allocateString("garbage-garbage-garbage", 23);
+    }
+    uint64_t longest = gcLongestPauseUs;
+    bool completed = vm.gcCount == cycles + 1;
+    bool kept = keep->length == ENTRY_COUNT && IS_STRING(keep->elements[ENTRY_COUNT - 1]);
+
+    gcPauseBudgetUs = 0;
+    freeVM();
+
+    ASSERT_TRUE(completed, "the overdue cycle should complete");
+    ASSERT_TRUE(kept, "rooted objects must survive the overdue cycle");
+    ASSERT_TRUE(longest <= PAUSE_LIMIT_US, "overdue cycles should not sweep in one pause");
+    return true;
+}
+
+static bool test_barrier_keeps_stores_made_while_marking(void) {
+    initVM();
+    gcPauseBudgetUs = 1;
+
+    ObjArray* keep = allocateArray(ENTRY_COUNT);
+    vm.register_file.globals[0] = ARRAY_VAL(keep);
+    char buffer[32];
+    for (int i = 0; i < ENTRY_COUNT; i++) {
+        int length = snprintf(buffer, sizeof(buffer), "entry-%d", i);
+        ASSERT_TRUE(arrayPush(keep, STRING_VAL(allocateString(buffer, length))), "push should succeed");
+    }
+    collectGarbage();
+    size_t cycles = vm.gcCount;
+
+    // Churn garbage so slices run, and keep replacing entries behind the
+    // marker's back. Only the insertion barrier keeps the new strings alive.
+    gcThreshold = vm.bytesAllocated;
+    for (int round = 0; round < 200; round++) {
+        for (int i = 0; i < 500; i++) {
+            allocateString("garbage-garbage-garbage", 23);
+        }
+        int index = (round * 37) % ENTRY_COUNT;
+        int length = snprintf(buffer, sizeof(buffer), "fresh-%d", index);
+        ASSERT_TRUE(arraySet(keep, index, STRING_VAL(allocateString(buffer, length))),
+                    "set should succeed");
+    }
+    collectGarbage();
+    ASSERT_TRUE(vm.gcCount > cycles + 1, "incremental cycles should have completed");
+
+    for (int i = 0; i < ENTRY_COUNT; i++) {
+        bool replaced = false;
+        for (int round = 0; round < 200; round++) {
+            if ((round * 37) % ENTRY_COUNT == i) {
+                replaced = true;
+                break;
+            }
+        }
+        int length = snprintf(buffer, sizeof(buffer), replaced ? "fresh-%d" : "entry-%d", i);
+        Value value = keep->elements[i];
+        ASSERT_TRUE(IS_STRING(value), "entry should still be a string");
+        ObjString* string = AS_STRING(value);
+        ASSERT_TRUE(string->length == length && memcmp(string->chars, buffer, (size_t)length) == 0,
+                    "entry contents should survive incremental collection");
+    }
+
+    gcPauseBudgetUs = 0;
+    freeVM();
+    return true;
+}
+
+int main(void) {
+    bool (*tests[])(void) = {
+        test_overdue_cycle_finishes_marking_in_one_step,
+        test_pause_stays_near_budget_under_pressure,
+        test_barrier_keeps_stores_made_while_marking,
+    };
+
+    const char* names[] = {
+        "Overdue cycle finishes marking in one step",
+        "Pause stays near budget under pressure",
+        "Write barrier keeps stores made while marking",
+    };
+
+    int passed = 0;
+    int total = (int)(sizeof(tests) / sizeof(tests[0]));
+    for (int i = 0; i < total; i++) {
+        if (tests[i]()) {
+            printf("[PASS] %s\n", names[i]);
+            passed++;
+        } else {
+            printf("[FAIL] %s\n", names[i]);
+            return 1;
+        }
+    }
+
+    printf("%d/%d incremental GC tests passed\n", passed, total);
+    return 0;
+}
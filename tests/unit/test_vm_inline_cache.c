@@ -0,0 +1,164 @@
+#include <stdbool.h>
+#include <stdint.h>
+#include <stdio.h>
+
+#include "runtime/memory.h"
+#include "vm/vm.h"
+#include "vm/vm_inline_cache.h"
+
+#define ASSERT_TRUE(cond, message)                                                         \
+    do {                                                                                   \
+        if (!(cond)) {                                                                     \
+            fprintf(stderr, "Assertion failed: %s (%s:%d)\n", message, __FILE__, __LINE__); \
+            return false;                                                                  \
+        }                                                                                  \
+    } while (0)
+
+// Only the address is used as a cache key; the bytes are never executed.
+static const uint8_t call_site[4];
+
+static void define_functions(int count, int arity) {
+    for (int i = 0; i < count; i++) {
+        vm.functions[i].arity = arity;
+    }
+    vm.functionCount = count;
+}
+
+static bool test_monomorphic_site_hits(void) {
+    initVM();
+    define_functions(1, 2);
+
+    const VMCallCacheEntry* first = vm_call_cache_resolve(call_site, I32_VAL(0), 2);
+    ASSERT_TRUE(first != NULL, "valid callee should resolve");
+    ASSERT_TRUE(first->kind == VM_CALL_TARGET_FUNCTION && first->function_index == 0,
+                "entry should point at the function");
+    ASSERT_TRUE(vm.call_cache_misses == 1 && vm.call_cache_hits == 0, "first call should miss");
+
+    for (int i = 0; i < 3; i++) {
+        ASSERT_TRUE(vm_call_cache_resolve(call_site, I32_VAL(0), 2) == first, "repeat call should hit");
+    }
+    ASSERT_TRUE(vm.call_cache_hits == 3 && vm.call_cache_misses == 1, "repeat calls should be counted as hits");
+    ASSERT_TRUE(vm_call_site_cache(call_site)->count == 1, "site should stay monomorphic");
+
+    freeVM();
+    return true;
+}
+
+static bool test_invalid_calls_are_not_cached(void) {
+    initVM();
+    define_functions(1, 2);
+
+    ASSERT_TRUE(vm_call_cache_resolve(call_site, I32_VAL(0), 1) == NULL, "arity mismatch should not resolve");
+    ASSERT_TRUE(vm_call_cache_resolve(call_site, I32_VAL(5), 2) == NULL, "unknown index should not resolve");
+    ASSERT_TRUE(vm_call_cache_resolve(call_site, BOOL_VAL(true), 2) == NULL, "non-callable should not resolve");
+    ASSERT_TRUE(vm_call_site_cache(call_site)->count == 0, "failed resolutions must not fill entries");
+
+    freeVM();
+    return true;
+}
+
+static bool test_site_goes_polymorphic_then_megamorphic(void) {
+    initVM();
+    define_functions(VM_CALL_CACHE_WAYS + 1, 0);
+
+    for (int i = 0; i < VM_CALL_CACHE_WAYS; i++) {
+        ASSERT_TRUE(vm_call_cache_resolve(call_site, I32_VAL(i), 0) != NULL, "callee should resolve");
+    }
+    VMCallSiteCache* site = vm_call_site_cache(call_site);
+    ASSERT_TRUE(site->count == VM_CALL_CACHE_WAYS, "site should hold one entry per callee");
+    for (int i = 0; i < VM_CALL_CACHE_WAYS; i++) {
+        const VMCallCacheEntry* entry = vm_call_cache_resolve(call_site, I32_VAL(i), 0);
+        ASSERT_TRUE(entry && entry->function_index == i, "every cached callee should hit");
+    }
+    ASSERT_TRUE(vm.call_cache_hits == VM_CALL_CACHE_WAYS, "polymorphic lookups should hit");
+
+    const VMCallCacheEntry* extra = vm_call_cache_resolve(call_site, I32_VAL(VM_CALL_CACHE_WAYS), 0);
+    ASSERT_TRUE(extra && extra->function_index == VM_CALL_CACHE_WAYS, "megamorphic site should still resolve");
+    ASSERT_TRUE(vm.call_cache_megamorphic == 1, "site should be counted as megamorphic");
+    ASSERT_TRUE(site->count == VM_CALL_CACHE_WAYS + 1, "megamorphic site should stop caching");
+
+    freeVM();
+    return true;
+}
+
+static bool test_object_callees_are_keyed_by_identity(void) {
+    initVM();
+
+    ObjFunction* a = allocateFunction();
+    ObjFunction* b = allocateFunction();
+    ASSERT_TRUE(a && b, "function allocation");
+    a->arity = 1;
+    b->arity = 1;
+
+    const VMCallCacheEntry* entry_a = vm_call_cache_resolve(call_site, FUNCTION_VAL(a), 1);
+    const VMCallCacheEntry* entry_b = vm_call_cache_resolve(call_site, FUNCTION_VAL(b), 1);
+    ASSERT_TRUE(entry_a && entry_a->object == a && entry_a->kind == VM_CALL_TARGET_OBJECT, "first object");
+    ASSERT_TRUE(entry_b && entry_b->object == b && entry_b->function_index == UINT16_MAX, "second object");
+    ASSERT_TRUE(vm_call_cache_resolve(call_site, FUNCTION_VAL(a), 1) == entry_a, "first object should hit");
+
+    freeVM();
+    return true;
+}
+
+static bool test_enum_names_are_cached_until_collection(void) {
+    initVM();
+
+    ObjString* type_constant = allocateString("Shape", 5);
+    ObjString* variant_constant = allocateString("Circle", 6);
+    ASSERT_TRUE(type_constant && variant_constant, "string allocation");
+
+    ObjString* type_name = NULL;
+    ObjString* variant_name = NULL;
+    ASSERT_TRUE(vm_enum_cache_names(call_site, type_constant, variant_constant, &type_name, &variant_name),
+                "names should intern");
+    ASSERT_TRUE(type_name && variant_name, "both names should be set");
+    ASSERT_TRUE(vm.enum_cache_misses == 1, "first construction should miss");
+
+    ObjString* cached_type = NULL;
+    ObjString* cached_variant = NULL;
+    ASSERT_TRUE(vm_enum_cache_names(call_site, type_constant, variant_constant, &cached_type, &cached_variant),
+                "cached names should resolve");
+    ASSERT_TRUE(cached_type == type_name && cached_variant == variant_name, "hit should reuse interned names");
+    ASSERT_TRUE(vm.enum_cache_hits == 1, "second construction should hit");
+
+    vm_inline_cache_invalidate();
+    ASSERT_TRUE(vm_enum_cache_names(call_site, type_constant, variant_constant, &cached_type, &cached_variant),
+                "names should intern again");
+    ASSERT_TRUE(vm.enum_cache_misses == 2, "invalidation should drop the site");
+
+    freeVM();
+    return true;
+}
+
+int main(void) {
+    bool (*tests[])(void) = {
+        test_monomorphic_site_hits,
+        test_invalid_calls_are_not_cached,
+        test_site_goes_polymorphic_then_megamorphic,
+        test_object_callees_are_keyed_by_identity,
+        test_enum_names_are_cached_until_collection,
+    };
+
+    const char* names[] = {
+        "Monomorphic site hits",
+        "Invalid calls are not cached",
+        "Site goes polymorphic then megamorphic",
+        "Object callees are keyed by identity",
+        "Enum names are cached until collection",
+    };
+
+    int passed = 0;
+    int total = (int)(sizeof(tests) / sizeof(tests[0]));
+    for (int i = 0; i < total; i++) {
+        if (tests[i]()) {
+            printf("[PASS] %s\n", names[i]);
+            passed++;
+        } else {
+            printf("[FAIL] %s\n", names[i]);
+            return 1;
+        }
+    }
+
+    printf("%d/%d inline cache tests passed\n", passed, total);
+    return 0;
+}
@@ -0,0 +1,191 @@
+#include <stdbool.h>
+#include <stdint.h>
+#include <stdio.h>
+#include <stdlib.h>
+#include <time.h>
+
+#include "vm/jit_compile_queue.h"
+#include "vm/vm.h"
+#include "vm/vm_profiling.h"
+#include "vm/vm_tiering.h"
+
+#define ASSERT_TRUE(cond, message)                                                         \
+    do {                                                                                   \
+        if (!(cond)) {                                                                     \
+            fprintf(stderr, "Assertion failed: %s (%s:%d)\n", message, __FILE__, __LINE__); \
+            return false;                                                                  \
+        }                                                                                  \
+    } while (0)
+
+enum { FUNC_MAIN = 0 };
+
+enum { LOOP_0 = 0 };
+
+static void install_hot_loop(void) {
+    vm.functionCount = 1;
+
+    Chunk* loop_chunk = (Chunk*)malloc(sizeof(Chunk));
+    initChunk(loop_chunk);
+    writeChunk(loop_chunk, OP_RETURN_R, 1, 1, "compile_queue");
+    writeChunk(loop_chunk, 0, 1, 1, "compile_queue");
+    vm.functions[FUNC_MAIN].chunk = loop_chunk;
+    vm.functions[FUNC_MAIN].start = 0;
+    vm.functions[FUNC_MAIN].arity = 0;
+
+    HotPathSample* sample = &vm.profile[LOOP_0];
+    sample->func = FUNC_MAIN;
+    sample->loop = LOOP_0;
+    sample->hit_count = HOT_THRESHOLD - 1;
+    if (ORUS_JIT_WARMUP_REQUIRED > 0) {
+        sample->warmup_level = ORUS_JIT_WARMUP_REQUIRED - 1;
+    }
+}
+
+static bool wait_for_compile(void) {
+    // Up to two seconds; the thread normally finishes in well under a millisecond.
+    for (int waits = 0; waits < 2000; waits++) {
+        if (orus_jit_compile_queue_has_finished()) {
+            return true;
+        }
+        struct timespec pause = {0, 1000000};
+        nanosleep(&pause, NULL);
+    }
+    return orus_jit_compile_queue_has_finished();
+}
+
+static bool test_tier_up_installs_at_next_tick(void) {
+    initVM();
+
+    if (!vm.jit_enabled) {
+        freeVM();
+        return true;
+    }
+
+    vm.jit_background_compile = true;
+    install_hot_loop();
+
+    uint64_t base_compilations = vm.jit_compilation_count;
+    uint64_t base_invocations = vm.jit_invocation_count;
+
+    vm_profile_tick(&vm, FUNC_MAIN, LOOP_0);
+    bool queued = vm.jit_compiles_in_flight == 1 &&
+                  orus_jit_compile_queue_contains(FUNC_MAIN, LOOP_0);
+    bool deferred = vm.jit_compilation_count == base_compilations &&
+                    vm_jit_lookup_entry(FUNC_MAIN, LOOP_0) == NULL;
+
+    bool finished = wait_for_compile();
+    vm_jit_install_background_compiles(&vm);
+    JITEntry* entry = vm_jit_lookup_entry(FUNC_MAIN, LOOP_0);
+    bool installed = entry != NULL && entry->entry_point != NULL &&
+                     vm.jit_compiles_in_flight == 0 &&
+                     vm.jit_background_installs == 1 &&
+                     vm.jit_compilation_count == base_compilations + 1;
+    bool not_entered = vm.jit_invocation_count == base_invocations;
+
+    vm_profile_tick(&vm, FUNC_MAIN, LOOP_0);
+    bool entered = vm.jit_invocation_count > base_invocations;
+
+    freeVM();
+
+    ASSERT_TRUE(queued, "hot loop should be handed to the compile thread");
+    ASSERT_TRUE(deferred, "tier-up should not compile on the interpreter thread");
+    ASSERT_TRUE(finished, "compile thread should finish the job");
+    ASSERT_TRUE(installed, "finished job should be installed into the cache");
+    ASSERT_TRUE(not_entered, "install should not enter native code itself");
+    ASSERT_TRUE(entered, "next tick should enter the installed entry");
+    return true;
+}
+
+static bool test_invalidation_discards_result(void) {
+    initVM();
+
+    if (!vm.jit_enabled) {
+        freeVM();
+        return true;
+    }
+
+    vm.jit_background_compile = true;
+    install_hot_loop();
+
+    vm_profile_tick(&vm, FUNC_MAIN, LOOP_0);
+    bool queued = vm.jit_compiles_in_flight == 1;
+
+    vm_jit_flush_entries();
+    bool finished = wait_for_compile();
+    vm_jit_install_background_compiles(&vm);
+    bool discarded = vm.jit_background_discards == 1 &&
+                     vm.jit_background_installs == 0 &&
+                     vm.jit_compiles_in_flight == 0 &&
+                     vm_jit_lookup_entry(FUNC_MAIN, LOOP_0) == NULL;
+
+    freeVM();
+
+    ASSERT_TRUE(queued, "hot loop should be handed to the compile thread");
+    ASSERT_TRUE(finished, "compile thread should finish the job");
+    ASSERT_TRUE(discarded, "result compiled before a flush should be dropped");
+    return true;
+}
+
+static bool test_pending_job_does_not_requeue(void) {
+    initVM();
+
+    if (!vm.jit_enabled) {
+        freeVM();
+        return true;
+    }
+
+    vm.jit_background_compile = true;
+    install_hot_loop();
+
+    vm_profile_tick(&vm, FUNC_MAIN, LOOP_0);
+    HotPathSample* sample = &vm.profile[LOOP_0];
+    sample->hit_count = HOT_THRESHOLD - 1;
+    sample->cooldown_until_tick = 0;
+    if (ORUS_JIT_WARMUP_REQUIRED > 0) {
+        sample->warmup_level = ORUS_JIT_WARMUP_REQUIRED - 1;
+    }
+    if (orus_jit_compile_queue_has_finished()) {
+        // The first job already landed; nothing left to de-duplicate.
+        freeVM();
+        return true;
+    }
+    vm_profile_tick(&vm, FUNC_MAIN, LOOP_0);
+    uint32_t in_flight = vm.jit_compiles_in_flight;
+
+    // Teardown joins the thread and releases whatever it still holds.
+    freeVM();
+    bool stopped = !orus_jit_compile_queue_running();
+
+    ASSERT_TRUE(in_flight <= 1, "a loop already in the queue should not be submitted twice");
+    ASSERT_TRUE(stopped, "freeVM should stop the compile thread");
+    return true;
+}
+
+int main(void) {
+    bool (*tests[])(void) = {
+        test_tier_up_installs_at_next_tick,
+        test_invalidation_discards_result,
+        test_pending_job_does_not_requeue,
+    };
+
+    const char* names[] = {
+        "Tier-up installs at next tick",
+        "Invalidation discards result",
+        "Pending job does not requeue",
+    };
+
+    int passed = 0;
+    int total = (int)(sizeof(tests) / sizeof(tests[0]));
+    for (int i = 0; i < total; i++) {
+        if (tests[i]()) {
+            printf("[PASS] %s\n", names[i]);
+            passed++;
+        } else {
+            printf("[FAIL] %s\n", names[i]);
+            return 1;
+        }
+    }
+
+    printf("%d/%d JIT compile queue tests passed\n", passed, total);
+    return 0;
+}
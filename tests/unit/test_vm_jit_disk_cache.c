@@ -0,0 +1,305 @@
+#ifndef _WIN32
+#define _POSIX_C_SOURCE 200809L
+#endif
+
+#include <dirent.h>
+#include <stdbool.h>
+#include <stdint.h>
+#include <stdio.h>
+#include <stdlib.h>
+#include <string.h>
+#include <unistd.h>
+
+#include "vm/jit_disk_cache.h"
+#include "vm/jit_ir.h"
+#include "vm/jit_translation.h"
+#include "vm/vm.h"
+#include "vm/vm_profiling.h"
+
+#define ASSERT_TRUE(cond, message)                                                         \
+    do {                                                                                   \
+        if (!(cond)) {                                                                     \
+            fprintf(stderr, "Assertion failed: %s (%s:%d)\n", message, __FILE__, __LINE__); \
+            return false;                                                                  \
+        }                                                                                  \
+    } while (0)
+
+static char cache_root[64];
+
+static bool make_cache_root(void) {
+    strcpy(cache_root, "/tmp/orus_jit_cache_XXXXXX");
+    return mkdtemp(cache_root) != NULL;
+}
+
+static void remove_cache_root(void) {
+    char dir[128];
+    snprintf(dir, sizeof(dir), "%s/%s", cache_root, ORUS_JIT_DISK_CACHE_SUBDIR);
+    DIR* handle = opendir(dir);
+    if (handle) {
+        struct dirent* item;
+        while ((item = readdir(handle)) != NULL) {
+            if (item->d_name[0] == '.') {
+                continue;
+            }
+            char path[512];
+            snprintf(path, sizeof(path), "%s/%s", dir, item->d_name);
+            remove(path);
+        }
+        closedir(handle);
+    }
+    rmdir(dir);
+    rmdir(cache_root);
+}
+
+// Bytecode body the hand-built program claims to cover, plus one string.
+static Chunk* make_chunk(void) {
+    Chunk* chunk = (Chunk*)malloc(sizeof(Chunk));
+    initChunk(chunk);
+    for (int i = 0; i < 48; i++) {
+        writeChunk(chunk, (uint8_t)i, 1, 1, "disk_cache");
+    }
+    addConstant(chunk, I32_VAL(7));
+    addConstant(chunk, STRING_VAL(allocateString("label", 5)));
+    return chunk;
+}
+
+static void build_program(OrusJitIRProgram* program, const Chunk* chunk) {
+    orus_jit_ir_program_init(program);
+    program->source_chunk = (const struct Chunk*)chunk;
+    program->loop_index = 16;
+    program->loop_start_offset = 16;
+    program->loop_end_offset = 32;
+
+    OrusJitIRInstruction* add = orus_jit_ir_program_append(program);
+    add->opcode = ORUS_JIT_IR_OP_ADD_I32;
+    add->value_kind = ORUS_JIT_VALUE_I32;
+    add->bytecode_offset = 16;
+    add->operands.arithmetic.dst_reg = FRAME_REG_START;
+    add->operands.arithmetic.lhs_reg = FRAME_REG_START;
+    add->operands.arithmetic.rhs_reg = FRAME_REG_START + 1;
+
+    OrusJitIRInstruction* label = orus_jit_ir_program_append(program);
+    label->opcode = ORUS_JIT_IR_OP_LOAD_STRING_CONST;
+    label->value_kind = ORUS_JIT_VALUE_STRING;
+    label->bytecode_offset = 20;
+    label->operands.load_const.dst_reg = FRAME_REG_START + 2;
+    label->operands.load_const.constant_index = 1;
+    label->operands.load_const.immediate_bits = 0xDEADu;
+
+    OrusJitIRInstruction* back = orus_jit_ir_program_append(program);
+    back->opcode = ORUS_JIT_IR_OP_LOOP_BACK;
+    back->bytecode_offset = 28;
+    back->operands.loop_back.back_offset = 14;
+}
+
+static bool test_program_round_trips(void) {
+    initVM();
+    ASSERT_TRUE(make_cache_root(), "temporary cache directory should be created");
+    Chunk* chunk = make_chunk();
+
+    OrusJitIRProgram stored;
+    build_program(&stored, chunk);
+    uint8_t seeds[4] = {1, 2, 3, 4};
+    OrusJitDiskCacheKey key;
+    orus_jit_disk_cache_make_key(&vm, chunk, UINT16_MAX, 16, seeds, sizeof(seeds), &key);
+
+    bool written = orus_jit_disk_cache_store(cache_root, &key, chunk, &stored);
+    bool present = orus_jit_disk_cache_contains(cache_root, &key);
+
+    OrusJitIRProgram loaded;
+    orus_jit_ir_program_init(&loaded);
+    bool read = orus_jit_disk_cache_load(cache_root, &key, chunk, &loaded);
+
+    bool same = read && loaded.count == stored.count &&
+                loaded.source_chunk == (const struct Chunk*)chunk &&
+                loaded.loop_index == 16 && loaded.loop_start_offset == 16 &&
+                loaded.loop_end_offset == 32 && !loaded.whole_function &&
+                loaded.instructions[0].opcode == ORUS_JIT_IR_OP_ADD_I32 &&
+                loaded.instructions[0].operands.arithmetic.rhs_reg == FRAME_REG_START + 1 &&
+                loaded.instructions[2].operands.loop_back.back_offset == 14;
+    bool relinked = read && loaded.instructions[1].operands.load_const.immediate_bits ==
+                                (uint64_t)(uintptr_t)AS_STRING(chunk->constants.values[1]);
+
+    orus_jit_ir_program_reset(&loaded);
+    orus_jit_ir_program_reset(&stored);
+    freeChunk(chunk);
+    free(chunk);
+    remove_cache_root();
+    freeVM();
+
+    ASSERT_TRUE(written && present, "program should be written under the cache path");
+    ASSERT_TRUE(same, "loaded program should match the stored one");
+    ASSERT_TRUE(relinked, "string constants should point at this run's objects");
+    return true;
+}
+
+static bool test_stale_entries_are_rejected(void) {
+    initVM();
+    ASSERT_TRUE(make_cache_root(), "temporary cache directory should be created");
+    Chunk* chunk = make_chunk();
+
+    OrusJitIRProgram stored;
+    build_program(&stored, chunk);
+    uint8_t seeds[4] = {1, 2, 3, 4};
+    OrusJitDiskCacheKey key;
+    orus_jit_disk_cache_make_key(&vm, chunk, UINT16_MAX, 16, seeds, sizeof(seeds), &key);
+    bool written = orus_jit_disk_cache_store(cache_root, &key, chunk, &stored);
+
+    uint8_t other_seeds[4] = {1, 2, 3, 5};
+    OrusJitDiskCacheKey reseeded;
+    orus_jit_disk_cache_make_key(&vm, chunk, UINT16_MAX, 16, other_seeds,
+                                 sizeof(other_seeds), &reseeded);
+
+    OrusJitIRProgram loaded;
+    orus_jit_ir_program_init(&loaded);
+    bool seed_miss = reseeded.name_hash == key.name_hash &&
+                     !orus_jit_disk_cache_load(cache_root, &reseeded, chunk, &loaded) &&
+                     loaded.count == 0;
+
+    chunk->code[24] ^= 0xFFu;
+    bool body_miss = !orus_jit_disk_cache_load(cache_root, &key, chunk, &loaded) &&
+                     loaded.count == 0;
+    chunk->code[24] ^= 0xFFu;
+
+    orus_jit_rollout_set_stage(&vm, ORUS_JIT_ROLLOUT_STAGE_I32_ONLY);
+    OrusJitDiskCacheKey staged;
+    orus_jit_disk_cache_make_key(&vm, chunk, UINT16_MAX, 16, seeds, sizeof(seeds), &staged);
+    bool stage_miss = staged.name_hash != key.name_hash &&
+                      !orus_jit_disk_cache_contains(cache_root, &staged);
+
+    orus_jit_ir_program_reset(&stored);
+    freeChunk(chunk);
+    free(chunk);
+    remove_cache_root();
+    freeVM();
+
+    ASSERT_TRUE(written, "program should be written under the cache path");
+    ASSERT_TRUE(seed_miss, "different register seeds should not reuse the program");
+    ASSERT_TRUE(body_miss, "changed bytecode should not reuse the program");
+    ASSERT_TRUE(stage_miss, "a different rollout stage should name a different file");
+    return true;
+}
+
+static bool test_cached_loop_skips_warm_up(void) {
+    initVM();
+    if (!vm.jit_enabled || !vm.jit_backend) {
+        freeVM();
+        return true;
+    }
+    ASSERT_TRUE(make_cache_root(), "temporary cache directory should be created");
+    Chunk* chunk = make_chunk();
+    vm.chunk = chunk;
+    vm.cachePath = cache_root;
+
+    OrusJitIRProgram stored;
+    build_program(&stored, chunk);
+    OrusJitDiskCacheKey key;
+    orus_jit_disk_cache_make_key(&vm, chunk, UINT16_MAX, 16, NULL, 0u, &key);
+    bool written = orus_jit_disk_cache_store(cache_root, &key, chunk, &stored);
+
+    HotPathSample* cached = &vm.profile[16];
+    cached->func = UINT16_MAX;
+    cached->loop = 16;
+    vm_jit_disk_cache_probe_loop(&vm, cached);
+
+    HotPathSample* uncached = &vm.profile[17];
+    uncached->func = UINT16_MAX;
+    uncached->loop = 17;
+    vm_jit_disk_cache_probe_loop(&vm, uncached);
+
+    bool primed = cached->disk_cache_probed &&
+                  cached->hit_count == HOT_THRESHOLD - ORUS_JIT_DISK_CACHE_WARM_HITS - 1u &&
+                  cached->warmup_level == ORUS_JIT_WARMUP_REQUIRED - 1u;
+    bool cold = uncached->disk_cache_probed && uncached->hit_count == 0 &&
+                uncached->warmup_level == 0;
+
+    orus_jit_ir_program_reset(&stored);
+    vm.cachePath = NULL;
+    vm.chunk = NULL;
+    freeChunk(chunk);
+    free(chunk);
+    remove_cache_root();
+    freeVM();
+
+    ASSERT_TRUE(written, "program should be written under the cache path");
+    ASSERT_TRUE(primed, "loop with a cached program should be a few ticks from tier-up");
+    ASSERT_TRUE(cold, "loop without a cached program should warm up as usual");
+    return true;
+}
+
+static const char* loop_source =
+    "mut i: i64 = 0\n"
+    "mut s: i64 = 0\n"
+    "while i < 20000:\n"
+    "    s = s + i\n"
+    "    i = i + 1\n"
+    "expected: i64 = 199990000\n"
+    "assert_eq(\"sum\", s, expected)\n";
+
+static bool run_loop(uint64_t* stores, uint64_t* hits, bool* ok) {
+    initVM();
+    if (!vm.jit_enabled) {
+        freeVM();
+        return false;
+    }
+    vm.jit_background_compile = false;
+    vm.cachePath = cache_root;
+
+    *ok = interpret(loop_source) == INTERPRET_OK;
+    *stores = vm.jit_disk_cache_stores;
+    *hits = vm.jit_disk_cache_hits;
+
+    vm.cachePath = NULL;
+    freeVM();
+    return true;
+}
+
+static bool test_second_run_reuses_translation(void) {
+    ASSERT_TRUE(make_cache_root(), "temporary cache directory should be created");
+
+    uint64_t cold_stores = 0, cold_hits = 0;
+    uint64_t warm_stores = 0, warm_hits = 0;
+    bool cold_ok = false, warm_ok = false;
+    if (!run_loop(&cold_stores, &cold_hits, &cold_ok)) {
+        remove_cache_root();
+        return true;
+    }
+    run_loop(&warm_stores, &warm_hits, &warm_ok);
+    remove_cache_root();
+
+    ASSERT_TRUE(cold_ok && warm_ok, "both runs should compute the interpreter's result");
+    ASSERT_TRUE(cold_stores == 1 && cold_hits == 0, "first run should translate and store");
+    ASSERT_TRUE(warm_hits == 1 && warm_stores == 0, "second run should load the program");
+    return true;
+}
+
+int main(void) {
+    bool (*tests[])(void) = {
+        test_program_round_trips,
+        test_stale_entries_are_rejected,
+        test_cached_loop_skips_warm_up,
+        test_second_run_reuses_translation,
+    };
+
+    const char* names[] = {
+        "Program round trips",
+        "Stale entries are rejected",
+        "Cached loop skips warm-up",
+        "Second run reuses translation",
+    };
+
+    int passed = 0;
+    int total = (int)(sizeof(tests) / sizeof(tests[0]));
+    for (int i = 0; i < total; i++) {
+        if (tests[i]()) {
+            printf("[PASS] %s\n", names[i]);
+            passed++;
+        } else {
+            printf("[FAIL] %s\n", names[i]);
+            return 1;
+        }
+    }
+
+    printf("%d/%d JIT disk cache tests passed\n", passed, total);
+    return 0;
+}
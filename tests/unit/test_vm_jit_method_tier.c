@@ -0,0 +1,271 @@
+#include <stdbool.h>
+#include <stdint.h>
+#include <stdio.h>
+#include <stdlib.h>
+
+#include "vm/jit_translation.h"
+#include "vm/vm.h"
+#include "vm/vm_profiling.h"
+#include "vm/vm_tiering.h"
+
+#define ASSERT_TRUE(cond, message)                                                         \
+    do {                                                                                   \
+        if (!(cond)) {                                                                     \
+            fprintf(stderr, "Assertion failed: %s (%s:%d)\n", message, __FILE__, __LINE__); \
+            return false;                                                                  \
+        }                                                                                  \
+    } while (0)
+
+enum { FUNC_INC = 0 };
+
+static void write_bytes(Chunk* chunk, const uint8_t* bytes, size_t count) {
+    for (size_t i = 0; i < count; i++) {
+        writeChunk(chunk, bytes[i], 1, 1, "method_tier");
+    }
+}
+
+// fn inc(n: i32) -> i32: return n + 1, with n in the first frame register.
+static void install_function_at(FunctionId func, bool supported) {
+    Chunk* chunk = (Chunk*)malloc(sizeof(Chunk));
+    initChunk(chunk);
+    int one = addConstant(chunk, I32_VAL(1));
+    const uint8_t body[] = {
+        OP_LOAD_I32_CONST, 193, (uint8_t)(one >> 8), (uint8_t)one,
+        OP_ADD_I32_TYPED, 192, FRAME_REG_START, 193,
+        OP_RETURN_R, 192,
+    };
+    if (!supported) {
+        const uint8_t global_read[] = {OP_LOAD_GLOBAL, 194, 0};
+        write_bytes(chunk, global_read, sizeof(global_read));
+    }
+    write_bytes(chunk, body, sizeof(body));
+
+    vm.functions[func].chunk = chunk;
+    vm.functions[func].start = 0;
+    vm.functions[func].arity = 1;
+}
+
+static void install_function(bool supported) {
+    vm.functionCount = 1;
+    install_function_at(FUNC_INC, supported);
+}
+
+static void run_calls_to(FunctionId func, uint32_t count) {
+    for (uint32_t i = 0; i < count; i++) {
+        vm_profile_function_hit(&vm, func);
+    }
+}
+
+static void run_calls(uint32_t count) {
+    run_calls_to(FUNC_INC, count);
+}
+
+static bool test_translation_covers_whole_function(void) {
+    initVM();
+    install_function(true);
+
+    OrusJitIRProgram program;
+    orus_jit_ir_program_init(&program);
+    OrusJitTranslationResult result =
+        orus_jit_translate_function(&vm, &vm.functions[FUNC_INC], FUNC_INC, &program);
+
+    bool ok = result.status == ORUS_JIT_TRANSLATE_STATUS_OK;
+    bool whole = program.whole_function && program.loop_index == UINT16_MAX &&
+                 program.function_index == FUNC_INC;
+    bool shape = program.count == 3 &&
+                 program.instructions[0].opcode == ORUS_JIT_IR_OP_LOAD_I32_CONST &&
+                 program.instructions[1].opcode == ORUS_JIT_IR_OP_ADD_I32 &&
+                 program.instructions[2].opcode == ORUS_JIT_IR_OP_RETURN_VALUE &&
+                 program.instructions[2].operands.return_value.value_reg == 192;
+
+    orus_jit_ir_program_reset(&program);
+    freeVM();
+
+    ASSERT_TRUE(ok, "typed function body should translate");
+    ASSERT_TRUE(whole, "program should be marked as a whole-function program");
+    ASSERT_TRUE(shape, "each bytecode instruction should lower to one IR instruction");
+    return true;
+}
+
+static bool test_hot_function_gets_method_entry(void) {
+    initVM();
+
+    if (!vm.jit_enabled) {
+        freeVM();
+        return true;
+    }
+
+    vm.jit_background_compile = false;
+    install_function(true);
+    uint64_t base_compilations = vm.jit_compilation_count;
+
+    run_calls(HOT_FUNCTION_THRESHOLD - 1);
+    bool cold = vm.jit_function_entries[FUNC_INC] == NULL;
+    run_calls(1);
+
+    JITEntry* entry = vm_jit_lookup_entry(FUNC_INC, UINT16_MAX);
+    bool installed = vm.jit_function_entries[FUNC_INC] != NULL && entry != NULL &&
+                     entry->method_entry_point == vm.jit_function_entries[FUNC_INC] &&
+                     vm.jit_compilation_count == base_compilations + 1;
+
+    vm_jit_flush_entries();
+    bool flushed = vm.jit_function_entries[FUNC_INC] == NULL;
+
+    freeVM();
+
+    ASSERT_TRUE(cold, "function below the threshold should stay interpreted");
+    ASSERT_TRUE(installed, "hot function should get a cached method entry");
+    ASSERT_TRUE(flushed, "flushing the cache should drop the method entry");
+    return true;
+}
+
+static bool test_unsupported_function_is_blocklisted(void) {
+    initVM();
+
+    if (!vm.jit_enabled) {
+        freeVM();
+        return true;
+    }
+
+    vm.jit_background_compile = false;
+    install_function(false);
+    uint64_t base_failures = vm.jit_translation_failures.total_failures;
+
+    run_calls(HOT_FUNCTION_THRESHOLD);
+    bool blocklisted = vm.jit_function_blocklist[FUNC_INC] &&
+                       vm.jit_function_entries[FUNC_INC] == NULL &&
+                       vm.jit_translation_failures.total_failures == base_failures + 1;
+
+    run_calls(HOT_FUNCTION_THRESHOLD);
+    bool not_retried = vm.jit_translation_failures.total_failures == base_failures + 1;
+
+    freeVM();
+
+    ASSERT_TRUE(blocklisted, "untranslatable function should be blocklisted");
+    ASSERT_TRUE(not_retried, "blocklisted function should not be translated again");
+    return true;
+}
+
+static bool test_many_rejected_functions_do_not_abort(void) {
+    initVM();
+
+    if (!vm.jit_enabled) {
+        freeVM();
+        return true;
+    }
+
+    // More rejections than ORUS_JIT_SUPPORTED_FAILURE_ALERT_THRESHOLD: the
+    // method tier turning functions down is expected, not a bailout alert.
+    enum { REJECTED = ORUS_JIT_SUPPORTED_FAILURE_ALERT_THRESHOLD + 4 };
+    vm.jit_background_compile = false;
+    vm.functionCount = REJECTED;
+    for (FunctionId func = 0; func < REJECTED; func++) {
+        install_function_at(func, false);
+    }
+    uint64_t base_failures = vm.jit_translation_failures.total_failures;
+
+    bool blocklisted = true;
+    for (FunctionId func = 0; func < REJECTED; func++) {
+        run_calls_to(func, HOT_FUNCTION_THRESHOLD);
+        blocklisted = blocklisted && vm.jit_function_blocklist[func] &&
+                      vm.jit_function_entries[func] == NULL;
+    }
+    bool recorded =
+        vm.jit_translation_failures.total_failures == base_failures + REJECTED;
+
+    freeVM();
+
+    ASSERT_TRUE(blocklisted, "every untranslatable function should be blocklisted");
+    ASSERT_TRUE(recorded, "every rejection should still be logged");
+    return true;
+}
+
+static bool test_native_recursion_matches_interpreter(void) {
+    initVM();
+
+    if (!vm.jit_enabled) {
+        freeVM();
+        return true;
+    }
+
+    const char* source =
+        "fn fib(n: i32) -> i32:\n"
+        "    if n < 2:\n"
+        "        return n\n"
+        "    return fib(n - 1) + fib(n - 2)\n"
+        "assert_eq(\"fib\", fib(20), 6765)\n";
+
+    InterpretResult result = interpret(source);
+    bool ok = result == INTERPRET_OK;
+    bool native = vm.jit_invocation_count > 0 && vm.jit_native_type_deopts == 0;
+
+    freeVM();
+
+    ASSERT_TRUE(ok, "recursive function should compute the interpreter's result");
+    ASSERT_TRUE(native, "recursive calls should run through the method entry");
+    return true;
+}
+
+static bool test_overflow_resumes_in_interpreter(void) {
+    initVM();
+
+    if (!vm.jit_enabled) {
+        freeVM();
+        return true;
+    }
+
+    const char* source =
+        "fn grow(n: i32, by: i32) -> i32:\n"
+        "    return n * by\n"
+        "mut i = 0\n"
+        "mut x = 1\n"
+        "while i < 2000:\n"
+        "    x = grow(x, 1)\n"
+        "    i = i + 1\n"
+        "x = grow(2000000000, 2)\n";
+
+    InterpretResult result = interpret(source);
+    bool reported = result == INTERPRET_RUNTIME_ERROR;
+    bool exited = vm.jit_invocation_count > 0 && vm.jit_native_type_deopts == 1;
+
+    freeVM();
+
+    ASSERT_TRUE(reported, "overflow in native code should still raise the runtime error");
+    ASSERT_TRUE(exited, "overflow should leave native code through a guard exit");
+    return true;
+}
+
+int main(void) {
+    bool (*tests[])(void) = {
+        test_translation_covers_whole_function,
+        test_hot_function_gets_method_entry,
+        test_unsupported_function_is_blocklisted,
+        test_many_rejected_functions_do_not_abort,
+        test_native_recursion_matches_interpreter,
+        test_overflow_resumes_in_interpreter,
+    };
+
+    const char* names[] = {
+        "Translation covers whole function",
+        "Hot function gets method entry",
+        "Unsupported function is blocklisted",
+        "Many rejected functions do not abort",
+        "Native recursion matches interpreter",
+        "Overflow resumes in interpreter",
+    };
+
+    int passed = 0;
+    int total = (int)(sizeof(tests) / sizeof(tests[0]));
+    for (int i = 0; i < total; i++) {
+        if (tests[i]()) {
+            printf("[PASS] %s\n", names[i]);
+            passed++;
+        } else {
+            printf("[FAIL] %s\n", names[i]);
+            return 1;
+        }
+    }
+
+    printf("%d/%d JIT method tier tests passed\n", passed, total);
+    return 0;
+}
@@ -0,0 +1,254 @@
+#include <stdbool.h>
+#include <stdint.h>
+#include <stdio.h>
+#include <stdlib.h>
+#include <string.h>
+
+#include "vm/jit_backend.h"
+#include "vm/jit_ir.h"
+#include "vm/jit_translation.h"
+#include "vm/register_file.h"
+#include "vm/vm.h"
+#include "vm/vm_comparison.h"
+#include "vm/vm_tiering.h"
+
+#define ASSERT_TRUE(cond, message)                                                         \
+    do {                                                                                   \
+        if (!(cond)) {                                                                     \
+            fprintf(stderr, "Assertion failed: %s (%s:%d)\n", message, __FILE__, __LINE__); \
+            return false;                                                                  \
+        }                                                                                  \
+    } while (0)
+
+enum {
+    REG_I = FRAME_REG_START,
+    REG_LIMIT = FRAME_REG_START + 1,
+    REG_STEP = FRAME_REG_START + 2,
+    REG_COND = TEMP_REG_START,
+};
+
+enum {
+    HEADER_OFFSET = 20,
+    BRANCH_OFFSET = 24,
+    BODY_OFFSET = 28,
+    BACK_EDGE_OFFSET = 32,
+    EXIT_OFFSET = 40,
+};
+
+// while i < limit: i = i + step
+static void build_loop(OrusJitIRProgram* program, OrusJitIRInstruction* instructions) {
+    memset(instructions, 0, sizeof(OrusJitIRInstruction) * 5);
+
+    instructions[0].opcode = ORUS_JIT_IR_OP_LT_I32;
+    instructions[0].value_kind = ORUS_JIT_VALUE_BOOL;
+    instructions[0].bytecode_offset = HEADER_OFFSET;
+    instructions[0].operands.arithmetic.dst_reg = REG_COND;
+    instructions[0].operands.arithmetic.lhs_reg = REG_I;
+    instructions[0].operands.arithmetic.rhs_reg = REG_LIMIT;
+
+    instructions[1].opcode = ORUS_JIT_IR_OP_JUMP_IF_NOT_SHORT;
+    instructions[1].bytecode_offset = BRANCH_OFFSET;
+    instructions[1].operands.jump_if_not_short.predicate_reg = REG_COND;
+    instructions[1].operands.jump_if_not_short.bytecode_length = 4u;
+    instructions[1].operands.jump_if_not_short.offset = EXIT_OFFSET - BRANCH_OFFSET - 4u;
+
+    instructions[2].opcode = ORUS_JIT_IR_OP_ADD_I32;
+    instructions[2].value_kind = ORUS_JIT_VALUE_I32;
+    instructions[2].bytecode_offset = BODY_OFFSET;
+    instructions[2].operands.arithmetic.dst_reg = REG_I;
+    instructions[2].operands.arithmetic.lhs_reg = REG_I;
+    instructions[2].operands.arithmetic.rhs_reg = REG_STEP;
+
+    instructions[3].opcode = ORUS_JIT_IR_OP_LOOP_BACK;
+    instructions[3].bytecode_offset = BACK_EDGE_OFFSET;
+    instructions[3].operands.loop_back.back_offset = BACK_EDGE_OFFSET + 2u - HEADER_OFFSET;
+
+    instructions[4].opcode = ORUS_JIT_IR_OP_RETURN;
+    instructions[4].bytecode_offset = BACK_EDGE_OFFSET + 2u;
+
+    memset(program, 0, sizeof(*program));
+    program->instructions = instructions;
+    program->count = 5;
+    program->capacity = 5;
+    program->loop_index = HEADER_OFFSET;
+    program->loop_start_offset = HEADER_OFFSET;
+    program->loop_end_offset = BACK_EDGE_OFFSET + 2u;
+}
+
+static const OrusJitOsrSlot* find_slot(const OrusJitOsrMap* map, uint16_t reg) {
+    for (uint16_t i = 0; i < map->slot_count; i++) {
+        if (map->slots[i].reg == reg) {
+            return &map->slots[i];
+        }
+    }
+    return NULL;
+}
+
+static bool live_in_bit(const OrusJitOsrMap* map, uint16_t reg) {
+    return (map->live_in[reg / 64u] >> (reg % 64u)) & 1u;
+}
+
+// Chunk whose size covers the exit offset so ip arithmetic stays in bounds.
+static Chunk* make_chunk(void) {
+    Chunk* chunk = (Chunk*)malloc(sizeof(Chunk));
+    initChunk(chunk);
+    for (int i = 0; i < EXIT_OFFSET + 8; i++) {
+        writeChunk(chunk, OP_HALT, 1, 1, "osr");
+    }
+    return chunk;
+}
+
+static bool test_map_records_live_in_and_live_out(void) {
+    OrusJitIRInstruction instructions[5];
+    OrusJitIRProgram program;
+    build_loop(&program, instructions);
+
+    bool built = orus_jit_ir_program_build_osr_map(&program);
+    const OrusJitOsrMap* map = &program.osr;
+    const OrusJitOsrSlot* counter = find_slot(map, REG_I);
+    const OrusJitOsrSlot* limit = find_slot(map, REG_LIMIT);
+    const OrusJitOsrSlot* cond = find_slot(map, REG_COND);
+
+    ASSERT_TRUE(built && map->valid && map->slot_count == 4, "typed loop should get a map");
+    ASSERT_TRUE(counter && counter->kind == ORUS_JIT_VALUE_I32 &&
+                    counter->flags == (ORUS_JIT_OSR_LIVE_IN | ORUS_JIT_OSR_LIVE_OUT),
+                "loop-carried counter should be live in and out");
+    ASSERT_TRUE(limit && limit->flags == ORUS_JIT_OSR_LIVE_IN, "read-only bound is live in only");
+    ASSERT_TRUE(cond && cond->kind == ORUS_JIT_VALUE_BOOL && cond->flags == ORUS_JIT_OSR_LIVE_OUT,
+                "predicate written before its read should not be live in");
+    ASSERT_TRUE(live_in_bit(map, REG_I) && live_in_bit(map, REG_STEP) && !live_in_bit(map, REG_COND),
+                "live-in mask should mirror the slot flags");
+    return true;
+}
+
+static bool test_kind_conflict_invalidates_map(void) {
+    OrusJitIRInstruction instructions[5];
+    OrusJitIRProgram program;
+    build_loop(&program, instructions);
+    // Reuse the predicate temporary as an i32 sum.
+    instructions[2].operands.arithmetic.dst_reg = REG_COND;
+
+    bool built = orus_jit_ir_program_build_osr_map(&program);
+
+    ASSERT_TRUE(!built && !program.osr.valid && program.osr.slot_count == 0,
+                "register holding two kinds should leave no map");
+    return true;
+}
+
+static bool run_entry(Chunk* chunk, bool* compiled) {
+    OrusJitIRInstruction instructions[5];
+    OrusJitIRProgram program;
+    build_loop(&program, instructions);
+    program.source_chunk = chunk;
+    orus_jit_ir_program_build_osr_map(&program);
+
+    orus_jit_rollout_set_stage(&vm, ORUS_JIT_ROLLOUT_STAGE_STRINGS);
+    struct OrusJitBackend* backend = orus_jit_backend_create();
+    JITEntry entry;
+    memset(&entry, 0, sizeof(entry));
+    *compiled = backend && program.osr.valid &&
+                orus_jit_backend_compile_ir(backend, &program, &entry) == JIT_BACKEND_OK;
+    if (*compiled) {
+        vm.chunk = chunk;
+        vm.ip = chunk->code + BACK_EDGE_OFFSET + 2;
+        orus_jit_backend_vtable()->enter(&vm, &entry);
+        orus_jit_backend_release_entry(backend, &entry);
+    }
+    if (backend) {
+        orus_jit_backend_destroy(backend);
+    }
+    return *compiled;
+}
+
+static bool test_entry_imports_boxed_state_and_exit_resumes(void) {
+    initVM();
+    Chunk* chunk = make_chunk();
+
+    // Values live only in the boxed file; the typed window holds stale kinds.
+    vm_set_register_safe(REG_I, I32_VAL(0));
+    vm_set_register_safe(REG_LIMIT, I32_VAL(1000));
+    vm_set_register_safe(REG_STEP, I32_VAL(3));
+    vm_set_register_safe(REG_COND, I32_VAL(7));
+    vm.typed_regs.reg_types[REG_I] = REG_TYPE_NONE;
+    vm.typed_regs.reg_types[REG_LIMIT] = REG_TYPE_NONE;
+    vm.typed_regs.reg_types[REG_STEP] = REG_TYPE_NONE;
+
+    bool compiled = false;
+    run_entry(chunk, &compiled);
+
+    Value counter = vm_get_register_safe(REG_I);
+    bool entered = vm.jit_osr_entries == 1 && vm.jit_osr_entry_rejects == 0;
+    bool exited = vm.jit_osr_exits == 1 && vm.jit_native_type_deopts == 0;
+    bool resumed = vm.ip == chunk->code + BACK_EDGE_OFFSET + 2 + (EXIT_OFFSET - HEADER_OFFSET);
+    bool result = IS_I32(counter) && AS_I32(counter) == 1002;
+
+    freeChunk(chunk);
+    free(chunk);
+    vm.chunk = NULL;
+    freeVM();
+
+    ASSERT_TRUE(compiled, "loop should compile to native code");
+    ASSERT_TRUE(entered, "entry should import the boxed live-ins");
+    ASSERT_TRUE(exited, "leaving the loop should take the OSR exit, not a deopt");
+    ASSERT_TRUE(resumed, "interpreter should resume at the exit target");
+    ASSERT_TRUE(result, "live-out counter should reach the boxed register file");
+    return true;
+}
+
+static bool test_mismatched_live_in_rejects_entry(void) {
+    initVM();
+    Chunk* chunk = make_chunk();
+
+    vm_set_register_safe(REG_I, I32_VAL(5));
+    vm_set_register_safe(REG_LIMIT, F64_VAL(10.0));
+    vm_set_register_safe(REG_STEP, I32_VAL(1));
+
+    bool compiled = false;
+    run_entry(chunk, &compiled);
+
+    Value counter = vm_get_register_safe(REG_I);
+    bool rejected = vm.jit_osr_entry_rejects == 1 && vm.jit_osr_entries == 0;
+    bool untouched = IS_I32(counter) && AS_I32(counter) == 5 &&
+                     vm.ip == chunk->code + BACK_EDGE_OFFSET + 2;
+
+    freeChunk(chunk);
+    free(chunk);
+    vm.chunk = NULL;
+    freeVM();
+
+    ASSERT_TRUE(compiled, "loop should compile to native code");
+    ASSERT_TRUE(rejected, "live-in of the wrong kind should reject the entry");
+    ASSERT_TRUE(untouched, "rejected entry should not run native code");
+    return true;
+}
+
+int main(void) {
+    bool (*tests[])(void) = {
+        test_map_records_live_in_and_live_out,
+        test_kind_conflict_invalidates_map,
+        test_entry_imports_boxed_state_and_exit_resumes,
+        test_mismatched_live_in_rejects_entry,
+    };
+
+    const char* names[] = {
+        "Map records live-in and live-out",
+        "Kind conflict invalidates map",
+        "Entry imports boxed state and exit resumes",
+        "Mismatched live-in rejects entry",
+    };
+
+    int passed = 0;
+    int total = (int)(sizeof(tests) / sizeof(tests[0]));
+    for (int i = 0; i < total; i++) {
+        if (tests[i]()) {
+            printf("[PASS] %s\n", names[i]);
+            passed++;
+        } else {
+            printf("[FAIL] %s\n", names[i]);
+            return 1;
+        }
+    }
+
+    printf("%d/%d JIT OSR tests passed\n", passed, total);
+    return 0;
+}
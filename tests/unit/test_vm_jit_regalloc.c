@@ -0,0 +1,411 @@
+#include <stdbool.h>
+#include <stdint.h>
+#include <stdio.h>
+#include <stdlib.h>
+#include <string.h>
+
+#include "vm/jit_backend.h"
+#include "vm/jit_ir.h"
+#include "vm/jit_regalloc.h"
+#include "vm/jit_translation.h"
+#include "vm/register_file.h"
+#include "vm/vm.h"
+#include "vm/vm_comparison.h"
+#include "vm/vm_profiling.h"
+#include "vm/vm_tiering.h"
+
+#define ASSERT_TRUE(cond, message)                                                         \
+    do {                                                                                   \
+        if (!(cond)) {                                                                     \
+            fprintf(stderr, "Assertion failed: %s (%s:%d)\n", message, __FILE__, __LINE__); \
+            return false;                                                                  \
+        }                                                                                  \
+    } while (0)
+
+enum {
+    REG_I = FRAME_REG_START,
+    REG_LIMIT = FRAME_REG_START + 1,
+    REG_STEP = FRAME_REG_START + 2,
+    REG_COND = TEMP_REG_START,
+};
+
+enum {
+    HEADER_OFFSET = 20,
+    BRANCH_OFFSET = 24,
+    BODY_OFFSET = 28,
+    BACK_EDGE_OFFSET = 32,
+    EXIT_OFFSET = 40,
+};
+
+static const uint8_t MACHINE_POOLS[ORUS_JIT_REG_CLASS_COUNT] = {10u, 14u};
+
+// while i < limit: i = i + step
+static void build_loop(OrusJitIRProgram* program, OrusJitIRInstruction* instructions) {
+    memset(instructions, 0, sizeof(OrusJitIRInstruction) * 5);
+
+    instructions[0].opcode = ORUS_JIT_IR_OP_LT_I32;
+    instructions[0].value_kind = ORUS_JIT_VALUE_BOOL;
+    instructions[0].bytecode_offset = HEADER_OFFSET;
+    instructions[0].operands.arithmetic.dst_reg = REG_COND;
+    instructions[0].operands.arithmetic.lhs_reg = REG_I;
+    instructions[0].operands.arithmetic.rhs_reg = REG_LIMIT;
+
+    instructions[1].opcode = ORUS_JIT_IR_OP_JUMP_IF_NOT_SHORT;
+    instructions[1].bytecode_offset = BRANCH_OFFSET;
+    instructions[1].operands.jump_if_not_short.predicate_reg = REG_COND;
+    instructions[1].operands.jump_if_not_short.bytecode_length = 4u;
+    instructions[1].operands.jump_if_not_short.offset = EXIT_OFFSET - BRANCH_OFFSET - 4u;
+
+    instructions[2].opcode = ORUS_JIT_IR_OP_ADD_I32;
+    instructions[2].value_kind = ORUS_JIT_VALUE_I32;
+    instructions[2].bytecode_offset = BODY_OFFSET;
+    instructions[2].operands.arithmetic.dst_reg = REG_I;
+    instructions[2].operands.arithmetic.lhs_reg = REG_I;
+    instructions[2].operands.arithmetic.rhs_reg = REG_STEP;
+
+    instructions[3].opcode = ORUS_JIT_IR_OP_LOOP_BACK;
+    instructions[3].bytecode_offset = BACK_EDGE_OFFSET;
+    instructions[3].operands.loop_back.back_offset = BACK_EDGE_OFFSET + 2u - HEADER_OFFSET;
+
+    memset(program, 0, sizeof(*program));
+    program->instructions = instructions;
+    program->count = 4;
+    program->capacity = 5;
+    program->loop_index = HEADER_OFFSET;
+    program->loop_start_offset = HEADER_OFFSET;
+    program->loop_end_offset = BACK_EDGE_OFFSET + 2u;
+}
+
+// Same loop with the back-edge safepoint the translator inserts.
+static void build_polled_loop(OrusJitIRProgram* program, OrusJitIRInstruction* instructions) {
+    build_loop(program, instructions);
+    instructions[4] = instructions[3];
+    memset(&instructions[3], 0, sizeof(instructions[3]));
+    instructions[3].opcode = ORUS_JIT_IR_OP_SAFEPOINT;
+    instructions[3].bytecode_offset = BACK_EDGE_OFFSET;
+    program->count = 5;
+}
+
+static const OrusJitRegAllocWeb* find_live_in_web(const OrusJitRegAlloc* alloc,
+                                                  uint16_t reg) {
+    for (uint16_t i = 0; i < alloc->web_count; i++) {
+        if (alloc->webs[i].reg == reg && alloc->webs[i].live_in) {
+            return &alloc->webs[i];
+        }
+    }
+    return NULL;
+}
+
+// No two webs of a class may share a machine register while both are live.
+static bool assignments_disjoint(const OrusJitRegAlloc* alloc) {
+    for (uint16_t a = 0; a < alloc->web_count; a++) {
+        for (uint16_t b = (uint16_t)(a + 1u); b < alloc->web_count; b++) {
+            const OrusJitRegAllocWeb* lhs = &alloc->webs[a];
+            const OrusJitRegAllocWeb* rhs = &alloc->webs[b];
+            if (lhs->location == ORUS_JIT_REGALLOC_SPILLED ||
+                lhs->location != rhs->location ||
+                orus_jit_regalloc_class(lhs->kind) != orus_jit_regalloc_class(rhs->kind)) {
+                continue;
+            }
+            if (lhs->start <= rhs->end && rhs->start <= lhs->end) {
+                return false;
+            }
+        }
+    }
+    return true;
+}
+
+static Chunk* make_chunk(void) {
+    Chunk* chunk = (Chunk*)malloc(sizeof(Chunk));
+    initChunk(chunk);
+    for (int i = 0; i < EXIT_OFFSET + 8; i++) {
+        writeChunk(chunk, OP_HALT, 1, 1, "regalloc");
+    }
+    return chunk;
+}
+
+static bool test_loop_values_get_machine_registers(void) {
+    OrusJitIRInstruction instructions[5];
+    OrusJitIRProgram program;
+    build_loop(&program, instructions);
+
+    OrusJitRegAlloc alloc;
+    orus_jit_regalloc_init(&alloc);
+    bool built = orus_jit_regalloc_build(&program, MACHINE_POOLS, &alloc);
+    const OrusJitRegAllocWeb* counter = find_live_in_web(&alloc, REG_I);
+    bool counter_in_register = counter && counter->location != ORUS_JIT_REGALLOC_SPILLED &&
+                               counter->start == 0u && counter->end == 3u;
+    bool entry_ok = alloc.entry.valid && alloc.entry.slot_count == 3u;
+    bool disjoint = assignments_disjoint(&alloc);
+    uint16_t spills = alloc.spill_count;
+    orus_jit_regalloc_release(&alloc);
+
+    ASSERT_TRUE(built && spills == 0u, "small typed loop should allocate without spills");
+    ASSERT_TRUE(counter_in_register, "loop-carried counter should stay in a register all loop");
+    ASSERT_TRUE(entry_ok, "counter, limit and step should be loaded on entry");
+    ASSERT_TRUE(disjoint, "overlapping webs should not share a register");
+    return true;
+}
+
+static bool test_small_pool_spills(void) {
+    OrusJitIRInstruction instructions[5];
+    OrusJitIRProgram program;
+    build_loop(&program, instructions);
+
+    const uint8_t pools[ORUS_JIT_REG_CLASS_COUNT] = {1u, 1u};
+    OrusJitRegAlloc alloc;
+    orus_jit_regalloc_init(&alloc);
+    bool built = orus_jit_regalloc_build(&program, pools, &alloc);
+    uint16_t spills = alloc.spill_count;
+    bool disjoint = assignments_disjoint(&alloc);
+    orus_jit_regalloc_release(&alloc);
+
+    ASSERT_TRUE(built, "pool pressure should not fail the allocation");
+    ASSERT_TRUE(spills >= 2u, "webs beyond the pool should keep their window slot");
+    ASSERT_TRUE(disjoint, "the remaining register should hold one web at a time");
+    return true;
+}
+
+static bool test_temporary_reuse_splits_webs(void) {
+    OrusJitIRInstruction instructions[5];
+    OrusJitIRProgram program;
+    build_loop(&program, instructions);
+    // Reuse the predicate temporary as an i32 sum; the OSR map rejects this.
+    instructions[2].operands.arithmetic.dst_reg = REG_COND;
+
+    OrusJitRegAlloc alloc;
+    orus_jit_regalloc_init(&alloc);
+    bool built = orus_jit_regalloc_build(&program, MACHINE_POOLS, &alloc);
+    bool split = built && alloc.sites[0].def != alloc.sites[2].def &&
+                 alloc.webs[alloc.sites[0].def].kind == ORUS_JIT_VALUE_BOOL &&
+                 alloc.webs[alloc.sites[2].def].kind == ORUS_JIT_VALUE_I32;
+    orus_jit_regalloc_release(&alloc);
+
+    ASSERT_TRUE(built, "register holding two kinds in turn should still allocate");
+    ASSERT_TRUE(split, "each kind should get its own web");
+    return true;
+}
+
+static bool test_unsupported_programs_are_rejected(void) {
+    OrusJitIRInstruction instructions[5];
+    OrusJitIRProgram program;
+    build_loop(&program, instructions);
+    instructions[3].opcode = ORUS_JIT_IR_OP_RETURN;
+
+    OrusJitRegAlloc alloc;
+    orus_jit_regalloc_init(&alloc);
+    bool unsupported = !orus_jit_regalloc_build(&program, MACHINE_POOLS, &alloc) &&
+                       alloc.web_count == 0u && alloc.site_count == 0u;
+
+    build_loop(&program, instructions);
+    // An i64 read of a value only ever written as i32.
+    instructions[2].opcode = ORUS_JIT_IR_OP_ADD_I64;
+    instructions[2].value_kind = ORUS_JIT_VALUE_I64;
+    instructions[2].operands.arithmetic.dst_reg = REG_STEP;
+    instructions[2].operands.arithmetic.rhs_reg = REG_STEP;
+    bool conflict = !orus_jit_regalloc_build(&program, MACHINE_POOLS, &alloc) &&
+                    alloc.web_count == 0u;
+    orus_jit_regalloc_release(&alloc);
+
+    ASSERT_TRUE(unsupported, "programs outside the typed subset should be left to the linear emitter");
+    ASSERT_TRUE(conflict, "a web read with two kinds should fail the allocation");
+    return true;
+}
+
+static bool run_entry(Chunk* chunk, bool polled, bool* compiled, bool* register_form) {
+    OrusJitIRInstruction instructions[5];
+    OrusJitIRProgram program;
+    if (polled) {
+        build_polled_loop(&program, instructions);
+    } else {
+        build_loop(&program, instructions);
+    }
+    program.source_chunk = chunk;
+
+    orus_jit_rollout_set_stage(&vm, ORUS_JIT_ROLLOUT_STAGE_STRINGS);
+    struct OrusJitBackend* backend = orus_jit_backend_create();
+    JITEntry entry;
+    memset(&entry, 0, sizeof(entry));
+    *compiled = backend &&
+                orus_jit_backend_compile_ir(backend, &program, &entry) == JIT_BACKEND_OK;
+    *register_form = *compiled && entry.debug_name &&
+                     strcmp(entry.debug_name, "orus_jit_regalloc_x86") == 0;
+    if (*compiled) {
+        vm.chunk = chunk;
+        vm.ip = chunk->code + BACK_EDGE_OFFSET + 2;
+        orus_jit_backend_vtable()->enter(&vm, &entry);
+        orus_jit_backend_release_entry(backend, &entry);
+    }
+    if (backend) {
+        orus_jit_backend_destroy(backend);
+    }
+    return *compiled;
+}
+
+static bool test_register_loop_publishes_results_on_exit(void) {
+    initVM();
+    Chunk* chunk = make_chunk();
+
+    vm_set_register_safe(REG_I, I32_VAL(0));
+    vm_set_register_safe(REG_LIMIT, I32_VAL(1000));
+    vm_set_register_safe(REG_STEP, I32_VAL(3));
+    vm.typed_regs.reg_types[REG_I] = REG_TYPE_NONE;
+
+    bool compiled = false;
+    bool register_form = false;
+    run_entry(chunk, false, &compiled, &register_form);
+
+    Value counter = vm_get_register_safe(REG_I);
+    bool entered = vm.jit_osr_entries == 1 && vm.jit_osr_entry_rejects == 0;
+    bool exited = vm.jit_osr_exits == 1 && vm.jit_native_type_deopts == 0;
+    bool resumed = vm.ip == chunk->code + BACK_EDGE_OFFSET + 2 + (EXIT_OFFSET - HEADER_OFFSET);
+    bool result = IS_I32(counter) && AS_I32(counter) == 1002;
+
+    freeChunk(chunk);
+    free(chunk);
+    vm.chunk = NULL;
+    freeVM();
+
+    ASSERT_TRUE(compiled, "loop should compile to native code");
+#if defined(__x86_64__) || defined(_M_X64)
+    ASSERT_TRUE(register_form, "typed loop should use the register-form emitter");
+#endif
+    ASSERT_TRUE(entered, "entry should import the boxed live-ins");
+    ASSERT_TRUE(exited, "leaving the loop should take an exit stub");
+    ASSERT_TRUE(resumed, "interpreter should resume at the exit target");
+    ASSERT_TRUE(result, "counter held in a register should reach the boxed register file");
+    return true;
+}
+
+static bool test_overflow_resumes_before_failing_add(void) {
+    initVM();
+    Chunk* chunk = make_chunk();
+
+    vm_set_register_safe(REG_I, I32_VAL(INT32_MAX - 2500));
+    vm_set_register_safe(REG_LIMIT, I32_VAL(INT32_MAX));
+    vm_set_register_safe(REG_STEP, I32_VAL(1000));
+
+    bool compiled = false;
+    bool register_form = false;
+    run_entry(chunk, false, &compiled, &register_form);
+
+    Value counter = vm_get_register_safe(REG_I);
+    bool resumed = vm.jit_osr_exits == 1 &&
+                   vm.ip == chunk->code + BACK_EDGE_OFFSET + 2 + (BODY_OFFSET - HEADER_OFFSET);
+    bool precise = IS_I32(counter) && AS_I32(counter) == INT32_MAX - 500;
+
+    freeChunk(chunk);
+    free(chunk);
+    vm.chunk = NULL;
+    freeVM();
+
+    ASSERT_TRUE(compiled, "loop should compile to native code");
+    ASSERT_TRUE(resumed, "overflow should resume the interpreter at the add");
+    ASSERT_TRUE(precise, "counter should hold its value from before the failing add");
+    return true;
+}
+
+static bool test_collecting_safepoint_leaves_loop(void) {
+    initVM();
+    Chunk* chunk = make_chunk();
+
+    vm_set_register_safe(REG_I, I32_VAL(0));
+    vm_set_register_safe(REG_LIMIT, I32_VAL(1000));
+    vm_set_register_safe(REG_STEP, I32_VAL(3));
+    size_t saved_threshold = gcThreshold;
+    gcThreshold = 0;
+
+    bool compiled = false;
+    bool register_form = false;
+    run_entry(chunk, true, &compiled, &register_form);
+    gcThreshold = saved_threshold;
+
+    Value counter = vm_get_register_safe(REG_I);
+    bool collected = vm.gcCount >= 1;
+    bool resumed = vm.jit_osr_exits == 1 &&
+                   vm.ip == chunk->code + BACK_EDGE_OFFSET + 2 + (BACK_EDGE_OFFSET - HEADER_OFFSET);
+    bool result = IS_I32(counter) && AS_I32(counter) == 3;
+
+    freeChunk(chunk);
+    free(chunk);
+    vm.chunk = NULL;
+    freeVM();
+
+    ASSERT_TRUE(compiled, "loop should compile to native code");
+#if defined(__x86_64__) || defined(_M_X64)
+    ASSERT_TRUE(register_form, "polled loop should use the register-form emitter");
+#endif
+    ASSERT_TRUE(collected, "due collection should run from the safepoint");
+    ASSERT_TRUE(resumed, "collecting safepoint should resume the interpreter at the back-edge");
+    ASSERT_TRUE(result, "first iteration's counter should be published");
+    return true;
+}
+
+static const char* sum_source =
+    "mut i: i64 = 0\n"
+    "mut s: i64 = 0\n"
+    "mut x: f64 = 0.0\n"
+    "while i < 50000:\n"
+    "    s = s + i * 3\n"
+    "    x = x + 0.5\n"
+    "    i = i + 1\n"
+    "expected: i64 = 3749925000\n"
+    "assert_eq(\"sum\", s, expected)\n"
+    "assert_eq(\"half\", x, 25000.0)\n";
+
+static bool test_source_loop_matches_interpreter(void) {
+    initVM();
+    if (!vm.jit_enabled) {
+        freeVM();
+        return true;
+    }
+    vm.jit_background_compile = false;
+
+    InterpretResult result = interpret(sum_source);
+    bool native = vm.jit_osr_entries >= 1 && vm.jit_osr_exits >= 1 &&
+                  vm.jit_native_type_deopts == 0;
+    freeVM();
+
+    ASSERT_TRUE(result == INTERPRET_OK, "native loop should compute the interpreter's result");
+    ASSERT_TRUE(native, "loop should enter and leave native code without deopts");
+    return true;
+}
+
+int main(void) {
+    bool (*tests[])(void) = {
+        test_loop_values_get_machine_registers,
+        test_small_pool_spills,
+        test_temporary_reuse_splits_webs,
+        test_unsupported_programs_are_rejected,
+        test_register_loop_publishes_results_on_exit,
+        test_overflow_resumes_before_failing_add,
+        test_collecting_safepoint_leaves_loop,
+        test_source_loop_matches_interpreter,
+    };
+
+    const char* names[] = {
+        "Loop values get machine registers",
+        "Small pool spills",
+        "Temporary reuse splits webs",
+        "Unsupported programs are rejected",
+        "Register loop publishes results on exit",
+        "Overflow resumes before failing add",
+        "Collecting safepoint leaves loop",
+        "Source loop matches interpreter",
+    };
+
+    int passed = 0;
+    int total = (int)(sizeof(tests) / sizeof(tests[0]));
+    for (int i = 0; i < total; i++) {
+        if (tests[i]()) {
+            printf("[PASS] %s\n", names[i]);
+            passed++;
+        } else {
+            printf("[FAIL] %s\n", names[i]);
+            return 1;
+        }
+    }
+
+    printf("%d/%d JIT register allocation tests passed\n", passed, total);
+    return 0;
+}
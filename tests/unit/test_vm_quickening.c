@@ -0,0 +1,151 @@
+#include <stdbool.h>
+#include <stdint.h>
+#include <stdio.h>
+
+#include "vm/vm.h"
+#include "vm/vm_comparison.h"
+#include "vm/vm_dispatch.h"
+#include "vm/vm_tiering.h"
+
+#define ASSERT_TRUE(cond, message)                                                         \
+    do {                                                                                   \
+        if (!(cond)) {                                                                     \
+            fprintf(stderr, "Assertion failed: %s (%s:%d)\n", message, __FILE__, __LINE__); \
+            return false;                                                                  \
+        }                                                                                  \
+    } while (0)
+
+static void write_binary_program(Chunk* chunk, uint8_t opcode) {
+    writeChunk(chunk, opcode, 1, 1, "quickening");
+    writeChunk(chunk, 2, 1, 1, "quickening");
+    writeChunk(chunk, 0, 1, 1, "quickening");
+    writeChunk(chunk, 1, 1, 1, "quickening");
+    writeChunk(chunk, OP_HALT, 1, 1, "quickening");
+}
+
+static bool run_once(Chunk* chunk) {
+    vm.chunk = chunk;
+    vm.ip = chunk->code;
+    return vm_run_dispatch() == INTERPRET_OK;
+}
+
+static bool test_eq_quickens_after_warmup(void) {
+    initVM();
+
+    Chunk chunk;
+    initChunk(&chunk);
+    write_binary_program(&chunk, OP_EQ_R);
+    vm_set_register_safe(0, I32_VAL(7));
+    vm_set_register_safe(1, I32_VAL(7));
+
+    for (int i = 0; i < VM_QUICKENING_WARMUP - 1; i++) {
+        ASSERT_TRUE(run_once(&chunk), "generic equality should run");
+    }
+    ASSERT_TRUE(chunk.code[0] == OP_EQ_R, "site should stay generic during warmup");
+
+    ASSERT_TRUE(run_once(&chunk), "generic equality should run");
+    ASSERT_TRUE(chunk.code[0] == OP_EQ_I32_QUICK, "warm i32 site should be quickened");
+    ASSERT_TRUE(vm.quickened_sites == 1, "quickening should be counted");
+
+    vm_set_register_safe(1, I32_VAL(8));
+    ASSERT_TRUE(run_once(&chunk), "quickened equality should run");
+    Value result = vm_get_register_safe(2);
+    ASSERT_TRUE(IS_BOOL(result) && !AS_BOOL(result), "quickened equality should compare values");
+
+    freeChunk(&chunk);
+    freeVM();
+    return true;
+}
+
+static bool test_mismatch_dequickens(void) {
+    initVM();
+
+    Chunk chunk;
+    initChunk(&chunk);
+    write_binary_program(&chunk, OP_NE_R);
+    vm_set_register_safe(0, I32_VAL(1));
+    vm_set_register_safe(1, I32_VAL(2));
+
+    for (int i = 0; i < VM_QUICKENING_WARMUP; i++) {
+        ASSERT_TRUE(run_once(&chunk), "generic inequality should run");
+    }
+    ASSERT_TRUE(chunk.code[0] == OP_NE_I32_QUICK, "warm i32 site should be quickened");
+
+    vm_set_register_safe(0, BOOL_VAL(true));
+    vm_set_register_safe(1, BOOL_VAL(true));
+    ASSERT_TRUE(run_once(&chunk), "mismatched operands should fall back");
+    Value result = vm_get_register_safe(2);
+    ASSERT_TRUE(IS_BOOL(result) && !AS_BOOL(result), "fallback should use generic equality");
+    ASSERT_TRUE(chunk.code[0] == OP_NE_R, "mismatch should restore the generic opcode");
+    ASSERT_TRUE(vm.dequickened_sites == 1, "de-quickening should be counted");
+
+    freeChunk(&chunk);
+    freeVM();
+    return true;
+}
+
+static bool test_unstable_site_stays_generic(void) {
+    initVM();
+
+    Chunk chunk;
+    initChunk(&chunk);
+    write_binary_program(&chunk, OP_ADD_I32_R);
+
+    for (int round = 0; round < VM_QUICKENING_MAX_DEOPTS; round++) {
+        vm_set_register_safe(0, I32_VAL(40));
+        vm_set_register_safe(1, I32_VAL(2));
+        for (int i = 0; i < VM_QUICKENING_WARMUP; i++) {
+            ASSERT_TRUE(run_once(&chunk), "generic add should run");
+        }
+        ASSERT_TRUE(chunk.code[0] == OP_ADD_I32_QUICK, "warm i32 site should be quickened");
+        Value sum = vm_get_register_safe(2);
+        ASSERT_TRUE(IS_I32(sum) && AS_I32(sum) == 42, "add should produce the sum");
+
+        vm_set_register_safe(0, I64_VAL(40));
+        vm_set_register_safe(1, I64_VAL(2));
+        ASSERT_TRUE(run_once(&chunk), "mismatched add should fall back");
+        ASSERT_TRUE(chunk.code[0] == OP_ADD_I32_R, "mismatch should restore the generic opcode");
+        sum = vm_get_register_safe(2);
+        ASSERT_TRUE(IS_I64(sum) && AS_I64(sum) == 42, "fallback should add i64 operands");
+    }
+
+    vm_set_register_safe(0, I32_VAL(1));
+    vm_set_register_safe(1, I32_VAL(1));
+    for (int i = 0; i < VM_QUICKENING_WARMUP * 2; i++) {
+        ASSERT_TRUE(run_once(&chunk), "generic add should run");
+    }
+    ASSERT_TRUE(chunk.code[0] == OP_ADD_I32_R, "site that keeps de-quickening should stay generic");
+
+    freeChunk(&chunk);
+    freeVM();
+    return true;
+}
+
+int main(void) {
+    bool (*tests[])(void) = {
+        test_eq_quickens_after_warmup,
+        test_mismatch_dequickens,
+        test_unstable_site_stays_generic,
+    };
+
+    const char* names[] = {
+        "Equality quickens after warmup",
+        "Operand mismatch de-quickens",
+        "Unstable site stays generic",
+    };
+
+    int passed = 0;
+    int total = (int)(sizeof(tests) / sizeof(tests[0]));
+    for (int i = 0; i < total; i++) {
+        if (tests[i]()) {
+            printf("[PASS] %s\n", names[i]);
+            passed++;
+        } else {
+            printf("[FAIL] %s\n", names[i]);
+            return 1;
+        }
+    }
+
+    printf("%d/%d quickening tests passed\n", passed, total);
+    return 0;
+}
@@ -0,0 +1,137 @@
+#include <stdbool.h>
+#include <stdint.h>
+#include <stdio.h>
+
+#include "vm/register_cache.h"
+#include "vm/register_file.h"
+#include "vm/spill_manager.h"
+#include "vm/vm.h"
+
+Value* get_register_internal(RegisterFile* rf, uint16_t id);
+
+#define ASSERT_TRUE(cond, message)                                                         \
+    do {                                                                                   \
+        if (!(cond)) {                                                                     \
+            fprintf(stderr, "Assertion failed: %s (%s:%d)\n", message, __FILE__, __LINE__); \
+            return false;                                                                  \
+        }                                                                                  \
+    } while (0)
+
+static RegisterCacheStats cache_stats(void) {
+    RegisterCacheStats stats = {0};
+    register_file_cache_stats(&vm.register_file, &stats);
+    return stats;
+}
+
+static bool test_direct_windows_bypass_cache(void) {
+    initVM();
+    enable_register_caching(&vm.register_file);
+    ASSERT_TRUE(vm.register_file.cache != NULL, "enabling should create the cache");
+
+    set_register(&vm.register_file, 3, I32_VAL(1));
+    set_register(&vm.register_file, FRAME_REG_START + 2, I32_VAL(2));
+    set_register(&vm.register_file, TEMP_REG_START + 1, I32_VAL(3));
+    ASSERT_TRUE(AS_I32(*get_register(&vm.register_file, 3)) == 1, "global should round trip");
+    ASSERT_TRUE(AS_I32(*get_register(&vm.register_file, FRAME_REG_START + 2)) == 2,
+                "frame register should round trip");
+    ASSERT_TRUE(AS_I32(*get_register(&vm.register_file, TEMP_REG_START + 1)) == 3,
+                "temp register should round trip");
+
+    RegisterCacheStats stats = cache_stats();
+    ASSERT_TRUE(stats.hits == 0 && stats.misses == 0,
+                "directly indexed registers must not consult the cache");
+
+    freeVM();
+    return true;
+}
+
+static bool test_module_registers_hit_cache(void) {
+    initVM();
+    enable_register_caching(&vm.register_file);
+
+    uint16_t id = (uint16_t)(MODULE_REG_START + 4);
+    Value* backing = get_register_internal(&vm.register_file, id);
+    set_register(&vm.register_file, id, I32_VAL(42));
+    ASSERT_TRUE(AS_I32(*backing) == 42, "store should reach the module window storage");
+    ASSERT_TRUE(AS_I32(vm.registers[id]) == 42, "store should keep the legacy mirror");
+
+    Value* slot = get_register(&vm.register_file, id);
+    ASSERT_TRUE(slot == backing, "lookups should return the module slot");
+    ASSERT_TRUE(get_register(&vm.register_file, id) == slot, "repeat lookups should agree");
+
+    RegisterCacheStats stats = cache_stats();
+    ASSERT_TRUE(stats.misses == 1, "only the first access should miss");
+    ASSERT_TRUE(stats.hits == 2, "later accesses should hit");
+
+    disable_register_caching(&vm.register_file);
+    get_register(&vm.register_file, id);
+    ASSERT_TRUE(cache_stats().hits == 2, "disabled cache should not count lookups");
+
+    freeVM();
+    return true;
+}
+
+static bool test_spill_resize_invalidates_entries(void) {
+    initVM();
+    enable_register_caching(&vm.register_file);
+    SpillManager* manager = vm.register_file.spilled_registers;
+    ASSERT_TRUE(manager != NULL, "spill manager should exist");
+
+    uint16_t id = SPILL_REG_START;
+    set_register(&vm.register_file, id, I32_VAL(7));
+    Value* slot = get_register(&vm.register_file, id);
+    ASSERT_TRUE(slot == spill_register_slot(manager, id), "lookups should return the spill slot");
+    *slot = I32_VAL(8);
+
+    Value restored;
+    ASSERT_TRUE(unspill_register_value(manager, id, &restored) && AS_I32(restored) == 8,
+                "writes through the slot should persist");
+
+    uint32_t generation = spill_manager_generation(manager);
+    for (uint16_t i = 1; i < 256; i++) {
+        set_spill_register_value(manager, (uint16_t)(SPILL_REG_START + i), I32_VAL(i));
+    }
+    ASSERT_TRUE(spill_manager_generation(manager) != generation, "growing the table should move entries");
+
+    Value* moved = get_register(&vm.register_file, id);
+    ASSERT_TRUE(moved == spill_register_slot(manager, id), "stale entries must be re-resolved");
+    ASSERT_TRUE(AS_I32(*moved) == 8, "value should survive the resize");
+    ASSERT_TRUE(cache_stats().invalidations >= 1, "resize should be counted as an invalidation");
+
+    remove_spilled_register(manager, id);
+    set_register(&vm.register_file, id, I32_VAL(9));
+    ASSERT_TRUE(AS_I32(*get_register(&vm.register_file, id)) == 9,
+                "removed registers should be re-inserted rather than served from the cache");
+
+    freeVM();
+    return true;
+}
+
+int main(void) {
+    bool (*tests[])(void) = {
+        test_direct_windows_bypass_cache,
+        test_module_registers_hit_cache,
+        test_spill_resize_invalidates_entries,
+    };
+
+    const char* names[] = {
+        "Directly indexed windows bypass the cache",
+        "Module registers hit the cache",
+        "Spill table resize invalidates cached slots",
+    };
+
+    int passed = 0;
+    int total = (int)(sizeof(tests) / sizeof(tests[0]));
+    for (int i = 0; i < total; i++) {
+        if (tests[i]()) {
+            printf("[PASS] %s\n", names[i]);
+            passed++;
+        } else {
+            printf("[FAIL] %s\n", names[i]);
+            return 1;
+        }
+    }
+
+    printf("%d/%d register cache tests passed\n", passed, total);
+    return 0;
+}
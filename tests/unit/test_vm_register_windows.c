@@ -568,6 +568,208 @@ static bool test_recycled_frame_drops_dead_values(void) {
     return success;
 }
 
+static bool test_call_arguments_move_without_staging(void) {
+    initVM();
+
+    RegisterFile* rf = &vm.register_file;
+    CallFrame* caller = allocate_frame(rf);
+    if (!caller) {
+        fprintf(stderr, "Failed to allocate caller frame\n");
+        freeVM();
+        return false;
+    }
+
+    uint16_t first_arg = (uint16_t)(FRAME_REG_START + 1);
+    ObjString* label = allocateString("argument", 8);
+    vm_store_i32_typed_hot(first_arg, 41);
+    vm_set_register_safe((uint16_t)(first_arg + 1), STRING_VAL(label));
+
+    TypedRegisterWindow* caller_window = vm_active_typed_window();
+    bool success = true;
+    if (!typed_window_slot_dirty(caller_window, first_arg)) {
+        fprintf(stderr, "Expected the typed argument to start dirty in the caller\n");
+        success = false;
+    }
+
+    uint16_t param_base = calculateParameterBaseRegister(2);
+    CallFrame* callee = register_file_push_call_frame(rf, first_arg, 2, param_base, NULL);
+    if (!callee) {
+        fprintf(stderr, "Failed to push callee frame\n");
+        freeVM();
+        return false;
+    }
+
+    int32_t typed_arg = 0;
+    if (!vm_try_read_i32_typed(param_base, &typed_arg) || typed_arg != 41 ||
+        typed_window_slot_dirty(vm_active_typed_window(), param_base)) {
+        fprintf(stderr, "Typed argument should arrive live and clean in the callee\n");
+        success = false;
+    }
+    Value boxed = callee->registers[param_base - FRAME_REG_START];
+    if (!IS_I32(boxed) || AS_I32(boxed) != 41) {
+        fprintf(stderr, "Boxed parameter slot should hold the typed argument\n");
+        success = false;
+    }
+    Value heap_arg = vm_get_register_safe((uint16_t)(param_base + 1));
+    if (!IS_STRING(heap_arg) || AS_STRING(heap_arg) != label) {
+        fprintf(stderr, "Heap argument should be passed by reference\n");
+        success = false;
+    }
+    if (callee->register_count != param_base - FRAME_REG_START + 2) {
+        fprintf(stderr, "Callee register_count should cover its parameters, found %u\n",
+                callee->register_count);
+        success = false;
+    }
+    if (!typed_window_slot_dirty(caller_window, first_arg)) {
+        fprintf(stderr, "Passing an argument must not write back into the caller\n");
+        success = false;
+    }
+
+    vm_store_i32_typed_hot(param_base, 42);
+    if (!register_file_rebind_tail_call(rf, param_base, 2, param_base, NULL)) {
+        fprintf(stderr, "Tail call rebind failed\n");
+        success = false;
+    }
+    Value rebound = vm_get_register_safe(param_base);
+    Value rebound_heap = vm_get_register_safe((uint16_t)(param_base + 1));
+    if (!IS_I32(rebound) || AS_I32(rebound) != 42 || !IS_STRING(rebound_heap) ||
+        AS_STRING(rebound_heap) != label || vm.frameCount != 2) {
+        fprintf(stderr, "Tail call should rebind overlapping arguments in place\n");
+        success = false;
+    }
+
+    deallocate_frame(rf);
+    if (AS_I32(vm_get_register_safe(first_arg)) != 41) {
+        fprintf(stderr, "Caller argument should survive the call\n");
+        success = false;
+    }
+    deallocate_frame(rf);
+
+    freeVM();
+    return success;
+}
+
+static bool test_sized_windows_share_register_stack(void) {
+    initVM();
+
+    RegisterFile* rf = &vm.register_file;
+    CallFrame* caller = allocate_frame(rf);
+    if (!caller) {
+        fprintf(stderr, "Failed to allocate caller frame\n");
+        freeVM();
+        return false;
+    }
+
+    bool success = true;
+    vm_set_register_safe(FRAME_REG_START, I32_VAL(7));
+
+    FrameWindowLayout layout = {2, 3};
+    uint16_t param_base = calculateParameterBaseRegister(1);
+    CallFrame* callee = register_file_push_call_frame(rf, FRAME_REG_START, 1, param_base, &layout);
+    if (!callee) {
+        fprintf(stderr, "Failed to push sized callee frame\n");
+        freeVM();
+        return false;
+    }
+    if (callee->register_capacity != 2 || callee->temp_capacity != 3 ||
+        callee->temps != callee->registers + 2 ||
+        callee->registers != caller->temps + caller->temp_capacity ||
+        rf->stack_top != callee->stack_base + 5) {
+        fprintf(stderr, "Callee should reserve exactly its compiler-sized window\n");
+        success = false;
+    }
+
+    // A register outside the reported window widens the top frame in place.
+    vm_set_register_safe((uint16_t)(TEMP_REG_START + 1), I32_VAL(11));
+    vm_set_register_safe((uint16_t)(FRAME_REG_START + 40), I32_VAL(13));
+    if (callee->register_capacity != FRAME_REGISTERS || callee->temp_capacity != TEMP_REGISTERS ||
+        AS_I32(vm_get_register_safe(param_base)) != 7 ||
+        AS_I32(vm_get_register_safe((uint16_t)(TEMP_REG_START + 1))) != 11 ||
+        AS_I32(vm_get_register_safe((uint16_t)(FRAME_REG_START + 40))) != 13) {
+        fprintf(stderr, "Widening should keep parameters and temporaries intact\n");
+        success = false;
+    }
+
+    // Deep chains grow the stack; frames must be rebased onto the new block.
+    int pushed = 0;
+    while (rf->stack_capacity <= VM_REGISTER_STACK_INITIAL_SLOTS && pushed < 200) {
+        if (!register_file_push_call_frame(rf, FRAME_REG_START, 1, param_base, NULL)) {
+            fprintf(stderr, "Failed to push frame %d while growing the stack\n", pushed);
+            success = false;
+            break;
+        }
+        pushed++;
+    }
+    if (rf->stack_capacity <= VM_REGISTER_STACK_INITIAL_SLOTS ||
+        callee->registers != rf->stack + callee->stack_base ||
+        AS_I32(callee->registers[40]) != 13) {
+        fprintf(stderr, "Register stack growth should rebase live frames\n");
+        success = false;
+    }
+    if (AS_I32(vm_get_register_safe(param_base)) != 7) {
+        fprintf(stderr, "Arguments should propagate through the grown stack\n");
+        success = false;
+    }
+
+    while (pushed-- > 0) {
+        deallocate_frame(rf);
+    }
+    deallocate_frame(rf);
+    if (rf->stack_top != caller->stack_base + FRAME_REGISTERS + TEMP_REGISTERS ||
+        AS_I32(vm_get_register_safe(FRAME_REG_START)) != 7) {
+        fprintf(stderr, "Popping frames should release their stack slots\n");
+        success = false;
+    }
+    deallocate_frame(rf);
+
+    freeVM();
+    return success;
+}
+
+static bool test_spill_windows_are_frame_relative(void) {
+    initVM();
+
+    RegisterFile* rf = &vm.register_file;
+    SpillManager* manager = rf->spilled_registers;
+    bool success = true;
+
+    set_register(rf, SPILL_REG_START, I32_VAL(1));
+    set_register(rf, (uint16_t)(SPILL_REG_START + 1), I32_VAL(2));
+    if (spill_register_slot(manager, (uint16_t)(SPILL_REG_START + 1)) !=
+        spill_register_slot(manager, SPILL_REG_START) + 1) {
+        fprintf(stderr, "Spill slots should be laid out densely\n");
+        success = false;
+    }
+
+    CallFrame* frame = register_file_push_call_frame(rf, 0, 0, FRAME_REG_START, NULL);
+    if (!frame || frame->spill_base != SPILL_REG_START + 2) {
+        fprintf(stderr, "Frame spill window should start above the live top-level slots\n");
+        freeVM();
+        return false;
+    }
+
+    set_register(rf, SPILL_REG_START, I32_VAL(10));
+    set_register(rf, (uint16_t)(SPILL_REG_START + 300), I32_VAL(30));
+    if (frame->spill_count != 301 || AS_I32(*get_register(rf, SPILL_REG_START)) != 10 ||
+        AS_I32(*get_register(rf, (uint16_t)(SPILL_REG_START + 300))) != 30) {
+        fprintf(stderr, "Frame spill slots should resolve relative to the frame window\n");
+        success = false;
+    }
+
+    deallocate_frame(rf);
+    Value top_level;
+    if (AS_I32(*get_register(rf, SPILL_REG_START)) != 1 ||
+        AS_I32(*get_register(rf, (uint16_t)(SPILL_REG_START + 1))) != 2 ||
+        unspill_register_value(manager, (uint16_t)(SPILL_REG_START + 2), &top_level) ||
+        spill_manager_top(manager) != SPILL_REG_START + 2) {
+        fprintf(stderr, "Popping a frame should release only its spill window\n");
+        success = false;
+    }
+
+    freeVM();
+    return success;
+}
+
 int main(void) {
     struct {
         const char* name;
@@ -581,6 +783,9 @@ int main(void) {
         {"Frame pool allocates from static storage", test_frame_pool_allocation_limits},
         {"Recursive calls exhaust frame pool gracefully", test_recursive_frame_pool_exhaustion},
         {"Recycled frame drops dead register and temp values", test_recycled_frame_drops_dead_values},
+        {"Call arguments move without staging copies", test_call_arguments_move_without_staging},
+        {"Sized windows share one register stack", test_sized_windows_share_register_stack},
+        {"Spill windows are frame-relative", test_spill_windows_are_frame_relative},
     };
 
     int passed = 0;
@@ -0,0 +1,101 @@
+#include <stdbool.h>
+#include <stdint.h>
+#include <stdio.h>
+#include <string.h>
+
+#include "runtime/memory.h"
+#include "vm/vm.h"
+#include "vm/vm_string_ops.h"
+
+#define ASSERT_TRUE(cond, message)                                                         \
+    do {                                                                                   \
+        if (!(cond)) {                                                                     \
+            fprintf(stderr, "Assertion failed: %s (%s:%d)\n", message, __FILE__, __LINE__); \
+            return false;                                                                  \
+        }                                                                                  \
+    } while (0)
+
+#define NAME_COUNT 5000
+
+static bool test_interning_is_keyed_by_content(void) {
+    initVM();
+
+    ObjArray* keep = allocateArray(NAME_COUNT);
+    vm.register_file.globals[0] = ARRAY_VAL(keep);
+    char buffer[32];
+    for (int i = 0; i < NAME_COUNT; i++) {
+        int length = snprintf(buffer, sizeof(buffer), "name_%d", i);
+        ObjString* name = intern_string(buffer, length);
+        ASSERT_TRUE(name->hash == string_hash_bytes(buffer, (size_t)length),
+                    "interned strings should cache their hash");
+        ASSERT_TRUE(arrayPush(keep, STRING_VAL(name)), "push should succeed");
+    }
+    ASSERT_TRUE(globalStringTable.total_interned >= NAME_COUNT, "every name should be interned");
+    ASSERT_TRUE(globalStringTable.total_interned * 4 <= globalStringTable.capacity * 3,
+                "the table should grow to stay under its load factor");
+
+    for (int i = 0; i < NAME_COUNT; i++) {
+        int length = snprintf(buffer, sizeof(buffer), "name_%d", i);
+        ObjString* again = intern_string(buffer, length);
+        ASSERT_TRUE(again == AS_STRING(keep->elements[i]), "equal contents should intern to one object");
+    }
+
+    ObjString* prefix = intern_string("name_1", 5);
+    ASSERT_TRUE(prefix != AS_STRING(keep->elements[1]), "prefixes must not match longer strings");
+
+    freeVM();
+    return true;
+}
+
+static bool test_table_entries_are_weak(void) {
+    initVM();
+
+    ObjString* rooted = intern_string("rooted", 6);
+    vm.register_file.globals[0] = STRING_VAL(rooted);
+    char buffer[32];
+    for (int i = 0; i < NAME_COUNT; i++) {
+        int length = snprintf(buffer, sizeof(buffer), "temp_%d", i);
+        intern_string(buffer, length);
+    }
+    size_t grown_capacity = globalStringTable.capacity;
+
+    collectGarbage();
+    ASSERT_TRUE(globalStringTable.total_interned < NAME_COUNT,
+                "unreachable interned strings should leave the table");
+    ASSERT_TRUE(globalStringTable.capacity < grown_capacity, "a mostly empty table should shrink");
+    ASSERT_TRUE(intern_string("rooted", 6) == rooted, "rooted interned strings keep their identity");
+
+    ObjString* revived = intern_string("temp_7", 6);
+    ASSERT_TRUE(revived->length == 6 && memcmp(revived->chars, "temp_7", 6) == 0,
+                "re-interning a collected string should build a fresh copy");
+
+    freeVM();
+    return true;
+}
+
+int main(void) {
+    bool (*tests[])(void) = {
+        test_interning_is_keyed_by_content,
+        test_table_entries_are_weak,
+    };
+
+    const char* names[] = {
+        "Interning is keyed by content",
+        "Table entries are weak",
+    };
+
+    int passed = 0;
+    int total = (int)(sizeof(tests) / sizeof(tests[0]));
+    for (int i = 0; i < total; i++) {
+        if (tests[i]()) {
+            printf("[PASS] %s\n", names[i]);
+            passed++;
+        } else {
+            printf("[FAIL] %s\n", names[i]);
+            return 1;
+        }
+    }
+
+    printf("%d/%d string interning tests passed\n", passed, total);
+    return 0;
+}
@@ -0,0 +1,142 @@
+#include <stdbool.h>
+#include <stdint.h>
+#include <stdio.h>
+#include <string.h>
+
+#include "runtime/memory.h"
+#include "vm/vm.h"
+#include "vm/vm_string_ops.h"
+
+#define ASSERT_TRUE(cond, message)                                                         \
+    do {                                                                                   \
+        if (!(cond)) {                                                                     \
+            fprintf(stderr, "Assertion failed: %s (%s:%d)\n", message, __FILE__, __LINE__); \
+            return false;                                                                  \
+        }                                                                                  \
+    } while (0)
+
+#define APPEND_COUNT 2000
+
+static bool test_append_loop_shares_buffer(void) {
+    initVM();
+
+    ObjString* piece = allocateString("row entry\n", 10);
+    vm.register_file.globals[0] = STRING_VAL(piece);
+    ObjString* report = allocateString("", 0);
+    ObjString* snapshot = NULL;
+    for (int i = 0; i < APPEND_COUNT; i++) {
+        report = rope_concat_strings(report, piece);
+        vm.register_file.globals[1] = STRING_VAL(report);
+        if (i == 99) {
+            snapshot = report;
+            vm.register_file.globals[2] = STRING_VAL(snapshot);
+        }
+    }
+
+    ASSERT_TRUE(report->length == APPEND_COUNT * 10, "appends should keep every byte");
+    ASSERT_TRUE(report->rope && report->rope->kind == ROPE_SUBSTRING,
+                "append loops should end in a view");
+    StringRope* buffer = report->rope->as.substring.base;
+    ASSERT_TRUE(buffer->kind == ROPE_LEAF && buffer->as.leaf.appendable,
+                "the view should sit on an append buffer");
+    ASSERT_TRUE(buffer->as.leaf.len == (size_t)report->length, "the newest view should own the tail");
+    ASSERT_TRUE(report->rope->depth <= 2, "append loops should not deepen the rope");
+
+    collectGarbage();
+
+    ASSERT_TRUE(snapshot->length == 1000, "older strings should keep their length");
+    const char* old_chars = string_get_chars(snapshot);
+    ASSERT_TRUE(old_chars[990] == 'r' && old_chars[1000] == '\0',
+                "older strings must not see later appends");
+    const char* chars = string_get_chars(report);
+    for (int i = 0; i < APPEND_COUNT; i++) {
+        ASSERT_TRUE(memcmp(chars + i * 10, "row entry\n", 10) == 0, "appended bytes should be in order");
+    }
+
+    freeVM();
+    return true;
+}
+
+static bool test_prepend_loop_stays_balanced(void) {
+    initVM();
+
+    char block[600];
+    memset(block, 'a', sizeof(block));
+    ObjString* prefix = allocateString(block, sizeof(block));
+    vm.register_file.globals[0] = STRING_VAL(prefix);
+    ObjString* text = allocateString("tail of the document...", 23);
+    for (int i = 0; i < APPEND_COUNT; i++) {
+        text = rope_concat_strings(prefix, text);
+        vm.register_file.globals[1] = STRING_VAL(text);
+    }
+
+    ASSERT_TRUE(text->rope != NULL, "prepends should build a rope");
+    ASSERT_TRUE(text->rope->depth <= ORUS_ROPE_MAX_DEPTH, "rope depth should stay bounded");
+    ASSERT_TRUE(text->length == APPEND_COUNT * 600 + 23, "prepends should keep every byte");
+    ObjString* last = string_char_at(text, (size_t)text->length - 1);
+    ASSERT_TRUE(last && last->chars[0] == '.', "the original tail should stay at the end");
+    ObjString* first = string_char_at(text, 0);
+    ASSERT_TRUE(first && first->chars[0] == 'a', "prepended bytes should come first");
+
+    freeVM();
+    return true;
+}
+
+static bool test_flatten_is_shared(void) {
+    initVM();
+
+    char block[600];
+    memset(block, 'b', sizeof(block));
+    StringRope* left = rope_from_cstr(block, sizeof(block));
+    StringRope* right = rope_from_cstr(block, sizeof(block));
+    StringRope* shared = rope_concat(left, right);
+    rope_release(left);
+    rope_release(right);
+    ASSERT_TRUE(shared->kind == ROPE_CONCAT, "long halves should be joined by a concat node");
+    ObjString* first = allocateStringFromRope(shared);
+    rope_retain(shared);
+    ObjString* second = allocateStringFromRope(shared);
+    vm.register_file.globals[0] = STRING_VAL(second);
+
+    const char* flat = string_get_chars(first);
+    ASSERT_TRUE(shared->kind == ROPE_LEAF && shared->as.leaf.data == flat,
+                "flattening should collapse the rope node itself");
+    ASSERT_TRUE(string_get_chars(second) == flat, "strings sharing the rope should reuse the copy");
+
+    collectGarbage();
+
+    ASSERT_TRUE(second->length == 1200 && string_get_chars(second)[1199] == 'b',
+                "the flat copy should outlive the string that made it");
+
+    freeVM();
+    return true;
+}
+
+int main(void) {
+    bool (*tests[])(void) = {
+        test_append_loop_shares_buffer,
+        test_prepend_loop_stays_balanced,
+        test_flatten_is_shared,
+    };
+
+    const char* names[] = {
+        "Append loops share one buffer",
+        "Prepend loops stay balanced",
+        "Flattening is shared by the rope",
+    };
+
+    int passed = 0;
+    int total = (int)(sizeof(tests) / sizeof(tests[0]));
+    for (int i = 0; i < total; i++) {
+        if (tests[i]()) {
+            printf("[PASS] %s\n", names[i]);
+            passed++;
+        } else {
+            printf("[FAIL] %s\n", names[i]);
+            return 1;
+        }
+    }
+
+    printf("%d/%d rope tests passed\n", passed, total);
+    return 0;
+}
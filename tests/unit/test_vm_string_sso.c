@@ -0,0 +1,114 @@
+#include <stdbool.h>
+#include <stdint.h>
+#include <stdio.h>
+#include <string.h>
+
+#include "runtime/memory.h"
+#include "vm/vm.h"
+#include "vm/vm_string_ops.h"
+
+#define ASSERT_TRUE(cond, message)                                                         \
+    do {                                                                                   \
+        if (!(cond)) {                                                                     \
+            fprintf(stderr, "Assertion failed: %s (%s:%d)\n", message, __FILE__, __LINE__); \
+            return false;                                                                  \
+        }                                                                                  \
+    } while (0)
+
+static bool test_short_strings_are_inline(void) {
+    initVM();
+
+    ObjString* s = allocateString("hello", 5);
+    ASSERT_TRUE(s->chars == s->inline_chars, "short strings should live in the object");
+    ASSERT_TRUE(s->rope == NULL, "short strings should not build a rope");
+    ASSERT_TRUE(s->hash == string_hash_bytes("hello", 5), "short strings should hash eagerly");
+    ASSERT_TRUE(s->is_ascii, "plain text should be flagged ASCII");
+
+    ObjString* utf8 = allocateString("h\xc3\xa9", 3);
+    ASSERT_TRUE(!utf8->is_ascii, "multi-byte text must not be flagged ASCII");
+
+    const char* text = "this string is too long to be stored inline";
+    ObjString* big = allocateString(text, strlen(text));
+    ASSERT_TRUE(big->chars != big->inline_chars, "long strings should use a heap buffer");
+    ASSERT_TRUE(strcmp(big->chars, text) == 0, "long strings should keep their contents");
+    ASSERT_TRUE(sizeof(ObjString) <= 64, "ObjString should fit a 64 byte slot");
+
+    freeVM();
+    return true;
+}
+
+static bool test_short_concat_stays_flat(void) {
+    initVM();
+
+    ObjString* left = allocateString("foo", 3);
+    ObjString* right = allocateString("bar", 3);
+    ObjString* joined = rope_concat_strings(left, right);
+    ASSERT_TRUE(joined->rope == NULL, "short concatenations should not build a rope");
+    ASSERT_TRUE(joined->chars == joined->inline_chars, "short concatenations should be inline");
+    ASSERT_TRUE(strcmp(joined->chars, "foobar") == 0, "concatenation should join contents");
+    ASSERT_TRUE(joined->is_ascii, "ASCII should propagate through concatenation");
+    ASSERT_TRUE(valuesEqual(STRING_VAL(joined), STRING_VAL(allocateString("foobar", 6))),
+                "inline strings should compare by contents");
+    ASSERT_TRUE(!valuesEqual(STRING_VAL(joined), STRING_VAL(allocateString("foobaz", 6))),
+                "differing inline strings should not be equal");
+
+    freeVM();
+    return true;
+}
+
+static bool test_long_concat_survives_gc(void) {
+    initVM();
+
+    ObjString* left = allocateString("a fairly long left-hand side ", 29);
+    ObjString* right = allocateString("and an equally long right side", 30);
+    ObjString* joined = rope_concat_strings(left, right);
+    ASSERT_TRUE(joined->rope != NULL, "long concatenations should stay ropes");
+    ASSERT_TRUE(joined->chars == NULL, "ropes should flatten lazily");
+    ASSERT_TRUE(joined->is_ascii, "ASCII should propagate through rope concatenation");
+    vm.register_file.globals[0] = STRING_VAL(joined);
+
+    collectGarbage();
+
+    ObjString* ch = string_char_at(joined, 2);
+    ASSERT_TRUE(ch && ch->length == 1 && ch->chars[0] == 'f', "rope indexing should find the byte");
+    ASSERT_TRUE(ch == intern_string("f", 1), "ASCII index results should be interned");
+    ASSERT_TRUE(string_char_at(joined, 59) == NULL, "indexing past the end should fail");
+
+    const char* flat = string_get_chars(joined);
+    ASSERT_TRUE(strcmp(flat, "a fairly long left-hand side and an equally long right side") == 0,
+                "flattening should survive collection of the operands");
+    ASSERT_TRUE(string_hash(joined) == string_hash_bytes(flat, (size_t)joined->length),
+                "lazily computed hashes should match the contents");
+
+    freeVM();
+    return true;
+}
+
+int main(void) {
+    bool (*tests[])(void) = {
+        test_short_strings_are_inline,
+        test_short_concat_stays_flat,
+        test_long_concat_survives_gc,
+    };
+
+    const char* names[] = {
+        "Short strings are stored inline",
+        "Short concatenations stay flat",
+        "Long concatenations survive GC",
+    };
+
+    int passed = 0;
+    int total = (int)(sizeof(tests) / sizeof(tests[0]));
+    for (int i = 0; i < total; i++) {
+        if (tests[i]()) {
+            printf("[PASS] %s\n", names[i]);
+            passed++;
+        } else {
+            printf("[FAIL] %s\n", names[i]);
+            return 1;
+        }
+    }
+
+    printf("%d/%d string representation tests passed\n", passed, total);
+    return 0;
+}
@@ -0,0 +1,100 @@
+#include <stdbool.h>
+#include <stdint.h>
+#include <stdio.h>
+#include <string.h>
+
+#include "runtime/memory.h"
+#include "vm/vm.h"
+#include "vm/vm_string_ops.h"
+
+#define ASSERT_TRUE(cond, message)                                                         \
+    do {                                                                                   \
+        if (!(cond)) {                                                                     \
+            fprintf(stderr, "Assertion failed: %s (%s:%d)\n", message, __FILE__, __LINE__); \
+            return false;                                                                  \
+        }                                                                                  \
+    } while (0)
+
+static const char* kLine =
+    "GET /index.html 200 0.002s \"Mozilla/5.0 (X11; Linux x86_64)\" upstream=backend-3";
+
+static bool test_long_slices_share_parent(void) {
+    initVM();
+
+    ObjString* line = allocateString(kLine, strlen(kLine));
+    ObjString* agent = string_slice(line, 27, 33);
+    ASSERT_TRUE(agent != NULL, "slice should succeed");
+    ASSERT_TRUE(agent->chars == NULL && agent->rope != NULL, "long slices should be views");
+    ASSERT_TRUE(agent->rope->kind == ROPE_SUBSTRING, "views should be substring nodes");
+    ASSERT_TRUE(agent->rope->as.substring.base->as.leaf.data == line->chars,
+                "views should point at the parent's bytes");
+    ASSERT_TRUE(agent->is_ascii, "views should inherit the ASCII flag");
+
+    ObjString* inner = string_slice(agent, 1, 31);
+    ASSERT_TRUE(inner->rope->as.substring.base == agent->rope->as.substring.base,
+                "views of views should point at the original leaf");
+    ASSERT_TRUE(string_slice(line, 0, (size_t)line->length) == line,
+                "a full-range slice should return the string itself");
+
+    // Only the views stay reachable; the parent object is collected.
+    vm.register_file.globals[0] = STRING_VAL(agent);
+    vm.register_file.globals[1] = STRING_VAL(inner);
+    collectGarbage();
+
+    ASSERT_TRUE(strcmp(string_get_chars(inner), "Mozilla/5.0 (X11; Linux x86_64)") == 0,
+                "views should survive collection of the parent");
+    ASSERT_TRUE(inner->rope->kind == ROPE_LEAF && inner->rope->as.leaf.owns_data,
+                "flattening should replace the view with an owned copy");
+    ObjString* ch = string_char_at(agent, 1);
+    ASSERT_TRUE(ch && ch->chars[0] == 'M', "indexing a view should read the shared bytes");
+    ASSERT_TRUE(strcmp(string_get_chars(agent), "\"Mozilla/5.0 (X11; Linux x86_64)\"") == 0,
+                "flattening should copy only the slice");
+
+    freeVM();
+    return true;
+}
+
+static bool test_short_slices_copy(void) {
+    initVM();
+
+    ObjString* line = allocateString(kLine, strlen(kLine));
+    ObjString* status = string_slice(line, 16, 3);
+    ASSERT_TRUE(status->chars == status->inline_chars, "short slices should be copied inline");
+    ASSERT_TRUE(strcmp(status->chars, "200") == 0, "short slices should copy the range");
+    ASSERT_TRUE(status->hash == string_hash_bytes("200", 3), "short slices should hash eagerly");
+
+    ObjString* empty = string_slice(line, (size_t)line->length, 0);
+    ASSERT_TRUE(empty && empty->length == 0, "empty slices at the end should succeed");
+    ASSERT_TRUE(string_slice(line, 10, (size_t)line->length) == NULL,
+                "out of range slices should fail");
+
+    freeVM();
+    return true;
+}
+
+int main(void) {
+    bool (*tests[])(void) = {
+        test_long_slices_share_parent,
+        test_short_slices_copy,
+    };
+
+    const char* names[] = {
+        "Long slices share the parent buffer",
+        "Short slices are copied",
+    };
+
+    int passed = 0;
+    int total = (int)(sizeof(tests) / sizeof(tests[0]));
+    for (int i = 0; i < total; i++) {
+        if (tests[i]()) {
+            printf("[PASS] %s\n", names[i]);
+            passed++;
+        } else {
+            printf("[FAIL] %s\n", names[i]);
+            return 1;
+        }
+    }
+
+    printf("%d/%d string view tests passed\n", passed, total);
+    return 0;
+}
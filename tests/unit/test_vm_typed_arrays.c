@@ -0,0 +1,124 @@
+#include <stdbool.h>
+#include <stdint.h>
+#include <stdio.h>
+#include <string.h>
+
+#include "runtime/builtins.h"
+#include "runtime/memory.h"
+#include "vm/vm.h"
+
+#define ASSERT_TRUE(cond, message)                                                         \
+    do {                                                                                   \
+        if (!(cond)) {                                                                     \
+            fprintf(stderr, "Assertion failed: %s (%s:%d)\n", message, __FILE__, __LINE__); \
+            return false;                                                                  \
+        }                                                                                  \
+    } while (0)
+
+static bool test_packed_storage_round_trips(void) {
+    initVM();
+
+    ObjArray* ints = allocateTypedArray(2, ARRAY_ELEMENT_I32);
+    for (int i = 0; i < 100; i++) {
+        ASSERT_TRUE(arrayPush(ints, I32_VAL(i * 3)), "push should grow packed storage");
+    }
+    ASSERT_TRUE(ints->kind == ARRAY_ELEMENT_I32, "matching pushes should keep the array packed");
+    ASSERT_TRUE(ints->i32_elements[99] == 297, "packed elements should hold raw values");
+
+    Value element;
+    ASSERT_TRUE(arrayGet(ints, 42, &element) && IS_I32(element) && AS_I32(element) == 126,
+                "reads should box packed elements");
+    ASSERT_TRUE(arraySet(ints, 42, I32_VAL(-1)) && ints->i32_elements[42] == -1,
+                "matching stores should write raw values");
+    ASSERT_TRUE(arrayPop(ints, &element) && AS_I32(element) == 297 && ints->length == 99,
+                "pop should box the last element");
+
+    ObjArray* floats = allocateTypedArray(0, ARRAY_ELEMENT_F64);
+    arrayPush(floats, F64_VAL(0.5));
+    ASSERT_TRUE(floats->kind == ARRAY_ELEMENT_F64 && floats->f64_elements[0] == 0.5,
+                "f64 arrays should store doubles");
+
+    freeVM();
+    return true;
+}
+
+static bool test_mismatched_store_despecializes(void) {
+    initVM();
+
+    ObjArray* ints = allocateTypedArray(4, ARRAY_ELEMENT_I32);
+    arrayPush(ints, I32_VAL(7));
+    arrayPush(ints, I32_VAL(8));
+    vm.register_file.globals[0] = ARRAY_VAL(ints);
+
+    ObjString* text = allocateString("no longer packed", 16);
+    ASSERT_TRUE(arraySet(ints, 1, STRING_VAL(text)), "mismatched stores should still succeed");
+    ASSERT_TRUE(ints->kind == ARRAY_ELEMENT_VALUE, "mismatched stores should box the array");
+    ASSERT_TRUE(IS_I32(ints->elements[0]) && AS_I32(ints->elements[0]) == 7,
+                "existing elements should be boxed in place");
+
+    collectGarbage();
+
+    Value element;
+    ASSERT_TRUE(arrayGet(ints, 1, &element) && IS_STRING(element) && AS_STRING(element) == text,
+                "despecialized arrays should keep their references alive");
+
+    freeVM();
+    return true;
+}
+
+static bool test_builtins_preserve_layout(void) {
+    initVM();
+
+    ObjArray* source = allocateTypedArray(3, ARRAY_ELEMENT_F64);
+    arrayPush(source, F64_VAL(2.5));
+    arrayPush(source, F64_VAL(-1.0));
+    arrayPush(source, F64_VAL(0.0));
+    vm.register_file.globals[0] = ARRAY_VAL(source);
+
+    Value repeated;
+    ASSERT_TRUE(builtin_array_repeat(ARRAY_VAL(source), I32_VAL(3), &repeated),
+                "repeat should succeed");
+    ObjArray* grid = AS_ARRAY(repeated);
+    ASSERT_TRUE(grid->kind == ARRAY_ELEMENT_F64 && grid->length == 9,
+                "repeat should keep packed storage");
+    ASSERT_TRUE(grid->f64_elements[7] == -1.0, "repeat should copy raw elements");
+
+    Value sorted;
+    ASSERT_TRUE(builtin_sorted(ARRAY_VAL(source), &sorted), "sorted should accept packed arrays");
+    ObjArray* ordered = AS_ARRAY(sorted);
+    ASSERT_TRUE(ordered->kind == ARRAY_ELEMENT_F64, "sorted should keep packed storage");
+    ASSERT_TRUE(ordered->f64_elements[0] == -1.0 && ordered->f64_elements[2] == 2.5,
+                "sorted should order packed elements");
+
+    freeVM();
+    return true;
+}
+
+int main(void) {
+    bool (*tests[])(void) = {
+        test_packed_storage_round_trips,
+        test_mismatched_store_despecializes,
+        test_builtins_preserve_layout,
+    };
+
+    const char* names[] = {
+        "Packed storage round-trips",
+        "Mismatched stores despecialize",
+        "Builtins preserve packed layout",
+    };
+
+    int passed = 0;
+    int total = (int)(sizeof(tests) / sizeof(tests[0]));
+    for (int i = 0; i < total; i++) {
+        if (tests[i]()) {
+            printf("[PASS] %s\n", names[i]);
+            passed++;
+        } else {
+            printf("[FAIL] %s\n", names[i]);
+            return 1;
+        }
+    }
+
+    printf("%d/%d typed array tests passed\n", passed, total);
+    return 0;
+}
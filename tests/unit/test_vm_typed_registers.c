@@ -678,6 +678,33 @@ static bool test_cmp_i32_imm_recovers_typed_metadata(void) {
     return true;
 }
 
+static bool test_frame_sync_copies_only_live_typed_payloads(void) {
+    initVM();
+
+    const uint16_t global_reg = 5;
+    const int64_t sentinel = 0x5A5A5A5A5A5A5A5ALL;
+    vm_store_i32_typed_hot(global_reg, 41);
+    TypedRegisterWindow* root = &vm.typed_regs.root_window;
+    root->i64_regs[global_reg] = sentinel;
+
+    CallFrame* frame = allocate_frame(&vm.register_file);
+    ASSERT_TRUE(frame != NULL, "allocate_frame should succeed");
+    TypedRegisterWindow* window = frame->typed_window;
+    ASSERT_TRUE(typed_window_slot_live(window, global_reg) && window->i32_regs[global_reg] == 41,
+                "Live global should be visible in the callee window");
+    ASSERT_TRUE(window->i64_regs[global_reg] != sentinel,
+                "Banks that do not match the slot type should not be copied");
+
+    deallocate_frame(&vm.register_file);
+    ASSERT_TRUE(root->i32_regs[global_reg] == 41 && root->reg_types[global_reg] == REG_TYPE_I32,
+                "Live global should flow back to the parent window");
+    ASSERT_TRUE(root->i64_regs[global_reg] == sentinel,
+                "Returning should leave unrelated banks of the parent untouched");
+
+    freeVM();
+    return true;
+}
+
 int main(void) {
     bool (*tests[])(void) = {
         test_typed_register_deferred_boxing_flushes_on_read,
@@ -688,6 +715,7 @@ int main(void) {
         test_typed_window_reuse_resets_metadata_without_scrubbing,
         test_nested_frames_preserve_typed_windows,
         test_global_typed_state_propagates_across_frames,
+        test_frame_sync_copies_only_live_typed_payloads,
         test_cmp_i32_imm_recovers_typed_metadata,
         test_bool_to_i32_conversion_defers_boxing_until_read,
         test_i32_to_bool_conversion_defers_boxing_until_read,
@@ -703,6 +731,7 @@ int main(void) {
         "Window reuse avoids scrubbing inactive slots",
         "Nested frames reuse typed windows without copying",
         "Global typed state propagates across frames",
+        "Frame sync copies only live typed payloads",
         "CMP_I32_IMM recovers typed metadata on fallback",
         "Bool to i32 conversion defers boxing until read",
         "i32 to bool conversion defers boxing until read",
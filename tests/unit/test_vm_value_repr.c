@@ -0,0 +1,121 @@
+#include <math.h>
+#include <stdbool.h>
+#include <stdint.h>
+#include <stdio.h>
+#include <string.h>
+
+#include "runtime/memory.h"
+#include "vm/vm.h"
+
+#define ASSERT_TRUE(cond, message)                                                         \
+    do {                                                                                   \
+        if (!(cond)) {                                                                     \
+            fprintf(stderr, "Assertion failed: %s (%s:%d)\n", message, __FILE__, __LINE__); \
+            return false;                                                                  \
+        }                                                                                  \
+    } while (0)
+
+static bool test_scalar_round_trip(void) {
+    initVM();
+
+    Value b = BOOL_VAL(true);
+    ASSERT_TRUE(IS_BOOL(b) && AS_BOOL(b), "bool should round-trip");
+
+    Value i = I32_VAL(-42);
+    ASSERT_TRUE(IS_I32(i) && AS_I32(i) == -42, "negative i32 should round-trip");
+
+    Value u = U32_VAL(UINT32_MAX);
+    ASSERT_TRUE(IS_U32(u) && AS_U32(u) == UINT32_MAX, "u32 max should round-trip");
+
+    Value f = F64_VAL(-2.5);
+    ASSERT_TRUE(IS_F64(f) && AS_F64(f) == -2.5, "f64 should round-trip");
+
+    Value neg_inf = F64_VAL(-INFINITY);
+    ASSERT_TRUE(IS_F64(neg_inf) && isinf(AS_F64(neg_inf)) && AS_F64(neg_inf) < 0,
+                "-inf must stay an f64");
+
+    Value nan = F64_VAL(-NAN);
+    ASSERT_TRUE(IS_F64(nan) && isnan(AS_F64(nan)), "NaN must stay an f64");
+
+    freeVM();
+    return true;
+}
+
+static bool test_wide_integers_survive_gc(void) {
+    initVM();
+
+    const int64_t samples[] = {0, -1, INT64_MAX, INT64_MIN, (INT64_C(1) << 46), -(INT64_C(1) << 46) - 1};
+    Value values[sizeof(samples) / sizeof(samples[0])];
+    for (size_t s = 0; s < sizeof(samples) / sizeof(samples[0]); s++) {
+        values[s] = I64_VAL(samples[s]);
+        vm.register_file.globals[s] = values[s];
+    }
+    Value umax = U64_VAL(UINT64_MAX);
+    vm.register_file.globals[10] = umax;
+
+    collectGarbage();
+
+    for (size_t s = 0; s < sizeof(samples) / sizeof(samples[0]); s++) {
+        Value v = vm.register_file.globals[s];
+        ASSERT_TRUE(IS_I64(v), "i64 tag should survive collection");
+        ASSERT_TRUE(AS_I64(v) == samples[s], "i64 payload should survive collection");
+        ASSERT_TRUE(valuesEqual(v, I64_VAL(samples[s])), "i64 equality should compare contents");
+    }
+    ASSERT_TRUE(IS_U64(vm.register_file.globals[10]) &&
+                    AS_U64(vm.register_file.globals[10]) == UINT64_MAX,
+                "u64 max should survive collection");
+
+    freeVM();
+    return true;
+}
+
+static bool test_object_values_keep_identity(void) {
+    initVM();
+
+    ObjString* str = allocateString("nanbox", 6);
+    ObjArray* array = allocateArray(4);
+    Value s = STRING_VAL(str);
+    Value a = ARRAY_VAL(array);
+
+    ASSERT_TRUE(IS_STRING(s) && AS_STRING(s) == str, "string pointer should round-trip");
+    ASSERT_TRUE(IS_ARRAY(a) && AS_ARRAY(a) == array, "array pointer should round-trip");
+    ASSERT_TRUE(!IS_STRING(a) && !IS_F64(a), "object tags must not alias");
+
+#if ORUS_VALUE_NANBOX
+    ASSERT_TRUE(sizeof(Value) == 8, "NaN-boxed Value should be 8 bytes");
+#else
+    ASSERT_TRUE(sizeof(Value) == 16, "Tagged Value should be 16 bytes");
+#endif
+
+    freeVM();
+    return true;
+}
+
+int main(void) {
+    bool (*tests[])(void) = {
+        test_scalar_round_trip,
+        test_wide_integers_survive_gc,
+        test_object_values_keep_identity,
+    };
+
+    const char* names[] = {
+        "Scalar values round-trip",
+        "Wide integers survive GC",
+        "Object values keep identity",
+    };
+
+    int passed = 0;
+    int total = (int)(sizeof(tests) / sizeof(tests[0]));
+    for (int i = 0; i < total; i++) {
+        if (tests[i]()) {
+            printf("[PASS] %s\n", names[i]);
+            passed++;
+        } else {
+            printf("[FAIL] %s\n", names[i]);
+            return 1;
+        }
+    }
+
+    printf("%d/%d value representation tests passed\n", passed, total);
+    return 0;
+}